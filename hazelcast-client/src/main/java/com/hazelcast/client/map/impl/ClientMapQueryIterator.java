@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.client.map.impl;
+
+import com.hazelcast.client.impl.clientside.HazelcastClientInstanceImpl;
+import com.hazelcast.client.impl.protocol.ClientMessage;
+import com.hazelcast.client.impl.protocol.codec.MapFetchWithQueryCodec;
+import com.hazelcast.client.proxy.ClientMapProxy;
+import com.hazelcast.client.spi.ClientContext;
+import com.hazelcast.client.spi.impl.ClientInvocation;
+import com.hazelcast.core.IMap;
+import com.hazelcast.map.impl.iterator.AbstractMapQueryIterator;
+import com.hazelcast.nio.serialization.Data;
+import com.hazelcast.projection.Projection;
+import com.hazelcast.query.Predicate;
+import com.hazelcast.spi.serialization.SerializationService;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.concurrent.Future;
+
+/**
+ * Iterator for streaming the result of a query over all the partitions of a
+ * map. The values are not fetched one-by-one but rather in batches.
+ * The {@link Iterator#remove()} method is not supported and will throw an {@link UnsupportedOperationException}.
+ * <b>NOTE</b>
+ * Iterating the map should be done only when the {@link IMap} is not being
+ * mutated and the cluster is stable (there are no migrations or membership changes).
+ * In other cases, the iterator may not return some entries or may return an entry twice.
+ *
+ * @see AbstractMapQueryIterator
+ */
+public class ClientMapQueryIterator<K, V, R> extends AbstractMapQueryIterator<K, V, R, ClientMessage> {
+
+    private final ClientMapProxy<K, V> mapProxy;
+    private final ClientContext context;
+    private final Data projectionData;
+    private final Data predicateData;
+
+    public ClientMapQueryIterator(ClientMapProxy<K, V> mapProxy, ClientContext context, int fetchSize,
+                                  Predicate<K, V> predicate, Projection<Entry<K, V>, R> projection) {
+        super(mapProxy, fetchSize, context.getPartitionService().getPartitionCount(), predicate, projection);
+        this.mapProxy = mapProxy;
+        this.context = context;
+        // serialized once for all the batches
+        this.projectionData = context.getSerializationService().toData(projection);
+        this.predicateData = context.getSerializationService().toData(predicate);
+        start();
+    }
+
+    @Override
+    protected Future<ClientMessage> fetch(int partitionId, int tableIndex) {
+        HazelcastClientInstanceImpl client = (HazelcastClientInstanceImpl) context.getHazelcastInstance();
+        ClientMessage request = MapFetchWithQueryCodec.encodeRequest(mapProxy.getName(), tableIndex, fetchSize,
+                projectionData, predicateData);
+        return new ClientInvocation(client, request, mapProxy.getName(), partitionId).invoke();
+    }
+
+    @Override
+    protected List<Data> readResults(ClientMessage response) {
+        MapFetchWithQueryCodec.ResponseParameters responseParameters = MapFetchWithQueryCodec.decodeResponse(response);
+        setNextTableIndex(responseParameters.nextTableIndexToReadFrom);
+        return responseParameters.results;
+    }
+
+    @Override
+    protected SerializationService getSerializationService() {
+        return context.getSerializationService();
+    }
+
+}
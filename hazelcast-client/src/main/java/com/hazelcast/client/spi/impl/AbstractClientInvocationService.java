@@ -29,6 +29,7 @@ import com.hazelcast.client.spi.impl.listener.AbstractClientListenerService;
 import com.hazelcast.internal.metrics.Probe;
 import com.hazelcast.logging.ILogger;
 import com.hazelcast.spi.exception.TargetDisconnectedException;
+import com.hazelcast.spi.impl.sequence.AdaptiveConcurrencyLimit;
 import com.hazelcast.spi.impl.sequence.CallIdFactory;
 import com.hazelcast.spi.impl.sequence.CallIdSequence;
 import com.hazelcast.spi.properties.HazelcastProperties;
@@ -42,6 +43,8 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 
 import static com.hazelcast.client.spi.properties.ClientProperty.BACKPRESSURE_BACKOFF_TIMEOUT_MILLIS;
+import static com.hazelcast.client.spi.properties.ClientProperty.INVOCATION_ADAPTIVE_LATENCY_TOLERANCE;
+import static com.hazelcast.client.spi.properties.ClientProperty.INVOCATION_ADAPTIVE_LIMIT_ENABLED;
 import static com.hazelcast.client.spi.properties.ClientProperty.INVOCATION_RETRY_PAUSE_MILLIS;
 import static com.hazelcast.client.spi.properties.ClientProperty.INVOCATION_TIMEOUT_SECONDS;
 import static com.hazelcast.client.spi.properties.ClientProperty.MAX_CONCURRENT_INVOCATIONS;
@@ -52,6 +55,7 @@ public abstract class AbstractClientInvocationService implements ClientInvocatio
 
     private static final HazelcastProperty CLEAN_RESOURCES_MILLIS
             = new HazelcastProperty("hazelcast.client.internal.clean.resources.millis", 100, MILLISECONDS);
+    private static final int MIN_ADAPTIVE_LIMIT = 16;
 
     protected final HazelcastClientInstanceImpl client;
 
@@ -80,12 +84,29 @@ public abstract class AbstractClientInvocationService implements ClientInvocatio
         HazelcastProperties properties = client.getProperties();
         int maxAllowedConcurrentInvocations = properties.getInteger(MAX_CONCURRENT_INVOCATIONS);
         long backofftimeoutMs = properties.getLong(BACKPRESSURE_BACKOFF_TIMEOUT_MILLIS);
+        AdaptiveConcurrencyLimit adaptiveLimit = newAdaptiveLimit(properties, maxAllowedConcurrentInvocations);
         // clients needs to have a call id generator capable of determining how many
         // pending calls there are. So backpressure needs to be on
         this.callIdSequence = CallIdFactory
-                .newCallIdSequence(true, maxAllowedConcurrentInvocations, backofftimeoutMs);
+                .newCallIdSequence(true, maxAllowedConcurrentInvocations, backofftimeoutMs, adaptiveLimit);
 
         client.getMetricsRegistry().scanAndRegister(this, "invocations");
+        if (adaptiveLimit != null) {
+            client.getMetricsRegistry().scanAndRegister(adaptiveLimit, "invocations.adaptiveLimit");
+        }
+    }
+
+    private static AdaptiveConcurrencyLimit newAdaptiveLimit(HazelcastProperties properties, int maxConcurrentInvocations) {
+        if (!properties.getBoolean(INVOCATION_ADAPTIVE_LIMIT_ENABLED)) {
+            return null;
+        }
+        double tolerance = properties.getDouble(INVOCATION_ADAPTIVE_LATENCY_TOLERANCE);
+        if (tolerance < 1) {
+            throw new IllegalArgumentException("Can't have '" + INVOCATION_ADAPTIVE_LATENCY_TOLERANCE.getName()
+                    + "' with a value smaller than 1");
+        }
+        return new AdaptiveConcurrencyLimit(Math.min(MIN_ADAPTIVE_LIMIT, maxConcurrentInvocations),
+                maxConcurrentInvocations, tolerance);
     }
 
     @Override
@@ -35,6 +35,7 @@ public class ClientInvocationFuture extends AbstractInvocationFuture<ClientMessa
     private final ClientMessage request;
     private final ClientInvocation invocation;
     private final CallIdSequence callIdSequence;
+    private final long startNanos = System.nanoTime();
 
     public ClientInvocationFuture(ClientInvocation invocation,
                                   Executor internalExecutor,
@@ -87,6 +88,7 @@ public class ClientInvocationFuture extends AbstractInvocationFuture<ClientMessa
 
     @Override
     protected void onComplete() {
+        callIdSequence.recordLatency(System.nanoTime() - startNanos);
         callIdSequence.complete();
     }
 
@@ -99,6 +99,26 @@ public final class ClientProperty {
     public static final HazelcastProperty MAX_CONCURRENT_INVOCATIONS
             = new HazelcastProperty("hazelcast.client.max.concurrent.invocations", Integer.MAX_VALUE);
 
+    /**
+     * Enables the adaptive limit of the concurrent invocations. The limit is lowered below
+     * {@link #MAX_CONCURRENT_INVOCATIONS} when the latency of the invocations grows beyond
+     * {@link #INVOCATION_ADAPTIVE_LATENCY_TOLERANCE} times the latency of the unloaded cluster and raised again
+     * when the latency recovers, so an overload of the cluster is shed by the client instead of queuing up.
+     * <p/>
+     * The default is false.
+     */
+    public static final HazelcastProperty INVOCATION_ADAPTIVE_LIMIT_ENABLED
+            = new HazelcastProperty("hazelcast.client.invocation.adaptive.limit.enabled", false);
+
+    /**
+     * The factor of the latency of the unloaded cluster tolerated before the adaptive limit of the concurrent
+     * invocations is lowered, see {@link #INVOCATION_ADAPTIVE_LIMIT_ENABLED}. Can't be smaller than 1.
+     * <p/>
+     * The default is 2.
+     */
+    public static final HazelcastProperty INVOCATION_ADAPTIVE_LATENCY_TOLERANCE
+            = new HazelcastProperty("hazelcast.client.invocation.adaptive.latency.tolerance", "2");
+
     /**
      * Control the maximum timeout in millis to wait for an invocation space to be available.
      * <p/>
@@ -167,6 +187,25 @@ public final class ClientProperty {
     public static final HazelcastProperty IO_BALANCER_INTERVAL_SECONDS
             = new HazelcastProperty("hazelcast.client.io.balancer.interval.seconds", 20, SECONDS);
 
+    /**
+     * Enables the pooling of the socket buffers of the client connections: a connection borrows its receive and
+     * send buffers from a pool shared by all the connections while it has data in flight and returns them once
+     * they are drained.
+     * <p/>
+     * The default is false.
+     */
+    public static final HazelcastProperty IO_BUFFER_POOL_ENABLED
+            = new HazelcastProperty("hazelcast.client.io.buffer.pool.enabled", false);
+
+    /**
+     * The maximum size in megabytes of the buffers kept in the socket buffer pool, see
+     * {@link #IO_BUFFER_POOL_ENABLED}.
+     * <p/>
+     * The default is 16 megabytes.
+     */
+    public static final HazelcastProperty IO_BUFFER_POOL_MAX_SIZE_MB
+            = new HazelcastProperty("hazelcast.client.io.buffer.pool.max.size.mb", 16);
+
     /**
      * The number of response threads.
      *
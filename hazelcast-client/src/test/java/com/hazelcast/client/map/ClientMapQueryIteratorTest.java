@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.client.map;
+
+import com.hazelcast.client.proxy.ClientMapProxy;
+import com.hazelcast.client.test.TestHazelcastFactory;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.projection.Projection;
+import com.hazelcast.projection.Projections;
+import com.hazelcast.query.PagingPredicate;
+import com.hazelcast.query.TruePredicate;
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import com.hazelcast.test.HazelcastTestSupport;
+import com.hazelcast.test.annotation.ParallelTest;
+import com.hazelcast.test.annotation.QuickTest;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.NoSuchElementException;
+
+import static com.hazelcast.query.Predicates.lessThan;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+@RunWith(HazelcastParallelClassRunner.class)
+@Category({QuickTest.class, ParallelTest.class})
+public class ClientMapQueryIteratorTest extends HazelcastTestSupport {
+
+    private TestHazelcastFactory factory;
+    private ClientMapProxy<Integer, Integer> proxy;
+
+    @Before
+    public void setup() {
+        factory = new TestHazelcastFactory();
+        factory.newHazelcastInstance(getConfig());
+        factory.newHazelcastInstance(getConfig());
+        HazelcastInstance client = factory.newHazelcastClient();
+        proxy = (ClientMapProxy<Integer, Integer>) client.<Integer, Integer>getMap(randomMapName());
+    }
+
+    @After
+    public void teardown() {
+        factory.terminateAll();
+    }
+
+    @Test
+    public void test_HasNext_Returns_False_On_EmptyMap() {
+        Iterator<Integer> iterator = proxy.iterator(10, new GetValueProjection(), TruePredicate.<Integer, Integer>truePredicate());
+        assertFalse(iterator.hasNext());
+    }
+
+    @Test(expected = NoSuchElementException.class)
+    public void test_next_Throws_Exception_On_EmptyMap() {
+        proxy.iterator(10, new GetValueProjection(), TruePredicate.<Integer, Integer>truePredicate()).next();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void test_paging_predicate_throws_exception() {
+        proxy.iterator(10, new GetValueProjection(), new PagingPredicate<Integer, Integer>(10));
+    }
+
+    @Test
+    public void test_iterates_all_partitions() {
+        int count = 1000;
+        for (int i = 0; i < count; ++i) {
+            proxy.put(i, i);
+        }
+
+        List<Integer> values = collectAll(proxy.iterator(7, new GetValueProjection(),
+                TruePredicate.<Integer, Integer>truePredicate()));
+        assertEquals(count, values.size());
+        Collections.sort(values);
+        for (int i = 0; i < count; ++i) {
+            assertEquals(i, (int) values.get(i));
+        }
+    }
+
+    @Test
+    public void test_with_projection_and_predicate() {
+        int count = 1000;
+        for (int i = 0; i < count; ++i) {
+            proxy.put(i, i);
+        }
+
+        List<Entry<Integer, Integer>> entries = collectAll(proxy.iterator(10,
+                Projections.<Entry<Integer, Integer>>identity(), lessThan("this", 100)));
+        assertEquals(100, entries.size());
+        for (Entry<Integer, Integer> entry : entries) {
+            assertEquals(entry.getKey(), entry.getValue());
+        }
+    }
+
+    private static <T> List<T> collectAll(Iterator<T> iterator) {
+        List<T> result = new ArrayList<T>();
+        while (iterator.hasNext()) {
+            result.add(iterator.next());
+        }
+        return result;
+    }
+
+    private static class GetValueProjection extends Projection<Map.Entry<Integer, Integer>, Integer> {
+        @Override
+        public Integer transform(Map.Entry<Integer, Integer> input) {
+            return input.getValue();
+        }
+    }
+}
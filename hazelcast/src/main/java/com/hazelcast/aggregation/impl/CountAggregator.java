@@ -23,7 +23,8 @@ import com.hazelcast.nio.serialization.IdentifiedDataSerializable;
 
 import java.io.IOException;
 
-public final class CountAggregator<I> extends AbstractAggregator<I, Object, Long> implements IdentifiedDataSerializable {
+public final class CountAggregator<I> extends AbstractAggregator<I, Object, Long> implements IdentifiedDataSerializable,
+        PrimitiveAccumulator {
     private long count;
 
     public CountAggregator() {
@@ -39,6 +40,21 @@ public final class CountAggregator<I> extends AbstractAggregator<I, Object, Long
         count++;
     }
 
+    @Override
+    public String getAttributePath() {
+        return attributePath;
+    }
+
+    @Override
+    public Class<? extends Number> getAccumulatedType() {
+        return null;
+    }
+
+    @Override
+    public void accumulatePrimitives(long count, long longSum, double doubleSum) {
+        this.count += count;
+    }
+
     @Override
     public void combine(Aggregator aggregator) {
         CountAggregator countAggregator = (CountAggregator) aggregator;
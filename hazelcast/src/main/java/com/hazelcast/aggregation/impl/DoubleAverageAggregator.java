@@ -24,7 +24,7 @@ import com.hazelcast.nio.serialization.IdentifiedDataSerializable;
 import java.io.IOException;
 
 public final class DoubleAverageAggregator<I> extends AbstractAggregator<I, Double, Double>
-        implements IdentifiedDataSerializable {
+        implements IdentifiedDataSerializable, PrimitiveAccumulator {
 
     private double sum;
 
@@ -44,6 +44,22 @@ public final class DoubleAverageAggregator<I> extends AbstractAggregator<I, Doub
         sum += value;
     }
 
+    @Override
+    public String getAttributePath() {
+        return attributePath;
+    }
+
+    @Override
+    public Class<? extends Number> getAccumulatedType() {
+        return Double.class;
+    }
+
+    @Override
+    public void accumulatePrimitives(long count, long longSum, double doubleSum) {
+        this.count += count;
+        this.sum += doubleSum;
+    }
+
     @Override
     public void combine(Aggregator aggregator) {
         DoubleAverageAggregator doubleAverageAggregator = (DoubleAverageAggregator) aggregator;
@@ -23,7 +23,8 @@ import com.hazelcast.nio.serialization.IdentifiedDataSerializable;
 
 import java.io.IOException;
 
-public final class LongSumAggregator<I> extends AbstractAggregator<I, Long, Long> implements IdentifiedDataSerializable {
+public final class LongSumAggregator<I> extends AbstractAggregator<I, Long, Long> implements IdentifiedDataSerializable,
+        PrimitiveAccumulator {
 
     private long sum;
 
@@ -40,6 +41,21 @@ public final class LongSumAggregator<I> extends AbstractAggregator<I, Long, Long
         sum += value;
     }
 
+    @Override
+    public String getAttributePath() {
+        return attributePath;
+    }
+
+    @Override
+    public Class<? extends Number> getAccumulatedType() {
+        return Long.class;
+    }
+
+    @Override
+    public void accumulatePrimitives(long count, long longSum, double doubleSum) {
+        sum += longSum;
+    }
+
     @Override
     public void combine(Aggregator aggregator) {
         LongSumAggregator longSumAggregator = (LongSumAggregator) aggregator;
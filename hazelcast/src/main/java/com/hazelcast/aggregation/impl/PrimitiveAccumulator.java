@@ -0,0 +1,51 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.aggregation.impl;
+
+/**
+ * Implemented by the aggregators able to accumulate the values of a numeric
+ * attribute in bulk, without extracting them from the individual entries.
+ * Used by the columnar partition scans which keep the attribute values in
+ * primitive columns.
+ */
+public interface PrimitiveAccumulator {
+
+    /**
+     * @return the path of the accumulated attribute or {@code null} if the
+     * values of the entries are accumulated.
+     */
+    String getAttributePath();
+
+    /**
+     * @return the class the accumulated values must have or {@code null} if
+     * the values aren't inspected, like when counting them.
+     */
+    Class<? extends Number> getAccumulatedType();
+
+    /**
+     * Accumulates the given number of the values, the result must be the
+     * same as if the values were accumulated one by one.
+     *
+     * @param count     the number of the values.
+     * @param longSum   the sum of the values if the accumulated type is
+     *                  integral.
+     * @param doubleSum the sum of the values if the accumulated type is
+     *                  floating point.
+     */
+    void accumulatePrimitives(long count, long longSum, double doubleSum);
+
+}
@@ -0,0 +1,45 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.client.impl.protocol.util;
+
+import com.hazelcast.client.impl.protocol.ClientMessage;
+import com.hazelcast.internal.networking.GatheringOutboundHandler;
+
+import java.nio.ByteBuffer;
+
+/**
+ * The {@link ClientMessageEncoder} alternative that writes batches of
+ * ClientMessages with gathering writes. The large messages are added to the
+ * gathering writes as heap buffers wrapping their byte arrays.
+ *
+ * @see ClientMessageEncoder
+ * @see com.hazelcast.spi.properties.GroupProperty#IO_GATHERING_WRITE_ENABLED
+ */
+public class GatheringClientMessageEncoder extends GatheringOutboundHandler<ClientMessage> {
+
+    @Override
+    protected boolean encode(ClientMessage message, ByteBuffer stagingBuffer) {
+        byte[] bytes = message.buffer().byteArray();
+        int size = message.getFrameLength();
+        if (size < COPY_THRESHOLD && stagingBuffer.remaining() >= size) {
+            stagingBuffer.put(bytes, 0, size);
+        } else {
+            add(ByteBuffer.wrap(bytes, 0, size));
+        }
+        return true;
+    }
+}
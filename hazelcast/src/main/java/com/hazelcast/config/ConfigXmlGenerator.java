@@ -1097,7 +1097,7 @@ public class ConfigXmlGenerator {
         if (!mapIndexConfigs.isEmpty()) {
             gen.open("indexes");
             for (MapIndexConfig indexCfg : mapIndexConfigs) {
-                gen.node("index", indexCfg.getAttribute(), "ordered", indexCfg.isOrdered());
+                gen.node("index", indexCfg.getAttribute(), "ordered", indexCfg.isOrdered(), "bitmap", indexCfg.isBitmap());
             }
             gen.close();
         }
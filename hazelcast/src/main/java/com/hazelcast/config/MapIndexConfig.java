@@ -16,11 +16,13 @@
 
 package com.hazelcast.config;
 
+import com.hazelcast.internal.cluster.Versions;
 import com.hazelcast.logging.ILogger;
 import com.hazelcast.logging.Logger;
 import com.hazelcast.nio.ObjectDataInput;
 import com.hazelcast.nio.ObjectDataOutput;
 import com.hazelcast.nio.serialization.IdentifiedDataSerializable;
+import com.hazelcast.nio.serialization.impl.Versioned;
 
 import java.io.IOException;
 
@@ -32,12 +34,13 @@ import static com.hazelcast.util.Preconditions.checkHasText;
  * with the {@link MapConfig}. The reason to create an map index is to speed up searches for
  * particular map entries.
  */
-public class MapIndexConfig implements IdentifiedDataSerializable {
+public class MapIndexConfig implements IdentifiedDataSerializable, Versioned {
 
     private static final ILogger LOG = Logger.getLogger(MapIndexConfig.class);
 
     private String attribute;
     private boolean ordered;
+    private boolean bitmap;
     private transient MapIndexConfigReadOnly readOnly;
 
     /**
@@ -62,6 +65,7 @@ public class MapIndexConfig implements IdentifiedDataSerializable {
     public MapIndexConfig(MapIndexConfig config) {
         attribute = config.getAttribute();
         ordered = config.isOrdered();
+        bitmap = config.isBitmap();
     }
 
     /**
@@ -122,9 +126,34 @@ public class MapIndexConfig implements IdentifiedDataSerializable {
         return this;
     }
 
+    /**
+     * Checks if the index is a bitmap index.
+     *
+     * @return {@code true} if bitmap, {@code false} otherwise
+     * @see #setBitmap(boolean)
+     */
+    public boolean isBitmap() {
+        return bitmap;
+    }
+
+    /**
+     * Configures the index to be a bitmap index. Bitmap indexes suit attributes having only a handful
+     * of distinct values, such as a status or a region: each value keeps a compressed bitmap of the
+     * entries having it, so equality, {@code in} and not-equal predicates and their conjunctions and
+     * disjunctions are answered with bitmap operations. A bitmap index can't be ordered and can't be
+     * a composite index.
+     *
+     * @param bitmap if the index should be a bitmap index
+     * @return the updated MapIndexConfig
+     */
+    public MapIndexConfig setBitmap(boolean bitmap) {
+        this.bitmap = bitmap;
+        return this;
+    }
+
     @Override
     public String toString() {
-        return "MapIndexConfig{attribute='" + attribute + "', ordered=" + ordered + '}';
+        return "MapIndexConfig{attribute='" + attribute + "', ordered=" + ordered + ", bitmap=" + bitmap + '}';
     }
 
     /**
@@ -159,12 +188,20 @@ public class MapIndexConfig implements IdentifiedDataSerializable {
     public void writeData(ObjectDataOutput out) throws IOException {
         out.writeUTF(attribute);
         out.writeBoolean(ordered);
+        // RU_COMPAT_3_11
+        if (out.getVersion().isGreaterOrEqual(Versions.V3_12)) {
+            out.writeBoolean(bitmap);
+        }
     }
 
     @Override
     public void readData(ObjectDataInput in) throws IOException {
         attribute = in.readUTF();
         ordered = in.readBoolean();
+        // RU_COMPAT_3_11
+        if (in.getVersion().isGreaterOrEqual(Versions.V3_12)) {
+            bitmap = in.readBoolean();
+        }
     }
 
     @Override
@@ -180,6 +217,9 @@ public class MapIndexConfig implements IdentifiedDataSerializable {
         if (ordered != that.ordered) {
             return false;
         }
+        if (bitmap != that.bitmap) {
+            return false;
+        }
         return attribute != null ? attribute.equals(that.attribute) : that.attribute == null;
     }
 
@@ -187,6 +227,7 @@ public class MapIndexConfig implements IdentifiedDataSerializable {
     public final int hashCode() {
         int result = attribute != null ? attribute.hashCode() : 0;
         result = 31 * result + (ordered ? 1 : 0);
+        result = 31 * result + (bitmap ? 1 : 0);
         return result;
     }
 }
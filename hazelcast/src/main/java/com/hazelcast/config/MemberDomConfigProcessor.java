@@ -1945,8 +1945,9 @@ class MemberDomConfigProcessor extends AbstractDomConfigProcessor {
             if ("index".equals(cleanNodeName(indexNode))) {
                 NamedNodeMap attrs = indexNode.getAttributes();
                 boolean ordered = getBooleanValue(getTextContent(attrs.getNamedItem("ordered")));
+                boolean bitmap = getBooleanValue(getTextContent(attrs.getNamedItem("bitmap")));
                 String attribute = getTextContent(indexNode);
-                mapConfig.addMapIndexConfig(new MapIndexConfig(attribute, ordered));
+                mapConfig.addMapIndexConfig(new MapIndexConfig(attribute, ordered).setBitmap(bitmap));
             }
         }
     }
@@ -499,8 +499,9 @@ class YamlMemberDomConfigProcessor extends MemberDomConfigProcessor {
         for (Node indexNode : childElements(n)) {
             NamedNodeMap attrs = indexNode.getAttributes();
             boolean ordered = getBooleanValue(getTextContent(attrs.getNamedItem("ordered")));
+            boolean bitmap = getBooleanValue(getTextContent(attrs.getNamedItem("bitmap")));
             String attribute = indexNode.getNodeName();
-            mapConfig.addMapIndexConfig(new MapIndexConfig(attribute, ordered));
+            mapConfig.addMapIndexConfig(new MapIndexConfig(attribute, ordered).setBitmap(bitmap));
         }
     }
 
@@ -0,0 +1,51 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hazelcast.core;
+
+/**
+ * A {@link MapLoader} which can enumerate the keys of a single partition.
+ * <p>
+ * The initial load of a map backed by a partition-aware map loader is done
+ * by every member in parallel: each member enumerates the keys of the
+ * partitions it owns by calling {@link #loadAllKeys(int)} and loads their
+ * values, instead of a single member enumerating all the keys with
+ * {@link #loadAllKeys()} and dispatching them to the partition owners. The
+ * calls for different partitions may be concurrent.
+ * <p>
+ * The keys returned for a partition are expected to belong to the
+ * partition, see {@link PartitionService#getPartition(Object)}. A common
+ * way to achieve it is to store the partition ID of each entry in the
+ * backing store. The keys not belonging to the partition are still loaded,
+ * but they are sent to their partitions, which is slower.
+ * <p>
+ * {@link IMap#loadAll(boolean)} still uses {@link #loadAllKeys()}.
+ *
+ * @param <K> type of the MapLoader key
+ * @param <V> type of the MapLoader value
+ */
+public interface PartitionAwareMapLoader<K, V> extends MapLoader<K, V> {
+
+    /**
+     * Loads the keys of the given partition. If the returned iterable is
+     * {@link java.io.Closeable}, it's closed when the iteration is over.
+     *
+     * @param partitionId the ID of the partition to load the keys of
+     * @return all the keys of the partition, {@code null} if none
+     */
+    Iterable<K> loadAllKeys(int partitionId);
+}
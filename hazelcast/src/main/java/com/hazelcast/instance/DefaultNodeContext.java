@@ -20,10 +20,12 @@ import com.hazelcast.cluster.Joiner;
 import com.hazelcast.config.Config;
 import com.hazelcast.config.ConfigurationException;
 import com.hazelcast.config.MemberAddressProviderConfig;
+import com.hazelcast.internal.networking.ChannelBufferPool;
 import com.hazelcast.internal.networking.ChannelErrorHandler;
 import com.hazelcast.internal.networking.Networking;
 import com.hazelcast.internal.networking.ServerSocketRegistry;
 import com.hazelcast.internal.networking.nio.NioNetworking;
+import com.hazelcast.internal.networking.spinning.SpinningNetworking;
 import com.hazelcast.internal.util.InstantiationUtils;
 import com.hazelcast.logging.ILogger;
 import com.hazelcast.logging.LoggingServiceImpl;
@@ -40,9 +42,13 @@ import java.util.List;
 import java.util.Properties;
 
 import static com.hazelcast.config.ConfigAccessor.getActiveMemberNetworkConfig;
+import static com.hazelcast.memory.MemoryUnit.MEGABYTES;
 import static com.hazelcast.spi.properties.GroupProperty.IO_BALANCER_INTERVAL_SECONDS;
+import static com.hazelcast.spi.properties.GroupProperty.IO_BUFFER_POOL_ENABLED;
+import static com.hazelcast.spi.properties.GroupProperty.IO_BUFFER_POOL_MAX_SIZE_MB;
 import static com.hazelcast.spi.properties.GroupProperty.IO_INPUT_THREAD_COUNT;
 import static com.hazelcast.spi.properties.GroupProperty.IO_OUTPUT_THREAD_COUNT;
+import static com.hazelcast.spi.properties.GroupProperty.IO_TRANSPORT;
 import static java.util.Arrays.asList;
 import static java.util.Collections.unmodifiableList;
 
@@ -54,6 +60,9 @@ public class DefaultNodeContext implements NodeContext {
             "com.hazelcast.instance.DefaultNodeExtension"
     ));
 
+    private static final String NIO_TRANSPORT = "nio";
+    private static final String SPINNING_TRANSPORT = "spinning";
+
     @Override
     public NodeExtension createNodeExtension(Node node) {
         return NodeExtensionFactory.create(node, EXTENSION_PRIORITY_LIST);
@@ -165,6 +174,21 @@ public class DefaultNodeContext implements NodeContext {
 
         HazelcastProperties props = node.getProperties();
 
+        String transport = props.getString(IO_TRANSPORT);
+        if (SPINNING_TRANSPORT.equalsIgnoreCase(transport)) {
+            return new SpinningNetworking(
+                    new SpinningNetworking.Context()
+                            .loggingService(loggingService)
+                            .metricsRegistry(node.nodeEngine.getMetricsRegistry())
+                            .threadNamePrefix(node.hazelcastInstance.getName())
+                            .errorHandler(errorHandler)
+                            .inputThreadCount(props.getInteger(IO_INPUT_THREAD_COUNT))
+                            .outputThreadCount(props.getInteger(IO_OUTPUT_THREAD_COUNT)));
+        } else if (!NIO_TRANSPORT.equalsIgnoreCase(transport)) {
+            throw new ConfigurationException("Unknown " + IO_TRANSPORT.getName() + " '" + transport + "', use '"
+                    + NIO_TRANSPORT + "' or '" + SPINNING_TRANSPORT + "'");
+        }
+
         return new NioNetworking(
                 new NioNetworking.Context()
                         .loggingService(loggingService)
@@ -173,6 +197,9 @@ public class DefaultNodeContext implements NodeContext {
                         .errorHandler(errorHandler)
                         .inputThreadCount(props.getInteger(IO_INPUT_THREAD_COUNT))
                         .outputThreadCount(props.getInteger(IO_OUTPUT_THREAD_COUNT))
-                        .balancerIntervalSeconds(props.getInteger(IO_BALANCER_INTERVAL_SECONDS)));
+                        .balancerIntervalSeconds(props.getInteger(IO_BALANCER_INTERVAL_SECONDS))
+                        .bufferPool(props.getBoolean(IO_BUFFER_POOL_ENABLED)
+                                ? new ChannelBufferPool(MEGABYTES.toBytes(props.getLong(IO_BUFFER_POOL_MAX_SIZE_MB)))
+                                : null));
     }
 }
@@ -74,6 +74,7 @@ import com.hazelcast.nio.IOService;
 import com.hazelcast.nio.MemberSocketInterceptor;
 import com.hazelcast.nio.tcp.DefaultChannelInitializerProvider;
 import com.hazelcast.nio.tcp.PacketDecoder;
+import com.hazelcast.nio.tcp.GatheringPacketEncoder;
 import com.hazelcast.nio.tcp.PacketEncoder;
 import com.hazelcast.nio.tcp.TcpIpConnection;
 import com.hazelcast.partition.strategy.DefaultPartitioningStrategy;
@@ -104,6 +105,7 @@ import java.util.concurrent.CopyOnWriteArrayList;
 
 import static com.hazelcast.config.ConfigAccessor.getActiveMemberNetworkConfig;
 import static com.hazelcast.map.impl.MapServiceConstructor.getDefaultMapServiceConstructor;
+import static com.hazelcast.spi.properties.GroupProperty.IO_GATHERING_WRITE_ENABLED;
 
 @PrivateApi
 @SuppressWarnings({"checkstyle:methodcount", "checkstyle:classfanoutcomplexity", "checkstyle:classdataabstractioncoupling"})
@@ -269,6 +271,9 @@ public class DefaultNodeExtension implements NodeExtension {
     @Override
     public OutboundHandler[] createOutboundHandlers(EndpointQualifier qualifier,
             TcpIpConnection connection, IOService ioService) {
+        if (node.getProperties().getBoolean(IO_GATHERING_WRITE_ENABLED)) {
+            return new OutboundHandler[]{new GatheringPacketEncoder()};
+        }
         return new OutboundHandler[]{new PacketEncoder()};
     }
 
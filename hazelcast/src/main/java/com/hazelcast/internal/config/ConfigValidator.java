@@ -31,6 +31,7 @@ import com.hazelcast.config.EvictionPolicy;
 import com.hazelcast.config.InMemoryFormat;
 import com.hazelcast.config.InvalidConfigurationException;
 import com.hazelcast.config.MapConfig;
+import com.hazelcast.config.MapIndexConfig;
 import com.hazelcast.config.MultiMapConfig;
 import com.hazelcast.config.NativeMemoryConfig;
 import com.hazelcast.config.NearCacheConfig;
@@ -103,11 +104,63 @@ public final class ConfigValidator {
      * @param mergePolicyProvider the {@link MergePolicyProvider} to resolve merge policy classes
      */
     public static void checkMapConfig(MapConfig mapConfig, MergePolicyProvider mergePolicyProvider) {
-        checkNotNativeWhenOpenSource(mapConfig.getInMemoryFormat());
+        checkMapConfig(mapConfig, null, mergePolicyProvider);
+    }
+
+    /**
+     * Validates the given {@link MapConfig}.
+     *
+     * @param mapConfig           the {@link MapConfig}
+     * @param nativeMemoryConfig  the {@link NativeMemoryConfig} of the Hazelcast instance
+     * @param mergePolicyProvider the {@link MergePolicyProvider} to resolve merge policy classes
+     */
+    public static void checkMapConfig(MapConfig mapConfig, NativeMemoryConfig nativeMemoryConfig,
+                                      MergePolicyProvider mergePolicyProvider) {
+        checkMapNativeMemoryConfig(mapConfig.getInMemoryFormat(), nativeMemoryConfig, getBuildInfo().isEnterprise());
         checkMapMergePolicy(mapConfig, mergePolicyProvider);
+        checkMapIndexConfigs(mapConfig);
         logIgnoredConfig(mapConfig);
     }
 
+    /**
+     * Checks precondition to use {@link InMemoryFormat#NATIVE} for an {@link com.hazelcast.core.IMap}.
+     *
+     * @param inMemoryFormat     the {@link InMemoryFormat} of the map
+     * @param nativeMemoryConfig the {@link NativeMemoryConfig} of the Hazelcast instance
+     * @param isEnterprise       {@code true} if the Hazelcast instance is EE, {@code false} otherwise
+     */
+    static void checkMapNativeMemoryConfig(InMemoryFormat inMemoryFormat, NativeMemoryConfig nativeMemoryConfig,
+                                           boolean isEnterprise) {
+        if (isEnterprise || inMemoryFormat != NATIVE) {
+            return;
+        }
+        if (nativeMemoryConfig != null && nativeMemoryConfig.isEnabled()) {
+            return;
+        }
+        throw new IllegalArgumentException("Enable native memory config to use NATIVE in-memory-format for IMap");
+    }
+
+    /**
+     * Checks that bitmap indexes of the given {@link MapConfig} are neither ordered nor composite.
+     *
+     * @param mapConfig the {@link MapConfig}
+     */
+    static void checkMapIndexConfigs(MapConfig mapConfig) {
+        for (MapIndexConfig indexConfig : mapConfig.getMapIndexConfigs()) {
+            if (!indexConfig.isBitmap()) {
+                continue;
+            }
+            if (indexConfig.isOrdered()) {
+                throw new IllegalArgumentException(format("Bitmap index on attribute `%s` of map `%s` can't be ordered",
+                        indexConfig.getAttribute(), mapConfig.getName()));
+            }
+            if (indexConfig.getAttribute().indexOf(',') != -1) {
+                throw new IllegalArgumentException(format("Bitmap index on attributes `%s` of map `%s` can't be composite",
+                        indexConfig.getAttribute(), mapConfig.getName()));
+            }
+        }
+    }
+
     @SuppressWarnings("deprecation")
     private static void logIgnoredConfig(MapConfig mapConfig) {
         if (mapConfig.getMinEvictionCheckMillis() != DEFAULT_MIN_EVICTION_CHECK_MILLIS
@@ -0,0 +1,157 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.internal.memory.impl;
+
+import com.hazelcast.internal.memory.MemoryAccessor;
+import com.hazelcast.internal.memory.MemoryAllocator;
+import com.hazelcast.internal.memory.MemoryManager;
+import com.hazelcast.memory.NativeOutOfMemoryError;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.hazelcast.internal.memory.GlobalMemoryAccessorRegistry.MEM;
+import static com.hazelcast.internal.memory.GlobalMemoryAccessorRegistry.MEM_AVAILABLE;
+import static com.hazelcast.internal.memory.impl.UnsafeUtil.UNSAFE;
+import static com.hazelcast.internal.memory.impl.UnsafeUtil.UNSAFE_AVAILABLE;
+import static com.hazelcast.util.Preconditions.checkPositive;
+
+/**
+ * {@link MemoryManager} which allocates every block directly from the operating system through
+ * {@link sun.misc.Unsafe#allocateMemory(long)} and returns it with {@link sun.misc.Unsafe#freeMemory(long)}.
+ * This is the {@link com.hazelcast.config.NativeMemoryConfig.MemoryAllocatorType#STANDARD STANDARD}
+ * allocator; the total amount of memory it hands out is capped by {@code maxMemory}.
+ * <p>
+ * The allocator is thread-safe. Blocks are owned by the caller: {@link #dispose()} does not release
+ * blocks which were not {@link MemoryAllocator#free(long, long) freed} before, it only rejects the
+ * allocations made after it. The blocks still in use may be freed after the disposal.
+ */
+public final class StandardMemoryManager implements MemoryManager {
+
+    private final long maxMemory;
+    private final AtomicLong usedMemory = new AtomicLong();
+    private final MemoryAllocator malloc = new Allocator();
+
+    private volatile boolean disposed;
+
+    public StandardMemoryManager(long maxMemory) {
+        if (!UNSAFE_AVAILABLE || !MEM_AVAILABLE) {
+            throw new IllegalStateException("Native memory requires sun.misc.Unsafe, which is not available on this JVM");
+        }
+        this.maxMemory = checkPositive(maxMemory, "maxMemory should be positive");
+    }
+
+    @Override
+    public MemoryAllocator getAllocator() {
+        return malloc;
+    }
+
+    @Override
+    public MemoryAccessor getAccessor() {
+        return MEM;
+    }
+
+    @Override
+    public void dispose() {
+        disposed = true;
+    }
+
+    public boolean isDisposed() {
+        return disposed;
+    }
+
+    public long getMaxMemory() {
+        return maxMemory;
+    }
+
+    public long getUsedMemory() {
+        return usedMemory.get();
+    }
+
+    public long getFreeMemory() {
+        return Math.max(0, maxMemory - usedMemory.get());
+    }
+
+    private void reserve(long size) {
+        if (disposed) {
+            throw new IllegalStateException("Native memory manager is disposed");
+        }
+        for (;;) {
+            long used = usedMemory.get();
+            long newUsed = used + size;
+            if (newUsed > maxMemory) {
+                throw new NativeOutOfMemoryError("Cannot allocate " + size + " bytes of native memory! Used: " + used
+                        + ", max: " + maxMemory);
+            }
+            if (usedMemory.compareAndSet(used, newUsed)) {
+                return;
+            }
+        }
+    }
+
+    private final class Allocator implements MemoryAllocator {
+
+        @Override
+        public long allocate(long size) {
+            assert size > 0 : "Invalid allocation size: " + size;
+            reserve(size);
+            long address;
+            try {
+                address = UNSAFE.allocateMemory(size);
+            } catch (OutOfMemoryError e) {
+                usedMemory.addAndGet(-size);
+                throw new NativeOutOfMemoryError("Not enough contiguous memory available! Size: " + size, e);
+            }
+            UNSAFE.setMemory(address, size, (byte) 0);
+            return address;
+        }
+
+        @Override
+        public long reallocate(long address, long currentSize, long newSize) {
+            assert address != NULL_ADDRESS && newSize > 0 : "Invalid reallocation: " + address + ", " + newSize;
+            long diff = newSize - currentSize;
+            if (diff > 0) {
+                reserve(diff);
+            }
+            long newAddress;
+            try {
+                newAddress = UNSAFE.reallocateMemory(address, newSize);
+            } catch (OutOfMemoryError e) {
+                if (diff > 0) {
+                    usedMemory.addAndGet(-diff);
+                }
+                throw new NativeOutOfMemoryError("Not enough contiguous memory available! Size: " + newSize, e);
+            }
+            if (diff > 0) {
+                UNSAFE.setMemory(newAddress + currentSize, diff, (byte) 0);
+            } else {
+                usedMemory.addAndGet(diff);
+            }
+            return newAddress;
+        }
+
+        @Override
+        public void free(long address, long size) {
+            assert address != NULL_ADDRESS : "Attempted to free NULL_ADDRESS";
+            UNSAFE.freeMemory(address);
+            usedMemory.addAndGet(-size);
+        }
+
+        @Override
+        public void dispose() {
+        }
+    }
+}
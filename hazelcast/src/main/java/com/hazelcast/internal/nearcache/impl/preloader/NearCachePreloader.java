@@ -18,6 +18,10 @@ package com.hazelcast.internal.nearcache.impl.preloader;
 
 import com.hazelcast.config.NearCachePreloaderConfig;
 import com.hazelcast.internal.adapter.DataStructureAdapter;
+import com.hazelcast.internal.nearcache.NearCacheRecord;
+import com.hazelcast.internal.nearcache.NearCacheRecordStore;
+import com.hazelcast.internal.nearcache.impl.invalidation.MetaDataContainer;
+import com.hazelcast.internal.nearcache.impl.invalidation.StaleReadDetector;
 import com.hazelcast.internal.serialization.impl.HeapData;
 import com.hazelcast.internal.util.BufferingInputStream;
 import com.hazelcast.logging.ILogger;
@@ -35,9 +39,14 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.Map;
+import java.util.UUID;
 
+import static com.hazelcast.internal.nearcache.NearCacheRecord.READ_PERMITTED;
 import static com.hazelcast.nio.Bits.INT_SIZE_IN_BYTES;
+import static com.hazelcast.nio.Bits.LONG_SIZE_IN_BYTES;
 import static com.hazelcast.nio.Bits.readIntB;
 import static com.hazelcast.nio.Bits.writeIntB;
 import static com.hazelcast.nio.IOUtil.closeResource;
@@ -53,6 +62,19 @@ import static java.util.concurrent.TimeUnit.NANOSECONDS;
 
 /**
  * Loads and stores the keys from a Near Cache into a file.
+ * <p>
+ * If the Near Cache is invalidated on changes, the values of the entries are
+ * stored along with the keys and the invalidation metadata of their
+ * partitions, i.e. the partition UUIDs and the sequences of the last
+ * invalidations received. The stored entries are read from the file
+ * segment by segment and put into the Near Cache, so the Near Cache is warm
+ * without fetching the values, if the metadata of their partitions didn't
+ * change since the entries were stored. The entries of the partitions
+ * invalidated meanwhile are fetched from the cluster like the keys stored
+ * without the values. The file is read with plain {@link FileChannel}
+ * reads rather than mapped, since a mapping outlives the closed channel
+ * until it's garbage collected and would keep the next store from
+ * replacing the file on some platforms.
  *
  * @param <K> type of the {@link com.hazelcast.internal.nearcache.NearCacheRecord} keys
  */
@@ -62,7 +84,19 @@ public class NearCachePreloader<K> {
      * File format for the file header.
      */
     private enum FileFormat {
-        INTERLEAVED_LENGTH_FIELD
+        /**
+         * Length-prefixed keys.
+         */
+        INTERLEAVED_LENGTH_FIELD,
+        /**
+         * The offset of the invalidation metadata and a flag telling if the
+         * Near Cache keys are serialized, followed by length-prefixed entries
+         * consisting of the partition ID, the length-prefixed key and the
+         * value, followed by the invalidation metadata of the partitions of
+         * the entries. The entries stored without the value have no
+         * partition ID.
+         */
+        ENTRIES_WITH_METADATA
     }
 
     /**
@@ -84,6 +118,33 @@ public class NearCachePreloader<K> {
      */
     private static final int LOAD_BATCH_SIZE = 100;
 
+    /**
+     * Size of the file segments read at once to load the stored entries.
+     */
+    private static final int SEGMENT_SIZE = 1 << 20;
+
+    /**
+     * Magic bytes and file format.
+     */
+    private static final int HEADER_SIZE = 2 * INT_SIZE_IN_BYTES;
+    /**
+     * The header, the offset of the invalidation metadata and the flag of
+     * the serialized keys precede the entries.
+     */
+    private static final int ENTRIES_OFFSET = HEADER_SIZE + LONG_SIZE_IN_BYTES + 1;
+    /**
+     * Partition ID and key length.
+     */
+    private static final int ENTRY_HEADER_SIZE = 2 * INT_SIZE_IN_BYTES;
+    /**
+     * Partition ID of the entries stored without the value.
+     */
+    private static final int NO_PARTITION_ID = -1;
+    /**
+     * Partition ID, UUID and sequence.
+     */
+    private static final int PARTITION_METADATA_SIZE = INT_SIZE_IN_BYTES + 3 * LONG_SIZE_IN_BYTES;
+
     private final ILogger logger = Logger.getLogger(NearCachePreloader.class);
     private final byte[] tmpBytes = new byte[INT_SIZE_IN_BYTES];
 
@@ -116,11 +177,21 @@ public class NearCachePreloader<K> {
     }
 
     /**
-     * Loads the values via a stored key file into the supplied {@link DataStructureAdapter}.
+     * Loads the values via a stored key file into the supplied {@link DataStructureAdapter}, or puts the stored
+     * entries into the supplied {@link NearCacheRecordStore} if their invalidation metadata is still current.
+     * <p>
+     * The stored entries are compared with the metadata the {@link StaleReadDetector} holds when they're
+     * loaded, so they can be restored only if the detector has been populated with the partition UUIDs and
+     * sequences before, i.e. once the repairing handler of the Near Cache has been initialized. The entries
+     * of the partitions without metadata yet, e.g. when the initialization failed and is retried
+     * asynchronously, are fetched like the ones of the invalidated partitions.
      *
-     * @param adapter the {@link DataStructureAdapter} to load the values from
+     * @param adapter           the {@link DataStructureAdapter} to load the values from
+     * @param recordStore       the {@link NearCacheRecordStore} to put the stored entries into
+     * @param staleReadDetector the {@link StaleReadDetector} providing the current invalidation metadata
      */
-    public void loadKeys(DataStructureAdapter<Object, ?> adapter) {
+    public void loadKeys(DataStructureAdapter<Object, ?> adapter, NearCacheRecordStore<K, ?> recordStore,
+                         StaleReadDetector staleReadDetector) {
         if (!storeFile.exists()) {
             logger.info(format("Skipped loading keys of Near Cache %s since storage file doesn't exist (%s)", nearCacheName,
                     storeFile.getAbsolutePath()));
@@ -128,45 +199,55 @@ public class NearCachePreloader<K> {
         }
 
         long startedNanos = System.nanoTime();
-        BufferingInputStream bis = null;
+        FileInputStream fis = null;
         try {
-            bis = new BufferingInputStream(new FileInputStream(storeFile), BUFFER_SIZE);
-            if (!checkHeader(bis)) {
+            fis = new FileInputStream(storeFile);
+            FileFormat fileFormat = readHeader(fis.getChannel());
+            if (fileFormat == null) {
                 return;
             }
 
-            int loadedKeys = loadKeySet(bis, adapter);
+            int loadedKeys = fileFormat == FileFormat.INTERLEAVED_LENGTH_FIELD
+                    ? loadKeySet(new BufferingInputStream(fis, BUFFER_SIZE), adapter)
+                    : loadEntries(fis.getChannel(), adapter, recordStore, staleReadDetector);
 
             long elapsedMillis = getElapsedMillis(startedNanos);
             logger.info(format("Loaded %d keys of Near Cache %s in %d ms", loadedKeys, nearCacheName, elapsedMillis));
         } catch (Exception e) {
             logger.warning(format("Could not pre-load Near Cache %s (%s)", nearCacheName, storeFile.getAbsolutePath()), e);
         } finally {
-            closeResource(bis);
+            closeResource(fis);
         }
     }
 
-    private boolean checkHeader(BufferingInputStream bis) throws IOException {
-        int magicBytes = readInt(bis);
+    private FileFormat readHeader(FileChannel channel) throws IOException {
+        ByteBuffer header = allocate(HEADER_SIZE);
+        readFully(channel, header);
+        int magicBytes = header.remaining() == HEADER_SIZE ? header.getInt() : 0;
         if (magicBytes != MAGIC_BYTES) {
             logger.warning(format("Found invalid header for Near Cache %s (%s)", nearCacheName, storeFile.getAbsolutePath()));
-            return false;
+            return null;
         }
-        int fileFormat = readInt(bis);
+        int fileFormat = header.getInt();
         if (fileFormat < 0 || fileFormat > FileFormat.values().length - 1) {
             logger.warning(format("Found invalid file format for Near Cache %s (%s)", nearCacheName,
                     storeFile.getAbsolutePath()));
-            return false;
+            return null;
         }
-        return true;
+        return FileFormat.values()[fileFormat];
     }
 
     /**
-     * Stores the Near Cache keys from the supplied iterator.
+     * Stores the Near Cache keys from the supplied iterator. The values are stored along with the keys, unless
+     * the supplied {@link StaleReadDetector} is {@link StaleReadDetector#ALWAYS_FRESH}, i.e. unless the Near
+     * Cache is not invalidated.
      *
-     * @param iterator {@link Iterator} over the key set of a {@link com.hazelcast.internal.nearcache.NearCacheRecordStore}
+     * @param iterator          {@link Iterator} over the entries of a
+     *                          {@link com.hazelcast.internal.nearcache.NearCacheRecordStore}
+     * @param staleReadDetector the {@link StaleReadDetector} providing the current invalidation metadata
      */
-    public void storeKeys(Iterator<K> iterator) {
+    public void storeKeys(Iterator<? extends Map.Entry<K, ? extends NearCacheRecord>> iterator,
+                          StaleReadDetector staleReadDetector) {
         long startedNanos = System.nanoTime();
         FileOutputStream fos = null;
         try {
@@ -178,8 +259,13 @@ public class NearCachePreloader<K> {
 
             // write header and keys
             writeInt(fos, MAGIC_BYTES);
-            writeInt(fos, FileFormat.INTERLEAVED_LENGTH_FIELD.ordinal());
-            writeKeySet(fos, fos.getChannel(), iterator);
+            if (staleReadDetector == StaleReadDetector.ALWAYS_FRESH) {
+                writeInt(fos, FileFormat.INTERLEAVED_LENGTH_FIELD.ordinal());
+                writeKeySet(fos, fos.getChannel(), iterator);
+            } else {
+                writeInt(fos, FileFormat.ENTRIES_WITH_METADATA.ordinal());
+                writeEntries(fos.getChannel(), iterator, staleReadDetector);
+            }
 
             // cleanup if no keys have been written
             if (lastKeyCount == 0) {
@@ -235,9 +321,10 @@ public class NearCachePreloader<K> {
         return loadedKeys;
     }
 
-    private void writeKeySet(FileOutputStream fos, FileChannel outChannel, Iterator<K> iterator) throws IOException {
+    private void writeKeySet(FileOutputStream fos, FileChannel outChannel,
+                             Iterator<? extends Map.Entry<K, ? extends NearCacheRecord>> iterator) throws IOException {
         while (iterator.hasNext()) {
-            K key = iterator.next();
+            K key = iterator.next().getKey();
             Data dataKey = serializationService.toData(key);
             if (dataKey != null) {
                 int dataSize = dataKey.totalSize();
@@ -260,9 +347,223 @@ public class NearCachePreloader<K> {
         }
     }
 
-    private int readInt(BufferingInputStream bis) throws IOException {
-        readFullyOrNothing(bis, tmpBytes);
-        return readIntB(tmpBytes, 0);
+    private int loadEntries(FileChannel channel, DataStructureAdapter<Object, ?> adapter, NearCacheRecordStore<K, ?> recordStore,
+                            StaleReadDetector staleReadDetector) throws IOException {
+        ByteBuffer header = allocate(ENTRIES_OFFSET - HEADER_SIZE);
+        readFully(channel, header);
+        if (header.remaining() < ENTRIES_OFFSET - HEADER_SIZE) {
+            throw new IOException("Found truncated header");
+        }
+        long metaDataOffset = header.getLong();
+        boolean serializedKeys = header.get() != 0;
+        Map<Integer, PartitionMetaData> metaData = readMetaData(channel, metaDataOffset);
+
+        int loadedKeys = 0;
+        Builder<Object> builder = InflatableSet.newBuilder(LOAD_BATCH_SIZE);
+        EntrySegments segments = new EntrySegments(channel, metaDataOffset);
+        long position = ENTRIES_OFFSET;
+        while (position < metaDataOffset) {
+            ByteBuffer entry = segments.entryAt(position);
+            position += INT_SIZE_IN_BYTES + entry.remaining();
+
+            int partitionId = entry.getInt();
+            Data keyData = new HeapData(readBytes(entry, entry.getInt()));
+            if (partitionId == NO_PARTITION_ID || !restoreEntry(recordStore, staleReadDetector, serializedKeys, keyData,
+                    new HeapData(readBytes(entry, entry.remaining())), partitionId, metaData.get(partitionId))) {
+                builder.add(serializationService.toObject(keyData));
+                if (builder.size() == LOAD_BATCH_SIZE) {
+                    adapter.getAll(builder.build());
+                    builder = InflatableSet.newBuilder(LOAD_BATCH_SIZE);
+                }
+            }
+            loadedKeys++;
+        }
+        if (builder.size() > 0) {
+            adapter.getAll(builder.build());
+        }
+        return loadedKeys;
+    }
+
+    /**
+     * Puts the given stored entry into the Near Cache if the invalidation metadata of its partition is still
+     * the stored one, i.e. if the partition wasn't invalidated since the entry was stored.
+     *
+     * @return {@code true} if the entry is current, {@code false} if its value must be fetched
+     */
+    @SuppressWarnings("unchecked")
+    private boolean restoreEntry(NearCacheRecordStore<K, ?> recordStore, StaleReadDetector staleReadDetector,
+                                 boolean serializedKeys, Data keyData, Data valueData, int partitionId,
+                                 PartitionMetaData storedMetaData) {
+        if (!isCurrent(staleReadDetector, partitionId, storedMetaData)) {
+            return false;
+        }
+        K key = serializedKeys ? (K) keyData : (K) serializationService.toObject(keyData);
+        if (recordStore.getRecord(key) != null) {
+            // already fetched
+            return true;
+        }
+
+        recordStore.doEviction(false);
+        recordStore.put(key, keyData, null, valueData);
+        if (!isCurrent(staleReadDetector, partitionId, storedMetaData)) {
+            // invalidated while being restored, the invalidation might have missed the restored entry
+            recordStore.invalidate(key);
+            return false;
+        }
+        return true;
+    }
+
+    private static boolean isCurrent(StaleReadDetector staleReadDetector, int partitionId, PartitionMetaData storedMetaData) {
+        if (storedMetaData == null) {
+            return false;
+        }
+        MetaDataContainer metaData = staleReadDetector.getMetaDataContainer(partitionId);
+        return metaData != null && storedMetaData.uuid.equals(metaData.getUuid())
+                && storedMetaData.sequence == metaData.getSequence();
+    }
+
+    private Map<Integer, PartitionMetaData> readMetaData(FileChannel channel, long metaDataOffset) throws IOException {
+        long metaDataSize = channel.size() - metaDataOffset;
+        if (metaDataOffset < ENTRIES_OFFSET || metaDataSize < INT_SIZE_IN_BYTES) {
+            throw new IOException("Found invalid metadata offset " + metaDataOffset);
+        }
+        if (metaDataSize > Integer.MAX_VALUE) {
+            throw new IOException("Found invalid metadata size " + metaDataSize);
+        }
+        ByteBuffer buffer = allocate((int) metaDataSize);
+        if (!readFully(channel, buffer, metaDataOffset)) {
+            throw new IOException("Found truncated metadata");
+        }
+        buffer.flip();
+        int partitionCount = buffer.getInt();
+        if (partitionCount < 0 || buffer.remaining() < (long) partitionCount * PARTITION_METADATA_SIZE) {
+            throw new IOException("Found truncated metadata");
+        }
+        Map<Integer, PartitionMetaData> metaData = new HashMap<Integer, PartitionMetaData>(partitionCount);
+        for (int i = 0; i < partitionCount; i++) {
+            int partitionId = buffer.getInt();
+            UUID uuid = new UUID(buffer.getLong(), buffer.getLong());
+            metaData.put(partitionId, new PartitionMetaData(uuid, buffer.getLong()));
+        }
+        return metaData;
+    }
+
+    private void writeEntries(FileChannel outChannel, Iterator<? extends Map.Entry<K, ? extends NearCacheRecord>> iterator,
+                              StaleReadDetector staleReadDetector) throws IOException {
+        // the offset of the metadata and the flag of the serialized keys are written at the end
+        flushLocalBuffer(outChannel);
+        outChannel.position(ENTRIES_OFFSET);
+
+        Map<Integer, PartitionMetaData> metaData = new HashMap<Integer, PartitionMetaData>();
+        boolean serializedKeys = false;
+        while (iterator.hasNext()) {
+            Map.Entry<K, ? extends NearCacheRecord> entry = iterator.next();
+            K key = entry.getKey();
+            NearCacheRecord record = entry.getValue();
+            Data dataKey = serializationService.toData(key);
+            if (dataKey == null) {
+                continue;
+            }
+            serializedKeys = key instanceof Data;
+
+            // the entries which can't be validated on loading are stored without the value to be fetched
+            PartitionMetaData partitionMetaData = getPartitionMetaData(metaData, record.getPartitionId(), staleReadDetector);
+            Data dataValue = isStorable(key, record, partitionMetaData, staleReadDetector)
+                    ? serializationService.toData(record.getValue()) : null;
+            int partitionId = dataValue == null ? NO_PARTITION_ID : record.getPartitionId();
+            int valueSize = dataValue == null ? 0 : dataValue.totalSize();
+
+            int entrySize = ENTRY_HEADER_SIZE + dataKey.totalSize() + valueSize;
+            ensureBufHasRoom(outChannel, INT_SIZE_IN_BYTES + ENTRY_HEADER_SIZE);
+            buf.putInt(entrySize);
+            buf.putInt(partitionId);
+            buf.putInt(dataKey.totalSize());
+            writeBytes(outChannel, dataKey.toByteArray());
+            if (dataValue != null) {
+                writeBytes(outChannel, dataValue.toByteArray());
+            }
+
+            lastWrittenBytes += INT_SIZE_IN_BYTES + entrySize;
+            lastKeyCount++;
+        }
+
+        long metaDataOffset = outChannel.position() + buf.position();
+        writeMetaData(outChannel, metaData);
+        flushLocalBuffer(outChannel);
+
+        ByteBuffer header = allocate(ENTRIES_OFFSET - HEADER_SIZE);
+        header.putLong(metaDataOffset);
+        header.put((byte) (serializedKeys ? 1 : 0));
+        header.flip();
+        while (header.hasRemaining()) {
+            outChannel.write(header, HEADER_SIZE + header.position());
+        }
+    }
+
+    /**
+     * Returns the invalidation metadata of the given partition, the metadata
+     * is snapshotted before the first entry of the partition is stored.
+     */
+    private static PartitionMetaData getPartitionMetaData(Map<Integer, PartitionMetaData> metaData, int partitionId,
+                                                          StaleReadDetector staleReadDetector) {
+        PartitionMetaData partitionMetaData = metaData.get(partitionId);
+        if (partitionMetaData == null) {
+            MetaDataContainer container = staleReadDetector.getMetaDataContainer(partitionId);
+            partitionMetaData = container == null
+                    ? new PartitionMetaData(null, 0)
+                    : new PartitionMetaData(container.getUuid(), container.getSequence());
+            metaData.put(partitionId, partitionMetaData);
+        }
+        return partitionMetaData;
+    }
+
+    private static <K> boolean isStorable(K key, NearCacheRecord record, PartitionMetaData partitionMetaData,
+                                          StaleReadDetector staleReadDetector) {
+        return record.getRecordState() == READ_PERMITTED
+                && record.getValue() != null
+                && partitionMetaData.uuid != null
+                && record.hasSameUuid(partitionMetaData.uuid)
+                && !staleReadDetector.isStaleRead(key, record);
+    }
+
+    private void writeMetaData(FileChannel outChannel, Map<Integer, PartitionMetaData> metaData) throws IOException {
+        int partitionCount = 0;
+        for (PartitionMetaData partitionMetaData : metaData.values()) {
+            if (partitionMetaData.uuid != null) {
+                partitionCount++;
+            }
+        }
+        ensureBufHasRoom(outChannel, INT_SIZE_IN_BYTES);
+        buf.putInt(partitionCount);
+        for (Map.Entry<Integer, PartitionMetaData> entry : metaData.entrySet()) {
+            PartitionMetaData partitionMetaData = entry.getValue();
+            if (partitionMetaData.uuid == null) {
+                continue;
+            }
+            ensureBufHasRoom(outChannel, PARTITION_METADATA_SIZE);
+            buf.putInt(entry.getKey());
+            buf.putLong(partitionMetaData.uuid.getMostSignificantBits());
+            buf.putLong(partitionMetaData.uuid.getLeastSignificantBits());
+            buf.putLong(partitionMetaData.sequence);
+        }
+    }
+
+    private void writeBytes(FileChannel outChannel, byte[] bytes) throws IOException {
+        int position = 0;
+        while (position < bytes.length) {
+            if (!buf.hasRemaining()) {
+                flushLocalBuffer(outChannel);
+            }
+            int transferredCount = Math.min(buf.remaining(), bytes.length - position);
+            buf.put(bytes, position, transferredCount);
+            position += transferredCount;
+        }
+    }
+
+    private void ensureBufHasRoom(FileChannel outChannel, int expectedSize) throws IOException {
+        if (buf.remaining() < expectedSize) {
+            flushLocalBuffer(outChannel);
+        }
     }
 
     private void writeInt(FileOutputStream fos, int dataSize) throws IOException {
@@ -290,6 +591,39 @@ public class NearCachePreloader<K> {
         buf.clear();
     }
 
+    private static void readFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+            // keep reading until the buffer is full or the end of the file is reached
+        }
+        buffer.flip();
+    }
+
+    /**
+     * Reads from the given position until the buffer is full.
+     *
+     * @return {@code true} if the buffer is full, {@code false} if the end of the file is reached before
+     */
+    private static boolean readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        long offset = position;
+        while (buffer.hasRemaining()) {
+            int readCount = channel.read(buffer, offset);
+            if (readCount < 0) {
+                return false;
+            }
+            offset += readCount;
+        }
+        return true;
+    }
+
+    private static byte[] readBytes(ByteBuffer buffer, int length) throws IOException {
+        if (length < 0 || length > buffer.remaining()) {
+            throw new IOException("Found corrupted entry");
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return bytes;
+    }
+
     private static String getFilename(String directory, String nearCacheName) {
         String filename = toFileName("nearCache-" + nearCacheName + ".store");
         if (isNullOrEmpty(directory)) {
@@ -301,4 +635,76 @@ public class NearCachePreloader<K> {
     private static long getElapsedMillis(long startedNanos) {
         return NANOSECONDS.toMillis(System.nanoTime() - startedNanos);
     }
+
+    /**
+     * The invalidation metadata of a partition the stored entries belong to.
+     */
+    private static final class PartitionMetaData {
+
+        final UUID uuid;
+        final long sequence;
+
+        PartitionMetaData(UUID uuid, long sequence) {
+            this.uuid = uuid;
+            this.sequence = sequence;
+        }
+    }
+
+    /**
+     * Reads the file segments holding the stored entries into a reused heap
+     * buffer, a segment is read when the entry read next is not fully
+     * contained in the current one.
+     */
+    private static final class EntrySegments {
+
+        private final FileChannel channel;
+        private final long end;
+
+        private ByteBuffer segment;
+        private long segmentStart;
+
+        EntrySegments(FileChannel channel, long end) {
+            this.channel = channel;
+            this.end = end;
+        }
+
+        /**
+         * Returns the entry at the given position, the returned buffer is
+         * positioned at the first byte of the entry and limited to its size.
+         */
+        ByteBuffer entryAt(long position) throws IOException {
+            ensureRead(position, INT_SIZE_IN_BYTES);
+            int offset = (int) (position - segmentStart);
+            int entrySize = segment.getInt(offset);
+            if (entrySize < ENTRY_HEADER_SIZE || entrySize > end - position - INT_SIZE_IN_BYTES) {
+                throw new IOException("Found corrupted entry at position " + position);
+            }
+            ensureRead(position, INT_SIZE_IN_BYTES + entrySize);
+
+            offset = (int) (position - segmentStart) + INT_SIZE_IN_BYTES;
+            ByteBuffer entry = segment.duplicate();
+            entry.limit(offset + entrySize);
+            entry.position(offset);
+            return entry;
+        }
+
+        private void ensureRead(long position, int size) throws IOException {
+            if (segment != null && position >= segmentStart && position + size <= segmentStart + segment.limit()) {
+                return;
+            }
+            if (position + size > end) {
+                throw new IOException("Found truncated entry at position " + position);
+            }
+            int readSize = (int) Math.min(Math.max(SEGMENT_SIZE, size), end - position);
+            if (segment == null || segment.capacity() < readSize) {
+                segment = allocate(readSize);
+            }
+            segment.clear();
+            segment.limit(readSize);
+            if (!readFully(channel, segment, position)) {
+                throw new IOException("Found truncated entry at position " + position);
+            }
+            segmentStart = position;
+        }
+    }
 }
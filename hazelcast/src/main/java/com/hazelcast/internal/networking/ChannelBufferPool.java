@@ -0,0 +1,205 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hazelcast.internal.networking;
+
+import com.hazelcast.internal.metrics.Probe;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.hazelcast.nio.IOUtil.newByteBuffer;
+import static com.hazelcast.util.Preconditions.checkNotNegative;
+import static com.hazelcast.util.Preconditions.checkPositive;
+import static com.hazelcast.util.QuickMath.log2;
+import static com.hazelcast.util.QuickMath.nextPowerOfTwo;
+
+/**
+ * A pool of the socket buffers shared by the channels of a
+ * {@link Networking}.
+ * <p>
+ * A channel holds its receive and send buffers only while it has data in
+ * flight and returns them to the pool once they are drained, so the memory
+ * used by the buffers is proportional to the number of the busy channels
+ * instead of the number of the connected channels.
+ * <p>
+ * The buffers are pooled in the power of two size classes, separately for
+ * the direct and the heap buffers; a buffer is handed out by the smallest
+ * class its requested size fits in and returned to the largest class its
+ * capacity covers, so the buffers created outside of the pool may be returned
+ * to it as well. The buffers larger than {@link #MAX_POOLED_SIZE} are never
+ * pooled. At most the configured number of bytes is kept in the pool, the
+ * buffers returned to a full pool are left to the garbage collector.
+ * <p>
+ * The pool is thread-safe: the pipelines of a channel migrate between the
+ * IO threads.
+ */
+public final class ChannelBufferPool {
+
+    /**
+     * The size of the smallest pooled buffer.
+     */
+    public static final int MIN_POOLED_SIZE = 1 << 10;
+
+    /**
+     * The size of the largest pooled buffer.
+     */
+    public static final int MAX_POOLED_SIZE = 1 << 24;
+
+    private static final int MIN_SIZE_CLASS = log2(MIN_POOLED_SIZE);
+    private static final int SIZE_CLASS_COUNT = log2(MAX_POOLED_SIZE) - MIN_SIZE_CLASS + 1;
+
+    private final long maxPooledBytes;
+    private final Queue<ByteBuffer>[] directBuffers = newSizeClasses();
+    private final Queue<ByteBuffer>[] heapBuffers = newSizeClasses();
+
+    @Probe
+    private final AtomicLong pooledBuffers = new AtomicLong();
+    @Probe
+    private final AtomicLong pooledBytes = new AtomicLong();
+    @Probe
+    private final AtomicLong lentBuffers = new AtomicLong();
+    @Probe
+    private final AtomicLong lentBytes = new AtomicLong();
+    @Probe
+    private final AtomicLong allocatedBuffers = new AtomicLong();
+    @Probe
+    private final AtomicLong discardedBuffers = new AtomicLong();
+
+    /**
+     * @param maxPooledBytes the maximum number of bytes kept in the pool.
+     */
+    public ChannelBufferPool(long maxPooledBytes) {
+        this.maxPooledBytes = checkNotNegative(maxPooledBytes, "maxPooledBytes can't be negative");
+    }
+
+    /**
+     * Lends a buffer with at least the given capacity. The buffer is cleared:
+     * its position is 0 and its limit is its capacity.
+     *
+     * @param size   the minimum capacity of the buffer.
+     * @param direct {@code true} for a direct buffer, {@code false} for a heap
+     *               buffer.
+     * @return the buffer.
+     */
+    public ByteBuffer acquire(int size, boolean direct) {
+        checkPositive(size, "size should be positive");
+        ByteBuffer buffer = null;
+        if (size <= MAX_POOLED_SIZE) {
+            buffer = sizeClasses(direct)[acquireSizeClass(size)].poll();
+        }
+
+        if (buffer == null) {
+            buffer = newByteBuffer(allocationSize(size), direct);
+            allocatedBuffers.incrementAndGet();
+        } else {
+            pooledBuffers.decrementAndGet();
+            pooledBytes.addAndGet(-buffer.capacity());
+            buffer.clear();
+        }
+        lentBuffers.incrementAndGet();
+        lentBytes.addAndGet(buffer.capacity());
+        return buffer;
+    }
+
+    /**
+     * Returns a buffer lent by {@link #acquire(int, boolean)} to the pool.
+     * The buffer must not be used after it's returned.
+     *
+     * @param buffer the buffer to return.
+     */
+    public void release(ByteBuffer buffer) {
+        lentBuffers.decrementAndGet();
+        lentBytes.addAndGet(-buffer.capacity());
+        offer(buffer);
+    }
+
+    /**
+     * Adds a buffer which wasn't lent by this pool to the pool. The buffer
+     * must not be used after it's added.
+     *
+     * @param buffer the buffer to add.
+     */
+    public void adopt(ByteBuffer buffer) {
+        offer(buffer);
+    }
+
+    /**
+     * Forgets a buffer lent by {@link #acquire(int, boolean)} without
+     * returning it to the pool, e.g. because its channel is closed while the
+     * buffer may still be in use.
+     *
+     * @param buffer the buffer to forget.
+     */
+    public void discard(ByteBuffer buffer) {
+        lentBuffers.decrementAndGet();
+        lentBytes.addAndGet(-buffer.capacity());
+        discardedBuffers.incrementAndGet();
+    }
+
+    private void offer(ByteBuffer buffer) {
+        int capacity = buffer.capacity();
+        if (capacity < MIN_POOLED_SIZE || capacity > MAX_POOLED_SIZE) {
+            discardedBuffers.incrementAndGet();
+            return;
+        }
+        if (pooledBytes.addAndGet(capacity) > maxPooledBytes) {
+            // the pool is full
+            pooledBytes.addAndGet(-capacity);
+            discardedBuffers.incrementAndGet();
+            return;
+        }
+
+        pooledBuffers.incrementAndGet();
+        sizeClasses(buffer.isDirect())[log2(capacity) - MIN_SIZE_CLASS].offer(buffer);
+    }
+
+    private Queue<ByteBuffer>[] sizeClasses(boolean direct) {
+        return direct ? directBuffers : heapBuffers;
+    }
+
+    private static int allocationSize(int size) {
+        if (size > MAX_POOLED_SIZE) {
+            return size;
+        }
+        return size <= MIN_POOLED_SIZE ? MIN_POOLED_SIZE : nextPowerOfTwo(size);
+    }
+
+    private static int acquireSizeClass(int size) {
+        return size <= MIN_POOLED_SIZE ? 0 : log2(nextPowerOfTwo(size)) - MIN_SIZE_CLASS;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Queue<ByteBuffer>[] newSizeClasses() {
+        Queue<ByteBuffer>[] sizeClasses = new Queue[SIZE_CLASS_COUNT];
+        for (int i = 0; i < sizeClasses.length; i++) {
+            sizeClasses[i] = new ConcurrentLinkedQueue<ByteBuffer>();
+        }
+        return sizeClasses;
+    }
+
+    @Override
+    public String toString() {
+        return "ChannelBufferPool{"
+                + "maxPooledBytes=" + maxPooledBytes
+                + ", pooledBytes=" + pooledBytes.get()
+                + ", lentBytes=" + lentBytes.get()
+                + '}';
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.internal.networking;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+
+/**
+ * A sequence of {@link ByteBuffer} instances written to a channel with a
+ * single gathering write.
+ *
+ * The GatheringBuffer is the destination of an {@link OutboundHandler} that
+ * doesn't copy the frames into a single ByteBuffer, e.g. the
+ * {@link GatheringOutboundHandler}. The pipeline writes the buffers added
+ * till they are drained; only then the handler is allowed to
+ * {@link #clear()} the GatheringBuffer and to add new buffers.
+ *
+ * A GatheringBuffer is not thread-safe; it is owned by the thread owning the
+ * pipeline.
+ */
+public final class GatheringBuffer {
+
+    private final ByteBuffer[] buffers;
+    private int offset;
+    private int length;
+
+    /**
+     * Creates a GatheringBuffer.
+     *
+     * @param capacity the maximum number of buffers in the sequence.
+     */
+    public GatheringBuffer(int capacity) {
+        this.buffers = new ByteBuffer[capacity];
+    }
+
+    /**
+     * Adds the given buffer to the end of the sequence. The buffer is
+     * expected to be in reading mode and must not be modified until it is
+     * written. Empty buffers are ignored.
+     *
+     * @param buffer the buffer to add.
+     * @throws IllegalStateException if the sequence is full.
+     */
+    public void add(ByteBuffer buffer) {
+        if (!buffer.hasRemaining()) {
+            return;
+        }
+        if (length == buffers.length) {
+            throw new IllegalStateException("GatheringBuffer is full, capacity " + buffers.length);
+        }
+        buffers[length++] = buffer;
+    }
+
+    /**
+     * Returns the number of buffers that can still be added.
+     *
+     * @return the remaining capacity.
+     */
+    public int remainingCapacity() {
+        return buffers.length - length;
+    }
+
+    /**
+     * Checks if any of the buffers still has bytes to write.
+     *
+     * @return true if not all bytes have been written, false otherwise.
+     */
+    public boolean hasRemaining() {
+        return offset < length;
+    }
+
+    /**
+     * Writes as many bytes of the remaining buffers to the given channel as
+     * the channel accepts.
+     *
+     * @param channel the channel to write to.
+     * @return the number of bytes written.
+     * @throws IOException if the write fails.
+     */
+    public long writeTo(GatheringByteChannel channel) throws IOException {
+        if (offset == length) {
+            return 0;
+        }
+
+        long written = channel.write(buffers, offset, length - offset);
+        while (offset < length && !buffers[offset].hasRemaining()) {
+            // release the drained buffers as early as possible
+            buffers[offset++] = null;
+        }
+        return written;
+    }
+
+    /**
+     * Removes all buffers from the sequence.
+     */
+    public void clear() {
+        for (int k = offset; k < length; k++) {
+            buffers[k] = null;
+        }
+        offset = 0;
+        length = 0;
+    }
+}
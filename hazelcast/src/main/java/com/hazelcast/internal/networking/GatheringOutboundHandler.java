@@ -0,0 +1,147 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.internal.networking;
+
+import com.hazelcast.util.function.Supplier;
+
+import java.nio.ByteBuffer;
+
+import static com.hazelcast.internal.networking.ChannelOption.DIRECT_BUF;
+import static com.hazelcast.internal.networking.ChannelOption.SO_SNDBUF;
+import static com.hazelcast.internal.networking.HandlerStatus.CLEAN;
+import static com.hazelcast.internal.networking.HandlerStatus.DIRTY;
+import static com.hazelcast.nio.IOUtil.newByteBuffer;
+
+/**
+ * An {@link OutboundHandler} that encodes a batch of frames into a
+ * {@link GatheringBuffer} so the batch is written to the socket with a single
+ * gathering write.
+ *
+ * Small frames and the frame headers are copied into a staging buffer, so
+ * many small frames, e.g. responses, are written with a single system call.
+ * Large frames are added to the GatheringBuffer as heap buffers wrapping
+ * their byte arrays, so they don't take the space of the staging buffer.
+ *
+ * This saves system calls, not copies: the JDK copies the heap buffers of a
+ * gathering write into temporary direct buffers. The temporary buffers are
+ * cached per thread, so an IO thread writing large frames keeps direct
+ * buffers of their size; the size of the cached buffers is capped only if
+ * the {@code jdk.nio.maxCachedBufferSize} system property is set.
+ *
+ * The GatheringOutboundHandler must be the last handler of the pipeline
+ * since its destination isn't a ByteBuffer.
+ *
+ * @param <F> the type of the frames.
+ */
+public abstract class GatheringOutboundHandler<F> extends OutboundHandler<Supplier<F>, GatheringBuffer> {
+
+    /**
+     * The maximum number of frames encoded into a single batch.
+     */
+    public static final int MAX_FRAMES_PER_WRITE = 64;
+
+    /**
+     * The frames smaller than the threshold are copied into the staging
+     * buffer, the larger frames are added to the GatheringBuffer as heap
+     * buffers.
+     */
+    public static final int COPY_THRESHOLD = 8192;
+
+    private ByteBuffer stagingBuffer;
+    private int stagingStart;
+    private F frame;
+
+    @Override
+    public void handlerAdded() {
+        ChannelOptions options = channel.options();
+        stagingBuffer = newByteBuffer(options.getOption(SO_SNDBUF), options.getOption(DIRECT_BUF));
+        // every frame adds at most the staged bytes preceding it and its own buffer
+        dst = new GatheringBuffer(2 * MAX_FRAMES_PER_WRITE + 1);
+    }
+
+    @Override
+    public final HandlerStatus onWrite() {
+        if (dst.hasRemaining()) {
+            // the previous batch isn't written completely, so the staging buffer can't be reused yet.
+            return DIRTY;
+        }
+
+        dst.clear();
+        stagingBuffer.clear();
+        stagingStart = 0;
+        try {
+            for (int frameCount = 0; frameCount < MAX_FRAMES_PER_WRITE; frameCount++) {
+                if (frame == null) {
+                    frame = src.get();
+
+                    if (frame == null) {
+                        // everything is processed, so we are done
+                        return CLEAN;
+                    }
+                }
+
+                if (!encode(frame, stagingBuffer)) {
+                    // the staging buffer is full; the frame is encoded in the next batch.
+                    return DIRTY;
+                }
+                frame = null;
+            }
+            // the batch is full; there could be more frames to write.
+            return DIRTY;
+        } finally {
+            addStagedBytes();
+        }
+    }
+
+    /**
+     * Encodes the given frame.
+     *
+     * The bytes of the frame are either put into the staging buffer or the
+     * frame is added with {@link #add(ByteBuffer)}. The frame must be encoded
+     * completely or not at all.
+     *
+     * @param frame         the frame to encode.
+     * @param stagingBuffer the staging buffer in writing mode.
+     * @return true if the frame is encoded, false if there is no space left
+     * in the staging buffer for it.
+     */
+    protected abstract boolean encode(F frame, ByteBuffer stagingBuffer);
+
+    /**
+     * Adds the given buffer to the batch. The bytes already put into the
+     * staging buffer precede the bytes of the given buffer.
+     *
+     * @param buffer the buffer, in reading mode.
+     */
+    protected final void add(ByteBuffer buffer) {
+        addStagedBytes();
+        dst.add(buffer);
+    }
+
+    private void addStagedBytes() {
+        int position = stagingBuffer.position();
+        if (position == stagingStart) {
+            return;
+        }
+
+        ByteBuffer staged = stagingBuffer.duplicate();
+        staged.limit(position);
+        staged.position(stagingStart);
+        dst.add(staged);
+        stagingStart = position;
+    }
+}
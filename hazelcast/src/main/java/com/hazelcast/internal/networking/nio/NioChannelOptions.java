@@ -39,12 +39,12 @@ import static com.hazelcast.util.Preconditions.checkNotNull;
 /**
  * Contains the configuration for a {@link Channel}.
  */
-final class NioChannelOptions implements ChannelOptions {
+public final class NioChannelOptions implements ChannelOptions {
 
     private final Map<String, Object> values = new ConcurrentHashMap<String, Object>();
     private final Socket socket;
 
-    NioChannelOptions(Socket socket) {
+    public NioChannelOptions(Socket socket) {
         setOption(DIRECT_BUF, false);
         this.socket = socket;
     }
@@ -17,6 +17,7 @@
 package com.hazelcast.internal.networking.nio;
 
 import com.hazelcast.internal.metrics.Probe;
+import com.hazelcast.internal.networking.ChannelBufferPool;
 import com.hazelcast.internal.networking.ChannelErrorHandler;
 import com.hazelcast.internal.networking.ChannelHandler;
 import com.hazelcast.internal.networking.InboundHandler;
@@ -32,6 +33,9 @@ import java.nio.ByteBuffer;
 import java.nio.channels.Selector;
 import java.util.Arrays;
 
+import static com.hazelcast.internal.networking.ChannelBufferPool.MIN_POOLED_SIZE;
+import static com.hazelcast.internal.networking.ChannelOption.DIRECT_BUF;
+import static com.hazelcast.internal.networking.ChannelOption.SO_RCVBUF;
 import static com.hazelcast.internal.util.counters.SwCounter.newSwCounter;
 import static com.hazelcast.util.Preconditions.checkNotNull;
 import static com.hazelcast.util.collection.ArrayUtils.append;
@@ -50,6 +54,11 @@ public final class NioInboundPipeline extends NioPipeline implements InboundPipe
 
     private InboundHandler[] handlers = new InboundHandler[0];
     private ByteBuffer receiveBuffer;
+    // the receive buffer is returned to the pool when drained; null if the buffers aren't pooled
+    private ChannelBufferPool bufferPool;
+    private boolean receiveBufferLent;
+    private int receiveBufferSize;
+    private boolean receiveBufferDirect;
 
     @Probe(name = "bytesRead")
     private final SwCounter bytesRead = newSwCounter();
@@ -94,6 +103,15 @@ public final class NioInboundPipeline extends NioPipeline implements InboundPipe
         }
     }
 
+    /**
+     * Makes this pipeline return its receive buffer to the given pool while
+     * there is nothing to process and borrow a buffer from the pool when
+     * data arrives.
+     */
+    void bufferPool(ChannelBufferPool bufferPool) {
+        this.bufferPool = bufferPool;
+    }
+
     @Probe(name = "idleTimeMs")
     private long idleTimeMs() {
         return Math.max(currentTimeMillis() - lastReadTime, 0);
@@ -110,6 +128,10 @@ public final class NioInboundPipeline extends NioPipeline implements InboundPipe
         // the connection is going to be closed anyway.
         lastReadTime = currentTimeMillis();
 
+        if (receiveBuffer == null && bufferPool != null) {
+            borrowReceiveBuffer();
+        }
+
         int readBytes = socketChannel.read(receiveBuffer);
 
         if (readBytes == -1) {
@@ -160,6 +182,62 @@ public final class NioInboundPipeline extends NioPipeline implements InboundPipe
         if (unregisterRead) {
             unregisterOp(OP_READ);
         }
+
+        if (bufferPool != null) {
+            returnReceiveBufferIfDrained();
+        }
+    }
+
+    private void borrowReceiveBuffer() {
+        if (receiveBufferSize == 0) {
+            receiveBufferSize = channel.options().getOption(SO_RCVBUF);
+            receiveBufferDirect = channel.options().getOption(DIRECT_BUF);
+        }
+        receiveBuffer = bufferPool.acquire(receiveBufferSize, receiveBufferDirect);
+        receiveBufferLent = true;
+        handlers[0].src(receiveBuffer);
+    }
+
+    private void returnReceiveBufferIfDrained() {
+        ByteBuffer buffer = receiveBuffer;
+        // the handlers leave the src buffer in writing mode, so the buffer is drained
+        // if nothing precedes its position
+        if (buffer == null || buffer.position() > 0 || handlers[0].src() != buffer) {
+            return;
+        }
+        if (!receiveBufferLent && buffer.capacity() < MIN_POOLED_SIZE) {
+            // a buffer sized by the handler to read no more than it consumes, e.g. the protocol
+            // header: a pooled buffer would read past it and the handler replacing itself would
+            // leave the rest behind
+            return;
+        }
+
+        handlers[0].src(null);
+        receiveBuffer = null;
+        receiveBufferSize = buffer.capacity();
+        receiveBufferDirect = buffer.isDirect();
+        if (receiveBufferLent) {
+            bufferPool.release(buffer);
+        } else {
+            // the buffer allocated by the handler itself
+            bufferPool.adopt(buffer);
+        }
+        receiveBufferLent = false;
+    }
+
+    /**
+     * Returns the receive buffer borrowed from the pool once the channel is
+     * closed. Called by the owning IO thread, so the buffer isn't in use.
+     */
+    void releaseBuffers() {
+        if (!receiveBufferLent || currentThread() != owner) {
+            return;
+        }
+
+        handlers[0].src(null);
+        bufferPool.release(receiveBuffer);
+        receiveBuffer = null;
+        receiveBufferLent = false;
     }
 
     @Override
@@ -236,7 +314,13 @@ public final class NioInboundPipeline extends NioPipeline implements InboundPipe
 
     private void updatePipeline(InboundHandler[] handlers) {
         this.handlers = handlers;
-        receiveBuffer = handlers.length == 0 ? null : (ByteBuffer) handlers[0].src();
+        ByteBuffer newReceiveBuffer = handlers.length == 0 ? null : (ByteBuffer) handlers[0].src();
+        if (receiveBufferLent && newReceiveBuffer != receiveBuffer) {
+            // the replaced handler may still touch the lent buffer, so it can't be reused
+            bufferPool.discard(receiveBuffer);
+            receiveBufferLent = false;
+        }
+        receiveBuffer = newReceiveBuffer;
 
         InboundHandler prev = null;
         for (InboundHandler handler : handlers) {
@@ -20,6 +20,7 @@ import com.hazelcast.instance.EndpointQualifier;
 import com.hazelcast.internal.metrics.MetricsRegistry;
 import com.hazelcast.internal.metrics.ProbeLevel;
 import com.hazelcast.internal.networking.Channel;
+import com.hazelcast.internal.networking.ChannelBufferPool;
 import com.hazelcast.internal.networking.ChannelCloseListener;
 import com.hazelcast.internal.networking.ChannelErrorHandler;
 import com.hazelcast.internal.networking.ChannelInitializer;
@@ -96,6 +97,7 @@ public final class NioNetworking implements Networking {
     private final BackoffIdleStrategy idleStrategy;
     private final boolean selectorWorkaroundTest;
     private final ExecutorService closeListenerExecutor;
+    private final ChannelBufferPool bufferPool;
     private volatile IOBalancer ioBalancer;
     private volatile NioThread[] inputThreads;
     private volatile NioThread[] outputThreads;
@@ -112,6 +114,7 @@ public final class NioNetworking implements Networking {
         this.selectorMode = ctx.selectorMode;
         this.selectorWorkaroundTest = ctx.selectorWorkaroundTest;
         this.idleStrategy = ctx.idleStrategy;
+        this.bufferPool = ctx.bufferPool;
         this.closeListenerExecutor = newSingleThreadExecutor(new ThreadFactory() {
             @Override
             public Thread newThread(Runnable r) {
@@ -183,6 +186,11 @@ public final class NioNetworking implements Networking {
 
         startIOBalancer();
 
+        if (bufferPool != null) {
+            logger.info("IO buffer pooling is enabled: " + bufferPool);
+            metricsRegistry.scanAndRegister(bufferPool, "tcp.bufferPool");
+        }
+
         if (metricsRegistry.minimumLevel().isEnabled(DEBUG)) {
             metricsRegistry.scheduleAtFixedRate(new PublishAllTask(), 1, SECONDS, ProbeLevel.INFO);
         }
@@ -228,6 +236,10 @@ public final class NioNetworking implements Networking {
 
         NioInboundPipeline inboundPipeline = newInboundPipeline(channel);
         NioOutboundPipeline outboundPipeline = newOutboundPipeline(channel);
+        if (bufferPool != null) {
+            inboundPipeline.bufferPool(bufferPool);
+            outboundPipeline.bufferPool(bufferPool);
+        }
 
         channels.add(channel);
 
@@ -280,6 +292,34 @@ public final class NioNetworking implements Networking {
 
             metricsRegistry.deregister(nioChannel.inboundPipeline());
             metricsRegistry.deregister(nioChannel.outboundPipeline());
+
+            if (bufferPool != null) {
+                releaseBuffers(nioChannel);
+            }
+        }
+
+        private void releaseBuffers(NioChannel channel) {
+            final NioInboundPipeline inboundPipeline = channel.inboundPipeline;
+            NioThread inputThread = inboundPipeline.owner();
+            if (inputThread != null) {
+                inputThread.addTaskAndWakeup(new Runnable() {
+                    @Override
+                    public void run() {
+                        inboundPipeline.releaseBuffers();
+                    }
+                });
+            }
+
+            final NioOutboundPipeline outboundPipeline = channel.outboundPipeline;
+            NioThread outputThread = outboundPipeline.owner();
+            if (outputThread != null) {
+                outputThread.addTaskAndWakeup(new Runnable() {
+                    @Override
+                    public void run() {
+                        outboundPipeline.releaseBuffers();
+                    }
+                });
+            }
         }
     }
 
@@ -331,6 +371,7 @@ public final class NioNetworking implements Networking {
         // In Hazelcast 3.8, selector mode must be set via HazelcastProperties
         private SelectorMode selectorMode = SelectorMode.getConfiguredValue();
         private boolean selectorWorkaroundTest = Boolean.getBoolean("hazelcast.io.selector.workaround.test");
+        private ChannelBufferPool bufferPool;
 
         public Context() {
             String selectorModeString = SelectorMode.getConfiguredString();
@@ -383,5 +424,15 @@ public final class NioNetworking implements Networking {
             this.balancerIntervalSeconds = balancerIntervalSeconds;
             return this;
         }
+
+        /**
+         * Sets the pool the channels borrow their socket buffers from while
+         * they have data in flight. {@code null}, the default, makes each
+         * channel keep its own buffers.
+         */
+        public Context bufferPool(ChannelBufferPool bufferPool) {
+            this.bufferPool = bufferPool;
+            return this;
+        }
     }
 }
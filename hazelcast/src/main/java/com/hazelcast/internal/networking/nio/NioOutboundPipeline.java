@@ -17,8 +17,10 @@
 package com.hazelcast.internal.networking.nio;
 
 import com.hazelcast.internal.metrics.Probe;
+import com.hazelcast.internal.networking.ChannelBufferPool;
 import com.hazelcast.internal.networking.ChannelErrorHandler;
 import com.hazelcast.internal.networking.ChannelHandler;
+import com.hazelcast.internal.networking.GatheringBuffer;
 import com.hazelcast.internal.networking.OutboundHandler;
 import com.hazelcast.internal.networking.OutboundPipeline;
 import com.hazelcast.internal.networking.HandlerStatus;
@@ -36,6 +38,8 @@ import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import static com.hazelcast.internal.metrics.ProbeLevel.DEBUG;
+import static com.hazelcast.internal.networking.ChannelOption.DIRECT_BUF;
+import static com.hazelcast.internal.networking.ChannelOption.SO_SNDBUF;
 import static com.hazelcast.internal.networking.HandlerStatus.CLEAN;
 import static com.hazelcast.internal.networking.HandlerStatus.DIRTY;
 import static com.hazelcast.internal.util.counters.SwCounter.newSwCounter;
@@ -60,6 +64,12 @@ public final class NioOutboundPipeline
 
     private OutboundHandler[] handlers = new OutboundHandler[0];
     private ByteBuffer sendBuffer;
+    private GatheringBuffer gatheringBuffer;
+    // the send buffer is returned to the pool when drained; null if the buffers aren't pooled
+    private ChannelBufferPool bufferPool;
+    private boolean sendBufferLent;
+    private int sendBufferSize;
+    private boolean sendBufferDirect;
 
     private final AtomicBoolean scheduled = new AtomicBoolean(false);
     @Probe(name = "bytesWritten")
@@ -68,6 +78,8 @@ public final class NioOutboundPipeline
     private final SwCounter normalFramesWritten = newSwCounter();
     @Probe(name = "priorityFramesWritten")
     private final SwCounter priorityFramesWritten = newSwCounter();
+    @Probe(name = "socketWrites", level = DEBUG)
+    private final SwCounter socketWrites = newSwCounter();
 
     private volatile long lastWriteTime;
 
@@ -98,6 +110,15 @@ public final class NioOutboundPipeline
         }
     }
 
+    /**
+     * Makes this pipeline return its send buffer to the given pool once all
+     * the pending frames are written and borrow a buffer from the pool when
+     * there is something to write.
+     */
+    void bufferPool(ChannelBufferPool bufferPool) {
+        this.bufferPool = bufferPool;
+    }
+
     public int totalFramesPending() {
         return writeQueue.size() + priorityWriteQueue.size();
     }
@@ -124,6 +145,16 @@ public final class NioOutboundPipeline
         return bytesPending;
     }
 
+    /**
+     * The average number of frames written to the socket by a single write;
+     * higher with the gathering writes and with the small frames.
+     */
+    @Probe(name = "framesPerWrite", level = DEBUG)
+    private double framesPerWrite() {
+        long writes = socketWrites.get();
+        return writes == 0 ? 0 : (double) (normalFramesWritten.get() + priorityFramesWritten.get()) / writes;
+    }
+
     @Probe
     private long idleTimeMs() {
         return max(currentTimeMillis() - lastWriteTime, 0);
@@ -187,6 +218,10 @@ public final class NioOutboundPipeline
     public void process() throws Exception {
         processCount.inc();
 
+        if (sendBuffer == null && gatheringBuffer == null && bufferPool != null) {
+            borrowSendBuffer();
+        }
+
         OutboundHandler[] localHandlers = handlers;
         HandlerStatus pipelineStatus = CLEAN;
         for (int handlerIndex = 0; handlerIndex < localHandlers.length; handlerIndex++) {
@@ -206,8 +241,10 @@ public final class NioOutboundPipeline
 
         flushToSocket();
 
-        if (sendBuffer.remaining() > 0) {
+        if (hasPendingBytes()) {
             pipelineStatus = DIRTY;
+        } else if (pipelineStatus == CLEAN && bufferPool != null) {
+            returnSendBuffer();
         }
 
         switch (pipelineStatus) {
@@ -270,11 +307,66 @@ public final class NioOutboundPipeline
 
     private void flushToSocket() throws IOException {
         lastWriteTime = currentTimeMillis();
-        int written = socketChannel.write(sendBuffer);
+        long written = gatheringBuffer == null
+                ? socketChannel.write(sendBuffer)
+                : gatheringBuffer.writeTo(socketChannel);
+        socketWrites.inc();
         bytesWritten.inc(written);
         //System.out.println(channel+" bytes written:"+written);
     }
 
+    private boolean hasPendingBytes() {
+        return gatheringBuffer == null ? sendBuffer.remaining() > 0 : gatheringBuffer.hasRemaining();
+    }
+
+    private void borrowSendBuffer() {
+        if (sendBufferSize == 0) {
+            sendBufferSize = channel.options().getOption(SO_SNDBUF);
+            sendBufferDirect = channel.options().getOption(DIRECT_BUF);
+        }
+        ByteBuffer buffer = bufferPool.acquire(sendBufferSize, sendBufferDirect);
+        // the send buffer is kept in reading mode
+        buffer.flip();
+        sendBuffer = buffer;
+        sendBufferLent = true;
+        handlers[handlers.length - 1].dst(buffer);
+    }
+
+    private void returnSendBuffer() {
+        ByteBuffer buffer = sendBuffer;
+        // all the handlers are clean, so none of them holds a partially written frame
+        if (buffer == null || handlers[handlers.length - 1].dst() != buffer) {
+            return;
+        }
+
+        handlers[handlers.length - 1].dst(null);
+        sendBuffer = null;
+        sendBufferSize = buffer.capacity();
+        sendBufferDirect = buffer.isDirect();
+        if (sendBufferLent) {
+            bufferPool.release(buffer);
+        } else {
+            // the buffer allocated by the handler itself
+            bufferPool.adopt(buffer);
+        }
+        sendBufferLent = false;
+    }
+
+    /**
+     * Returns the send buffer borrowed from the pool once the channel is
+     * closed. Called by the owning IO thread, so the buffer isn't in use.
+     */
+    void releaseBuffers() {
+        if (!sendBufferLent || currentThread() != owner) {
+            return;
+        }
+
+        handlers[handlers.length - 1].dst(null);
+        bufferPool.release(sendBuffer);
+        sendBuffer = null;
+        sendBufferLent = false;
+    }
+
     void drainWriteQueues() {
         writeQueue.clear();
         priorityWriteQueue.clear();
@@ -342,7 +434,16 @@ public final class NioOutboundPipeline
 
     private void updatePipeline(OutboundHandler[] newHandlers) {
         this.handlers = newHandlers;
-        this.sendBuffer = newHandlers.length == 0 ? null : (ByteBuffer) newHandlers[newHandlers.length - 1].dst();
+        Object dst = newHandlers.length == 0 ? null : newHandlers[newHandlers.length - 1].dst();
+        // the last handler either fills a single send buffer or collects the buffers for a gathering write
+        ByteBuffer newSendBuffer = dst instanceof ByteBuffer ? (ByteBuffer) dst : null;
+        if (sendBufferLent && newSendBuffer != sendBuffer) {
+            // the replaced handler may still touch the lent buffer, so it can't be reused
+            bufferPool.discard(sendBuffer);
+            sendBufferLent = false;
+        }
+        this.sendBuffer = newSendBuffer;
+        this.gatheringBuffer = dst instanceof GatheringBuffer ? (GatheringBuffer) dst : null;
 
         OutboundHandler prev = null;
         for (OutboundHandler handler : handlers) {
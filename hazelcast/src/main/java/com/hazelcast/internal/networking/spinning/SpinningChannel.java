@@ -0,0 +1,162 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.internal.networking.spinning;
+
+import com.hazelcast.core.HazelcastException;
+import com.hazelcast.internal.metrics.MetricsRegistry;
+import com.hazelcast.internal.networking.AbstractChannel;
+import com.hazelcast.internal.networking.ChannelInitializer;
+import com.hazelcast.internal.networking.OutboundFrame;
+import com.hazelcast.internal.networking.nio.NioChannelOptions;
+
+import java.io.IOException;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * A {@link com.hazelcast.internal.networking.Channel} implementation polling
+ * a non blocking {@link SocketChannel} by the {@link SpinningThread}s.
+ */
+public final class SpinningChannel extends AbstractChannel {
+
+    SpinningInboundPipeline inboundPipeline;
+    SpinningOutboundPipeline outboundPipeline;
+
+    private final Executor closeListenerExecutor;
+    private final MetricsRegistry metricsRegistry;
+    private final ChannelInitializer channelInitializer;
+    private final NioChannelOptions config;
+    private SpinningThread inputThread;
+    private SpinningThread outputThread;
+
+    public SpinningChannel(SocketChannel socketChannel,
+                           boolean clientMode,
+                           ChannelInitializer channelInitializer,
+                           MetricsRegistry metricsRegistry,
+                           Executor closeListenerExecutor) {
+        super(socketChannel, clientMode);
+        this.channelInitializer = channelInitializer;
+        this.metricsRegistry = metricsRegistry;
+        this.closeListenerExecutor = closeListenerExecutor;
+        this.config = new NioChannelOptions(socketChannel.socket());
+    }
+
+    @Override
+    public NioChannelOptions options() {
+        return config;
+    }
+
+    void init(SpinningInboundPipeline inboundPipeline, SpinningThread inputThread,
+              SpinningOutboundPipeline outboundPipeline, SpinningThread outputThread) {
+        this.inboundPipeline = inboundPipeline;
+        this.inputThread = inputThread;
+        this.outboundPipeline = outboundPipeline;
+        this.outputThread = outputThread;
+    }
+
+    @Override
+    public SpinningOutboundPipeline outboundPipeline() {
+        return outboundPipeline;
+    }
+
+    @Override
+    public SpinningInboundPipeline inboundPipeline() {
+        return inboundPipeline;
+    }
+
+    @Override
+    public boolean write(OutboundFrame frame) {
+        if (isClosed()) {
+            return false;
+        }
+        outboundPipeline.write(frame);
+        return true;
+    }
+
+    @Override
+    protected void onConnect() {
+        String metricsId = localSocketAddress() + "->" + remoteSocketAddress();
+        metricsRegistry.scanAndRegister(outboundPipeline, "tcp.connection[" + metricsId + "].out");
+        metricsRegistry.scanAndRegister(inboundPipeline, "tcp.connection[" + metricsId + "].in");
+    }
+
+    @Override
+    public long lastReadTimeMillis() {
+        return inboundPipeline.lastReadTimeMillis();
+    }
+
+    @Override
+    public long lastWriteTimeMillis() {
+        return outboundPipeline.lastWriteTimeMillis();
+    }
+
+    @Override
+    public void start() {
+        try {
+            // the spinning threads never block on the socketChannel
+            socketChannel.configureBlocking(false);
+            channelInitializer.initChannel(this);
+        } catch (Exception e) {
+            throw new HazelcastException("Failed to start " + this, e);
+        }
+        inputThread.addPipeline(inboundPipeline);
+        outputThread.addPipeline(outboundPipeline);
+    }
+
+    @Override
+    protected void close0() {
+        inputThread.removePipeline(inboundPipeline);
+        outputThread.removePipeline(outboundPipeline);
+        outboundPipeline.drainWriteQueues();
+
+        // the socket is immediately closed.
+        try {
+            socketChannel.close();
+        } catch (IOException e) {
+            if (logger.isFineEnabled()) {
+                logger.fine("Failed to close " + this, e);
+            }
+        }
+
+        if (Thread.currentThread() instanceof SpinningThread) {
+            // we don't want to do any tasks on an io thread; we offload it instead
+            try {
+                closeListenerExecutor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            notifyCloseListeners();
+                        } catch (Exception e) {
+                            logger.warning(e.getMessage(), e);
+                        }
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                // if the task gets rejected, the networking must be shutting down.
+                logger.fine(e);
+            }
+        } else {
+            notifyCloseListeners();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "SpinningChannel{" + localSocketAddress() + "->" + remoteSocketAddress() + '}';
+    }
+}
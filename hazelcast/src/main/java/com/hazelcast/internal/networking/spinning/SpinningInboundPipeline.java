@@ -0,0 +1,218 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.internal.networking.spinning;
+
+import com.hazelcast.internal.metrics.Probe;
+import com.hazelcast.internal.networking.ChannelErrorHandler;
+import com.hazelcast.internal.networking.ChannelHandler;
+import com.hazelcast.internal.networking.HandlerStatus;
+import com.hazelcast.internal.networking.InboundHandler;
+import com.hazelcast.internal.networking.InboundPipeline;
+import com.hazelcast.internal.networking.nio.InboundHandlerWithCounters;
+import com.hazelcast.internal.util.counters.SwCounter;
+import com.hazelcast.logging.ILogger;
+
+import java.io.EOFException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.hazelcast.internal.util.counters.SwCounter.newSwCounter;
+import static com.hazelcast.util.Preconditions.checkNotNull;
+import static com.hazelcast.util.collection.ArrayUtils.append;
+import static com.hazelcast.util.collection.ArrayUtils.replaceFirst;
+import static java.lang.System.currentTimeMillis;
+
+/**
+ * The {@link InboundPipeline} of a {@link SpinningChannel}. The socket is
+ * read on every round of the owning {@link SpinningThread}; the handlers are
+ * called only if something was read or the pipeline was woken up.
+ */
+public final class SpinningInboundPipeline extends SpinningPipeline implements InboundPipeline {
+
+    private InboundHandler[] handlers = new InboundHandler[0];
+    private ByteBuffer receiveBuffer;
+
+    @Probe(name = "bytesRead")
+    private final SwCounter bytesRead = newSwCounter();
+    @Probe(name = "normalFramesRead")
+    private final SwCounter normalFramesRead = newSwCounter();
+    @Probe(name = "priorityFramesRead")
+    private final SwCounter priorityFramesRead = newSwCounter();
+    private volatile long lastReadTime;
+
+    // incremented by the wakeups; the owning thread compares it with the value it has seen last
+    private final AtomicLong wakeupCount = new AtomicLong();
+    private long seenWakeupCount;
+    // set when a handler is blocked, the socket is not read until the pipeline is woken up
+    private boolean blocked;
+
+    SpinningInboundPipeline(SpinningChannel channel, ChannelErrorHandler errorHandler, ILogger logger) {
+        super(channel, errorHandler, logger);
+    }
+
+    public long normalFramesRead() {
+        return normalFramesRead.get();
+    }
+
+    public long priorityFramesRead() {
+        return priorityFramesRead.get();
+    }
+
+    @Probe(name = "idleTimeMs")
+    private long idleTimeMs() {
+        return Math.max(currentTimeMillis() - lastReadTime, 0);
+    }
+
+    public long lastReadTimeMillis() {
+        return lastReadTime;
+    }
+
+    @Override
+    boolean process() throws Exception {
+        boolean wokenUp = false;
+        long wakeups = wakeupCount.get();
+        if (wakeups != seenWakeupCount) {
+            seenWakeupCount = wakeups;
+            blocked = false;
+            wokenUp = true;
+        }
+        if (blocked || receiveBuffer == null) {
+            return false;
+        }
+
+        int readBytes = socketChannel.read(receiveBuffer);
+        if (readBytes == -1) {
+            throw new EOFException("Remote socket closed!");
+        }
+        if (readBytes == 0 && !wokenUp) {
+            // nothing new to process
+            return false;
+        }
+
+        processCount.inc();
+        lastReadTime = currentTimeMillis();
+        bytesRead.inc(readBytes);
+
+        InboundHandler[] localHandlers = handlers;
+        boolean cleanPipeline;
+        do {
+            cleanPipeline = true;
+            for (int handlerIndex = 0; handlerIndex < localHandlers.length; handlerIndex++) {
+                InboundHandler handler = localHandlers[handlerIndex];
+                HandlerStatus handlerStatus = handler.onRead();
+
+                if (localHandlers != handlers) {
+                    handlerIndex = -1;
+                    localHandlers = handlers;
+                    continue;
+                }
+
+                switch (handlerStatus) {
+                    case CLEAN:
+                        break;
+                    case DIRTY:
+                        cleanPipeline = false;
+                        break;
+                    case BLOCKED:
+                        // keep flushing everything downstream, but stop reading the socket.
+                        blocked = true;
+                        break;
+                    default:
+                        throw new IllegalStateException();
+                }
+            }
+        } while (!cleanPipeline);
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return channel + ".inboundPipeline";
+    }
+
+    @Override
+    protected Iterable<? extends ChannelHandler> handlers() {
+        return Arrays.asList(handlers);
+    }
+
+    @Override
+    public InboundPipeline remove(InboundHandler handler) {
+        return replace(handler);
+    }
+
+    @Override
+    public InboundPipeline addLast(InboundHandler... addedHandlers) {
+        checkNotNull(addedHandlers, "handlers can't be null");
+
+        for (InboundHandler addedHandler : addedHandlers) {
+            fixDependencies(addedHandler);
+            addedHandler.setChannel(channel).handlerAdded();
+        }
+
+        updatePipeline(append(handlers, addedHandlers));
+        return this;
+    }
+
+    @Override
+    public InboundPipeline replace(InboundHandler oldHandler, InboundHandler... addedHandlers) {
+        checkNotNull(oldHandler, "oldHandler can't be null");
+        checkNotNull(addedHandlers, "addedHandlers can't be null");
+
+        InboundHandler[] newHandlers = replaceFirst(handlers, oldHandler, addedHandlers);
+        if (newHandlers == handlers) {
+            throw new IllegalArgumentException("handler " + oldHandler + " isn't part of the pipeline");
+        }
+
+        for (InboundHandler addedHandler : addedHandlers) {
+            fixDependencies(addedHandler);
+            addedHandler.setChannel(channel).handlerAdded();
+        }
+        updatePipeline(newHandlers);
+        return this;
+    }
+
+    private void fixDependencies(ChannelHandler addedHandler) {
+        if (addedHandler instanceof InboundHandlerWithCounters) {
+            InboundHandlerWithCounters c = (InboundHandlerWithCounters) addedHandler;
+            c.setNormalPacketsRead(normalFramesRead);
+            c.setPriorityPacketsRead(priorityFramesRead);
+        }
+    }
+
+    private void updatePipeline(InboundHandler[] handlers) {
+        this.handlers = handlers;
+        receiveBuffer = handlers.length == 0 ? null : (ByteBuffer) handlers[0].src();
+
+        InboundHandler prev = null;
+        for (InboundHandler handler : handlers) {
+            if (prev != null) {
+                Object src = handler.src();
+                if (src instanceof ByteBuffer) {
+                    prev.dst(src);
+                }
+            }
+            prev = handler;
+        }
+    }
+
+    @Override
+    public SpinningInboundPipeline wakeup() {
+        wakeupCount.incrementAndGet();
+        return this;
+    }
+}
@@ -0,0 +1,242 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.internal.networking.spinning;
+
+import com.hazelcast.instance.EndpointQualifier;
+import com.hazelcast.internal.metrics.MetricsRegistry;
+import com.hazelcast.internal.networking.Channel;
+import com.hazelcast.internal.networking.ChannelCloseListener;
+import com.hazelcast.internal.networking.ChannelErrorHandler;
+import com.hazelcast.internal.networking.ChannelInitializer;
+import com.hazelcast.internal.networking.ChannelInitializerProvider;
+import com.hazelcast.internal.networking.Networking;
+import com.hazelcast.logging.ILogger;
+import com.hazelcast.logging.LoggingService;
+import com.hazelcast.util.concurrent.BackoffIdleStrategy;
+import com.hazelcast.util.concurrent.IdleStrategy;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+
+import java.io.IOException;
+import java.nio.channels.SocketChannel;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.hazelcast.util.HashUtil.hashToIndex;
+import static com.hazelcast.util.ThreadUtil.createThreadPoolName;
+import static java.util.Collections.newSetFromMap;
+import static java.util.concurrent.Executors.newSingleThreadExecutor;
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+
+/**
+ * A {@link Networking} implementation that doesn't rely on a
+ * {@link java.nio.channels.Selector}. Every {@link SpinningThread} polls the
+ * non blocking sockets of its channels in a loop and backs off only if none
+ * of them had anything to read or write.
+ * <p>
+ * There are no readiness notifications, so there are no selector wakeups,
+ * no selection keys and no interest ops to maintain; a frame written to a
+ * channel is picked up by the output thread at its next round. The price is
+ * that the threads run hot while the members are busy, so the number of the
+ * threads should be kept low (preferably 1 input and 1 output thread) and
+ * the transport pays off only when there are cores to spare. The channels
+ * are assigned to the threads round robin and are not rebalanced.
+ */
+public final class SpinningNetworking implements Networking {
+
+    private final AtomicInteger nextInputThreadIndex = new AtomicInteger();
+    private final AtomicInteger nextOutputThreadIndex = new AtomicInteger();
+    private final ILogger logger;
+    private final MetricsRegistry metricsRegistry;
+    private final LoggingService loggingService;
+    private final String threadNamePrefix;
+    private final ChannelErrorHandler errorHandler;
+    private final int inputThreadCount;
+    private final int outputThreadCount;
+    private final IdleStrategy idleStrategy;
+    private final Set<SpinningChannel> channels = newSetFromMap(new ConcurrentHashMap<SpinningChannel, Boolean>());
+    private final ChannelCloseListener channelCloseListener = new ChannelCloseListenerImpl();
+    private final ExecutorService closeListenerExecutor;
+    private volatile SpinningThread[] inputThreads;
+    private volatile SpinningThread[] outputThreads;
+
+    public SpinningNetworking(Context ctx) {
+        this.threadNamePrefix = ctx.threadNamePrefix;
+        this.metricsRegistry = ctx.metricsRegistry;
+        this.loggingService = ctx.loggingService;
+        this.inputThreadCount = ctx.inputThreadCount;
+        this.outputThreadCount = ctx.outputThreadCount;
+        this.logger = loggingService.getLogger(SpinningNetworking.class);
+        this.errorHandler = ctx.errorHandler;
+        this.idleStrategy = ctx.idleStrategy;
+        this.closeListenerExecutor = newSingleThreadExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r);
+                t.setName(threadNamePrefix + "-SpinningNetworking-closeListenerExecutor");
+                return t;
+            }
+        });
+    }
+
+    @SuppressFBWarnings(value = "EI_EXPOSE_REP", justification = "used only for testing")
+    public Set<SpinningChannel> getChannels() {
+        return channels;
+    }
+
+    @Override
+    public void start() {
+        logger.info("TcpIpConnectionManager configured with spinning IO-threading model: "
+                + inputThreadCount + " input threads and "
+                + outputThreadCount + " output threads");
+
+        inputThreads = startThreads(inputThreadCount, "in-", "tcp.inputThread");
+        outputThreads = startThreads(outputThreadCount, "out-", "tcp.outputThread");
+    }
+
+    private SpinningThread[] startThreads(int threadCount, String namePrefix, String metricsPrefix) {
+        SpinningThread[] threads = new SpinningThread[threadCount];
+        for (int i = 0; i < threads.length; i++) {
+            SpinningThread thread = new SpinningThread(
+                    createThreadPoolName(threadNamePrefix, "IO") + namePrefix + i,
+                    loggingService.getLogger(SpinningThread.class),
+                    errorHandler,
+                    idleStrategy);
+            threads[i] = thread;
+            metricsRegistry.scanAndRegister(thread, metricsPrefix + "[" + thread.getName() + "]");
+            thread.start();
+        }
+        return threads;
+    }
+
+    @Override
+    public void shutdown() {
+        if (logger.isFinestEnabled()) {
+            logger.finest("Shutting down IO Threads... Total: " + (inputThreadCount + outputThreadCount));
+        }
+
+        shutdown(inputThreads);
+        inputThreads = null;
+        shutdown(outputThreads);
+        outputThreads = null;
+        closeListenerExecutor.shutdown();
+    }
+
+    private void shutdown(SpinningThread[] threads) {
+        if (threads == null) {
+            return;
+        }
+        for (SpinningThread thread : threads) {
+            thread.shutdown();
+        }
+    }
+
+    @Override
+    public Channel register(EndpointQualifier endpointQualifier, ChannelInitializerProvider channelInitializerProvider,
+                            SocketChannel socketChannel, boolean clientMode) throws IOException {
+        SpinningThread[] inputThreads = this.inputThreads;
+        SpinningThread[] outputThreads = this.outputThreads;
+        if (inputThreads == null || outputThreads == null) {
+            throw new IllegalStateException("SpinningNetworking is shutdown!");
+        }
+
+        ChannelInitializer initializer = channelInitializerProvider.provide(endpointQualifier);
+        SpinningChannel channel = new SpinningChannel(socketChannel, clientMode, initializer, metricsRegistry,
+                closeListenerExecutor);
+
+        socketChannel.configureBlocking(false);
+
+        SpinningInboundPipeline inboundPipeline = new SpinningInboundPipeline(channel, errorHandler,
+                loggingService.getLogger(SpinningInboundPipeline.class));
+        SpinningOutboundPipeline outboundPipeline = new SpinningOutboundPipeline(channel, errorHandler,
+                loggingService.getLogger(SpinningOutboundPipeline.class));
+        channel.init(inboundPipeline,
+                inputThreads[hashToIndex(nextInputThreadIndex.getAndIncrement(), inputThreadCount)],
+                outboundPipeline,
+                outputThreads[hashToIndex(nextOutputThreadIndex.getAndIncrement(), outputThreadCount)]);
+
+        channels.add(channel);
+        channel.addCloseListener(channelCloseListener);
+        return channel;
+    }
+
+    private class ChannelCloseListenerImpl implements ChannelCloseListener {
+        @Override
+        public void onClose(Channel channel) {
+            SpinningChannel spinningChannel = (SpinningChannel) channel;
+
+            channels.remove(spinningChannel);
+
+            metricsRegistry.deregister(spinningChannel.inboundPipeline());
+            metricsRegistry.deregister(spinningChannel.outboundPipeline());
+        }
+    }
+
+    public static class Context {
+        // spin, then yield, then park for up to 100 microseconds: a busy member never parks
+        private static final long IDLE_MAX_SPINS = 20;
+        private static final long IDLE_MAX_YIELDS = 50;
+        private static final long IDLE_MIN_PARK_NS = MICROSECONDS.toNanos(1);
+        private static final long IDLE_MAX_PARK_NS = MICROSECONDS.toNanos(100);
+
+        private IdleStrategy idleStrategy
+                = new BackoffIdleStrategy(IDLE_MAX_SPINS, IDLE_MAX_YIELDS, IDLE_MIN_PARK_NS, IDLE_MAX_PARK_NS);
+        private LoggingService loggingService;
+        private MetricsRegistry metricsRegistry;
+        private String threadNamePrefix = "hz";
+        private ChannelErrorHandler errorHandler;
+        private int inputThreadCount = 1;
+        private int outputThreadCount = 1;
+
+        public Context idleStrategy(IdleStrategy idleStrategy) {
+            this.idleStrategy = idleStrategy;
+            return this;
+        }
+
+        public Context loggingService(LoggingService loggingService) {
+            this.loggingService = loggingService;
+            return this;
+        }
+
+        public Context metricsRegistry(MetricsRegistry metricsRegistry) {
+            this.metricsRegistry = metricsRegistry;
+            return this;
+        }
+
+        public Context threadNamePrefix(String threadNamePrefix) {
+            this.threadNamePrefix = threadNamePrefix;
+            return this;
+        }
+
+        public Context errorHandler(ChannelErrorHandler errorHandler) {
+            this.errorHandler = errorHandler;
+            return this;
+        }
+
+        public Context inputThreadCount(int inputThreadCount) {
+            this.inputThreadCount = inputThreadCount;
+            return this;
+        }
+
+        public Context outputThreadCount(int outputThreadCount) {
+            this.outputThreadCount = outputThreadCount;
+            return this;
+        }
+    }
+}
@@ -0,0 +1,293 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.internal.networking.spinning;
+
+import com.hazelcast.internal.metrics.Probe;
+import com.hazelcast.internal.networking.ChannelErrorHandler;
+import com.hazelcast.internal.networking.ChannelHandler;
+import com.hazelcast.internal.networking.GatheringBuffer;
+import com.hazelcast.internal.networking.HandlerStatus;
+import com.hazelcast.internal.networking.OutboundFrame;
+import com.hazelcast.internal.networking.OutboundHandler;
+import com.hazelcast.internal.networking.OutboundPipeline;
+import com.hazelcast.internal.util.counters.SwCounter;
+import com.hazelcast.logging.ILogger;
+import com.hazelcast.util.function.Supplier;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.hazelcast.internal.metrics.ProbeLevel.DEBUG;
+import static com.hazelcast.internal.networking.HandlerStatus.CLEAN;
+import static com.hazelcast.internal.networking.HandlerStatus.DIRTY;
+import static com.hazelcast.internal.util.counters.SwCounter.newSwCounter;
+import static com.hazelcast.util.Preconditions.checkNotNull;
+import static com.hazelcast.util.collection.ArrayUtils.append;
+import static com.hazelcast.util.collection.ArrayUtils.replaceFirst;
+import static java.lang.Math.max;
+import static java.lang.System.currentTimeMillis;
+
+/**
+ * The {@link OutboundPipeline} of a {@link SpinningChannel}. The pipeline is
+ * processed by the owning {@link SpinningThread} only while it's scheduled,
+ * i.e. while there are frames to write, the socket didn't accept all the
+ * bytes or the pipeline was woken up.
+ */
+public final class SpinningOutboundPipeline
+        extends SpinningPipeline
+        implements Supplier<OutboundFrame>, OutboundPipeline {
+
+    @SuppressWarnings("checkstyle:visibilitymodifier")
+    @Probe(name = "writeQueueSize")
+    public final Queue<OutboundFrame> writeQueue = new ConcurrentLinkedQueue<OutboundFrame>();
+    @SuppressWarnings("checkstyle:visibilitymodifier")
+    @Probe(name = "priorityWriteQueueSize")
+    public final Queue<OutboundFrame> priorityWriteQueue = new ConcurrentLinkedQueue<OutboundFrame>();
+
+    private OutboundHandler[] handlers = new OutboundHandler[0];
+    private ByteBuffer sendBuffer;
+    private GatheringBuffer gatheringBuffer;
+
+    private final AtomicBoolean scheduled = new AtomicBoolean(false);
+    // incremented by the wakeups, a wakeup during the processing keeps the pipeline scheduled
+    private final AtomicLong wakeupCount = new AtomicLong();
+    @Probe(name = "bytesWritten")
+    private final SwCounter bytesWritten = newSwCounter();
+    @Probe(name = "normalFramesWritten")
+    private final SwCounter normalFramesWritten = newSwCounter();
+    @Probe(name = "priorityFramesWritten")
+    private final SwCounter priorityFramesWritten = newSwCounter();
+    @Probe(name = "socketWrites", level = DEBUG)
+    private final SwCounter socketWrites = newSwCounter();
+
+    private volatile long lastWriteTime;
+
+    SpinningOutboundPipeline(SpinningChannel channel, ChannelErrorHandler errorHandler, ILogger logger) {
+        super(channel, errorHandler, logger);
+    }
+
+    public int totalFramesPending() {
+        return writeQueue.size() + priorityWriteQueue.size();
+    }
+
+    public long lastWriteTimeMillis() {
+        return lastWriteTime;
+    }
+
+    /**
+     * The average number of frames written to the socket by a single write;
+     * higher with the gathering writes and with the small frames.
+     */
+    @Probe(name = "framesPerWrite", level = DEBUG)
+    private double framesPerWrite() {
+        long writes = socketWrites.get();
+        return writes == 0 ? 0 : (double) (normalFramesWritten.get() + priorityFramesWritten.get()) / writes;
+    }
+
+    @Probe
+    private long idleTimeMs() {
+        return max(currentTimeMillis() - lastWriteTime, 0);
+    }
+
+    @Probe(level = DEBUG)
+    private long isScheduled() {
+        return scheduled.get() ? 1 : 0;
+    }
+
+    public void write(OutboundFrame frame) {
+        if (frame.isUrgent()) {
+            priorityWriteQueue.offer(frame);
+        } else {
+            writeQueue.offer(frame);
+        }
+        scheduled.set(true);
+    }
+
+    @Override
+    public OutboundFrame get() {
+        OutboundFrame frame = priorityWriteQueue.poll();
+        if (frame == null) {
+            frame = writeQueue.poll();
+            if (frame == null) {
+                return null;
+            }
+            normalFramesWritten.inc();
+        } else {
+            priorityFramesWritten.inc();
+        }
+
+        return frame;
+    }
+
+    @Override
+    boolean process() throws Exception {
+        if (!scheduled.get()) {
+            return false;
+        }
+        processCount.inc();
+        long wakeups = wakeupCount.get();
+
+        OutboundHandler[] localHandlers = handlers;
+        HandlerStatus pipelineStatus = CLEAN;
+        for (int handlerIndex = 0; handlerIndex < localHandlers.length; handlerIndex++) {
+            OutboundHandler handler = localHandlers[handlerIndex];
+
+            HandlerStatus handlerStatus = handler.onWrite();
+
+            if (localHandlers != handlers) {
+                // change in the pipeline detected, therefor the pipeline is restarted.
+                localHandlers = handlers;
+                pipelineStatus = CLEAN;
+                handlerIndex = -1;
+            } else if (handlerStatus != CLEAN) {
+                pipelineStatus = handlerStatus;
+            }
+        }
+
+        if (flushToSocket()) {
+            pipelineStatus = DIRTY;
+        }
+
+        switch (pipelineStatus) {
+            case CLEAN:
+                unschedule(wakeups, true);
+                break;
+            case DIRTY:
+                // stays scheduled, the rest is written in the next round
+                break;
+            case BLOCKED:
+                // no point in processing the pipeline until it's woken up or a frame is written
+                unschedule(wakeups, false);
+                break;
+            default:
+                throw new IllegalStateException();
+        }
+        return true;
+    }
+
+    /**
+     * Writes the pending bytes to the socket.
+     *
+     * @return true if not all pending bytes were written.
+     */
+    private boolean flushToSocket() throws IOException {
+        lastWriteTime = currentTimeMillis();
+        if (gatheringBuffer == null) {
+            bytesWritten.inc(socketChannel.write(sendBuffer));
+            socketWrites.inc();
+            return sendBuffer.remaining() > 0;
+        }
+
+        bytesWritten.inc(gatheringBuffer.writeTo(socketChannel));
+        socketWrites.inc();
+        return gatheringBuffer.hasRemaining();
+    }
+
+    /**
+     * Unschedules this pipeline unless it was woken up while it was processed
+     * or, if checkFrames is set, there are pending frames. The frames written
+     * concurrently schedule the pipeline again.
+     */
+    private void unschedule(long wakeups, boolean checkFrames) {
+        scheduled.set(false);
+        if (wakeupCount.get() != wakeups
+                || checkFrames && (!writeQueue.isEmpty() || !priorityWriteQueue.isEmpty())) {
+            scheduled.set(true);
+        }
+    }
+
+    void drainWriteQueues() {
+        writeQueue.clear();
+        priorityWriteQueue.clear();
+    }
+
+    @Override
+    public String toString() {
+        return channel + ".outboundPipeline";
+    }
+
+    @Override
+    protected Iterable<? extends ChannelHandler> handlers() {
+        return Arrays.asList(handlers);
+    }
+
+    @Override
+    public OutboundPipeline remove(OutboundHandler handler) {
+        return replace(handler);
+    }
+
+    @Override
+    public OutboundPipeline addLast(OutboundHandler... addedHandlers) {
+        checkNotNull(addedHandlers, "addedHandlers can't be null");
+
+        for (OutboundHandler addedHandler : addedHandlers) {
+            addedHandler.setChannel(channel).handlerAdded();
+        }
+        updatePipeline(append(handlers, addedHandlers));
+        return this;
+    }
+
+    @Override
+    public OutboundPipeline replace(OutboundHandler oldHandler, OutboundHandler... addedHandlers) {
+        checkNotNull(oldHandler, "oldHandler can't be null");
+        checkNotNull(addedHandlers, "newHandler can't be null");
+
+        OutboundHandler[] newHandlers = replaceFirst(handlers, oldHandler, addedHandlers);
+        if (newHandlers == handlers) {
+            throw new IllegalArgumentException("handler " + oldHandler + " isn't part of the pipeline");
+        }
+
+        for (OutboundHandler addedHandler : addedHandlers) {
+            addedHandler.setChannel(channel).handlerAdded();
+        }
+        updatePipeline(newHandlers);
+        return this;
+    }
+
+    private void updatePipeline(OutboundHandler[] newHandlers) {
+        this.handlers = newHandlers;
+        Object dst = newHandlers.length == 0 ? null : newHandlers[newHandlers.length - 1].dst();
+        // the last handler either fills a single send buffer or collects the buffers for a gathering write
+        this.sendBuffer = dst instanceof ByteBuffer ? (ByteBuffer) dst : null;
+        this.gatheringBuffer = dst instanceof GatheringBuffer ? (GatheringBuffer) dst : null;
+
+        OutboundHandler prev = null;
+        for (OutboundHandler handler : handlers) {
+            if (prev == null) {
+                handler.src(this);
+            } else {
+                Object src = prev.dst();
+                if (src instanceof ByteBuffer) {
+                    handler.src(src);
+                }
+            }
+            prev = handler;
+        }
+    }
+
+    @Override
+    public OutboundPipeline wakeup() {
+        wakeupCount.incrementAndGet();
+        scheduled.set(true);
+        return this;
+    }
+}
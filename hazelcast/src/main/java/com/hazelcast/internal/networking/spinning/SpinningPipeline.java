@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.internal.networking.spinning;
+
+import com.hazelcast.internal.metrics.Probe;
+import com.hazelcast.internal.networking.ChannelErrorHandler;
+import com.hazelcast.internal.networking.ChannelHandler;
+import com.hazelcast.internal.util.counters.SwCounter;
+import com.hazelcast.logging.ILogger;
+
+import java.nio.channels.SocketChannel;
+
+import static com.hazelcast.internal.util.counters.SwCounter.newSwCounter;
+import static java.lang.Thread.currentThread;
+
+/**
+ * The part of a {@link SpinningChannel} processed by a {@link SpinningThread}.
+ * <p>
+ * A pipeline is owned by a single thread for its whole lifetime, there is no
+ * migration between the threads like there is for the
+ * {@link com.hazelcast.internal.networking.nio.NioPipeline}.
+ */
+public abstract class SpinningPipeline {
+
+    // the number of time the SpinningPipeline.process() method did any work.
+    @Probe
+    protected final SwCounter processCount = newSwCounter();
+    protected final ILogger logger;
+    protected final SpinningChannel channel;
+    protected final SocketChannel socketChannel;
+    private final ChannelErrorHandler errorHandler;
+    private volatile boolean failed;
+
+    SpinningPipeline(SpinningChannel channel, ChannelErrorHandler errorHandler, ILogger logger) {
+        this.channel = channel;
+        this.socketChannel = channel.socketChannel();
+        this.errorHandler = errorHandler;
+        this.logger = logger;
+    }
+
+    /**
+     * Processes this pipeline. Is called repeatedly by the owning
+     * {@link SpinningThread}, no matter if there is something to read or to
+     * write.
+     *
+     * @return {@code true} if any work was done, {@code false} if the pipeline
+     * was idle.
+     */
+    final boolean run() {
+        if (failed) {
+            return false;
+        }
+        try {
+            return process();
+        } catch (Throwable t) {
+            onError(t);
+            return false;
+        }
+    }
+
+    /**
+     * Called when the pipeline needs to be processed.
+     * <p>
+     * Any exception that leads to a termination of the connection like an
+     * IOException should not be dealt with in the process method but should
+     * be propagated.
+     *
+     * @return {@code true} if any work was done, {@code false} otherwise.
+     * @throws Exception
+     */
+    abstract boolean process() throws Exception;
+
+    /**
+     * Returns an Iterable that can iterate over each {@link ChannelHandler} of
+     * the pipeline.
+     *
+     * @return the Iterable.
+     */
+    protected abstract Iterable<? extends ChannelHandler> handlers();
+
+    /**
+     * Is called when the {@link #process()} throws a {@link Throwable}. The
+     * failed pipeline is not processed anymore.
+     *
+     * @param error the error
+     */
+    public void onError(Throwable error) {
+        failed = true;
+        if (error instanceof InterruptedException) {
+            currentThread().interrupt();
+        }
+
+        // mechanism for the handlers to intercept and modify the
+        // throwable.
+        try {
+            for (ChannelHandler handler : handlers()) {
+                handler.interceptError(error);
+            }
+        } catch (Throwable newError) {
+            error = newError;
+        }
+
+        errorHandler.onError(channel, error);
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.internal.networking.spinning;
+
+import com.hazelcast.internal.metrics.Probe;
+import com.hazelcast.internal.networking.ChannelErrorHandler;
+import com.hazelcast.internal.util.counters.SwCounter;
+import com.hazelcast.logging.ILogger;
+import com.hazelcast.spi.impl.operationexecutor.OperationHostileThread;
+import com.hazelcast.util.concurrent.IdleStrategy;
+
+import static com.hazelcast.internal.util.counters.SwCounter.newSwCounter;
+import static com.hazelcast.util.collection.ArrayUtils.append;
+import static com.hazelcast.util.collection.ArrayUtils.remove;
+
+/**
+ * A thread that processes its {@link SpinningPipeline}s in rounds, without
+ * any {@link java.nio.channels.Selector}: every round each pipeline is given
+ * a chance to read from or to write to its socket. When a round does no
+ * work, the thread backs off using its {@link IdleStrategy}.
+ */
+public final class SpinningThread extends Thread implements OperationHostileThread {
+
+    private final ILogger logger;
+    private final ChannelErrorHandler errorHandler;
+    private final IdleStrategy idleStrategy;
+
+    @Probe
+    private final SwCounter roundCount = newSwCounter();
+    @Probe
+    private final SwCounter idleRoundCount = newSwCounter();
+
+    private volatile SpinningPipeline[] pipelines = new SpinningPipeline[0];
+    private volatile boolean stop;
+
+    public SpinningThread(String threadName, ILogger logger, ChannelErrorHandler errorHandler, IdleStrategy idleStrategy) {
+        super(threadName);
+        this.logger = logger;
+        this.errorHandler = errorHandler;
+        this.idleStrategy = idleStrategy;
+    }
+
+    @Probe
+    private int pipelineCount() {
+        return pipelines.length;
+    }
+
+    synchronized void addPipeline(SpinningPipeline pipeline) {
+        pipelines = append(pipelines, new SpinningPipeline[]{pipeline});
+    }
+
+    synchronized void removePipeline(SpinningPipeline pipeline) {
+        pipelines = remove(pipelines, pipeline);
+    }
+
+    @Override
+    public void run() {
+        try {
+            long idleRound = 0;
+            while (!stop) {
+                roundCount.inc();
+                boolean worked = false;
+                for (SpinningPipeline pipeline : pipelines) {
+                    worked |= pipeline.run();
+                }
+
+                if (worked) {
+                    idleRound = 0;
+                } else {
+                    idleRoundCount.inc();
+                    idleStrategy.idle(++idleRound);
+                }
+            }
+        } catch (Throwable e) {
+            errorHandler.onError(null, e);
+        }
+
+        logger.finest(getName() + " finished");
+    }
+
+    public void shutdown() {
+        stop = true;
+        interrupt();
+    }
+
+    @Override
+    public String toString() {
+        return getName();
+    }
+}
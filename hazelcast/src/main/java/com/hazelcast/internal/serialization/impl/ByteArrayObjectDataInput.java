@@ -42,6 +42,8 @@ class ByteArrayObjectDataInput extends VersionedObjectDataInput implements Buffe
     int pos;
     int mark;
     char[] charBuffer;
+    // the minimum size of the Data returned as slices of the buffer, 0 if disabled
+    int sliceThreshold;
 
     private final InternalSerializationService service;
     private final boolean bigEndian;
@@ -71,6 +73,7 @@ class ByteArrayObjectDataInput extends VersionedObjectDataInput implements Buffe
         size = 0;
         pos = 0;
         mark = 0;
+        sliceThreshold = 0;
         if (charBuffer != null && charBuffer.length > UTF_BUFFER_SIZE * 8) {
             charBuffer = new char[UTF_BUFFER_SIZE * 8];
         }
@@ -589,6 +592,14 @@ class ByteArrayObjectDataInput extends VersionedObjectDataInput implements Buffe
 
     @Override
     public final Data readData() throws IOException {
+        if (sliceThreshold > 0 && pos + INT_SIZE_IN_BYTES <= size) {
+            int len = readInt(pos);
+            int start = pos + INT_SIZE_IN_BYTES;
+            if (start + len <= size && SlicedHeapData.isSliceable(len, size, sliceThreshold)) {
+                pos = start + len;
+                return new SlicedHeapData(data, start, len);
+            }
+        }
         byte[] bytes = readByteArray();
         return bytes == null ? null : new HeapData(bytes);
     }
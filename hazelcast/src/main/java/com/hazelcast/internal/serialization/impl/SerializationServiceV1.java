@@ -244,6 +244,25 @@ public class SerializationServiceV1 extends AbstractSerializationService {
         return input;
     }
 
+    /**
+     * Reads the type of the DataSerializable object of the given Data from the serialization header-bytes, without
+     * deserializing the object.
+     *
+     * @param data data of a DataSerializable object.
+     * @return the factory and the class ID combined into a {@link Long} for an IdentifiedDataSerializable object,
+     * otherwise the class name.
+     * @throws IOException
+     */
+    public Object readDataSerializableType(Data data) throws IOException {
+        ObjectDataInput input = createObjectDataInput(data);
+        byte header = input.readByte();
+        if (isFlagSet(header, IDS_FLAG)) {
+            long factoryId = input.readInt();
+            return (factoryId << Integer.SIZE) | (input.readInt() & 0xFFFFFFFFL);
+        }
+        return input.readUTF();
+    }
+
     public static Builder builder() {
         return new Builder();
     }
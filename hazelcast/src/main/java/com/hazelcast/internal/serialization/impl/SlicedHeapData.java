@@ -0,0 +1,190 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hazelcast.internal.serialization.impl;
+
+import com.hazelcast.nio.Bits;
+import com.hazelcast.nio.BufferObjectDataInput;
+import com.hazelcast.nio.serialization.Data;
+import com.hazelcast.util.HashUtil;
+
+import java.util.Arrays;
+
+import static com.hazelcast.nio.Bits.INT_SIZE_IN_BYTES;
+
+/**
+ * A {@link HeapData} sharing a range of a larger buffer instead of owning
+ * its own array.
+ * <p>
+ * The slices are created by the inputs reading the inbound packets: the
+ * payload of an inbound packet is allocated for that packet only and is
+ * never modified after it's received, so a large {@link Data} taking up
+ * most of the packet, typically the value of a put, is retained as a slice
+ * of the payload instead of being copied out of it. The slice is stored as
+ * is by the record stores, it's written to the outputs without an
+ * intermediate copy and it's deserialized directly from the shared buffer.
+ * Only {@link #toByteArray()} copies the range, since the callers expect
+ * the returned array to start with the {@link Data} header.
+ * <p>
+ * A slice is created only if it's at least {@link #SLICE_THRESHOLD} bytes
+ * long and the rest of the buffer is no larger than an eighth of it, which
+ * limits the memory retained needlessly by the slice. The threshold is
+ * configured by the {@code hazelcast.serialization.data.slice.threshold}
+ * system property, a non-positive value disables the slicing.
+ */
+public final class SlicedHeapData extends HeapData {
+
+    /**
+     * The minimum size of a {@link Data} in bytes to be sliced.
+     */
+    public static final int SLICE_THRESHOLD = Integer.getInteger("hazelcast.serialization.data.slice.threshold", 64 * 1024);
+
+    /**
+     * The log2 of the maximum ratio of the size of a slice to the size of
+     * the rest of its buffer.
+     */
+    private static final int SLACK_SHIFT = 3;
+
+    private final int offset;
+    private final int length;
+
+    SlicedHeapData(byte[] buffer, int offset, int length) {
+        super(buffer);
+        this.offset = offset;
+        this.length = length;
+    }
+
+    /**
+     * Allows the given input to return the {@link Data} it reads as slices of
+     * its buffer. Expected to be invoked only for the inputs reading the
+     * buffers which are never modified, i.e. the payloads of the inbound
+     * packets.
+     */
+    public static void enableSlicing(BufferObjectDataInput in) {
+        if (SLICE_THRESHOLD > 0 && in instanceof ByteArrayObjectDataInput) {
+            ((ByteArrayObjectDataInput) in).sliceThreshold = SLICE_THRESHOLD;
+        }
+    }
+
+    /**
+     * @return {@code true} if a {@link Data} of the given length may be
+     * sliced out of a buffer of the given size.
+     */
+    static boolean isSliceable(int length, int bufferSize, int threshold) {
+        return length >= threshold && length >= HEAP_DATA_OVERHEAD
+                && bufferSize - length <= length >> SLACK_SHIFT;
+    }
+
+    /**
+     * @return the buffer shared by this slice.
+     */
+    public byte[] getBuffer() {
+        return payload;
+    }
+
+    /**
+     * @return the position of this slice in its buffer.
+     */
+    public int getOffset() {
+        return offset;
+    }
+
+    @Override
+    public int dataSize() {
+        return Math.max(length - HEAP_DATA_OVERHEAD, 0);
+    }
+
+    @Override
+    public int totalSize() {
+        return length;
+    }
+
+    @Override
+    public void copyTo(byte[] dest, int destPos) {
+        System.arraycopy(payload, offset, dest, destPos, length);
+    }
+
+    @Override
+    public int getPartitionHash() {
+        if (hasPartitionHash()) {
+            return Bits.readIntB(payload, offset + PARTITION_HASH_OFFSET);
+        }
+        return hashCode();
+    }
+
+    @Override
+    public boolean hasPartitionHash() {
+        return Bits.readIntB(payload, offset + PARTITION_HASH_OFFSET) != 0;
+    }
+
+    @Override
+    public byte[] toByteArray() {
+        return Arrays.copyOfRange(payload, offset, offset + length);
+    }
+
+    @Override
+    public int getType() {
+        return Bits.readIntB(payload, offset + TYPE_OFFSET);
+    }
+
+    @Override
+    public int getHeapCost() {
+        // the whole buffer is retained by the slice
+        return super.getHeapCost() + 2 * INT_SIZE_IN_BYTES;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Data)) {
+            return false;
+        }
+
+        Data data = (Data) o;
+        if (getType() != data.getType() || dataSize() != data.dataSize()) {
+            return false;
+        }
+
+        byte[] otherBuffer;
+        int otherOffset;
+        if (data instanceof SlicedHeapData) {
+            otherBuffer = ((SlicedHeapData) data).payload;
+            otherOffset = ((SlicedHeapData) data).offset;
+        } else {
+            otherBuffer = data.toByteArray();
+            otherOffset = 0;
+        }
+        for (int i = length - 1; i >= DATA_OFFSET; i--) {
+            if (payload[offset + i] != otherBuffer[otherOffset + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        return HashUtil.MurmurHash3_x86_32(payload, offset + DATA_OFFSET, dataSize());
+    }
+
+    @Override
+    public long hash64() {
+        return HashUtil.MurmurHash3_x64_64(payload, offset + DATA_OFFSET, dataSize());
+    }
+}
@@ -18,8 +18,10 @@ package com.hazelcast.internal.serialization.impl.bufferpool;
 
 import com.hazelcast.internal.serialization.InternalSerializationService;
 import com.hazelcast.internal.serialization.impl.HeapData;
+import com.hazelcast.internal.serialization.impl.SlicedHeapData;
 import com.hazelcast.nio.BufferObjectDataInput;
 import com.hazelcast.nio.BufferObjectDataOutput;
+import com.hazelcast.nio.Packet;
 import com.hazelcast.nio.serialization.Data;
 
 import java.io.Closeable;
@@ -72,7 +74,16 @@ public class BufferPoolImpl implements BufferPool {
         if (in == null) {
             in = serializationService.createObjectDataInput((byte[]) null);
         }
-        in.init(data.toByteArray(), HeapData.DATA_OFFSET);
+        if (data instanceof SlicedHeapData) {
+            SlicedHeapData slice = (SlicedHeapData) data;
+            in.init(slice.getBuffer(), slice.getOffset() + HeapData.DATA_OFFSET);
+        } else {
+            in.init(data.toByteArray(), HeapData.DATA_OFFSET);
+        }
+        if (data instanceof Packet) {
+            // the payload of an inbound packet is never modified, the data read from it may share it
+            SlicedHeapData.enableSlicing(in);
+        }
         return in;
     }
 
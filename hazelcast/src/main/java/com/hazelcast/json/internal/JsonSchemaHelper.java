@@ -115,10 +115,36 @@ public final class JsonSchemaHelper {
      * @param attributePath     this cannot contain "any"
      * @return                  JsonValue extracted or null
      */
-    @SuppressWarnings("checkstyle:npathcomplexity")
     public static JsonValue findValueWithPattern(NavigableJsonInputAdapter input,
                                                  JsonSchemaNode schemaNode, JsonPattern expectedPattern,
                                                  JsonPathCursor attributePath) throws IOException {
+        JsonSchemaTerminalNode terminalNode = findTerminalWithPattern(input, schemaNode, expectedPattern, attributePath);
+        if (terminalNode == null) {
+            return null;
+        }
+        // at this point we are sure we found the value by pattern. So we have to be able to extract JsonValue.
+        // Otherwise, let the exceptions propagate
+        return parseValue(input, terminalNode.getValueStartLocation());
+    }
+
+    /**
+     * Finds the terminal node of the value that is stored in attributePath
+     * in input. Works the same way {@link #findValueWithPattern} does, but
+     * returns the node describing the value instead of the value itself.
+     *
+     * NOTE: this method cannot handle patterns with "any" in it.
+     *
+     * @param input             a byte array containing the target object
+     * @param schemaNode        valid schema description to the target
+     *                          object
+     * @param expectedPattern   this cannot contain "any"
+     * @param attributePath     this cannot contain "any"
+     * @return                  the terminal node of the value or null
+     */
+    @SuppressWarnings("checkstyle:npathcomplexity")
+    public static JsonSchemaTerminalNode findTerminalWithPattern(NavigableJsonInputAdapter input,
+                                                                 JsonSchemaNode schemaNode, JsonPattern expectedPattern,
+                                                                 JsonPathCursor attributePath) throws IOException {
         for (int i = 0; i < expectedPattern.depth(); i++) {
             if (attributePath.getNext() == null) {
                 return null;
@@ -139,19 +165,28 @@ public final class JsonSchemaHelper {
             }
         }
         if (schemaNode.isTerminal() && attributePath.getNext() == null) {
-            // at this point we are sure we found the value by pattern. So we have to be able to extract JsonValue.
-            // Otherwise, let the exceptions propagate
-            try {
-                JsonReducedValueParser valueParser = new JsonReducedValueParser();
-                int valuePos = ((JsonSchemaTerminalNode) schemaNode).getValueStartLocation();
-                return input.parseValue(valueParser, valuePos);
-            } catch (ParseException parseException) {
-                throw new HazelcastException(parseException);
-            }
+            return (JsonSchemaTerminalNode) schemaNode;
         }
         return null;
     }
 
+    /**
+     * Extracts the JsonValue starting at the given location of input.
+     *
+     * @param input         a byte array containing the target object
+     * @param valuePos      the start location of a terminal value, see
+     *                      {@link JsonSchemaTerminalNode#getValueStartLocation()}
+     * @return              JsonValue extracted
+     */
+    public static JsonValue parseValue(NavigableJsonInputAdapter input, int valuePos) throws IOException {
+        try {
+            JsonReducedValueParser valueParser = new JsonReducedValueParser();
+            return input.parseValue(valueParser, valuePos);
+        } catch (ParseException parseException) {
+            throw new HazelcastException(parseException);
+        }
+    }
+
     /**
      * Creates a description out of a JsonValue. The parser must be
      * pointing to the start of the input.
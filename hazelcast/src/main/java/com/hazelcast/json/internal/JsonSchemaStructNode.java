@@ -24,8 +24,18 @@ import java.util.List;
  */
 public class JsonSchemaStructNode extends JsonSchemaNode {
 
+    /**
+     * The maximum number of the attribute paths whose value locations are
+     * remembered by a node.
+     */
+    static final int MAX_RESOLVED_PATHS = 4;
+
+    private static final ResolvedPaths NO_RESOLVED_PATHS = new ResolvedPaths(new String[0], new int[0]);
+
     private final List<JsonSchemaNameValue> inners = new ArrayList<JsonSchemaNameValue>();
 
+    private volatile ResolvedPaths resolvedPaths = NO_RESOLVED_PATHS;
+
     public JsonSchemaStructNode(JsonSchemaStructNode parent) {
         super(parent);
     }
@@ -62,6 +72,50 @@ public class JsonSchemaStructNode extends JsonSchemaNode {
         return inners.size();
     }
 
+    /**
+     * Returns the start location of the terminal value the given attribute
+     * path was resolved to against this node, see
+     * {@link #setResolvedValueLocation}.
+     *
+     * @param attributePath the attribute path
+     * @return the value start location or {@code -1} if the path was not
+     *         resolved against this node yet
+     */
+    public int getResolvedValueLocation(String attributePath) {
+        ResolvedPaths paths = resolvedPaths;
+        for (int i = 0; i < paths.attributePaths.length; i++) {
+            if (paths.attributePaths[i].equals(attributePath)) {
+                return paths.valueLocations[i];
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Remembers the start location of the terminal value the given
+     * attribute path was resolved to against this node. Only the root
+     * node of a schema describes a single value, so the locations are
+     * meaningful only for the root nodes. At most
+     * {@link #MAX_RESOLVED_PATHS} paths are remembered, the oldest one is
+     * forgotten first.
+     *
+     * @param attributePath the attribute path
+     * @param valueLocation the start location of the value
+     */
+    public void setResolvedValueLocation(String attributePath, int valueLocation) {
+        ResolvedPaths paths = resolvedPaths;
+        int count = paths.attributePaths.length;
+        int skip = count < MAX_RESOLVED_PATHS ? 0 : 1;
+        String[] attributePaths = new String[count - skip + 1];
+        int[] valueLocations = new int[count - skip + 1];
+        System.arraycopy(paths.attributePaths, skip, attributePaths, 0, count - skip);
+        System.arraycopy(paths.valueLocations, skip, valueLocations, 0, count - skip);
+        attributePaths[count - skip] = attributePath;
+        valueLocations[count - skip] = valueLocation;
+        // racing updates may lose a location, it's resolved again then
+        resolvedPaths = new ResolvedPaths(attributePaths, valueLocations);
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
@@ -92,4 +146,15 @@ public class JsonSchemaStructNode extends JsonSchemaNode {
                 + "inners=" + inners
                 + '}';
     }
+
+    private static final class ResolvedPaths {
+
+        final String[] attributePaths;
+        final int[] valueLocations;
+
+        ResolvedPaths(String[] attributePaths, int[] valueLocations) {
+            this.attributePaths = attributePaths;
+            this.valueLocations = valueLocations;
+        }
+    }
 }
@@ -23,6 +23,7 @@ import com.hazelcast.config.EventJournalConfig;
 import com.hazelcast.config.EvictionPolicy;
 import com.hazelcast.config.InvalidConfigurationException;
 import com.hazelcast.config.MapConfig;
+import com.hazelcast.config.MapIndexConfig;
 import com.hazelcast.config.WanConsumerConfig;
 import com.hazelcast.config.WanPublisherConfig;
 import com.hazelcast.config.WanReplicationConfig;
@@ -39,8 +40,11 @@ import com.hazelcast.map.impl.eviction.Evictor;
 import com.hazelcast.map.impl.eviction.EvictorImpl;
 import com.hazelcast.map.impl.mapstore.MapStoreContext;
 import com.hazelcast.map.impl.nearcache.invalidation.InvalidationListener;
+import com.hazelcast.map.impl.query.ColumnarScanCache;
+import com.hazelcast.map.impl.query.QueryResultCache;
 import com.hazelcast.map.impl.query.QueryEntryFactory;
 import com.hazelcast.map.impl.record.DataRecordFactory;
+import com.hazelcast.map.impl.record.NativeRecordFactory;
 import com.hazelcast.map.impl.record.ObjectRecordFactory;
 import com.hazelcast.map.impl.record.RecordFactory;
 import com.hazelcast.nio.ClassLoaderUtil;
@@ -62,9 +66,12 @@ import com.hazelcast.wan.WANReplicationQueueFullException;
 import com.hazelcast.wan.WanReplicationPublisher;
 import com.hazelcast.wan.WanReplicationService;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 import static com.hazelcast.config.InMemoryFormat.NATIVE;
 import static com.hazelcast.config.InMemoryFormat.OBJECT;
@@ -72,6 +79,8 @@ import static com.hazelcast.map.impl.eviction.Evictor.NULL_EVICTOR;
 import static com.hazelcast.map.impl.mapstore.MapStoreContextFactory.createMapStoreContext;
 import static com.hazelcast.spi.properties.GroupProperty.MAP_EVICTION_BATCH_SIZE;
 import static com.hazelcast.spi.properties.GroupProperty.MAP_LOAD_ALL_PUBLISHES_ADDED_EVENT;
+import static com.hazelcast.spi.properties.GroupProperty.QUERY_COLUMNAR_SCAN_MAX_ATTRIBUTES;
+import static com.hazelcast.spi.properties.GroupProperty.QUERY_RESULT_CACHE_SIZE;
 import static java.lang.System.getProperty;
 
 /**
@@ -103,6 +112,18 @@ public class MapContainer {
      * Holds number of registered {@link InvalidationListener} from clients.
      */
     protected final AtomicInteger invalidationListenerCount = new AtomicInteger();
+    /**
+     * Holds the columnar scan caches per partition or {@code null} if the
+     * columnar scans are disabled for this map.
+     */
+    protected final AtomicReferenceArray<ColumnarScanCache> columnarScanCaches;
+    protected final int columnarScanMaxAttributes;
+    /**
+     * Holds the query result caches per partition or {@code null} if the
+     * caching of the query results is disabled for this map.
+     */
+    protected final AtomicReferenceArray<QueryResultCache> queryResultCaches;
+    protected final int queryResultCacheSize;
 
     protected Object wanMergePolicy;
     protected WanReplicationPublisher wanReplicationPublisher;
@@ -143,6 +164,20 @@ public class MapContainer {
             this.globalIndexes = null;
         }
         this.addEventPublishingEnabled = nodeEngine.getProperties().getBoolean(MAP_LOAD_ALL_PUBLISHES_ADDED_EVENT);
+        this.columnarScanMaxAttributes = nodeEngine.getProperties().getInteger(QUERY_COLUMNAR_SCAN_MAX_ATTRIBUTES);
+        if (shouldUseColumnarScans(mapConfig)) {
+            int partitionCount = nodeEngine.getPartitionService().getPartitionCount();
+            this.columnarScanCaches = new AtomicReferenceArray<ColumnarScanCache>(partitionCount);
+        } else {
+            this.columnarScanCaches = null;
+        }
+        this.queryResultCacheSize = nodeEngine.getProperties().getInteger(QUERY_RESULT_CACHE_SIZE);
+        if (shouldCacheQueryResults(mapConfig)) {
+            int partitionCount = nodeEngine.getPartitionService().getPartitionCount();
+            this.queryResultCaches = new AtomicReferenceArray<QueryResultCache>(partitionCount);
+        } else {
+            this.queryResultCaches = null;
+        }
         this.mapStoreContext = createMapStoreContext(this);
         this.mapStoreContext.start();
         initEvictor();
@@ -160,9 +195,21 @@ public class MapContainer {
                 .statsEnabled(mapConfig.isStatisticsEnabled())
                 .indexProvider(mapServiceContext.getIndexProvider(mapConfig))
                 .usesCachedQueryableEntries(mapConfig.getCacheDeserializedValues() != CacheDeserializedValues.NEVER)
+                .bitmapIndexAttributes(getBitmapIndexAttributes())
+                .partitionCount(mapServiceContext.getNodeEngine().getPartitionService().getPartitionCount())
                 .build();
     }
 
+    private List<String> getBitmapIndexAttributes() {
+        List<String> attributes = new ArrayList<String>();
+        for (MapIndexConfig indexConfig : mapConfig.getMapIndexConfigs()) {
+            if (indexConfig.isBitmap()) {
+                attributes.add(indexConfig.getAttribute());
+            }
+        }
+        return attributes;
+    }
+
     public boolean isAddEventPublishingEnabled() {
         return addEventPublishingEnabled;
     }
@@ -238,6 +285,9 @@ public class MapContainer {
                         return new DataRecordFactory(mapConfig, serializationService, partitioningStrategy);
                     case OBJECT:
                         return new ObjectRecordFactory(mapConfig, serializationService);
+                    case NATIVE:
+                        return new NativeRecordFactory(serializationService, partitioningStrategy,
+                                mapServiceContext.getNativeMemoryManager());
                     default:
                         throw new IllegalArgumentException("Invalid storage format: " + mapConfig.getInMemoryFormat());
                 }
@@ -322,6 +372,61 @@ public class MapContainer {
         return globalIndexes != null;
     }
 
+    protected boolean shouldUseColumnarScans(MapConfig mapConfig) {
+        // the native records can't be referenced outside of the partition threads
+        return columnarScanMaxAttributes > 0 && !mapConfig.getInMemoryFormat().equals(NATIVE);
+    }
+
+    /**
+     * Creates a new columnar scan cache for the record store of the given
+     * partition, replacing the cache of the previous record store, if any.
+     *
+     * @param partitionId the partition to create the cache for.
+     * @return the created cache or {@code null} if the columnar scans are
+     * disabled for this map.
+     */
+    public ColumnarScanCache createColumnarScanCache(int partitionId) {
+        if (columnarScanCaches == null) {
+            return null;
+        }
+        ColumnarScanCache cache = new ColumnarScanCache(serializationService, extractors, columnarScanMaxAttributes);
+        columnarScanCaches.set(partitionId, cache);
+        return cache;
+    }
+
+    /**
+     * @param partitionId the partition to get the cache of.
+     * @return the columnar scan cache of the given partition or {@code null}
+     * if the columnar scans are disabled for this map.
+     */
+    public ColumnarScanCache getColumnarScanCache(int partitionId) {
+        return columnarScanCaches == null ? null : columnarScanCaches.get(partitionId);
+    }
+
+    protected boolean shouldCacheQueryResults(MapConfig mapConfig) {
+        // the native records can't be referenced outside of the partition threads
+        return queryResultCacheSize > 0 && !mapConfig.getInMemoryFormat().equals(NATIVE);
+    }
+
+    /**
+     * @param partitionId the partition to get the cache of.
+     * @return the query result cache of the given partition or {@code null}
+     * if the caching of the query results is disabled for this map.
+     */
+    public QueryResultCache getQueryResultCache(int partitionId) {
+        if (queryResultCaches == null) {
+            return null;
+        }
+        QueryResultCache cache = queryResultCaches.get(partitionId);
+        if (cache == null) {
+            cache = new QueryResultCache(queryResultCacheSize);
+            if (!queryResultCaches.compareAndSet(partitionId, null, cache)) {
+                cache = queryResultCaches.get(partitionId);
+            }
+        }
+        return cache;
+    }
+
     public WanReplicationPublisher getWanReplicationPublisher() {
         return wanReplicationPublisher;
     }
@@ -20,7 +20,11 @@ import com.hazelcast.core.ExecutionCallback;
 import com.hazelcast.core.IFunction;
 import com.hazelcast.core.MapLoader;
 import com.hazelcast.core.Member;
+import com.hazelcast.core.PartitionAwareMapLoader;
 import com.hazelcast.internal.cluster.ClusterService;
+import com.hazelcast.internal.metrics.MetricsRegistry;
+import com.hazelcast.internal.metrics.Probe;
+import com.hazelcast.internal.util.counters.SwCounter;
 import com.hazelcast.logging.ILogger;
 import com.hazelcast.map.impl.mapstore.MapStoreContext;
 import com.hazelcast.map.impl.operation.KeyLoadStatusOperation;
@@ -44,6 +48,7 @@ import com.hazelcast.util.scheduler.CoalescingDelayedTrigger;
 
 import java.io.Closeable;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -56,6 +61,7 @@ import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
+import static com.hazelcast.internal.util.counters.SwCounter.newSwCounter;
 import static com.hazelcast.logging.Logger.getLogger;
 import static com.hazelcast.map.impl.MapKeyLoaderUtil.assignRole;
 import static com.hazelcast.map.impl.MapKeyLoaderUtil.toBatches;
@@ -65,10 +71,17 @@ import static com.hazelcast.nio.IOUtil.closeResource;
 import static com.hazelcast.spi.ExecutionService.MAP_LOAD_ALL_KEYS_EXECUTOR;
 import static com.hazelcast.util.IterableUtil.limit;
 import static com.hazelcast.util.IterableUtil.map;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
 import static java.util.concurrent.TimeUnit.SECONDS;
 
 /**
  * Loads keys from a {@link MapLoader} and sends them to all partitions for loading
+ * <p>
+ * If the map loader is a {@link PartitionAwareMapLoader}, the initial load
+ * is done by the owner of each partition: the map key loader of a partition
+ * loads the keys of the partition and sends them to the partition itself
+ * for value loading, so all the partitions are loaded in parallel and no
+ * {@link Role#SENDER} is involved.
  */
 public class MapKeyLoader {
 
@@ -82,6 +95,7 @@ public class MapKeyLoader {
     private final ClusterService clusterService;
     private IFunction<Object, Data> toData;
     private ExecutionService execService;
+    private MetricsRegistry metricsRegistry;
     private CoalescingDelayedTrigger delayedTrigger;
 
     /**
@@ -100,6 +114,21 @@ public class MapKeyLoader {
     private int mapNamePartition;
     private int partitionId;
     private boolean hasBackup;
+    /**
+     * {@code true} if the initial load of this partition is done by this
+     * partition itself
+     *
+     * @see PartitionAwareMapLoader
+     */
+    private volatile boolean partitionAwareLoad;
+
+    /**
+     * The number of the keys loaded by the partition-aware initial load of
+     * this partition and sent for value loading
+     */
+    @Probe
+    private final SwCounter loadedKeyCount = newSwCounter();
+    private volatile long loadStartNanos;
 
     /**
      * The future representing pending completion of the key loading task
@@ -194,6 +223,11 @@ public class MapKeyLoader {
             logger.finest("startInitialLoad invoked " + getStateMessage());
         }
 
+        if (mapStoreContext.isPartitionAwareMapLoader()) {
+            partitionAwareLoad = true;
+            return partitionService.isPartitionOwner(partitionId) ? loadPartitionKeys(mapStoreContext) : keyLoadFinished;
+        }
+
         switch (newRole) {
             case SENDER:
                 return sendKeys(mapStoreContext, false);
@@ -253,6 +287,66 @@ public class MapKeyLoader {
         return keyLoadFinished;
     }
 
+    /**
+     * Triggers loading of the keys of this partition if there is no ongoing
+     * key loading task. The actual loading is done on the
+     * {@link ExecutionService#MAP_LOAD_ALL_KEYS_EXECUTOR} executor.
+     *
+     * @param mapStoreContext the map store context for this map
+     * @return a future representing pending completion of the key loading task
+     * @see PartitionAwareMapLoader#loadAllKeys(int)
+     * @see #sendPartitionKeysInBatches(MapStoreContext)
+     */
+    private Future<?> loadPartitionKeys(final MapStoreContext mapStoreContext) {
+        if (keyLoadFinished.isDone()) {
+            keyLoadFinished = new LoadFinishedFuture();
+
+            Future<Boolean> sent = execService.submit(MAP_LOAD_ALL_KEYS_EXECUTOR, new Callable<Boolean>() {
+                @Override
+                public Boolean call() throws Exception {
+                    sendPartitionKeysInBatches(mapStoreContext);
+                    return false;
+                }
+            });
+
+            execService.asCompletableFuture(sent).andThen(keyLoadFinished);
+        }
+
+        return keyLoadFinished;
+    }
+
+    /**
+     * Restarts the partition-aware initial load of this partition if this
+     * member owns the partition but the load has not finished, e.g. because
+     * the previous owner left while loading the partition and this replica
+     * was promoted. Does nothing if this member is loading the partition
+     * already.
+     *
+     * @param mapStoreContext the map store context for this map
+     * @return a future representing pending completion of the restarted key
+     * loading task or {@code null} if the load was not restarted
+     */
+    public Future<?> restartPartitionLoadIfNeeded(MapStoreContext mapStoreContext) {
+        if (!partitionAwareLoad || state.is(State.LOADED) || !keyLoadFinished.isDone()
+                || !partitionService.isPartitionOwner(partitionId)) {
+            return null;
+        }
+
+        logger.info("Restarting the initial load of map " + mapName + " on partitionId=" + partitionId);
+        state.nextOrStay(State.LOADING);
+        return loadPartitionKeys(mapStoreContext);
+    }
+
+    /**
+     * Returns {@code true} if the initial load of this partition is done by
+     * this partition itself.
+     *
+     * @see PartitionAwareMapLoader
+     */
+    public boolean isPartitionAwareLoad() {
+        return partitionAwareLoad;
+    }
+
     /**
      * Triggers key loading if needed on the map key loader with the
      * {@link Role#SENDER} or {@link Role#SENDER_BACKUP} role if this
@@ -365,6 +459,7 @@ public class MapKeyLoader {
 
     /**
      * Triggers key loading on SENDER if it hadn't started. Delays triggering if invoked multiple times.
+     * If the partition loads its keys itself, the load of this partition is triggered instead.
      */
     public void triggerLoadingWithDelay() {
         if (delayedTrigger == null) {
@@ -372,7 +467,7 @@ public class MapKeyLoader {
                 @Override
                 public void run() {
                     Operation op = new TriggerLoadIfNeededOperation(mapName);
-                    opService.invokeOnPartition(SERVICE_NAME, op, mapNamePartition);
+                    opService.invokeOnPartition(SERVICE_NAME, op, partitionAwareLoad ? partitionId : mapNamePartition);
                 }
             };
             delayedTrigger = new CoalescingDelayedTrigger(execService, LOADING_TRIGGER_DELAY, LOADING_TRIGGER_DELAY, runnable);
@@ -466,6 +561,114 @@ public class MapKeyLoader {
         }
     }
 
+    /**
+     * Loads the keys of this partition from the partition-aware map loader
+     * and sends them to this partition in batches for value loading, then
+     * notifies the record store of this partition that the key loading has
+     * finished. The keys not belonging to this partition are sent to their
+     * partitions.
+     * If there is a configured max size policy per node, the keys are loaded
+     * until the share of this partition has been loaded.
+     *
+     * @param mapStoreContext the map store context for this map
+     * @throws Exception if there was an exception when notifying the record store that the key
+     *                   loading has finished
+     * @see PartitionAwareMapLoader#loadAllKeys(int)
+     */
+    private void sendPartitionKeysInBatches(MapStoreContext mapStoreContext) throws Exception {
+        String metricsPrefix = "map[" + mapName + "].initialLoad.partition[" + partitionId + "]";
+        metricsRegistry.scanAndRegister(this, metricsPrefix);
+        loadStartNanos = System.nanoTime();
+        Iterator<Object> keys = null;
+        Throwable loadError = null;
+
+        try {
+            keys = mapStoreContext.loadAllKeys(partitionId).iterator();
+            Iterator<Data> dataKeys = map(keys, toData);
+            int partitionMaxSize = getPartitionMaxSize();
+
+            if (partitionMaxSize > 0) {
+                dataKeys = limit(dataKeys, partitionMaxSize);
+            }
+
+            Iterator<Entry<Integer, Data>> partitionsAndKeys = map(dataKeys, toPartition(partitionService));
+            Iterator<Map<Integer, List<Data>>> batches = toBatches(partitionsAndKeys, maxBatch);
+
+            List<Future> futures = new ArrayList<Future>();
+            while (batches.hasNext()) {
+                Map<Integer, List<Data>> batch = batches.next();
+                futures.addAll(sendBatch(batch, false));
+                for (List<Data> batchKeys : batch.values()) {
+                    loadedKeyCount.inc(batchKeys.size());
+                }
+            }
+
+            // wait for the values loading to be offloaded before the loading status is sent, see sendKeysInBatches
+            FutureUtil.waitForever(futures);
+
+        } catch (Exception caught) {
+            loadError = caught;
+        } finally {
+            Operation op = new KeyLoadStatusOperation(mapName, loadError);
+            Future statusFuture = opService.createInvocationBuilder(SERVICE_NAME, op, partitionId).invoke();
+            FutureUtil.waitForever(Collections.singletonList(statusFuture));
+            sendKeyLoadCompletedToBackups(loadError);
+
+            if (keys instanceof Closeable) {
+                closeResource((Closeable) keys);
+            }
+            metricsRegistry.deregister(this);
+            if (logger.isFineEnabled()) {
+                logger.fine("Loaded " + loadedKeyCount.get() + " keys of map " + mapName + " on partitionId=" + partitionId
+                        + " in " + getLoadingMillis() + " ms");
+            }
+        }
+    }
+
+    /**
+     * Notifies the backup replicas of this partition that the partition-aware
+     * initial load has finished. A backup replica promoted to the owner of
+     * the partition restarts the load unless it has been notified.
+     *
+     * @param exception the exception that occurred during key loading or
+     *                  {@code null} if there was no exception
+     * @see #restartPartitionLoadIfNeeded(MapStoreContext)
+     */
+    private void sendKeyLoadCompletedToBackups(Throwable exception) {
+        IPartition partition = partitionService.getPartition(partitionId);
+        for (int replicaIndex = 1; replicaIndex <= IPartition.MAX_BACKUP_COUNT; replicaIndex++) {
+            if (partition.getReplicaAddress(replicaIndex) == null) {
+                continue;
+            }
+            Operation op = new KeyLoadStatusOperation(mapName, exception);
+            opService.createInvocationBuilder(SERVICE_NAME, op, partitionId).setReplicaIndex(replicaIndex).invoke();
+        }
+    }
+
+    /**
+     * Returns the share of this partition in the configured maximum entry
+     * count of the cluster or {@code -1} if the maximum entry count per node
+     * is not configured.
+     */
+    private int getPartitionMaxSize() {
+        if (maxSizePerNode <= 0) {
+            return -1;
+        }
+        long clusterSize = partitionService.getMemberPartitionsMap().size();
+        int partitionCount = partitionService.getPartitionCount();
+        return (int) ((clusterSize * maxSizePerNode + partitionCount - 1) / partitionCount);
+    }
+
+    /**
+     * Returns the time elapsed since the partition-aware initial load of this
+     * partition has started.
+     */
+    @Probe
+    private long getLoadingMillis() {
+        long startNanos = loadStartNanos;
+        return startNanos == 0 ? 0 : NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    }
+
     /**
      * Sends the key batches to the partition owners for value loading.
      * The returned futures represent pending offloading of the value loading on the
@@ -572,6 +775,16 @@ public class MapKeyLoader {
         this.operationProvider = operationProvider;
     }
 
+    /**
+     * Sets the registry of the progress metrics of the partition-aware
+     * initial load.
+     *
+     * @param metricsRegistry the metrics registry of this member
+     */
+    public void setMetricsRegistry(MetricsRegistry metricsRegistry) {
+        this.metricsRegistry = metricsRegistry;
+    }
+
     /**
      * Returns {@code true} if there is no ongoing key loading and dispatching
      * task on this map key loader.
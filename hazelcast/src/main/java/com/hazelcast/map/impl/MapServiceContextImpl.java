@@ -24,6 +24,7 @@ import com.hazelcast.config.MetadataPolicy;
 import com.hazelcast.config.PartitioningStrategyConfig;
 import com.hazelcast.core.PartitioningStrategy;
 import com.hazelcast.internal.eviction.ExpirationManager;
+import com.hazelcast.internal.memory.impl.StandardMemoryManager;
 import com.hazelcast.internal.serialization.InternalSerializationService;
 import com.hazelcast.internal.util.InvocationUtil;
 import com.hazelcast.internal.util.LocalRetryableExecution;
@@ -49,6 +50,7 @@ import com.hazelcast.map.impl.query.AggregationResult;
 import com.hazelcast.map.impl.query.AggregationResultProcessor;
 import com.hazelcast.map.impl.query.CallerRunsAccumulationExecutor;
 import com.hazelcast.map.impl.query.CallerRunsPartitionScanExecutor;
+import com.hazelcast.map.impl.query.ColumnarScanCache;
 import com.hazelcast.map.impl.query.QueryEngine;
 import com.hazelcast.map.impl.query.QueryEngineImpl;
 import com.hazelcast.map.impl.query.ParallelAccumulationExecutor;
@@ -163,6 +165,8 @@ class MapServiceContextImpl implements MapServiceContext {
 
     protected MapService mapService;
 
+    private volatile StandardMemoryManager nativeMemoryManager;
+
     @SuppressWarnings("checkstyle:executablestatementcount")
     MapServiceContextImpl(NodeEngine nodeEngine) {
         this.nodeEngine = nodeEngine;
@@ -449,6 +453,23 @@ class MapServiceContextImpl implements MapServiceContext {
         mapNearCacheManager.shutdown();
         mapContainers.clear();
         expirationManager.onShutdown();
+        disposeNativeMemoryManager();
+    }
+
+    /**
+     * Disposes the native memory manager once the record stores released
+     * their native memory.
+     */
+    private synchronized void disposeNativeMemoryManager() {
+        StandardMemoryManager memoryManager = nativeMemoryManager;
+        if (memoryManager == null) {
+            return;
+        }
+        nativeMemoryManager = null;
+        if (memoryManager.getUsedMemory() > 0) {
+            logger.warning("Native memory still in use on shutdown: " + memoryManager.getUsedMemory() + " bytes");
+        }
+        memoryManager.dispose();
     }
 
     @Override
@@ -854,6 +875,7 @@ class MapServiceContextImpl implements MapServiceContext {
         Collection<RecordStoreMutationObserver<Record>> observers = new LinkedList<RecordStoreMutationObserver<Record>>();
         addEventJournalUpdaterObserver(observers, mapName, partitionId);
         addMetadataInitializerObserver(observers, mapName, partitionId);
+        addColumnarScanCacheObserver(observers, mapName, partitionId);
 
         return observers;
     }
@@ -869,6 +891,14 @@ class MapServiceContextImpl implements MapServiceContext {
         }
     }
 
+    private void addColumnarScanCacheObserver(Collection<RecordStoreMutationObserver<Record>> observers, String mapName,
+                                              int partitionId) {
+        ColumnarScanCache cache = getMapContainer(mapName).createColumnarScanCache(partitionId);
+        if (cache != null) {
+            observers.add(cache);
+        }
+    }
+
     private void addEventJournalUpdaterObserver(Collection<RecordStoreMutationObserver<Record>> observers, String mapName, int
             partitionId) {
         RecordStoreMutationObserver<Record> observer = new EventJournalWriterRecordStoreMutationObserver(getEventJournal(),
@@ -880,4 +910,20 @@ class MapServiceContextImpl implements MapServiceContext {
     public ValueComparator getValueComparatorOf(InMemoryFormat inMemoryFormat) {
         return ValueComparatorUtil.getValueComparatorOf(inMemoryFormat);
     }
+
+    @Override
+    public StandardMemoryManager getNativeMemoryManager() {
+        StandardMemoryManager memoryManager = nativeMemoryManager;
+        if (memoryManager == null) {
+            synchronized (this) {
+                memoryManager = nativeMemoryManager;
+                if (memoryManager == null) {
+                    long maxMemory = nodeEngine.getConfig().getNativeMemoryConfig().getSize().bytes();
+                    memoryManager = new StandardMemoryManager(maxMemory);
+                    nativeMemoryManager = memoryManager;
+                }
+            }
+        }
+        return memoryManager;
+    }
 }
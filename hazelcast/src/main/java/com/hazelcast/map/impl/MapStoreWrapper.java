@@ -20,6 +20,7 @@ import com.hazelcast.core.HazelcastInstance;
 import com.hazelcast.core.MapLoader;
 import com.hazelcast.core.MapLoaderLifecycleSupport;
 import com.hazelcast.core.MapStore;
+import com.hazelcast.core.PartitionAwareMapLoader;
 import com.hazelcast.core.PostProcessingMapStore;
 import com.hazelcast.internal.diagnostics.Diagnostics;
 import com.hazelcast.internal.diagnostics.StoreLatencyPlugin;
@@ -178,6 +179,28 @@ public class MapStoreWrapper implements MapStore, MapLoaderLifecycleSupport {
         return null;
     }
 
+    /**
+     * @return {@code true} if the configured {@link MapLoader} can load the
+     * keys of a single partition
+     */
+    public boolean isPartitionAwareMapLoader() {
+        return isMapLoader() && impl instanceof PartitionAwareMapLoader;
+    }
+
+    /**
+     * Returns an {@link Iterable} of the keys of the given partition or
+     * {@code null} if a partition-aware map loader is not configured for
+     * this map.
+     *
+     * @see PartitionAwareMapLoader#loadAllKeys(int)
+     */
+    public Iterable<Object> loadAllKeys(int partitionId) {
+        if (isPartitionAwareMapLoader()) {
+            return ((PartitionAwareMapLoader) impl).loadAllKeys(partitionId);
+        }
+        return null;
+    }
+
     public Object getImpl() {
         return impl;
     }
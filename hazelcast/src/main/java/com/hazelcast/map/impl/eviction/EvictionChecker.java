@@ -54,6 +54,7 @@ public class EvictionChecker {
     private final PartitionContainer[] containers;
     private final MemoryInfoAccessor memoryInfoAccessor;
     private final MapNearCacheManager mapNearCacheManager;
+    private final MapServiceContext mapServiceContext;
     private final AtomicBoolean misconfiguredPerNodeMaxSizeWarningLogged;
 
     public EvictionChecker(MemoryInfoAccessor givenMemoryInfoAccessor, MapServiceContext mapServiceContext) {
@@ -66,6 +67,7 @@ public class EvictionChecker {
         this.clusterService = nodeEngine.getClusterService();
         this.partitionCount = nodeEngine.getPartitionService().getPartitionCount();
         this.mapNearCacheManager = mapServiceContext.getMapNearCacheManager();
+        this.mapServiceContext = mapServiceContext;
         this.memoryInfoAccessor = givenMemoryInfoAccessor;
 
         if (logger.isFinestEnabled()) {
@@ -100,6 +102,15 @@ public class EvictionChecker {
                 return (usedHeapInBytes(mapName) * ONE_HUNDRED / Math.max(maxMemoryInBytes(), 1)) > maxConfiguredSize;
             case FREE_HEAP_PERCENTAGE:
                 return (availableMemoryInBytes() * ONE_HUNDRED / Math.max(maxMemoryInBytes(), 1)) < maxConfiguredSize;
+            case USED_NATIVE_MEMORY_SIZE:
+                return usedNativeMemoryInBytes(mapName) > MEGABYTES.toBytes(maxConfiguredSize);
+            case USED_NATIVE_MEMORY_PERCENTAGE:
+                return (usedNativeMemoryInBytes(mapName) * ONE_HUNDRED / Math.max(maxNativeMemoryInBytes(), 1))
+                        > maxConfiguredSize;
+            case FREE_NATIVE_MEMORY_SIZE:
+                return freeNativeMemoryInBytes() < MEGABYTES.toBytes(maxConfiguredSize);
+            case FREE_NATIVE_MEMORY_PERCENTAGE:
+                return (freeNativeMemoryInBytes() * ONE_HUNDRED / Math.max(maxNativeMemoryInBytes(), 1)) < maxConfiguredSize;
             default:
                 throw new IllegalArgumentException("Not an appropriate max size policy [" + maxSizePolicy + ']');
         }
@@ -141,7 +152,7 @@ public class EvictionChecker {
     private long usedHeapInBytes(String mapName) {
         long usedHeapInBytes = 0L;
         for (int partitionId = 0; partitionId < partitionCount; partitionId++) {
-            usedHeapInBytes += getRecordStoreHeapCost(mapName, containers[partitionId]);
+            usedHeapInBytes += getRecordStoreEntryCost(mapName, containers[partitionId]);
         }
 
         NearCache nearCache = mapNearCacheManager.getNearCache(mapName);
@@ -153,7 +164,27 @@ public class EvictionChecker {
         return usedHeapInBytes;
     }
 
-    private long getRecordStoreHeapCost(String mapName, PartitionContainer container) {
+    /**
+     * For {@link com.hazelcast.config.InMemoryFormat#NATIVE NATIVE} maps the
+     * owned entry cost is the native memory held by their records.
+     */
+    private long usedNativeMemoryInBytes(String mapName) {
+        long usedNativeMemoryInBytes = 0L;
+        for (int partitionId = 0; partitionId < partitionCount; partitionId++) {
+            usedNativeMemoryInBytes += getRecordStoreEntryCost(mapName, containers[partitionId]);
+        }
+        return usedNativeMemoryInBytes;
+    }
+
+    private long maxNativeMemoryInBytes() {
+        return mapServiceContext.getNativeMemoryManager().getMaxMemory();
+    }
+
+    private long freeNativeMemoryInBytes() {
+        return mapServiceContext.getNativeMemoryManager().getFreeMemory();
+    }
+
+    private long getRecordStoreEntryCost(String mapName, PartitionContainer container) {
         RecordStore existingRecordStore = container.getExistingRecordStore(mapName);
         if (existingRecordStore == null) {
             return 0L;
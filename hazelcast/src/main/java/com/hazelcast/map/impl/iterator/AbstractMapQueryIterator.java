@@ -0,0 +1,175 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.map.impl.iterator;
+
+import com.hazelcast.core.IMap;
+import com.hazelcast.map.impl.query.Query;
+import com.hazelcast.nio.serialization.Data;
+import com.hazelcast.projection.Projection;
+import com.hazelcast.query.Predicate;
+import com.hazelcast.spi.serialization.SerializationService;
+import com.hazelcast.util.IterationType;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Future;
+
+import static com.hazelcast.util.ExceptionUtil.rethrow;
+
+/**
+ * Base class for streaming the result of a query over all the partitions of
+ * a map.
+ * <p>
+ * The result is not materialized on the members: the partitions are queried
+ * one after another in batches of about {@code fetchSize} entries, each
+ * batch resuming the partition scan at the table index the previous batch
+ * stopped at, so the members keep no state between the batches. The
+ * iteration is driven by the consumer: the batch following the one being
+ * consumed is requested as soon as the consumer starts the current one, and
+ * no further batch is requested until the consumer exhausts it. At most two
+ * batches are held by the iterator at any time regardless of the size of the
+ * result.
+ * <p>
+ * The {@link Iterator#remove()} method is not supported.
+ *
+ * @param <K> the type of the keys of the map
+ * @param <V> the type of the values of the map
+ * @param <R> the type of the projected results
+ * @param <F> the type of the responses to the fetch requests
+ */
+public abstract class AbstractMapQueryIterator<K, V, R, F> implements Iterator<R> {
+
+    protected final IMap<K, V> map;
+    protected final int fetchSize;
+    protected final int partitionCount;
+    protected final Query query;
+
+    /**
+     * The partition the pending fetch is querying.
+     */
+    private int partitionId;
+
+    /**
+     * The table index to resume the query of the current partition at, the
+     * scan of a partition starts at the highest index and proceeds down.
+     */
+    private int nextTableIndex = Integer.MAX_VALUE;
+
+    private Future<F> pendingFetch;
+    private List<Data> segment;
+    private int index;
+
+    public AbstractMapQueryIterator(IMap<K, V> map, int fetchSize, int partitionCount, Predicate<K, V> predicate,
+                                    Projection<Entry<K, V>, R> projection) {
+        this.map = map;
+        this.fetchSize = fetchSize;
+        this.partitionCount = partitionCount;
+        this.query = Query.of()
+                          .mapName(map.getName())
+                          .iterationType(IterationType.VALUE)
+                          .predicate(predicate)
+                          .projection(projection)
+                          .build();
+    }
+
+    @Override
+    public boolean hasNext() {
+        return (segment != null && index < segment.size()) || advance();
+    }
+
+    @Override
+    public R next() {
+        if (hasNext()) {
+            return getSerializationService().toObject(segment.get(index++));
+        }
+        throw new NoSuchElementException();
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException("Removing when iterating map with query is not supported");
+    }
+
+    /**
+     * Requests the first batch of the result. Called by the subclasses once
+     * they are ready to {@link #fetch}.
+     */
+    protected void start() {
+        requestNextBatch();
+    }
+
+    /**
+     * Asynchronously fetches a batch of the query results from a partition.
+     *
+     * @param partitionId the partition to query.
+     * @param tableIndex  the table index to resume the query at.
+     * @return the future of the response.
+     */
+    protected abstract Future<F> fetch(int partitionId, int tableIndex);
+
+    /**
+     * Reads the fetched results from the given response. The
+     * implementations must report the table index to resume the query at
+     * through {@link #setNextTableIndex}.
+     *
+     * @param response the response to the fetch request.
+     * @return the fetched results.
+     */
+    protected abstract List<Data> readResults(F response);
+
+    protected abstract SerializationService getSerializationService();
+
+    protected void setNextTableIndex(int nextTableIndex) {
+        this.nextTableIndex = nextTableIndex;
+    }
+
+    private boolean advance() {
+        segment = null;
+        while (pendingFetch != null) {
+            List<Data> results = readResults(awaitPendingFetch());
+            if (results == null || results.isEmpty() || nextTableIndex < 0) {
+                // the current partition is exhausted
+                ++partitionId;
+                nextTableIndex = Integer.MAX_VALUE;
+            }
+            requestNextBatch();
+
+            if (results != null && !results.isEmpty()) {
+                segment = results;
+                index = 0;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void requestNextBatch() {
+        pendingFetch = partitionId < partitionCount ? fetch(partitionId, nextTableIndex) : null;
+    }
+
+    private F awaitPendingFetch() {
+        try {
+            return pendingFetch.get();
+        } catch (Exception e) {
+            pendingFetch = null;
+            throw rethrow(e);
+        }
+    }
+
+}
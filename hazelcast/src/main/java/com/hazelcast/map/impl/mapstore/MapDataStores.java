@@ -28,10 +28,13 @@ import com.hazelcast.spi.NodeEngine;
 import com.hazelcast.spi.properties.GroupProperty;
 import com.hazelcast.spi.properties.HazelcastProperties;
 
+import java.io.File;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import static com.hazelcast.map.impl.mapstore.writebehind.WriteBehindQueues.createBoundedWriteBehindQueue;
 import static com.hazelcast.map.impl.mapstore.writebehind.WriteBehindQueues.createDefaultWriteBehindQueue;
+import static com.hazelcast.map.impl.mapstore.writebehind.WriteBehindQueues.createSpillingWriteBehindQueue;
+import static com.hazelcast.nio.IOUtil.toFileName;
 
 /**
  * Factory class responsible for creating various data store implementations.
@@ -63,16 +66,30 @@ public final class MapDataStores {
         InternalSerializationService serializationService
                 = ((InternalSerializationService) nodeEngine.getSerializationService());
         WriteBehindStore mapDataStore = new WriteBehindStore(mapStoreContext, partitionId, serializationService);
-        mapDataStore.setWriteBehindQueue(newWriteBehindQueue(mapServiceContext, mapStoreConfig.isWriteCoalescing()));
+        mapDataStore.setWriteBehindQueue(newWriteBehindQueue(mapStoreContext, partitionId, serializationService));
         mapDataStore.setWriteBehindProcessor(writeBehindProcessor);
         return (MapDataStore<K, V>) mapDataStore;
     }
 
-    private static WriteBehindQueue newWriteBehindQueue(MapServiceContext mapServiceContext, boolean writeCoalescing) {
+    private static WriteBehindQueue newWriteBehindQueue(MapStoreContext mapStoreContext, int partitionId,
+                                                        InternalSerializationService serializationService) {
+        MapServiceContext mapServiceContext = mapStoreContext.getMapServiceContext();
         HazelcastProperties hazelcastProperties = mapServiceContext.getNodeEngine().getProperties();
+        if (mapStoreContext.getMapStoreConfig().isWriteCoalescing()) {
+            return createDefaultWriteBehindQueue();
+        }
+
+        final String spillDirectory = hazelcastProperties.getString(GroupProperty.MAP_WRITE_BEHIND_SPILL_DIRECTORY);
+        if (spillDirectory != null) {
+            final int inMemoryCapacity = hazelcastProperties.getInteger(GroupProperty.MAP_WRITE_BEHIND_SPILL_IN_MEMORY_CAPACITY);
+            final String filePrefix = toFileName(mapStoreContext.getMapName()) + "-" + partitionId + "-";
+            return createSpillingWriteBehindQueue(new File(spillDirectory), filePrefix, inMemoryCapacity,
+                    serializationService);
+        }
+
         final int capacity = hazelcastProperties.getInteger(GroupProperty.MAP_WRITE_BEHIND_QUEUE_CAPACITY);
         final AtomicInteger counter = mapServiceContext.getWriteBehindQueueItemCounter();
-        return (writeCoalescing ? createDefaultWriteBehindQueue() : createBoundedWriteBehindQueue(capacity, counter));
+        return createBoundedWriteBehindQueue(capacity, counter);
     }
 
     /**
@@ -18,6 +18,7 @@ package com.hazelcast.map.impl.mapstore;
 
 import com.hazelcast.config.MapStoreConfig;
 import com.hazelcast.core.MapLoader;
+import com.hazelcast.core.PartitionAwareMapLoader;
 import com.hazelcast.logging.ILogger;
 import com.hazelcast.map.impl.MapServiceContext;
 import com.hazelcast.map.impl.MapStoreWrapper;
@@ -63,8 +64,23 @@ public interface MapStoreContext {
      */
     Iterable<Object> loadAllKeys();
 
+    /**
+     * Returns an {@link Iterable} over the keys of the given partition or an
+     * empty iterable if there is no partition-aware map loader configured for
+     * this map.
+     *
+     * @see PartitionAwareMapLoader#loadAllKeys(int)
+     */
+    Iterable<Object> loadAllKeys(int partitionId);
+
     /**
      * @return {@code true} if a {@link MapLoader} is configured for this map
      */
     boolean isMapLoader();
+
+    /**
+     * @return {@code true} if a {@link PartitionAwareMapLoader} is configured
+     * for this map
+     */
+    boolean isPartitionAwareMapLoader();
 }
@@ -104,9 +104,19 @@ public final class MapStoreContextFactory {
             return Collections.emptyList();
         }
 
+        @Override
+        public Iterable<Object> loadAllKeys(int partitionId) {
+            return Collections.emptyList();
+        }
+
         @Override
         public boolean isMapLoader() {
             return false;
         }
+
+        @Override
+        public boolean isPartitionAwareMapLoader() {
+            return false;
+        }
     }
 }
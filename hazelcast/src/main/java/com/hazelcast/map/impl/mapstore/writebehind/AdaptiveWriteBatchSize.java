@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hazelcast.map.impl.mapstore.writebehind;
+
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+
+/**
+ * Adapts the size of the write-behind batches to the latency of the map
+ * store, so writing a batch takes about the target latency.
+ * <p/>
+ * Keeps an exponentially weighted moving average of the time the map store
+ * spends on a single entry of a batch and derives the batch size from it.
+ * The batch size never exceeds the configured write batch size: the
+ * configured size is the upper bound the map store was designed for.
+ * <p/>
+ * Sampled by the threads flushing the write-behind queues of a map
+ * concurrently. The updates are not atomic, a lost sample only delays the
+ * adaptation.
+ */
+final class AdaptiveWriteBatchSize {
+
+    /**
+     * A new sample contributes 1/4 to the average.
+     */
+    private static final int SMOOTHING_SHIFT = 2;
+
+    private final long targetLatencyNanos;
+    private final int maxBatchSize;
+
+    /**
+     * The average nanoseconds spent on a single entry, 0 until the first
+     * sample.
+     */
+    private volatile long nanosPerEntry;
+
+    AdaptiveWriteBatchSize(long targetLatencyNanos, int maxBatchSize) {
+        this.targetLatencyNanos = targetLatencyNanos;
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    /**
+     * @return the size of the next batch, between 1 and the max batch size.
+     */
+    int get() {
+        long perEntry = nanosPerEntry;
+        if (perEntry == 0) {
+            return maxBatchSize;
+        }
+        return (int) max(1, min(targetLatencyNanos / perEntry, maxBatchSize));
+    }
+
+    /**
+     * Records the latency of a successful batch write.
+     *
+     * @param entryCount   the number of the entries written.
+     * @param latencyNanos the time the write took.
+     */
+    void onBatchWritten(int entryCount, long latencyNanos) {
+        if (entryCount <= 0) {
+            return;
+        }
+        long sample = max(1, latencyNanos / entryCount);
+        long current = nanosPerEntry;
+        nanosPerEntry = current == 0 ? sample : current + ((sample - current) >> SMOOTHING_SHIFT);
+    }
+}
@@ -19,6 +19,8 @@ package com.hazelcast.map.impl.mapstore.writebehind;
 import com.hazelcast.map.impl.mapstore.MapStoreContext;
 import com.hazelcast.map.impl.mapstore.writebehind.entry.DelayedEntry;
 import com.hazelcast.nio.serialization.Data;
+import com.hazelcast.spi.properties.GroupProperty;
+import com.hazelcast.spi.properties.HazelcastProperties;
 
 import java.util.ArrayList;
 import java.util.Collection;
@@ -37,6 +39,8 @@ import static java.util.concurrent.TimeUnit.SECONDS;
 
 /**
  * Processes store operations.
+ * <p/>
+ * May be invoked by several threads concurrently, see {@link StoreWorker}.
  */
 class DefaultWriteBehindProcessor extends AbstractWriteBehindProcessor<DelayedEntry> {
 
@@ -55,9 +59,24 @@ class DefaultWriteBehindProcessor extends AbstractWriteBehindProcessor<DelayedEn
 
     private final List<StoreListener> storeListeners;
 
+    /**
+     * {@code null} if the batches have the fixed {@link #writeBatchSize}.
+     */
+    private final AdaptiveWriteBatchSize adaptiveBatchSize;
+
     DefaultWriteBehindProcessor(MapStoreContext mapStoreContext) {
         super(mapStoreContext);
         this.storeListeners = new ArrayList<StoreListener>(2);
+        this.adaptiveBatchSize = newAdaptiveBatchSize(mapStoreContext, writeBatchSize);
+    }
+
+    private static AdaptiveWriteBatchSize newAdaptiveBatchSize(MapStoreContext mapStoreContext, int writeBatchSize) {
+        HazelcastProperties properties = mapStoreContext.getMapServiceContext().getNodeEngine().getProperties();
+        long targetLatencyNanos = properties.getNanos(GroupProperty.MAP_WRITE_BEHIND_BATCH_TARGET_LATENCY_MILLIS);
+        if (targetLatencyNanos <= 0 || writeBatchSize <= 1) {
+            return null;
+        }
+        return new AdaptiveWriteBatchSize(targetLatencyNanos, writeBatchSize);
     }
 
     @Override
@@ -246,7 +265,11 @@ class DefaultWriteBehindProcessor extends AbstractWriteBehindProcessor<DelayedEn
                 final Map map = convertToObject(batchMap);
                 boolean result;
                 try {
+                    long startNanos = System.nanoTime();
                     result = operationType.processBatch(map, mapStore);
+                    if (adaptiveBatchSize != null) {
+                        adaptiveBatchSize.onBatchWritten(map.size(), System.nanoTime() - startNanos);
+                    }
                 } catch (Exception ex) {
                     Iterator<Object> keys = batchMap.keySet().iterator();
                     while (keys.hasNext()) {
@@ -340,25 +363,32 @@ class DefaultWriteBehindProcessor extends AbstractWriteBehindProcessor<DelayedEn
     }
 
     /**
-     * Store chunk by chunk using write batch size {@link #writeBatchSize}
+     * Store chunk by chunk using write batch size {@link #writeBatchSize}, or the size adapted to the latency of the
+     * map store if a target latency of the batches is configured.
      *
      * @param sortedDelayedEntries entries to be stored.
      * @return not-stored entries per partition.
      */
     private Map<Integer, List<DelayedEntry>> doStoreUsingBatchSize(List<DelayedEntry> sortedDelayedEntries) {
         Map<Integer, List<DelayedEntry>> failsPerPartition = new HashMap<Integer, List<DelayedEntry>>();
-        int page = 0;
-        List<DelayedEntry> delayedEntryList;
-        while ((delayedEntryList = getBatchChunk(sortedDelayedEntries, writeBatchSize, page++)) != null) {
-            Map<Integer, List<DelayedEntry>> fails = processInternal(delayedEntryList);
+        int size = sortedDelayedEntries.size();
+        int start = 0;
+        while (start < size) {
+            int end = Math.min(start + nextBatchSize(), size);
+            Map<Integer, List<DelayedEntry>> fails = processInternal(sortedDelayedEntries.subList(start, end));
             Set<Map.Entry<Integer, List<DelayedEntry>>> entries = fails.entrySet();
             for (Map.Entry<Integer, List<DelayedEntry>> entry : entries) {
                 addFailsTo(failsPerPartition, entry.getValue());
             }
+            start = end;
         }
         return failsPerPartition;
     }
 
+    private int nextBatchSize() {
+        return adaptiveBatchSize == null ? writeBatchSize : adaptiveBatchSize.get();
+    }
+
     private List<DelayedEntry> retryCall(RetryTask task) {
         boolean result = false;
         Exception exception = null;
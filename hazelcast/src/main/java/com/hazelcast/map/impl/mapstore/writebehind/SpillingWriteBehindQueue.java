@@ -0,0 +1,439 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hazelcast.map.impl.mapstore.writebehind;
+
+import com.hazelcast.internal.serialization.impl.HeapData;
+import com.hazelcast.map.impl.mapstore.writebehind.entry.DelayedEntries;
+import com.hazelcast.map.impl.mapstore.writebehind.entry.DelayedEntry;
+import com.hazelcast.nio.serialization.Data;
+import com.hazelcast.spi.serialization.SerializationService;
+import com.hazelcast.util.MutableInteger;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.hazelcast.nio.Bits.INT_SIZE_IN_BYTES;
+import static com.hazelcast.nio.Bits.LONG_SIZE_IN_BYTES;
+import static com.hazelcast.nio.IOUtil.closeResource;
+import static com.hazelcast.nio.IOUtil.deleteQuietly;
+import static com.hazelcast.util.ExceptionUtil.rethrow;
+import static com.hazelcast.util.Preconditions.checkNotNull;
+
+/**
+ * Write behind queue which keeps a bounded number of entries in heap and
+ * spills the others to append-only segment files on local disk. Used when
+ * non-write-coalescing mode is on and a spill directory is configured.
+ * <p/>
+ * The queue consists of three parts, in order:
+ * <ul>
+ * <li>the head, a {@link CyclicWriteBehindQueue} holding the oldest
+ * entries,</li>
+ * <li>the entries spilled to the segment files,</li>
+ * <li>the tail, buffering the newest entries until they are spilled in a
+ * batch.</li>
+ * </ul>
+ * Only the entries of the head are visible to {@link #peek} and
+ * {@link #filter}. When the entries of the head are removed, the head is
+ * refilled from the oldest segment which is read through a memory-mapped
+ * buffer, a consumed segment is deleted. The keys of the spilled entries
+ * stay in heap to answer {@link #contains}.
+ * <p/>
+ * The segment files are not recovered after a restart: the queue is as
+ * volatile as the heap queues, it only moves the bulk of its entries out of
+ * the heap.
+ * <p/>
+ * Note that this {@link WriteBehindQueue} implementation is not
+ * thread-safe. When it is in action, thread-safe access will be provided by
+ * wrapping it in a {@link SynchronizedWriteBehindQueue}
+ *
+ * @see SynchronizedWriteBehindQueue
+ */
+class SpillingWriteBehindQueue implements WriteBehindQueue<DelayedEntry> {
+
+    /**
+     * The number of the entries spilled at once.
+     */
+    static final int SPILL_BATCH_SIZE = 128;
+
+    /**
+     * The size in bytes a segment file is appended to up to.
+     */
+    static final long SEGMENT_SIZE = 16 << 20;
+
+    private static final int NULL_VALUE_LENGTH = -1;
+    private static final int FIXED_RECORD_SIZE = 3 * INT_SIZE_IN_BYTES + 2 * LONG_SIZE_IN_BYTES;
+
+    private final CyclicWriteBehindQueue head = new CyclicWriteBehindQueue();
+    private final List<DelayedEntry> tail = new ArrayList<DelayedEntry>(SPILL_BATCH_SIZE);
+    private final Deque<Segment> segments = new ArrayDeque<Segment>();
+
+    /**
+     * Index of the keys of the spilled entries and of the entries of the
+     * tail. Maps: key --> number of keys.
+     *
+     * @see CyclicWriteBehindQueue#index
+     */
+    private final Map<Data, MutableInteger> overflowIndex = new HashMap<Data, MutableInteger>();
+
+    private final File directory;
+    private final String filePrefix;
+    private final int inMemoryCapacity;
+    private final SerializationService serializationService;
+
+    private int spilledCount;
+
+    SpillingWriteBehindQueue(File directory, String filePrefix, int inMemoryCapacity,
+                             SerializationService serializationService) {
+        this.directory = directory;
+        this.filePrefix = filePrefix;
+        this.inMemoryCapacity = inMemoryCapacity;
+        this.serializationService = serializationService;
+    }
+
+    /**
+     * Add this collection to the front of the queue, i.e. to the head.
+     *
+     * @param collection collection to be added in front of this queue.
+     */
+    @Override
+    public void addFirst(Collection<DelayedEntry> collection) {
+        head.addFirst(collection);
+    }
+
+    /**
+     * Inserts to the end of this queue: to the head while there is no
+     * overflow and the head has space, to the tail otherwise. The tail is
+     * spilled before an entry is added to it if it's full, so an entry stays
+     * in heap at least until the next one is added: its sequence is assigned
+     * after it's added.
+     *
+     * @param entry element to be offered
+     */
+    @Override
+    public void addLast(DelayedEntry entry) {
+        if (!hasOverflow() && head.size() < inMemoryCapacity) {
+            head.addLast(entry);
+            return;
+        }
+        if (tail.size() >= SPILL_BATCH_SIZE) {
+            spillTail();
+        }
+        tail.add(entry);
+        addCountIndex(entry);
+    }
+
+    @Override
+    public DelayedEntry peek() {
+        return head.peek();
+    }
+
+    /**
+     * Removes the first element of the head and refills the head from the
+     * overflow if it's at most half full.
+     *
+     * @see CyclicWriteBehindQueue#removeFirstOccurrence
+     */
+    @Override
+    public boolean removeFirstOccurrence(DelayedEntry entry) {
+        boolean removed = head.removeFirstOccurrence(entry);
+        if (hasOverflow() && head.size() <= inMemoryCapacity / 2) {
+            refillHead();
+        }
+        return removed;
+    }
+
+    @Override
+    public boolean contains(DelayedEntry entry) {
+        return head.contains(entry) || overflowIndex.containsKey(entry.getKey());
+    }
+
+    @Override
+    public int size() {
+        return head.size() + spilledCount + tail.size();
+    }
+
+    @Override
+    public void clear() {
+        head.clear();
+        tail.clear();
+        overflowIndex.clear();
+        for (Segment segment : segments) {
+            segment.delete();
+        }
+        segments.clear();
+        spilledCount = 0;
+    }
+
+    /**
+     * Removes all elements from this queue, including the spilled ones, and
+     * adds them to the given collection.
+     *
+     * @param collection all elements to be added to this collection.
+     * @return number of removed items from this queue.
+     */
+    @Override
+    public int drainTo(Collection<DelayedEntry> collection) {
+        checkNotNull(collection, "collection can not be null");
+
+        int size = size();
+        head.drainTo(collection);
+        for (Segment segment : segments) {
+            segment.readRemaining(collection);
+            segment.delete();
+        }
+        segments.clear();
+        collection.addAll(tail);
+        tail.clear();
+        overflowIndex.clear();
+        spilledCount = 0;
+        return size;
+    }
+
+    /**
+     * Returns unmodifiable list representation of this queue. The spilled
+     * entries are read from the segment files and are not removed.
+     *
+     * @return read-only list representation of this queue.
+     */
+    @Override
+    public List<DelayedEntry> asList() {
+        List<DelayedEntry> list = new ArrayList<DelayedEntry>(size());
+        list.addAll(head.asList());
+        for (Segment segment : segments) {
+            segment.copyRemaining(list);
+        }
+        list.addAll(tail);
+        return Collections.unmodifiableList(list);
+    }
+
+    @Override
+    public void filter(IPredicate<DelayedEntry> predicate, Collection<DelayedEntry> collection) {
+        head.filter(predicate, collection);
+    }
+
+    private boolean hasOverflow() {
+        return spilledCount > 0 || !tail.isEmpty();
+    }
+
+    private void refillHead() {
+        while (head.size() < inMemoryCapacity) {
+            Segment segment = segments.peekFirst();
+            if (segment == null) {
+                for (DelayedEntry entry : tail) {
+                    decreaseCountIndex(entry);
+                    head.addLast(entry);
+                }
+                tail.clear();
+                return;
+            }
+
+            DelayedEntry entry = segment.next();
+            if (entry == null) {
+                segments.pollFirst().delete();
+                continue;
+            }
+            spilledCount--;
+            decreaseCountIndex(entry);
+            head.addLast(entry);
+        }
+    }
+
+    private void spillTail() {
+        Segment segment = segments.peekLast();
+        if (segment == null || !segment.isAppendable()) {
+            segment = new Segment(newSegmentFile());
+            segments.addLast(segment);
+        }
+
+        int batchSize = 0;
+        List<byte[]> keys = new ArrayList<byte[]>(tail.size());
+        List<byte[]> values = new ArrayList<byte[]>(tail.size());
+        for (DelayedEntry entry : tail) {
+            byte[] key = ((Data) entry.getKey()).toByteArray();
+            Data value = serializationService.toData(entry.getValue());
+            byte[] valueBytes = value == null ? null : value.toByteArray();
+            keys.add(key);
+            values.add(valueBytes);
+            batchSize += FIXED_RECORD_SIZE + key.length + (valueBytes == null ? 0 : valueBytes.length);
+        }
+
+        ByteBuffer batch = ByteBuffer.allocate(batchSize);
+        for (int i = 0; i < tail.size(); i++) {
+            writeRecord(batch, tail.get(i), keys.get(i), values.get(i));
+        }
+        batch.flip();
+        segment.append(batch);
+
+        spilledCount += tail.size();
+        tail.clear();
+    }
+
+    private File newSegmentFile() {
+        try {
+            if (!directory.isDirectory() && !directory.mkdirs() && !directory.isDirectory()) {
+                throw new IOException("Could not create the write-behind spill directory " + directory.getAbsolutePath());
+            }
+            return File.createTempFile(filePrefix, ".segment", directory);
+        } catch (IOException e) {
+            throw rethrow(e);
+        }
+    }
+
+    private static void writeRecord(ByteBuffer buffer, DelayedEntry entry, byte[] key, byte[] value) {
+        buffer.putInt(key.length);
+        buffer.put(key);
+        if (value == null) {
+            buffer.putInt(NULL_VALUE_LENGTH);
+        } else {
+            buffer.putInt(value.length);
+            buffer.put(value);
+        }
+        buffer.putLong(entry.getStoreTime());
+        buffer.putInt(entry.getPartitionId());
+        buffer.putLong(entry.getSequence());
+    }
+
+    private static DelayedEntry readRecord(ByteBuffer buffer) {
+        Data key = readData(buffer, buffer.getInt());
+        Data value = readData(buffer, buffer.getInt());
+        long storeTime = buffer.getLong();
+        int partitionId = buffer.getInt();
+        DelayedEntry<Data, Data> entry = DelayedEntries.createDefault(key, value, storeTime, partitionId);
+        entry.setSequence(buffer.getLong());
+        return entry;
+    }
+
+    private static Data readData(ByteBuffer buffer, int length) {
+        if (length == NULL_VALUE_LENGTH) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new HeapData(bytes);
+    }
+
+    private void addCountIndex(DelayedEntry entry) {
+        Data key = (Data) entry.getKey();
+        MutableInteger count = overflowIndex.get(key);
+        if (count == null) {
+            count = new MutableInteger();
+            overflowIndex.put(key, count);
+        }
+        count.value++;
+    }
+
+    private void decreaseCountIndex(DelayedEntry entry) {
+        Data key = (Data) entry.getKey();
+        MutableInteger count = overflowIndex.get(key);
+        if (count == null) {
+            return;
+        }
+        if (--count.value == 0) {
+            overflowIndex.remove(key);
+        }
+    }
+
+    /**
+     * A segment file. Appended to until it's full or until it's read for the
+     * first time, then it's read through a read-only memory-mapped buffer.
+     */
+    private static final class Segment {
+
+        private final File file;
+        private FileChannel channel;
+        private MappedByteBuffer buffer;
+        private long size;
+
+        Segment(File file) {
+            this.file = file;
+        }
+
+        boolean isAppendable() {
+            return buffer == null && size < SEGMENT_SIZE;
+        }
+
+        void append(ByteBuffer batch) {
+            try {
+                if (channel == null) {
+                    channel = new RandomAccessFile(file, "rw").getChannel();
+                }
+                while (batch.hasRemaining()) {
+                    size += channel.write(batch);
+                }
+            } catch (IOException e) {
+                throw rethrow(e);
+            }
+        }
+
+        /**
+         * @return the next entry of this segment or {@code null} if all the
+         * entries were read.
+         */
+        DelayedEntry next() {
+            ByteBuffer buffer = map();
+            return buffer.hasRemaining() ? readRecord(buffer) : null;
+        }
+
+        void readRemaining(Collection<DelayedEntry> collection) {
+            ByteBuffer buffer = map();
+            while (buffer.hasRemaining()) {
+                collection.add(readRecord(buffer));
+            }
+        }
+
+        void copyRemaining(Collection<DelayedEntry> collection) {
+            ByteBuffer buffer = map().duplicate();
+            while (buffer.hasRemaining()) {
+                collection.add(readRecord(buffer));
+            }
+        }
+
+        void delete() {
+            closeResource(channel);
+            channel = null;
+            // the mapping is released when the buffer is garbage collected
+            buffer = null;
+            deleteQuietly(file);
+        }
+
+        private ByteBuffer map() {
+            if (buffer == null) {
+                try {
+                    buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+                } catch (IOException e) {
+                    throw rethrow(e);
+                }
+                closeResource(channel);
+                channel = null;
+            }
+            return buffer;
+        }
+    }
+}
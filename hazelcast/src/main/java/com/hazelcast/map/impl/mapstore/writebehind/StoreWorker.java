@@ -17,6 +17,9 @@
 package com.hazelcast.map.impl.mapstore.writebehind;
 
 import com.hazelcast.config.MapStoreConfig;
+import com.hazelcast.internal.metrics.MetricsRegistry;
+import com.hazelcast.internal.metrics.Probe;
+import com.hazelcast.internal.util.counters.SwCounter;
 import com.hazelcast.map.impl.MapServiceContext;
 import com.hazelcast.map.impl.PartitionContainer;
 import com.hazelcast.map.impl.mapstore.MapDataStore;
@@ -25,6 +28,7 @@ import com.hazelcast.map.impl.mapstore.writebehind.entry.DelayedEntry;
 import com.hazelcast.map.impl.recordstore.RecordStore;
 import com.hazelcast.spi.ExecutionService;
 import com.hazelcast.spi.NodeEngine;
+import com.hazelcast.spi.impl.NodeEngineImpl;
 import com.hazelcast.spi.partition.IPartition;
 import com.hazelcast.spi.partition.IPartitionService;
 import com.hazelcast.spi.properties.GroupProperty;
@@ -33,11 +37,21 @@ import com.hazelcast.util.Clock;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
 
+import static com.hazelcast.internal.util.counters.SwCounter.newSwCounter;
 import static com.hazelcast.util.CollectionUtil.isEmpty;
+import static com.hazelcast.util.ExceptionUtil.rethrow;
+import static com.hazelcast.util.executor.ExecutorType.CACHED;
 import static java.lang.Thread.currentThread;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
 import static java.util.concurrent.TimeUnit.SECONDS;
 
 /**
@@ -46,13 +60,21 @@ import static java.util.concurrent.TimeUnit.SECONDS;
  * write behind queues and passes them to {@link #writeBehindProcessor}.
  * <p/>
  * Only one {@link StoreWorker} task is created for a map on a member.
+ * <p/>
+ * If the {@link GroupProperty#MAP_WRITE_BEHIND_FLUSH_PARALLELISM flush parallelism} is greater than one, the collected
+ * entries are split into groups of partitions and the groups are stored concurrently: one by this task, the others by
+ * a bounded executor dedicated to the map. All the entries of a partition are in the same group, so the store
+ * operations of a key are still done in order.
  */
 public class StoreWorker implements Runnable {
 
+    private static final String FLUSH_EXECUTOR_NAME_PREFIX = "hz:map-write-behind:";
+
     private final String mapName;
     private final MapServiceContext mapServiceContext;
     private final IPartitionService partitionService;
     private final ExecutionService executionService;
+    private final MetricsRegistry metricsRegistry;
     private final WriteBehindProcessor writeBehindProcessor;
     /**
      * Run on backup nodes after this interval.
@@ -60,6 +82,24 @@ public class StoreWorker implements Runnable {
     private final long backupDelayMillis;
     private final long writeDelayMillis;
     private final int partitionCount;
+    private final int flushParallelism;
+    private final String flushExecutorName;
+
+    @Probe
+    private final SwCounter flushCount = newSwCounter();
+    @Probe
+    private final SwCounter storedEntryCount = newSwCounter();
+    @Probe
+    private final SwCounter failedEntryCount = newSwCounter();
+    @Probe
+    private volatile long lastFlushDurationMillis;
+    /**
+     * Entries stored per second by the last flush.
+     */
+    @Probe
+    private volatile long lastFlushThroughput;
+
+    private ExecutorService flushExecutor;
     /**
      * Entries are fetched from write-behind-queues according to highestStoreTime. If an entry
      * has a store-time which is smaller than or equal to the highestStoreTime, it will be processed.
@@ -75,11 +115,14 @@ public class StoreWorker implements Runnable {
         NodeEngine nodeEngine = mapServiceContext.getNodeEngine();
         this.partitionService = nodeEngine.getPartitionService();
         this.executionService = nodeEngine.getExecutionService();
+        this.metricsRegistry = ((NodeEngineImpl) nodeEngine).getMetricsRegistry();
         this.writeBehindProcessor = writeBehindProcessor;
         this.backupDelayMillis = getReplicaWaitTimeMillis();
         this.lastHighestStoreTime = Clock.currentTimeMillis();
         this.writeDelayMillis = SECONDS.toMillis(getWriteDelaySeconds(mapStoreContext));
         this.partitionCount = partitionService.getPartitionCount();
+        this.flushParallelism = getFlushParallelism(nodeEngine.getProperties(), partitionCount);
+        this.flushExecutorName = FLUSH_EXECUTOR_NAME_PREFIX + mapName;
     }
 
 
@@ -89,11 +132,21 @@ public class StoreWorker implements Runnable {
         }
 
         running = true;
+        if (flushParallelism > 1) {
+            // one of the groups is always stored by this task
+            flushExecutor = executionService.register(flushExecutorName, flushParallelism - 1, flushParallelism, CACHED);
+        }
+        metricsRegistry.scanAndRegister(this, "map[" + mapName + "].writeBehind");
         schedule();
     }
 
     public synchronized void stop() {
         running = false;
+        metricsRegistry.deregister(this);
+        if (flushExecutor != null) {
+            executionService.shutdownExecutor(flushExecutorName);
+            flushExecutor = null;
+        }
     }
 
     @Override
@@ -145,9 +198,11 @@ public class StoreWorker implements Runnable {
         }
 
         if (!isEmpty(ownersList)) {
-            Map<Integer, List<DelayedEntry>> failuresPerPartition = writeBehindProcessor.process(ownersList);
+            long startNanos = System.nanoTime();
+            Map<Integer, List<DelayedEntry>> failuresPerPartition = store(ownersList);
             removeFinishedStoreOperationsFromQueues(mapName, ownersList);
             reAddFailedStoreOperationsToQueues(mapName, failuresPerPartition);
+            onFlushed(ownersList.size(), failuresPerPartition, System.nanoTime() - startNanos);
         }
 
         if (!isEmpty(backupsList)) {
@@ -158,6 +213,121 @@ public class StoreWorker implements Runnable {
 
     }
 
+    private Map<Integer, List<DelayedEntry>> store(List<DelayedEntry> entries) {
+        ExecutorService executor = flushExecutor;
+        if (executor == null) {
+            return writeBehindProcessor.process(entries);
+        }
+
+        List<DelayedEntry>[] groups = groupByPartition(entries);
+        Map<Integer, List<DelayedEntry>> failuresPerPartition = new HashMap<Integer, List<DelayedEntry>>();
+        List<Future<Map<Integer, List<DelayedEntry>>>> futures
+                = new ArrayList<Future<Map<Integer, List<DelayedEntry>>>>(groups.length);
+        List<DelayedEntry> localGroup = null;
+        for (final List<DelayedEntry> group : groups) {
+            if (isEmpty(group)) {
+                continue;
+            }
+            if (localGroup == null) {
+                localGroup = group;
+                continue;
+            }
+            try {
+                futures.add(executor.submit(new Callable<Map<Integer, List<DelayedEntry>>>() {
+                    @Override
+                    public Map<Integer, List<DelayedEntry>> call() {
+                        return writeBehindProcessor.process(group);
+                    }
+                }));
+            } catch (RejectedExecutionException e) {
+                // the executor is saturated or shut down, the group is stored by this task
+                failuresPerPartition.putAll(writeBehindProcessor.process(group));
+            }
+        }
+        // the groups have disjoint partitions, so have the failures of the groups
+        failuresPerPartition.putAll(writeBehindProcessor.process(localGroup));
+        for (Future<Map<Integer, List<DelayedEntry>>> future : futures) {
+            failuresPerPartition.putAll(getUninterruptibly(future));
+        }
+        return failuresPerPartition;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<DelayedEntry>[] groupByPartition(List<DelayedEntry> entries) {
+        List<DelayedEntry>[] groups = new List[flushParallelism];
+        for (DelayedEntry entry : entries) {
+            int groupIndex = entry.getPartitionId() % flushParallelism;
+            List<DelayedEntry> group = groups[groupIndex];
+            if (group == null) {
+                group = new ArrayList<DelayedEntry>(entries.size() / flushParallelism + 1);
+                groups[groupIndex] = group;
+            }
+            group.add(entry);
+        }
+        return groups;
+    }
+
+    /**
+     * Waits for the given group to be stored even if this task is interrupted: the stored entries are removed from
+     * the write-behind queues afterwards, so they must not be removed while still being stored.
+     */
+    private static <V> V getUninterruptibly(Future<V> future) {
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    return future.get();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                } catch (ExecutionException e) {
+                    throw rethrow(e.getCause());
+                }
+            }
+        } finally {
+            if (interrupted) {
+                currentThread().interrupt();
+            }
+        }
+    }
+
+    private void onFlushed(int entryCount, Map<Integer, List<DelayedEntry>> failuresPerPartition, long durationNanos) {
+        int failureCount = 0;
+        for (List<DelayedEntry> failures : failuresPerPartition.values()) {
+            failureCount += failures.size();
+        }
+        int storedCount = entryCount - failureCount;
+        long durationMillis = NANOSECONDS.toMillis(durationNanos);
+
+        flushCount.inc();
+        storedEntryCount.inc(storedCount);
+        failedEntryCount.inc(failureCount);
+        lastFlushDurationMillis = durationMillis;
+        lastFlushThroughput = storedCount * SECONDS.toNanos(1) / Math.max(durationNanos, 1);
+    }
+
+    /**
+     * Returns the age of the oldest entry waiting in the write-behind queues of the partitions owned by this member.
+     */
+    @Probe
+    private long oldestEntryAgeMillis() {
+        long oldestStoreTime = Long.MAX_VALUE;
+        for (int partitionId = 0; partitionId < partitionCount; partitionId++) {
+            RecordStore recordStore = getRecordStoreOrNull(mapName, partitionId);
+            if (recordStore == null || !isPartitionLocal(partitionId)) {
+                continue;
+            }
+            DelayedEntry oldest = getWriteBehindQueue(recordStore).peek();
+            if (oldest != null) {
+                oldestStoreTime = Math.min(oldestStoreTime, oldest.getStoreTime());
+            }
+        }
+        if (oldestStoreTime == Long.MAX_VALUE) {
+            return 0;
+        }
+        // the store time of an entry is its creation time delayed by the write delay
+        return Math.max(0, Clock.currentTimeMillis() - (oldestStoreTime - writeDelayMillis));
+    }
+
     private static List<DelayedEntry> initListIfNull(List<DelayedEntry> list, int capacity) {
         if (list == null) {
             list = new ArrayList<DelayedEntry>(capacity);
@@ -292,6 +462,11 @@ public class StoreWorker implements Runnable {
         return writeBehindStore.getSequenceToFlush();
     }
 
+    private static int getFlushParallelism(HazelcastProperties properties, int partitionCount) {
+        int flushParallelism = properties.getInteger(GroupProperty.MAP_WRITE_BEHIND_FLUSH_PARALLELISM);
+        return Math.max(1, Math.min(flushParallelism, partitionCount));
+    }
+
     private static int getWriteDelaySeconds(MapStoreContext mapStoreContext) {
         MapStoreConfig mapStoreConfig = mapStoreContext.getMapStoreConfig();
         return mapStoreConfig.getWriteDelaySeconds();
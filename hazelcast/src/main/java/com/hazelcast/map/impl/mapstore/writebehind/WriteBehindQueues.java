@@ -17,7 +17,9 @@
 package com.hazelcast.map.impl.mapstore.writebehind;
 
 import com.hazelcast.map.impl.mapstore.writebehind.entry.DelayedEntry;
+import com.hazelcast.spi.serialization.SerializationService;
 
+import java.io.File;
 import java.util.concurrent.atomic.AtomicInteger;
 
 /**
@@ -34,6 +36,14 @@ public final class WriteBehindQueues {
         return createSynchronizedWriteBehindQueue(boundedQueue);
     }
 
+    public static WriteBehindQueue<DelayedEntry> createSpillingWriteBehindQueue(File directory, String filePrefix,
+                                                                             int inMemoryCapacity,
+                                                                             SerializationService serializationService) {
+        final WriteBehindQueue<DelayedEntry> queue
+                = new SpillingWriteBehindQueue(directory, filePrefix, Math.max(1, inMemoryCapacity), serializationService);
+        return createSynchronizedWriteBehindQueue(queue);
+    }
+
     public static WriteBehindQueue<DelayedEntry> createDefaultWriteBehindQueue() {
         final WriteBehindQueue<DelayedEntry> queue = createCoalescedWriteBehindQueue();
         return createSynchronizedWriteBehindQueue(queue);
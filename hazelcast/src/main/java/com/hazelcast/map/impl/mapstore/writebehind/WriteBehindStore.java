@@ -376,7 +376,14 @@ public class WriteBehindStore extends AbstractMapDataStore<Data, Object> {
             return;
         }
         Data key = (Data) delayedEntry.getKey();
-        stagingArea.remove(key, delayedEntry);
+        if (stagingArea.remove(key, delayedEntry)) {
+            return;
+        }
+        // an entry replayed from a spilled write-behind queue is a copy of the staged one
+        DelayedEntry stagedEntry = stagingArea.get(key);
+        if (stagedEntry != null && stagedEntry != TRANSIENT && stagedEntry.getSequence() == delayedEntry.getSequence()) {
+            stagingArea.remove(key, stagedEntry);
+        }
     }
 
     private DelayedEntry getFromStagingArea(Data key) {
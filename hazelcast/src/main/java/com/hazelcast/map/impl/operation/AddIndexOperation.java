@@ -24,6 +24,7 @@ import com.hazelcast.nio.ObjectDataInput;
 import com.hazelcast.nio.ObjectDataOutput;
 import com.hazelcast.nio.serialization.Data;
 import com.hazelcast.query.impl.Index;
+import com.hazelcast.query.impl.IndexBuild;
 import com.hazelcast.query.impl.Indexes;
 import com.hazelcast.query.impl.InternalIndex;
 import com.hazelcast.query.impl.QueryableEntry;
@@ -33,7 +34,11 @@ import com.hazelcast.spi.serialization.SerializationService;
 import com.hazelcast.util.Clock;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
+
+import static com.hazelcast.spi.properties.GroupProperty.INDEX_BUILD_CHUNK_SIZE;
 
 public class AddIndexOperation extends MapOperation implements PartitionAwareOperation, MutatingOperation {
 
@@ -59,7 +64,17 @@ public class AddIndexOperation extends MapOperation implements PartitionAwareOpe
         int partitionId = getPartitionId();
 
         Indexes indexes = mapContainer.getIndexes(partitionId);
+        int chunkSize = getNodeEngine().getProperties().getInteger(INDEX_BUILD_CHUNK_SIZE);
+        if (chunkSize > 0) {
+            buildOnline(indexes, partitionId, chunkSize);
+            return;
+        }
+
         InternalIndex index = indexes.addOrGetIndex(attributeName, ordered);
+        populate(index, partitionId);
+    }
+
+    private void populate(InternalIndex index, int partitionId) {
         if (index.hasPartitionIndexed(partitionId)) {
             return;
         }
@@ -77,6 +92,29 @@ public class AddIndexOperation extends MapOperation implements PartitionAwareOpe
         index.markPartitionAsIndexed(partitionId);
     }
 
+    private void buildOnline(Indexes indexes, int partitionId, int chunkSize) {
+        IndexBuild build = indexes.addOrGetIndexBuild(attributeName, ordered);
+        if (build == null) {
+            // the index is published already, either built or created by a migration which populated only the
+            // migrated partitions: the queries may use it, so the partition is populated right away
+            populate(indexes.addOrGetIndex(attributeName, ordered), partitionId);
+            return;
+        }
+        if (build.getIndex().hasPartitionIndexed(partitionId)) {
+            // indexed by a previous run or by a migration, the other partitions may be indexed already too
+            IndexBuildTask.tryComplete(getNodeEngine(), indexes, build);
+            return;
+        }
+
+        List<Data> keys = new ArrayList<Data>(recordStore.size());
+        Iterator<Record> iterator = recordStore.iterator(getNow(), false);
+        while (iterator.hasNext()) {
+            keys.add(iterator.next().getKey());
+        }
+        // the first chunk is inserted right away, the rest is interleaved with the other operations
+        new IndexBuildTask(mapServiceContext, name, partitionId, indexes, build, keys, chunkSize).start();
+    }
+
     private long getNow() {
         return Clock.currentTimeMillis();
     }
@@ -55,6 +55,7 @@ public abstract class BasePutOperation extends LockAwareOperation implements Bac
         invalidateNearCache(dataKey);
         publishWanUpdate(dataKey, value);
         evict(dataKey);
+        disposeDeferredBlocks();
     }
 
     private EntryEventType getEventType() {
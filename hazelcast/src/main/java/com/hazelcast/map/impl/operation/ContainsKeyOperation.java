@@ -22,8 +22,9 @@ import com.hazelcast.map.impl.MapDataSerializerHook;
 import com.hazelcast.nio.serialization.Data;
 import com.hazelcast.spi.BlockingOperation;
 import com.hazelcast.spi.WaitNotifyKey;
+import com.hazelcast.spi.impl.operationexecutor.InlineExecutable;
 
-public class ContainsKeyOperation extends ReadonlyKeyBasedMapOperation implements BlockingOperation {
+public class ContainsKeyOperation extends ReadonlyKeyBasedMapOperation implements BlockingOperation, InlineExecutable {
 
     private transient boolean containsKey;
 
@@ -46,6 +46,7 @@ public class EvictBackupOperation extends KeyBasedMapOperation implements Backup
     @Override
     public void afterRun() throws Exception {
         publishWanRemove(dataKey);
+        disposeDeferredBlocks();
     }
 
     @Override
@@ -50,12 +50,12 @@ public class EvictOperation extends LockAwareOperation implements MutatingOperat
 
     @Override
     public void afterRun() {
-        if (!evicted) {
-            return;
+        if (evicted) {
+            mapServiceContext.interceptAfterRemove(name, dataValue);
+            mapEventPublisher.publishEvent(getCallerAddress(), name, EVICTED, dataKey, dataValue, null);
+            invalidateNearCache(dataKey);
         }
-        mapServiceContext.interceptAfterRemove(name, dataValue);
-        mapEventPublisher.publishEvent(getCallerAddress(), name, EVICTED, dataKey, dataValue, null);
-        invalidateNearCache(dataKey);
+        disposeDeferredBlocks();
     }
 
     @Override
@@ -17,15 +17,25 @@
 package com.hazelcast.map.impl.operation;
 
 import com.hazelcast.concurrent.lock.LockWaitNotifyKey;
+import com.hazelcast.core.ExecutionCallback;
 import com.hazelcast.core.OperationTimeoutException;
 import com.hazelcast.map.impl.MapDataSerializerHook;
+import com.hazelcast.map.impl.record.Record;
+import com.hazelcast.map.impl.recordstore.ReadThroughCoalescer;
 import com.hazelcast.nio.serialization.Data;
 import com.hazelcast.spi.BlockingOperation;
+import com.hazelcast.spi.CallStatus;
+import com.hazelcast.spi.Offload;
 import com.hazelcast.spi.WaitNotifyKey;
+import com.hazelcast.spi.impl.operationexecutor.InlineExecutable;
 
-public final class GetOperation extends ReadonlyKeyBasedMapOperation implements BlockingOperation {
+import static com.hazelcast.spi.CallStatus.DONE_RESPONSE;
+import static com.hazelcast.spi.CallStatus.WAIT;
+
+public final class GetOperation extends ReadonlyKeyBasedMapOperation implements BlockingOperation, InlineExecutable {
 
     private Data result;
+    private transient boolean offloaded;
 
     public GetOperation() {
     }
@@ -36,6 +46,30 @@ public final class GetOperation extends ReadonlyKeyBasedMapOperation implements
         this.dataKey = dataKey;
     }
 
+    /**
+     * Waits for the entry to be loaded by the {@link ReadThroughCoalescer}
+     * of the record store if the entry is missing and the loads are
+     * coalesced, otherwise gets the entry as usual.
+     */
+    @Override
+    public CallStatus call() throws Exception {
+        if (shouldWait()) {
+            return WAIT;
+        }
+
+        ReadThroughCoalescer readThroughCoalescer = recordStore.getReadThroughCoalescer();
+        if (readThroughCoalescer != null) {
+            recordStore.checkIfLoaded();
+            if (recordStore.getRecordOrNull(dataKey) == null) {
+                offloaded = true;
+                return new ReadThroughOffload(readThroughCoalescer);
+            }
+        }
+
+        run();
+        return DONE_RESPONSE;
+    }
+
     @Override
     public void run() {
         result = mapServiceContext.toData(recordStore.get(dataKey, false, getCallerAddress()));
@@ -43,7 +77,10 @@ public final class GetOperation extends ReadonlyKeyBasedMapOperation implements
 
     @Override
     public void afterRun() {
-        mapServiceContext.interceptAfterGet(name, result);
+        if (!offloaded) {
+            mapServiceContext.interceptAfterGet(name, result);
+        }
+        disposeDeferredBlocks();
     }
 
     @Override
@@ -73,4 +110,35 @@ public final class GetOperation extends ReadonlyKeyBasedMapOperation implements
     public int getId() {
         return MapDataSerializerHook.GET;
     }
+
+    /**
+     * Responds with the entry once it's loaded.
+     */
+    private final class ReadThroughOffload extends Offload implements ExecutionCallback<Record> {
+
+        private final ReadThroughCoalescer readThroughCoalescer;
+
+        ReadThroughOffload(ReadThroughCoalescer readThroughCoalescer) {
+            super(GetOperation.this);
+            this.readThroughCoalescer = readThroughCoalescer;
+        }
+
+        @Override
+        public void start() {
+            readThroughCoalescer.load(dataKey, getCallerAddress(), this);
+        }
+
+        @Override
+        public void onResponse(Record record) {
+            Object value = record == null ? null : record.getValue();
+            result = mapServiceContext.toData(mapServiceContext.interceptGet(name, value));
+            mapServiceContext.interceptAfterGet(name, result);
+            sendResponse(result);
+        }
+
+        @Override
+        public void onFailure(Throwable t) {
+            sendResponse(t);
+        }
+    }
 }
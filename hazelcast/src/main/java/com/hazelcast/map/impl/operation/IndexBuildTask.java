@@ -0,0 +1,169 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.map.impl.operation;
+
+import com.hazelcast.logging.ILogger;
+import com.hazelcast.map.impl.MapContainer;
+import com.hazelcast.map.impl.MapServiceContext;
+import com.hazelcast.map.impl.record.Record;
+import com.hazelcast.map.impl.record.Records;
+import com.hazelcast.map.impl.recordstore.RecordStore;
+import com.hazelcast.nio.serialization.Data;
+import com.hazelcast.query.impl.IndexBuild;
+import com.hazelcast.query.impl.Indexes;
+import com.hazelcast.query.impl.InternalIndex;
+import com.hazelcast.spi.NodeEngine;
+import com.hazelcast.spi.impl.PartitionSpecificRunnable;
+import com.hazelcast.spi.impl.operationservice.InternalOperationService;
+import com.hazelcast.spi.partition.IPartitionService;
+import com.hazelcast.spi.serialization.SerializationService;
+
+import java.util.List;
+
+/**
+ * Inserts the existing entries of a partition into an index being built,
+ * a chunk of entries per run. The task reschedules itself on the partition
+ * thread after every chunk, so the regular operations of the partition are
+ * interleaved with the build instead of waiting for it.
+ * <p>
+ * The keys of the entries are snapshotted when the build of the partition
+ * starts, the entries created later are indexed by their mutations. The
+ * build of a partition is abandoned once the partition migrates away. The
+ * whole build is abandoned once an entry fails to be inserted, so a later
+ * addIndex starts a fresh one.
+ */
+final class IndexBuildTask implements PartitionSpecificRunnable {
+
+    private final MapServiceContext mapServiceContext;
+    private final String mapName;
+    private final int partitionId;
+    private final Indexes indexes;
+    private final IndexBuild build;
+    private final List<Data> keys;
+    private final int chunkSize;
+    private final ILogger logger;
+
+    private int position;
+
+    IndexBuildTask(MapServiceContext mapServiceContext, String mapName, int partitionId, Indexes indexes,
+                   IndexBuild build, List<Data> keys, int chunkSize) {
+        this.mapServiceContext = mapServiceContext;
+        this.mapName = mapName;
+        this.partitionId = partitionId;
+        this.indexes = indexes;
+        this.build = build;
+        this.keys = keys;
+        this.chunkSize = chunkSize;
+        this.logger = mapServiceContext.getNodeEngine().getLogger(IndexBuildTask.class);
+    }
+
+    @Override
+    public int getPartitionId() {
+        return partitionId;
+    }
+
+    @Override
+    public void run() {
+        try {
+            runChunk();
+        } catch (RuntimeException e) {
+            // the caller of addIndex was answered already
+            logger.warning("Failed to build index " + build.getIndex().getName() + " of map " + mapName
+                    + " for partition " + partitionId + ", the build is abandoned", e);
+        }
+    }
+
+    /**
+     * Runs the first chunk on behalf of the operation adding the index, so a
+     * failure is reported to its caller.
+     */
+    void start() {
+        runChunk();
+    }
+
+    private void runChunk() {
+        InternalIndex index = build.getIndex();
+        RecordStore recordStore = mapServiceContext.getExistingRecordStore(partitionId, mapName);
+        if (recordStore == null || !indexes.isBuilding(index)) {
+            // the map or its indexes were destroyed meanwhile
+            return;
+        }
+        if (!isOwned() || index.hasPartitionIndexed(partitionId)) {
+            // The partition migrated away and its entries were removed from the index, the remaining chunks
+            // would insert the entries of a backup replica. If it migrated back meanwhile, the migration
+            // indexed it already.
+            tryComplete(mapServiceContext.getNodeEngine(), indexes, build);
+            return;
+        }
+
+        try {
+            insertChunk(recordStore);
+        } catch (RuntimeException e) {
+            // a partially built index must not be used by the queries
+            indexes.abandonIndexBuild(build);
+            throw e;
+        }
+
+        if (position < keys.size()) {
+            NodeEngine nodeEngine = mapServiceContext.getNodeEngine();
+            ((InternalOperationService) nodeEngine.getOperationService()).execute(this);
+            return;
+        }
+
+        index.markPartitionAsIndexed(partitionId);
+        tryComplete(mapServiceContext.getNodeEngine(), indexes, build);
+    }
+
+    private boolean isOwned() {
+        IPartitionService partitionService = mapServiceContext.getNodeEngine().getPartitionService();
+        return partitionService.getPartition(partitionId, false).isLocal();
+    }
+
+    private void insertChunk(RecordStore recordStore) {
+        MapContainer mapContainer = recordStore.getMapContainer();
+        SerializationService serializationService = mapServiceContext.getNodeEngine().getSerializationService();
+        int end = Math.min(position + chunkSize, keys.size());
+        for (; position < end; ++position) {
+            Record record = recordStore.getRecord(keys.get(position));
+            if (record == null) {
+                // removed since the snapshot was taken
+                continue;
+            }
+            Object value = Records.getValueOrCachedValue(record, serializationService);
+            build.insertExisting(mapContainer.newQueryEntry(record.getKey(), value));
+        }
+    }
+
+    /**
+     * Completes the given build if the index is populated: a partitioned
+     * index is populated once its only partition is indexed, a global one
+     * once all the partitions owned by this member are indexed.
+     */
+    static void tryComplete(NodeEngine nodeEngine, Indexes indexes, IndexBuild build) {
+        if (indexes.isGlobal()) {
+            InternalIndex index = build.getIndex();
+            IPartitionService partitionService = nodeEngine.getPartitionService();
+            for (int partitionId : partitionService.getMemberPartitions(nodeEngine.getThisAddress())) {
+                if (!index.hasPartitionIndexed(partitionId)) {
+                    return;
+                }
+            }
+        }
+        indexes.completeIndexBuild(build);
+    }
+
+}
@@ -16,6 +16,7 @@
 
 package com.hazelcast.map.impl.operation;
 
+import com.hazelcast.config.InMemoryFormat;
 import com.hazelcast.core.EntryView;
 import com.hazelcast.internal.nearcache.impl.invalidation.Invalidator;
 import com.hazelcast.map.impl.MapContainer;
@@ -28,12 +29,14 @@ import com.hazelcast.map.impl.mapstore.MapDataStore;
 import com.hazelcast.map.impl.nearcache.MapNearCacheManager;
 import com.hazelcast.map.impl.record.Record;
 import com.hazelcast.wan.impl.CallerProvenance;
+import com.hazelcast.map.impl.recordstore.ReadThroughCoalescer;
 import com.hazelcast.map.impl.recordstore.RecordStore;
 import com.hazelcast.nio.serialization.Data;
 import com.hazelcast.nio.serialization.IdentifiedDataSerializable;
 import com.hazelcast.spi.ObjectNamespace;
 import com.hazelcast.spi.ServiceNamespaceAware;
 import com.hazelcast.spi.impl.AbstractNamedOperation;
+import com.hazelcast.spi.impl.MutatingOperation;
 
 import java.util.List;
 
@@ -87,6 +90,35 @@ public abstract class MapOperation extends AbstractNamedOperation implements Ide
         mapEventPublisher = mapServiceContext.getMapEventPublisher();
 
         innerBeforeRun();
+
+        if (this instanceof MutatingOperation && recordStore != null) {
+            ReadThroughCoalescer readThroughCoalescer = recordStore.getReadThroughCoalescer();
+            if (readThroughCoalescer != null) {
+                // the entries being loaded might be deleted or updated in the map store
+                if (this instanceof KeyBasedMapOperation) {
+                    readThroughCoalescer.onMutation(((KeyBasedMapOperation) this).dataKey);
+                } else {
+                    readThroughCoalescer.onMutation();
+                }
+            }
+        }
+    }
+
+    @Override
+    public void afterRun() throws Exception {
+        super.afterRun();
+        disposeDeferredBlocks();
+    }
+
+    /**
+     * Releases the storage blocks of records removed by this operation. Native
+     * storages defer freeing them until the operation no longer uses them, so
+     * subclasses overriding {@link #afterRun()} without calling super must call this.
+     */
+    protected final void disposeDeferredBlocks() {
+        if (recordStore != null) {
+            recordStore.disposeDeferredBlocks();
+        }
     }
 
     public void innerBeforeRun() throws Exception {
@@ -103,6 +135,27 @@ public abstract class MapOperation extends AbstractNamedOperation implements Ide
         return MapService.SERVICE_NAME;
     }
 
+    /**
+     * Checks if this read-only operation may be run by an IO thread, see
+     * {@link com.hazelcast.spi.impl.operationexecutor.InlineExecutable}. Only
+     * the operations of the existing on-heap maps without map stores,
+     * interceptors, listeners and WAN replication may be: the map stores and
+     * the interceptors are user code which may block, and the listeners and
+     * the WAN replication are side effects of a read expiring an entry.
+     * The native storage is accessed only by the partition threads.
+     */
+    public boolean isInlineExecutable() {
+        MapService service = getService();
+        MapServiceContext serviceContext = service.getMapServiceContext();
+        MapContainer container = serviceContext.getMapContainers().get(name);
+        return container != null
+                && container.getMapConfig().getInMemoryFormat() != InMemoryFormat.NATIVE
+                && !container.getMapStoreContext().isMapLoader()
+                && !container.isWanReplicationEnabled()
+                && !serviceContext.hasInterceptor(name)
+                && !serviceContext.getMapEventPublisher().hasEventListener(name);
+    }
+
     public boolean isPostProcessing(RecordStore recordStore) {
         MapDataStore mapDataStore = recordStore.getMapDataStore();
         return mapDataStore.isPostProcessingMapStore() || mapServiceContext.hasInterceptor(name);
@@ -23,7 +23,10 @@ import com.hazelcast.spi.ReadonlyOperation;
 /**
  * Triggers key loading on member with {@link com.hazelcast.map.impl.MapKeyLoader.Role#SENDER}
  * or {@link com.hazelcast.map.impl.MapKeyLoader.Role#SENDER_BACKUP} key
- * loader role if keys have not yet been loaded.
+ * loader role if keys have not yet been loaded, or restarts the load of the
+ * partition itself if the map loader is a
+ * {@link com.hazelcast.core.PartitionAwareMapLoader} and this member took
+ * over the partition before it was loaded.
  * <p>
  * Returns the previous state of the key loading and dispatching future.
  */
@@ -35,6 +35,7 @@ import com.hazelcast.map.QueryCache;
 import com.hazelcast.map.impl.MapService;
 import com.hazelcast.map.impl.SimpleEntryView;
 import com.hazelcast.map.impl.iterator.MapPartitionIterator;
+import com.hazelcast.map.impl.iterator.MapQueryIterator;
 import com.hazelcast.map.impl.iterator.MapQueryPartitionIterator;
 import com.hazelcast.map.impl.journal.MapEventJournalReadOperation;
 import com.hazelcast.map.impl.journal.MapEventJournalSubscribeOperation;
@@ -445,6 +446,71 @@ public class MapProxyImpl<K, V> extends MapProxySupport<K, V> implements EventJo
         return result;
     }
 
+    /**
+     * Asynchronously gets the values of the given keys.
+     * <p>
+     * Unlike a sequence of {@link #getAsync} calls, the keys are grouped by
+     * the members owning their partitions and a single invocation is sent to
+     * each member. The future of a key is completed when the response of its
+     * owner arrives.
+     *
+     * @param keys the keys to get the values of.
+     * @return the futures of the values per key, a future is completed with
+     * {@code null} if its key is missing.
+     */
+    public Map<K, ICompletableFuture<V>> getAllAsync(Set<K> keys) {
+        checkNotNull(keys, NULL_KEYS_ARE_NOT_ALLOWED);
+        if (keys.isEmpty()) {
+            return emptyMap();
+        }
+
+        Map<K, InternalCompletableFuture<Data>> dataFutures = getAllAsyncInternal(keys);
+        Map<K, ICompletableFuture<V>> futures = createHashMap(dataFutures.size());
+        for (Map.Entry<K, InternalCompletableFuture<Data>> entry : dataFutures.entrySet()) {
+            futures.put(entry.getKey(), new DelegatingFuture<V>(entry.getValue(), serializationService));
+        }
+        return futures;
+    }
+
+    /**
+     * Asynchronous version of {@link #putAll}.
+     * <p>
+     * The entries are grouped by the members owning their partitions and a
+     * single invocation is sent to each member. The keys owned by the same
+     * member share the same future, completed when the entries are stored by
+     * that member.
+     *
+     * @param map the entries to put.
+     * @return the futures of the puts per key.
+     */
+    public Map<K, ICompletableFuture<Void>> putAllAsync(Map<? extends K, ? extends V> map) {
+        checkNotNull(map, "Null argument map is not allowed");
+        if (map.isEmpty()) {
+            return emptyMap();
+        }
+        return putAllAsyncInternal(map);
+    }
+
+    /**
+     * Asynchronously deletes the given keys, without returning the removed
+     * values.
+     * <p>
+     * The keys are grouped by the members owning their partitions and a
+     * single invocation is sent to each member. The keys owned by the same
+     * member share the same future, completed when the keys are deleted by
+     * that member.
+     *
+     * @param keys the keys to delete.
+     * @return the futures of the deletes per key.
+     */
+    public Map<K, ICompletableFuture<Void>> deleteAllAsync(Set<K> keys) {
+        checkNotNull(keys, NULL_KEYS_ARE_NOT_ALLOWED);
+        if (keys.isEmpty()) {
+            return emptyMap();
+        }
+        return deleteAllAsyncInternal(keys);
+    }
+
     @Override
     public boolean setTtl(K key, long ttl, TimeUnit timeunit) {
         checkNotNull(key);
@@ -980,6 +1046,45 @@ public class MapProxyImpl<K, V> extends MapProxySupport<K, V> implements EventJo
         return new MapQueryPartitionIterator<K, V, R>(this, fetchSize, partitionId, predicate, projection);
     }
 
+    /**
+     * Returns an iterator streaming the result of the projection on the entries of all the partitions which
+     * satisfy the {@code predicate}.
+     * <p>
+     * Unlike the queries returning collections, the result is never materialized as a whole on the members or
+     * on the caller. The partitions are queried one after another in batches of about {@code fetchSize}
+     * entries and the next batch is requested only when the iteration starts consuming the current one, so
+     * the memory needed by the iteration is bounded by the fetch size rather than by the size of the result
+     * and the iteration is not subject to the query result size limit.
+     * A too small {@code fetchSize} can affect performance since more requests will be sent to the partition owners.
+     * A too high {@code fetchSize} means that more data will be sent which can block other operations from being sent,
+     * including internal operations.
+     * Predicates of type {@link PagingPredicate} are not supported.
+     * <p>
+     * <b>NOTE</b>
+     * Iterating the map should be done only when the {@link IMap} is not being
+     * mutated and the cluster is stable (there are no migrations or membership changes).
+     * In other cases, the iterator may not return some entries or may return an entry twice.
+     *
+     * @param fetchSize  the size of the batches which will be sent when iterating the data
+     * @param projection the projection to apply before returning the value. {@code null} value is not allowed
+     * @param predicate  the predicate which the entries must match. {@code null} value is not allowed
+     * @param <R>        the return type
+     * @return the iterator for the projected entries
+     * @throws IllegalArgumentException if the predicate is of type {@link PagingPredicate}
+     */
+    public <R> Iterator<R> iterator(int fetchSize, Projection<Map.Entry<K, V>, R> projection, Predicate<K, V> predicate) {
+        if (predicate instanceof PagingPredicate) {
+            throw new IllegalArgumentException("Paging predicate is not allowed when iterating map by query");
+        }
+        checkPositive(fetchSize, "fetchSize should be positive");
+        checkNotNull(projection, NULL_PROJECTION_IS_NOT_ALLOWED);
+        checkNotNull(predicate, NULL_PREDICATE_IS_NOT_ALLOWED);
+        // HazelcastInstanceAware handled by cloning
+        projection = serializationService.toObject(serializationService.toData(projection));
+        handleHazelcastInstanceAwareParams(predicate);
+        return new MapQueryIterator<K, V, R>(this, fetchSize, predicate, projection);
+    }
+
     @Override
     public ICompletableFuture<EventJournalInitialSubscriberState> subscribeToEventJournal(int partitionId) {
         final MapEventJournalSubscribeOperation op = new MapEventJournalSubscribeOperation(name);
@@ -56,6 +56,8 @@ import com.hazelcast.map.impl.operation.IsPartitionLoadedOperationFactory;
 import com.hazelcast.map.impl.operation.MapOperation;
 import com.hazelcast.map.impl.operation.MapOperationProvider;
 import com.hazelcast.map.impl.operation.RemoveInterceptorOperation;
+import com.hazelcast.map.impl.proxy.OwnerBatches.CompletingCallback;
+import com.hazelcast.map.impl.proxy.OwnerBatches.GetAllCallback;
 import com.hazelcast.map.impl.query.Query;
 import com.hazelcast.map.impl.query.QueryEngine;
 import com.hazelcast.map.impl.query.QueryEventFilter;
@@ -114,6 +116,8 @@ import static com.hazelcast.core.EntryEventType.CLEAR_ALL;
 import static com.hazelcast.map.impl.EntryRemovingProcessor.ENTRY_REMOVING_PROCESSOR;
 import static com.hazelcast.map.impl.LocalMapStatsProvider.EMPTY_LOCAL_MAP_STATS;
 import static com.hazelcast.map.impl.MapService.SERVICE_NAME;
+import static com.hazelcast.map.impl.proxy.OwnerBatches.groupByOwner;
+import static com.hazelcast.map.impl.proxy.OwnerBatches.toFuturesPerKey;
 import static com.hazelcast.map.impl.query.Target.createPartitionTarget;
 import static com.hazelcast.util.ExceptionUtil.rethrow;
 import static com.hazelcast.util.IterableUtil.nullToEmpty;
@@ -981,6 +985,129 @@ abstract class MapProxySupport<K, V>
     protected void finalizePutAll(Map<?, ?> map) {
     }
 
+    /**
+     * Gets the values of the given keys asynchronously.
+     * <p>
+     * The keys are grouped by the members owning their partitions and a
+     * single multi-partition invocation is sent to each member, so the number
+     * of the invocations doesn't depend on the number of the keys. The futures
+     * of the keys owned by a member are completed as soon as the response of
+     * that member arrives.
+     *
+     * @return the futures of the serialized values per key, completed with
+     * {@code null} for the missing keys.
+     */
+    protected Map<K, InternalCompletableFuture<Data>> getAllAsyncInternal(Set<K> keys) {
+        Map<K, InternalCompletableFuture<Data>> futures = createHashMap(keys.size());
+        Map<Data, SimpleCompletableFuture<Data>> futuresPerKey = createHashMap(keys.size());
+        for (K key : keys) {
+            checkNotNull(key, NULL_KEY_IS_NOT_ALLOWED);
+            SimpleCompletableFuture<Data> future = new SimpleCompletableFuture<Data>(getNodeEngine());
+            futuresPerKey.put(toDataWithStrategy(key), future);
+            futures.put(key, future);
+        }
+
+        Map<Integer, List<Data>> keysPerPartition = getPartitionIdToKeysMap(futuresPerKey.keySet());
+        for (List<Integer> partitions : groupByOwner(partitionService, keysPerPartition)) {
+            List<Data> ownerKeys = new ArrayList<Data>();
+            for (Integer partitionId : partitions) {
+                ownerKeys.addAll(keysPerPartition.get(partitionId));
+            }
+            OperationFactory factory = operationProvider.createGetAllOperationFactory(name, ownerKeys);
+            operationService.<Object>invokeOnPartitionsAsync(SERVICE_NAME, factory, partitions)
+                    .andThen(new GetAllCallback(ownerKeys, futuresPerKey, localMapStats, serializationService));
+        }
+        return futures;
+    }
+
+    /**
+     * Puts the given entries asynchronously, sending a single
+     * {@link com.hazelcast.map.impl.operation.PutAllPartitionAwareOperationFactory}
+     * per owner member.
+     *
+     * @return the futures of the puts per key, the keys owned by the same
+     * member share the same future.
+     */
+    protected Map<K, ICompletableFuture<Void>> putAllAsyncInternal(Map<? extends K, ? extends V> map) {
+        List<K> keys = new ArrayList<K>(map.size());
+        int[] keyPartitions = new int[map.size()];
+        Map<Integer, MapEntries> entriesPerPartition = new HashMap<Integer, MapEntries>();
+        for (Entry<? extends K, ? extends V> entry : map.entrySet()) {
+            checkNotNull(entry.getKey(), NULL_KEY_IS_NOT_ALLOWED);
+            checkNotNull(entry.getValue(), NULL_VALUE_IS_NOT_ALLOWED);
+
+            Data keyData = toDataWithStrategy(entry.getKey());
+            int partitionId = partitionService.getPartitionId(keyData);
+            MapEntries entries = entriesPerPartition.get(partitionId);
+            if (entries == null) {
+                entries = new MapEntries();
+                entriesPerPartition.put(partitionId, entries);
+            }
+            entries.add(keyData, toData(entry.getValue()));
+            keyPartitions[keys.size()] = partitionId;
+            keys.add(entry.getKey());
+        }
+
+        Map<Integer, ICompletableFuture<Void>> futuresPerPartition = createHashMap(entriesPerPartition.size());
+        for (List<Integer> partitions : groupByOwner(partitionService, entriesPerPartition)) {
+            int[] partitionIds = new int[partitions.size()];
+            MapEntries[] entries = new MapEntries[partitions.size()];
+            int size = 0;
+            for (int i = 0; i < partitionIds.length; i++) {
+                partitionIds[i] = partitions.get(i);
+                entries[i] = entriesPerPartition.get(partitionIds[i]);
+                size += entries[i].size();
+            }
+            OperationFactory factory = operationProvider.createPutAllOperationFactory(name, partitionIds, entries);
+            invokeOnOwnerAsync(factory, partitions, size, futuresPerPartition);
+        }
+        return toFuturesPerKey(keys, keyPartitions, futuresPerPartition);
+    }
+
+    /**
+     * Deletes the given keys asynchronously, sending a single
+     * {@link com.hazelcast.map.impl.operation.MultipleEntryOperationFactory}
+     * per owner member.
+     *
+     * @return the futures of the deletes per key, the keys owned by the same
+     * member share the same future.
+     */
+    protected Map<K, ICompletableFuture<Void>> deleteAllAsyncInternal(Set<K> keys) {
+        List<K> keyList = new ArrayList<K>(keys.size());
+        int[] keyPartitions = new int[keys.size()];
+        List<Data> dataKeys = new ArrayList<Data>(keys.size());
+        for (K key : keys) {
+            checkNotNull(key, NULL_KEY_IS_NOT_ALLOWED);
+            Data keyData = toDataWithStrategy(key);
+            keyPartitions[keyList.size()] = partitionService.getPartitionId(keyData);
+            keyList.add(key);
+            dataKeys.add(keyData);
+        }
+
+        Map<Integer, List<Data>> keysPerPartition = getPartitionIdToKeysMap(dataKeys);
+        Map<Integer, ICompletableFuture<Void>> futuresPerPartition = createHashMap(keysPerPartition.size());
+        for (List<Integer> partitions : groupByOwner(partitionService, keysPerPartition)) {
+            Set<Data> ownerKeys = new HashSet<Data>();
+            for (Integer partitionId : partitions) {
+                ownerKeys.addAll(keysPerPartition.get(partitionId));
+            }
+            OperationFactory factory = operationProvider.createMultipleEntryOperationFactory(name, ownerKeys,
+                    ENTRY_REMOVING_PROCESSOR);
+            invokeOnOwnerAsync(factory, partitions, 0, futuresPerPartition);
+        }
+        return toFuturesPerKey(keyList, keyPartitions, futuresPerPartition);
+    }
+
+    private void invokeOnOwnerAsync(OperationFactory factory, List<Integer> partitions, int putCount,
+                                    Map<Integer, ICompletableFuture<Void>> futuresPerPartition) {
+        SimpleCompletableFuture<Void> future = new SimpleCompletableFuture<Void>(getNodeEngine());
+        for (Integer partitionId : partitions) {
+            futuresPerPartition.put(partitionId, future);
+        }
+        operationService.<Object>invokeOnPartitionsAsync(SERVICE_NAME, factory, partitions)
+                .andThen(new CompletingCallback(future, putCount, localMapStats));
+    }
+
     @Override
     public void flush() {
         // TODO: add a feature to mancenter to sync cache to db completely
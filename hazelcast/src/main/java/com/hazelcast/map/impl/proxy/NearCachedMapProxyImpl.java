@@ -509,6 +509,28 @@ public class NearCachedMapProxyImpl<K, V> extends MapProxyImpl<K, V> {
         }
     }
 
+    @Override
+    protected Map<K, ICompletableFuture<Void>> putAllAsyncInternal(Map<? extends K, ? extends V> map) {
+        try {
+            return super.putAllAsyncInternal(map);
+        } finally {
+            for (Object key : map.keySet()) {
+                invalidateNearCache(toNearCacheKeyWithStrategy(key));
+            }
+        }
+    }
+
+    @Override
+    protected Map<K, ICompletableFuture<Void>> deleteAllAsyncInternal(Set<K> keys) {
+        try {
+            return super.deleteAllAsyncInternal(keys);
+        } finally {
+            for (Object key : keys) {
+                invalidateNearCache(toNearCacheKeyWithStrategy(key));
+            }
+        }
+    }
+
     @Override
     public Data executeOnKeyInternal(Object key, EntryProcessor entryProcessor) {
         key = toNearCacheKeyWithStrategy(key);
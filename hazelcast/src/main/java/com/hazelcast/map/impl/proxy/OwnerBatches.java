@@ -0,0 +1,163 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.map.impl.proxy;
+
+import com.hazelcast.core.ExecutionCallback;
+import com.hazelcast.core.ICompletableFuture;
+import com.hazelcast.internal.util.SimpleCompletableFuture;
+import com.hazelcast.map.impl.MapEntries;
+import com.hazelcast.monitor.impl.LocalMapStatsImpl;
+import com.hazelcast.nio.serialization.Data;
+import com.hazelcast.spi.partition.IPartitionService;
+import com.hazelcast.spi.serialization.SerializationService;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import static com.hazelcast.util.MapUtil.createHashMap;
+
+/**
+ * Support for the asynchronous batch operations of the map proxies.
+ * <p>
+ * The keys of a batch are grouped by the members owning their partitions
+ * and a single multi-partition invocation is sent to each member. The
+ * futures of the keys owned by a member are completed as soon as the
+ * response of that member arrives, independently of the other members.
+ */
+final class OwnerBatches {
+
+    private OwnerBatches() {
+    }
+
+    /**
+     * Groups the given partitions by the members owning them.
+     *
+     * @param perPartition the map keyed by the partitions to group.
+     * @return the partitions owned by the same member, per member.
+     */
+    static Collection<List<Integer>> groupByOwner(IPartitionService partitionService, Map<Integer, ?> perPartition) {
+        Collection<List<Integer>> groups = new ArrayList<List<Integer>>();
+        for (List<Integer> memberPartitions : partitionService.getMemberPartitionsMap().values()) {
+            List<Integer> partitions = new ArrayList<Integer>();
+            for (Integer partitionId : memberPartitions) {
+                if (perPartition.containsKey(partitionId)) {
+                    partitions.add(partitionId);
+                }
+            }
+            if (!partitions.isEmpty()) {
+                groups.add(partitions);
+            }
+        }
+        return groups;
+    }
+
+    /**
+     * Maps the given keys to the futures of their partitions.
+     *
+     * @param keys          the keys of the batch.
+     * @param keyPartitions the partitions of the keys, in the order of the keys.
+     */
+    static <K> Map<K, ICompletableFuture<Void>> toFuturesPerKey(List<K> keys, int[] keyPartitions,
+                                                                Map<Integer, ICompletableFuture<Void>> futuresPerPartition) {
+        Map<K, ICompletableFuture<Void>> futures = createHashMap(keys.size());
+        for (int i = 0; i < keys.size(); i++) {
+            futures.put(keys.get(i), futuresPerPartition.get(keyPartitions[i]));
+        }
+        return futures;
+    }
+
+    /**
+     * Completes the futures of the keys read from a single member.
+     */
+    static final class GetAllCallback implements ExecutionCallback<Map<Integer, Object>> {
+
+        private final List<Data> keys;
+        private final Map<Data, SimpleCompletableFuture<Data>> futures;
+        private final LocalMapStatsImpl localMapStats;
+        private final SerializationService serializationService;
+        private final long startTimeNanos = System.nanoTime();
+
+        GetAllCallback(List<Data> keys, Map<Data, SimpleCompletableFuture<Data>> futures, LocalMapStatsImpl localMapStats,
+                       SerializationService serializationService) {
+            this.keys = keys;
+            this.futures = futures;
+            this.localMapStats = localMapStats;
+            this.serializationService = serializationService;
+        }
+
+        @Override
+        public void onResponse(Map<Integer, Object> response) {
+            localMapStats.incrementGetLatencyNanos(keys.size(), System.nanoTime() - startTimeNanos);
+            for (Object partitionResponse : response.values()) {
+                MapEntries entries = serializationService.toObject(partitionResponse);
+                for (int i = 0; i < entries.size(); i++) {
+                    SimpleCompletableFuture<Data> future = futures.get(entries.getKey(i));
+                    if (future != null) {
+                        future.setResult(entries.getValue(i));
+                    }
+                }
+            }
+            // the keys not found in the responses are missing
+            for (Data key : keys) {
+                futures.get(key).setResult(null);
+            }
+        }
+
+        @Override
+        public void onFailure(Throwable t) {
+            for (Data key : keys) {
+                futures.get(key).setResult(t);
+            }
+        }
+    }
+
+    /**
+     * Completes the future shared by the keys written to a single member.
+     */
+    static final class CompletingCallback implements ExecutionCallback<Map<Integer, Object>> {
+
+        private final SimpleCompletableFuture<Void> future;
+        private final int putCount;
+        private final LocalMapStatsImpl localMapStats;
+        private final long startTimeNanos = System.nanoTime();
+
+        /**
+         * @param putCount the number of the puts to record in the local map
+         *                 statistics, {@code 0} if none.
+         */
+        CompletingCallback(SimpleCompletableFuture<Void> future, int putCount, LocalMapStatsImpl localMapStats) {
+            this.future = future;
+            this.putCount = putCount;
+            this.localMapStats = localMapStats;
+        }
+
+        @Override
+        public void onResponse(Map<Integer, Object> response) {
+            if (putCount > 0) {
+                localMapStats.incrementPutLatencyNanos(putCount, System.nanoTime() - startTimeNanos);
+            }
+            future.setResult(null);
+        }
+
+        @Override
+        public void onFailure(Throwable t) {
+            future.setResult(t);
+        }
+    }
+}
@@ -0,0 +1,499 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.map.impl.query;
+
+import com.hazelcast.aggregation.Aggregator;
+import com.hazelcast.aggregation.impl.PrimitiveAccumulator;
+import com.hazelcast.internal.serialization.InternalSerializationService;
+import com.hazelcast.map.impl.LazyMapEntry;
+import com.hazelcast.map.impl.record.Record;
+import com.hazelcast.map.impl.recordstore.RecordStoreMutationObserver;
+import com.hazelcast.nio.serialization.Data;
+import com.hazelcast.query.Predicate;
+import com.hazelcast.query.impl.AttributeType;
+import com.hazelcast.query.impl.PrimitiveColumn;
+import com.hazelcast.query.impl.getters.Extractors;
+import com.hazelcast.query.impl.predicates.AndPredicate;
+import com.hazelcast.query.impl.predicates.ColumnarPredicateEvaluator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import static com.hazelcast.query.QueryConstants.THIS_ATTRIBUTE_NAME;
+
+/**
+ * Columnar projection of the numeric attribute values of the records of a
+ * single map partition, used to run the full partition scans as tight
+ * loops over primitive arrays instead of deserializing every record and
+ * evaluating the predicates entry by entry.
+ * <p>
+ * Every record of the partition is assigned a slot tracked by observing the
+ * mutations of the record store. The columns of the attributes are created
+ * on demand: once the scans of the partition referenced an attribute a few
+ * times, the values of the attribute are extracted from all the records and
+ * maintained on every following mutation, at most the configured number of
+ * attributes gets a column.
+ * <p>
+ * The mutations are applied by the partition thread while the scans may be
+ * run by the query threads, the state of the cache is guarded by a
+ * read-write lock.
+ */
+public final class ColumnarScanCache implements RecordStoreMutationObserver<Record> {
+
+    /**
+     * The number of the scans referencing an attribute after which a column
+     * is created for the attribute.
+     */
+    static final int COLUMN_CREATION_THRESHOLD = 3;
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final InternalSerializationService serializationService;
+    private final Extractors extractors;
+    private final int maxColumnCount;
+
+    private final Map<Data, Integer> slotsByKey = new HashMap<Data, Integer>();
+    private final Map<String, PrimitiveColumn> columns = new HashMap<String, PrimitiveColumn>();
+    private final Map<String, Integer> attributeHits = new HashMap<String, Integer>();
+
+    private Record[] records;
+    private long[] liveSlots;
+    private int[] freeSlots;
+    private int freeSlotCount;
+    private int slotCount;
+
+    // The partition thread notifies the observers about the updates before
+    // storing the new values to the records, so a column created in between
+    // must take the value of the last update from here.
+    private int lastUpdatedSlot = -1;
+    private Object lastUpdatedValue;
+
+    /**
+     * Constructs a new columnar scan cache.
+     *
+     * @param serializationService the serialization service of the map.
+     * @param extractors           the extractors of the map.
+     * @param maxColumnCount       the maximum number of the columns.
+     */
+    public ColumnarScanCache(InternalSerializationService serializationService, Extractors extractors,
+                             int maxColumnCount) {
+        this.serializationService = serializationService;
+        this.extractors = extractors;
+        this.maxColumnCount = maxColumnCount;
+        reset();
+    }
+
+    /**
+     * Evaluates the given predicate over the columns of this cache.
+     * <p>
+     * If the predicate is an and predicate, its children which can't be
+     * evaluated over the columns are returned as a residual predicate to be
+     * evaluated over the records matched by the rest of the children.
+     *
+     * @param predicate the predicate to evaluate.
+     * @return the result of the scan or {@code null} if no part of the
+     * predicate can be evaluated over the columns.
+     */
+    public Scan scan(Predicate predicate) {
+        Predicate[] children =
+                predicate instanceof AndPredicate ? ((AndPredicate) predicate).getPredicates() : new Predicate[]{predicate};
+        List<Predicate> supported = new ArrayList<Predicate>(children.length);
+        List<Predicate> residual = new ArrayList<Predicate>(children.length);
+        Set<String> attributes = new LinkedHashSet<String>();
+        for (Predicate child : children) {
+            if (ColumnarPredicateEvaluator.collectAttributes(child, attributes)) {
+                supported.add(child);
+            } else {
+                residual.add(child);
+            }
+        }
+        if (supported.isEmpty()) {
+            return null;
+        }
+
+        List<Record> matched;
+        lockWithColumns(attributes);
+        try {
+            long[] slots = liveSlots;
+            boolean evaluated = false;
+            for (Predicate child : supported) {
+                long[] childSlots = ColumnarPredicateEvaluator.evaluate(child, columns, slots);
+                if (childSlots == null) {
+                    residual.add(child);
+                } else {
+                    slots = childSlots;
+                    evaluated = true;
+                }
+            }
+            if (!evaluated) {
+                return null;
+            }
+            matched = collectRecords(slots);
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        Predicate residualPredicate;
+        if (residual.isEmpty()) {
+            residualPredicate = null;
+        } else if (residual.size() == 1) {
+            residualPredicate = residual.get(0);
+        } else {
+            residualPredicate = new AndPredicate(residual.toArray(new Predicate[0]));
+        }
+        return new Scan(matched, residualPredicate);
+    }
+
+    /**
+     * Accumulates the values matching the given predicate into the given
+     * aggregator using the columns of this cache.
+     *
+     * @param predicate  the predicate selecting the values to aggregate.
+     * @param aggregator the aggregator to accumulate the values into.
+     * @return {@code true} if the values were accumulated, {@code false} if
+     * the predicate or the aggregator is not supported by the columns and
+     * nothing was accumulated.
+     */
+    public boolean aggregate(Predicate predicate, Aggregator aggregator) {
+        if (!(aggregator instanceof PrimitiveAccumulator)) {
+            return false;
+        }
+        PrimitiveAccumulator accumulator = (PrimitiveAccumulator) aggregator;
+        Class<? extends Number> accumulatedType = accumulator.getAccumulatedType();
+        String attribute = accumulator.getAttributePath();
+        if (attribute == null && accumulatedType != null) {
+            attribute = THIS_ATTRIBUTE_NAME.value();
+        }
+
+        Set<String> attributes = new LinkedHashSet<String>();
+        if (!ColumnarPredicateEvaluator.collectAttributes(predicate, attributes)) {
+            return false;
+        }
+        if (attribute != null) {
+            attributes.add(attribute);
+        }
+
+        lockWithColumns(attributes);
+        try {
+            PrimitiveColumn column = attribute == null ? null : columns.get(attribute);
+            if (attribute != null && (column == null || !column.isValid())) {
+                return false;
+            }
+            long[] slots = ColumnarPredicateEvaluator.evaluate(predicate, columns, liveSlots);
+            if (slots == null) {
+                return false;
+            }
+
+            long count = count(slots);
+            if (accumulatedType == null) {
+                accumulator.accumulatePrimitives(count, 0, 0);
+                return true;
+            }
+            if (count == 0) {
+                return true;
+            }
+            // the entry by entry accumulation fails on nulls and on values
+            // of other types, leave it to report the failure
+            if (column.getType() != typeOf(accumulatedType) || column.containsNulls(slots)) {
+                return false;
+            }
+            if (accumulatedType == Long.class) {
+                accumulator.accumulatePrimitives(count, column.sumLongs(slots), 0);
+            } else {
+                accumulator.accumulatePrimitives(count, 0, column.sumDoubles(slots));
+            }
+            return true;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return the attributes having columns in this cache.
+     */
+    Set<String> getColumnAttributes() {
+        lock.readLock().lock();
+        try {
+            return Collections.unmodifiableSet(new LinkedHashSet<String>(columns.keySet()));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void onClear() {
+        lock.writeLock().lock();
+        try {
+            reset();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void onPutRecord(Data key, Record record) {
+        put(key, record, record.getValue(), false);
+    }
+
+    @Override
+    public void onReplicationPutRecord(Data key, Record record) {
+        put(key, record, record.getValue(), false);
+    }
+
+    @Override
+    public void onUpdateRecord(Data key, Record record, Object newValue) {
+        put(key, record, newValue, true);
+    }
+
+    @Override
+    public void onRemoveRecord(Data key, Record record) {
+        remove(key);
+    }
+
+    @Override
+    public void onEvictRecord(Data key, Record record) {
+        remove(key);
+    }
+
+    @Override
+    public void onLoadRecord(Data key, Record record) {
+        put(key, record, record.getValue(), false);
+    }
+
+    @Override
+    public void onDestroy(boolean internal) {
+        onClear();
+    }
+
+    @Override
+    public void onReset() {
+        onClear();
+    }
+
+    private void put(Data key, Record record, Object value, boolean update) {
+        lock.writeLock().lock();
+        try {
+            Integer existingSlot = slotsByKey.get(key);
+            int slot = existingSlot == null ? allocateSlot(key) : existingSlot;
+            records[slot] = record;
+            if (update) {
+                lastUpdatedSlot = slot;
+                lastUpdatedValue = value;
+            } else {
+                clearLastUpdate();
+            }
+            if (!columns.isEmpty()) {
+                LazyMapEntry entry = new LazyMapEntry(key, value, serializationService, extractors);
+                for (Map.Entry<String, PrimitiveColumn> column : columns.entrySet()) {
+                    setValue(column.getValue(), slot, entry, column.getKey());
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void remove(Data key) {
+        lock.writeLock().lock();
+        try {
+            clearLastUpdate();
+            Integer slot = slotsByKey.remove(key);
+            if (slot == null) {
+                return;
+            }
+            records[slot] = null;
+            liveSlots[slot >>> 6] &= ~(1L << slot);
+            if (freeSlotCount == freeSlots.length) {
+                freeSlots = Arrays.copyOf(freeSlots, freeSlots.length << 1);
+            }
+            freeSlots[freeSlotCount++] = slot;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private int allocateSlot(Data key) {
+        int slot;
+        if (freeSlotCount > 0) {
+            slot = freeSlots[--freeSlotCount];
+        } else {
+            slot = slotCount++;
+            if (slot == records.length) {
+                int capacity = records.length << 1;
+                records = Arrays.copyOf(records, capacity);
+                liveSlots = Arrays.copyOf(liveSlots, PrimitiveColumn.wordCount(capacity));
+                for (PrimitiveColumn column : columns.values()) {
+                    column.ensureCapacity(capacity);
+                }
+            }
+        }
+        liveSlots[slot >>> 6] |= 1L << slot;
+        slotsByKey.put(key, slot);
+        return slot;
+    }
+
+    /**
+     * Acquires the read lock making sure the columns of the given attributes
+     * are created if they are referenced frequently enough.
+     */
+    private void lockWithColumns(Set<String> attributes) {
+        lock.readLock().lock();
+        if (columns.keySet().containsAll(attributes) || columns.size() >= maxColumnCount) {
+            return;
+        }
+        lock.readLock().unlock();
+
+        lock.writeLock().lock();
+        try {
+            for (String attribute : attributes) {
+                if (columns.containsKey(attribute) || columns.size() >= maxColumnCount) {
+                    continue;
+                }
+                Integer hits = attributeHits.get(attribute);
+                hits = hits == null ? 1 : hits + 1;
+                if (hits < COLUMN_CREATION_THRESHOLD) {
+                    attributeHits.put(attribute, hits);
+                } else {
+                    attributeHits.remove(attribute);
+                    columns.put(attribute, createColumn(attribute));
+                }
+            }
+            // downgrade to the read lock
+            lock.readLock().lock();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private PrimitiveColumn createColumn(String attribute) {
+        PrimitiveColumn column = new PrimitiveColumn(records.length);
+        for (int i = 0; i < liveSlots.length && column.isValid(); ++i) {
+            long word = liveSlots[i];
+            while (word != 0) {
+                int slot = i << 6 | Long.numberOfTrailingZeros(word);
+                Record record = records[slot];
+                Object value = slot == lastUpdatedSlot ? lastUpdatedValue : record.getValue();
+                setValue(column, slot, new LazyMapEntry(record.getKey(), value, serializationService, extractors), attribute);
+                word &= word - 1;
+            }
+        }
+        return column;
+    }
+
+    private static void setValue(PrimitiveColumn column, int slot, LazyMapEntry entry, String attribute) {
+        if (!column.isValid()) {
+            return;
+        }
+        Object value;
+        try {
+            value = entry.getAttributeValue(attribute);
+        } catch (RuntimeException e) {
+            // the scans evaluating the attribute over the entries report the failure
+            column.invalidate();
+            return;
+        }
+        column.set(slot, value);
+    }
+
+    private List<Record> collectRecords(long[] slots) {
+        List<Record> matched = new ArrayList<Record>();
+        for (int i = 0; i < slots.length; ++i) {
+            long word = slots[i];
+            while (word != 0) {
+                matched.add(records[i << 6 | Long.numberOfTrailingZeros(word)]);
+                word &= word - 1;
+            }
+        }
+        return matched;
+    }
+
+    private void clearLastUpdate() {
+        lastUpdatedSlot = -1;
+        lastUpdatedValue = null;
+    }
+
+    private void reset() {
+        slotsByKey.clear();
+        columns.clear();
+        attributeHits.clear();
+        records = new Record[INITIAL_CAPACITY];
+        liveSlots = new long[PrimitiveColumn.wordCount(INITIAL_CAPACITY)];
+        freeSlots = new int[INITIAL_CAPACITY];
+        freeSlotCount = 0;
+        slotCount = 0;
+        clearLastUpdate();
+    }
+
+    private static long count(long[] slots) {
+        long count = 0;
+        for (long word : slots) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    private static AttributeType typeOf(Class<? extends Number> type) {
+        if (type == Long.class) {
+            return AttributeType.LONG;
+        } else if (type == Double.class) {
+            return AttributeType.DOUBLE;
+        } else {
+            return null;
+        }
+    }
+
+    /**
+     * The result of a columnar scan: the records matching the evaluated part
+     * of the predicate and the residual part to evaluate over them.
+     */
+    public static final class Scan {
+
+        private final List<Record> records;
+        private final Predicate residualPredicate;
+
+        Scan(List<Record> records, Predicate residualPredicate) {
+            this.records = records;
+            this.residualPredicate = residualPredicate;
+        }
+
+        /**
+         * @return the records matching the evaluated part of the predicate.
+         */
+        public List<Record> getRecords() {
+            return records;
+        }
+
+        /**
+         * @return the part of the predicate to evaluate over the {@link
+         * #getRecords records} or {@code null} if the whole predicate was
+         * evaluated.
+         */
+        public Predicate getResidualPredicate() {
+            return residualPredicate;
+        }
+
+    }
+
+}
@@ -33,6 +33,7 @@ import com.hazelcast.nio.serialization.Data;
 import com.hazelcast.query.Metadata;
 import com.hazelcast.query.PagingPredicate;
 import com.hazelcast.query.Predicate;
+import com.hazelcast.query.TruePredicate;
 import com.hazelcast.query.impl.QueryableEntriesSegment;
 import com.hazelcast.query.impl.QueryableEntry;
 import com.hazelcast.query.impl.getters.Extractors;
@@ -40,6 +41,7 @@ import com.hazelcast.spi.NodeEngine;
 import com.hazelcast.spi.OperationService;
 import com.hazelcast.spi.partition.IPartitionService;
 import com.hazelcast.util.Clock;
+import com.hazelcast.util.collection.TopKSelector;
 
 import java.util.Collection;
 import java.util.Iterator;
@@ -50,6 +52,7 @@ import java.util.Map.Entry;
 
 import static com.hazelcast.query.PagingPredicateAccessor.getNearestAnchorEntry;
 import static com.hazelcast.util.SortingUtil.compareAnchor;
+import static com.hazelcast.util.SortingUtil.newTopKSelector;
 
 /**
  * Responsible for running a full-partition scan for a single partition in the calling thread.
@@ -74,17 +77,50 @@ public class PartitionScanRunner {
         this.clusterService = nodeEngine.getClusterService();
     }
 
-    @SuppressWarnings("unchecked")
+    @SuppressWarnings({"unchecked", "checkstyle:methodlength", "checkstyle:cyclomaticcomplexity",
+            "checkstyle:npathcomplexity"})
     public void run(String mapName, Predicate predicate, int partitionId, Result result) {
         PagingPredicate pagingPredicate = predicate instanceof PagingPredicate ? (PagingPredicate) predicate : null;
 
         PartitionContainer partitionContainer = mapServiceContext.getPartitionContainer(partitionId);
         MapContainer mapContainer = mapServiceContext.getMapContainer(mapName);
         RecordStore recordStore = partitionContainer.getRecordStore(mapName);
-        Iterator<Record> iterator = recordStore.loadAwareIterator(getNow(), false);
+        Extractors extractors = mapServiceContext.getExtractors(mapName);
+        QueryResultCache.Recorder recorder = null;
+        QueryResultCache queryResultCache = pagingPredicate == null && QueryResultCache.isCacheable(predicate)
+                ? getQueryResultCache(mapContainer, recordStore, partitionId) : null;
+        if (queryResultCache != null) {
+            recordStore.checkIfLoaded();
+            if (queryResultCache.replay(predicate, recordStore, result, serializationService, extractors)) {
+                return;
+            }
+            recorder = queryResultCache.startRecording(predicate, recordStore);
+        }
+        ColumnarScanCache columnarScanCache = getColumnarScanCache(mapContainer, recordStore, partitionId);
+        Iterator<Record> iterator = null;
+        Predicate filter = predicate;
+        if (columnarScanCache != null) {
+            if (pagingPredicate == null && result instanceof AggregationResult) {
+                recordStore.checkIfLoaded();
+                if (columnarScanCache.aggregate(predicate, ((AggregationResult) result).getAggregator())) {
+                    return;
+                }
+            }
+            ColumnarScanCache.Scan scan = columnarScanCache.scan(getScannedPredicate(predicate, pagingPredicate));
+            if (scan != null) {
+                recordStore.checkIfLoaded();
+                iterator = scan.getRecords().iterator();
+                filter = scan.getResidualPredicate();
+            }
+        }
+        if (iterator == null) {
+            iterator = recordStore.loadAwareIterator(getNow(), false);
+        }
         Map.Entry<Integer, Map.Entry> nearestAnchorEntry = getNearestAnchorEntry(pagingPredicate);
         boolean useCachedValues = isUseCachedDeserializedValuesEnabled(mapContainer, partitionId);
-        Extractors extractors = mapServiceContext.getExtractors(mapName);
+        // the paged queries keep only the leading entries of the partition
+        TopKSelector<QueryableEntry> selector =
+                pagingPredicate == null ? null : newTopKSelector(pagingPredicate, nearestAnchorEntry);
         LazyMapEntry queryEntry = new LazyMapEntry();
         while (iterator.hasNext()) {
             Record record = iterator.next();
@@ -98,18 +134,73 @@ public class PartitionScanRunner {
 
             queryEntry.init(serializationService, key, value, extractors);
             queryEntry.setMetadata(metadata);
-            boolean valid = predicate.apply(queryEntry);
-            if (valid && compareAnchor(pagingPredicate, queryEntry, nearestAnchorEntry)) {
+            boolean valid = filter == null || filter.apply(queryEntry);
+            if (!valid || !compareAnchor(pagingPredicate, queryEntry, nearestAnchorEntry)) {
+                continue;
+            }
+            if (selector != null) {
+                // The entry discarded by the selector, if any, is no longer
+                // referenced and can be reused.
+                LazyMapEntry discarded = (LazyMapEntry) selector.offer(queryEntry);
+                queryEntry = discarded == null ? new LazyMapEntry() : discarded;
+            } else {
                 result.add(queryEntry);
+                if (recorder != null) {
+                    recorder.record(key, value, metadata);
+                }
 
                 // We can't reuse the existing entry after it was added to the
                 // result. Allocate the new one.
                 queryEntry = new LazyMapEntry();
             }
         }
+        if (selector != null) {
+            for (QueryableEntry entry : selector.toSortedList()) {
+                result.add(entry);
+            }
+        }
+        if (recorder != null) {
+            recorder.finish();
+        }
         result.orderAndLimit(pagingPredicate, nearestAnchorEntry);
     }
 
+    /**
+     * Returns the columnar scan cache of the given partition or {@code null}
+     * if the partition must be scanned record by record. The cache tracks
+     * neither the expiration nor the loading of the records, so it's used only
+     * for the record stores without the expiration and only after the
+     * records are loaded.
+     */
+    protected ColumnarScanCache getColumnarScanCache(MapContainer mapContainer, RecordStore recordStore,
+                                                     int partitionId) {
+        if (recordStore.isExpirable()) {
+            return null;
+        }
+        return mapContainer.getColumnarScanCache(partitionId);
+    }
+
+    /**
+     * Returns the query result cache of the given partition or {@code null}
+     * if the partition must be scanned. The cached results don't track the
+     * expiration of the records, so the cache is used only for the record
+     * stores without the expiration.
+     */
+    protected QueryResultCache getQueryResultCache(MapContainer mapContainer, RecordStore recordStore, int partitionId) {
+        if (recordStore.isExpirable()) {
+            return null;
+        }
+        return mapContainer.getQueryResultCache(partitionId);
+    }
+
+    private static Predicate getScannedPredicate(Predicate predicate, PagingPredicate pagingPredicate) {
+        if (pagingPredicate == null) {
+            return predicate;
+        }
+        Predicate innerPredicate = pagingPredicate.getPredicate();
+        return innerPredicate == null ? TruePredicate.INSTANCE : innerPredicate;
+    }
+
     // overridden in ee
     protected Metadata getMetadataFromRecord(RecordStore recordStore, Record record) {
         return record.getMetadata();
@@ -0,0 +1,224 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.map.impl.query;
+
+import com.hazelcast.internal.serialization.InternalSerializationService;
+import com.hazelcast.map.impl.LazyMapEntry;
+import com.hazelcast.map.impl.recordstore.RecordStore;
+import com.hazelcast.nio.serialization.Data;
+import com.hazelcast.query.Metadata;
+import com.hazelcast.query.PagingPredicate;
+import com.hazelcast.query.Predicate;
+import com.hazelcast.query.impl.getters.Extractors;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Caches the results of the full scans of a single map partition per
+ * predicate.
+ * <p>
+ * A cached result consists of the keys and the values of the entries
+ * matched by the predicate. It's tagged with the record store it was
+ * produced from and with the {@link RecordStore#getMutationStamp() mutation
+ * stamp} the record store had when the scan started, and it's used only
+ * while the record store is the same and its stamp didn't change, i.e.
+ * while no entry of the partition was modified. A result is not cached at
+ * all if the partition was modified while it was scanned.
+ * <p>
+ * The projections and the aggregations are not cached: the cached entries
+ * are replayed into the result of a query, which applies them, so the same
+ * cached scan serves all the queries sharing the predicate.
+ * <p>
+ * The scans may be run by the query threads concurrently, the accesses to
+ * the cache are synchronized. At most the given number of the results is
+ * cached, the least recently used results are discarded first.
+ */
+public final class QueryResultCache {
+
+    private static final int INITIAL_CAPACITY = 16;
+    private static final float LOAD_FACTOR = 0.75f;
+
+    private static final ConcurrentMap<Class, Boolean> CACHEABLE_PREDICATE_CLASSES
+            = new ConcurrentHashMap<Class, Boolean>();
+
+    private final Map<Predicate, CachedResult> results;
+
+    public QueryResultCache(final int capacity) {
+        this.results = new LinkedHashMap<Predicate, CachedResult>(INITIAL_CAPACITY, LOAD_FACTOR, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Predicate, CachedResult> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Returns {@code true} if the results of the given predicate may be
+     * cached, {@code false} otherwise. The predicates are the keys of the
+     * cache, so only the predicates having the value-based equality are
+     * cacheable; the paging predicates are stateful and never cacheable.
+     *
+     * @param predicate the predicate to check.
+     */
+    public static boolean isCacheable(Predicate predicate) {
+        if (predicate == null || predicate instanceof PagingPredicate) {
+            return false;
+        }
+        Class<?> predicateClass = predicate.getClass();
+        Boolean cacheable = CACHEABLE_PREDICATE_CLASSES.get(predicateClass);
+        if (cacheable == null) {
+            cacheable = declaresEquals(predicateClass);
+            CACHEABLE_PREDICATE_CLASSES.putIfAbsent(predicateClass, cacheable);
+        }
+        return cacheable;
+    }
+
+    /**
+     * Adds the entries cached for the given predicate to the given result.
+     *
+     * @param predicate   the predicate to add the matched entries of.
+     * @param recordStore the record store of the partition being queried.
+     * @return {@code true} if a valid result was cached and its entries were
+     * added to the given result, {@code false} if the partition must be
+     * scanned.
+     */
+    public boolean replay(Predicate predicate, RecordStore recordStore, Result result,
+                          InternalSerializationService serializationService, Extractors extractors) {
+        CachedResult cachedResult;
+        synchronized (results) {
+            cachedResult = results.get(predicate);
+            if (cachedResult == null) {
+                return false;
+            }
+            if (!cachedResult.isValidFor(recordStore)) {
+                results.remove(predicate);
+                return false;
+            }
+        }
+
+        for (int i = 0; i < cachedResult.keys.length; ++i) {
+            LazyMapEntry entry = new LazyMapEntry(cachedResult.keys[i], cachedResult.values[i], serializationService,
+                    extractors);
+            entry.setMetadata(cachedResult.metadata[i]);
+            result.add(entry);
+        }
+        return true;
+    }
+
+    /**
+     * Starts recording the result of a scan of the given record store for the
+     * given predicate. Expected to be invoked before the scan starts.
+     *
+     * @param predicate   the predicate of the scan.
+     * @param recordStore the record store being scanned.
+     * @return the recorder of the matched entries.
+     */
+    public Recorder startRecording(Predicate predicate, RecordStore recordStore) {
+        return new Recorder(predicate, recordStore);
+    }
+
+    /**
+     * @return the number of the results cached.
+     */
+    public int size() {
+        synchronized (results) {
+            return results.size();
+        }
+    }
+
+    private static boolean declaresEquals(Class<?> predicateClass) {
+        try {
+            return predicateClass.getMethod("equals", Object.class).getDeclaringClass() != Object.class;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Records the entries matched by a scan of a partition.
+     */
+    public final class Recorder {
+
+        private final Predicate predicate;
+        private final RecordStore recordStore;
+        private final long mutationStamp;
+
+        private final List<Data> keys = new ArrayList<Data>();
+        private final List<Object> values = new ArrayList<Object>();
+        private final List<Metadata> metadata = new ArrayList<Metadata>();
+
+        private Recorder(Predicate predicate, RecordStore recordStore) {
+            this.predicate = predicate;
+            this.recordStore = recordStore;
+            this.mutationStamp = recordStore.getMutationStamp();
+        }
+
+        /**
+         * Records the given matched entry.
+         */
+        public void record(Data key, Object value, Metadata metadata) {
+            keys.add(key);
+            values.add(value);
+            this.metadata.add(metadata);
+        }
+
+        /**
+         * Caches the recorded result if the record store wasn't modified since
+         * the recording started. Expected to be invoked after the scan is
+         * finished.
+         */
+        public void finish() {
+            if (recordStore.getMutationStamp() != mutationStamp) {
+                return;
+            }
+            CachedResult cachedResult = new CachedResult(recordStore, mutationStamp, keys.toArray(new Data[0]),
+                    values.toArray(), metadata.toArray(new Metadata[0]));
+            synchronized (results) {
+                results.put(predicate, cachedResult);
+            }
+        }
+
+    }
+
+    private static final class CachedResult {
+
+        final RecordStore recordStore;
+        final long mutationStamp;
+        final Data[] keys;
+        final Object[] values;
+        final Metadata[] metadata;
+
+        CachedResult(RecordStore recordStore, long mutationStamp, Data[] keys, Object[] values, Metadata[] metadata) {
+            this.recordStore = recordStore;
+            this.mutationStamp = mutationStamp;
+            this.keys = keys;
+            this.values = values;
+            this.metadata = metadata;
+        }
+
+        boolean isValidFor(RecordStore recordStore) {
+            return this.recordStore == recordStore && mutationStamp == recordStore.getMutationStamp();
+        }
+
+    }
+
+}
@@ -34,6 +34,7 @@ import com.hazelcast.spi.OperationService;
 import java.util.Collection;
 import java.util.List;
 
+import static com.hazelcast.config.InMemoryFormat.NATIVE;
 import static java.util.Collections.singletonList;
 
 /**
@@ -118,7 +119,11 @@ public class QueryRunner {
         Collection<QueryableEntry> entries = runUsingGlobalIndexSafely(predicate, mapContainer, migrationStamp);
 
         Result result;
-        if (entries == null) {
+        if (entries == null && mapContainer.getMapConfig().getInMemoryFormat() == NATIVE) {
+            // native records may only be read on their partition threads,
+            // an empty result makes the caller fall back to partition scans
+            result = populateEmptyResult(query, initialPartitions);
+        } else if (entries == null) {
             result = runUsingPartitionScanSafely(query, predicate, initialPartitions, migrationStamp);
             if (result == null) {
                 // full scan didn't work, returning empty result
@@ -0,0 +1,336 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.map.impl.record;
+
+import com.hazelcast.internal.memory.MemoryAccessor;
+import com.hazelcast.nio.serialization.Data;
+import com.hazelcast.query.Metadata;
+import com.hazelcast.util.Clock;
+
+import static com.hazelcast.map.impl.record.AbstractRecord.EPOCH_TIME;
+import static com.hazelcast.nio.Bits.INT_SIZE_IN_BYTES;
+import static com.hazelcast.nio.Bits.LONG_SIZE_IN_BYTES;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+/**
+ * Flyweight {@link Record} whose state lives entirely in a native memory block
+ * allocated by {@link NativeRecordFactory}. Instances are cheap, short-lived views
+ * which are created on every lookup; the key and value are copied on-heap lazily
+ * and cached for the lifetime of the view.
+ * <p>
+ * Layout of the record block:
+ * <pre>
+ * +--------------------+------+
+ * | next record        | long |
+ * | key hash           | long |
+ * | value address      | long |
+ * | version            | long |
+ * | hits               | long |
+ * | sequence           | long |
+ * | ttl                | int  |
+ * | max idle           | int  |
+ * | last access time   | int  |
+ * | last update time   | int  |
+ * | creation time      | int  |
+ * | expiration time    | int  |
+ * | last stored time   | int  |
+ * | key size           | int  |
+ * | key bytes          | ...  |
+ * +--------------------+------+
+ * </pre>
+ * The value block is a length-prefixed copy of the serialized value. Times are
+ * kept in seconds relative to {@link AbstractRecord#EPOCH_TIME}, like the on-heap records do.
+ * Native records always keep the statistics the on-heap records keep only when statistics are
+ * enabled, such as the expiration and last stored times.
+ * <p>
+ * A native record may only be accessed from the partition thread owning it.
+ */
+@SuppressWarnings("checkstyle:methodcount")
+public final class NativeRecord implements Record<Data> {
+
+    static final int NEXT_OFFSET = 0;
+    static final int KEY_HASH_OFFSET = NEXT_OFFSET + LONG_SIZE_IN_BYTES;
+    static final int VALUE_ADDRESS_OFFSET = KEY_HASH_OFFSET + LONG_SIZE_IN_BYTES;
+    static final int VERSION_OFFSET = VALUE_ADDRESS_OFFSET + LONG_SIZE_IN_BYTES;
+    static final int HITS_OFFSET = VERSION_OFFSET + LONG_SIZE_IN_BYTES;
+    static final int SEQUENCE_OFFSET = HITS_OFFSET + LONG_SIZE_IN_BYTES;
+    static final int TTL_OFFSET = SEQUENCE_OFFSET + LONG_SIZE_IN_BYTES;
+    static final int MAX_IDLE_OFFSET = TTL_OFFSET + INT_SIZE_IN_BYTES;
+    static final int LAST_ACCESS_TIME_OFFSET = MAX_IDLE_OFFSET + INT_SIZE_IN_BYTES;
+    static final int LAST_UPDATE_TIME_OFFSET = LAST_ACCESS_TIME_OFFSET + INT_SIZE_IN_BYTES;
+    static final int CREATION_TIME_OFFSET = LAST_UPDATE_TIME_OFFSET + INT_SIZE_IN_BYTES;
+    static final int EXPIRATION_TIME_OFFSET = CREATION_TIME_OFFSET + INT_SIZE_IN_BYTES;
+    static final int LAST_STORED_TIME_OFFSET = EXPIRATION_TIME_OFFSET + INT_SIZE_IN_BYTES;
+    static final int KEY_SIZE_OFFSET = LAST_STORED_TIME_OFFSET + INT_SIZE_IN_BYTES;
+    static final int KEY_OFFSET = KEY_SIZE_OFFSET + INT_SIZE_IN_BYTES;
+
+    static final int HEADER_SIZE = KEY_OFFSET;
+    static final int VALUE_HEADER_SIZE = INT_SIZE_IN_BYTES;
+
+    private final NativeRecordFactory factory;
+    private final long address;
+
+    private Data key;
+    private Data value;
+
+    NativeRecord(NativeRecordFactory factory, long address) {
+        this.factory = factory;
+        this.address = address;
+    }
+
+    /**
+     * @return base address of the native block backing this record
+     */
+    public long address() {
+        return address;
+    }
+
+    @Override
+    public Data getKey() {
+        if (key == null) {
+            key = factory.readKey(address);
+        }
+        return key;
+    }
+
+    @Override
+    public void setKey(Data key) {
+        assert key.totalSize() == mem().getInt(address + KEY_SIZE_OFFSET)
+                : "Native record key cannot be replaced with a different key";
+        this.key = key;
+    }
+
+    @Override
+    public Data getValue() {
+        if (value == null) {
+            value = factory.readValue(mem().getLong(address + VALUE_ADDRESS_OFFSET));
+        }
+        return value;
+    }
+
+    /**
+     * Replaces the value block of this record. The old value block is freed
+     * only once the running operation completes, it may still be read.
+     */
+    @Override
+    public void setValue(Data value) {
+        long oldValueAddress = mem().getLong(address + VALUE_ADDRESS_OFFSET);
+        mem().putLong(address + VALUE_ADDRESS_OFFSET, factory.writeValue(value));
+        factory.deferFreeValue(oldValueAddress);
+        this.value = value;
+    }
+
+    @Override
+    public void onAccess(long now) {
+        setHits(getHits() + 1);
+        mem().putInt(address + LAST_ACCESS_TIME_OFFSET, stripBaseTime(now));
+    }
+
+    @Override
+    public void onUpdate(long now) {
+        setVersion(getVersion() + 1);
+        mem().putInt(address + LAST_UPDATE_TIME_OFFSET, stripBaseTime(now));
+    }
+
+    @Override
+    public void onStore() {
+        setLastStoredTime(Clock.currentTimeMillis());
+    }
+
+    /**
+     * Returns the number of native memory bytes used by this record,
+     * including its key and value blocks.
+     */
+    @Override
+    public long getCost() {
+        long valueAddress = mem().getLong(address + VALUE_ADDRESS_OFFSET);
+        return factory.recordBlockSize(address) + factory.valueBlockSize(valueAddress);
+    }
+
+    @Override
+    public long getVersion() {
+        return mem().getLong(address + VERSION_OFFSET);
+    }
+
+    @Override
+    public void setVersion(long version) {
+        mem().putLong(address + VERSION_OFFSET, version);
+    }
+
+    @Override
+    public Object getCachedValueUnsafe() {
+        return Record.NOT_CACHED;
+    }
+
+    @Override
+    public boolean casCachedValue(Object expectedValue, Object newValue) {
+        return true;
+    }
+
+    @Override
+    public long getTtl() {
+        int ttl = mem().getInt(address + TTL_OFFSET);
+        return ttl == Integer.MAX_VALUE ? Long.MAX_VALUE : SECONDS.toMillis(ttl);
+    }
+
+    @Override
+    public void setTtl(long ttl) {
+        mem().putInt(address + TTL_OFFSET, toSeconds(ttl));
+    }
+
+    @Override
+    public long getMaxIdle() {
+        int maxIdle = mem().getInt(address + MAX_IDLE_OFFSET);
+        return maxIdle == Integer.MAX_VALUE ? Long.MAX_VALUE : SECONDS.toMillis(maxIdle);
+    }
+
+    @Override
+    public void setMaxIdle(long maxIdle) {
+        mem().putInt(address + MAX_IDLE_OFFSET, toSeconds(maxIdle));
+    }
+
+    @Override
+    public long getLastAccessTime() {
+        return recomputeWithBaseTime(mem().getInt(address + LAST_ACCESS_TIME_OFFSET));
+    }
+
+    @Override
+    public void setLastAccessTime(long lastAccessTime) {
+        mem().putInt(address + LAST_ACCESS_TIME_OFFSET, stripBaseTime(lastAccessTime));
+    }
+
+    @Override
+    public long getLastUpdateTime() {
+        return recomputeWithBaseTime(mem().getInt(address + LAST_UPDATE_TIME_OFFSET));
+    }
+
+    @Override
+    public void setLastUpdateTime(long lastUpdateTime) {
+        mem().putInt(address + LAST_UPDATE_TIME_OFFSET, stripBaseTime(lastUpdateTime));
+    }
+
+    @Override
+    public long getCreationTime() {
+        return recomputeWithBaseTime(mem().getInt(address + CREATION_TIME_OFFSET));
+    }
+
+    @Override
+    public void setCreationTime(long creationTime) {
+        mem().putInt(address + CREATION_TIME_OFFSET, stripBaseTime(creationTime));
+    }
+
+    @Override
+    public long getHits() {
+        return mem().getLong(address + HITS_OFFSET);
+    }
+
+    @Override
+    public void setHits(long hits) {
+        mem().putLong(address + HITS_OFFSET, hits);
+    }
+
+    @Override
+    public long getExpirationTime() {
+        int expirationTime = mem().getInt(address + EXPIRATION_TIME_OFFSET);
+        return expirationTime == Integer.MAX_VALUE ? Long.MAX_VALUE : recomputeWithBaseTime(expirationTime);
+    }
+
+    @Override
+    public void setExpirationTime(long expirationTime) {
+        mem().putInt(address + EXPIRATION_TIME_OFFSET,
+                expirationTime == Long.MAX_VALUE ? Integer.MAX_VALUE : stripBaseTime(expirationTime));
+    }
+
+    @Override
+    public long getLastStoredTime() {
+        return recomputeWithBaseTime(mem().getInt(address + LAST_STORED_TIME_OFFSET));
+    }
+
+    @Override
+    public void setLastStoredTime(long lastStoredTime) {
+        mem().putInt(address + LAST_STORED_TIME_OFFSET, stripBaseTime(lastStoredTime));
+    }
+
+    @Override
+    public long getSequence() {
+        return mem().getLong(address + SEQUENCE_OFFSET);
+    }
+
+    @Override
+    public void setSequence(long sequence) {
+        mem().putLong(address + SEQUENCE_OFFSET, sequence);
+    }
+
+    @Override
+    public void setMetadata(Metadata metadata) {
+        factory.setMetadata(address, metadata);
+    }
+
+    @Override
+    public Metadata getMetadata() {
+        return factory.getMetadata(address);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        return address == ((NativeRecord) o).address;
+    }
+
+    @Override
+    public int hashCode() {
+        return (int) (address ^ (address >>> 32));
+    }
+
+    @Override
+    public String toString() {
+        return "NativeRecord{address=" + address + '}';
+    }
+
+    private MemoryAccessor mem() {
+        return factory.mem();
+    }
+
+    private static int toSeconds(long millis) {
+        long seconds = MILLISECONDS.toSeconds(millis);
+        if (seconds == 0 && millis != 0) {
+            seconds = 1;
+        }
+        return seconds > Integer.MAX_VALUE ? Integer.MAX_VALUE : (int) seconds;
+    }
+
+    private static long recomputeWithBaseTime(int value) {
+        if (value == NOT_AVAILABLE) {
+            return 0L;
+        }
+        return SECONDS.toMillis(value) + EPOCH_TIME;
+    }
+
+    private static int stripBaseTime(long value) {
+        int diff = NOT_AVAILABLE;
+        if (value > 0) {
+            diff = (int) MILLISECONDS.toSeconds(value - EPOCH_TIME);
+        }
+        return diff;
+    }
+}
@@ -0,0 +1,274 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.map.impl.record;
+
+import com.hazelcast.core.PartitioningStrategy;
+import com.hazelcast.internal.memory.MemoryAccessor;
+import com.hazelcast.internal.memory.MemoryAllocator;
+import com.hazelcast.internal.memory.MemoryManager;
+import com.hazelcast.internal.serialization.impl.HeapData;
+import com.hazelcast.memory.NativeOutOfMemoryError;
+import com.hazelcast.nio.serialization.Data;
+import com.hazelcast.query.Metadata;
+import com.hazelcast.spi.serialization.SerializationService;
+import com.hazelcast.util.collection.Long2ObjectHashMap;
+
+import static com.hazelcast.internal.memory.MemoryAllocator.NULL_ADDRESS;
+import static com.hazelcast.map.impl.record.NativeRecord.CREATION_TIME_OFFSET;
+import static com.hazelcast.map.impl.record.NativeRecord.EXPIRATION_TIME_OFFSET;
+import static com.hazelcast.map.impl.record.NativeRecord.HEADER_SIZE;
+import static com.hazelcast.map.impl.record.NativeRecord.KEY_HASH_OFFSET;
+import static com.hazelcast.map.impl.record.NativeRecord.KEY_OFFSET;
+import static com.hazelcast.map.impl.record.NativeRecord.KEY_SIZE_OFFSET;
+import static com.hazelcast.map.impl.record.NativeRecord.LAST_ACCESS_TIME_OFFSET;
+import static com.hazelcast.map.impl.record.NativeRecord.LAST_STORED_TIME_OFFSET;
+import static com.hazelcast.map.impl.record.NativeRecord.LAST_UPDATE_TIME_OFFSET;
+import static com.hazelcast.map.impl.record.NativeRecord.NEXT_OFFSET;
+import static com.hazelcast.map.impl.record.NativeRecord.SEQUENCE_OFFSET;
+import static com.hazelcast.map.impl.record.NativeRecord.VALUE_ADDRESS_OFFSET;
+import static com.hazelcast.map.impl.record.NativeRecord.VALUE_HEADER_SIZE;
+import static com.hazelcast.map.impl.record.Record.NOT_AVAILABLE;
+
+/**
+ * Creates {@link NativeRecord}s for maps with {@link com.hazelcast.config.InMemoryFormat#NATIVE}
+ * in-memory format and owns the layout of their native blocks. Like every {@link RecordFactory}
+ * it is created per record store, so it is only ever accessed by a single partition thread.
+ * <p>
+ * Record blocks are allocated eagerly in {@link #newRecord(Data, Object)} and must be released
+ * with {@link #free(long)} by the storage once the record is removed. Blocks which the running
+ * operation may still read, the ones of removed records and replaced values, are released with
+ * {@link #deferFree(long)} instead and freed on {@link #disposeDeferredBlocks()}.
+ */
+public class NativeRecordFactory implements RecordFactory<Data> {
+
+    private static final int INITIAL_DEFERRED_CAPACITY = 16;
+
+    private final SerializationService serializationService;
+    private final PartitioningStrategy partitionStrategy;
+    private final MemoryAllocator malloc;
+    private final MemoryAccessor mem;
+    /**
+     * JSON metadata is an on-heap object graph, so it is kept aside, keyed by record address.
+     */
+    private final Long2ObjectHashMap<Metadata> metadataByAddress = new Long2ObjectHashMap<Metadata>();
+
+    private long[] deferredRecords = new long[INITIAL_DEFERRED_CAPACITY];
+    private int deferredRecordCount;
+    private long[] deferredValues = new long[INITIAL_DEFERRED_CAPACITY];
+    private int deferredValueCount;
+
+    public NativeRecordFactory(SerializationService serializationService, PartitioningStrategy partitionStrategy,
+                               MemoryManager memoryManager) {
+        this.serializationService = serializationService;
+        this.partitionStrategy = partitionStrategy;
+        this.malloc = memoryManager.getAllocator();
+        this.mem = memoryManager.getAccessor();
+    }
+
+    @Override
+    public Record<Data> newRecord(Data key, Object value) {
+        assert value != null : "value can not be null";
+
+        Data data = serializationService.toData(value, partitionStrategy);
+        int keySize = key.totalSize();
+        long address = malloc.allocate(HEADER_SIZE + keySize);
+        try {
+            mem.putLong(address + VALUE_ADDRESS_OFFSET, writeValue(data));
+        } catch (NativeOutOfMemoryError e) {
+            malloc.free(address, HEADER_SIZE + keySize);
+            throw e;
+        }
+        mem.putLong(address + KEY_HASH_OFFSET, keyHash(key));
+        mem.putLong(address + SEQUENCE_OFFSET, NOT_AVAILABLE);
+        mem.putInt(address + LAST_ACCESS_TIME_OFFSET, NOT_AVAILABLE);
+        mem.putInt(address + LAST_UPDATE_TIME_OFFSET, NOT_AVAILABLE);
+        mem.putInt(address + CREATION_TIME_OFFSET, NOT_AVAILABLE);
+        mem.putInt(address + EXPIRATION_TIME_OFFSET, NOT_AVAILABLE);
+        mem.putInt(address + LAST_STORED_TIME_OFFSET, NOT_AVAILABLE);
+        mem.putInt(address + KEY_SIZE_OFFSET, keySize);
+        mem.copyFromByteArray(key.toByteArray(), 0, address + KEY_OFFSET, keySize);
+
+        NativeRecord record = new NativeRecord(this, address);
+        record.setKey(key);
+        return record;
+    }
+
+    @Override
+    public void setValue(Record<Data> record, Object value) {
+        assert value != null : "value can not be null";
+
+        final Data v;
+        if (value instanceof Data) {
+            v = (Data) value;
+        } else {
+            v = serializationService.toData(value, partitionStrategy);
+        }
+        record.setValue(v);
+    }
+
+    /**
+     * Creates a record view over an existing record block.
+     */
+    public NativeRecord wrap(long address) {
+        assert address != NULL_ADDRESS;
+        return new NativeRecord(this, address);
+    }
+
+    /**
+     * Releases the record block at the given address together with its value block.
+     */
+    public void free(long address) {
+        freeValue(mem.getLong(address + VALUE_ADDRESS_OFFSET));
+        if (!metadataByAddress.isEmpty()) {
+            metadataByAddress.remove(address);
+        }
+        malloc.free(address, recordBlockSize(address));
+    }
+
+    /**
+     * Releases the record block at the given address together with its value
+     * block on the next {@link #disposeDeferredBlocks()}.
+     */
+    public void deferFree(long address) {
+        if (deferredRecordCount == deferredRecords.length) {
+            deferredRecords = grow(deferredRecords);
+        }
+        deferredRecords[deferredRecordCount++] = address;
+    }
+
+    /**
+     * Releases the blocks passed to {@link #deferFree(long)} and the value
+     * blocks replaced since the last call.
+     */
+    public void disposeDeferredBlocks() {
+        for (int i = 0; i < deferredRecordCount; i++) {
+            free(deferredRecords[i]);
+        }
+        deferredRecordCount = 0;
+        for (int i = 0; i < deferredValueCount; i++) {
+            freeValue(deferredValues[i]);
+        }
+        deferredValueCount = 0;
+    }
+
+    /**
+     * Returns the hash under which a record with the given key is stored.
+     */
+    public static long keyHash(Data key) {
+        return key.hash64();
+    }
+
+    public long keyHashOf(long address) {
+        return mem.getLong(address + KEY_HASH_OFFSET);
+    }
+
+    /**
+     * Returns the address of the next record in the same hash chain, used by
+     * storages to chain records whose key hashes collide.
+     */
+    public long nextOf(long address) {
+        return mem.getLong(address + NEXT_OFFSET);
+    }
+
+    public void setNext(long address, long next) {
+        mem.putLong(address + NEXT_OFFSET, next);
+    }
+
+    /**
+     * Compares the given key with the key of the record block without copying it on-heap.
+     */
+    public boolean keyEquals(long address, Data key) {
+        int keySize = mem.getInt(address + KEY_SIZE_OFFSET);
+        if (keySize != key.totalSize()) {
+            return false;
+        }
+        byte[] keyBytes = key.toByteArray();
+        long keyAddress = address + KEY_OFFSET;
+        for (int i = 0; i < keySize; i++) {
+            if (mem.getByte(keyAddress + i) != keyBytes[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    MemoryAccessor mem() {
+        return mem;
+    }
+
+    Data readKey(long address) {
+        byte[] bytes = new byte[mem.getInt(address + KEY_SIZE_OFFSET)];
+        mem.copyToByteArray(address + KEY_OFFSET, bytes, 0, bytes.length);
+        return new HeapData(bytes);
+    }
+
+    Data readValue(long valueAddress) {
+        byte[] bytes = new byte[mem.getInt(valueAddress)];
+        mem.copyToByteArray(valueAddress + VALUE_HEADER_SIZE, bytes, 0, bytes.length);
+        return new HeapData(bytes);
+    }
+
+    long writeValue(Data value) {
+        int size = value.totalSize();
+        long valueAddress = malloc.allocate(VALUE_HEADER_SIZE + size);
+        mem.putInt(valueAddress, size);
+        mem.copyFromByteArray(value.toByteArray(), 0, valueAddress + VALUE_HEADER_SIZE, size);
+        return valueAddress;
+    }
+
+    void freeValue(long valueAddress) {
+        if (valueAddress != NULL_ADDRESS) {
+            malloc.free(valueAddress, valueBlockSize(valueAddress));
+        }
+    }
+
+    void deferFreeValue(long valueAddress) {
+        if (valueAddress == NULL_ADDRESS) {
+            return;
+        }
+        if (deferredValueCount == deferredValues.length) {
+            deferredValues = grow(deferredValues);
+        }
+        deferredValues[deferredValueCount++] = valueAddress;
+    }
+
+    long recordBlockSize(long address) {
+        return HEADER_SIZE + mem.getInt(address + KEY_SIZE_OFFSET);
+    }
+
+    long valueBlockSize(long valueAddress) {
+        return VALUE_HEADER_SIZE + mem.getInt(valueAddress);
+    }
+
+    void setMetadata(long address, Metadata metadata) {
+        if (metadata == null) {
+            metadataByAddress.remove(address);
+        } else {
+            metadataByAddress.put(address, metadata);
+        }
+    }
+
+    Metadata getMetadata(long address) {
+        return metadataByAddress.isEmpty() ? null : metadataByAddress.get(address);
+    }
+
+    private static long[] grow(long[] addresses) {
+        long[] newAddresses = new long[addresses.length << 1];
+        System.arraycopy(addresses, 0, newAddresses, 0, addresses.length);
+        return newAddresses;
+    }
+}
@@ -26,6 +26,7 @@ import com.hazelcast.map.impl.MapService;
 import com.hazelcast.map.impl.MapServiceContext;
 import com.hazelcast.map.impl.mapstore.MapDataStore;
 import com.hazelcast.map.impl.mapstore.MapStoreContext;
+import com.hazelcast.map.impl.record.NativeRecordFactory;
 import com.hazelcast.map.impl.record.Record;
 import com.hazelcast.map.impl.record.RecordFactory;
 import com.hazelcast.map.impl.record.Records;
@@ -43,6 +44,7 @@ import com.hazelcast.wan.impl.CallerProvenance;
 import javax.annotation.Nonnull;
 import java.util.Collection;
 
+import static com.hazelcast.config.InMemoryFormat.NATIVE;
 import static com.hazelcast.map.impl.ExpirationTimeSetter.setExpirationTimes;
 
 /**
@@ -118,6 +120,10 @@ abstract class AbstractRecordStore implements RecordStore<Record> {
 
     @Override
     public Storage createStorage(RecordFactory recordFactory, InMemoryFormat memoryFormat) {
+        if (memoryFormat == NATIVE) {
+            return new NativeStorage((NativeRecordFactory) recordFactory, mapServiceContext.getNativeMemoryManager(),
+                    serializationService);
+        }
         return new StorageImpl(recordFactory, memoryFormat, serializationService);
     }
 
@@ -136,6 +142,11 @@ abstract class AbstractRecordStore implements RecordStore<Record> {
         return storage.getEntryCostEstimator().getEstimate();
     }
 
+    @Override
+    public long getMutationStamp() {
+        return storage.getMutationStamp();
+    }
+
     protected long getNow() {
         return Clock.currentTimeMillis();
     }
@@ -54,6 +54,7 @@ import com.hazelcast.spi.exception.RetryableHazelcastException;
 import com.hazelcast.spi.merge.SplitBrainMergePolicy;
 import com.hazelcast.spi.merge.SplitBrainMergeTypes.MapMergeTypes;
 import com.hazelcast.spi.partition.IPartitionService;
+import com.hazelcast.spi.properties.GroupProperty;
 import com.hazelcast.util.Clock;
 import com.hazelcast.util.CollectionUtil;
 import com.hazelcast.util.ExceptionUtil;
@@ -115,6 +116,7 @@ public class DefaultRecordStore extends AbstractEvictableRecordStore {
     private boolean loadedOnPreMigration;
 
     private final IPartitionService partitionService;
+    private final ReadThroughCoalescer readThroughCoalescer;
 
     public DefaultRecordStore(MapContainer mapContainer, int partitionId,
                               MapKeyLoader keyLoader, ILogger logger) {
@@ -124,6 +126,12 @@ public class DefaultRecordStore extends AbstractEvictableRecordStore {
         this.keyLoader = keyLoader;
         this.recordStoreLoader = createRecordStoreLoader(mapStoreContext);
         this.partitionService = mapServiceContext.getNodeEngine().getPartitionService();
+        this.readThroughCoalescer = isReadThroughCoalescing() ? new ReadThroughCoalescer(this) : null;
+    }
+
+    private boolean isReadThroughCoalescing() {
+        return mapDataStore != EMPTY_MAP_DATA_STORE
+                && mapServiceContext.getNodeEngine().getProperties().getBoolean(GroupProperty.MAP_LOAD_COALESCING_ENABLED);
     }
 
     @Override
@@ -322,27 +330,41 @@ public class DefaultRecordStore extends AbstractEvictableRecordStore {
 
     @Override
     public Record loadRecordOrNull(Data key, boolean backup, Address callerAddress) {
-        Record record = null;
         Object value = mapDataStore.load(key);
-        if (value != null) {
-            record = createRecord(key, value, DEFAULT_TTL, DEFAULT_MAX_IDLE, getNow());
-            storage.put(key, record);
-            mutationObserver.onLoadRecord(key, record);
-            if (!backup) {
-                saveIndex(record, null);
-                mapEventPublisher.publishEvent(callerAddress, name, EntryEventType.LOADED,
-                        key, null, value, null);
-            }
-            evictEntries(key);
+        return value == null ? null : putLoadedRecord(key, value, backup, callerAddress);
+    }
+
+    /**
+     * Puts the given value loaded by the {@link ReadThroughCoalescer} for the
+     * given missing key into this record store.
+     */
+    Record putLoadedRecord(Data key, Object value, Address callerAddress) {
+        return putLoadedRecord(key, value, false, callerAddress);
+    }
+
+    private Record putLoadedRecord(Data key, Object value, boolean backup, Address callerAddress) {
+        Record record = createRecord(key, value, DEFAULT_TTL, DEFAULT_MAX_IDLE, getNow());
+        storage.put(key, record);
+        mutationObserver.onLoadRecord(key, record);
+        if (!backup) {
+            saveIndex(record, null);
+            mapEventPublisher.publishEvent(callerAddress, name, EntryEventType.LOADED,
+                    key, null, value, null);
         }
+        evictEntries(key);
         // here, we are only publishing events for loaded entries. This is required for notifying query-caches
         // otherwise query-caches cannot see loaded entries
-        if (!backup && record != null && hasQueryCache()) {
+        if (!backup && hasQueryCache()) {
             addEventToQueryCache(record);
         }
         return record;
     }
 
+    @Override
+    public ReadThroughCoalescer getReadThroughCoalescer() {
+        return readThroughCoalescer;
+    }
+
     protected List<Data> getKeysFromRecords(Collection<Record> clearableRecords) {
         List<Data> keys = new ArrayList<Data>(clearableRecords.size());
         for (Record clearableRecord : clearableRecords) {
@@ -1126,6 +1148,16 @@ public class DefaultRecordStore extends AbstractEvictableRecordStore {
                 }
                 keyLoader.promoteToLoadedOnMigration();
             }
+        } else if (loadedOnCreate) {
+            // this replica may have been promoted while the previous owner was loading the partition
+            restartPartitionLoadIfNeeded();
+        }
+    }
+
+    private void restartPartitionLoadIfNeeded() {
+        Future<?> loadingFuture = keyLoader.restartPartitionLoadIfNeeded(mapStoreContext);
+        if (loadingFuture != null) {
+            loadingFutures.add(loadingFuture);
         }
     }
 
@@ -1175,6 +1207,10 @@ public class DefaultRecordStore extends AbstractEvictableRecordStore {
 
     @Override
     public void maybeDoInitialLoad() {
+        if (keyLoader.isPartitionAwareLoad()) {
+            restartPartitionLoadIfNeeded();
+            return;
+        }
         if (keyLoader.shouldDoInitialLoad()) {
             loadAll(false);
         }
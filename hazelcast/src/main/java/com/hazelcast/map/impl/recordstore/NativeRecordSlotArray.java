@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.map.impl.recordstore;
+
+import com.hazelcast.internal.memory.MemoryManager;
+import com.hazelcast.internal.util.hashslot.impl.HashSlotArray8byteKeyImpl;
+
+import static com.hazelcast.internal.memory.MemoryAllocator.NULL_ADDRESS;
+import static com.hazelcast.internal.util.hashslot.impl.CapacityUtil.DEFAULT_CAPACITY;
+import static com.hazelcast.internal.util.hashslot.impl.CapacityUtil.DEFAULT_LOAD_FACTOR;
+import static com.hazelcast.nio.Bits.LONG_SIZE_IN_BYTES;
+
+/**
+ * Hash slot array which maps the 64-bit hash of a key to the address of the first
+ * native record in the chain of records sharing that hash. In addition to the
+ * {@link com.hazelcast.internal.util.hashslot.HashSlotArray8byteKey} contract, it
+ * gives positional access to the slots so that a scan can be resumed from a slot
+ * index instead of holding on to a cursor, which would be invalidated by mutations.
+ */
+final class NativeRecordSlotArray extends HashSlotArray8byteKeyImpl {
+
+    /**
+     * The value block follows the 8-byte key and holds the chain head address.
+     */
+    private static final int VALUE_OFFSET = LONG_SIZE_IN_BYTES;
+
+    NativeRecordSlotArray(MemoryManager memoryManager) {
+        super(NULL_ADDRESS, memoryManager, LONG_SIZE_IN_BYTES, DEFAULT_CAPACITY, DEFAULT_LOAD_FACTOR);
+        gotoNew();
+    }
+
+    /**
+     * @return address of the chain head for the given key hash or {@code NULL_ADDRESS}
+     */
+    long headOf(long keyHash) {
+        long valueAddress = get(keyHash);
+        return valueAddress == NULL_ADDRESS ? NULL_ADDRESS : mem().getLong(valueAddress);
+    }
+
+    /**
+     * @return address of the chain head at the given slot or {@code NULL_ADDRESS} if the slot is unassigned
+     */
+    long headOfSlot(long slot) {
+        long baseAddress = address();
+        return isAssigned(baseAddress, slot) ? mem().getLong(slotBase(baseAddress, slot) + VALUE_OFFSET) : NULL_ADDRESS;
+    }
+
+    /**
+     * Points the slot of the given key hash to a new chain head, assigning the slot if needed.
+     */
+    void setHead(long keyHash, long head) {
+        assert head != NULL_ADDRESS;
+        mem().putLong(ensure(keyHash).address(), head);
+    }
+}
@@ -0,0 +1,399 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.map.impl.recordstore;
+
+import com.hazelcast.internal.memory.MemoryManager;
+import com.hazelcast.internal.util.ThreadLocalRandomProvider;
+import com.hazelcast.internal.util.counters.SwCounter;
+import com.hazelcast.internal.util.hashslot.HashSlotCursor8byteKey;
+import com.hazelcast.map.impl.EntryCostEstimator;
+import com.hazelcast.map.impl.iterator.MapEntriesWithCursor;
+import com.hazelcast.map.impl.iterator.MapKeysWithCursor;
+import com.hazelcast.map.impl.record.NativeRecord;
+import com.hazelcast.map.impl.record.NativeRecordFactory;
+import com.hazelcast.map.impl.record.Record;
+import com.hazelcast.nio.serialization.Data;
+import com.hazelcast.spi.serialization.SerializationService;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import static com.hazelcast.internal.memory.MemoryAllocator.NULL_ADDRESS;
+import static com.hazelcast.internal.util.counters.SwCounter.newSwCounter;
+import static com.hazelcast.map.impl.record.NativeRecordFactory.keyHash;
+
+/**
+ * {@link Storage} for {@link com.hazelcast.config.InMemoryFormat#NATIVE NATIVE} maps. Keys, values and
+ * record metadata are kept in native memory blocks (see {@link NativeRecord}) and indexed by a
+ * {@link NativeRecordSlotArray} which itself lives in native memory, so the number of heap objects
+ * does not grow with the number of entries.
+ * <p>
+ * Records returned by this storage are flyweights. Blocks of removed or replaced records and
+ * replaced values are not released immediately, since the calling operation may still read them;
+ * they are freed on {@link #disposeDeferredBlocks()}, which is invoked once the operation completes.
+ * <p>
+ * Like the record store, this storage must only be accessed from its partition thread.
+ */
+public class NativeStorage implements Storage<Data, NativeRecord> {
+
+    private final NativeRecordFactory recordFactory;
+    private final SerializationService serializationService;
+    private final NativeRecordSlotArray slots;
+    private final SwCounter mutationStamp = newSwCounter();
+
+    private int size;
+
+    // not final for testing purposes.
+    private EntryCostEstimator<Data, Record> entryCostEstimator = new NativeEntryCostEstimator();
+
+    NativeStorage(NativeRecordFactory recordFactory, MemoryManager memoryManager,
+                  SerializationService serializationService) {
+        this.recordFactory = recordFactory;
+        this.serializationService = serializationService;
+        this.slots = new NativeRecordSlotArray(memoryManager);
+    }
+
+    @Override
+    public void put(Data key, NativeRecord record) {
+        long address = record.address();
+        long keyHash = recordFactory.keyHashOf(address);
+        long head = slots.headOf(keyHash);
+
+        long previous = NULL_ADDRESS;
+        long current = head;
+        while (current != NULL_ADDRESS && !recordFactory.keyEquals(current, key)) {
+            previous = current;
+            current = recordFactory.nextOf(current);
+        }
+
+        if (current == address) {
+            return;
+        }
+        if (current == NULL_ADDRESS) {
+            recordFactory.setNext(address, head);
+            slots.setHead(keyHash, address);
+            size++;
+            updateCostEstimate(entryCostEstimator.calculateEntryCost(key, record));
+            mutationStamp.inc();
+            return;
+        }
+
+        recordFactory.setNext(address, recordFactory.nextOf(current));
+        if (previous == NULL_ADDRESS) {
+            slots.setHead(keyHash, address);
+        } else {
+            recordFactory.setNext(previous, address);
+        }
+        updateCostEstimate(-entryCostEstimator.calculateValueCost(recordFactory.wrap(current)));
+        updateCostEstimate(entryCostEstimator.calculateValueCost(record));
+        recordFactory.deferFree(current);
+        mutationStamp.inc();
+    }
+
+    @Override
+    public void updateRecordValue(Data key, NativeRecord record, Object value) {
+        updateCostEstimate(-entryCostEstimator.calculateValueCost(record));
+
+        recordFactory.setValue(record, value);
+
+        updateCostEstimate(entryCostEstimator.calculateValueCost(record));
+        mutationStamp.inc();
+    }
+
+    @Override
+    public NativeRecord get(Data key) {
+        long address = find(key);
+        return address == NULL_ADDRESS ? null : recordFactory.wrap(address);
+    }
+
+    @Override
+    public NativeRecord getIfSameKey(Data key) {
+        throw new UnsupportedOperationException("NativeStorage#getIfSameKey");
+    }
+
+    @Override
+    public void removeRecord(NativeRecord record) {
+        if (record == null) {
+            return;
+        }
+
+        long address = record.address();
+        long keyHash = recordFactory.keyHashOf(address);
+        long head = slots.headOf(keyHash);
+
+        long previous = NULL_ADDRESS;
+        long current = head;
+        while (current != NULL_ADDRESS && current != address) {
+            previous = current;
+            current = recordFactory.nextOf(current);
+        }
+        if (current == NULL_ADDRESS) {
+            return;
+        }
+
+        long next = recordFactory.nextOf(address);
+        if (previous != NULL_ADDRESS) {
+            recordFactory.setNext(previous, next);
+        } else if (next != NULL_ADDRESS) {
+            slots.setHead(keyHash, next);
+        } else {
+            slots.remove(keyHash);
+        }
+        size--;
+
+        updateCostEstimate(-entryCostEstimator.calculateEntryCost(record.getKey(), record));
+        recordFactory.deferFree(address);
+        mutationStamp.inc();
+    }
+
+    @Override
+    public boolean containsKey(Data key) {
+        return find(key) != NULL_ADDRESS;
+    }
+
+    @Override
+    public Collection<NativeRecord> values() {
+        List<NativeRecord> values = new ArrayList<NativeRecord>(size);
+        HashSlotCursor8byteKey cursor = slots.cursor();
+        while (cursor.advance()) {
+            long address = slots.headOf(cursor.key());
+            while (address != NULL_ADDRESS) {
+                values.add(recordFactory.wrap(address));
+                address = recordFactory.nextOf(address);
+            }
+        }
+        return values;
+    }
+
+    @Override
+    public Iterator<NativeRecord> mutationTolerantIterator() {
+        return new MutationTolerantIterator();
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public void clear(boolean isDuringShutdown) {
+        HashSlotCursor8byteKey cursor = slots.cursor();
+        while (cursor.advance()) {
+            long address = slots.headOf(cursor.key());
+            while (address != NULL_ADDRESS) {
+                long next = recordFactory.nextOf(address);
+                recordFactory.free(address);
+                address = next;
+            }
+        }
+        slots.clear();
+        size = 0;
+        disposeDeferredBlocks();
+
+        entryCostEstimator.reset();
+        mutationStamp.inc();
+    }
+
+    @Override
+    public void destroy(boolean isDuringShutdown) {
+        clear(isDuringShutdown);
+        slots.dispose();
+    }
+
+    @Override
+    public EntryCostEstimator getEntryCostEstimator() {
+        return entryCostEstimator;
+    }
+
+    @Override
+    public void setEntryCostEstimator(EntryCostEstimator entryCostEstimator) {
+        this.entryCostEstimator = entryCostEstimator;
+    }
+
+    @Override
+    public void disposeDeferredBlocks() {
+        recordFactory.disposeDeferredBlocks();
+    }
+
+    @Override
+    public Iterable<LazyEntryViewFromRecord> getRandomSamples(int sampleCount) {
+        if (sampleCount < 0) {
+            throw new IllegalArgumentException("Sample count cannot be a negative value.");
+        }
+        if (sampleCount == 0 || size == 0) {
+            return Collections.emptyList();
+        }
+
+        List<LazyEntryViewFromRecord> samples = new ArrayList<LazyEntryViewFromRecord>(Math.min(sampleCount, size));
+        long capacity = slots.capacity();
+        long mask = capacity - 1;
+        long firstSlot = ThreadLocalRandomProvider.get().nextInt(Integer.MAX_VALUE) & mask;
+        for (long i = 0; i < capacity && samples.size() < sampleCount; i++) {
+            long address = slots.headOfSlot((firstSlot + i) & mask);
+            while (address != NULL_ADDRESS && samples.size() < sampleCount) {
+                samples.add(new LazyEntryViewFromRecord<NativeRecord>(recordFactory.wrap(address), serializationService));
+                address = recordFactory.nextOf(address);
+            }
+        }
+        return samples;
+    }
+
+    @Override
+    public MapKeysWithCursor fetchKeys(int tableIndex, int size) {
+        List<Data> keys = new ArrayList<Data>(size);
+        long nextSlot = startSlot(tableIndex);
+        while (nextSlot >= 0 && keys.size() < size) {
+            long address = slots.headOfSlot(nextSlot--);
+            while (address != NULL_ADDRESS) {
+                keys.add(recordFactory.wrap(address).getKey());
+                address = recordFactory.nextOf(address);
+            }
+        }
+        return new MapKeysWithCursor(keys, (int) nextSlot);
+    }
+
+    @Override
+    public MapEntriesWithCursor fetchEntries(int tableIndex, int size, SerializationService serializationService) {
+        List<Map.Entry<Data, Data>> entries = new ArrayList<Map.Entry<Data, Data>>(size);
+        long nextSlot = startSlot(tableIndex);
+        while (nextSlot >= 0 && entries.size() < size) {
+            long address = slots.headOfSlot(nextSlot--);
+            while (address != NULL_ADDRESS) {
+                NativeRecord record = recordFactory.wrap(address);
+                entries.add(new AbstractMap.SimpleEntry<Data, Data>(record.getKey(), record.getValue()));
+                address = recordFactory.nextOf(address);
+            }
+        }
+        return new MapEntriesWithCursor(entries, (int) nextSlot);
+    }
+
+    @Override
+    public long getMutationStamp() {
+        return mutationStamp.get();
+    }
+
+    private long startSlot(int tableIndex) {
+        long capacity = slots.capacity();
+        return tableIndex >= 0 && tableIndex < capacity ? tableIndex : capacity - 1;
+    }
+
+    private long find(Data key) {
+        long address = slots.headOf(keyHash(key));
+        while (address != NULL_ADDRESS && !recordFactory.keyEquals(address, key)) {
+            address = recordFactory.nextOf(address);
+        }
+        return address;
+    }
+
+    private void updateCostEstimate(long entrySize) {
+        entryCostEstimator.adjustEstimateBy(entrySize);
+    }
+
+    /**
+     * Iterates by slot position rather than by record address, so it never
+     * touches a block which was freed between two calls. Entries moved by
+     * concurrent removals or a resize may be skipped or seen twice.
+     */
+    private final class MutationTolerantIterator implements Iterator<NativeRecord> {
+
+        private long slot;
+        private int chainIndex;
+
+        @Override
+        public boolean hasNext() {
+            return seek();
+        }
+
+        @Override
+        public NativeRecord next() {
+            if (!seek()) {
+                throw new NoSuchElementException();
+            }
+            long address = recordAt(slot, chainIndex++);
+            return recordFactory.wrap(address);
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+        private boolean seek() {
+            long capacity = slots.capacity();
+            while (slot < capacity) {
+                if (recordAt(slot, chainIndex) != NULL_ADDRESS) {
+                    return true;
+                }
+                slot++;
+                chainIndex = 0;
+            }
+            return false;
+        }
+
+        private long recordAt(long slot, int chainIndex) {
+            long address = slots.headOfSlot(slot);
+            for (int i = 0; i < chainIndex && address != NULL_ADDRESS; i++) {
+                address = recordFactory.nextOf(address);
+            }
+            return address;
+        }
+    }
+
+    /**
+     * Tracks the native memory used by the records of this storage.
+     */
+    private static final class NativeEntryCostEstimator implements EntryCostEstimator<Data, Record> {
+
+        private long estimate;
+
+        @Override
+        public long getEstimate() {
+            return estimate;
+        }
+
+        @Override
+        public void adjustEstimateBy(long adjustment) {
+            estimate += adjustment;
+        }
+
+        @Override
+        public long calculateValueCost(Record record) {
+            return record.getCost();
+        }
+
+        @Override
+        public long calculateEntryCost(Data key, Record record) {
+            return record.getCost();
+        }
+
+        @Override
+        public void reset() {
+            estimate = 0;
+        }
+    }
+}
@@ -0,0 +1,333 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hazelcast.map.impl.recordstore;
+
+import com.hazelcast.core.ExecutionCallback;
+import com.hazelcast.core.PartitioningStrategy;
+import com.hazelcast.logging.ILogger;
+import com.hazelcast.map.impl.MapServiceContext;
+import com.hazelcast.map.impl.mapstore.MapDataStore;
+import com.hazelcast.map.impl.record.Record;
+import com.hazelcast.nio.Address;
+import com.hazelcast.nio.serialization.Data;
+import com.hazelcast.spi.NodeEngine;
+import com.hazelcast.spi.exception.RetryableHazelcastException;
+import com.hazelcast.spi.impl.PartitionSpecificRunnable;
+import com.hazelcast.spi.impl.operationservice.InternalOperationService;
+import com.hazelcast.spi.properties.GroupProperty;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.hazelcast.spi.ExecutionService.MAP_LOADER_EXECUTOR;
+
+/**
+ * Coalesces the read-through loads of the keys missing in a record store.
+ * <p>
+ * A key requested while it's being loaded is not loaded again, the request
+ * waits for the pending load instead. At most one load of the partition
+ * runs at a time: the keys missed while it runs are queued and loaded
+ * together by the next {@link com.hazelcast.core.MapLoader#loadAll(java.util.Collection)
+ * loadAll} call, in batches of at most {@link GroupProperty#MAP_LOAD_CHUNK_SIZE} keys.
+ * So the map loader sees a single load per key and fewer calls, the more
+ * concurrent the misses are.
+ * <p>
+ * The loads run on the {@link com.hazelcast.spi.ExecutionService#MAP_LOADER_EXECUTOR}
+ * executor and the loaded entries are put into the record store on the
+ * partition thread, unless the keys were put meanwhile. A loaded entry may be
+ * stale if its key was mutated while it was loaded, e.g. if it was deleted
+ * from the map store, so such entries are loaded once again, and then by the
+ * partition thread itself if the key was mutated again. The mutations are
+ * tracked per key, only the mutations not bound to a single key, e.g. a
+ * clear, make all the entries being loaded stale.
+ * <p>
+ * A failure to put a loaded entry into the record store fails the callbacks
+ * of its key only, and a failing callback doesn't keep the other callbacks
+ * from being notified.
+ * <p>
+ * The coalescer is accessed by the partition thread only, the load tasks
+ * hand their results over to the partition thread.
+ */
+public final class ReadThroughCoalescer {
+
+    private final DefaultRecordStore recordStore;
+    private final MapDataStore<Data, Object> mapDataStore;
+    private final MapServiceContext mapServiceContext;
+    private final PartitioningStrategy partitioningStrategy;
+    private final int partitionId;
+    private final int maxBatchSize;
+    private final ILogger logger;
+
+    private final Map<Data, PendingLoad> pendingLoads = new HashMap<Data, PendingLoad>();
+    private final List<Data> queuedKeys = new ArrayList<Data>();
+    private boolean loading;
+    private long mutationCount;
+
+    ReadThroughCoalescer(DefaultRecordStore recordStore) {
+        this.recordStore = recordStore;
+        this.mapDataStore = recordStore.getMapDataStore();
+        this.mapServiceContext = recordStore.getMapContainer().getMapServiceContext();
+        this.partitioningStrategy = recordStore.getMapContainer().getPartitioningStrategy();
+        this.partitionId = recordStore.getPartitionId();
+        this.maxBatchSize = mapServiceContext.getNodeEngine().getProperties().getInteger(GroupProperty.MAP_LOAD_CHUNK_SIZE);
+        this.logger = mapServiceContext.getNodeEngine().getLogger(ReadThroughCoalescer.class);
+    }
+
+    /**
+     * Loads the entry of the given key missing in the record store and
+     * notifies the given callback with the record of the key, or with
+     * {@code null} if there is no entry for the key in the map store.
+     *
+     * @param key           the key to load the entry of.
+     * @param callerAddress the address of the caller requesting the entry.
+     * @param callback      the callback to notify on the partition thread.
+     */
+    public void load(Data key, Address callerAddress, ExecutionCallback<Record> callback) {
+        PendingLoad pendingLoad = pendingLoads.get(key);
+        if (pendingLoad == null) {
+            pendingLoad = new PendingLoad(callerAddress);
+            pendingLoads.put(key, pendingLoad);
+            queuedKeys.add(key);
+        }
+        pendingLoad.callbacks.add(callback);
+
+        if (!loading) {
+            startLoad();
+        }
+    }
+
+    /**
+     * Notifies this coalescer that the given key is about to be mutated, so
+     * its entry being loaded may be stale.
+     *
+     * @param key the key to be mutated.
+     */
+    public void onMutation(Data key) {
+        PendingLoad pendingLoad = pendingLoads.get(key);
+        if (pendingLoad != null) {
+            pendingLoad.mutated = true;
+        }
+    }
+
+    /**
+     * Notifies this coalescer that the partition is about to be mutated by an
+     * operation not bound to a single key, so all the entries being loaded
+     * may be stale.
+     */
+    public void onMutation() {
+        mutationCount++;
+    }
+
+    /**
+     * @return the number of the keys being loaded or waiting to be loaded.
+     */
+    public int getPendingLoadCount() {
+        return pendingLoads.size();
+    }
+
+    private void startLoad() {
+        int batchSize = Math.min(queuedKeys.size(), maxBatchSize);
+        List<Data> batch = new ArrayList<Data>(queuedKeys.subList(0, batchSize));
+        queuedKeys.subList(0, batchSize).clear();
+        for (Data key : batch) {
+            // only the mutations while the key is being loaded make its entry stale
+            pendingLoads.get(key).mutated = false;
+        }
+
+        loading = true;
+        NodeEngine nodeEngine = mapServiceContext.getNodeEngine();
+        nodeEngine.getExecutionService().execute(MAP_LOADER_EXECUTOR, new LoadTask(batch, mutationCount));
+    }
+
+    private void complete(List<Data> batch, Map<Data, Object> entries, long startMutationCount) {
+        loading = false;
+        if (mapServiceContext.getExistingRecordStore(partitionId, recordStore.getName()) != recordStore) {
+            // the map was destroyed or the partition migrated meanwhile
+            fail(batch, new RetryableHazelcastException("Partition " + partitionId + " of map " + recordStore.getName()
+                    + " changed while loading"));
+            return;
+        }
+
+        boolean partitionMutated = startMutationCount != mutationCount;
+        for (Data key : batch) {
+            PendingLoad pendingLoad = pendingLoads.get(key);
+            try {
+                complete(key, pendingLoad, entries.get(key), partitionMutated || pendingLoad.mutated);
+            } catch (Throwable t) {
+                pendingLoads.remove(key);
+                pendingLoad.onFailure(t);
+            }
+        }
+
+        if (!queuedKeys.isEmpty()) {
+            startLoad();
+        }
+    }
+
+    private void complete(Data key, PendingLoad pendingLoad, Object value, boolean mutated) {
+        Record record = recordStore.getRecordOrNull(key);
+        if (record == null && value != null) {
+            if (!mutated) {
+                record = recordStore.putLoadedRecord(key, value, pendingLoad.callerAddress);
+            } else if (!pendingLoad.reloaded) {
+                pendingLoad.reloaded = true;
+                queuedKeys.add(key);
+                return;
+            } else {
+                loadOnPartitionThread(key, pendingLoad);
+                return;
+            }
+        }
+        pendingLoads.remove(key);
+        pendingLoad.onResponse(record);
+    }
+
+    private void loadOnPartitionThread(Data key, PendingLoad pendingLoad) {
+        pendingLoads.remove(key);
+        Record record;
+        try {
+            record = recordStore.loadRecordOrNull(key, false, pendingLoad.callerAddress);
+        } catch (Throwable t) {
+            pendingLoad.onFailure(t);
+            return;
+        }
+        pendingLoad.onResponse(record);
+    }
+
+    private void fail(List<Data> batch, Throwable t) {
+        for (Data key : batch) {
+            PendingLoad pendingLoad = pendingLoads.remove(key);
+            if (pendingLoad != null) {
+                pendingLoad.onFailure(t);
+            }
+        }
+        if (!queuedKeys.isEmpty()) {
+            startLoad();
+        }
+    }
+
+    private Map<Data, Object> loadEntries(List<Data> keys) {
+        if (keys.size() == 1) {
+            Data key = keys.get(0);
+            Object value = mapDataStore.load(key);
+            return value == null ? Collections.<Data, Object>emptyMap() : Collections.singletonMap(key, value);
+        }
+
+        // the write-behind store removes the keys it finds staged from the given collection
+        Map<?, ?> loaded = mapDataStore.loadAll(new ArrayList<Data>(keys));
+        Map<Data, Object> entries = new LinkedHashMap<Data, Object>();
+        for (Map.Entry<?, ?> entry : loaded.entrySet()) {
+            if (entry.getValue() != null) {
+                entries.put(mapServiceContext.toData(entry.getKey(), partitioningStrategy), entry.getValue());
+            }
+        }
+        return entries;
+    }
+
+    private void execute(PartitionSpecificRunnable task) {
+        NodeEngine nodeEngine = mapServiceContext.getNodeEngine();
+        ((InternalOperationService) nodeEngine.getOperationService()).execute(task);
+    }
+
+    /**
+     * Loads a batch of keys on the loader executor and completes it on the
+     * partition thread.
+     */
+    private final class LoadTask implements Runnable {
+
+        private final List<Data> batch;
+        private final long startMutationCount;
+
+        LoadTask(List<Data> batch, long startMutationCount) {
+            this.batch = batch;
+            this.startMutationCount = startMutationCount;
+        }
+
+        @Override
+        public void run() {
+            final Map<Data, Object> entries;
+            try {
+                entries = loadEntries(batch);
+            } catch (final Throwable t) {
+                execute(new PartitionTask() {
+                    @Override
+                    public void run() {
+                        loading = false;
+                        fail(batch, t);
+                    }
+                });
+                return;
+            }
+
+            execute(new PartitionTask() {
+                @Override
+                public void run() {
+                    complete(batch, entries, startMutationCount);
+                }
+            });
+        }
+    }
+
+    private abstract class PartitionTask implements PartitionSpecificRunnable {
+
+        @Override
+        public int getPartitionId() {
+            return partitionId;
+        }
+    }
+
+    /**
+     * The callbacks waiting for the load of a key.
+     */
+    private final class PendingLoad {
+
+        final Address callerAddress;
+        final List<ExecutionCallback<Record>> callbacks = new ArrayList<ExecutionCallback<Record>>(1);
+        boolean reloaded;
+        boolean mutated;
+
+        PendingLoad(Address callerAddress) {
+            this.callerAddress = callerAddress;
+        }
+
+        void onResponse(Record record) {
+            for (ExecutionCallback<Record> callback : callbacks) {
+                try {
+                    callback.onResponse(record);
+                } catch (Throwable t) {
+                    logger.warning("Failed to notify " + callback + " of a loaded entry", t);
+                }
+            }
+        }
+
+        void onFailure(Throwable failure) {
+            for (ExecutionCallback<Record> callback : callbacks) {
+                try {
+                    callback.onFailure(failure);
+                } catch (Throwable t) {
+                    logger.warning("Failed to notify " + callback + " of a failed load", t);
+                }
+            }
+        }
+    }
+
+}
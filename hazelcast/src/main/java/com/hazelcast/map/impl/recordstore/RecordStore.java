@@ -323,6 +323,24 @@ public interface RecordStore<R extends Record> {
 
     long getOwnedEntryCost();
 
+    /**
+     * Returns the mutation stamp of the records of this record store, the
+     * stamp changes after every modification of the records.
+     *
+     * @return the current mutation stamp.
+     * @see Storage#getMutationStamp()
+     */
+    long getMutationStamp();
+
+    /**
+     * Returns the coalescer of the read-through loads of the keys missing in
+     * this record store.
+     *
+     * @return the coalescer or {@code null} if the loads are not coalesced.
+     * @see com.hazelcast.spi.properties.GroupProperty#MAP_LOAD_COALESCING_ENABLED
+     */
+    ReadThroughCoalescer getReadThroughCoalescer();
+
     boolean isEmpty();
 
     /**
@@ -118,4 +118,14 @@ public interface Storage<K, R> {
      */
     MapEntriesWithCursor fetchEntries(int tableIndex, int size, SerializationService serializationService);
 
+    /**
+     * Returns the mutation stamp of this storage. The stamp changes after every
+     * put, update and removal of the records and after the storage is cleared,
+     * so two equal stamps read by any thread mean the records were not modified
+     * in between.
+     *
+     * @return the current mutation stamp.
+     */
+    long getMutationStamp();
+
 }
@@ -17,6 +17,7 @@
 package com.hazelcast.map.impl.recordstore;
 
 import com.hazelcast.config.InMemoryFormat;
+import com.hazelcast.internal.util.counters.SwCounter;
 import com.hazelcast.map.impl.EntryCostEstimator;
 import com.hazelcast.map.impl.iterator.MapEntriesWithCursor;
 import com.hazelcast.map.impl.iterator.MapKeysWithCursor;
@@ -32,6 +33,7 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
+import static com.hazelcast.internal.util.counters.SwCounter.newSwCounter;
 import static com.hazelcast.map.impl.OwnedEntryCostEstimatorFactory.createMapSizeEstimator;
 
 /**
@@ -43,6 +45,7 @@ public class StorageImpl<R extends Record> implements Storage<Data, R> {
 
     private final RecordFactory<R> recordFactory;
     private final StorageSCHM<R> records;
+    private final SwCounter mutationStamp = newSwCounter();
 
     // not final for testing purposes.
     private EntryCostEstimator<Data, Record> entryCostEstimator;
@@ -58,6 +61,7 @@ public class StorageImpl<R extends Record> implements Storage<Data, R> {
         records.clear();
 
         entryCostEstimator.reset();
+        mutationStamp.inc();
     }
 
     @Override
@@ -83,6 +87,7 @@ public class StorageImpl<R extends Record> implements Storage<Data, R> {
             updateCostEstimate(-entryCostEstimator.calculateValueCost(previousRecord));
             updateCostEstimate(entryCostEstimator.calculateValueCost(record));
         }
+        mutationStamp.inc();
     }
 
     @Override
@@ -92,6 +97,7 @@ public class StorageImpl<R extends Record> implements Storage<Data, R> {
         recordFactory.setValue(record, value);
 
         updateCostEstimate(entryCostEstimator.calculateValueCost(record));
+        mutationStamp.inc();
     }
 
     @Override
@@ -138,6 +144,7 @@ public class StorageImpl<R extends Record> implements Storage<Data, R> {
         records.remove(key);
 
         updateCostEstimate(-entryCostEstimator.calculateEntryCost(key, record));
+        mutationStamp.inc();
     }
 
     protected void updateCostEstimate(long entrySize) {
@@ -178,4 +185,9 @@ public class StorageImpl<R extends Record> implements Storage<Data, R> {
         return new MapEntriesWithCursor(entriesData, newTableIndex);
     }
 
+    @Override
+    public long getMutationStamp() {
+        return mutationStamp.get();
+    }
+
 }
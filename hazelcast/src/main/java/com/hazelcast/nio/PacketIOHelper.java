@@ -39,7 +39,10 @@ import static com.hazelcast.nio.Packet.VERSION;
  */
 @PrivateApi
 public class PacketIOHelper {
-    static final int HEADER_SIZE = BYTE_SIZE_IN_BYTES + SHORT_SIZE_IN_BYTES + INT_SIZE_IN_BYTES + INT_SIZE_IN_BYTES;
+    /**
+     * The number of bytes preceding the payload of a packet.
+     */
+    public static final int HEADER_SIZE = BYTE_SIZE_IN_BYTES + SHORT_SIZE_IN_BYTES + INT_SIZE_IN_BYTES + INT_SIZE_IN_BYTES;
 
     private int valueOffset;
     private int size;
@@ -61,11 +64,8 @@ public class PacketIOHelper {
                 return false;
             }
 
-            dst.put(VERSION);
-            dst.putChar(packet.getFlags());
-            dst.putInt(packet.getPartitionId());
+            writeHeader(packet, dst);
             size = packet.totalSize();
-            dst.putInt(size);
             headerComplete = true;
         }
 
@@ -77,6 +77,20 @@ public class PacketIOHelper {
         }
     }
 
+    /**
+     * Writes the header of the packet to the supplied {@code ByteBuffer}. The buffer is expected to have at least
+     * {@link #HEADER_SIZE} bytes remaining.
+     *
+     * @param packet the packet
+     * @param dst    the destination byte buffer
+     */
+    public static void writeHeader(Packet packet, ByteBuffer dst) {
+        dst.put(VERSION);
+        dst.putChar(packet.getFlags());
+        dst.putInt(packet.getPartitionId());
+        dst.putInt(packet.totalSize());
+    }
+
     private boolean writeValue(Packet packet, ByteBuffer dst) {
         if (size > 0) {
             // the number of bytes that can be written to the bb.
@@ -18,11 +18,13 @@ package com.hazelcast.nio.tcp;
 
 import com.hazelcast.client.impl.protocol.util.ClientMessageDecoder;
 import com.hazelcast.client.impl.protocol.util.ClientMessageEncoder;
+import com.hazelcast.client.impl.protocol.util.GatheringClientMessageEncoder;
 import com.hazelcast.config.EndpointConfig;
 import com.hazelcast.internal.networking.Channel;
 import com.hazelcast.nio.IOService;
 
 import static com.hazelcast.instance.ProtocolType.CLIENT;
+import static com.hazelcast.spi.properties.GroupProperty.IO_GATHERING_WRITE_ENABLED;
 
 public class ClientChannelInitializer
         extends AbstractChannelInitializer {
@@ -39,7 +41,8 @@ public class ClientChannelInitializer
         SingleProtocolDecoder protocolDecoder = new SingleProtocolDecoder(CLIENT,
                 new ClientMessageDecoder(connection, ioService.getClientEngine()));
 
-        channel.outboundPipeline().addLast(new ClientMessageEncoder());
+        channel.outboundPipeline().addLast(ioService.properties().getBoolean(IO_GATHERING_WRITE_ENABLED)
+                ? new GatheringClientMessageEncoder() : new ClientMessageEncoder());
         channel.inboundPipeline().addLast(protocolDecoder);
     }
 }
@@ -0,0 +1,61 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.nio.tcp;
+
+import com.hazelcast.internal.networking.GatheringOutboundHandler;
+import com.hazelcast.nio.Packet;
+
+import java.nio.ByteBuffer;
+
+import static com.hazelcast.nio.PacketIOHelper.HEADER_SIZE;
+import static com.hazelcast.nio.PacketIOHelper.writeHeader;
+
+/**
+ * The {@link PacketEncoder} alternative that writes batches of
+ * {@link Packet} instances with gathering writes. The payloads of the large
+ * packets are added to the gathering writes as heap buffers wrapping their
+ * byte arrays.
+ *
+ * The byte arrays of the packets are not modified, so a packet instance can
+ * be shared over multiple connections.
+ *
+ * @see PacketEncoder
+ * @see com.hazelcast.spi.properties.GroupProperty#IO_GATHERING_WRITE_ENABLED
+ */
+public class GatheringPacketEncoder extends GatheringOutboundHandler<Packet> {
+
+    @Override
+    protected boolean encode(Packet packet, ByteBuffer stagingBuffer) {
+        if (stagingBuffer.remaining() < HEADER_SIZE) {
+            return false;
+        }
+
+        writeHeader(packet, stagingBuffer);
+        int size = packet.totalSize();
+        if (size == 0) {
+            return true;
+        }
+
+        byte[] payload = packet.toByteArray();
+        if (size < COPY_THRESHOLD && stagingBuffer.remaining() >= size) {
+            stagingBuffer.put(payload, 0, size);
+        } else {
+            add(ByteBuffer.wrap(payload, 0, size));
+        }
+        return true;
+    }
+}
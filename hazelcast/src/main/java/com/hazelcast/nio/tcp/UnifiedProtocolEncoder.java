@@ -17,6 +17,7 @@
 package com.hazelcast.nio.tcp;
 
 import com.hazelcast.client.impl.protocol.util.ClientMessageEncoder;
+import com.hazelcast.client.impl.protocol.util.GatheringClientMessageEncoder;
 import com.hazelcast.instance.EndpointQualifier;
 import com.hazelcast.internal.networking.OutboundHandler;
 import com.hazelcast.internal.networking.HandlerStatus;
@@ -35,6 +36,7 @@ import static com.hazelcast.nio.Protocols.CLIENT_BINARY_NEW;
 import static com.hazelcast.nio.Protocols.CLUSTER;
 import static com.hazelcast.nio.Protocols.PROTOCOL_LENGTH;
 import static com.hazelcast.nio.ascii.TextEncoder.TEXT_ENCODER;
+import static com.hazelcast.spi.properties.GroupProperty.IO_GATHERING_WRITE_ENABLED;
 import static com.hazelcast.spi.properties.GroupProperty.SOCKET_CLIENT_SEND_BUFFER_SIZE;
 import static com.hazelcast.spi.properties.GroupProperty.SOCKET_SEND_BUFFER_SIZE;
 import static com.hazelcast.util.StringUtil.stringToBytes;
@@ -148,7 +150,8 @@ public class UnifiedProtocolEncoder
         channel.options()
                 .setOption(SO_SNDBUF, clientSndBuf());
 
-        channel.outboundPipeline().replace(this, new ClientMessageEncoder());
+        channel.outboundPipeline().replace(this, props.getBoolean(IO_GATHERING_WRITE_ENABLED)
+                ? new GatheringClientMessageEncoder() : new ClientMessageEncoder());
     }
 
     private void initChannelForText() {
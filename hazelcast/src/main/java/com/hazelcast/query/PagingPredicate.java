@@ -25,6 +25,7 @@ import com.hazelcast.query.impl.QueryableEntry;
 import com.hazelcast.query.impl.predicates.PredicateDataSerializerHook;
 import com.hazelcast.util.IterationType;
 import com.hazelcast.util.SortingUtil;
+import com.hazelcast.util.collection.TopKSelector;
 
 import java.io.IOException;
 import java.util.AbstractMap.SimpleImmutableEntry;
@@ -184,16 +185,15 @@ public class PagingPredicate<K, V> implements IndexAwarePredicate<K, V>, Identif
         if (set == null || set.isEmpty()) {
             return set;
         }
-        List<QueryableEntry<K, V>> resultList = new ArrayList<QueryableEntry<K, V>>();
         Map.Entry<Integer, Map.Entry> nearestAnchorEntry = getNearestAnchorEntry();
+        TopKSelector<QueryableEntry> selector = SortingUtil.newTopKSelector(this, nearestAnchorEntry);
         for (QueryableEntry<K, V> queryableEntry : set) {
             if (SortingUtil.compareAnchor(this, queryableEntry, nearestAnchorEntry)) {
-                resultList.add(queryableEntry);
+                selector.offer(queryableEntry);
             }
         }
 
-        List<QueryableEntry<K, V>> sortedSubList =
-                (List) SortingUtil.getSortedSubList((List) resultList, this, nearestAnchorEntry);
+        List<QueryableEntry<K, V>> sortedSubList = (List) selector.toSortedList();
         return new LinkedHashSet<QueryableEntry<K, V>>(sortedSubList);
     }
 
@@ -59,16 +59,28 @@ public abstract class AbstractIndex implements InternalIndex {
 
     private volatile TypeConverter converter;
 
-    @SuppressFBWarnings("EI_EXPOSE_REP2")
     public AbstractIndex(String name, String[] components, boolean ordered, InternalSerializationService ss,
                          Extractors extractors, IndexCopyBehavior copyBehavior, PerIndexStats stats) {
+        this(name, components, ordered, ss, extractors, copyBehavior, stats, null);
+    }
+
+    /**
+     * Constructs a new index backed by the given index store.
+     *
+     * @param indexStore the index store to use or {@code null} to create it
+     *                   using {@link #createIndexStore}.
+     */
+    @SuppressFBWarnings("EI_EXPOSE_REP2")
+    protected AbstractIndex(String name, String[] components, boolean ordered, InternalSerializationService ss,
+                            Extractors extractors, IndexCopyBehavior copyBehavior, PerIndexStats stats,
+                            IndexStore indexStore) {
         this.name = name;
         this.components = components;
         this.ordered = ordered;
         this.ss = ss;
         this.extractors = extractors;
         this.copyBehavior = copyBehavior;
-        this.indexStore = createIndexStore(ordered, stats);
+        this.indexStore = indexStore == null ? createIndexStore(ordered, stats) : indexStore;
         this.stats = stats;
     }
 
@@ -90,6 +102,11 @@ public abstract class AbstractIndex implements InternalIndex {
         return ordered;
     }
 
+    @Override
+    public boolean isBitmap() {
+        return false;
+    }
+
     @Override
     public TypeConverter getConverter() {
         return converter;
@@ -213,6 +230,11 @@ public abstract class AbstractIndex implements InternalIndex {
         return stats;
     }
 
+    @Override
+    public IndexStatistics getStatistics() {
+        return indexStore.getStatistics();
+    }
+
     private Object extractAttributeValue(Data key, Object value) {
         if (components == null) {
             return QueryableEntry.extractAttributeValue(extractors, ss, name, key, value, null);
@@ -194,6 +194,11 @@ public class AttributeIndexRegistry {
             return delegate.isOrdered();
         }
 
+        @Override
+        public boolean isBitmap() {
+            return delegate.isBitmap();
+        }
+
         @Override
         public TypeConverter getConverter() {
             CompositeConverter converter = (CompositeConverter) delegate.getConverter();
@@ -312,6 +317,12 @@ public class AttributeIndexRegistry {
             return delegate.getPerIndexStats();
         }
 
+        @Override
+        public IndexStatistics getStatistics() {
+            // the composite values can't be matched against the first components
+            return delegate.getStatistics().withoutValueStatistics();
+        }
+
         private RuntimeException newUnsupportedException() {
             return new UnsupportedOperationException("decorated composite indexes support only querying");
         }
@@ -19,11 +19,13 @@ package com.hazelcast.query.impl;
 import com.hazelcast.monitor.impl.IndexOperationStats;
 import com.hazelcast.nio.serialization.Data;
 import com.hazelcast.query.impl.getters.MultiResult;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import static com.hazelcast.query.impl.AbstractIndex.NULL;
@@ -35,14 +37,27 @@ public abstract class BaseIndexStore implements IndexStore {
 
     static final float LOAD_FACTOR = 0.75F;
 
+    /**
+     * The statistics are rebuilt once the given percentage of the entries
+     * has been modified, but not before {@link #STATISTICS_MIN_MODIFICATIONS}.
+     */
+    private static final int STATISTICS_STALE_PERCENTAGE = 10;
+    private static final int STATISTICS_MIN_MODIFICATIONS = 100;
+
     private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
     private final ReentrantReadWriteLock.ReadLock readLock = lock.readLock();
     private final ReentrantReadWriteLock.WriteLock writeLock = lock.writeLock();
 
     private final CopyFunctor<Data, QueryableEntry> resultCopyFunctor;
+    private final AtomicBoolean statisticsRebuilding = new AtomicBoolean();
 
     private boolean multiResultHasToDetectDuplicates;
 
+    private volatile long entryCount;
+    private volatile long modificationCount;
+    private volatile IndexStatistics statistics;
+    private volatile long statisticsModificationCount;
+
     BaseIndexStore(IndexCopyBehavior copyOn) {
         if (copyOn == IndexCopyBehavior.COPY_ON_WRITE || copyOn == IndexCopyBehavior.NEVER) {
             resultCopyFunctor = new PassThroughFunctor();
@@ -78,6 +93,82 @@ public abstract class BaseIndexStore implements IndexStore {
      */
     abstract Object removeInternal(Comparable value, Data recordKey);
 
+    /**
+     * Feeds the distinct values stored in this index store and the number of
+     * the entries per value to the given statistics builder. The ordered
+     * stores feed the non-null values in the ascending order.
+     * <p>
+     * Invoked under the read lock.
+     *
+     * @param builder the builder to feed.
+     */
+    abstract void collectStatistics(IndexStatistics.Builder builder);
+
+    /**
+     * @return {@code true} if {@link #collectStatistics} feeds the values in
+     * the ascending order, {@code false} otherwise.
+     */
+    abstract boolean isOrdered();
+
+    /**
+     * Resets the statistics of this index store, invoked by the concrete
+     * stores while clearing them under the write lock.
+     */
+    @SuppressFBWarnings(value = "VO_VOLATILE_INCREMENT", justification = "modified under the write lock only")
+    final void resetStatistics() {
+        entryCount = 0;
+        modificationCount++;
+        statistics = null;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The stale statistics are rebuilt by a single thread, the other threads
+     * keep using the previous statistics meanwhile. If there are no previous
+     * statistics, they get the statistics knowing only the entry count.
+     */
+    @Override
+    public IndexStatistics getStatistics() {
+        IndexStatistics current = statistics;
+        if (isFresh(current)) {
+            return current;
+        }
+
+        if (!statisticsRebuilding.compareAndSet(false, true)) {
+            return current == null ? IndexStatistics.withEntryCountOnly(entryCount) : current;
+        }
+        try {
+            // the statistics may have been rebuilt since we have read them
+            current = statistics;
+            if (isFresh(current)) {
+                return current;
+            }
+
+            takeReadLock();
+            try {
+                IndexStatistics.Builder builder = new IndexStatistics.Builder(isOrdered(), entryCount);
+                collectStatistics(builder);
+                current = builder.build();
+                statisticsModificationCount = modificationCount;
+                statistics = current;
+                return current;
+            } finally {
+                releaseReadLock();
+            }
+        } finally {
+            statisticsRebuilding.set(false);
+        }
+    }
+
+    private boolean isFresh(IndexStatistics current) {
+        return current != null && !isStale(modificationCount - statisticsModificationCount, current.getEntryCount());
+    }
+
+    private static boolean isStale(long modifications, long entryCount) {
+        return modifications > Math.max(STATISTICS_MIN_MODIFICATIONS, entryCount * STATISTICS_STALE_PERCENTAGE / 100);
+    }
+
     void takeWriteLock() {
         writeLock.lock();
     }
@@ -94,6 +185,22 @@ public abstract class BaseIndexStore implements IndexStore {
         readLock.unlock();
     }
 
+    /**
+     * @return {@code true} if the result sets produced by this index store
+     * have to detect duplicates, {@code false} otherwise.
+     */
+    final boolean multiResultHasToDetectDuplicates() {
+        return multiResultHasToDetectDuplicates;
+    }
+
+    /**
+     * Makes the result sets produced by this index store detect duplicates,
+     * like they do once a multi-value attribute value has been inserted.
+     */
+    final void setMultiResultHasToDetectDuplicates() {
+        multiResultHasToDetectDuplicates = true;
+    }
+
     final MultiResultSet createMultiResultSet() {
         return multiResultHasToDetectDuplicates ? new DuplicateDetectingMultiResult() : new FastMultiResultSet();
     }
@@ -152,11 +259,13 @@ public abstract class BaseIndexStore implements IndexStore {
                 Comparable sanitizedValue = sanitizeValue(o);
                 Object oldValue = insertInternal(sanitizedValue, record);
                 operationStats.onEntryAdded(oldValue, newValue);
+                onInserted(oldValue);
             }
         } else {
             Comparable sanitizedValue = sanitizeValue(newValue);
             Object oldValue = insertInternal(sanitizedValue, record);
             operationStats.onEntryAdded(oldValue, newValue);
+            onInserted(oldValue);
         }
     }
 
@@ -168,11 +277,29 @@ public abstract class BaseIndexStore implements IndexStore {
                 Comparable sanitizedValue = sanitizeValue(o);
                 Object removedValue = removeInternal(sanitizedValue, indexKey);
                 operationStats.onEntryRemoved(removedValue);
+                onRemoved(removedValue);
             }
         } else {
             Comparable sanitizedValue = sanitizeValue(oldValue);
             Object removedValue = removeInternal(sanitizedValue, indexKey);
             operationStats.onEntryRemoved(removedValue);
+            onRemoved(removedValue);
+        }
+    }
+
+    @SuppressFBWarnings(value = "VO_VOLATILE_INCREMENT", justification = "modified under the write lock only")
+    private void onInserted(Object oldValue) {
+        if (oldValue == null) {
+            entryCount++;
+        }
+        modificationCount++;
+    }
+
+    @SuppressFBWarnings(value = "VO_VOLATILE_INCREMENT", justification = "modified under the write lock only")
+    private void onRemoved(Object removedValue) {
+        if (removedValue != null) {
+            entryCount--;
+            modificationCount++;
         }
     }
 
@@ -0,0 +1,40 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.query.impl;
+
+import com.hazelcast.internal.serialization.InternalSerializationService;
+import com.hazelcast.monitor.impl.PerIndexStats;
+import com.hazelcast.query.impl.getters.Extractors;
+
+/**
+ * Provides implementation of on-heap bitmap indexes.
+ *
+ * @see BitmapIndexStore
+ */
+public class BitmapIndexImpl extends IndexImpl {
+
+    BitmapIndexImpl(String name, InternalSerializationService ss, Extractors extractors, IndexCopyBehavior copyBehavior,
+                    PerIndexStats stats, EntryOrdinals ordinals) {
+        super(name, null, false, ss, extractors, copyBehavior, stats, new BitmapIndexStore(copyBehavior, ordinals));
+    }
+
+    @Override
+    public boolean isBitmap() {
+        return true;
+    }
+
+}
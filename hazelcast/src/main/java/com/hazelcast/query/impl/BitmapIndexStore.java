@@ -0,0 +1,231 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.query.impl;
+
+import com.hazelcast.nio.serialization.Data;
+import com.hazelcast.query.impl.bitmap.SparseBitSet;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import static com.hazelcast.query.impl.AbstractIndex.NULL;
+
+/**
+ * Index store keeping a compressed bitmap of the entry ordinals per distinct
+ * attribute value.
+ * <p>
+ * Suits the attributes having only a handful of distinct values: the memory
+ * footprint is proportional to the number of the distinct values rather than
+ * to the number of the entries, and the result sets produced by the store are
+ * combined on the bitmap level.
+ *
+ * @see EntryOrdinals
+ * @see BitmapResultSet
+ */
+public class BitmapIndexStore extends BaseIndexStore {
+
+    private final EntryOrdinals ordinals;
+    private final Map<Comparable, SparseBitSet> bitmaps = new HashMap<Comparable, SparseBitSet>();
+
+    BitmapIndexStore(IndexCopyBehavior copyOn, EntryOrdinals ordinals) {
+        // the results are resolved to fresh maps anyway, the copy behavior is irrelevant
+        super(copyOn);
+        this.ordinals = ordinals;
+    }
+
+    @Override
+    Object insertInternal(Comparable value, QueryableEntry record) {
+        SparseBitSet bitmap = bitmaps.get(value);
+        if (bitmap == null) {
+            bitmap = new SparseBitSet();
+            bitmaps.put(value, bitmap);
+        }
+
+        int existingOrdinal = ordinals.ordinalOf(record.getKeyData());
+        if (existingOrdinal != -1 && bitmap.contains(existingOrdinal)) {
+            return ordinals.replace(existingOrdinal, record);
+        }
+
+        bitmap.add(ordinals.acquire(record));
+        return null;
+    }
+
+    @Override
+    Object removeInternal(Comparable value, Data recordKey) {
+        SparseBitSet bitmap = bitmaps.get(value);
+        if (bitmap == null) {
+            return null;
+        }
+
+        int ordinal = ordinals.ordinalOf(recordKey);
+        if (ordinal == -1 || !bitmap.remove(ordinal)) {
+            return null;
+        }
+
+        if (bitmap.isEmpty()) {
+            bitmaps.remove(value);
+        }
+        QueryableEntry removed = ordinals.entryOf(ordinal);
+        ordinals.release(ordinal);
+        return removed;
+    }
+
+    @Override
+    public void clear() {
+        takeWriteLock();
+        try {
+            for (SparseBitSet bitmap : bitmaps.values()) {
+                for (int ordinal = bitmap.nextSetBit(0); ordinal != -1; ordinal = bitmap.nextSetBit(ordinal + 1)) {
+                    ordinals.release(ordinal);
+                }
+            }
+            bitmaps.clear();
+            resetStatistics();
+        } finally {
+            releaseWriteLock();
+        }
+    }
+
+    @Override
+    void collectStatistics(IndexStatistics.Builder builder) {
+        for (Map.Entry<Comparable, SparseBitSet> bitmapEntry : bitmaps.entrySet()) {
+            builder.add(bitmapEntry.getKey(), bitmapEntry.getValue().cardinality());
+        }
+    }
+
+    @Override
+    boolean isOrdered() {
+        return false;
+    }
+
+    @Override
+    public Set<QueryableEntry> getRecords(Comparable value) {
+        takeReadLock();
+        try {
+            SparseBitSet bitmap = bitmaps.get(value);
+            return toResultSet(bitmap == null ? new SparseBitSet() : bitmap.copy());
+        } finally {
+            releaseReadLock();
+        }
+    }
+
+    @Override
+    public Set<QueryableEntry> getRecords(Set<Comparable> values) {
+        takeReadLock();
+        try {
+            SparseBitSet result = new SparseBitSet();
+            for (Comparable value : values) {
+                SparseBitSet bitmap = bitmaps.get(value);
+                if (bitmap != null) {
+                    result = result.or(bitmap);
+                }
+            }
+            return toResultSet(result);
+        } finally {
+            releaseReadLock();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Unlike the other comparisons, {@link Comparison#NOT_EQUAL} matches the
+     * entries having {@code null} attribute values, exactly like {@code
+     * Predicates.notEqual} does.
+     */
+    @SuppressWarnings("unchecked")
+    @Override
+    public Set<QueryableEntry> getRecords(Comparison comparison, Comparable value) {
+        takeReadLock();
+        try {
+            if (comparison == Comparison.NOT_EQUAL) {
+                return toResultSet(notEqual(value));
+            }
+
+            SparseBitSet result = new SparseBitSet();
+            for (Map.Entry<Comparable, SparseBitSet> bitmapEntry : bitmaps.entrySet()) {
+                Comparable indexedValue = bitmapEntry.getKey();
+                if (indexedValue == NULL) {
+                    continue;
+                }
+                boolean valid;
+                int order = value.compareTo(indexedValue);
+                switch (comparison) {
+                    case LESS:
+                        valid = order > 0;
+                        break;
+                    case LESS_OR_EQUAL:
+                        valid = order >= 0;
+                        break;
+                    case GREATER:
+                        valid = order < 0;
+                        break;
+                    case GREATER_OR_EQUAL:
+                        valid = order <= 0;
+                        break;
+                    default:
+                        throw new IllegalStateException("Unrecognized comparison: " + comparison);
+                }
+                if (valid) {
+                    result = result.or(bitmapEntry.getValue());
+                }
+            }
+            return toResultSet(result);
+        } finally {
+            releaseReadLock();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public Set<QueryableEntry> getRecords(Comparable from, boolean fromInclusive, Comparable to, boolean toInclusive) {
+        takeReadLock();
+        try {
+            SparseBitSet result = new SparseBitSet();
+            int fromBound = fromInclusive ? 0 : +1;
+            int toBound = toInclusive ? 0 : -1;
+            for (Map.Entry<Comparable, SparseBitSet> bitmapEntry : bitmaps.entrySet()) {
+                Comparable value = bitmapEntry.getKey();
+                if (value == NULL) {
+                    continue;
+                }
+                if (value.compareTo(from) >= fromBound && value.compareTo(to) <= toBound) {
+                    result = result.or(bitmapEntry.getValue());
+                }
+            }
+            return toResultSet(result);
+        } finally {
+            releaseReadLock();
+        }
+    }
+
+    private SparseBitSet notEqual(Comparable value) {
+        SparseBitSet all = new SparseBitSet();
+        for (SparseBitSet bitmap : bitmaps.values()) {
+            all = all.or(bitmap);
+        }
+        SparseBitSet excluded = bitmaps.get(value);
+        return excluded == null ? all : all.andNot(excluded);
+    }
+
+    private BitmapResultSet toResultSet(SparseBitSet bits) {
+        // taken under the read lock: no bit of the snapshot is assigned later
+        return new BitmapResultSet(ordinals, bits, ordinals.stamp());
+    }
+
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.query.impl;
+
+import com.hazelcast.nio.serialization.Data;
+import com.hazelcast.query.impl.bitmap.SparseBitSet;
+
+import java.util.AbstractSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import static java.lang.Math.min;
+import static java.util.Collections.unmodifiableCollection;
+
+/**
+ * Result set produced by bitmap indexes.
+ * <p>
+ * The set holds a snapshot of the bits of the matching entries and resolves
+ * them to the entries lazily on the first access. The result sets produced by
+ * the bitmap indexes of the same {@link Indexes} instance are compatible with
+ * each other: conjunctions and disjunctions of them are computed on the bits
+ * without materializing the intermediate results.
+ * <p>
+ * The size of the set is the number of the bits, the entries removed or
+ * updated after the snapshot was taken are not reported by the iteration.
+ */
+public final class BitmapResultSet extends AbstractSet<QueryableEntry> {
+
+    private final EntryOrdinals ordinals;
+    private final SparseBitSet bits;
+    private final long stamp;
+
+    private Map<Data, QueryableEntry> entries;
+
+    BitmapResultSet(EntryOrdinals ordinals, SparseBitSet bits, long stamp) {
+        this.ordinals = ordinals;
+        this.bits = bits;
+        this.stamp = stamp;
+    }
+
+    /**
+     * @return {@code true} if the given result set may be combined with this
+     * one, {@code false} otherwise.
+     */
+    public boolean isCompatibleWith(BitmapResultSet other) {
+        return ordinals == other.ordinals;
+    }
+
+    /**
+     * @return the result set containing the entries present in both this and
+     * the given compatible result set.
+     */
+    public BitmapResultSet and(BitmapResultSet other) {
+        assert isCompatibleWith(other);
+        return new BitmapResultSet(ordinals, bits.and(other.bits), min(stamp, other.stamp));
+    }
+
+    /**
+     * @return the result set containing the entries present in either this or
+     * the given compatible result set.
+     */
+    public BitmapResultSet or(BitmapResultSet other) {
+        assert isCompatibleWith(other);
+        return new BitmapResultSet(ordinals, bits.or(other.bits), min(stamp, other.stamp));
+    }
+
+    @Override
+    public boolean contains(Object mapEntry) {
+        Data keyData = ((QueryableEntry) mapEntry).getKeyData();
+        return entries().containsKey(keyData);
+    }
+
+    @Override
+    public Iterator<QueryableEntry> iterator() {
+        return unmodifiableCollection(entries().values()).iterator();
+    }
+
+    @Override
+    public int size() {
+        return bits.cardinality();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return bits.isEmpty();
+    }
+
+    private Map<Data, QueryableEntry> entries() {
+        Map<Data, QueryableEntry> entries = this.entries;
+        if (entries == null) {
+            entries = new HashMap<Data, QueryableEntry>();
+            ordinals.collect(bits, stamp, entries);
+            this.entries = entries;
+        }
+        return entries;
+    }
+
+}
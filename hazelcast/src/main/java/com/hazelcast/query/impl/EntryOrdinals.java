@@ -0,0 +1,341 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hazelcast.query.impl;
+
+import com.hazelcast.nio.serialization.Data;
+import com.hazelcast.query.impl.bitmap.SparseBitSet;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.hazelcast.util.HashUtil.fastIntMix;
+import static com.hazelcast.util.HashUtil.hashToIndex;
+
+/**
+ * Assigns dense integer ordinals to the entries indexed by bitmap indexes.
+ * <p>
+ * All the bitmap indexes of an {@link Indexes} instance share the same
+ * ordinals, so the bitmaps produced by different indexes may be combined
+ * with bitwise operations before any entry is materialized. An ordinal is
+ * reference counted: every bitmap index store holding an entry acquires it
+ * and the ordinal is recycled once the last store releases it.
+ * <p>
+ * The ordinals are assigned by the stripes, one per partition: the entries of
+ * a partition are registered in the stripe of the partition only, so the
+ * partition threads updating the global indexes don't contend with each
+ * other. The stripe ordinals are interleaved, i.e. the ordinal {@code n} of
+ * the stripe {@code s} is the ordinal {@code n * stripeCount + s}, keeping
+ * the ordinals of all the stripes dense. A stripe keeps its entries in
+ * arrays indexed by the ordinals and finds the ordinal of a key through an
+ * open-addressing table of the ordinals, no object is allocated per entry.
+ * <p>
+ * Every assignment of an ordinal and every replacement of the entry it
+ * refers to is stamped, a bitmap snapshot taken at some stamp never resolves
+ * its bits to the entries which reused the ordinals or replaced the entries
+ * of the ordinals after the snapshot was taken: the bitmap selecting such an
+ * entry may not match its current value.
+ */
+final class EntryOrdinals {
+
+    private final Stripe[] stripes;
+    private final AtomicLong stamp = new AtomicLong();
+
+    /**
+     * @param stripeCount the number of the stripes, i.e. the number of the
+     *                    partitions of the indexed entries.
+     */
+    EntryOrdinals(int stripeCount) {
+        this.stripes = new Stripe[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new Stripe(i);
+        }
+    }
+
+    /**
+     * Acquires the ordinal of the given entry assigning a new one if the
+     * entry has no ordinal yet. The entry replaces the one previously
+     * registered for the same key.
+     *
+     * @param entry the entry to acquire the ordinal of.
+     * @return the acquired ordinal.
+     */
+    int acquire(QueryableEntry entry) {
+        return stripeOf(entry.getKeyData()).acquire(entry);
+    }
+
+    /**
+     * @return the ordinal assigned to the entry having the given key or
+     * {@code -1} if there is no such entry.
+     */
+    int ordinalOf(Data key) {
+        return stripeOf(key).ordinalOf(key);
+    }
+
+    /**
+     * @return the entry the given ordinal is currently assigned to or {@code
+     * null} if the ordinal is not assigned.
+     */
+    QueryableEntry entryOf(int ordinal) {
+        return stripes[ordinal % stripes.length].entryOf(ordinal / stripes.length);
+    }
+
+    /**
+     * Replaces the entry the given assigned ordinal refers to, the reference
+     * count of the ordinal stays the same.
+     *
+     * @return the replaced entry.
+     */
+    QueryableEntry replace(int ordinal, QueryableEntry entry) {
+        return stripes[ordinal % stripes.length].replace(ordinal / stripes.length, entry);
+    }
+
+    /**
+     * Releases the given ordinal, the ordinal is recycled once all its
+     * acquisitions are released.
+     *
+     * @param ordinal the ordinal to release.
+     */
+    void release(int ordinal) {
+        stripes[ordinal % stripes.length].release(ordinal / stripes.length);
+    }
+
+    /**
+     * @return the current stamp, the ordinals assigned after this call have
+     * greater stamps.
+     */
+    long stamp() {
+        return stamp.get();
+    }
+
+    /**
+     * Resolves the given bits to the entries.
+     *
+     * @param bits   the bits to resolve.
+     * @param stamp  the stamp the bits were captured at; the ordinals
+     *               reassigned or having their entries replaced after it
+     *               are skipped.
+     * @param target the map to put the resolved entries to.
+     */
+    void collect(SparseBitSet bits, long stamp, Map<Data, QueryableEntry> target) {
+        for (int ordinal = bits.nextSetBit(0); ordinal != -1; ordinal = bits.nextSetBit(ordinal + 1)) {
+            QueryableEntry entry = stripes[ordinal % stripes.length].entryAt(ordinal / stripes.length, stamp);
+            if (entry != null) {
+                target.put(entry.getKeyData(), entry);
+            }
+        }
+    }
+
+    /**
+     * @return the number of the assigned ordinals.
+     */
+    int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            size += stripe.size();
+        }
+        return size;
+    }
+
+    /**
+     * @return the stripe the given ordinal belongs to.
+     */
+    int stripeOf(int ordinal) {
+        return ordinal % stripes.length;
+    }
+
+    private Stripe stripeOf(Data key) {
+        // the same as the partition ID of the key if the stripes are the partitions
+        return stripes[hashToIndex(key.getPartitionHash(), stripes.length)];
+    }
+
+    /**
+     * Ordinals of the entries of a single partition. The ordinals of a stripe
+     * are local, {@link #toOrdinal} converts them to the shared ordinals.
+     */
+    private final class Stripe {
+
+        private static final int INITIAL_CAPACITY = 4;
+        private static final int EMPTY = 0;
+
+        private final int index;
+
+        private QueryableEntry[] entries = new QueryableEntry[INITIAL_CAPACITY];
+        private int[] keyHashes = new int[INITIAL_CAPACITY];
+        private int[] referenceCounts = new int[INITIAL_CAPACITY];
+        private long[] assignmentStamps = new long[INITIAL_CAPACITY];
+        private int[] freeOrdinals = new int[INITIAL_CAPACITY];
+        private int freeOrdinalCount;
+        private int nextOrdinal;
+
+        /**
+         * Open-addressing table of the local ordinals plus one, {@link #EMPTY}
+         * marks the free slots.
+         */
+        private int[] slots = new int[INITIAL_CAPACITY * 2];
+        private int size;
+
+        Stripe(int index) {
+            this.index = index;
+        }
+
+        synchronized int acquire(QueryableEntry entry) {
+            Data key = entry.getKeyData();
+            int hash = key.hashCode();
+            int slot = findSlot(key, hash);
+            if (slots[slot] != EMPTY) {
+                int ordinal = slots[slot] - 1;
+                entries[ordinal] = entry;
+                referenceCounts[ordinal]++;
+                assignmentStamps[ordinal] = stamp.incrementAndGet();
+                return toOrdinal(ordinal);
+            }
+
+            int ordinal = freeOrdinalCount > 0 ? freeOrdinals[--freeOrdinalCount] : newOrdinal();
+            entries[ordinal] = entry;
+            keyHashes[ordinal] = hash;
+            referenceCounts[ordinal] = 1;
+            assignmentStamps[ordinal] = stamp.incrementAndGet();
+            insert(ordinal);
+            return toOrdinal(ordinal);
+        }
+
+        synchronized int ordinalOf(Data key) {
+            int slot = findSlot(key, key.hashCode());
+            return slots[slot] == EMPTY ? -1 : toOrdinal(slots[slot] - 1);
+        }
+
+        synchronized QueryableEntry entryOf(int ordinal) {
+            return ordinal < nextOrdinal ? entries[ordinal] : null;
+        }
+
+        synchronized QueryableEntry entryAt(int ordinal, long stamp) {
+            if (ordinal >= nextOrdinal || assignmentStamps[ordinal] > stamp) {
+                return null;
+            }
+            return entries[ordinal];
+        }
+
+        synchronized QueryableEntry replace(int ordinal, QueryableEntry entry) {
+            assert referenceCounts[ordinal] > 0;
+            QueryableEntry replaced = entries[ordinal];
+            entries[ordinal] = entry;
+            assignmentStamps[ordinal] = stamp.incrementAndGet();
+            return replaced;
+        }
+
+        synchronized void release(int ordinal) {
+            assert referenceCounts[ordinal] > 0;
+            if (--referenceCounts[ordinal] > 0) {
+                return;
+            }
+
+            delete(findSlot(entries[ordinal].getKeyData(), keyHashes[ordinal]));
+            entries[ordinal] = null;
+            if (freeOrdinalCount == freeOrdinals.length) {
+                freeOrdinals = Arrays.copyOf(freeOrdinals, freeOrdinals.length << 1);
+            }
+            freeOrdinals[freeOrdinalCount++] = ordinal;
+        }
+
+        synchronized int size() {
+            return size;
+        }
+
+        private int toOrdinal(int ordinal) {
+            return ordinal * stripes.length + index;
+        }
+
+        /**
+         * @return the slot of the given key or the free slot the key would be
+         * inserted to.
+         */
+        private int findSlot(Data key, int hash) {
+            int mask = slots.length - 1;
+            int slot = fastIntMix(hash) & mask;
+            while (slots[slot] != EMPTY) {
+                int ordinal = slots[slot] - 1;
+                if (keyHashes[ordinal] == hash && entries[ordinal].getKeyData().equals(key)) {
+                    return slot;
+                }
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+        private void insert(int ordinal) {
+            if (++size > slots.length >> 1) {
+                rehash(slots.length << 1);
+            }
+            int mask = slots.length - 1;
+            int slot = fastIntMix(keyHashes[ordinal]) & mask;
+            while (slots[slot] != EMPTY) {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = ordinal + 1;
+        }
+
+        /**
+         * Frees the given slot shifting back the following slots of the probe
+         * sequence, so no lookup stops at the freed slot prematurely.
+         */
+        private void delete(int slot) {
+            int mask = slots.length - 1;
+            int free = slot;
+            int next = (free + 1) & mask;
+            while (slots[next] != EMPTY) {
+                int home = fastIntMix(keyHashes[slots[next] - 1]) & mask;
+                // move the slot back unless its home lies cyclically in (free, next]
+                if (free <= next ? home <= free || home > next : home <= free && home > next) {
+                    slots[free] = slots[next];
+                    free = next;
+                }
+                next = (next + 1) & mask;
+            }
+            slots[free] = EMPTY;
+            size--;
+        }
+
+        private void rehash(int capacity) {
+            int[] oldSlots = slots;
+            slots = new int[capacity];
+            int mask = capacity - 1;
+            for (int oldSlot : oldSlots) {
+                if (oldSlot != EMPTY) {
+                    int slot = fastIntMix(keyHashes[oldSlot - 1]) & mask;
+                    while (slots[slot] != EMPTY) {
+                        slot = (slot + 1) & mask;
+                    }
+                    slots[slot] = oldSlot;
+                }
+            }
+        }
+
+        private int newOrdinal() {
+            if (nextOrdinal == entries.length) {
+                int newCapacity = entries.length << 1;
+                entries = Arrays.copyOf(entries, newCapacity);
+                keyHashes = Arrays.copyOf(keyHashes, newCapacity);
+                referenceCounts = Arrays.copyOf(referenceCounts, newCapacity);
+                assignmentStamps = Arrays.copyOf(assignmentStamps, newCapacity);
+            }
+            return nextOrdinal++;
+        }
+    }
+
+}
@@ -104,6 +104,11 @@ public class GlobalQueryContextWithStats extends QueryContext {
             return delegate.isOrdered();
         }
 
+        @Override
+        public boolean isBitmap() {
+            return delegate.isBitmap();
+        }
+
         @Override
         public TypeConverter getConverter() {
             return delegate.getConverter();
@@ -177,6 +182,11 @@ public class GlobalQueryContextWithStats extends QueryContext {
             return delegate.getPerIndexStats();
         }
 
+        @Override
+        public IndexStatistics getStatistics() {
+            return delegate.getStatistics();
+        }
+
     }
 
 }
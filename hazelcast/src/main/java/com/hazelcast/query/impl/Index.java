@@ -58,6 +58,20 @@ public interface Index {
      */
     boolean isOrdered();
 
+    /**
+     * Tells whether this index is a bitmap index or not.
+     * <p>
+     * Bitmap indexes are unordered indexes keeping a compressed bitmap of the
+     * indexed entries per distinct attribute value. In addition to the
+     * regular unordered index operations they support the evaluation of
+     * not-equal predicates, and their results are combined on the bitmap
+     * level.
+     *
+     * @return {@code true} if this index is a bitmap index, {@code false}
+     * otherwise.
+     */
+    boolean isBitmap();
+
     /**
      * @return the converter associated with this index; or {@code null} if the
      * converter is not known because there were no saves to this index and
@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.query.impl;
+
+import com.hazelcast.nio.serialization.Data;
+import com.hazelcast.query.impl.Index.OperationSource;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tracks the online build of an index: the index is populated with the
+ * existing entries in chunks interleaved with the regular operations on the
+ * partitions while the mutations of the entries keep being applied to it.
+ * <p>
+ * The build remembers the keys of the entries the index is authoritative
+ * for: the ones inserted by the build itself and the ones touched by the
+ * mutations since the build started. A mutation of an entry not covered yet
+ * is applied as an insertion, or skipped if it's a removal, since the index
+ * has no previous value of the entry to update. The build skips the entries
+ * already covered by the mutations, their current values are indexed already.
+ * <p>
+ * The mutations and the build of the entries of a partition are expected to
+ * be run by the partition thread.
+ */
+public final class IndexBuild {
+
+    private final InternalIndex index;
+    private final Set<Data> coveredKeys = Collections.newSetFromMap(new ConcurrentHashMap<Data, Boolean>());
+
+    IndexBuild(InternalIndex index) {
+        this.index = index;
+    }
+
+    /**
+     * @return the index being built.
+     */
+    public InternalIndex getIndex() {
+        return index;
+    }
+
+    /**
+     * Inserts the given existing entry into the index being built unless a
+     * mutation of the entry was applied to the index already.
+     *
+     * @param entry the entry to insert.
+     */
+    public void insertExisting(QueryableEntry entry) {
+        if (coveredKeys.add(entry.getKeyData())) {
+            index.putEntry(entry, null, OperationSource.SYSTEM);
+        }
+    }
+
+    void clear() {
+        coveredKeys.clear();
+    }
+
+    void putEntry(QueryableEntry entry, Object oldValue, OperationSource operationSource) {
+        if (coveredKeys.add(entry.getKeyData())) {
+            index.putEntry(entry, null, operationSource);
+        } else {
+            index.putEntry(entry, oldValue, operationSource);
+        }
+    }
+
+    void removeEntry(Data key, Object value, OperationSource operationSource) {
+        if (!coveredKeys.add(key)) {
+            index.removeEntry(key, value, operationSource);
+        }
+    }
+
+}
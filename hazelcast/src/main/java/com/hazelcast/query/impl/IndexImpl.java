@@ -37,9 +37,19 @@ public class IndexImpl extends AbstractIndex {
         super(name, components, ordered, ss, extractors, copyBehavior, stats);
     }
 
+    protected IndexImpl(String name, String[] components, boolean ordered, InternalSerializationService ss,
+                        Extractors extractors, IndexCopyBehavior copyBehavior, PerIndexStats stats, IndexStore indexStore) {
+        super(name, components, ordered, ss, extractors, copyBehavior, stats, indexStore);
+    }
+
     @Override
     protected IndexStore createIndexStore(boolean ordered, PerIndexStats stats) {
-        return ordered ? new OrderedIndexStore(copyBehavior) : new UnorderedIndexStore(copyBehavior);
+        if (!ordered) {
+            return new UnorderedIndexStore(copyBehavior);
+        }
+        // the attribute type of a single-attribute index is known only once
+        // the values are inserted, the store picks its representation by it
+        return getComponents() == null ? new PrimitiveOrderedIndexStore(copyBehavior) : new OrderedIndexStore(copyBehavior);
     }
 
     @Override
@@ -0,0 +1,417 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.query.impl;
+
+import com.hazelcast.util.collection.TopKSelector;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import static com.hazelcast.query.impl.AbstractIndex.NULL;
+
+/**
+ * Immutable snapshot of the value distribution of an index used to estimate
+ * the number of the entries matching the index queries.
+ * <p>
+ * The snapshot consists of the entry counts, the number of the distinct
+ * values, the most common values with their entry counts and, for ordered
+ * indexes, an equi-depth histogram of the values. All the values passed to
+ * the estimation methods are expected to be converted by the {@link
+ * Index#getConverter() converter} of the index.
+ */
+public final class IndexStatistics {
+
+    /**
+     * The statistics of an empty index.
+     */
+    public static final IndexStatistics EMPTY =
+            new IndexStatistics(0, 0, 0, true, new Comparable[0], new long[0], null, null, null);
+
+    /**
+     * The selectivity assumed for the equality queries if the value
+     * distribution is unknown.
+     */
+    static final double DEFAULT_EQUALITY_SELECTIVITY = 0.1;
+
+    /**
+     * The selectivity assumed for the range queries if there is no histogram.
+     */
+    static final double DEFAULT_RANGE_SELECTIVITY = 1.0 / 3.0;
+
+    static final int MOST_COMMON_VALUE_COUNT = 16;
+    static final int HISTOGRAM_BUCKET_COUNT = 32;
+
+    private final long entryCount;
+    private final long nullCount;
+    private final long distinctValueCount;
+    private final boolean valueStatistics;
+
+    private final Comparable[] mostCommonValues;
+    private final long[] mostCommonValueCounts;
+
+    private final Comparable[] histogramValues;
+    private final long[] histogramCumulativeCounts;
+    private final long[] histogramValueCounts;
+
+    @SuppressWarnings("checkstyle:parameternumber")
+    private IndexStatistics(long entryCount, long nullCount, long distinctValueCount, boolean valueStatistics,
+                            Comparable[] mostCommonValues, long[] mostCommonValueCounts, Comparable[] histogramValues,
+                            long[] histogramCumulativeCounts, long[] histogramValueCounts) {
+        this.entryCount = entryCount;
+        this.nullCount = nullCount;
+        this.distinctValueCount = distinctValueCount;
+        this.valueStatistics = valueStatistics;
+        this.mostCommonValues = mostCommonValues;
+        this.mostCommonValueCounts = mostCommonValueCounts;
+        this.histogramValues = histogramValues;
+        this.histogramCumulativeCounts = histogramCumulativeCounts;
+        this.histogramValueCounts = histogramValueCounts;
+    }
+
+    /**
+     * Returns the statistics knowing only the given entry count, the
+     * estimations of the returned statistics fall back to the default
+     * selectivities.
+     * <p>
+     * Used while the statistics of an index are being built.
+     *
+     * @param entryCount the number of the entries indexed.
+     */
+    static IndexStatistics withEntryCountOnly(long entryCount) {
+        return new IndexStatistics(entryCount, 0, 0, false, new Comparable[0], new long[0], null, null, null);
+    }
+
+    /**
+     * @return the number of the entries indexed, including the ones having
+     * {@code null} attribute values.
+     */
+    public long getEntryCount() {
+        return entryCount;
+    }
+
+    /**
+     * @return the number of the distinct non-null values indexed.
+     */
+    public long getDistinctValueCount() {
+        return distinctValueCount;
+    }
+
+    /**
+     * @return {@code true} if these statistics have an equi-depth histogram
+     * of the values, {@code false} otherwise.
+     */
+    public boolean hasHistogram() {
+        return histogramValues != null;
+    }
+
+    /**
+     * Returns new statistics keeping only the entry count of these ones, the
+     * estimations of the returned statistics fall back to the default
+     * selectivities.
+     * <p>
+     * Used when the indexed values differ from the queried ones, like for
+     * the composite indexes queried by their first components.
+     */
+    public IndexStatistics withoutValueStatistics() {
+        return new IndexStatistics(entryCount, nullCount, distinctValueCount, false, new Comparable[0], new long[0], null,
+                null, null);
+    }
+
+    /**
+     * Estimates the number of the entries having the given value.
+     *
+     * @param value the value to estimate for.
+     * @return the estimated number of the entries.
+     */
+    public long estimateEqual(Comparable value) {
+        if (!valueStatistics) {
+            return (long) Math.ceil(entryCount * DEFAULT_EQUALITY_SELECTIVITY);
+        }
+        if (value == NULL) {
+            return nullCount;
+        }
+
+        long mostCommonTotal = 0;
+        for (int i = 0; i < mostCommonValues.length; ++i) {
+            if (mostCommonValues[i].equals(value)) {
+                return mostCommonValueCounts[i];
+            }
+            mostCommonTotal += mostCommonValueCounts[i];
+        }
+
+        if (histogramValues != null) {
+            int index = binarySearch(value);
+            if (index >= 0) {
+                return histogramValueCounts[index];
+            }
+        }
+
+        long remainingDistinct = distinctValueCount - mostCommonValues.length;
+        long remainingEntries = entryCount - nullCount - mostCommonTotal;
+        if (remainingDistinct <= 0 || remainingEntries <= 0) {
+            return 0;
+        }
+        return Math.max(1, remainingEntries / remainingDistinct);
+    }
+
+    /**
+     * Estimates the number of the entries having any of the given values.
+     *
+     * @param values the values to estimate for.
+     * @return the estimated number of the entries.
+     */
+    public long estimateIn(Comparable[] values) {
+        long estimate = 0;
+        for (Comparable value : values) {
+            estimate += estimateEqual(value);
+        }
+        return Math.min(estimate, entryCount);
+    }
+
+    /**
+     * Estimates the number of the entries matching the given comparison.
+     *
+     * @param comparison the comparison to estimate for.
+     * @param value      the value to compare with.
+     * @return the estimated number of the entries.
+     */
+    public long estimateComparison(Comparison comparison, Comparable value) {
+        switch (comparison) {
+            case LESS:
+                return estimateRange(null, false, value, false);
+            case LESS_OR_EQUAL:
+                return estimateRange(null, false, value, true);
+            case GREATER:
+                return estimateRange(value, false, null, false);
+            case GREATER_OR_EQUAL:
+                return estimateRange(value, true, null, false);
+            case NOT_EQUAL:
+                return Math.max(0, entryCount - estimateEqual(value));
+            default:
+                throw new IllegalArgumentException("Unknown comparison: " + comparison);
+        }
+    }
+
+    /**
+     * Estimates the number of the entries having the non-null values in the
+     * given range.
+     *
+     * @param from          the lower bound of the range or {@code null} if
+     *                      the range is unbounded from below.
+     * @param fromInclusive {@code true} if the lower bound is inclusive.
+     * @param to            the upper bound of the range or {@code null} if the
+     *                      range is unbounded from above.
+     * @param toInclusive   {@code true} if the upper bound is inclusive.
+     * @return the estimated number of the entries.
+     */
+    public long estimateRange(Comparable from, boolean fromInclusive, Comparable to, boolean toInclusive) {
+        long nonNullCount = entryCount - nullCount;
+        if (histogramValues == null) {
+            return (long) Math.ceil(nonNullCount * DEFAULT_RANGE_SELECTIVITY);
+        }
+        if (histogramValues.length == 0) {
+            return 0;
+        }
+
+        long histogramTotal = histogramCumulativeCounts[histogramCumulativeCounts.length - 1];
+        long lower = from == null ? 0 : cumulativeCount(from, !fromInclusive);
+        long upper = to == null ? histogramTotal : cumulativeCount(to, toInclusive);
+        return Math.max(0, upper - lower);
+    }
+
+    @Override
+    public String toString() {
+        return "IndexStatistics{entryCount=" + entryCount + ", nullCount=" + nullCount + ", distinctValueCount="
+                + distinctValueCount + ", mostCommonValues=" + Arrays.toString(mostCommonValues) + ", histogramPoints="
+                + (histogramValues == null ? "none" : String.valueOf(histogramValues.length)) + '}';
+    }
+
+    /**
+     * Estimates the number of the entries having the values less than the
+     * given one or, if {@code inclusive} is {@code true}, less than or equal
+     * to it.
+     */
+    private long cumulativeCount(Comparable value, boolean inclusive) {
+        int index = binarySearch(value);
+        if (index >= 0) {
+            return inclusive ? histogramCumulativeCounts[index]
+                    : histogramCumulativeCounts[index] - histogramValueCounts[index];
+        }
+
+        int insertionPoint = -index - 1;
+        if (insertionPoint == 0) {
+            return 0;
+        }
+        if (insertionPoint == histogramValues.length) {
+            return histogramCumulativeCounts[histogramValues.length - 1];
+        }
+        // the value is strictly inside the bucket, assume it splits the bucket in half
+        long previous = histogramCumulativeCounts[insertionPoint - 1];
+        long bucket = histogramCumulativeCounts[insertionPoint] - histogramValueCounts[insertionPoint] - previous;
+        return previous + bucket / 2;
+    }
+
+    @SuppressWarnings("unchecked")
+    private int binarySearch(Comparable value) {
+        int low = 0;
+        int high = histogramValues.length - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int order = histogramValues[middle].compareTo(value);
+            if (order < 0) {
+                low = middle + 1;
+            } else if (order > 0) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -(low + 1);
+    }
+
+    /**
+     * Builds the statistics from the distinct values of an index store and
+     * their entry counts.
+     */
+    static final class Builder {
+
+        private static final Comparator<ValueCount> BY_COUNT_DESCENDING = new Comparator<ValueCount>() {
+            @Override
+            public int compare(ValueCount left, ValueCount right) {
+                return left.count > right.count ? -1 : left.count < right.count ? +1 : 0;
+            }
+        };
+
+        private final boolean ordered;
+        private final long bucketDepth;
+        private final TopKSelector<ValueCount> mostCommonValues =
+                new TopKSelector<ValueCount>(MOST_COMMON_VALUE_COUNT, BY_COUNT_DESCENDING);
+
+        private final List<Comparable> histogramValues;
+        private final List<Long> histogramCumulativeCounts;
+        private final List<Long> histogramValueCounts;
+
+        private long entryCount;
+        private long nullCount;
+        private long distinctValueCount;
+        private long nextBoundary;
+        private Comparable lastValue;
+        private long lastCount;
+
+        /**
+         * @param ordered       {@code true} if the values are added in the
+         *                      ascending order and a histogram should be built.
+         * @param expectedTotal the expected number of the non-null entries,
+         *                      used to size the histogram buckets.
+         */
+        Builder(boolean ordered, long expectedTotal) {
+            this.ordered = ordered;
+            this.bucketDepth = Math.max(1, expectedTotal / HISTOGRAM_BUCKET_COUNT);
+            this.histogramValues = ordered ? new ArrayList<Comparable>() : null;
+            this.histogramCumulativeCounts = ordered ? new ArrayList<Long>() : null;
+            this.histogramValueCounts = ordered ? new ArrayList<Long>() : null;
+        }
+
+        /**
+         * Adds the given value having the given number of the entries, the
+         * non-null values of the ordered stores are added in the ascending
+         * order.
+         */
+        void add(Comparable value, long count) {
+            if (count <= 0) {
+                return;
+            }
+            entryCount += count;
+            if (value == NULL) {
+                nullCount += count;
+                return;
+            }
+
+            ++distinctValueCount;
+            mostCommonValues.offer(new ValueCount(value, count));
+
+            if (!ordered) {
+                return;
+            }
+            long cumulativeCount = entryCount - nullCount;
+            if (histogramValues.isEmpty() || cumulativeCount >= nextBoundary) {
+                addHistogramPoint(value, cumulativeCount, count);
+                lastValue = null;
+            } else {
+                lastValue = value;
+                lastCount = count;
+            }
+        }
+
+        IndexStatistics build() {
+            if (ordered && lastValue != null) {
+                // the maximum value is always a histogram point
+                addHistogramPoint(lastValue, entryCount - nullCount, lastCount);
+            }
+
+            List<ValueCount> selected = mostCommonValues.toSortedList();
+            Comparable[] values = new Comparable[selected.size()];
+            long[] counts = new long[selected.size()];
+            for (int i = 0; i < values.length; ++i) {
+                values[i] = selected.get(i).value;
+                counts[i] = selected.get(i).count;
+            }
+
+            Comparable[] points = null;
+            long[] cumulativeCounts = null;
+            long[] pointCounts = null;
+            if (ordered) {
+                points = histogramValues.toArray(new Comparable[0]);
+                cumulativeCounts = toArray(histogramCumulativeCounts);
+                pointCounts = toArray(histogramValueCounts);
+            }
+            return new IndexStatistics(entryCount, nullCount, distinctValueCount, true, values, counts, points,
+                    cumulativeCounts, pointCounts);
+        }
+
+        private void addHistogramPoint(Comparable value, long cumulativeCount, long count) {
+            histogramValues.add(value);
+            histogramCumulativeCounts.add(cumulativeCount);
+            histogramValueCounts.add(count);
+            nextBoundary = cumulativeCount + bucketDepth;
+        }
+
+        private static long[] toArray(List<Long> list) {
+            long[] array = new long[list.size()];
+            for (int i = 0; i < array.length; ++i) {
+                array[i] = list.get(i);
+            }
+            return array;
+        }
+
+    }
+
+    private static final class ValueCount {
+
+        final Comparable value;
+        final long count;
+
+        ValueCount(Comparable value, long count) {
+            this.value = value;
+            this.count = count;
+        }
+
+    }
+
+}
@@ -128,4 +128,15 @@ public interface IndexStore {
      */
     Set<QueryableEntry> getRecords(Comparable from, boolean fromInclusive, Comparable to, boolean toInclusive);
 
+    /**
+     * Returns the statistics of the values stored in this index store.
+     * <p>
+     * The statistics are rebuilt lazily once a noticeable share of the
+     * entries has changed since the last build, so they may lag behind the
+     * actual contents of the store.
+     *
+     * @return the statistics of this index store.
+     */
+    IndexStatistics getStatistics();
+
 }
@@ -30,11 +30,15 @@ import com.hazelcast.spi.serialization.SerializationService;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
 import static com.hazelcast.util.Preconditions.checkNotNull;
+import static com.hazelcast.util.Preconditions.checkPositive;
 
 /**
  * Contains all indexes for a data-structure, e.g. an IMap.
@@ -43,6 +47,7 @@ import static com.hazelcast.util.Preconditions.checkNotNull;
 public class Indexes {
 
     private static final InternalIndex[] EMPTY_INDEXES = {};
+    private static final IndexBuild[] EMPTY_BUILDS = {};
 
     private final boolean global;
     private final boolean usesCachedQueryableEntries;
@@ -52,17 +57,25 @@ public class Indexes {
     private final IndexCopyBehavior indexCopyBehavior;
     private final QueryContextProvider queryContextProvider;
     private final InternalSerializationService serializationService;
+    private final Set<String> bitmapIndexNames;
+    private final int partitionCount;
 
     private final Map<String, InternalIndex> indexesByName = new ConcurrentHashMap<String, InternalIndex>(3);
     private final AttributeIndexRegistry attributeIndexRegistry = new AttributeIndexRegistry();
     private final ConverterCache converterCache = new ConverterCache(this);
 
+    private EntryOrdinals entryOrdinals;
+
     private volatile InternalIndex[] indexes = EMPTY_INDEXES;
     private volatile InternalIndex[] compositeIndexes = EMPTY_INDEXES;
+    private volatile IndexBuild[] builds = EMPTY_BUILDS;
 
     private Indexes(InternalSerializationService serializationService, IndexCopyBehavior indexCopyBehavior, Extractors extractors,
-                    IndexProvider indexProvider, boolean usesCachedQueryableEntries, boolean statisticsEnabled, boolean global) {
+                    IndexProvider indexProvider, boolean usesCachedQueryableEntries, boolean statisticsEnabled, boolean global,
+                    Set<String> bitmapIndexNames, int partitionCount) {
         this.global = global;
+        this.partitionCount = partitionCount;
+        this.bitmapIndexNames = bitmapIndexNames;
         this.indexCopyBehavior = indexCopyBehavior;
         this.serializationService = serializationService;
         this.usesCachedQueryableEntries = usesCachedQueryableEntries;
@@ -115,46 +128,176 @@ public class Indexes {
      *                {@link Index#getName()), in this case the method
      *                canonicalizes it.
      * @param ordered {@code true} if the new index should be ordered, {@code
-     *                false} otherwise.
+     *                false} otherwise. Unordered single-attribute indexes
+     *                configured as bitmap indexes are created as {@link
+     *                BitmapIndexImpl bitmap indexes}.
      * @return the existing or created index.
      */
     public synchronized InternalIndex addOrGetIndex(String name, boolean ordered) {
-        InternalIndex index = indexesByName.get(name);
+        InternalIndex index = getIndexByAnyName(name);
         if (index != null) {
             return index;
         }
 
-        String[] components = PredicateUtils.parseOutCompositeIndexComponents(name);
-        if (components == null) {
-            name = PredicateUtils.canonicalizeAttribute(name);
-        } else {
-            name = PredicateUtils.constructCanonicalCompositeIndexName(components);
+        index = createIndex(name, ordered);
+        publish(index);
+        return index;
+    }
+
+    /**
+     * Obtains the build of the index for the given name, creating the index
+     * if it doesn't exist yet.
+     * <p>
+     * A created index receives the mutations of the entries right away but
+     * it's not used by the queries until {@link #completeIndexBuild
+     * completed}. The existing entries are expected to be inserted into the
+     * index through the returned build.
+     *
+     * @param name    the name of the index, see {@link #addOrGetIndex}.
+     * @param ordered {@code true} if the new index should be ordered, {@code
+     *                false} otherwise.
+     * @return the build of the index or {@code null} if the index exists and
+     * is built already.
+     */
+    public synchronized IndexBuild addOrGetIndexBuild(String name, boolean ordered) {
+        InternalIndex index = getIndexByAnyName(name);
+        if (index != null) {
+            return getBuild(builds, index);
         }
 
-        index = indexesByName.get(name);
+        index = createIndex(name, ordered);
+        IndexBuild build = new IndexBuild(index);
+        IndexBuild[] oldBuilds = builds;
+        IndexBuild[] newBuilds = Arrays.copyOf(oldBuilds, oldBuilds.length + 1);
+        newBuilds[oldBuilds.length] = build;
+        builds = newBuilds;
+        return build;
+    }
+
+    /**
+     * Completes the given index build making the index available to the
+     * queries. Does nothing if the build is completed already.
+     *
+     * @param build the build to complete.
+     */
+    public synchronized void completeIndexBuild(IndexBuild build) {
+        if (removeBuild(build)) {
+            publish(build.getIndex());
+        }
+    }
+
+    /**
+     * Abandons the given index build after the existing entries failed to be
+     * inserted: the index is removed from this indexes instance, it stops
+     * receiving the mutations of the entries and a later {@link
+     * #addOrGetIndexBuild} starts a fresh build. Does nothing if the build is
+     * completed or abandoned already.
+     *
+     * @param build the build to abandon.
+     */
+    public synchronized void abandonIndexBuild(IndexBuild build) {
+        if (!removeBuild(build)) {
+            return;
+        }
+
+        // the index being built isn't published, so it isn't known to the attribute index registry
+        InternalIndex index = build.getIndex();
+        indexesByName.remove(index.getName());
+        converterCache.invalidate(index);
+        indexes = indexesByName.values().toArray(EMPTY_INDEXES);
+
+        // releases the entry ordinals of a bitmap index
+        index.clear();
+        index.destroy();
+    }
+
+    private boolean removeBuild(IndexBuild build) {
+        IndexBuild[] oldBuilds = builds;
+        int position = Arrays.asList(oldBuilds).indexOf(build);
+        if (position < 0) {
+            return false;
+        }
+        IndexBuild[] newBuilds = new IndexBuild[oldBuilds.length - 1];
+        System.arraycopy(oldBuilds, 0, newBuilds, 0, position);
+        System.arraycopy(oldBuilds, position + 1, newBuilds, position, newBuilds.length - position);
+        builds = newBuilds.length == 0 ? EMPTY_BUILDS : newBuilds;
+        return true;
+    }
+
+    /**
+     * Returns {@code true} if the given index is being built and not used by
+     * the queries yet, {@code false} otherwise.
+     */
+    public boolean isBuilding(InternalIndex index) {
+        return getBuild(builds, index) != null;
+    }
+
+    private InternalIndex getIndexByAnyName(String name) {
+        InternalIndex index = indexesByName.get(name);
         if (index != null) {
             return index;
         }
+        return indexesByName.get(canonicalizeIndexName(name));
+    }
 
-        index = indexProvider.createIndex(name, components, ordered, extractors, serializationService, indexCopyBehavior,
-                stats.createPerIndexStats(ordered, usesCachedQueryableEntries));
+    private InternalIndex createIndex(String name, boolean ordered) {
+        String[] components = PredicateUtils.parseOutCompositeIndexComponents(name);
+        name = canonicalizeIndexName(name);
+
+        InternalIndex index;
+        if (!ordered && components == null && bitmapIndexNames.contains(name)) {
+            if (entryOrdinals == null) {
+                // the entries of the global indexes are striped by their partitions
+                entryOrdinals = new EntryOrdinals(global ? partitionCount : 1);
+            }
+            index = new BitmapIndexImpl(name, serializationService, extractors, indexCopyBehavior,
+                    stats.createPerIndexStats(false, usesCachedQueryableEntries), entryOrdinals);
+        } else {
+            index = indexProvider.createIndex(name, components, ordered, extractors, serializationService, indexCopyBehavior,
+                    stats.createPerIndexStats(ordered, usesCachedQueryableEntries));
+        }
 
         indexesByName.put(name, index);
-        attributeIndexRegistry.register(index);
         converterCache.invalidate(index);
-
         indexes = indexesByName.values().toArray(EMPTY_INDEXES);
-        if (components != null) {
+        return index;
+    }
+
+    /**
+     * Makes the given index available to the queries.
+     */
+    private void publish(InternalIndex index) {
+        attributeIndexRegistry.register(index);
+
+        if (index.getComponents() != null) {
             InternalIndex[] oldCompositeIndexes = compositeIndexes;
             InternalIndex[] newCompositeIndexes = Arrays.copyOf(oldCompositeIndexes, oldCompositeIndexes.length + 1);
             newCompositeIndexes[oldCompositeIndexes.length] = index;
             compositeIndexes = newCompositeIndexes;
         }
-        return index;
+    }
+
+    private static String canonicalizeIndexName(String name) {
+        String[] components = PredicateUtils.parseOutCompositeIndexComponents(name);
+        if (components == null) {
+            return PredicateUtils.canonicalizeAttribute(name);
+        } else {
+            return PredicateUtils.constructCanonicalCompositeIndexName(components);
+        }
+    }
+
+    private static IndexBuild getBuild(IndexBuild[] builds, InternalIndex index) {
+        for (IndexBuild build : builds) {
+            if (build.getIndex() == index) {
+                return build;
+            }
+        }
+        return null;
     }
 
     /**
-     * Returns all the indexes known to this indexes instance.
+     * Returns all the indexes known to this indexes instance, including the
+     * ones being built.
      */
     @SuppressFBWarnings("EI_EXPOSE_REP")
     public InternalIndex[] getIndexes() {
@@ -177,6 +320,9 @@ public class Indexes {
 
         indexes = EMPTY_INDEXES;
         compositeIndexes = EMPTY_INDEXES;
+        builds = EMPTY_BUILDS;
+        // the ordinals are still referenced by the destroyed bitmap indexes
+        entryOrdinals = null;
         indexesByName.clear();
         attributeIndexRegistry.clear();
         converterCache.clear();
@@ -195,6 +341,9 @@ public class Indexes {
         for (InternalIndex index : indexesSnapshot) {
             index.clear();
         }
+        for (IndexBuild build : builds) {
+            build.clear();
+        }
     }
 
     /**
@@ -216,8 +365,14 @@ public class Indexes {
      */
     public void putEntry(QueryableEntry queryableEntry, Object oldValue, Index.OperationSource operationSource) {
         InternalIndex[] indexes = getIndexes();
+        IndexBuild[] builds = this.builds;
         for (InternalIndex index : indexes) {
-            index.putEntry(queryableEntry, oldValue, operationSource);
+            IndexBuild build = builds.length == 0 ? null : getBuild(builds, index);
+            if (build == null) {
+                index.putEntry(queryableEntry, oldValue, operationSource);
+            } else {
+                build.putEntry(queryableEntry, oldValue, operationSource);
+            }
         }
     }
 
@@ -231,8 +386,14 @@ public class Indexes {
      */
     public void removeEntry(Data key, Object value, Index.OperationSource operationSource) {
         InternalIndex[] indexes = getIndexes();
+        IndexBuild[] builds = this.builds;
         for (InternalIndex index : indexes) {
-            index.removeEntry(key, value, operationSource);
+            IndexBuild build = builds.length == 0 ? null : getBuild(builds, index);
+            if (build == null) {
+                index.removeEntry(key, value, operationSource);
+            } else {
+                build.removeEntry(key, value, operationSource);
+            }
         }
     }
 
@@ -302,7 +463,8 @@ public class Indexes {
      */
     public InternalIndex matchIndex(String pattern, QueryContext.IndexMatchHint matchHint) {
         if (matchHint == QueryContext.IndexMatchHint.EXACT_NAME) {
-            return indexesByName.get(pattern);
+            InternalIndex index = indexesByName.get(pattern);
+            return index == null || isBuilding(index) ? null : index;
         } else {
             return attributeIndexRegistry.match(pattern, matchHint);
         }
@@ -354,6 +516,8 @@ public class Indexes {
         private boolean usesCachedQueryableEntries;
         private Extractors extractors;
         private IndexProvider indexProvider;
+        private Set<String> bitmapIndexNames = Collections.emptySet();
+        private int partitionCount = 1;
 
         Builder(SerializationService ss, IndexCopyBehavior indexCopyBehavior) {
             this.serializationService = checkNotNull((InternalSerializationService) ss, "serializationService cannot be null");
@@ -409,12 +573,36 @@ public class Indexes {
             return this;
         }
 
+        /**
+         * @param bitmapIndexAttributes the attributes to create the unordered
+         *                              indexes for as bitmap indexes
+         * @return this builder instance
+         */
+        public Builder bitmapIndexAttributes(Collection<String> bitmapIndexAttributes) {
+            Set<String> bitmapIndexNames = new HashSet<String>();
+            for (String attribute : bitmapIndexAttributes) {
+                bitmapIndexNames.add(PredicateUtils.canonicalizeAttribute(attribute));
+            }
+            this.bitmapIndexNames = bitmapIndexNames;
+            return this;
+        }
+
+        /**
+         * @param partitionCount the number of the partitions of the indexed
+         *                       entries. Default value is 1.
+         * @return this builder instance
+         */
+        public Builder partitionCount(int partitionCount) {
+            this.partitionCount = checkPositive(partitionCount, "partitionCount must be positive");
+            return this;
+        }
+
         /**
          * @return a new instance of Indexes
          */
         public Indexes build() {
             return new Indexes(serializationService, indexCopyBehavior, extractors, indexProvider, usesCachedQueryableEntries,
-                    statsEnabled, global);
+                    statsEnabled, global, bitmapIndexNames, partitionCount);
         }
 
     }
@@ -48,4 +48,12 @@ public interface InternalIndex extends Index {
      */
     PerIndexStats getPerIndexStats();
 
+    /**
+     * Returns the statistics of the values indexed by this index used to
+     * estimate the selectivity of the queries.
+     *
+     * @see IndexStatistics
+     */
+    IndexStatistics getStatistics();
+
 }
@@ -0,0 +1,274 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.query.impl;
+
+/**
+ * A sorted map from primitive {@code long} keys to object values.
+ * <p>
+ * Keys are kept in sorted primitive arrays split into leaves of bounded size
+ * (a two-level B+tree): lookups do a binary search over the first keys of the
+ * leaves followed by a binary search inside the leaf, insertions and removals
+ * shift at most one leaf. Compared to a {@code ConcurrentSkipListMap<Long, V>}
+ * there is no boxing and no per-entry node allocation.
+ * <p>
+ * The map is not thread-safe, callers are expected to guard it.
+ *
+ * @param <V> the type of the values.
+ */
+final class LongSortedMap<V> {
+
+    static final int LEAF_CAPACITY = 128;
+
+    private static final int INITIAL_LEAVES_CAPACITY = 4;
+
+    private Leaf[] leaves = new Leaf[INITIAL_LEAVES_CAPACITY];
+    private int leafCount;
+    private int size;
+
+    LongSortedMap() {
+        leaves[0] = new Leaf();
+        leafCount = 1;
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    V get(long key) {
+        Leaf leaf = leaves[leafIndexOf(key)];
+        int index = leaf.indexOf(key);
+        return index >= 0 ? (V) leaf.values[index] : null;
+    }
+
+    /**
+     * Associates the given value with the given key.
+     *
+     * @return the value previously associated with the key or {@code null}
+     * if there was none.
+     */
+    @SuppressWarnings("unchecked")
+    V put(long key, V value) {
+        assert value != null;
+
+        int leafIndex = leafIndexOf(key);
+        Leaf leaf = leaves[leafIndex];
+        int index = leaf.indexOf(key);
+        if (index >= 0) {
+            V oldValue = (V) leaf.values[index];
+            leaf.values[index] = value;
+            return oldValue;
+        }
+
+        int insertionPoint = -(index + 1);
+        if (leaf.size == LEAF_CAPACITY) {
+            Leaf right = leaf.split();
+            insertLeaf(leafIndex + 1, right);
+            if (insertionPoint > leaf.size) {
+                insertionPoint -= leaf.size;
+                leaf = right;
+            }
+        }
+        leaf.insert(insertionPoint, key, value);
+        size++;
+        return null;
+    }
+
+    /**
+     * Removes the mapping for the given key.
+     *
+     * @return the value previously associated with the key or {@code null}
+     * if there was none.
+     */
+    @SuppressWarnings("unchecked")
+    V remove(long key) {
+        int leafIndex = leafIndexOf(key);
+        Leaf leaf = leaves[leafIndex];
+        int index = leaf.indexOf(key);
+        if (index < 0) {
+            return null;
+        }
+
+        V oldValue = (V) leaf.values[index];
+        leaf.remove(index);
+        size--;
+        if (leaf.size == 0 && leafCount > 1) {
+            removeLeaf(leafIndex);
+        }
+        return oldValue;
+    }
+
+    void clear() {
+        leaves = new Leaf[INITIAL_LEAVES_CAPACITY];
+        leaves[0] = new Leaf();
+        leafCount = 1;
+        size = 0;
+    }
+
+    /**
+     * Visits all the mappings of this map in the key order.
+     */
+    void forEach(EntryVisitor<? super V> visitor) {
+        forEach(Long.MIN_VALUE, true, Long.MAX_VALUE, true, visitor);
+    }
+
+    /**
+     * Visits the mappings with the keys belonging to the given range in the
+     * key order.
+     *
+     * @param from          the beginning of the range.
+     * @param fromInclusive {@code true} if the beginning of the range is
+     *                      inclusive, {@code false} otherwise.
+     * @param to            the end of the range.
+     * @param toInclusive   {@code true} if the end of the range is inclusive,
+     *                      {@code false} otherwise.
+     * @param visitor       the visitor to pass the mappings to.
+     */
+    @SuppressWarnings("unchecked")
+    void forEach(long from, boolean fromInclusive, long to, boolean toInclusive, EntryVisitor<? super V> visitor) {
+        if (from > to || from == to && !(fromInclusive && toInclusive)) {
+            return;
+        }
+
+        int leafIndex = leafIndexOf(from);
+        int index = leaves[leafIndex].indexOf(from);
+        if (index < 0) {
+            index = -(index + 1);
+        } else if (!fromInclusive) {
+            index++;
+        }
+
+        for (; leafIndex < leafCount; leafIndex++, index = 0) {
+            Leaf leaf = leaves[leafIndex];
+            for (; index < leaf.size; index++) {
+                long key = leaf.keys[index];
+                if (key > to || key == to && !toInclusive) {
+                    return;
+                }
+                visitor.visit(key, (V) leaf.values[index]);
+            }
+        }
+    }
+
+    /**
+     * Returns the index of the leaf which holds the given key or should hold
+     * it if the key is absent.
+     */
+    private int leafIndexOf(long key) {
+        int low = 1;
+        int high = leafCount - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            long firstKey = leaves[middle].keys[0];
+            if (firstKey < key) {
+                low = middle + 1;
+            } else if (firstKey > key) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return low - 1;
+    }
+
+    private void insertLeaf(int index, Leaf leaf) {
+        if (leafCount == leaves.length) {
+            Leaf[] newLeaves = new Leaf[leaves.length << 1];
+            System.arraycopy(leaves, 0, newLeaves, 0, leafCount);
+            leaves = newLeaves;
+        }
+        System.arraycopy(leaves, index, leaves, index + 1, leafCount - index);
+        leaves[index] = leaf;
+        leafCount++;
+    }
+
+    private void removeLeaf(int index) {
+        System.arraycopy(leaves, index + 1, leaves, index, leafCount - index - 1);
+        leaves[--leafCount] = null;
+    }
+
+    /**
+     * Visits the mappings of a {@link LongSortedMap}.
+     *
+     * @param <V> the type of the values.
+     */
+    interface EntryVisitor<V> {
+
+        void visit(long key, V value);
+
+    }
+
+    private static final class Leaf {
+
+        final long[] keys = new long[LEAF_CAPACITY];
+        final Object[] values = new Object[LEAF_CAPACITY];
+        int size;
+
+        int indexOf(long key) {
+            int low = 0;
+            int high = size - 1;
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                long middleKey = keys[middle];
+                if (middleKey < key) {
+                    low = middle + 1;
+                } else if (middleKey > key) {
+                    high = middle - 1;
+                } else {
+                    return middle;
+                }
+            }
+            return -(low + 1);
+        }
+
+        void insert(int index, long key, Object value) {
+            System.arraycopy(keys, index, keys, index + 1, size - index);
+            System.arraycopy(values, index, values, index + 1, size - index);
+            keys[index] = key;
+            values[index] = value;
+            size++;
+        }
+
+        void remove(int index) {
+            System.arraycopy(keys, index + 1, keys, index, size - index - 1);
+            System.arraycopy(values, index + 1, values, index, size - index - 1);
+            values[--size] = null;
+        }
+
+        /**
+         * Moves the upper half of this leaf into a new leaf.
+         */
+        Leaf split() {
+            Leaf right = new Leaf();
+            int half = size >>> 1;
+            right.size = size - half;
+            System.arraycopy(keys, half, right.keys, 0, right.size);
+            System.arraycopy(values, half, right.values, 0, right.size);
+            for (int i = half; i < size; i++) {
+                values[i] = null;
+            }
+            size = half;
+            return right;
+        }
+
+    }
+
+}
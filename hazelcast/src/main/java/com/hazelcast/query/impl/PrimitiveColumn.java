@@ -0,0 +1,404 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.query.impl;
+
+import java.util.Arrays;
+
+/**
+ * Column of the primitive values of a numeric attribute stored in slots
+ * addressed by integer numbers.
+ * <p>
+ * The integral values (bytes, shorts, integers and longs) are stored in a
+ * {@code long} array, the floating point ones (floats and doubles) in a
+ * {@code double} array. The type of the column is established by the first
+ * non-null value stored in it; the column becomes {@link #isValid invalid}
+ * once a value of any other type, a non-numeric value or a value which
+ * can't be extracted is stored in it, so the queries and aggregations using
+ * the attribute can't be evaluated over the column and must be evaluated
+ * over the entries instead.
+ * <p>
+ * The slot sets accepted and produced by the column are bit sets represented
+ * as {@code long} arrays: the slot {@code i} is in the set if the bit {@code
+ * i % 64} of the word {@code i / 64} is set.
+ * <p>
+ * The column is not thread-safe.
+ */
+public final class PrimitiveColumn {
+
+    private AttributeType type;
+    private boolean valid = true;
+
+    private long[] longs;
+    private double[] doubles;
+    private long[] nulls;
+    private int capacity;
+
+    /**
+     * Constructs a new column.
+     *
+     * @param capacity the initial number of the slots.
+     */
+    public PrimitiveColumn(int capacity) {
+        this.capacity = capacity;
+        this.nulls = new long[wordCount(capacity)];
+    }
+
+    /**
+     * @return {@code true} if the column holds the values of all the slots,
+     * {@code false} if the column is no longer maintained.
+     */
+    public boolean isValid() {
+        return valid;
+    }
+
+    /**
+     * @return the type of the values of this column or {@code null} if no
+     * non-null value was stored in it yet.
+     */
+    public AttributeType getType() {
+        return type;
+    }
+
+    /**
+     * Ensures the column can hold at least the given number of the slots.
+     */
+    public void ensureCapacity(int slotCount) {
+        if (slotCount <= capacity || !valid) {
+            return;
+        }
+        int newCapacity = Math.max(slotCount, capacity << 1);
+        if (longs != null) {
+            longs = Arrays.copyOf(longs, newCapacity);
+        }
+        if (doubles != null) {
+            doubles = Arrays.copyOf(doubles, newCapacity);
+        }
+        nulls = Arrays.copyOf(nulls, wordCount(newCapacity));
+        capacity = newCapacity;
+    }
+
+    /**
+     * Stores the given attribute value in the given slot.
+     *
+     * @param slot  the slot to store the value in.
+     * @param value the value extracted from the entry.
+     */
+    public void set(int slot, Object value) {
+        if (!valid) {
+            return;
+        }
+        if (value == null) {
+            nulls[slot >>> 6] |= 1L << slot;
+            return;
+        }
+
+        AttributeType valueType = typeOf(value);
+        if (valueType == null || type != null && type != valueType) {
+            invalidate();
+            return;
+        }
+        if (type == null) {
+            initType(valueType);
+        }
+
+        nulls[slot >>> 6] &= ~(1L << slot);
+        if (longs != null) {
+            longs[slot] = ((Number) value).longValue();
+        } else {
+            doubles[slot] = ((Number) value).doubleValue();
+        }
+    }
+
+    /**
+     * Marks this column as no longer maintained and releases its values.
+     */
+    public void invalidate() {
+        valid = false;
+        longs = null;
+        doubles = null;
+        nulls = null;
+    }
+
+    /**
+     * Converts the given value to the type of this column the same way the
+     * predicates convert it to the type of the attribute values.
+     *
+     * @return the converted value or {@code null} if the value can't be
+     * compared with the values of this column.
+     */
+    public Comparable convert(Comparable value) {
+        if (type == null || value == null) {
+            return null;
+        }
+        if (typeClass(type).isInstance(value)) {
+            return value;
+        }
+        try {
+            return type.getConverter().convert(value);
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Selects the candidate slots holding the {@code null} values.
+     *
+     * @param candidates the candidate slots.
+     * @return the selected slots.
+     */
+    public long[] selectNulls(long[] candidates) {
+        long[] result = new long[candidates.length];
+        for (int i = 0; i < candidates.length; ++i) {
+            result[i] = candidates[i] & nulls[i];
+        }
+        return result;
+    }
+
+    /**
+     * Selects the candidate slots holding the non-null values within the
+     * given range, the bounds are expected to be {@link #convert converted}.
+     *
+     * @param candidates    the candidate slots.
+     * @param from          the lower bound or {@code null} if unbounded.
+     * @param fromInclusive {@code true} if the lower bound is inclusive.
+     * @param to            the upper bound or {@code null} if unbounded.
+     * @param toInclusive   {@code true} if the upper bound is inclusive.
+     * @return the selected slots.
+     */
+    public long[] selectRange(long[] candidates, Comparable from, boolean fromInclusive, Comparable to,
+                              boolean toInclusive) {
+        long[] result = new long[candidates.length];
+        if (type == null) {
+            return result;
+        }
+        if (longs != null) {
+            long lower = from == null ? Long.MIN_VALUE : ((Number) from).longValue();
+            long upper = to == null ? Long.MAX_VALUE : ((Number) to).longValue();
+            if (from != null && !fromInclusive) {
+                if (lower == Long.MAX_VALUE) {
+                    return result;
+                }
+                ++lower;
+            }
+            if (to != null && !toInclusive) {
+                if (upper == Long.MIN_VALUE) {
+                    return result;
+                }
+                --upper;
+            }
+            selectLongRange(candidates, result, lower, upper);
+        } else {
+            selectDoubleRange(candidates, result, from, fromInclusive, to, toInclusive);
+        }
+        return result;
+    }
+
+    /**
+     * Selects the candidate slots holding any of the given values, the
+     * values are expected to be {@link #convert converted}.
+     *
+     * @param candidates the candidate slots.
+     * @param values     the values to select.
+     * @return the selected slots.
+     */
+    public long[] selectIn(long[] candidates, Comparable[] values) {
+        long[] result = new long[candidates.length];
+        if (type == null || values.length == 0) {
+            return result;
+        }
+        if (longs != null) {
+            long[] sorted = new long[values.length];
+            for (int i = 0; i < values.length; ++i) {
+                sorted[i] = ((Number) values[i]).longValue();
+            }
+            Arrays.sort(sorted);
+            for (int i = 0; i < candidates.length; ++i) {
+                long word = candidates[i] & ~nulls[i];
+                long selected = 0;
+                while (word != 0) {
+                    int bit = Long.numberOfTrailingZeros(word);
+                    if (Arrays.binarySearch(sorted, longs[i << 6 | bit]) >= 0) {
+                        selected |= 1L << bit;
+                    }
+                    word &= word - 1;
+                }
+                result[i] = selected;
+            }
+        } else {
+            double[] sorted = new double[values.length];
+            for (int i = 0; i < values.length; ++i) {
+                sorted[i] = ((Number) values[i]).doubleValue();
+            }
+            Arrays.sort(sorted);
+            for (int i = 0; i < candidates.length; ++i) {
+                long word = candidates[i] & ~nulls[i];
+                long selected = 0;
+                while (word != 0) {
+                    int bit = Long.numberOfTrailingZeros(word);
+                    if (Arrays.binarySearch(sorted, doubles[i << 6 | bit]) >= 0) {
+                        selected |= 1L << bit;
+                    }
+                    word &= word - 1;
+                }
+                result[i] = selected;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return {@code true} if any of the given slots holds a {@code null}
+     * value, {@code false} otherwise.
+     */
+    public boolean containsNulls(long[] slots) {
+        for (int i = 0; i < slots.length; ++i) {
+            if ((slots[i] & nulls[i]) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the sum of the non-null integral values of the given slots.
+     */
+    public long sumLongs(long[] slots) {
+        long sum = 0;
+        for (int i = 0; i < slots.length; ++i) {
+            long word = slots[i] & ~nulls[i];
+            while (word != 0) {
+                sum += longs[i << 6 | Long.numberOfTrailingZeros(word)];
+                word &= word - 1;
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * @return the sum of the non-null floating point values of the given
+     * slots.
+     */
+    public double sumDoubles(long[] slots) {
+        double sum = 0;
+        for (int i = 0; i < slots.length; ++i) {
+            long word = slots[i] & ~nulls[i];
+            while (word != 0) {
+                sum += doubles[i << 6 | Long.numberOfTrailingZeros(word)];
+                word &= word - 1;
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * @return the number of the words needed for a slot set of the given
+     * number of the slots.
+     */
+    public static int wordCount(int slotCount) {
+        return (slotCount + Long.SIZE - 1) >>> 6;
+    }
+
+    private void selectLongRange(long[] candidates, long[] result, long lower, long upper) {
+        long[] values = longs;
+        for (int i = 0; i < candidates.length; ++i) {
+            long word = candidates[i] & ~nulls[i];
+            long selected = 0;
+            while (word != 0) {
+                int bit = Long.numberOfTrailingZeros(word);
+                long value = values[i << 6 | bit];
+                if (value >= lower && value <= upper) {
+                    selected |= 1L << bit;
+                }
+                word &= word - 1;
+            }
+            result[i] = selected;
+        }
+    }
+
+    private void selectDoubleRange(long[] candidates, long[] result, Comparable from, boolean fromInclusive, Comparable to,
+                                   boolean toInclusive) {
+        // Double.compare is used to match the semantics of Double.compareTo
+        // used by the predicates, including NaNs and negative zeros
+        double[] values = doubles;
+        double lower = from == null ? 0 : ((Number) from).doubleValue();
+        double upper = to == null ? 0 : ((Number) to).doubleValue();
+        int minLowerOrder = from == null ? Integer.MIN_VALUE : fromInclusive ? 0 : 1;
+        int maxUpperOrder = to == null ? Integer.MAX_VALUE : toInclusive ? 0 : -1;
+        for (int i = 0; i < candidates.length; ++i) {
+            long word = candidates[i] & ~nulls[i];
+            long selected = 0;
+            while (word != 0) {
+                int bit = Long.numberOfTrailingZeros(word);
+                double value = values[i << 6 | bit];
+                if ((from == null || Double.compare(value, lower) >= minLowerOrder)
+                        && (to == null || Double.compare(value, upper) <= maxUpperOrder)) {
+                    selected |= 1L << bit;
+                }
+                word &= word - 1;
+            }
+            result[i] = selected;
+        }
+    }
+
+    private void initType(AttributeType valueType) {
+        type = valueType;
+        if (valueType == AttributeType.DOUBLE || valueType == AttributeType.FLOAT) {
+            doubles = new double[capacity];
+        } else {
+            longs = new long[capacity];
+        }
+    }
+
+    private static AttributeType typeOf(Object value) {
+        Class<?> valueClass = value.getClass();
+        if (valueClass == Long.class) {
+            return AttributeType.LONG;
+        } else if (valueClass == Integer.class) {
+            return AttributeType.INTEGER;
+        } else if (valueClass == Double.class) {
+            return AttributeType.DOUBLE;
+        } else if (valueClass == Short.class) {
+            return AttributeType.SHORT;
+        } else if (valueClass == Byte.class) {
+            return AttributeType.BYTE;
+        } else if (valueClass == Float.class) {
+            return AttributeType.FLOAT;
+        } else {
+            return null;
+        }
+    }
+
+    private static Class<?> typeClass(AttributeType type) {
+        switch (type) {
+            case LONG:
+                return Long.class;
+            case INTEGER:
+                return Integer.class;
+            case DOUBLE:
+                return Double.class;
+            case SHORT:
+                return Short.class;
+            case BYTE:
+                return Byte.class;
+            case FLOAT:
+                return Float.class;
+            default:
+                throw new IllegalStateException("Unexpected column type: " + type);
+        }
+    }
+
+}
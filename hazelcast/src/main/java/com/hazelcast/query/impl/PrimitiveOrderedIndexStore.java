@@ -0,0 +1,495 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.query.impl;
+
+import com.hazelcast.nio.serialization.Data;
+import com.hazelcast.query.impl.getters.ReflectionHelper;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.hazelcast.query.impl.AbstractIndex.NULL;
+import static java.util.Collections.emptyMap;
+import static java.util.Collections.emptySet;
+import static java.util.Collections.singletonMap;
+
+/**
+ * Store indexes rankly, keeping numeric and date attribute values as
+ * primitive {@code long} keys.
+ * <p>
+ * The representation is picked by the {@link AttributeType} of the first
+ * non-null value inserted. Long, integer, short, byte, double, float, date and
+ * SQL date values are kept in a {@link LongSortedMap} under an
+ * order-preserving {@code long} encoding of the value, so neither boxed values
+ * nor a concurrent map per distinct value are retained: a value mapped to a
+ * single entry is backed by a singleton map. Once a value of another type is
+ * inserted, the contents are moved to an {@link OrderedIndexStore} which
+ * serves all the requests from then on.
+ * <p>
+ * All the state is guarded by the lock of {@link BaseIndexStore}.
+ */
+public class PrimitiveOrderedIndexStore extends BaseIndexStore {
+
+    private final IndexCopyBehavior copyOn;
+    private final LongSortedMap<Map<Data, QueryableEntry>> recordMap = new LongSortedMap<Map<Data, QueryableEntry>>();
+
+    private Map<Data, QueryableEntry> recordsWithNullValue = emptyMap();
+    private AttributeType keyType;
+    private OrderedIndexStore fallbackStore;
+
+    public PrimitiveOrderedIndexStore(IndexCopyBehavior copyOn) {
+        super(copyOn);
+        assert copyOn != null;
+        this.copyOn = copyOn;
+    }
+
+    @Override
+    Object insertInternal(Comparable value, QueryableEntry record) {
+        if (fallbackStore == null && value != NULL && !isPrimitiveKey(value)) {
+            if (keyType == null && isSupportedKeyType(typeOf(value))) {
+                keyType = typeOf(value);
+            } else {
+                inflate();
+            }
+        }
+
+        if (fallbackStore != null) {
+            if (multiResultHasToDetectDuplicates()) {
+                fallbackStore.setMultiResultHasToDetectDuplicates();
+            }
+            return fallbackStore.insertInternal(value, record);
+        }
+
+        Data recordKey = record.getKeyData();
+        if (value == NULL) {
+            Object oldValue = recordsWithNullValue.get(recordKey);
+            recordsWithNullValue = putRecord(recordsWithNullValue, record);
+            return oldValue;
+        }
+
+        long key = encode(value, keyType);
+        Map<Data, QueryableEntry> records = recordMap.get(key);
+        Object oldValue = records == null ? null : records.get(recordKey);
+        recordMap.put(key, putRecord(records, record));
+        return oldValue;
+    }
+
+    @Override
+    Object removeInternal(Comparable value, Data recordKey) {
+        if (fallbackStore != null) {
+            return fallbackStore.removeInternal(value, recordKey);
+        }
+
+        if (value == NULL) {
+            Object oldValue = recordsWithNullValue.get(recordKey);
+            if (oldValue != null) {
+                Map<Data, QueryableEntry> records = removeRecord(recordsWithNullValue, recordKey);
+                recordsWithNullValue = records == null ? Collections.<Data, QueryableEntry>emptyMap() : records;
+            }
+            return oldValue;
+        }
+
+        if (!isPrimitiveKey(value)) {
+            // such a value is never stored in the primitive representation
+            return null;
+        }
+
+        long key = encode(value, keyType);
+        Map<Data, QueryableEntry> records = recordMap.get(key);
+        Object oldValue = records == null ? null : records.get(recordKey);
+        if (oldValue != null) {
+            records = removeRecord(records, recordKey);
+            if (records == null) {
+                recordMap.remove(key);
+            } else {
+                recordMap.put(key, records);
+            }
+        }
+        return oldValue;
+    }
+
+    @Override
+    public void clear() {
+        takeWriteLock();
+        try {
+            recordsWithNullValue = emptyMap();
+            recordMap.clear();
+            keyType = null;
+            fallbackStore = null;
+            resetStatistics();
+        } finally {
+            releaseWriteLock();
+        }
+    }
+
+    @Override
+    void collectStatistics(final IndexStatistics.Builder builder) {
+        if (fallbackStore != null) {
+            fallbackStore.collectStatistics(builder);
+            return;
+        }
+
+        builder.add(NULL, recordsWithNullValue.size());
+        recordMap.forEach(new LongSortedMap.EntryVisitor<Map<Data, QueryableEntry>>() {
+            @Override
+            public void visit(long key, Map<Data, QueryableEntry> records) {
+                builder.add(decode(key, keyType), records.size());
+            }
+        });
+    }
+
+    @Override
+    boolean isOrdered() {
+        return true;
+    }
+
+    @Override
+    public Set<QueryableEntry> getRecords(Comparable value) {
+        takeReadLock();
+        try {
+            if (fallbackStore != null) {
+                return fallbackStore.getRecords(value);
+            }
+
+            if (value == NULL) {
+                return toSingleResultSet(recordsWithNullValue);
+            } else if (keyType == null) {
+                return emptySet();
+            } else {
+                return toSingleResultSet(recordMap.get(encodeSearchedValue(value)));
+            }
+        } finally {
+            releaseReadLock();
+        }
+    }
+
+    @Override
+    public Set<QueryableEntry> getRecords(Set<Comparable> values) {
+        takeReadLock();
+        try {
+            if (fallbackStore != null) {
+                return fallbackStore.getRecords(values);
+            }
+
+            MultiResultSet results = createMultiResultSet();
+            for (Comparable value : values) {
+                Map<Data, QueryableEntry> records;
+                if (value == NULL) {
+                    records = recordsWithNullValue;
+                } else if (keyType == null) {
+                    continue;
+                } else {
+                    records = recordMap.get(encodeSearchedValue(value));
+                }
+                if (records != null) {
+                    copyToMultiResultSet(results, records);
+                }
+            }
+            return results;
+        } finally {
+            releaseReadLock();
+        }
+    }
+
+    @Override
+    public Set<QueryableEntry> getRecords(Comparison comparison, Comparable searchedValue) {
+        takeReadLock();
+        try {
+            if (fallbackStore != null) {
+                return fallbackStore.getRecords(comparison, searchedValue);
+            }
+
+            MultiResultSet results = createMultiResultSet();
+            if (keyType == null) {
+                return results;
+            }
+
+            long key = encodeSearchedValue(searchedValue);
+            ResultCollector collector = new ResultCollector(results);
+            switch (comparison) {
+                case LESS:
+                    recordMap.forEach(Long.MIN_VALUE, true, key, false, collector);
+                    break;
+                case LESS_OR_EQUAL:
+                    recordMap.forEach(Long.MIN_VALUE, true, key, true, collector);
+                    break;
+                case GREATER:
+                    recordMap.forEach(key, false, Long.MAX_VALUE, true, collector);
+                    break;
+                case GREATER_OR_EQUAL:
+                    recordMap.forEach(key, true, Long.MAX_VALUE, true, collector);
+                    break;
+                case NOT_EQUAL:
+                    recordMap.forEach(Long.MIN_VALUE, true, key, false, collector);
+                    recordMap.forEach(key, false, Long.MAX_VALUE, true, collector);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unrecognized comparison: " + comparison);
+            }
+            return results;
+        } finally {
+            releaseReadLock();
+        }
+    }
+
+    @Override
+    public Set<QueryableEntry> getRecords(Comparable from, boolean fromInclusive, Comparable to, boolean toInclusive) {
+        takeReadLock();
+        try {
+            if (fallbackStore != null) {
+                return fallbackStore.getRecords(from, fromInclusive, to, toInclusive);
+            }
+
+            if (keyType == null) {
+                return emptySet();
+            }
+
+            long fromKey = encodeSearchedValue(from);
+            long toKey = encodeSearchedValue(to);
+            if (fromKey == toKey) {
+                if (!fromInclusive || !toInclusive) {
+                    return emptySet();
+                }
+                return toSingleResultSet(recordMap.get(fromKey));
+            } else if (fromKey > toKey) {
+                return emptySet();
+            }
+
+            MultiResultSet results = createMultiResultSet();
+            recordMap.forEach(fromKey, fromInclusive, toKey, toInclusive, new ResultCollector(results));
+            return results;
+        } finally {
+            releaseReadLock();
+        }
+    }
+
+    private boolean isPrimitiveKey(Comparable value) {
+        return keyType != null && typeOf(value) == keyType;
+    }
+
+    /**
+     * Moves the contents of this store to an {@link OrderedIndexStore} which
+     * serves all the requests from then on.
+     */
+    private void inflate() {
+        final OrderedIndexStore store = new OrderedIndexStore(copyOn);
+        if (multiResultHasToDetectDuplicates()) {
+            store.setMultiResultHasToDetectDuplicates();
+        }
+
+        for (QueryableEntry record : recordsWithNullValue.values()) {
+            store.insertInternal(NULL, record);
+        }
+        recordMap.forEach(new LongSortedMap.EntryVisitor<Map<Data, QueryableEntry>>() {
+            @Override
+            public void visit(long key, Map<Data, QueryableEntry> records) {
+                Comparable value = decode(key, keyType);
+                for (QueryableEntry record : records.values()) {
+                    store.insertInternal(value, record);
+                }
+            }
+        });
+
+        recordsWithNullValue = emptyMap();
+        recordMap.clear();
+        fallbackStore = store;
+    }
+
+    /**
+     * Returns the records map with the given record put into it. Records maps
+     * holding a single record are immutable singleton maps, larger ones are
+     * updated in place unless the copy-on-write behavior is requested.
+     */
+    private Map<Data, QueryableEntry> putRecord(Map<Data, QueryableEntry> records, QueryableEntry record) {
+        Data recordKey = record.getKeyData();
+        if (records == null || records.isEmpty() || records.size() == 1 && records.containsKey(recordKey)) {
+            return singletonMap(recordKey, record);
+        }
+
+        if (records.size() == 1 || copyOn == IndexCopyBehavior.COPY_ON_WRITE) {
+            Map<Data, QueryableEntry> copy = createRecordsMap(records.size() + 1);
+            copy.putAll(records);
+            copy.put(recordKey, record);
+            return copy;
+        }
+
+        records.put(recordKey, record);
+        return records;
+    }
+
+    /**
+     * Returns the records map with the given record removed from it or
+     * {@code null} if no records are left. The record is expected to be
+     * present in the given map.
+     */
+    private Map<Data, QueryableEntry> removeRecord(Map<Data, QueryableEntry> records, Data recordKey) {
+        if (records.size() == 1) {
+            return null;
+        }
+
+        if (records.size() == 2) {
+            for (Map.Entry<Data, QueryableEntry> entry : records.entrySet()) {
+                if (!entry.getKey().equals(recordKey)) {
+                    return singletonMap(entry.getKey(), entry.getValue());
+                }
+            }
+        }
+
+        if (copyOn == IndexCopyBehavior.COPY_ON_WRITE) {
+            Map<Data, QueryableEntry> copy = createRecordsMap(records.size());
+            copy.putAll(records);
+            copy.remove(recordKey);
+            return copy;
+        }
+
+        records.remove(recordKey);
+        return records;
+    }
+
+    /**
+     * Creates a map for the records sharing the same value. The map escapes
+     * the lock only if the results are never copied.
+     */
+    private Map<Data, QueryableEntry> createRecordsMap(int expectedSize) {
+        if (copyOn == IndexCopyBehavior.NEVER) {
+            return new ConcurrentHashMap<Data, QueryableEntry>(expectedSize, LOAD_FACTOR, 1);
+        } else {
+            return new HashMap<Data, QueryableEntry>(expectedSize);
+        }
+    }
+
+    private long encodeSearchedValue(Comparable value) {
+        AttributeType type = typeOf(value);
+        if (!isSameKind(type, keyType)) {
+            throw new IllegalArgumentException("Unexpected value type " + value.getClass().getName()
+                    + " for an index storing values of type " + keyType);
+        }
+        return encode(value, type);
+    }
+
+    private static AttributeType typeOf(Comparable value) {
+        return ReflectionHelper.getAttributeType(value.getClass());
+    }
+
+    private static boolean isSupportedKeyType(AttributeType type) {
+        return type != null && type != AttributeType.SQL_TIMESTAMP && kindOf(type) != null;
+    }
+
+    private static boolean isSameKind(AttributeType type, AttributeType otherType) {
+        AttributeType kind = kindOf(type);
+        return kind != null && kind == kindOf(otherType);
+    }
+
+    /**
+     * Returns the type whose encoding is used for values of the given type:
+     * {@link AttributeType#LONG} for the integral types, {@link
+     * AttributeType#DOUBLE} for the floating point types and {@link
+     * AttributeType#DATE} for the date types or {@code null} if the values of
+     * the given type can't be encoded.
+     */
+    private static AttributeType kindOf(AttributeType type) {
+        if (type == null) {
+            return null;
+        }
+        switch (type) {
+            case LONG:
+            case INTEGER:
+            case SHORT:
+            case BYTE:
+                return AttributeType.LONG;
+            case DOUBLE:
+            case FLOAT:
+                return AttributeType.DOUBLE;
+            case DATE:
+            case SQL_DATE:
+            case SQL_TIMESTAMP:
+                return AttributeType.DATE;
+            default:
+                return null;
+        }
+    }
+
+    static long encode(Comparable value, AttributeType type) {
+        switch (kindOf(type)) {
+            case DOUBLE:
+                return encodeDouble(((Number) value).doubleValue());
+            case DATE:
+                return ((Date) value).getTime();
+            default:
+                return ((Number) value).longValue();
+        }
+    }
+
+    static Comparable decode(long key, AttributeType type) {
+        switch (type) {
+            case LONG:
+                return key;
+            case INTEGER:
+                return (int) key;
+            case SHORT:
+                return (short) key;
+            case BYTE:
+                return (byte) key;
+            case DOUBLE:
+                return decodeDouble(key);
+            case FLOAT:
+                return (float) decodeDouble(key);
+            case DATE:
+                return new Date(key);
+            case SQL_DATE:
+                return new java.sql.Date(key);
+            default:
+                throw new IllegalArgumentException("Unsupported type: " + type);
+        }
+    }
+
+    /**
+     * Encodes the given double into a long which sorts the same way as
+     * {@link Double#compareTo} does, including {@code -0.0} and {@code NaN}.
+     */
+    static long encodeDouble(double value) {
+        long bits = Double.doubleToLongBits(value);
+        return bits ^ ((bits >> Long.SIZE - 1) & Long.MAX_VALUE);
+    }
+
+    static double decodeDouble(long key) {
+        return Double.longBitsToDouble(key ^ ((key >> Long.SIZE - 1) & Long.MAX_VALUE));
+    }
+
+    /**
+     * Copies the visited records maps to a result set.
+     */
+    private final class ResultCollector implements LongSortedMap.EntryVisitor<Map<Data, QueryableEntry>> {
+
+        private final MultiResultSet results;
+
+        ResultCollector(MultiResultSet results) {
+            this.results = results;
+        }
+
+        @Override
+        public void visit(long key, Map<Data, QueryableEntry> records) {
+            copyToMultiResultSet(results, records);
+        }
+
+    }
+
+}
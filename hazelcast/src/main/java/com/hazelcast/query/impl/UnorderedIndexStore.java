@@ -68,11 +68,25 @@ public class UnorderedIndexStore extends BaseIndexStore {
         try {
             recordsWithNullValue.clear();
             recordMap.clear();
+            resetStatistics();
         } finally {
             releaseWriteLock();
         }
     }
 
+    @Override
+    void collectStatistics(IndexStatistics.Builder builder) {
+        builder.add(NULL, recordsWithNullValue.size());
+        for (Map.Entry<Comparable, Map<Data, QueryableEntry>> entry : recordMap.entrySet()) {
+            builder.add(entry.getKey(), entry.getValue().size());
+        }
+    }
+
+    @Override
+    boolean isOrdered() {
+        return false;
+    }
+
     @Override
     public Set<QueryableEntry> getRecords(Comparable value) {
         takeReadLock();
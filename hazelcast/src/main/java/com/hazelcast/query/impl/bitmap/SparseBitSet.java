@@ -0,0 +1,544 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.query.impl.bitmap;
+
+import java.util.Arrays;
+
+import static com.hazelcast.util.Preconditions.checkNotNegative;
+
+/**
+ * A compressed set of non-negative {@code int} values.
+ * <p>
+ * The values are grouped by their upper 16 bits into containers, in the
+ * spirit of Roaring bitmaps: a container holding at most {@link
+ * #ARRAY_CONTAINER_MAX_SIZE} values is a sorted {@code char} array, a denser
+ * one is a plain 2<sup>16</sup>-bit bitmap. Sparse sets take about 2 bytes per
+ * value while dense ones take 1 bit per possible value, and set operations
+ * work container-wise without touching the values one by one where possible.
+ * <p>
+ * The set is not thread-safe.
+ */
+public final class SparseBitSet {
+
+    static final int ARRAY_CONTAINER_MAX_SIZE = 4096;
+
+    private static final int CONTAINER_SHIFT = 16;
+    private static final int LOW_BITS_MASK = 0xFFFF;
+    private static final int BITMAP_WORDS = 1024;
+    private static final int WORD_SHIFT = 6;
+    private static final int INITIAL_CAPACITY = 4;
+
+    private char[] keys;
+    private Container[] containers;
+    private int containerCount;
+
+    public SparseBitSet() {
+        this.keys = new char[INITIAL_CAPACITY];
+        this.containers = new Container[INITIAL_CAPACITY];
+    }
+
+    private SparseBitSet(int capacity) {
+        this.keys = new char[Math.max(capacity, 1)];
+        this.containers = new Container[Math.max(capacity, 1)];
+    }
+
+    /**
+     * Adds the given value to this set.
+     *
+     * @return {@code true} if the value was not present in this set.
+     */
+    public boolean add(int value) {
+        checkNotNegative(value, "value can't be negative");
+
+        char key = (char) (value >>> CONTAINER_SHIFT);
+        int index = indexOf(key);
+        if (index < 0) {
+            index = -(index + 1);
+            insertContainer(index, key, new ArrayContainer());
+        }
+
+        Container container = containers[index];
+        int sizeBefore = container.cardinality();
+        containers[index] = container.add((char) (value & LOW_BITS_MASK));
+        return containers[index].cardinality() != sizeBefore;
+    }
+
+    /**
+     * Removes the given value from this set.
+     *
+     * @return {@code true} if the value was present in this set.
+     */
+    public boolean remove(int value) {
+        if (value < 0) {
+            return false;
+        }
+
+        int index = indexOf((char) (value >>> CONTAINER_SHIFT));
+        if (index < 0) {
+            return false;
+        }
+
+        Container container = containers[index];
+        int sizeBefore = container.cardinality();
+        container = container.remove((char) (value & LOW_BITS_MASK));
+        if (container.cardinality() == 0) {
+            removeContainer(index);
+        } else {
+            containers[index] = container;
+        }
+        return container.cardinality() != sizeBefore;
+    }
+
+    public boolean contains(int value) {
+        if (value < 0) {
+            return false;
+        }
+
+        int index = indexOf((char) (value >>> CONTAINER_SHIFT));
+        return index >= 0 && containers[index].contains((char) (value & LOW_BITS_MASK));
+    }
+
+    public boolean isEmpty() {
+        return containerCount == 0;
+    }
+
+    /**
+     * Returns the number of values in this set.
+     */
+    public int cardinality() {
+        int cardinality = 0;
+        for (int i = 0; i < containerCount; i++) {
+            cardinality += containers[i].cardinality();
+        }
+        return cardinality;
+    }
+
+    /**
+     * Returns the smallest value of this set greater than or equal to the
+     * given one or {@code -1} if there is no such value.
+     */
+    public int nextSetBit(int from) {
+        if (from < 0) {
+            from = 0;
+        }
+
+        int index = indexOf((char) (from >>> CONTAINER_SHIFT));
+        int low = from & LOW_BITS_MASK;
+        if (index < 0) {
+            index = -(index + 1);
+            low = 0;
+        }
+
+        for (; index < containerCount; index++, low = 0) {
+            int next = containers[index].next(low);
+            if (next >= 0) {
+                return keys[index] << CONTAINER_SHIFT | next;
+            }
+        }
+        return -1;
+    }
+
+    public void clear() {
+        Arrays.fill(containers, 0, containerCount, null);
+        containerCount = 0;
+    }
+
+    /**
+     * Returns an independent copy of this set.
+     */
+    public SparseBitSet copy() {
+        SparseBitSet copy = new SparseBitSet(containerCount);
+        for (int i = 0; i < containerCount; i++) {
+            copy.keys[i] = keys[i];
+            copy.containers[i] = containers[i].copy();
+        }
+        copy.containerCount = containerCount;
+        return copy;
+    }
+
+    /**
+     * Returns a new set holding the values present in both this and the
+     * given set.
+     */
+    public SparseBitSet and(SparseBitSet other) {
+        SparseBitSet result = new SparseBitSet(Math.min(containerCount, other.containerCount));
+        int i = 0;
+        int j = 0;
+        while (i < containerCount && j < other.containerCount) {
+            if (keys[i] < other.keys[j]) {
+                i++;
+            } else if (keys[i] > other.keys[j]) {
+                j++;
+            } else {
+                Container container = containers[i].and(other.containers[j]);
+                if (container.cardinality() > 0) {
+                    result.appendContainer(keys[i], container);
+                }
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns a new set holding the values present in this or the given set.
+     */
+    public SparseBitSet or(SparseBitSet other) {
+        SparseBitSet result = new SparseBitSet(containerCount + other.containerCount);
+        int i = 0;
+        int j = 0;
+        while (i < containerCount || j < other.containerCount) {
+            if (j == other.containerCount || i < containerCount && keys[i] < other.keys[j]) {
+                result.appendContainer(keys[i], containers[i].copy());
+                i++;
+            } else if (i == containerCount || keys[i] > other.keys[j]) {
+                result.appendContainer(other.keys[j], other.containers[j].copy());
+                j++;
+            } else {
+                result.appendContainer(keys[i], containers[i].or(other.containers[j]));
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns a new set holding the values present in this set, but absent
+     * in the given one.
+     */
+    public SparseBitSet andNot(SparseBitSet other) {
+        SparseBitSet result = new SparseBitSet(containerCount);
+        int j = 0;
+        for (int i = 0; i < containerCount; i++) {
+            while (j < other.containerCount && other.keys[j] < keys[i]) {
+                j++;
+            }
+            Container container;
+            if (j < other.containerCount && other.keys[j] == keys[i]) {
+                container = containers[i].andNot(other.containers[j]);
+            } else {
+                container = containers[i].copy();
+            }
+            if (container.cardinality() > 0) {
+                result.appendContainer(keys[i], container);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "SparseBitSet{cardinality=" + cardinality() + ", containers=" + containerCount + '}';
+    }
+
+    private int indexOf(char key) {
+        int low = 0;
+        int high = containerCount - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            char middleKey = keys[middle];
+            if (middleKey < key) {
+                low = middle + 1;
+            } else if (middleKey > key) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -(low + 1);
+    }
+
+    private void insertContainer(int index, char key, Container container) {
+        ensureCapacity(containerCount + 1);
+        System.arraycopy(keys, index, keys, index + 1, containerCount - index);
+        System.arraycopy(containers, index, containers, index + 1, containerCount - index);
+        keys[index] = key;
+        containers[index] = container;
+        containerCount++;
+    }
+
+    private void appendContainer(char key, Container container) {
+        ensureCapacity(containerCount + 1);
+        keys[containerCount] = key;
+        containers[containerCount] = container;
+        containerCount++;
+    }
+
+    private void removeContainer(int index) {
+        System.arraycopy(keys, index + 1, keys, index, containerCount - index - 1);
+        System.arraycopy(containers, index + 1, containers, index, containerCount - index - 1);
+        containers[--containerCount] = null;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > keys.length) {
+            int newCapacity = Math.max(capacity, keys.length << 1);
+            keys = Arrays.copyOf(keys, newCapacity);
+            containers = Arrays.copyOf(containers, newCapacity);
+        }
+    }
+
+    /**
+     * Holds the lower 16 bits of the values sharing the same upper 16 bits.
+     * The mutating methods return the container to use from then on, which
+     * may differ from the one the method was invoked on.
+     */
+    private abstract static class Container {
+
+        abstract int cardinality();
+
+        abstract boolean contains(char value);
+
+        abstract Container add(char value);
+
+        abstract Container remove(char value);
+
+        /**
+         * Returns the smallest value greater than or equal to the given one
+         * or {@code -1} if there is no such value.
+         */
+        abstract int next(int from);
+
+        abstract Container copy();
+
+        abstract long[] toWords();
+
+        Container and(Container other) {
+            if (other instanceof ArrayContainer) {
+                return other.and(this);
+            }
+            long[] words = toWords();
+            long[] otherWords = ((BitmapContainer) other).words;
+            for (int i = 0; i < BITMAP_WORDS; i++) {
+                words[i] &= otherWords[i];
+            }
+            return fromWords(words);
+        }
+
+        Container or(Container other) {
+            long[] words = toWords();
+            long[] otherWords = other.toWords();
+            for (int i = 0; i < BITMAP_WORDS; i++) {
+                words[i] |= otherWords[i];
+            }
+            return fromWords(words);
+        }
+
+        Container andNot(Container other) {
+            long[] words = toWords();
+            long[] otherWords = other.toWords();
+            for (int i = 0; i < BITMAP_WORDS; i++) {
+                words[i] &= ~otherWords[i];
+            }
+            return fromWords(words);
+        }
+
+        static Container fromWords(long[] words) {
+            int cardinality = 0;
+            for (long word : words) {
+                cardinality += Long.bitCount(word);
+            }
+            if (cardinality > ARRAY_CONTAINER_MAX_SIZE) {
+                return new BitmapContainer(words, cardinality);
+            }
+
+            char[] values = new char[Math.max(cardinality, 1)];
+            int size = 0;
+            for (int i = 0; i < BITMAP_WORDS; i++) {
+                long word = words[i];
+                while (word != 0) {
+                    values[size++] = (char) (i << WORD_SHIFT | Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                }
+            }
+            return new ArrayContainer(values, size);
+        }
+
+    }
+
+    private static final class ArrayContainer extends Container {
+
+        private char[] values;
+        private int size;
+
+        ArrayContainer() {
+            this.values = new char[INITIAL_CAPACITY];
+        }
+
+        ArrayContainer(char[] values, int size) {
+            this.values = values;
+            this.size = size;
+        }
+
+        @Override
+        int cardinality() {
+            return size;
+        }
+
+        @Override
+        boolean contains(char value) {
+            return Arrays.binarySearch(values, 0, size, value) >= 0;
+        }
+
+        @Override
+        Container add(char value) {
+            int index = Arrays.binarySearch(values, 0, size, value);
+            if (index >= 0) {
+                return this;
+            }
+            if (size == ARRAY_CONTAINER_MAX_SIZE) {
+                return new BitmapContainer(toWords(), size).add(value);
+            }
+
+            index = -(index + 1);
+            if (size == values.length) {
+                values = Arrays.copyOf(values, Math.min(values.length << 1, ARRAY_CONTAINER_MAX_SIZE));
+            }
+            System.arraycopy(values, index, values, index + 1, size - index);
+            values[index] = value;
+            size++;
+            return this;
+        }
+
+        @Override
+        Container remove(char value) {
+            int index = Arrays.binarySearch(values, 0, size, value);
+            if (index >= 0) {
+                System.arraycopy(values, index + 1, values, index, size - index - 1);
+                size--;
+            }
+            return this;
+        }
+
+        @Override
+        int next(int from) {
+            int index = Arrays.binarySearch(values, 0, size, (char) from);
+            if (index < 0) {
+                index = -(index + 1);
+            }
+            return index < size ? values[index] : -1;
+        }
+
+        @Override
+        Container copy() {
+            return new ArrayContainer(Arrays.copyOf(values, Math.max(size, 1)), size);
+        }
+
+        @Override
+        long[] toWords() {
+            long[] words = new long[BITMAP_WORDS];
+            for (int i = 0; i < size; i++) {
+                char value = values[i];
+                words[value >>> WORD_SHIFT] |= 1L << value;
+            }
+            return words;
+        }
+
+        @Override
+        Container and(Container other) {
+            char[] result = new char[Math.max(size, 1)];
+            int resultSize = 0;
+            for (int i = 0; i < size; i++) {
+                if (other.contains(values[i])) {
+                    result[resultSize++] = values[i];
+                }
+            }
+            return new ArrayContainer(result, resultSize);
+        }
+
+    }
+
+    private static final class BitmapContainer extends Container {
+
+        private final long[] words;
+        private int cardinality;
+
+        BitmapContainer(long[] words, int cardinality) {
+            this.words = words;
+            this.cardinality = cardinality;
+        }
+
+        @Override
+        int cardinality() {
+            return cardinality;
+        }
+
+        @Override
+        boolean contains(char value) {
+            return (words[value >>> WORD_SHIFT] & 1L << value) != 0;
+        }
+
+        @Override
+        Container add(char value) {
+            int index = value >>> WORD_SHIFT;
+            long word = words[index];
+            long updated = word | 1L << value;
+            if (updated != word) {
+                words[index] = updated;
+                cardinality++;
+            }
+            return this;
+        }
+
+        @Override
+        Container remove(char value) {
+            int index = value >>> WORD_SHIFT;
+            long word = words[index];
+            long updated = word & ~(1L << value);
+            if (updated != word) {
+                words[index] = updated;
+                cardinality--;
+                if (cardinality <= ARRAY_CONTAINER_MAX_SIZE / 2) {
+                    return fromWords(words);
+                }
+            }
+            return this;
+        }
+
+        @Override
+        int next(int from) {
+            int index = from >>> WORD_SHIFT;
+            if (index >= BITMAP_WORDS) {
+                return -1;
+            }
+            long word = words[index] & -1L << from;
+            while (true) {
+                if (word != 0) {
+                    return index << WORD_SHIFT | Long.numberOfTrailingZeros(word);
+                }
+                if (++index == BITMAP_WORDS) {
+                    return -1;
+                }
+                word = words[index];
+            }
+        }
+
+        @Override
+        Container copy() {
+            return new BitmapContainer(words.clone(), cardinality);
+        }
+
+        @Override
+        long[] toWords() {
+            return words.clone();
+        }
+
+    }
+
+}
@@ -25,6 +25,8 @@ import com.hazelcast.internal.serialization.impl.NavigableJsonInputAdapter;
 import com.hazelcast.json.internal.JsonPattern;
 import com.hazelcast.json.internal.JsonSchemaHelper;
 import com.hazelcast.json.internal.JsonSchemaNode;
+import com.hazelcast.json.internal.JsonSchemaStructNode;
+import com.hazelcast.json.internal.JsonSchemaTerminalNode;
 import com.hazelcast.util.collection.WeightedEvictableList.WeightedItem;
 
 import java.io.IOException;
@@ -138,6 +140,7 @@ public abstract class AbstractJsonGetter extends Getter {
     }
 
     @Override
+    @SuppressWarnings("checkstyle:npathcomplexity")
     Object getValue(Object obj, String attributePath, Object metadata) throws Exception {
         if (metadata == null) {
             return getValue(obj, attributePath);
@@ -145,6 +148,14 @@ public abstract class AbstractJsonGetter extends Getter {
         JsonSchemaNode schemaNode = (JsonSchemaNode) metadata;
 
         NavigableJsonInputAdapter adapter = annotate(obj);
+        JsonSchemaStructNode rootNode = schemaNode.isTerminal() ? null : (JsonSchemaStructNode) schemaNode;
+        if (rootNode != null) {
+            // the path was resolved against this very value before, go straight to the value
+            int valueLocation = rootNode.getResolvedValueLocation(attributePath);
+            if (valueLocation >= 0) {
+                return convertFromJsonValue(JsonSchemaHelper.parseValue(adapter, valueLocation));
+            }
+        }
         JsonGetterContext queryContext = contextCache.getContext(attributePath);
         List<WeightedItem<JsonPattern>> patternsSnapshot = queryContext.getPatternListSnapshot();
 
@@ -153,11 +164,12 @@ public abstract class AbstractJsonGetter extends Getter {
         for (int i = 0; i < PATTERN_TRY_COUNT && i < patternsSnapshot.size(); i++) {
             WeightedItem<JsonPattern> patternWeightedItem = patternsSnapshot.get(i);
             knownPattern = patternWeightedItem.getItem();
-            JsonValue value = JsonSchemaHelper.findValueWithPattern(adapter, schemaNode, knownPattern, pathCursor);
+            JsonSchemaTerminalNode terminalNode = JsonSchemaHelper.findTerminalWithPattern(adapter, schemaNode,
+                    knownPattern, pathCursor);
             pathCursor.reset();
-            if (value != null) {
+            if (terminalNode != null) {
                 queryContext.voteFor(patternWeightedItem);
-                return convertFromJsonValue(value);
+                return resolveValue(adapter, rootNode, attributePath, terminalNode);
             }
         }
         knownPattern = JsonSchemaHelper.createPattern(adapter, schemaNode, pathCursor);
@@ -167,11 +179,22 @@ public abstract class AbstractJsonGetter extends Getter {
                 return getValue(obj, attributePath);
             }
             queryContext.addOrVoteForPattern(knownPattern);
-            return convertFromJsonValue(JsonSchemaHelper.findValueWithPattern(adapter, schemaNode, knownPattern, pathCursor));
+            JsonSchemaTerminalNode terminalNode = JsonSchemaHelper.findTerminalWithPattern(adapter, schemaNode,
+                    knownPattern, pathCursor);
+            return terminalNode == null ? null : resolveValue(adapter, rootNode, attributePath, terminalNode);
         }
         return null;
     }
 
+    private static Object resolveValue(NavigableJsonInputAdapter adapter, JsonSchemaStructNode rootNode,
+                                       String attributePath, JsonSchemaTerminalNode terminalNode) throws IOException {
+        int valueLocation = terminalNode.getValueStartLocation();
+        if (rootNode != null) {
+            rootNode.setResolvedValueLocation(attributePath, valueLocation);
+        }
+        return convertFromJsonValue(JsonSchemaHelper.parseValue(adapter, valueLocation));
+    }
+
     @Override
     Class getReturnType() {
         throw new IllegalArgumentException("Non applicable for Json getters");
@@ -0,0 +1,183 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.query.impl.getters;
+
+import com.hazelcast.internal.serialization.PortableContext;
+import com.hazelcast.nio.BufferObjectDataInput;
+import com.hazelcast.nio.serialization.ClassDefinition;
+import com.hazelcast.nio.serialization.FieldDefinition;
+import com.hazelcast.nio.serialization.FieldType;
+
+import java.io.IOException;
+
+import static com.hazelcast.nio.Bits.INT_SIZE_IN_BYTES;
+import static com.hazelcast.nio.Bits.SHORT_SIZE_IN_BYTES;
+
+/**
+ * Attribute path of the portable values compiled against a class
+ * definition.
+ * <p>
+ * The path is resolved to the indexes of its fields once, so reading the
+ * value of the path is reduced to following the field positions stored in
+ * the portable streams: no path parsing, no class definition lookups of the
+ * nested portables and no navigation context. Only the paths consisting of
+ * the plain field names, all of them portable except the last one which is
+ * a primitive or a string, are compiled; the class definitions of the
+ * nested portables are verified against the streams while reading and the
+ * reading is {@link #UNRESOLVED abandoned} on a mismatch.
+ */
+final class CompiledPortablePath {
+
+    /**
+     * Returned by {@link #read} if the stream doesn't match the class
+     * definitions the path was compiled against.
+     */
+    static final Object UNRESOLVED = new Object();
+
+    /**
+     * factoryId, classId, version, finalPosition and fieldCount precede the
+     * field positions of a portable.
+     */
+    private static final int HEADER_SIZE = 5 * INT_SIZE_IN_BYTES;
+
+    private static final int VERSION_OFFSET = 2 * INT_SIZE_IN_BYTES;
+
+    private final int[] fieldIndexes;
+    private final int[] factoryIds;
+    private final int[] classIds;
+    private final int[] versions;
+    private final FieldType leafType;
+
+    private CompiledPortablePath(int[] fieldIndexes, int[] factoryIds, int[] classIds, int[] versions,
+                                 FieldType leafType) {
+        this.fieldIndexes = fieldIndexes;
+        this.factoryIds = factoryIds;
+        this.classIds = classIds;
+        this.versions = versions;
+        this.leafType = leafType;
+    }
+
+    /**
+     * Compiles the given path against the given class definition.
+     *
+     * @return the compiled path or {@code null} if the path can't be compiled
+     * and must be read by the {@link com.hazelcast.nio.serialization.PortableReader}.
+     */
+    static CompiledPortablePath compile(PortableContext context, ClassDefinition classDefinition, String path) {
+        if (path.indexOf('[') >= 0) {
+            return null;
+        }
+        String[] fieldNames = path.split("\\.", -1);
+        int depth = fieldNames.length;
+        int[] fieldIndexes = new int[depth];
+        int[] factoryIds = new int[depth];
+        int[] classIds = new int[depth];
+        int[] versions = new int[depth];
+
+        ClassDefinition current = classDefinition;
+        for (int i = 0; i < depth; ++i) {
+            FieldDefinition field = current.getField(fieldNames[i]);
+            if (field == null) {
+                return null;
+            }
+            fieldIndexes[i] = field.getIndex();
+            if (i == depth - 1) {
+                return isCompilableLeaf(field.getType())
+                        ? new CompiledPortablePath(fieldIndexes, factoryIds, classIds, versions, field.getType()) : null;
+            }
+            if (field.getType() != FieldType.PORTABLE) {
+                return null;
+            }
+            current = context.lookupClassDefinition(field.getFactoryId(), field.getClassId(), field.getVersion());
+            if (current == null) {
+                return null;
+            }
+            factoryIds[i + 1] = current.getFactoryId();
+            classIds[i + 1] = current.getClassId();
+            versions[i + 1] = current.getVersion();
+        }
+        return null;
+    }
+
+    /**
+     * Reads the value of this path from the given portable stream.
+     *
+     * @param in    the stream to read from.
+     * @param start the position of the portable header in the stream.
+     * @return the value read or {@link #UNRESOLVED} if the stream doesn't
+     * match the compiled path.
+     */
+    Object read(BufferObjectDataInput in, int start) throws IOException {
+        int portableStart = start;
+        int last = fieldIndexes.length - 1;
+        for (int i = 0; ; ++i) {
+            int fieldPosition = in.readInt(portableStart + HEADER_SIZE + fieldIndexes[i] * INT_SIZE_IN_BYTES);
+            // the field name and type precede the value
+            int valuePosition = fieldPosition + SHORT_SIZE_IN_BYTES + in.readShort(fieldPosition) + 1;
+            if (i == last) {
+                return readLeaf(in, valuePosition);
+            }
+
+            if (in.readBoolean(valuePosition)) {
+                // null portable
+                return null;
+            }
+            portableStart = valuePosition + 1;
+            if (!matches(in, portableStart, i + 1)) {
+                return UNRESOLVED;
+            }
+        }
+    }
+
+    private boolean matches(BufferObjectDataInput in, int portableStart, int level) throws IOException {
+        return in.readInt(portableStart) == factoryIds[level]
+                && in.readInt(portableStart + INT_SIZE_IN_BYTES) == classIds[level]
+                && in.readInt(portableStart + VERSION_OFFSET) == versions[level];
+    }
+
+    @SuppressWarnings("checkstyle:cyclomaticcomplexity")
+    private Object readLeaf(BufferObjectDataInput in, int position) throws IOException {
+        switch (leafType) {
+            case BYTE:
+                return in.readByte(position);
+            case SHORT:
+                return in.readShort(position);
+            case INT:
+                return in.readInt(position);
+            case LONG:
+                return in.readLong(position);
+            case FLOAT:
+                return in.readFloat(position);
+            case DOUBLE:
+                return in.readDouble(position);
+            case BOOLEAN:
+                return in.readBoolean(position);
+            case CHAR:
+                return in.readChar(position);
+            case UTF:
+                in.position(position);
+                return in.readUTF();
+            default:
+                throw new IllegalStateException("Unexpected type: " + leafType);
+        }
+    }
+
+    private static boolean isCompilableLeaf(FieldType type) {
+        return !type.isArrayType() && type != FieldType.PORTABLE;
+    }
+
+}
@@ -19,14 +19,26 @@ package com.hazelcast.query.impl.getters;
 import com.hazelcast.internal.serialization.InternalSerializationService;
 import com.hazelcast.internal.serialization.PortableContext;
 import com.hazelcast.internal.serialization.impl.DefaultPortableReader;
+import com.hazelcast.nio.BufferObjectDataInput;
 import com.hazelcast.nio.serialization.ClassDefinition;
 import com.hazelcast.nio.serialization.Data;
 import com.hazelcast.nio.serialization.FieldDefinition;
 import com.hazelcast.nio.serialization.PortableReader;
 
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
 final class PortableGetter extends Getter {
 
+    /**
+     * The maximum number of the paths compiled per class definition, the
+     * paths beyond the limit are read by the portable readers.
+     */
+    static final int MAX_COMPILED_PATHS = 100;
+
     private final InternalSerializationService serializationService;
+    private final ConcurrentMap<ClassDefinition, ConcurrentMap<String, Object>> compiledPaths =
+            new ConcurrentHashMap<ClassDefinition, ConcurrentMap<String, Object>>();
 
     public PortableGetter(InternalSerializationService serializationService) {
         super(null);
@@ -37,8 +49,26 @@ final class PortableGetter extends Getter {
     Object getValue(Object target, String fieldPath) throws Exception {
         Data data = (Data) target;
         PortableContext context = serializationService.getPortableContext();
+
+        BufferObjectDataInput in = serializationService.createObjectDataInput(data);
+        int start = in.position();
+        int factoryId = in.readInt();
+        int classId = in.readInt();
+        int version = in.readInt();
+        ClassDefinition classDefinition = context.lookupClassDefinition(factoryId, classId, version);
+        if (classDefinition != null) {
+            CompiledPortablePath compiledPath = getCompiledPath(context, classDefinition, fieldPath);
+            if (compiledPath != null) {
+                Object value = compiledPath.read(in, start);
+                if (value != CompiledPortablePath.UNRESOLVED) {
+                    return value;
+                }
+            }
+        } else {
+            classDefinition = context.lookupClassDefinition(data);
+        }
+
         PortableReader reader = serializationService.createPortableReader(data);
-        ClassDefinition classDefinition = context.lookupClassDefinition(data);
         FieldDefinition fieldDefinition = context.getFieldDefinition(classDefinition, fieldPath);
 
         if (fieldDefinition != null) {
@@ -48,6 +78,26 @@ final class PortableGetter extends Getter {
         }
     }
 
+    private CompiledPortablePath getCompiledPath(PortableContext context, ClassDefinition classDefinition, String path) {
+        ConcurrentMap<String, Object> paths = compiledPaths.get(classDefinition);
+        if (paths == null) {
+            paths = new ConcurrentHashMap<String, Object>();
+            ConcurrentMap<String, Object> existing = compiledPaths.putIfAbsent(classDefinition, paths);
+            paths = existing == null ? paths : existing;
+        }
+
+        Object compiledPath = paths.get(path);
+        if (compiledPath == null) {
+            if (paths.size() >= MAX_COMPILED_PATHS) {
+                return null;
+            }
+            compiledPath = CompiledPortablePath.compile(context, classDefinition, path);
+            // the paths that can't be compiled are remembered too, the compilation is not repeated for them
+            paths.putIfAbsent(path, compiledPath == null ? Boolean.FALSE : compiledPath);
+        }
+        return compiledPath instanceof CompiledPortablePath ? (CompiledPortablePath) compiledPath : null;
+    }
+
     @Override
     Object getValue(Object obj) throws Exception {
         throw new IllegalArgumentException("Path agnostic value extraction unsupported");
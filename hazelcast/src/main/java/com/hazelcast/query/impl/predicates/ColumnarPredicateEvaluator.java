@@ -0,0 +1,214 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.query.impl.predicates;
+
+import com.hazelcast.query.Predicate;
+import com.hazelcast.query.TruePredicate;
+import com.hazelcast.query.impl.FalsePredicate;
+import com.hazelcast.query.impl.PrimitiveColumn;
+
+import java.util.Collection;
+import java.util.Map;
+
+import static com.hazelcast.query.impl.predicates.PredicateUtils.isNull;
+
+/**
+ * Evaluates predicates over {@link PrimitiveColumn primitive columns}
+ * instead of the individual entries.
+ * <p>
+ * Supports the equal, not equal, in, range (greater/less, between) and true
+ * and false predicates combined by the and, or and not predicates. The
+ * evaluation follows the semantics of the {@link Predicate#apply} of the
+ * evaluated predicates: the values given to the predicates are converted to
+ * the types of the attribute values by the same converters and the null
+ * attribute values are matched only by the equal predicates looking for
+ * {@code null} and by the negations.
+ */
+public final class ColumnarPredicateEvaluator {
+
+    private ColumnarPredicateEvaluator() {
+    }
+
+    /**
+     * Collects the attributes referenced by the given predicate.
+     *
+     * @param predicate  the predicate to collect the attributes of.
+     * @param attributes the collection to add the attributes to.
+     * @return {@code true} if the given predicate is supported by this
+     * evaluator, {@code false} otherwise.
+     */
+    public static boolean collectAttributes(Predicate predicate, Collection<String> attributes) {
+        if (predicate instanceof TruePredicate || predicate instanceof FalsePredicate) {
+            return true;
+        } else if (predicate instanceof EqualPredicate || predicate instanceof GreaterLessPredicate
+                || predicate instanceof BetweenPredicate || predicate instanceof BoundedRangePredicate) {
+            // NotEqualPredicate is an EqualPredicate
+            attributes.add(((RangePredicate) predicate).getAttribute());
+            return true;
+        } else if (predicate instanceof InPredicate) {
+            attributes.add(((InPredicate) predicate).attributeName);
+            return true;
+        } else if (predicate instanceof NotPredicate) {
+            return collectAttributes(((NotPredicate) predicate).predicate, attributes);
+        } else if (predicate instanceof AndPredicate) {
+            return collectAttributes(((AndPredicate) predicate).predicates, attributes);
+        } else if (predicate instanceof OrPredicate) {
+            return collectAttributes(((OrPredicate) predicate).predicates, attributes);
+        }
+        return false;
+    }
+
+    /**
+     * Evaluates the given predicate over the given columns.
+     *
+     * @param predicate  the predicate to evaluate.
+     * @param columns    the columns by the attribute names.
+     * @param candidates the slots to evaluate the predicate for.
+     * @return the candidate slots matching the predicate or {@code null} if
+     * the predicate can't be evaluated over the given columns: a column is
+     * missing or invalid or a value given to the predicate can't be
+     * converted to the type of a column.
+     */
+    public static long[] evaluate(Predicate predicate, Map<String, PrimitiveColumn> columns, long[] candidates) {
+        if (predicate instanceof TruePredicate) {
+            return candidates.clone();
+        } else if (predicate instanceof FalsePredicate) {
+            return new long[candidates.length];
+        } else if (predicate instanceof NotEqualPredicate) {
+            long[] equal = evaluateEqual((EqualPredicate) predicate, columns, candidates);
+            return equal == null ? null : andNot(candidates, equal);
+        } else if (predicate instanceof EqualPredicate) {
+            return evaluateEqual((EqualPredicate) predicate, columns, candidates);
+        } else if (predicate instanceof RangePredicate) {
+            return evaluateRange((RangePredicate) predicate, columns, candidates);
+        } else if (predicate instanceof InPredicate) {
+            return evaluateIn((InPredicate) predicate, columns, candidates);
+        } else if (predicate instanceof NotPredicate) {
+            long[] negated = evaluate(((NotPredicate) predicate).predicate, columns, candidates);
+            return negated == null ? null : andNot(candidates, negated);
+        } else if (predicate instanceof AndPredicate) {
+            long[] result = candidates;
+            for (Predicate child : ((AndPredicate) predicate).predicates) {
+                result = evaluate(child, columns, result);
+                if (result == null) {
+                    return null;
+                }
+            }
+            return result == candidates ? candidates.clone() : result;
+        } else if (predicate instanceof OrPredicate) {
+            long[] result = new long[candidates.length];
+            for (Predicate child : ((OrPredicate) predicate).predicates) {
+                long[] matched = evaluate(child, columns, candidates);
+                if (matched == null) {
+                    return null;
+                }
+                for (int i = 0; i < result.length; ++i) {
+                    result[i] |= matched[i];
+                }
+            }
+            return result;
+        }
+        return null;
+    }
+
+    private static boolean collectAttributes(Predicate[] predicates, Collection<String> attributes) {
+        for (Predicate predicate : predicates) {
+            if (!collectAttributes(predicate, attributes)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long[] evaluateEqual(EqualPredicate predicate, Map<String, PrimitiveColumn> columns, long[] candidates) {
+        PrimitiveColumn column = validColumn(columns, predicate.attributeName);
+        if (column == null) {
+            return null;
+        }
+        if (isNull(predicate.value)) {
+            return column.selectNulls(candidates);
+        }
+        if (column.getType() == null) {
+            // only nulls are stored in the column
+            return new long[candidates.length];
+        }
+        Comparable value = column.convert(predicate.value);
+        return value == null ? null : column.selectRange(candidates, value, true, value, true);
+    }
+
+    private static long[] evaluateRange(RangePredicate predicate, Map<String, PrimitiveColumn> columns, long[] candidates) {
+        PrimitiveColumn column = validColumn(columns, predicate.getAttribute());
+        if (column == null) {
+            return null;
+        }
+        if (column.getType() == null) {
+            return new long[candidates.length];
+        }
+        Comparable from = predicate.getFrom();
+        Comparable to = predicate.getTo();
+        Comparable convertedFrom = from == null ? null : column.convert(from);
+        Comparable convertedTo = to == null ? null : column.convert(to);
+        if (from != null && convertedFrom == null || to != null && convertedTo == null) {
+            return null;
+        }
+        return column.selectRange(candidates, convertedFrom, predicate.isFromInclusive(), convertedTo,
+                predicate.isToInclusive());
+    }
+
+    private static long[] evaluateIn(InPredicate predicate, Map<String, PrimitiveColumn> columns, long[] candidates) {
+        PrimitiveColumn column = validColumn(columns, predicate.attributeName);
+        if (column == null) {
+            return null;
+        }
+        if (column.getType() == null) {
+            return new long[candidates.length];
+        }
+        Comparable[] values = new Comparable[predicate.values.length];
+        int count = 0;
+        for (Comparable value : predicate.values) {
+            if (isNull(value)) {
+                // the null attribute values are never matched
+                continue;
+            }
+            Comparable converted = column.convert(value);
+            if (converted == null) {
+                return null;
+            }
+            values[count++] = converted;
+        }
+        if (count < values.length) {
+            Comparable[] nonNullValues = new Comparable[count];
+            System.arraycopy(values, 0, nonNullValues, 0, count);
+            values = nonNullValues;
+        }
+        return column.selectIn(candidates, values);
+    }
+
+    private static PrimitiveColumn validColumn(Map<String, PrimitiveColumn> columns, String attribute) {
+        PrimitiveColumn column = columns.get(attribute);
+        return column == null || !column.isValid() ? null : column;
+    }
+
+    private static long[] andNot(long[] left, long[] right) {
+        long[] result = new long[left.length];
+        for (int i = 0; i < result.length; ++i) {
+            result[i] = left[i] & ~right[i];
+        }
+        return result;
+    }
+
+}
@@ -0,0 +1,338 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.query.impl.predicates;
+
+import com.hazelcast.core.TypeConverter;
+import com.hazelcast.query.IndexAwarePredicate;
+import com.hazelcast.query.Predicate;
+import com.hazelcast.query.impl.Comparison;
+import com.hazelcast.query.impl.IndexStatistics;
+import com.hazelcast.query.impl.Indexes;
+import com.hazelcast.query.impl.InternalIndex;
+import com.hazelcast.query.impl.QueryContext;
+import com.hazelcast.query.impl.SkipIndexPredicate;
+import com.hazelcast.query.impl.predicates.QueryPlan.Access;
+import com.hazelcast.query.impl.predicates.QueryPlan.Step;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import static com.hazelcast.query.impl.QueryContext.IndexMatchHint.EXACT_NAME;
+import static com.hazelcast.query.impl.QueryContext.IndexMatchHint.PREFER_ORDERED;
+import static com.hazelcast.query.impl.QueryContext.IndexMatchHint.PREFER_UNORDERED;
+
+/**
+ * Cost based optimizer. It applies the rules of the {@link
+ * RuleBasedQueryOptimizer} and then plans the execution of the predicate
+ * using the {@link IndexStatistics statistics} of the indexes:
+ * <ul>
+ * <li>The children of the {@link AndPredicate and predicates} are ordered by
+ * their estimated selectivity, so the most selective index is looked up first
+ * and the remaining children are evaluated in the order of the selectivity.
+ * <li>The indexed children matching many more entries than the most
+ * selective one are evaluated on the entries produced by it instead of being
+ * looked up in their indexes, unless both are bitmap indexes which are
+ * intersected cheaply.
+ * <li>The predicates matching most of the entries are evaluated by a full
+ * scan instead of an index lookup.
+ * </ul>
+ * The chosen plan is available for diagnostics through {@link #plan}.
+ */
+public final class CostBasedQueryOptimizer implements QueryOptimizer {
+
+    /**
+     * The estimated share of the matching entries above which a full scan is
+     * cheaper than an index lookup: the lookup materializes the matching
+     * entries and then evaluates the remaining predicates on them anyway.
+     */
+    static final double FULL_SCAN_SELECTIVITY = 0.8;
+
+    /**
+     * An indexed child of an and predicate is looked up in its index only if
+     * it's estimated to match at most this many times more entries than the
+     * most selective child. Otherwise evaluating it on the entries matched by
+     * the most selective child is cheaper than materializing its result.
+     */
+    static final int INDEX_INTERSECTION_RATIO = 8;
+
+    private static final Comparator<Estimate> BY_COUNT = new Comparator<Estimate>() {
+        @Override
+        public int compare(Estimate left, Estimate right) {
+            return left.count < right.count ? -1 : left.count > right.count ? +1 : 0;
+        }
+    };
+
+    private final QueryOptimizer ruleBasedOptimizer = new RuleBasedQueryOptimizer();
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public <K, V> Predicate<K, V> optimize(Predicate<K, V> predicate, Indexes indexes) {
+        return plan(predicate, indexes).getPredicate();
+    }
+
+    /**
+     * Plans the execution of the given predicate.
+     *
+     * @param predicate the predicate to plan the execution of.
+     * @param indexes   the indexes available for the execution.
+     * @return the chosen plan.
+     */
+    public QueryPlan plan(Predicate predicate, Indexes indexes) {
+        Predicate optimized = ruleBasedOptimizer.optimize(predicate, indexes);
+        List<Step> steps = new ArrayList<Step>();
+        if (indexes == null) {
+            steps.add(new Step(optimized, Access.FULL_SCAN, -1));
+            return new QueryPlan(optimized, -1, steps);
+        }
+
+        long entryCount = entryCount(indexes);
+        QueryContext queryContext = new QueryContext(indexes);
+        Predicate planned;
+        if (!isIndexed(optimized, queryContext)) {
+            steps.add(new Step(optimized, Access.FULL_SCAN, -1));
+            planned = optimized;
+        } else if (optimized instanceof AndPredicate) {
+            planned = planAnd((AndPredicate) optimized, queryContext, indexes, entryCount, steps);
+        } else {
+            long estimate = estimate(optimized, indexes, entryCount);
+            if (isPlannable(optimized) && isFullScanCheaper(estimate, entryCount)) {
+                steps.add(new Step(optimized, Access.FULL_SCAN, estimate));
+                planned = new SkipIndexPredicate(optimized);
+            } else {
+                steps.add(new Step(optimized, Access.INDEX, estimate));
+                planned = optimized;
+            }
+        }
+        return new QueryPlan(planned, entryCount, steps);
+    }
+
+    private Predicate planAnd(AndPredicate predicate, QueryContext queryContext, Indexes indexes, long entryCount,
+                              List<Step> steps) {
+        Predicate[] children = predicate.predicates;
+        List<Estimate> indexed = new ArrayList<Estimate>(children.length);
+        List<Predicate> unindexed = new ArrayList<Predicate>(children.length);
+        for (Predicate child : children) {
+            if (isIndexed(child, queryContext)) {
+                long estimate = estimate(child, indexes, entryCount);
+                indexed.add(new Estimate(child, estimate < 0 ? entryCount : estimate, isBitmap(child, indexes)));
+            } else {
+                unindexed.add(child);
+            }
+        }
+        Collections.sort(indexed, BY_COUNT);
+
+        Estimate leader = indexed.get(0);
+        if (isFullScanCheaper(leader.count, entryCount)) {
+            steps.add(new Step(predicate, Access.FULL_SCAN, estimate(predicate, indexes, entryCount)));
+            return new SkipIndexPredicate(predicate);
+        }
+
+        List<Predicate> lookedUp = new ArrayList<Predicate>(children.length);
+        List<Predicate> evaluated = new ArrayList<Predicate>(children.length);
+        List<Step> filterSteps = new ArrayList<Step>(children.length);
+        for (Estimate estimate : indexed) {
+            boolean lookup = estimate == leader || estimate.count <= leader.count * INDEX_INTERSECTION_RATIO
+                    || leader.bitmap && estimate.bitmap;
+            if (lookup) {
+                lookedUp.add(estimate.predicate);
+                steps.add(new Step(estimate.predicate, Access.INDEX, estimate.count));
+            } else {
+                evaluated.add(new SkipIndexPredicate(estimate.predicate));
+                filterSteps.add(new Step(estimate.predicate, Access.FILTER, estimate.count));
+            }
+        }
+        for (Predicate child : unindexed) {
+            evaluated.add(child);
+            filterSteps.add(new Step(child, Access.FILTER, -1));
+        }
+        steps.addAll(filterSteps);
+
+        List<Predicate> planned = new ArrayList<Predicate>(children.length);
+        planned.addAll(lookedUp);
+        planned.addAll(evaluated);
+        for (int i = 0; i < children.length; ++i) {
+            if (planned.get(i) != children[i]) {
+                return new AndPredicate(planned.toArray(new Predicate[0]));
+            }
+        }
+        return predicate;
+    }
+
+    /**
+     * Estimates the number of the entries matching the given predicate.
+     *
+     * @return the estimated number of the entries or {@code -1} if the
+     * number can't be estimated.
+     */
+    private long estimate(Predicate predicate, Indexes indexes, long entryCount) {
+        try {
+            if (predicate instanceof NotEqualPredicate) {
+                NotEqualPredicate notEqual = (NotEqualPredicate) predicate;
+                InternalIndex index = indexes.matchIndex(notEqual.attributeName, PREFER_UNORDERED);
+                if (index == null || !index.isBitmap()) {
+                    return -1;
+                }
+                TypeConverter converter = index.getConverter();
+                return converter == null ? 0
+                        : index.getStatistics().estimateComparison(Comparison.NOT_EQUAL, converter.convert(notEqual.value));
+            } else if (predicate instanceof EqualPredicate) {
+                EqualPredicate equal = (EqualPredicate) predicate;
+                InternalIndex index = indexes.matchIndex(equal.attributeName, PREFER_UNORDERED);
+                TypeConverter converter = index == null ? null : index.getConverter();
+                return index == null ? -1 : converter == null ? 0
+                        : index.getStatistics().estimateEqual(converter.convert(equal.value));
+            } else if (predicate instanceof InPredicate) {
+                return estimateIn((InPredicate) predicate, indexes);
+            } else if (predicate instanceof RangePredicate) {
+                RangePredicate range = (RangePredicate) predicate;
+                return estimateRange(indexes.matchIndex(range.getAttribute(), PREFER_ORDERED), range.getFrom(),
+                        range.isFromInclusive(), range.getTo(), range.isToInclusive());
+            } else if (predicate instanceof CompositeEqualPredicate) {
+                CompositeEqualPredicate equal = (CompositeEqualPredicate) predicate;
+                InternalIndex index = indexes.matchIndex(equal.indexName, EXACT_NAME);
+                TypeConverter converter = index == null ? null : index.getConverter();
+                return index == null ? -1 : converter == null ? 0
+                        : index.getStatistics().estimateEqual(converter.convert(equal.value));
+            } else if (predicate instanceof CompositeRangePredicate) {
+                CompositeRangePredicate range = (CompositeRangePredicate) predicate;
+                return estimateRange(indexes.matchIndex(range.indexName, EXACT_NAME), range.from, range.fromInclusive,
+                        range.to, range.toInclusive);
+            } else if (predicate instanceof AndPredicate) {
+                return estimateAnd((AndPredicate) predicate, indexes, entryCount);
+            } else if (predicate instanceof OrPredicate) {
+                return estimateOr((OrPredicate) predicate, indexes, entryCount);
+            }
+        } catch (RuntimeException e) {
+            // the value can't be converted to the type of the index
+            return -1;
+        }
+        return -1;
+    }
+
+    private static long estimateIn(InPredicate predicate, Indexes indexes) {
+        InternalIndex index = indexes.matchIndex(predicate.attributeName, PREFER_UNORDERED);
+        if (index == null) {
+            return -1;
+        }
+        TypeConverter converter = index.getConverter();
+        if (converter == null) {
+            return 0;
+        }
+        Comparable[] converted = new Comparable[predicate.values.length];
+        for (int i = 0; i < converted.length; ++i) {
+            converted[i] = converter.convert(predicate.values[i]);
+        }
+        return index.getStatistics().estimateIn(converted);
+    }
+
+    private static long estimateRange(InternalIndex index, Comparable from, boolean fromInclusive, Comparable to,
+                                      boolean toInclusive) {
+        if (index == null) {
+            return -1;
+        }
+        TypeConverter converter = index.getConverter();
+        if (converter == null) {
+            return 0;
+        }
+        return index.getStatistics().estimateRange(from == null ? null : converter.convert(from), fromInclusive,
+                to == null ? null : converter.convert(to), toInclusive);
+    }
+
+    /**
+     * Estimates the number of the entries matching all the children assuming
+     * the children are independent.
+     */
+    private long estimateAnd(AndPredicate predicate, Indexes indexes, long entryCount) {
+        if (entryCount <= 0) {
+            return 0;
+        }
+        double estimate = entryCount;
+        boolean known = false;
+        for (Predicate child : predicate.predicates) {
+            long childEstimate = estimate(child, indexes, entryCount);
+            if (childEstimate >= 0) {
+                estimate *= Math.min(1.0, (double) childEstimate / entryCount);
+                known = true;
+            }
+        }
+        return known ? (long) Math.ceil(estimate) : -1;
+    }
+
+    private long estimateOr(OrPredicate predicate, Indexes indexes, long entryCount) {
+        long estimate = 0;
+        for (Predicate child : predicate.predicates) {
+            long childEstimate = estimate(child, indexes, entryCount);
+            if (childEstimate < 0) {
+                return -1;
+            }
+            estimate += childEstimate;
+        }
+        return Math.min(estimate, entryCount);
+    }
+
+    private static boolean isBitmap(Predicate predicate, Indexes indexes) {
+        if (!(predicate instanceof EqualPredicate || predicate instanceof InPredicate)) {
+            return false;
+        }
+        InternalIndex index = indexes.matchIndex(((AbstractPredicate) predicate).attributeName, PREFER_UNORDERED);
+        return index != null && index.isBitmap();
+    }
+
+    private static boolean isIndexed(Predicate predicate, QueryContext queryContext) {
+        return predicate instanceof IndexAwarePredicate && ((IndexAwarePredicate) predicate).isIndexed(queryContext);
+    }
+
+    /**
+     * @return {@code true} if the given predicate is known to this optimizer
+     * and may be wrapped by a {@link SkipIndexPredicate}, {@code false}
+     * otherwise. The predicates like the paging ones are treated specially
+     * by the query engine and must stay intact.
+     */
+    private static boolean isPlannable(Predicate predicate) {
+        return predicate instanceof AbstractIndexAwarePredicate || predicate instanceof OrPredicate
+                || predicate instanceof CompositeEqualPredicate || predicate instanceof CompositeRangePredicate;
+    }
+
+    private static boolean isFullScanCheaper(long estimate, long entryCount) {
+        return entryCount > 0 && estimate > entryCount * FULL_SCAN_SELECTIVITY;
+    }
+
+    private static long entryCount(Indexes indexes) {
+        long entryCount = 0;
+        for (InternalIndex index : indexes.getIndexes()) {
+            entryCount = Math.max(entryCount, index.getStatistics().getEntryCount());
+        }
+        return entryCount;
+    }
+
+    private static final class Estimate {
+
+        final Predicate predicate;
+        final long count;
+        final boolean bitmap;
+
+        Estimate(Predicate predicate, long count, boolean bitmap) {
+            this.predicate = predicate;
+            this.count = count;
+            this.bitmap = bitmap;
+        }
+
+    }
+
+}
@@ -18,6 +18,8 @@ package com.hazelcast.query.impl.predicates;
 
 import com.hazelcast.nio.serialization.BinaryInterface;
 import com.hazelcast.query.Predicate;
+import com.hazelcast.query.impl.Comparison;
+import com.hazelcast.query.impl.Index;
 import com.hazelcast.query.impl.QueryContext;
 import com.hazelcast.query.impl.QueryableEntry;
 
@@ -46,12 +48,18 @@ public final class NotEqualPredicate extends EqualPredicate {
 
     @Override
     public boolean isIndexed(QueryContext queryContext) {
-        return false;
+        // only bitmap indexes evaluate not-equal faster than a full scan
+        Index index = matchIndex(queryContext, QueryContext.IndexMatchHint.PREFER_UNORDERED);
+        return index != null && index.isBitmap();
     }
 
     @Override
     public Set<QueryableEntry> filter(QueryContext queryContext) {
-        return null;
+        Index index = matchIndex(queryContext, QueryContext.IndexMatchHint.PREFER_UNORDERED);
+        if (index == null || !index.isBitmap()) {
+            return null;
+        }
+        return index.getRecords(Comparison.NOT_EQUAL, value);
     }
 
     @Override
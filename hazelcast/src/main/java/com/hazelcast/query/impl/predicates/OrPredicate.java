@@ -23,6 +23,7 @@ import com.hazelcast.nio.serialization.IdentifiedDataSerializable;
 import com.hazelcast.query.IndexAwarePredicate;
 import com.hazelcast.query.Predicate;
 import com.hazelcast.query.VisitablePredicate;
+import com.hazelcast.query.impl.BitmapResultSet;
 import com.hazelcast.query.impl.Indexes;
 import com.hazelcast.query.impl.OrResultSet;
 import com.hazelcast.query.impl.QueryContext;
@@ -33,6 +34,7 @@ import java.io.IOException;
 import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.ListIterator;
 import java.util.Map;
 import java.util.Set;
 
@@ -65,7 +67,7 @@ public final class OrPredicate
                 if (iap.isIndexed(queryContext)) {
                     Set<QueryableEntry> s = iap.filter(queryContext);
                     if (s != null) {
-                        indexedResults.add(s);
+                        addIndexedResult(indexedResults, s);
                     }
                 } else {
                     return null;
@@ -75,6 +77,24 @@ public final class OrPredicate
         return indexedResults.isEmpty() ? null : new OrResultSet(indexedResults);
     }
 
+    /**
+     * Adds the given result to the given results uniting it with a compatible
+     * bitmap result set, if there is any, instead.
+     */
+    private static void addIndexedResult(List<Set<QueryableEntry>> results, Set<QueryableEntry> result) {
+        if (result instanceof BitmapResultSet) {
+            BitmapResultSet bitmapResult = (BitmapResultSet) result;
+            for (ListIterator<Set<QueryableEntry>> iterator = results.listIterator(); iterator.hasNext(); ) {
+                Set<QueryableEntry> existing = iterator.next();
+                if (existing instanceof BitmapResultSet && bitmapResult.isCompatibleWith((BitmapResultSet) existing)) {
+                    iterator.set(bitmapResult.or((BitmapResultSet) existing));
+                    return;
+                }
+            }
+        }
+        results.add(result);
+    }
+
     @Override
     public boolean isIndexed(QueryContext queryContext) {
         for (Predicate predicate : predicates) {
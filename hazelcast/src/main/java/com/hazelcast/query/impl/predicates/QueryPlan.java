@@ -0,0 +1,147 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.query.impl.predicates;
+
+import com.hazelcast.query.Predicate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Describes the execution plan chosen by the {@link CostBasedQueryOptimizer}
+ * for a predicate, intended for diagnostics.
+ * <p>
+ * The plan consists of the optimized predicate and the steps it's evaluated
+ * with in the order of their execution, each step is annotated with the
+ * estimated number of the entries it matches.
+ */
+public final class QueryPlan {
+
+    /**
+     * The way a step of the plan accesses the entries.
+     */
+    public enum Access {
+
+        /**
+         * The entries are looked up in an index.
+         */
+        INDEX,
+
+        /**
+         * The entries produced by the preceding index steps are filtered by
+         * evaluating the predicate of the step.
+         */
+        FILTER,
+
+        /**
+         * All the entries are scanned and filtered by evaluating the
+         * predicate of the step.
+         */
+        FULL_SCAN
+
+    }
+
+    private final Predicate predicate;
+    private final long entryCount;
+    private final List<Step> steps;
+
+    QueryPlan(Predicate predicate, long entryCount, List<Step> steps) {
+        this.predicate = predicate;
+        this.entryCount = entryCount;
+        this.steps = Collections.unmodifiableList(new ArrayList<Step>(steps));
+    }
+
+    /**
+     * @return the optimized predicate to execute.
+     */
+    public Predicate getPredicate() {
+        return predicate;
+    }
+
+    /**
+     * @return the number of the entries the plan was estimated against.
+     */
+    public long getEntryCount() {
+        return entryCount;
+    }
+
+    /**
+     * @return the steps of this plan in the order of their execution.
+     */
+    public List<Step> getSteps() {
+        return steps;
+    }
+
+    /**
+     * @return {@code true} if this plan uses indexes, {@code false} if it
+     * performs a full scan.
+     */
+    public boolean isIndexed() {
+        return !steps.isEmpty() && steps.get(0).getAccess() == Access.INDEX;
+    }
+
+    @Override
+    public String toString() {
+        return "QueryPlan{entryCount=" + entryCount + ", steps=" + steps + '}';
+    }
+
+    /**
+     * A step of a query plan.
+     */
+    public static final class Step {
+
+        private final Predicate predicate;
+        private final Access access;
+        private final long estimatedCount;
+
+        Step(Predicate predicate, Access access, long estimatedCount) {
+            this.predicate = predicate;
+            this.access = access;
+            this.estimatedCount = estimatedCount;
+        }
+
+        /**
+         * @return the predicate evaluated by this step.
+         */
+        public Predicate getPredicate() {
+            return predicate;
+        }
+
+        /**
+         * @return the way this step accesses the entries.
+         */
+        public Access getAccess() {
+            return access;
+        }
+
+        /**
+         * @return the estimated number of the entries matching the predicate
+         * of this step or {@code -1} if the number is unknown.
+         */
+        public long getEstimatedCount() {
+            return estimatedCount;
+        }
+
+        @Override
+        public String toString() {
+            return access + " " + predicate + (estimatedCount < 0 ? "" : " ~" + estimatedCount);
+        }
+
+    }
+
+}
@@ -67,6 +67,12 @@ public final class SpiDataSerializerHook implements DataSerializerHook {
     public static final int UNMODIFIABLE_LAZY_LIST = 18;
     public static final int OPERATION_CONTROL = 19;
     public static final int DISTRIBUTED_OBJECT_NS = 20;
+    /**
+     * The type of the response batches, which are only written by the
+     * OutboundResponseHandler and read by the InboundResponseHandler, so the
+     * factory doesn't create them.
+     */
+    public static final int RESPONSE_BATCH = 21;
 
     private static final DataSerializableFactory FACTORY = createFactoryInternal();
 
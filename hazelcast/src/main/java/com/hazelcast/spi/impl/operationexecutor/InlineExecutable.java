@@ -0,0 +1,51 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.spi.impl.operationexecutor;
+
+/**
+ * Implemented by the partition operations which may be run by the IO thread
+ * that received them instead of a partition operation thread, see
+ * {@link com.hazelcast.spi.properties.GroupProperty#OPERATION_INLINE_EXECUTION_ENABLED}.
+ * <p>
+ * The IO threads must never block, so only the operations which are short,
+ * don't block, don't do any IO and don't invoke other operations qualify.
+ * An operation run inline must not have side effects beyond its partition
+ * either, e.g. it must not run user code, publish events or write through to
+ * a map store: these would run on the IO thread and stall all its
+ * connections.
+ * <p>
+ * An operation run inline is run by an IO thread, not by a
+ * {@link com.hazelcast.spi.impl.operationexecutor.impl.PartitionOperationThread},
+ * even though it owns its partition exclusively while it runs. So it must
+ * not depend on the type of the current thread, e.g. the partition thread
+ * checks and assertions of the invocation and the cache code, the data
+ * structures accessed only by the partition threads like the native storage,
+ * or the batching of the responses sent by the partition threads.
+ */
+public interface InlineExecutable {
+
+    /**
+     * Checks if this operation may be run by an IO thread. Invoked by the IO
+     * thread after the operation is deserialized and before it's run, so it
+     * may depend on the configuration of the data structure the operation
+     * targets.
+     *
+     * @return {@code true} if this operation may be run by an IO thread,
+     * {@code false} if it must be run by a partition operation thread.
+     */
+    boolean isInlineExecutable();
+}
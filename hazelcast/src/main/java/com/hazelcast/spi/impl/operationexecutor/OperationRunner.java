@@ -51,6 +51,34 @@ public abstract class OperationRunner {
 
     public abstract void run(Packet packet) throws Exception;
 
+    /**
+     * Reads the operation of the given packet and prepares it to be run by
+     * {@link #run(Operation)}. Unlike {@link #run(Packet)} it doesn't publish
+     * the packet as the {@link #currentTask() current task}, so it can be
+     * invoked by a thread other than the one running this OperationRunner.
+     * <p>
+     * If the operation can't be read, the failure is reported to the caller
+     * of the operation.
+     *
+     * @param packet the packet of the operation.
+     * @return the operation or {@code null} if the operation must not be run,
+     * e.g. it was sent by a member which is not a member of the cluster.
+     * @throws Exception if the operation can't be read.
+     */
+    public abstract Operation toOperation(Packet packet) throws Exception;
+
+    /**
+     * Reads the type of the operation of the given packet without reading
+     * the operation itself, so a decision depending only on the class of the
+     * operation can be taken cheaply.
+     *
+     * @param packet the packet of the operation.
+     * @return the type of the operation, equal for the operations of the
+     * same class.
+     * @throws Exception if the type can't be read.
+     */
+    public abstract Object readOperationType(Packet packet) throws Exception;
+
     public abstract void run(Runnable task);
 
     public abstract void run(Operation task);
@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.spi.impl.operationexecutor.impl;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An {@link OperationQueue} of a partition operation thread which lets
+ * other threads run the operations of the partitions of the thread while the
+ * thread is idle.
+ * <p>
+ * The partition thread and the other threads share an ownership flag: the
+ * partition thread holds it from the moment a task is taken till it asks
+ * for the next task, another thread may claim it only while the partition
+ * thread doesn't hold it and only if every task added to the queue has been
+ * processed. So the operations of the partitions are run by a single thread
+ * at a time and an operation run by another thread never overtakes an
+ * operation queued before it.
+ */
+final class InlineExecutionQueue implements OperationQueue {
+
+    private final OperationQueue queue;
+    private final AtomicBoolean owned = new AtomicBoolean();
+    private final AtomicLong added = new AtomicLong();
+    // written only by the partition thread
+    private volatile long processed;
+    private boolean holding;
+
+    InlineExecutionQueue(OperationQueue queue) {
+        this.queue = queue;
+    }
+
+    @Override
+    public void add(Object task, boolean priority) {
+        added.incrementAndGet();
+        queue.add(task, priority);
+    }
+
+    /**
+     * Takes the next task and acquires the ownership for processing it. The
+     * ownership of the previously taken task is released, i.e. the task is
+     * considered processed once the next one is requested.
+     */
+    @SuppressFBWarnings(value = "VO_VOLATILE_INCREMENT", justification = "processed is written only by the partition thread")
+    @Override
+    public Object take(boolean priorityOnly) throws InterruptedException {
+        if (holding) {
+            holding = false;
+            processed++;
+            owned.set(false);
+        }
+
+        Object task = queue.take(priorityOnly);
+        while (!owned.compareAndSet(false, true)) {
+            // another thread is running an operation, it's short
+            Thread.yield();
+        }
+        holding = true;
+        return task;
+    }
+
+    /**
+     * Tries to claim the ownership on behalf of the calling thread. Succeeds
+     * only if the partition thread is idle and has no task pending.
+     *
+     * @return {@code true} if the ownership was claimed and the caller must
+     * {@link #release()} it, {@code false} otherwise.
+     */
+    boolean tryClaim() {
+        if (added.get() != processed || !owned.compareAndSet(false, true)) {
+            return false;
+        }
+        if (added.get() != processed) {
+            // a task was added meanwhile
+            owned.set(false);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Releases the ownership claimed by {@link #tryClaim()}.
+     */
+    void release() {
+        owned.set(false);
+    }
+
+    @Override
+    public int normalSize() {
+        return queue.normalSize();
+    }
+
+    @Override
+    public int prioritySize() {
+        return queue.prioritySize();
+    }
+
+    @Override
+    public int size() {
+        return queue.size();
+    }
+}
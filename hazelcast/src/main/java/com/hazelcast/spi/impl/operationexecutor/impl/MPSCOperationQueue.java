@@ -0,0 +1,168 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.spi.impl.operationexecutor.impl;
+
+import com.hazelcast.internal.util.concurrent.ManyToOneConcurrentArrayQueue;
+import com.hazelcast.util.concurrent.IdleStrategy;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static com.hazelcast.util.Preconditions.checkNotNull;
+import static java.util.concurrent.locks.LockSupport.park;
+import static java.util.concurrent.locks.LockSupport.unpark;
+
+/**
+ * An {@link OperationQueue} for a single consumer thread, e.g. a partition
+ * thread, backed by a bounded array based multi producer single consumer
+ * queue; so adding a task allocates nothing and doesn't take any lock.
+ * <p>
+ * The array queue is bounded. If it is full, the tasks are added to an
+ * unbounded overflow queue instead, so adding a task never blocks; not even
+ * when the consumer thread adds a task to its own queue. The tasks of a
+ * producer are kept in order: as long as the overflow queue isn't empty, the
+ * new tasks are added to the overflow queue as well, and the consumer takes
+ * the tasks from the overflow queue only once the array queue is drained.
+ * <p>
+ * The priority tasks are added to their own queue and are taken first.
+ * <p>
+ * If there is nothing to take, the consumer thread idles with the configured
+ * {@link IdleStrategy}, or blocks if there is none. A blocked consumer thread
+ * is woken up by the producer adding the next task.
+ */
+public final class MPSCOperationQueue implements OperationQueue {
+
+    private final ManyToOneConcurrentArrayQueue<Object> normalQueue;
+    private final Queue<Object> overflowQueue = new ConcurrentLinkedQueue<Object>();
+    private final Queue<Object> priorityQueue = new ConcurrentLinkedQueue<Object>();
+    private final IdleStrategy idleStrategy;
+
+    private Thread consumerThread;
+    private final AtomicBoolean consumerBlocked = new AtomicBoolean();
+
+    /**
+     * Creates a new MPSCOperationQueue.
+     *
+     * @param capacity     the capacity of the array queue; rounded up to the next power of two.
+     * @param idleStrategy the idleStrategy. If null, the consumer will block.
+     */
+    public MPSCOperationQueue(int capacity, IdleStrategy idleStrategy) {
+        this.normalQueue = new ManyToOneConcurrentArrayQueue<Object>(capacity);
+        this.idleStrategy = idleStrategy;
+    }
+
+    /**
+     * Sets the consumer thread.
+     *
+     * The consumer thread is needed for blocking, so that a producer knows which thread
+     * to wakeup. This method should be called before the queue is safely published.
+     *
+     * @param consumerThread the consumer thread.
+     * @throws NullPointerException when consumerThread null.
+     */
+    public void setConsumerThread(Thread consumerThread) {
+        this.consumerThread = checkNotNull(consumerThread, "consumerThread can't be null");
+    }
+
+    @Override
+    public void add(Object task, boolean priority) {
+        checkNotNull(task, "task can't be null");
+
+        if (priority) {
+            priorityQueue.add(task);
+        } else if (!overflowQueue.isEmpty() || !normalQueue.offer(task)) {
+            overflowQueue.add(task);
+        }
+
+        // the task is published before the flag is read and the consumer sets the flag before it checks for
+        // the tasks, so either the consumer sees the task or this producer sees the consumer blocked. Only the
+        // producer clearing the flag wakes up the consumer.
+        if (consumerBlocked.get() && consumerBlocked.compareAndSet(true, false)) {
+            unpark(consumerThread);
+        }
+    }
+
+    @Override
+    public Object take(boolean priorityOnly) throws InterruptedException {
+        for (long idleCount = 0; ; idleCount++) {
+            Object task = poll(priorityOnly);
+            if (task != null) {
+                return task;
+            }
+
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            idle(idleCount, priorityOnly);
+        }
+    }
+
+    private Object poll(boolean priorityOnly) {
+        Object task = priorityQueue.poll();
+        if (task != null || priorityOnly) {
+            return task;
+        }
+
+        task = normalQueue.poll();
+        if (task != null) {
+            return task;
+        }
+
+        if (normalQueue.size() > 0) {
+            // a task is being added to the array queue; it precedes the tasks in the overflow queue.
+            return null;
+        }
+        return overflowQueue.poll();
+    }
+
+    private void idle(long idleCount, boolean priorityOnly) {
+        if (idleStrategy != null) {
+            idleStrategy.idle(idleCount);
+            return;
+        }
+
+        consumerBlocked.set(true);
+        if (isEmpty(priorityOnly)) {
+            park();
+        }
+        consumerBlocked.set(false);
+    }
+
+    private boolean isEmpty(boolean priorityOnly) {
+        if (!priorityQueue.isEmpty()) {
+            return false;
+        }
+        // the size of the array queue includes the tasks being added, unlike its isEmpty
+        return priorityOnly || (normalQueue.size() == 0 && overflowQueue.isEmpty());
+    }
+
+    @Override
+    public int normalSize() {
+        return normalQueue.size() + overflowQueue.size();
+    }
+
+    @Override
+    public int prioritySize() {
+        return priorityQueue.size();
+    }
+
+    @Override
+    public int size() {
+        return normalSize() + prioritySize();
+    }
+}
@@ -21,6 +21,7 @@ import com.hazelcast.internal.metrics.MetricsProvider;
 import com.hazelcast.internal.metrics.MetricsRegistry;
 import com.hazelcast.internal.metrics.Probe;
 import com.hazelcast.internal.util.RuntimeAvailableProcessors;
+import com.hazelcast.internal.util.counters.MwCounter;
 import com.hazelcast.internal.util.concurrent.MPSCQueue;
 import com.hazelcast.logging.ILogger;
 import com.hazelcast.logging.LoggingService;
@@ -30,6 +31,7 @@ import com.hazelcast.spi.LiveOperations;
 import com.hazelcast.spi.Operation;
 import com.hazelcast.spi.UrgentSystemOperation;
 import com.hazelcast.spi.impl.PartitionSpecificRunnable;
+import com.hazelcast.spi.impl.operationexecutor.InlineExecutable;
 import com.hazelcast.spi.impl.operationexecutor.OperationExecutor;
 import com.hazelcast.spi.impl.operationexecutor.OperationHostileThread;
 import com.hazelcast.spi.impl.operationexecutor.OperationRunner;
@@ -42,17 +44,26 @@ import com.hazelcast.util.concurrent.IdleStrategy;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 
 import java.util.BitSet;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.LinkedBlockingQueue;
 
+import static com.hazelcast.instance.OutOfMemoryErrorDispatcher.inspectOutOfMemoryError;
 import static com.hazelcast.internal.metrics.ProbeLevel.MANDATORY;
+import static com.hazelcast.internal.util.counters.MwCounter.newMwCounter;
 import static com.hazelcast.spi.impl.operationservice.impl.InboundResponseHandlerSupplier.getIdleStrategy;
 import static com.hazelcast.spi.properties.GroupProperty.GENERIC_OPERATION_THREAD_COUNT;
+import static com.hazelcast.spi.properties.GroupProperty.OPERATION_INLINE_EXECUTION_ENABLED;
 import static com.hazelcast.spi.properties.GroupProperty.PARTITION_COUNT;
+import static com.hazelcast.spi.properties.GroupProperty.PARTITION_OPERATION_QUEUE_CAPACITY;
+import static com.hazelcast.spi.properties.GroupProperty.PARTITION_OPERATION_QUEUE_TYPE;
 import static com.hazelcast.spi.properties.GroupProperty.PARTITION_OPERATION_THREAD_COUNT;
+import static com.hazelcast.spi.properties.GroupProperty.PARTITION_OPERATION_THREAD_IDLE_STRATEGY;
 import static com.hazelcast.spi.properties.GroupProperty.PRIORITY_GENERIC_OPERATION_THREAD_COUNT;
 import static com.hazelcast.util.Preconditions.checkNotNull;
 import static com.hazelcast.util.ThreadUtil.createThreadPoolName;
+import static java.lang.Boolean.FALSE;
 import static java.util.concurrent.TimeUnit.SECONDS;
 
 /**
@@ -75,11 +86,16 @@ import static java.util.concurrent.TimeUnit.SECONDS;
  * specific to a partition, e.g. a heart beat.
  * </li>
  * </ol>
+ * When {@link com.hazelcast.spi.properties.GroupProperty#OPERATION_INLINE_EXECUTION_ENABLED} is set, the
+ * {@link InlineExecutable} partition operations received by the IO threads are run by the IO threads while the
+ * partition thread of the partition is idle, see {@link InlineExecutionQueue}.
  */
 @SuppressWarnings("checkstyle:methodcount")
 public final class OperationExecutorImpl implements OperationExecutor, MetricsProvider {
-    public static final HazelcastProperty IDLE_STRATEGY
-            = new HazelcastProperty("hazelcast.operation.partitionthread.idlestrategy", "block");
+    public static final HazelcastProperty IDLE_STRATEGY = PARTITION_OPERATION_THREAD_IDLE_STRATEGY;
+
+    private static final String LINKED_QUEUE = "linked";
+    private static final String ARRAY_QUEUE = "array";
 
     private static final int TERMINATION_TIMEOUT_SECONDS = 3;
 
@@ -99,6 +115,13 @@ public final class OperationExecutorImpl implements OperationExecutor, MetricsPr
     private final Address thisAddress;
     private final OperationRunner adHocOperationRunner;
     private final int priorityThreadCount;
+    private final boolean inlineExecutionEnabled;
+
+    // the operation types read from the packets, mapped to whether they are InlineExecutable
+    private final ConcurrentMap<Object, Boolean> inlineExecutableTypes = new ConcurrentHashMap<Object, Boolean>();
+
+    @Probe(name = "inlineExecutedCount")
+    private final MwCounter inlineExecutedCount = newMwCounter();
 
     public OperationExecutorImpl(HazelcastProperties properties,
                                  LoggingService loggerService,
@@ -111,6 +134,7 @@ public final class OperationExecutorImpl implements OperationExecutor, MetricsPr
         this.logger = loggerService.getLogger(OperationExecutorImpl.class);
 
         this.adHocOperationRunner = runnerFactory.createAdHocRunner();
+        this.inlineExecutionEnabled = properties.getBoolean(OPERATION_INLINE_EXECUTION_ENABLED);
 
         this.partitionOperationRunners = initPartitionOperationRunners(properties, runnerFactory);
         this.partitionThreads = initPartitionThreads(properties, hzName, nodeExtension, configClassLoader);
@@ -155,17 +179,31 @@ public final class OperationExecutorImpl implements OperationExecutor, MetricsPr
             threadCount = Math.max(2, coreSize);
         }
 
+        String queueType = properties.getString(PARTITION_OPERATION_QUEUE_TYPE);
+        if (!LINKED_QUEUE.equals(queueType) && !ARRAY_QUEUE.equals(queueType)) {
+            throw new IllegalStateException("Unrecognized " + PARTITION_OPERATION_QUEUE_TYPE.getName() + " value=" + queueType);
+        }
+        int queueCapacity = properties.getInteger(PARTITION_OPERATION_QUEUE_CAPACITY);
+
         IdleStrategy idleStrategy = getIdleStrategy(properties, IDLE_STRATEGY);
         PartitionOperationThread[] threads = new PartitionOperationThread[threadCount];
         for (int threadId = 0; threadId < threads.length; threadId++) {
             String threadName = createThreadPoolName(hzName, "partition-operation") + threadId;
+            if (ARRAY_QUEUE.equals(queueType)) {
+                MPSCOperationQueue operationQueue = new MPSCOperationQueue(queueCapacity, idleStrategy);
+                threads[threadId] = new PartitionOperationThread(threadName, threadId, inline(operationQueue), logger,
+                        nodeExtension, partitionOperationRunners, configClassLoader);
+                operationQueue.setConsumerThread(threads[threadId]);
+                continue;
+            }
+
             // the normalQueue will be a blocking queue. We don't want to idle, because there are many operation threads.
             MPSCQueue<Object> normalQueue = new MPSCQueue<Object>(idleStrategy);
 
             OperationQueue operationQueue = new OperationQueueImpl(normalQueue, new ConcurrentLinkedQueue<Object>());
 
-            PartitionOperationThread partitionThread = new PartitionOperationThread(threadName, threadId, operationQueue, logger,
-                    nodeExtension, partitionOperationRunners, configClassLoader);
+            PartitionOperationThread partitionThread = new PartitionOperationThread(threadName, threadId,
+                    inline(operationQueue), logger, nodeExtension, partitionOperationRunners, configClassLoader);
 
             threads[threadId] = partitionThread;
             normalQueue.setConsumerThread(partitionThread);
@@ -182,6 +220,10 @@ public final class OperationExecutorImpl implements OperationExecutor, MetricsPr
         return threads;
     }
 
+    private OperationQueue inline(OperationQueue queue) {
+        return inlineExecutionEnabled ? new InlineExecutionQueue(queue) : queue;
+    }
+
     static int getPartitionThreadId(int partitionId, int partitionThreadCount) {
         return partitionId % partitionThreadCount;
     }
@@ -216,6 +258,21 @@ public final class OperationExecutorImpl implements OperationExecutor, MetricsPr
         return threads;
     }
 
+    /**
+     * Sets the task the partition threads run when their queues are drained,
+     * before they wait for the next task, and periodically while they are
+     * busy. Must be set before the executor is {@link #start() started}.
+     *
+     * @param task the task to run, e.g. flushing the batched responses.
+     */
+    public void setPartitionThreadFlushTask(Runnable task) {
+        checkNotNull(task, "task can't be null");
+
+        for (PartitionOperationThread partitionThread : partitionThreads) {
+            partitionThread.flushTask = task;
+        }
+    }
+
     @Override
     public void provideMetrics(MetricsRegistry registry) {
         registry.scanAndRegister(this, "operation");
@@ -373,9 +430,71 @@ public final class OperationExecutorImpl implements OperationExecutor, MetricsPr
 
     @Override
     public void accept(Packet packet) {
+        if (inlineExecutionEnabled && packet.getPartitionId() >= 0 && !packet.isUrgent()
+                && Thread.currentThread() instanceof OperationHostileThread) {
+            acceptInline(packet);
+            return;
+        }
+
         execute(packet, packet.getPartitionId(), packet.isUrgent());
     }
 
+    /**
+     * Runs the operation of the given packet on the calling IO thread if the
+     * operation allows it and the partition thread of its partition is idle,
+     * otherwise the operation is queued to the partition thread.
+     * <p>
+     * The packets of the operation types known not to be {@link InlineExecutable}
+     * are queued as they are, so the IO thread deserializes only the
+     * candidates, and the first operation of every other type to learn it.
+     */
+    private void acceptInline(Packet packet) {
+        int partitionId = packet.getPartitionId();
+        OperationRunner runner = partitionOperationRunners[partitionId];
+        Object type;
+        try {
+            type = runner.readOperationType(packet);
+        } catch (Exception e) {
+            // the partition thread fails to read the operation as well and reports it
+            type = null;
+        }
+
+        Boolean inlineExecutableType = type == null ? FALSE : inlineExecutableTypes.get(type);
+        if (FALSE.equals(inlineExecutableType)) {
+            execute(packet, partitionId, false);
+            return;
+        }
+
+        Operation op;
+        try {
+            op = runner.toOperation(packet);
+        } catch (Throwable t) {
+            // the failure was already reported to the caller and logged
+            inspectOutOfMemoryError(t);
+            return;
+        }
+
+        if (op == null) {
+            return;
+        }
+
+        if (inlineExecutableType == null) {
+            inlineExecutableTypes.putIfAbsent(type, op instanceof InlineExecutable);
+        }
+
+        InlineExecutionQueue queue = (InlineExecutionQueue) partitionThreads[toPartitionThreadIndex(partitionId)].queue;
+        if (op instanceof InlineExecutable && ((InlineExecutable) op).isInlineExecutable() && queue.tryClaim()) {
+            try {
+                runner.run(op);
+            } finally {
+                queue.release();
+            }
+            inlineExecutedCount.inc();
+        } else {
+            queue.add(op, false);
+        }
+    }
+
     private void execute(Object task, int partitionId, boolean priority) {
         if (partitionId < 0) {
             genericQueue.add(task, priority);
@@ -45,11 +45,17 @@ import static com.hazelcast.internal.util.counters.SwCounter.newSwCounter;
  */
 public abstract class OperationThread extends HazelcastManagedThread implements MetricsProvider {
 
+    private static final int FLUSH_INTERVAL = 64;
+
     final int threadId;
     final OperationQueue queue;
     // This field wil only be accessed by the thread itself when doing 'self'
     // calls. So no need for any form of synchronization.
     OperationRunner currentRunner;
+    // Run by the thread when its queue is drained, before it waits for the
+    // next task, and at least every FLUSH_INTERVAL tasks while it's not
+    // drained. Set before the thread is started.
+    Runnable flushTask;
 
     // All these counters are updated by this OperationThread (so a single writer)
     // and are read by the MetricsRegistry.
@@ -72,6 +78,7 @@ public abstract class OperationThread extends HazelcastManagedThread implements
     private final NodeExtension nodeExtension;
     private final ILogger logger;
     private volatile boolean shutdown;
+    private int tasksSinceFlush;
 
     public OperationThread(String name,
                            int threadId,
@@ -102,11 +109,15 @@ public abstract class OperationThread extends HazelcastManagedThread implements
             while (!shutdown) {
                 Object task;
                 try {
+                    if (flushTask != null && (queue.normalSize() == 0 || tasksSinceFlush >= FLUSH_INTERVAL)) {
+                        runFlushTask();
+                    }
                     task = queue.take(priority);
                 } catch (InterruptedException e) {
                     continue;
                 }
 
+                tasksSinceFlush++;
                 process(task);
             }
         } catch (Throwable t) {
@@ -117,6 +128,17 @@ public abstract class OperationThread extends HazelcastManagedThread implements
         }
     }
 
+    private void runFlushTask() {
+        tasksSinceFlush = 0;
+        try {
+            flushTask.run();
+        } catch (Throwable t) {
+            errorCount.inc();
+            inspectOutOfMemoryError(t);
+            logger.severe("Failed to run: " + flushTask + " on: " + getName(), t);
+        }
+    }
+
     private void process(Object task) {
         try {
             if (task.getClass() == Packet.class) {
@@ -20,6 +20,7 @@ import com.hazelcast.internal.util.ThreadLocalRandomProvider;
 import com.hazelcast.logging.ILogger;
 import com.hazelcast.spi.BackupAwareOperation;
 import com.hazelcast.spi.UrgentSystemOperation;
+import com.hazelcast.spi.impl.sequence.AdaptiveConcurrencyLimit;
 import com.hazelcast.spi.impl.sequence.CallIdFactory;
 import com.hazelcast.spi.impl.sequence.CallIdSequence;
 import com.hazelcast.spi.properties.HazelcastProperties;
@@ -27,6 +28,8 @@ import com.hazelcast.spi.properties.HazelcastProperties;
 import java.util.Random;
 import java.util.concurrent.atomic.AtomicInteger;
 
+import static com.hazelcast.spi.properties.GroupProperty.BACKPRESSURE_ADAPTIVE_LATENCY_TOLERANCE;
+import static com.hazelcast.spi.properties.GroupProperty.BACKPRESSURE_ADAPTIVE_LIMIT_ENABLED;
 import static com.hazelcast.spi.properties.GroupProperty.BACKPRESSURE_BACKOFF_TIMEOUT_MILLIS;
 import static com.hazelcast.spi.properties.GroupProperty.BACKPRESSURE_ENABLED;
 import static com.hazelcast.spi.properties.GroupProperty.BACKPRESSURE_MAX_CONCURRENT_INVOCATIONS_PER_PARTITION;
@@ -34,6 +37,7 @@ import static com.hazelcast.spi.properties.GroupProperty.BACKPRESSURE_SYNCWINDOW
 import static com.hazelcast.spi.properties.GroupProperty.OPERATION_BACKUP_TIMEOUT_MILLIS;
 import static com.hazelcast.spi.properties.GroupProperty.PARTITION_COUNT;
 import static java.lang.Math.max;
+import static java.lang.Math.min;
 import static java.lang.Math.round;
 import static java.lang.String.format;
 import static java.util.concurrent.TimeUnit.MINUTES;
@@ -77,6 +81,7 @@ class BackpressureRegulator {
     private final int partitionCount;
     private final int maxConcurrentInvocations;
     private final int backoffTimeoutMs;
+    private final AdaptiveConcurrencyLimit adaptiveLimit;
 
     BackpressureRegulator(HazelcastProperties properties, ILogger logger) {
         this.enabled = properties.getBoolean(BACKPRESSURE_ENABLED);
@@ -86,11 +91,13 @@ class BackpressureRegulator {
         this.syncCountdown.set(syncWindow);
         this.maxConcurrentInvocations = getMaxConcurrentInvocations(properties);
         this.backoffTimeoutMs = getBackoffTimeoutMs(properties);
+        this.adaptiveLimit = newAdaptiveLimit(properties);
 
         if (enabled) {
             logger.info("Backpressure is enabled"
                     + ", maxConcurrentInvocations:" + maxConcurrentInvocations
-                    + ", syncWindow: " + syncWindow);
+                    + ", syncWindow: " + syncWindow
+                    + (adaptiveLimit != null ? ", adaptiveLimit: " + adaptiveLimit : ""));
 
             int backupTimeoutMillis = properties.getInteger(OPERATION_BACKUP_TIMEOUT_MILLIS);
             if (backupTimeoutMillis < MINUTES.toMillis(1)) {
@@ -134,6 +141,29 @@ class BackpressureRegulator {
         return (partitionCount + 1) * invocationsPerPartition;
     }
 
+    private AdaptiveConcurrencyLimit newAdaptiveLimit(HazelcastProperties props) {
+        if (!enabled || !props.getBoolean(BACKPRESSURE_ADAPTIVE_LIMIT_ENABLED)) {
+            return null;
+        }
+        double tolerance = props.getDouble(BACKPRESSURE_ADAPTIVE_LATENCY_TOLERANCE);
+        if (tolerance < 1) {
+            throw new IllegalArgumentException("Can't have '" + BACKPRESSURE_ADAPTIVE_LATENCY_TOLERANCE
+                    + "' with a value smaller than 1");
+        }
+        // at least a single invocation per partition and the generic operations
+        return new AdaptiveConcurrencyLimit(min(partitionCount + 1, maxConcurrentInvocations), maxConcurrentInvocations,
+                tolerance);
+    }
+
+    /**
+     * Returns the adaptive limit of the concurrent invocations.
+     *
+     * @return the adaptive limit or {@code null} if it isn't enabled.
+     */
+    AdaptiveConcurrencyLimit getAdaptiveLimit() {
+        return adaptiveLimit;
+    }
+
     /**
      * Checks if back-pressure is enabled.
      * <p>
@@ -152,7 +182,7 @@ class BackpressureRegulator {
     }
 
     CallIdSequence newCallIdSequence() {
-        return CallIdFactory.newCallIdSequence(enabled, maxConcurrentInvocations, backoffTimeoutMs);
+        return CallIdFactory.newCallIdSequence(enabled, maxConcurrentInvocations, backoffTimeoutMs, adaptiveLimit);
     }
 
     /**
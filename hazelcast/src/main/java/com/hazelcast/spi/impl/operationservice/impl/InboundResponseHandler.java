@@ -29,15 +29,19 @@ import com.hazelcast.spi.impl.operationservice.impl.responses.ErrorResponse;
 import com.hazelcast.util.function.Consumer;
 
 import java.nio.ByteOrder;
+import java.util.Arrays;
 
 import static com.hazelcast.internal.util.counters.MwCounter.newMwCounter;
 import static com.hazelcast.internal.util.counters.SwCounter.newSwCounter;
+import static com.hazelcast.nio.Bits.INT_SIZE_IN_BYTES;
 import static com.hazelcast.nio.Packet.FLAG_OP_RESPONSE;
 import static com.hazelcast.nio.Packet.Type.OPERATION;
 import static com.hazelcast.spi.impl.SpiDataSerializerHook.BACKUP_ACK_RESPONSE;
 import static com.hazelcast.spi.impl.SpiDataSerializerHook.CALL_TIMEOUT_RESPONSE;
 import static com.hazelcast.spi.impl.SpiDataSerializerHook.ERROR_RESPONSE;
 import static com.hazelcast.spi.impl.SpiDataSerializerHook.NORMAL_RESPONSE;
+import static com.hazelcast.spi.impl.SpiDataSerializerHook.RESPONSE_BATCH;
+import static com.hazelcast.spi.impl.operationservice.impl.OutboundResponseHandler.OFFSET_RESPONSE_COUNT;
 import static com.hazelcast.spi.impl.operationservice.impl.responses.NormalResponse.OFFSET_BACKUP_ACKS;
 import static com.hazelcast.spi.impl.operationservice.impl.responses.Response.OFFSET_CALL_ID;
 import static com.hazelcast.spi.impl.operationservice.impl.responses.Response.OFFSET_TYPE_ID;
@@ -52,6 +56,9 @@ import static com.hazelcast.util.Preconditions.checkTrue;
  * InboundResponseHandlers are not thread-safe. So if there are multiple threads
  * processing responses, each thread needs to get its own instance. Only the backup
  * handling is thread-safe since backups can be completed locally by any thread.
+ *
+ * A response batch sent by the {@link OutboundResponseHandler} is split into
+ * its responses, which are handled one by one.
  */
 public final class InboundResponseHandler implements Consumer<Packet> {
 
@@ -60,6 +67,7 @@ public final class InboundResponseHandler implements Consumer<Packet> {
     final MwCounter responsesBackup = newMwCounter();
     final SwCounter responsesError = newSwCounter();
     final MwCounter responsesMissing = newMwCounter();
+    final SwCounter responseBatches = newSwCounter();
     private final ILogger logger;
     private final InternalSerializationService serializationService;
     private final InvocationRegistry invocationRegistry;
@@ -100,6 +108,9 @@ public final class InboundResponseHandler implements Consumer<Packet> {
                     ErrorResponse errorResponse = serializationService.toObject(packet);
                     notifyErrorResponse(callId, errorResponse.getCause(), sender);
                     break;
+                case RESPONSE_BATCH:
+                    acceptBatch(packet, bytes);
+                    break;
                 default:
                     logger.severe("Unrecognized type: " + typeId + " packet:" + packet);
             }
@@ -108,6 +119,23 @@ public final class InboundResponseHandler implements Consumer<Packet> {
         }
     }
 
+    private void acceptBatch(Packet batch, byte[] bytes) {
+        responseBatches.inc();
+
+        int count = Bits.readInt(bytes, OFFSET_RESPONSE_COUNT, useBigEndian);
+        int position = OFFSET_RESPONSE_COUNT + INT_SIZE_IN_BYTES;
+        for (int i = 0; i < count; i++) {
+            int length = Bits.readInt(bytes, position, useBigEndian);
+            position += INT_SIZE_IN_BYTES;
+            Packet response = new Packet(Arrays.copyOfRange(bytes, position, position + length), -1)
+                    .setPacketType(OPERATION)
+                    .raiseFlags(FLAG_OP_RESPONSE)
+                    .setConn(batch.getConn());
+            position += length;
+            accept(response);
+        }
+    }
+
     public void notifyBackupComplete(long callId) {
         responsesBackup.inc();
 
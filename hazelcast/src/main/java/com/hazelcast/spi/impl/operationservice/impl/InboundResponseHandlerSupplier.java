@@ -191,6 +191,15 @@ public class InboundResponseHandlerSupplier implements MetricsProvider, Supplier
         return result;
     }
 
+    @Probe(name = "responses[batch]")
+    long responseBatches() {
+        long result = 0;
+        for (InboundResponseHandler handler : inboundResponseHandlers) {
+            result += handler.responseBatches.get();
+        }
+        return result;
+    }
+
     @Override
     public void provideMetrics(MetricsRegistry registry) {
         registry.scanAndRegister(this, "operation");
@@ -219,6 +228,9 @@ public class InboundResponseHandlerSupplier implements MetricsProvider, Supplier
             return null;
         } else if ("busyspin".equals(idleStrategyString)) {
             return new BusySpinIdleStrategy();
+        } else if ("yield".equals(idleStrategyString)) {
+            // yields from the first idle round on and never parks
+            return new BackoffIdleStrategy(0, Long.MAX_VALUE, 0, 0);
         } else if ("backoff".equals(idleStrategyString)) {
             return new BackoffIdleStrategy(IDLE_MAX_SPINS, IDLE_MAX_YIELDS, IDLE_MIN_PARK_NS, IDLE_MAX_PARK_NS);
         } else if (idleStrategyString.startsWith("backoff,")) {
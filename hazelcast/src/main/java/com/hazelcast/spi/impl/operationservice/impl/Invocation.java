@@ -119,6 +119,12 @@ public abstract class Invocation<T> implements OperationResponseHandler {
     @SuppressWarnings("checkstyle:visibilitymodifier")
     public final long firstInvocationTimeMillis = Clock.currentTimeMillis();
 
+    /**
+     * The {@link System#nanoTime()} the invocation was last registered at. Used to measure the latency of the
+     * invocation reported to the {@link com.hazelcast.spi.impl.sequence.CallIdSequence}.
+     */
+    long registrationNanos;
+
     /**
      * Contains the pending response from the primary. It is pending because it could be that backups need to complete.
      */
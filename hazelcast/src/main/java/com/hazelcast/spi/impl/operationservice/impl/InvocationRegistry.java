@@ -24,13 +24,13 @@ import com.hazelcast.internal.metrics.MetricsRegistry;
 import com.hazelcast.internal.metrics.Probe;
 import com.hazelcast.internal.util.RuntimeAvailableProcessors;
 import com.hazelcast.logging.ILogger;
+import com.hazelcast.spi.BlockingOperation;
 import com.hazelcast.spi.impl.sequence.CallIdSequence;
 
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
 
 import static com.hazelcast.internal.metrics.ProbeLevel.MANDATORY;
 import static com.hazelcast.spi.OperationAccessor.deactivate;
@@ -45,9 +45,12 @@ import static com.hazelcast.spi.OperationAccessor.setCallId;
  * {@link com.hazelcast.spi.impl.operationservice.impl.responses.Response} comes in, the
  * appropriate invocation can be looked up.
  * <p>
+ * The invocations are stored in a striped {@link InvocationTable} keyed by the primitive call IDs, sized by the
+ * maximum number of the concurrent invocations the {@link CallIdSequence} allows.
+ * <p>
  * Some ideas:
  * <ul>
- * <li>Use a ringbuffer to store all invocations instead of a CHM. The call ID can be used as sequence ID for this
+ * <li>Use a ringbuffer to store all invocations. The call ID can be used as sequence ID for this
  * ringbuffer. It can be that you run in slots that have not been released; if that happens, just keep increasing
  * the sequence (although you now get sequence-gaps).</li>
  * <li>Pre-allocate all invocations. Because the ringbuffer has a fixed capacity, pre-allocation should be easy. Also
@@ -61,11 +64,10 @@ public class InvocationRegistry implements Iterable<Invocation>, MetricsProvider
     private static final int CONCURRENCY_LEVEL = 16;
 
     private static final int INITIAL_CAPACITY = 1000;
-    private static final float LOAD_FACTOR = 0.75f;
+    private static final int MAX_INITIAL_CAPACITY = 1 << 20;
     private static final double HUNDRED_PERCENT = 100d;
 
-    @Probe(name = "invocations.pending", level = MANDATORY)
-    private final ConcurrentMap<Long, Invocation> invocations;
+    private final InvocationTable invocations;
     private final ILogger logger;
     private final CallIdSequence callIdSequence;
 
@@ -79,7 +81,11 @@ public class InvocationRegistry implements Iterable<Invocation>, MetricsProvider
         boolean reallyMultiCore = coreSize >= CORE_SIZE_CHECK;
         int concurrencyLevel = reallyMultiCore ? coreSize * CORE_SIZE_FACTOR : CONCURRENCY_LEVEL;
 
-        this.invocations = new ConcurrentHashMap<Long, Invocation>(INITIAL_CAPACITY, LOAD_FACTOR, concurrencyLevel);
+        int maxConcurrentInvocations = callIdSequence.getMaxConcurrentInvocations();
+        int initialCapacity = maxConcurrentInvocations == Integer.MAX_VALUE
+                ? INITIAL_CAPACITY : Math.min(maxConcurrentInvocations, MAX_INITIAL_CAPACITY);
+
+        this.invocations = new InvocationTable(concurrencyLevel, initialCapacity);
     }
 
     @Override
@@ -97,6 +103,16 @@ public class InvocationRegistry implements Iterable<Invocation>, MetricsProvider
         return (HUNDRED_PERCENT * invocations.size()) / maxConcurrentInvocations;
     }
 
+    @Probe(name = "invocations.stripeCount")
+    private int invocationsStripeCount() {
+        return invocations.stripeCount();
+    }
+
+    @Probe(name = "invocations.contendedAccessCount")
+    private long invocationsContendedAccessCount() {
+        return invocations.contendedAccessCount();
+    }
+
     @Probe(name = "invocations.lastCallId")
     long getLastCallId() {
         return callIdSequence.getLastCallId();
@@ -123,6 +139,7 @@ public class InvocationRegistry implements Iterable<Invocation>, MetricsProvider
             callIdSequence.complete();
             throw e;
         }
+        invocation.registrationNanos = System.nanoTime();
         invocations.put(callId, invocation);
         if (!alive) {
             invocation.notifyError(new HazelcastInstanceNotActiveException());
@@ -143,6 +160,10 @@ public class InvocationRegistry implements Iterable<Invocation>, MetricsProvider
             return false;
         }
         invocations.remove(invocation.op.getCallId());
+        if (!(invocation.op instanceof BlockingOperation)) {
+            // the blocking operations wait for a condition, their latency doesn't reflect the load
+            callIdSequence.recordLatency(System.nanoTime() - invocation.registrationNanos);
+        }
         callIdSequence.complete();
         return true;
     }
@@ -152,22 +173,31 @@ public class InvocationRegistry implements Iterable<Invocation>, MetricsProvider
      *
      * @return the number of pending invocations
      */
+    @Probe(name = "invocations.pending", level = MANDATORY)
     public int size() {
         return invocations.size();
     }
 
+    /**
+     * Returns a weakly consistent iterator over the pending invocations.
+     */
     @Override
     public Iterator<Invocation> iterator() {
-        return invocations.values().iterator();
+        return invocations.iterator();
     }
 
     /**
-     * Intention to expose the entry set is to mutate it.
+     * Returns a snapshot of the pending invocations keyed by their call IDs.
+     * Prefer {@link #iterator()}, which doesn't box the call IDs.
      *
      * @return set of invocations in this registry
      */
     public Set<Map.Entry<Long, Invocation>> entrySet() {
-        return invocations.entrySet();
+        Map<Long, Invocation> snapshot = new HashMap<Long, Invocation>();
+        for (Invocation invocation : invocations) {
+            snapshot.put(invocation.op.getCallId(), invocation);
+        }
+        return snapshot.entrySet();
     }
 
     /**
@@ -0,0 +1,191 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.spi.impl.operationservice.impl;
+
+import com.hazelcast.internal.util.counters.MwCounter;
+import com.hazelcast.util.collection.Long2ObjectHashMap;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static com.hazelcast.internal.util.counters.MwCounter.newMwCounter;
+import static com.hazelcast.util.QuickMath.nextPowerOfTwo;
+
+/**
+ * The pending invocations of an {@link InvocationRegistry} keyed by their
+ * call IDs.
+ * <p>
+ * The table is split into stripes, each of them an open addressing
+ * {@link Long2ObjectHashMap} guarded by its own lock, so the call IDs are
+ * never boxed and the threads registering, deregistering and looking up
+ * the invocations contend only when they access the same stripe. The call
+ * IDs are sequential, so the stripe of a call ID is selected by its lowest
+ * bits and the consecutive invocations are spread over all the stripes.
+ * <p>
+ * The iteration is weakly consistent: every stripe is snapshotted when the
+ * iterator reaches it.
+ */
+final class InvocationTable implements Iterable<Invocation> {
+
+    private static final double LOAD_FACTOR = 0.6;
+
+    private final Stripe[] stripes;
+    private final int stripeMask;
+    private final MwCounter contendedAccessCount = newMwCounter();
+
+    /**
+     * @param stripeCount      the number of the stripes, rounded up to the
+     *                         next power of two.
+     * @param expectedCapacity the number of the invocations the table is
+     *                         expected to hold, the table grows beyond it
+     *                         if needed.
+     */
+    InvocationTable(int stripeCount, int expectedCapacity) {
+        this.stripes = new Stripe[nextPowerOfTwo(stripeCount)];
+        this.stripeMask = stripes.length - 1;
+        int stripeCapacity = (int) Math.ceil(Math.max(1, expectedCapacity / stripes.length) / LOAD_FACTOR);
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new Stripe(stripeCapacity);
+        }
+    }
+
+    void put(long callId, Invocation invocation) {
+        Stripe stripe = stripe(callId);
+        lock(stripe);
+        try {
+            stripe.invocations.put(callId, invocation);
+            stripe.size = stripe.invocations.size();
+        } finally {
+            stripe.unlock();
+        }
+    }
+
+    Invocation get(long callId) {
+        Stripe stripe = stripe(callId);
+        lock(stripe);
+        try {
+            return stripe.invocations.get(callId);
+        } finally {
+            stripe.unlock();
+        }
+    }
+
+    Invocation remove(long callId) {
+        Stripe stripe = stripe(callId);
+        lock(stripe);
+        try {
+            Invocation invocation = stripe.invocations.remove(callId);
+            stripe.size = stripe.invocations.size();
+            return invocation;
+        } finally {
+            stripe.unlock();
+        }
+    }
+
+    /**
+     * @return the number of the invocations in this table, a best effort
+     * value since the stripes aren't locked.
+     */
+    int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            size += stripe.size;
+        }
+        return size;
+    }
+
+    int stripeCount() {
+        return stripes.length;
+    }
+
+    /**
+     * @return the number of the accesses which had to wait for the lock of
+     * a stripe held by another thread.
+     */
+    long contendedAccessCount() {
+        return contendedAccessCount.get();
+    }
+
+    @Override
+    public Iterator<Invocation> iterator() {
+        return new InvocationIterator();
+    }
+
+    private Stripe stripe(long callId) {
+        return stripes[(int) callId & stripeMask];
+    }
+
+    private void lock(Stripe stripe) {
+        if (!stripe.tryLock()) {
+            contendedAccessCount.inc();
+            stripe.lock();
+        }
+    }
+
+    private Invocation[] snapshot(Stripe stripe) {
+        lock(stripe);
+        try {
+            return stripe.invocations.values().toArray(new Invocation[0]);
+        } finally {
+            stripe.unlock();
+        }
+    }
+
+    @SuppressWarnings("serial")
+    private static final class Stripe extends ReentrantLock {
+
+        final Long2ObjectHashMap<Invocation> invocations;
+        volatile int size;
+
+        Stripe(int capacity) {
+            this.invocations = new Long2ObjectHashMap<Invocation>(capacity, LOAD_FACTOR);
+        }
+    }
+
+    private final class InvocationIterator implements Iterator<Invocation> {
+
+        private int stripeIndex;
+        private Iterator<Invocation> current = Collections.<Invocation>emptySet().iterator();
+
+        @Override
+        public boolean hasNext() {
+            while (!current.hasNext()) {
+                if (stripeIndex == stripes.length) {
+                    return false;
+                }
+                current = Arrays.asList(snapshot(stripes[stripeIndex++])).iterator();
+            }
+            return true;
+        }
+
+        @Override
+        public Invocation next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return current.next();
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -395,6 +395,27 @@ class OperationRunnerImpl extends OperationRunner implements MetricsProvider {
             currentTask = packet;
         }
 
+        Operation op;
+        try {
+            op = toOperation(packet);
+        } finally {
+            if (publishCurrentTask) {
+                currentTask = null;
+            }
+        }
+
+        if (op != null) {
+            run(op);
+        }
+    }
+
+    @Override
+    public Object readOperationType(Packet packet) throws Exception {
+        return ((SerializationServiceV1) node.getSerializationService()).readDataSerializableType(packet);
+    }
+
+    @Override
+    public Operation toOperation(Packet packet) throws Exception {
         Connection connection = packet.getConn();
         Address caller = connection.getEndPoint();
         try {
@@ -406,14 +427,7 @@ class OperationRunnerImpl extends OperationRunner implements MetricsProvider {
             setCallerUuidIfNotSet(caller, op);
             setOperationResponseHandler(op);
 
-            if (!ensureValidMember(op)) {
-                return;
-            }
-
-            if (publishCurrentTask) {
-                currentTask = null;
-            }
-            run(op);
+            return ensureValidMember(op) ? op : null;
         } catch (Throwable throwable) {
             // If exception happens we need to extract the callId from the bytes directly!
             long callId = extractOperationCallId(packet);
@@ -421,10 +435,6 @@ class OperationRunnerImpl extends OperationRunner implements MetricsProvider {
                     new ErrorResponse(throwable, callId, packet.isUrgent()));
             logOperationDeserializationException(throwable, callId);
             throw ExceptionUtil.rethrow(throwable);
-        } finally {
-            if (publishCurrentTask) {
-                currentTask = null;
-            }
         }
     }
 
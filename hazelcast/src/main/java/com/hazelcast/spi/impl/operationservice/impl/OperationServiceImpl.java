@@ -48,6 +48,7 @@ import com.hazelcast.spi.impl.operationexecutor.impl.OperationExecutorImpl;
 import com.hazelcast.spi.impl.operationexecutor.slowoperationdetector.SlowOperationDetector;
 import com.hazelcast.spi.impl.operationservice.InternalOperationService;
 import com.hazelcast.spi.impl.operationservice.PartitionTaskFactory;
+import com.hazelcast.spi.impl.sequence.AdaptiveConcurrencyLimit;
 import com.hazelcast.spi.properties.GroupProperty;
 
 import java.util.ArrayList;
@@ -67,6 +68,7 @@ import static com.hazelcast.spi.impl.operationutil.Operations.isJoinOperation;
 import static com.hazelcast.spi.impl.operationutil.Operations.isWanReplicationOperation;
 import static com.hazelcast.spi.properties.GroupProperty.FAIL_ON_INDETERMINATE_OPERATION_STATE;
 import static com.hazelcast.spi.properties.GroupProperty.OPERATION_CALL_TIMEOUT_MILLIS;
+import static com.hazelcast.spi.properties.GroupProperty.RESPONSE_BATCH_SIZE;
 import static com.hazelcast.util.CollectionUtil.toIntegerList;
 import static com.hazelcast.util.MapUtil.createHashMap;
 import static com.hazelcast.util.Preconditions.checkNotNegative;
@@ -150,7 +152,7 @@ public final class OperationServiceImpl implements InternalOperationService, Met
                 node.getProperties(), node.getLogger(BackpressureRegulator.class));
 
         this.outboundResponseHandler = new OutboundResponseHandler(thisAddress, serializationService,
-                node.getLogger(OutboundResponseHandler.class));
+                node.getLogger(OutboundResponseHandler.class), node.getProperties().getInteger(RESPONSE_BATCH_SIZE));
 
         this.invocationRegistry = new InvocationRegistry(
                 node.getLogger(OperationServiceImpl.class), backpressureRegulator.newCallIdSequence());
@@ -168,9 +170,18 @@ public final class OperationServiceImpl implements InternalOperationService, Met
         this.inboundResponseHandlerSupplier = new InboundResponseHandlerSupplier(
                 configClassLoader, invocationRegistry, hzName, nodeEngine);
 
-        this.operationExecutor = new OperationExecutorImpl(
+        OperationExecutorImpl executor = new OperationExecutorImpl(
                 node.getProperties(), node.loggingService, thisAddress, new OperationRunnerFactoryImpl(this),
                 node.getNodeExtension(), hzName, configClassLoader);
+        if (outboundResponseHandler.isResponseBatchingEnabled()) {
+            executor.setPartitionThreadFlushTask(new Runnable() {
+                @Override
+                public void run() {
+                    outboundResponseHandler.flushResponseBatch();
+                }
+            });
+        }
+        this.operationExecutor = executor;
 
         this.slowOperationDetector = new SlowOperationDetector(node.loggingService,
                 operationExecutor.getGenericOperationRunners(), operationExecutor.getPartitionOperationRunners(),
@@ -452,7 +463,14 @@ public final class OperationServiceImpl implements InternalOperationService, Met
     @Override
     public void provideMetrics(MetricsRegistry registry) {
         registry.scanAndRegister(this, "operation");
-        registry.collectMetrics(invocationRegistry, invocationMonitor, inboundResponseHandlerSupplier, operationExecutor);
+
+        AdaptiveConcurrencyLimit adaptiveLimit = backpressureRegulator.getAdaptiveLimit();
+        if (adaptiveLimit != null) {
+            registry.scanAndRegister(adaptiveLimit, "operation.invocations.adaptiveLimit");
+        }
+
+        registry.collectMetrics(invocationRegistry, invocationMonitor, inboundResponseHandlerSupplier, outboundResponseHandler,
+                operationExecutor);
     }
 
     public void start() {
@@ -16,7 +16,11 @@
 
 package com.hazelcast.spi.impl.operationservice.impl;
 
+import com.hazelcast.internal.metrics.MetricsProvider;
+import com.hazelcast.internal.metrics.MetricsRegistry;
+import com.hazelcast.internal.metrics.Probe;
 import com.hazelcast.internal.serialization.InternalSerializationService;
+import com.hazelcast.internal.util.counters.MwCounter;
 import com.hazelcast.logging.ILogger;
 import com.hazelcast.nio.Address;
 import com.hazelcast.nio.EndpointManager;
@@ -25,13 +29,18 @@ import com.hazelcast.nio.serialization.Data;
 import com.hazelcast.spi.Operation;
 import com.hazelcast.spi.OperationResponseHandler;
 import com.hazelcast.spi.impl.SpiDataSerializerHook;
+import com.hazelcast.spi.impl.operationexecutor.impl.PartitionOperationThread;
 import com.hazelcast.spi.impl.operationservice.impl.responses.CallTimeoutResponse;
 import com.hazelcast.spi.impl.operationservice.impl.responses.ErrorResponse;
 import com.hazelcast.spi.impl.operationservice.impl.responses.NormalResponse;
 import com.hazelcast.spi.impl.operationservice.impl.responses.Response;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import static com.hazelcast.internal.serialization.impl.SerializationConstants.CONSTANT_TYPE_DATA_SERIALIZABLE;
 import static com.hazelcast.internal.serialization.impl.SerializationConstants.CONSTANT_TYPE_NULL;
+import static com.hazelcast.internal.util.counters.MwCounter.newMwCounter;
 import static com.hazelcast.nio.Bits.INT_SIZE_IN_BYTES;
 import static com.hazelcast.nio.Bits.writeInt;
 import static com.hazelcast.nio.Bits.writeIntB;
@@ -41,6 +50,7 @@ import static com.hazelcast.nio.Packet.FLAG_URGENT;
 import static com.hazelcast.nio.Packet.Type.OPERATION;
 import static com.hazelcast.spi.impl.SpiDataSerializerHook.BACKUP_ACK_RESPONSE;
 import static com.hazelcast.spi.impl.SpiDataSerializerHook.NORMAL_RESPONSE;
+import static com.hazelcast.spi.impl.SpiDataSerializerHook.RESPONSE_BATCH;
 import static com.hazelcast.spi.impl.operationservice.impl.responses.BackupAckResponse.BACKUP_RESPONSE_SIZE_IN_BYTES;
 import static com.hazelcast.spi.impl.operationservice.impl.responses.NormalResponse.OFFSET_BACKUP_ACKS;
 import static com.hazelcast.spi.impl.operationservice.impl.responses.NormalResponse.OFFSET_DATA_LENGTH;
@@ -53,6 +63,7 @@ import static com.hazelcast.spi.impl.operationservice.impl.responses.Response.OF
 import static com.hazelcast.spi.impl.operationservice.impl.responses.Response.OFFSET_TYPE_FACTORY_ID;
 import static com.hazelcast.spi.impl.operationservice.impl.responses.Response.OFFSET_TYPE_ID;
 import static com.hazelcast.spi.impl.operationservice.impl.responses.Response.OFFSET_URGENT;
+import static com.hazelcast.spi.impl.operationservice.impl.responses.Response.RESPONSE_SIZE_IN_BYTES;
 import static com.hazelcast.util.Preconditions.checkNotNull;
 import static java.nio.ByteOrder.BIG_ENDIAN;
 
@@ -60,21 +71,81 @@ import static java.nio.ByteOrder.BIG_ENDIAN;
  * An {@link OperationResponseHandler} that is used for a remotely executed Operation. So when a calling member
  * sends an Operation to the receiving member, the receiving member attaches this OutboundResponseHandler
  * to that operation so that the response is returned to the right machine.
+ * <p>
+ * If the response batching is enabled, the non urgent responses sent by the partition operation threads are
+ * collected into a {@link ResponseBatch} per thread and sent when the batch is full or the thread
+ * {@link #flushResponseBatch() flushes} it. A batch of responses to a member is sent as a single packet:
+ * a response prologue with the {@link SpiDataSerializerHook#RESPONSE_BATCH} type followed by the number
+ * of the responses and the length prefixed bytes of every response, see {@link InboundResponseHandler}.
+ * <p>
+ * Once the response batching is enabled, the {@code boolean} returned by the send methods no longer means
+ * the response has been sent: a batched response is only accepted for sending and a later failure to send
+ * its batch is logged, it can't be reported to the caller anymore. To keep the failures visible where it
+ * matters, a response is batched only if there is a connection to its target; otherwise it's sent right away.
  */
-public final class OutboundResponseHandler implements OperationResponseHandler {
+public final class OutboundResponseHandler implements OperationResponseHandler, MetricsProvider {
+
+    /**
+     * The offset of the number of the responses in a response batch.
+     */
+    static final int OFFSET_RESPONSE_COUNT = RESPONSE_SIZE_IN_BYTES;
+
+    @Probe(name = "responseBatchCount")
+    private final MwCounter responseBatchCount = newMwCounter();
+    @Probe(name = "batchedResponseCount")
+    private final MwCounter batchedResponseCount = newMwCounter();
 
     private final Address thisAddress;
     private final InternalSerializationService serializationService;
     private final boolean useBigEndian;
     private final ILogger logger;
+    private final int responseBatchSize;
+    private final ThreadLocal<ResponseBatch> responseBatches = new ThreadLocal<ResponseBatch>() {
+        @Override
+        protected ResponseBatch initialValue() {
+            return newResponseBatch();
+        }
+    };
 
     OutboundResponseHandler(Address thisAddress,
                             InternalSerializationService serializationService,
                             ILogger logger) {
+        this(thisAddress, serializationService, logger, 1);
+    }
+
+    OutboundResponseHandler(Address thisAddress,
+                            InternalSerializationService serializationService,
+                            ILogger logger,
+                            int responseBatchSize) {
         this.thisAddress = thisAddress;
         this.serializationService = serializationService;
         this.useBigEndian = serializationService.getByteOrder() == BIG_ENDIAN;
         this.logger = logger;
+        this.responseBatchSize = responseBatchSize;
+    }
+
+    @Override
+    public void provideMetrics(MetricsRegistry registry) {
+        registry.scanAndRegister(this, "operation");
+    }
+
+    /**
+     * Checks if the responses are batched, see
+     * {@link com.hazelcast.spi.properties.GroupProperty#RESPONSE_BATCH_SIZE}.
+     */
+    public boolean isResponseBatchingEnabled() {
+        return responseBatchSize > 1;
+    }
+
+    /**
+     * Sends the responses batched by the calling thread. Expected to be
+     * invoked by a partition operation thread before it waits for the next
+     * operation and periodically while it's busy.
+     */
+    public void flushResponseBatch() {
+        if (isResponseBatchingEnabled() && isPartitionThread()) {
+            responseBatches.get().flush();
+        }
     }
 
     @Override
@@ -104,6 +175,12 @@ public final class OutboundResponseHandler implements OperationResponseHandler {
         }
     }
 
+    /**
+     * Sends the given response to the target.
+     *
+     * @return {@code true} if the response has been sent or, if the response
+     * batching is enabled, accepted for sending; {@code false} otherwise
+     */
     public boolean send(EndpointManager endpointManager, Address target, Response response) {
         checkNotNull(target, "Target is required!");
 
@@ -208,10 +285,29 @@ public final class OutboundResponseHandler implements OperationResponseHandler {
         return packet;
     }
 
+    /**
+     * Transmits the packet or adds it to the response batch of the calling
+     * thread. A batched packet is only accepted for sending, so {@code true}
+     * doesn't mean the packet has been sent. Without a connection to the target
+     * the packet isn't batched, so a failure to send is still reported.
+     */
     private boolean transmit(Address target, Packet packet, EndpointManager endpointManager) {
+        if (isResponseBatchingEnabled() && !packet.isUrgent() && isPartitionThread()
+                && endpointManager.getConnection(target) != null) {
+            responseBatches.get().add(endpointManager, target, packet);
+            return true;
+        }
         return endpointManager.transmit(packet, target);
     }
 
+    private static boolean isPartitionThread() {
+        return Thread.currentThread() instanceof PartitionOperationThread;
+    }
+
+    ResponseBatch newResponseBatch() {
+        return new ResponseBatch();
+    }
+
     private void checkTarget(Address target) {
         checkNotNull(target, "Target is required!");
 
@@ -219,4 +315,107 @@ public final class OutboundResponseHandler implements OperationResponseHandler {
             throw new IllegalArgumentException("Target is this node! -> " + target);
         }
     }
+
+    /**
+     * The responses collected by a partition operation thread, grouped by
+     * their target member. Not thread-safe, used only by its thread.
+     */
+    final class ResponseBatch {
+
+        private final List<Pending> pendings = new ArrayList<Pending>();
+
+        /**
+         * Adds the given response packet to the batch of its target. The
+         * batch is sent once it's full.
+         */
+        void add(EndpointManager endpointManager, Address target, Packet packet) {
+            Pending pending = null;
+            for (int i = 0; i < pendings.size(); i++) {
+                Pending candidate = pendings.get(i);
+                if (candidate.endpointManager == endpointManager && candidate.target.equals(target)) {
+                    pending = candidate;
+                    break;
+                }
+            }
+            if (pending == null) {
+                pending = new Pending(endpointManager, target);
+                pendings.add(pending);
+            }
+
+            pending.add(packet.toByteArray());
+            if (pending.responses.size() >= responseBatchSize) {
+                send(pending);
+            }
+        }
+
+        /**
+         * Sends all the batched responses.
+         */
+        void flush() {
+            for (int i = 0; i < pendings.size(); i++) {
+                Pending pending = pendings.get(i);
+                if (!pending.responses.isEmpty()) {
+                    send(pending);
+                }
+            }
+        }
+
+        private void send(Pending pending) {
+            int responseCount = pending.responses.size();
+            Packet packet;
+            if (responseCount == 1) {
+                packet = newResponsePacket(pending.responses.get(0), false);
+            } else {
+                packet = newResponsePacket(pending.toBatchBytes(), false);
+                responseBatchCount.inc();
+                batchedResponseCount.inc(responseCount);
+            }
+            pending.clear();
+
+            try {
+                if (!pending.endpointManager.transmit(packet, pending.target)) {
+                    logger.warning("Cannot send " + responseCount + " batched response(s) to " + pending.target);
+                }
+            } catch (Exception e) {
+                logger.warning("Cannot send " + responseCount + " batched response(s) to " + pending.target, e);
+            }
+        }
+    }
+
+    private final class Pending {
+
+        final EndpointManager endpointManager;
+        final Address target;
+        final List<byte[]> responses = new ArrayList<byte[]>();
+        int length;
+
+        Pending(EndpointManager endpointManager, Address target) {
+            this.endpointManager = endpointManager;
+            this.target = target;
+        }
+
+        void add(byte[] response) {
+            responses.add(response);
+            length += INT_SIZE_IN_BYTES + response.length;
+        }
+
+        byte[] toBatchBytes() {
+            byte[] bytes = new byte[OFFSET_RESPONSE_COUNT + INT_SIZE_IN_BYTES + length];
+            writeResponsePrologueBytes(bytes, RESPONSE_BATCH, 0, false);
+            writeInt(bytes, OFFSET_RESPONSE_COUNT, responses.size(), useBigEndian);
+            int position = OFFSET_RESPONSE_COUNT + INT_SIZE_IN_BYTES;
+            for (byte[] response : responses) {
+                writeInt(bytes, position, response.length, useBigEndian);
+                position += INT_SIZE_IN_BYTES;
+                System.arraycopy(response, 0, bytes, position, response.length);
+                position += response.length;
+            }
+            return bytes;
+        }
+
+        void clear() {
+            responses.clear();
+            length = 0;
+        }
+    }
 }
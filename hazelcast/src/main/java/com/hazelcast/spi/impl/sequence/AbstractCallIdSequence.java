@@ -42,12 +42,24 @@ public abstract class AbstractCallIdSequence implements CallIdSequence {
     private final AtomicLongArray longs = new AtomicLongArray(3 * CACHE_LINE_LENGTH / LONG_SIZE_IN_BYTES);
 
     private final int maxConcurrentInvocations;
+    private final AdaptiveConcurrencyLimit adaptiveLimit;
 
     public AbstractCallIdSequence(int maxConcurrentInvocations) {
+        this(maxConcurrentInvocations, null);
+    }
+
+    /**
+     * @param maxConcurrentInvocations the maximum number of concurrent invocations.
+     * @param adaptiveLimit            the limit adapting to the latency of the invocations
+     *                                 applied below the maximum, or {@code null} if only
+     *                                 the maximum applies.
+     */
+    public AbstractCallIdSequence(int maxConcurrentInvocations, AdaptiveConcurrencyLimit adaptiveLimit) {
         checkPositive(maxConcurrentInvocations,
                 "maxConcurrentInvocations should be a positive number. maxConcurrentInvocations=" + maxConcurrentInvocations);
 
         this.maxConcurrentInvocations = maxConcurrentInvocations;
+        this.adaptiveLimit = adaptiveLimit;
     }
 
     @Override
@@ -70,6 +82,23 @@ public abstract class AbstractCallIdSequence implements CallIdSequence {
         return maxConcurrentInvocations;
     }
 
+    /**
+     * Returns the current limit of the concurrent invocations: the adaptive
+     * limit if there is one, the maximum otherwise.
+     *
+     * @return the current limit of the concurrent invocations.
+     */
+    public int getConcurrencyLimit() {
+        return adaptiveLimit == null ? maxConcurrentInvocations : Math.min(adaptiveLimit.getLimit(), maxConcurrentInvocations);
+    }
+
+    @Override
+    public void recordLatency(long latencyNanos) {
+        if (adaptiveLimit != null) {
+            adaptiveLimit.onSample(latencyNanos, concurrentInvocations());
+        }
+    }
+
     @Override
     public void complete() {
         long newTail = longs.incrementAndGet(INDEX_TAIL);
@@ -85,7 +114,7 @@ public abstract class AbstractCallIdSequence implements CallIdSequence {
     }
 
     protected boolean hasSpace() {
-        return concurrentInvocations() < maxConcurrentInvocations;
+        return concurrentInvocations() < getConcurrencyLimit();
     }
 
     @Override
@@ -0,0 +1,183 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hazelcast.spi.impl.sequence;
+
+import com.hazelcast.internal.metrics.Probe;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.hazelcast.util.Preconditions.checkPositive;
+import static com.hazelcast.util.Preconditions.checkTrue;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+/**
+ * A concurrency limit adapting to the latency of the invocations.
+ * <p>
+ * The latencies of the completed invocations are averaged over windows of
+ * {@link #WINDOW_SIZE} samples. The smallest window average seen so far is
+ * taken as the latency of the unloaded system; it drifts upwards by 1/64
+ * every {@link #BASELINE_DRIFT_INTERVAL_NANOS}, so a lasting change of the
+ * baseline latency isn't taken for an overload forever. The drift depends on
+ * the elapsed time only: a high throughput doesn't let a sustained overload
+ * pass for the baseline any sooner. At the end of each window the limit is adjusted by the gradient
+ * between the baseline latency, multiplied by a tolerance, and the average
+ * latency of the window:
+ * <ul>
+ * <li>if the average latency is within the tolerance and the invocations
+ * are actually bounded by the limit, the limit grows additively by the
+ * square root of the limit;</li>
+ * <li>if the average latency exceeds the tolerance, the limit, but at most
+ * the number of the concurrent invocations, is decreased multiplicatively
+ * by the gradient, but at most halved.</li>
+ * </ul>
+ * So the invocations queuing up in the system, which shows as a growing
+ * latency, shrink the limit and the overload is shed by the invokers
+ * before it accumulates in the operation queues.
+ * <p>
+ * A single sample is counted with at most {@link #MAX_SAMPLE_FACTOR} times
+ * the baseline latency, so a few long running invocations, e.g. the
+ * blocking ones, don't shrink the limit.
+ * <p>
+ * The samples are recorded concurrently; the limit is updated by the
+ * thread completing a window.
+ */
+public final class AdaptiveConcurrencyLimit {
+
+    /**
+     * The number of the samples averaged before the limit is adjusted.
+     */
+    static final int WINDOW_SIZE = 100;
+
+    /**
+     * The cap of a sample relative to the baseline latency.
+     */
+    static final int MAX_SAMPLE_FACTOR = 8;
+
+    /**
+     * The time after which the baseline latency drifts upwards if no smaller
+     * window average is seen.
+     */
+    static final long BASELINE_DRIFT_INTERVAL_NANOS = SECONDS.toNanos(10);
+
+    private static final int BASELINE_DRIFT_SHIFT = 6;
+    private static final double MIN_GRADIENT = 0.5;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+
+    private final AtomicLong windowSamples = new AtomicLong();
+    private final AtomicLong windowLatencySum = new AtomicLong();
+    @Probe
+    private volatile long baselineLatencyNanos = Long.MAX_VALUE;
+    private volatile long baselineTimestampNanos;
+    @Probe
+    private volatile int limit;
+
+    /**
+     * @param minLimit  the lower bound of the limit.
+     * @param maxLimit  the upper bound and the initial value of the limit.
+     * @param tolerance the factor of the baseline latency tolerated before
+     *                  the limit is decreased, at least 1.
+     */
+    public AdaptiveConcurrencyLimit(int minLimit, int maxLimit, double tolerance) {
+        checkPositive(minLimit, "minLimit should be positive");
+        checkTrue(maxLimit >= minLimit, "maxLimit should not be smaller than minLimit");
+        checkTrue(tolerance >= 1, "tolerance should not be smaller than 1");
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.tolerance = tolerance;
+        this.limit = maxLimit;
+    }
+
+    /**
+     * @return the current limit of the concurrent invocations.
+     */
+    public int getLimit() {
+        return limit;
+    }
+
+    /**
+     * @return the latency of the unloaded system in nanoseconds, or
+     * {@link Long#MAX_VALUE} if not known yet.
+     */
+    public long getBaselineLatencyNanos() {
+        return baselineLatencyNanos;
+    }
+
+    /**
+     * Records the latency of a completed invocation.
+     *
+     * @param latencyNanos the latency of the invocation.
+     * @param inFlight     the number of the invocations in flight.
+     */
+    public void onSample(long latencyNanos, long inFlight) {
+        onSample(latencyNanos, inFlight, System.nanoTime());
+    }
+
+    void onSample(long latencyNanos, long inFlight, long nowNanos) {
+        long baseline = baselineLatencyNanos;
+        long sample = baseline == Long.MAX_VALUE ? latencyNanos : Math.min(latencyNanos, baseline * MAX_SAMPLE_FACTOR);
+        windowLatencySum.addAndGet(Math.max(sample, 0));
+        if (windowSamples.incrementAndGet() != WINDOW_SIZE) {
+            return;
+        }
+
+        // only the thread completing the window gets here until the window is reset
+        long samples = windowSamples.getAndSet(0);
+        long latencySum = windowLatencySum.getAndSet(0);
+        update(latencySum / samples, inFlight, nowNanos);
+    }
+
+    private void update(long averageLatencyNanos, long inFlight, long nowNanos) {
+        long baseline = baselineLatencyNanos;
+        if (averageLatencyNanos < baseline) {
+            baseline = averageLatencyNanos;
+            baselineTimestampNanos = nowNanos;
+        } else if (nowNanos - baselineTimestampNanos >= BASELINE_DRIFT_INTERVAL_NANOS) {
+            baseline += Math.max(baseline >> BASELINE_DRIFT_SHIFT, 1);
+            baselineTimestampNanos = nowNanos;
+        }
+        baselineLatencyNanos = baseline;
+
+        int currentLimit = limit;
+        double gradient = Math.max(MIN_GRADIENT,
+                Math.min(1.0, tolerance * baseline / Math.max(averageLatencyNanos, 1)));
+        long newLimit;
+        if (gradient < 1.0) {
+            newLimit = (long) (Math.min(currentLimit, Math.max(inFlight, minLimit)) * gradient);
+        } else if (inFlight * 2 >= currentLimit) {
+            newLimit = currentLimit + (long) Math.sqrt(currentLimit);
+        } else {
+            // the invocations aren't bounded by the limit, there is nothing to learn
+            return;
+        }
+        limit = (int) Math.max(minLimit, Math.min(maxLimit, newLimit));
+    }
+
+    @Override
+    public String toString() {
+        return "AdaptiveConcurrencyLimit{"
+                + "limit=" + limit
+                + ", minLimit=" + minLimit
+                + ", maxLimit=" + maxLimit
+                + ", tolerance=" + tolerance
+                + ", baselineLatencyNanos=" + baselineLatencyNanos
+                + '}';
+    }
+}
@@ -23,12 +23,22 @@ public final class CallIdFactory {
 
     public static CallIdSequence newCallIdSequence(boolean isBackPressureEnabled, int maxAllowedConcurrentInvocations,
                                                    long backoffTimeoutMs) {
+        return newCallIdSequence(isBackPressureEnabled, maxAllowedConcurrentInvocations, backoffTimeoutMs, null);
+    }
+
+    /**
+     * Creates a call id sequence applying the given adaptive limit below the
+     * maximum number of concurrent invocations. The adaptive limit is ignored
+     * if the backpressure is disabled.
+     */
+    public static CallIdSequence newCallIdSequence(boolean isBackPressureEnabled, int maxAllowedConcurrentInvocations,
+                                                   long backoffTimeoutMs, AdaptiveConcurrencyLimit adaptiveLimit) {
         if (!isBackPressureEnabled) {
             return new CallIdSequenceWithoutBackpressure();
         } else if (backoffTimeoutMs <= 0) {
-            return new FailFastCallIdSequence(maxAllowedConcurrentInvocations);
+            return new FailFastCallIdSequence(maxAllowedConcurrentInvocations, adaptiveLimit);
         } else {
-            return new CallIdSequenceWithBackpressure(maxAllowedConcurrentInvocations, backoffTimeoutMs);
+            return new CallIdSequenceWithBackpressure(maxAllowedConcurrentInvocations, backoffTimeoutMs, adaptiveLimit);
         }
     }
 }
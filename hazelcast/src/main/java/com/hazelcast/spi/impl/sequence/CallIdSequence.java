@@ -71,6 +71,15 @@ public interface CallIdSequence {
     /** Not idempotent: must be called exactly once per invocation. */
     void complete();
 
+    /**
+     * Records the latency of a completed invocation. The sequences adapting
+     * their limit to the latency of the invocations use it, the others
+     * ignore it.
+     *
+     * @param latencyNanos the latency of the invocation in nanoseconds
+     */
+    void recordLatency(long latencyNanos);
+
     /** Returns the last issued call ID.
      * <strong>ONLY FOR TESTING. Must not be used for production code.</strong>
      */
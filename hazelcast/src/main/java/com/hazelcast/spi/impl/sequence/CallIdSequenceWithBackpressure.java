@@ -45,7 +45,12 @@ public final class CallIdSequenceWithBackpressure extends AbstractCallIdSequence
     private final long backoffTimeoutNanos;
 
     public CallIdSequenceWithBackpressure(int maxConcurrentInvocations, long backoffTimeoutMs) {
-        super(maxConcurrentInvocations);
+        this(maxConcurrentInvocations, backoffTimeoutMs, null);
+    }
+
+    public CallIdSequenceWithBackpressure(int maxConcurrentInvocations, long backoffTimeoutMs,
+                                          AdaptiveConcurrencyLimit adaptiveLimit) {
+        super(maxConcurrentInvocations, adaptiveLimit);
 
         checkPositive(backoffTimeoutMs, "backoffTimeoutMs should be a positive number. backoffTimeoutMs=" + backoffTimeoutMs);
 
@@ -59,8 +64,9 @@ public final class CallIdSequenceWithBackpressure extends AbstractCallIdSequence
             long elapsedNanos = System.nanoTime() - start;
             if (elapsedNanos > backoffTimeoutNanos) {
                 throw new HazelcastOverloadException(String.format("Timed out trying to acquire another call ID."
-                                + " maxConcurrentInvocations = %d, backoffTimeout = %d msecs, elapsed:%d msecs",
-                        getMaxConcurrentInvocations(), NANOSECONDS.toMillis(backoffTimeoutNanos),
+                                + " maxConcurrentInvocations = %d, concurrencyLimit = %d, backoffTimeout = %d msecs,"
+                                + " elapsed:%d msecs",
+                        getMaxConcurrentInvocations(), getConcurrencyLimit(), NANOSECONDS.toMillis(backoffTimeoutNanos),
                         NANOSECONDS.toMillis(elapsedNanos)));
             }
             IDLER.idle(idleCount);
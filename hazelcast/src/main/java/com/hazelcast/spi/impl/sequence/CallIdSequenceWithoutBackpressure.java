@@ -50,6 +50,11 @@ public final class CallIdSequenceWithoutBackpressure implements CallIdSequence {
         //no-op
     }
 
+    @Override
+    public void recordLatency(long latencyNanos) {
+        //no-op
+    }
+
     @Override
     public long concurrentInvocations() {
         return -1;
@@ -35,9 +35,14 @@ public class FailFastCallIdSequence extends AbstractCallIdSequence {
         super(maxConcurrentInvocations);
     }
 
+    public FailFastCallIdSequence(int maxConcurrentInvocations, AdaptiveConcurrencyLimit adaptiveLimit) {
+        super(maxConcurrentInvocations, adaptiveLimit);
+    }
+
     @Override
     protected void handleNoSpaceLeft() {
         throw new HazelcastOverloadException(
-                "Maximum invocation count is reached. maxConcurrentInvocations = " + getMaxConcurrentInvocations());
+                "Maximum invocation count is reached. maxConcurrentInvocations = " + getMaxConcurrentInvocations()
+                        + ", concurrencyLimit = " + getConcurrencyLimit());
     }
 }
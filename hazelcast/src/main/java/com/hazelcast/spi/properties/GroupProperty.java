@@ -75,6 +75,54 @@ public final class GroupProperty {
     public static final HazelcastProperty PARTITION_OPERATION_THREAD_COUNT
             = new HazelcastProperty("hazelcast.operation.thread.count", -1);
 
+    /**
+     * The queue of the partition operation threads: {@code linked} is a linked multi producer single consumer queue,
+     * {@code array} is a bounded array based one that doesn't allocate a node per operation and overflows into a
+     * linked queue when it is full, see {@link #PARTITION_OPERATION_QUEUE_CAPACITY}.
+     * <p/>
+     * The default is {@code linked}.
+     */
+    public static final HazelcastProperty PARTITION_OPERATION_QUEUE_TYPE
+            = new HazelcastProperty("hazelcast.operation.partitionthread.queue", "linked");
+
+    /**
+     * The capacity of the {@code array} queue of a partition operation thread, see
+     * {@link #PARTITION_OPERATION_QUEUE_TYPE}. Rounded up to the next power of two.
+     * <p/>
+     * The default is 65536.
+     */
+    public static final HazelcastProperty PARTITION_OPERATION_QUEUE_CAPACITY
+            = new HazelcastProperty("hazelcast.operation.partitionthread.queue.capacity", 65536);
+
+    /**
+     * What a partition operation thread does while its queue is empty: {@code block} parks the thread till an
+     * operation is added, {@code busyspin} spins, {@code yield} yields and {@code backoff} spins, then yields and
+     * then parks for increasing periods. The backoff can be configured with
+     * {@code backoff,maxSpins,maxYields,minParkPeriodNs,maxParkPeriodNs}.
+     * <p/>
+     * The spinning and the yielding lower the latency of the operations at the cost of the CPU, since every
+     * partition thread runs hot.
+     * <p/>
+     * The default is {@code block}.
+     */
+    public static final HazelcastProperty PARTITION_OPERATION_THREAD_IDLE_STRATEGY
+            = new HazelcastProperty("hazelcast.operation.partitionthread.idlestrategy", "block");
+
+    /**
+     * Experimental: allows the IO threads to run the lightweight partition operations received from the other
+     * members themselves instead of handing them over to the partition operation threads. An operation is run
+     * by the IO thread only if the partition thread owning its partition is idle and has nothing queued, so the
+     * operations of a partition are still run by a single thread at a time and in order. Only the operations
+     * marked as {@link com.hazelcast.spi.impl.operationexecutor.InlineExecutable} are run this way: the map get
+     * and containsKey operations of the on-heap maps without map stores, interceptors, listeners and WAN
+     * replication. The operations run this way run on the IO threads, so their responses are not batched, see
+     * {@link #RESPONSE_BATCH_SIZE}.
+     * <p/>
+     * The default is {@code false}.
+     */
+    public static final HazelcastProperty OPERATION_INLINE_EXECUTION_ENABLED
+            = new HazelcastProperty("hazelcast.operation.inline.execution.enabled", false);
+
     /**
      * The number of generic operation handler threads per member.
      * <p/>
@@ -108,6 +156,22 @@ public final class GroupProperty {
     public static final HazelcastProperty RESPONSE_THREAD_COUNT
             = new HazelcastProperty("hazelcast.operation.response.thread.count", 2);
 
+    /**
+     * The maximum number of responses a partition operation thread batches into a single packet per member.
+     * <p>
+     * While its queue isn't drained, a partition thread collects the non urgent responses to the other members
+     * instead of sending them one by one, and sends the collected responses of a member as a single packet once
+     * the batch is full or the queue is drained. So the batches grow only under load, a lightly loaded thread
+     * sends every response right away.
+     * <p>
+     * All the members of the cluster must be able to decode the batches, so the batching may be enabled only
+     * when no member of an older version is in the cluster.
+     * <p>
+     * The default is 1, which disables the batching.
+     */
+    public static final HazelcastProperty RESPONSE_BATCH_SIZE
+            = new HazelcastProperty("hazelcast.operation.response.batch.size", 1);
+
     /**
      * The number of threads that the client engine has available for processing requests that are not partition specific.
      * Most of the requests, such as {@code map.put} and {@code map.get}, are partition specific and will use a
@@ -217,6 +281,52 @@ public final class GroupProperty {
     public static final HazelcastProperty IO_OUTPUT_THREAD_COUNT
             = new HazelcastProperty("hazelcast.io.output.thread.count", IO_THREAD_COUNT);
 
+    /**
+     * The transport used for the member connections: {@code nio} processes the sockets using the
+     * {@link java.nio.channels.Selector}s, {@code spinning} polls the non blocking sockets in a loop, without any
+     * selector, trading CPU for latency.
+     * <p/>
+     * The spinning IO threads run hot while the member is busy, so the number of the IO threads should be lowered
+     * along, see {@link #IO_THREAD_COUNT}.
+     * <p/>
+     * The default is {@code nio}.
+     */
+    public static final HazelcastProperty IO_TRANSPORT
+            = new HazelcastProperty("hazelcast.io.transport", "nio");
+
+    /**
+     * Enables the gathering writes of the member and the client connections: the frames queued on a connection
+     * are written in batches with a single system call, the small frames copied into a staging buffer and the
+     * large frames added as heap buffers wrapping their byte arrays.
+     * <p/>
+     * The gathering writes save system calls, not copies: the JDK copies the heap buffers into temporary direct
+     * buffers cached per IO thread. When large frames are written, consider capping the size of the cached
+     * buffers with the {@code jdk.nio.maxCachedBufferSize} system property.
+     * <p/>
+     * The default is false.
+     */
+    public static final HazelcastProperty IO_GATHERING_WRITE_ENABLED
+            = new HazelcastProperty("hazelcast.io.gathering.write.enabled", false);
+
+    /**
+     * Enables the pooling of the socket buffers of the member and the client connections: a connection borrows
+     * its receive and send buffers from a pool shared by all the connections while it has data in flight and
+     * returns them once they are drained, so the idle connections don't hold any buffer memory.
+     * <p/>
+     * The default is false.
+     */
+    public static final HazelcastProperty IO_BUFFER_POOL_ENABLED
+            = new HazelcastProperty("hazelcast.io.buffer.pool.enabled", false);
+
+    /**
+     * The maximum size in megabytes of the buffers kept in the socket buffer pool, see
+     * {@link #IO_BUFFER_POOL_ENABLED}. The buffers returned to a full pool are released.
+     * <p/>
+     * The default is 64 megabytes.
+     */
+    public static final HazelcastProperty IO_BUFFER_POOL_MAX_SIZE_MB
+            = new HazelcastProperty("hazelcast.io.buffer.pool.max.size.mb", 64);
+
     /**
      * The interval in seconds between {@link com.hazelcast.internal.networking.nio.iobalancer.IOBalancer IOBalancer}
      * executions. The shorter intervals will catch I/O Imbalance faster, but they will cause higher overhead.
@@ -712,6 +822,60 @@ public final class GroupProperty {
     public static final HazelcastProperty MAP_WRITE_BEHIND_QUEUE_CAPACITY
             = new HazelcastProperty("hazelcast.map.write.behind.queue.capacity", 50000);
 
+    /**
+     * The number of threads flushing the write-behind queues of a map concurrently. The entries to store are split
+     * into groups of partitions which are written by a dedicated executor of the map, so all the store operations of
+     * a key are still done in order, by a single thread.
+     * <p/>
+     * The default is 1: the write-behind queues of a map are flushed by a single thread.
+     */
+    public static final HazelcastProperty MAP_WRITE_BEHIND_FLUSH_PARALLELISM
+            = new HazelcastProperty("hazelcast.map.write.behind.flush.parallelism", 1);
+
+    /**
+     * The target latency in milliseconds of a single batch write of a write-behind map store. When set, the size of the
+     * batches passed to {@link com.hazelcast.core.MapStore#storeAll} and {@link com.hazelcast.core.MapStore#deleteAll}
+     * is adapted to the observed latency of the store, so a batch takes about the target latency, but the batches
+     * never exceed the configured {@link com.hazelcast.config.MapStoreConfig#getWriteBatchSize() write batch size}.
+     * <p/>
+     * The default is 0: the batches have the configured write batch size.
+     */
+    public static final HazelcastProperty MAP_WRITE_BEHIND_BATCH_TARGET_LATENCY_MILLIS
+            = new HazelcastProperty("hazelcast.map.write.behind.batch.target.latency.millis", 0, MILLISECONDS);
+
+    /**
+     * The directory the write-behind queues of the maps without
+     * {@link com.hazelcast.config.MapStoreConfig#isWriteCoalescing() write coalescing} spill their entries to when they
+     * hold more than {@link #MAP_WRITE_BEHIND_SPILL_IN_MEMORY_CAPACITY} entries. A spilling queue keeps accepting
+     * entries while the map store is unavailable without growing the heap and it is not limited by
+     * {@link #MAP_WRITE_BEHIND_QUEUE_CAPACITY}. The spilled entries are not recovered after a restart.
+     * <p/>
+     * The default is no directory: the write-behind queues keep all their entries in heap.
+     */
+    public static final HazelcastProperty MAP_WRITE_BEHIND_SPILL_DIRECTORY
+            = new HazelcastProperty("hazelcast.map.write.behind.spill.directory");
+
+    /**
+     * The number of entries a write-behind queue of a partition keeps in heap before it spills the newer entries to
+     * the {@link #MAP_WRITE_BEHIND_SPILL_DIRECTORY spill directory}.
+     * <p/>
+     * The default is 1000.
+     */
+    public static final HazelcastProperty MAP_WRITE_BEHIND_SPILL_IN_MEMORY_CAPACITY
+            = new HazelcastProperty("hazelcast.map.write.behind.spill.in.memory.capacity", 1000);
+
+    /**
+     * Enables coalescing of the read-through loads of the map entries missing in memory. A get missing an entry
+     * doesn't load it on the partition thread, it waits for the entry to be loaded on the map loader executor instead:
+     * concurrent gets of the same key share a single {@link com.hazelcast.core.MapLoader#load} call and the keys
+     * missed while a partition is loading are loaded together by a single {@link com.hazelcast.core.MapLoader#loadAll}
+     * call, in batches of at most {@link #MAP_LOAD_CHUNK_SIZE} keys.
+     * <p/>
+     * The default is false: every get missing an entry loads it on the partition thread.
+     */
+    public static final HazelcastProperty MAP_LOAD_COALESCING_ENABLED
+            = new HazelcastProperty("hazelcast.map.load.coalescing.enabled", false);
+
     /**
      * Defines cache invalidation event batch sending is enabled or not.
      */
@@ -817,6 +981,26 @@ public final class GroupProperty {
     public static final HazelcastProperty BACKPRESSURE_MAX_CONCURRENT_INVOCATIONS_PER_PARTITION
             = new HazelcastProperty("hazelcast.backpressure.max.concurrent.invocations.per.partition", 100);
 
+    /**
+     * Enables the adaptive limit of the concurrent invocations. The limit is lowered below the maximum set by
+     * {@link #BACKPRESSURE_MAX_CONCURRENT_INVOCATIONS_PER_PARTITION} when the latency of the invocations grows beyond
+     * {@link #BACKPRESSURE_ADAPTIVE_LATENCY_TOLERANCE} times the latency of the unloaded system and raised again when
+     * the latency recovers, so an overload is shed by the invokers before the operations queue up.
+     * <p/>
+     * This property only has meaning when backpressure is enabled. The default is false.
+     */
+    public static final HazelcastProperty BACKPRESSURE_ADAPTIVE_LIMIT_ENABLED
+            = new HazelcastProperty("hazelcast.backpressure.adaptive.limit.enabled", false);
+
+    /**
+     * The factor of the latency of the unloaded system tolerated before the adaptive limit of the concurrent
+     * invocations is lowered, see {@link #BACKPRESSURE_ADAPTIVE_LIMIT_ENABLED}. Can't be smaller than 1.
+     * <p/>
+     * The default is 2.
+     */
+    public static final HazelcastProperty BACKPRESSURE_ADAPTIVE_LATENCY_TOLERANCE
+            = new HazelcastProperty("hazelcast.backpressure.adaptive.latency.tolerance", "2");
+
     /**
      * Run Query Evaluations for multiple partitions in parallel.
      * <p/>
@@ -883,6 +1067,8 @@ public final class GroupProperty {
      * Valid Values:
      * <ul>
      * <li>RULES - for optimizations based on static rules</li>
+     * <li>COST - for optimizations based on static rules followed by the
+     * planning based on the statistics of the indexes</li>
      * <li>NONE - optimization are disabled</li>
      * </ul>
      * <p/>
@@ -891,6 +1077,45 @@ public final class GroupProperty {
     public static final HazelcastProperty QUERY_OPTIMIZER_TYPE
             = new HazelcastProperty("hazelcast.query.optimizer.type", QueryOptimizerFactory.Type.RULES.toString());
 
+    /**
+     * Maximum number of the attributes per map partition for which the
+     * primitive columns are maintained to evaluate the queries and the
+     * aggregations not served by the indexes.
+     * <p/>
+     * The columns are created for the numeric attributes used by the queries
+     * repeatedly and hold the attribute values of all the entries of a
+     * partition in the primitive arrays, so the predicates and the count,
+     * long sum and double average aggregations are evaluated without
+     * deserializing the entries. Each column costs about 8 bytes per entry
+     * and the updates of the entries become more expensive since the values
+     * of the columns must be extracted from them.
+     * <p/>
+     * The value of {@code 0} (the default) disables the columnar scans. The
+     * columnar scans are not supported for the NATIVE in-memory format and
+     * the maps with the expiration.
+     */
+    public static final HazelcastProperty QUERY_COLUMNAR_SCAN_MAX_ATTRIBUTES
+            = new HazelcastProperty("hazelcast.query.columnar.scan.max.attributes", 0);
+
+    /**
+     * Maximum number of the predicates the results of the full partition
+     * scans are cached for, per partition of an IMap.
+     * <p/>
+     * A cached result holds the references to the keys and the values of the
+     * entries matched by a predicate in a partition and it's valid until the
+     * next mutation of the partition, so repeating a query against the
+     * partitions that didn't change since its previous run skips the scans
+     * of those partitions. The least recently used results are discarded
+     * first. Only the predicates implementing {@code equals} and {@code
+     * hashCode} benefit from the cache, paging predicates are never cached.
+     * <p/>
+     * The value of {@code 0} (the default) disables the cache. The cache is
+     * not supported for the NATIVE in-memory format and the maps with the
+     * expiration.
+     */
+    public static final HazelcastProperty QUERY_RESULT_CACHE_SIZE
+            = new HazelcastProperty("hazelcast.query.result.cache.size", 0);
+
     /**
      * Type of Query Index result copying behavior.
      *
@@ -945,6 +1170,21 @@ public final class GroupProperty {
     public static final HazelcastProperty INDEX_COPY_BEHAVIOR
             = new HazelcastProperty("hazelcast.index.copy.behavior", IndexCopyBehavior.COPY_ON_READ.toString());
 
+    /**
+     * Number of the entries inserted at once into an index added to an IMap
+     * at runtime.
+     * <p/>
+     * When positive, the index is built online: the entries of a partition
+     * are inserted into the index in chunks of this size interleaved with
+     * the other operations on the partition, the index keeps receiving the
+     * updates of the entries meanwhile and it's used by the queries once all
+     * the partitions owned by the member are indexed. When {@code 0} (the
+     * default), the entries of a partition are inserted at once blocking the
+     * other operations on the partition until the index is populated.
+     */
+    public static final HazelcastProperty INDEX_BUILD_CHUNK_SIZE
+            = new HazelcastProperty("hazelcast.index.build.chunk.size", 0);
+
     /**
      * Forces the JCache provider, which can have values client or server, to force the provider type.
      * If not provided, the provider will be client or server, whichever is found on the classpath first respectively.
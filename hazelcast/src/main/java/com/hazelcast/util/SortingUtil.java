@@ -20,11 +20,14 @@ import com.hazelcast.internal.util.ResultSet;
 import com.hazelcast.query.PagingPredicate;
 import com.hazelcast.query.PagingPredicateAccessor;
 import com.hazelcast.query.impl.QueryableEntry;
+import com.hazelcast.util.collection.TopKSelector;
 
-import java.util.Collections;
+import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.RandomAccess;
 
 import static com.hazelcast.query.PagingPredicateAccessor.getNearestAnchorEntry;
 
@@ -33,6 +36,8 @@ import static com.hazelcast.query.PagingPredicateAccessor.getNearestAnchorEntry;
  */
 public final class SortingUtil {
 
+    private static final int INITIAL_RUN_CAPACITY = 16;
+
     private SortingUtil() {
     }
 
@@ -142,17 +147,65 @@ public final class SortingUtil {
         if (pagingPredicate == null || list.isEmpty()) {
             return list;
         }
-        Comparator<QueryableEntry> comparator = newComparator(pagingPredicate);
-        Collections.sort(list, comparator);
-        int nearestPage = nearestAnchorEntry.getKey();
-        int pageSize = pagingPredicate.getPageSize();
-        int page = pagingPredicate.getPage();
-        long totalSize = pageSize * ((long) page - nearestPage);
-        if (list.size() > totalSize) {
-            // it's safe to cast totalSize back to int here since it's limited by the list size
-            list = list.subList(0, (int) totalSize);
+        // the list is made of the sorted partition results, merge them up to the limit
+        return mergeSortedRuns(list, newComparator(pagingPredicate), getPageLimit(pagingPredicate, nearestAnchorEntry));
+    }
+
+    /**
+     * Creates a new selector of the entries leading in the order defined by
+     * the given paging predicate up to and including its current page.
+     *
+     * @param pagingPredicate    the paging predicate to create the selector for.
+     * @param nearestAnchorEntry the nearest anchor entry of the paging predicate.
+     * @return the created selector.
+     */
+    public static TopKSelector<QueryableEntry> newTopKSelector(PagingPredicate pagingPredicate,
+                                                               Map.Entry<Integer, Map.Entry> nearestAnchorEntry) {
+        return new TopKSelector<QueryableEntry>(getPageLimit(pagingPredicate, nearestAnchorEntry),
+                newComparator(pagingPredicate));
+    }
+
+    /**
+     * Merges the ascending runs of the given list up to the given limit.
+     * <p>
+     * The query results received from the members and partitions are already
+     * sorted, merging them takes {@code O(n + limit * log(runs))} time
+     * instead of {@code O(n log n)} taken by sorting.
+     *
+     * @param list       the list to merge the ascending runs of.
+     * @param comparator the comparator defining the order.
+     * @param limit      the maximum number of the items to merge.
+     * @param <E>        the type of the items.
+     * @return the new list of at most {@code limit} leading items.
+     */
+    public static <E> List<E> mergeSortedRuns(List<E> list, Comparator<? super E> comparator, int limit) {
+        int size = list.size();
+        List<E> merged = new ArrayList<E>(Math.min(size, limit));
+        if (size == 0 || limit == 0) {
+            return merged;
         }
-        return list;
+        if (!(list instanceof RandomAccess)) {
+            list = new ArrayList<E>(list);
+        }
+
+        PriorityQueue<SortedRun<E>> runs = new PriorityQueue<SortedRun<E>>(INITIAL_RUN_CAPACITY,
+                new SortedRunComparator<E>(comparator));
+        int runStart = 0;
+        for (int i = 1; i <= size; i++) {
+            if (i == size || comparator.compare(list.get(i - 1), list.get(i)) > 0) {
+                runs.add(new SortedRun<E>(list, runStart, i));
+                runStart = i;
+            }
+        }
+
+        while (merged.size() < limit && !runs.isEmpty()) {
+            SortedRun<E> run = runs.poll();
+            merged.add(run.head());
+            if (run.advance()) {
+                runs.add(run);
+            }
+        }
+        return merged;
     }
 
     @SuppressWarnings("unchecked")
@@ -162,7 +215,6 @@ public final class SortingUtil {
             return new ResultSet();
         }
         Comparator<Map.Entry> comparator = SortingUtil.newComparator(pagingPredicate.getComparator(), iterationType);
-        Collections.sort(list, comparator);
 
         Map.Entry<Integer, Map.Entry> nearestAnchorEntry = getNearestAnchorEntry(pagingPredicate);
         int nearestPage = nearestAnchorEntry.getKey();
@@ -177,6 +229,9 @@ public final class SortingUtil {
         if (end > size) {
             end = size;
         }
+        // the partial results are sorted by the members, only the leading entries are merged;
+        // it's safe to cast end back to int here since it's limited by the list size
+        list = mergeSortedRuns(list, comparator, (int) end);
         setAnchor(list, pagingPredicate, nearestPage);
         // it's safe to cast begin and end back to int here since they are limited by the list size
         List<Map.Entry> subList = list.subList((int) begin, (int) end);
@@ -197,6 +252,12 @@ public final class SortingUtil {
         return SortingUtil.compare(comparator, iterationType, anchor, queryEntry) < 0;
     }
 
+    private static int getPageLimit(PagingPredicate pagingPredicate, Map.Entry<Integer, Map.Entry> nearestAnchorEntry) {
+        int nearestPage = nearestAnchorEntry.getKey();
+        long limit = pagingPredicate.getPageSize() * ((long) pagingPredicate.getPage() - nearestPage);
+        return (int) Math.min(limit, Integer.MAX_VALUE);
+    }
+
     private static void setAnchor(List<Map.Entry> list, PagingPredicate pagingPredicate, int nearestPage) {
         if (list.isEmpty()) {
             return;
@@ -211,4 +272,44 @@ public final class SortingUtil {
         }
     }
 
+    /**
+     * Cursor over an ascending run of a list.
+     */
+    private static final class SortedRun<E> {
+
+        private final List<E> list;
+        private final int end;
+        private int position;
+
+        SortedRun(List<E> list, int start, int end) {
+            this.list = list;
+            this.position = start;
+            this.end = end;
+        }
+
+        E head() {
+            return list.get(position);
+        }
+
+        boolean advance() {
+            return ++position < end;
+        }
+
+    }
+
+    private static final class SortedRunComparator<E> implements Comparator<SortedRun<E>> {
+
+        private final Comparator<? super E> comparator;
+
+        SortedRunComparator(Comparator<? super E> comparator) {
+            this.comparator = comparator;
+        }
+
+        @Override
+        public int compare(SortedRun<E> run1, SortedRun<E> run2) {
+            return comparator.compare(run1.head(), run2.head());
+        }
+
+    }
+
 }
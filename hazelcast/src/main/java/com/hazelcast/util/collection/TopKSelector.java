@@ -0,0 +1,145 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.util.collection;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import static com.hazelcast.util.Preconditions.checkNotNegative;
+import static com.hazelcast.util.Preconditions.checkNotNull;
+
+/**
+ * Selects the {@code k} smallest items offered to it according to the given
+ * comparator.
+ * <p>
+ * The selected items are kept in a binary max-heap bounded by {@code k}, so
+ * selecting from {@code n} items takes {@code O(n log k)} time and {@code
+ * O(k)} memory instead of sorting all of them.
+ * <p>
+ * The selector is not thread-safe.
+ *
+ * @param <E> the type of the items.
+ */
+public final class TopKSelector<E> {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final int k;
+    private final Comparator<? super E> comparator;
+
+    private Object[] heap;
+    private int size;
+
+    /**
+     * Constructs a new selector.
+     *
+     * @param k          the maximum number of the items to select.
+     * @param comparator the comparator defining the order of the items.
+     */
+    public TopKSelector(int k, Comparator<? super E> comparator) {
+        this.k = checkNotNegative(k, "k can't be negative");
+        this.comparator = checkNotNull(comparator, "comparator can't be null");
+        this.heap = new Object[Math.min(k, INITIAL_CAPACITY)];
+    }
+
+    /**
+     * Offers the given item to this selector.
+     *
+     * @param item the item to offer.
+     * @return the item which is no longer selected as a result of this offer:
+     * either the given item itself if it doesn't belong to the {@code k}
+     * smallest ones or the previously selected item it displaced; {@code
+     * null} if no item was discarded.
+     */
+    @SuppressWarnings("unchecked")
+    public E offer(E item) {
+        if (size < k) {
+            if (size == heap.length) {
+                heap = Arrays.copyOf(heap, (int) Math.min(k, (long) heap.length << 1));
+            }
+            heap[size] = item;
+            siftUp(size++);
+            return null;
+        }
+
+        if (k == 0 || comparator.compare(item, (E) heap[0]) >= 0) {
+            return item;
+        }
+        E displaced = (E) heap[0];
+        heap[0] = item;
+        siftDown(0);
+        return displaced;
+    }
+
+    /**
+     * @return the number of the currently selected items.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the selected items sorted in the ascending order; the returned
+     * list is a fresh copy.
+     */
+    @SuppressWarnings("unchecked")
+    public List<E> toSortedList() {
+        List<E> list = new ArrayList<E>(size);
+        for (int i = 0; i < size; i++) {
+            list.add((E) heap[i]);
+        }
+        Collections.sort(list, comparator);
+        return list;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void siftUp(int index) {
+        Object item = heap[index];
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (comparator.compare((E) item, (E) heap[parent]) <= 0) {
+                break;
+            }
+            heap[index] = heap[parent];
+            index = parent;
+        }
+        heap[index] = item;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void siftDown(int index) {
+        Object item = heap[index];
+        int half = size >>> 1;
+        while (index < half) {
+            int child = (index << 1) + 1;
+            int right = child + 1;
+            if (right < size && comparator.compare((E) heap[right], (E) heap[child]) > 0) {
+                child = right;
+            }
+            if (comparator.compare((E) item, (E) heap[child]) >= 0) {
+                break;
+            }
+            heap[index] = heap[child];
+            index = child;
+        }
+        heap[index] = item;
+    }
+
+}
@@ -16,18 +16,28 @@
 
 package com.hazelcast.config;
 
+import com.hazelcast.internal.cluster.Versions;
+import com.hazelcast.internal.serialization.InternalSerializationService;
+import com.hazelcast.internal.serialization.impl.DefaultSerializationServiceBuilder;
+import com.hazelcast.nio.BufferObjectDataInput;
+import com.hazelcast.nio.BufferObjectDataOutput;
 import com.hazelcast.test.HazelcastParallelClassRunner;
 import com.hazelcast.test.annotation.ParallelTest;
 import com.hazelcast.test.annotation.QuickTest;
+import com.hazelcast.version.Version;
 import nl.jqno.equalsverifier.EqualsVerifier;
 import nl.jqno.equalsverifier.Warning;
 import org.junit.Test;
 import org.junit.experimental.categories.Category;
 import org.junit.runner.RunWith;
 
+import java.io.IOException;
+
 import static com.hazelcast.config.MapIndexConfig.validateIndexAttribute;
 import static com.hazelcast.test.HazelcastTestSupport.assumeDifferentHashCodes;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 @RunWith(HazelcastParallelClassRunner.class)
 @Category({QuickTest.class, ParallelTest.class})
@@ -48,6 +58,25 @@ public class MapIndexConfigTest {
         assertEquals("__key#value", validateIndexAttribute("__key#value"));
     }
 
+    @Test
+    public void testSerialization() throws IOException {
+        MapIndexConfig config = serializeAndDeserialize(new MapIndexConfig("age", false).setBitmap(true),
+                Versions.CURRENT_CLUSTER_VERSION);
+
+        assertEquals("age", config.getAttribute());
+        assertTrue(config.isBitmap());
+    }
+
+    @Test
+    public void testSerialization_withPreviousClusterVersion() throws IOException {
+        MapIndexConfig config = serializeAndDeserialize(new MapIndexConfig("age", false).setBitmap(true),
+                Versions.PREVIOUS_CLUSTER_VERSION);
+
+        assertEquals("age", config.getAttribute());
+        assertFalse(config.isOrdered());
+        assertFalse(config.isBitmap());
+    }
+
     @Test
     public void testEqualsAndHashCode() {
         assumeDifferentHashCodes();
@@ -59,4 +88,18 @@ public class MapIndexConfigTest {
                         new MapIndexConfigReadOnly(new MapIndexConfig("black", true)))
                 .verify();
     }
+
+    private static MapIndexConfig serializeAndDeserialize(MapIndexConfig config, Version version) throws IOException {
+        InternalSerializationService serializationService = new DefaultSerializationServiceBuilder().build();
+        BufferObjectDataOutput out = serializationService.createObjectDataOutput();
+        out.setVersion(version);
+        config.writeData(out);
+
+        BufferObjectDataInput in = serializationService.createObjectDataInput(out.toByteArray());
+        in.setVersion(version);
+        MapIndexConfig result = new MapIndexConfig();
+        result.readData(in);
+        assertEquals(out.position(), in.position());
+        return result;
+    }
 }
@@ -2514,6 +2514,7 @@ public class XMLConfigBuilderTest extends AbstractConfigBuilderTest {
                 + "       <indexes>\n"
                 + "           <index ordered=\"false\">name</index>\n"
                 + "           <index ordered=\"true\">age</index>\n"
+                + "           <index bitmap=\"true\">status</index>\n"
                 + "       </indexes>"
                 + "   </map>"
                 + HAZELCAST_END_TAG;
@@ -2524,6 +2525,9 @@ public class XMLConfigBuilderTest extends AbstractConfigBuilderTest {
         assertFalse(mapConfig.getMapIndexConfigs().isEmpty());
         assertIndexEqual("name", false, mapConfig.getMapIndexConfigs().get(0));
         assertIndexEqual("age", true, mapConfig.getMapIndexConfigs().get(1));
+        assertIndexEqual("status", false, mapConfig.getMapIndexConfigs().get(2));
+        assertFalse(mapConfig.getMapIndexConfigs().get(1).isBitmap());
+        assertTrue(mapConfig.getMapIndexConfigs().get(2).isBitmap());
     }
 
     private static void assertIndexEqual(String expectedAttribute, boolean expectedOrdered, MapIndexConfig indexConfig) {
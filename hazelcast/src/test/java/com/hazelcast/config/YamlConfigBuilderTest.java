@@ -2617,7 +2617,9 @@ public class YamlConfigBuilderTest extends AbstractConfigBuilderTest {
                 + "        name:\n"
                 + "          ordered: false\n"
                 + "        age:\n"
-                + "          ordered: true\n";
+                + "          ordered: true\n"
+                + "        status:\n"
+                + "          bitmap: true\n";
 
         Config config = buildConfig(yaml);
         MapConfig mapConfig = config.getMapConfig("people");
@@ -2625,6 +2627,9 @@ public class YamlConfigBuilderTest extends AbstractConfigBuilderTest {
         assertFalse(mapConfig.getMapIndexConfigs().isEmpty());
         assertIndexEqual("name", false, mapConfig.getMapIndexConfigs().get(0));
         assertIndexEqual("age", true, mapConfig.getMapIndexConfigs().get(1));
+        assertIndexEqual("status", false, mapConfig.getMapIndexConfigs().get(2));
+        assertFalse(mapConfig.getMapIndexConfigs().get(1).isBitmap());
+        assertTrue(mapConfig.getMapIndexConfigs().get(2).isBitmap());
     }
 
     @Override
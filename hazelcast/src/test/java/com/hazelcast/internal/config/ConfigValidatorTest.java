@@ -22,6 +22,7 @@ import com.hazelcast.config.Config;
 import com.hazelcast.config.EvictionConfig;
 import com.hazelcast.config.InMemoryFormat;
 import com.hazelcast.config.MapConfig;
+import com.hazelcast.config.MapIndexConfig;
 import com.hazelcast.config.NativeMemoryConfig;
 import com.hazelcast.config.cp.CPSubsystemConfig;
 import com.hazelcast.map.merge.MergePolicyProvider;
@@ -89,6 +90,42 @@ public class ConfigValidatorTest extends HazelcastTestSupport {
         checkMapConfig(getMapConfig(NATIVE), mapMergePolicyProvider);
     }
 
+    @Test
+    public void checkMapConfig_NATIVE_withNativeMemoryEnabled() {
+        NativeMemoryConfig nativeMemoryConfig = new NativeMemoryConfig().setEnabled(true);
+
+        checkMapConfig(getMapConfig(NATIVE), nativeMemoryConfig, mapMergePolicyProvider);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void checkMapConfig_NATIVE_withNativeMemoryDisabled() {
+        checkMapConfig(getMapConfig(NATIVE), new NativeMemoryConfig(), mapMergePolicyProvider);
+    }
+
+    @Test
+    public void checkMapConfig_withBitmapIndex() {
+        MapConfig mapConfig = getMapConfig(BINARY)
+                .addMapIndexConfig(new MapIndexConfig("status", false).setBitmap(true));
+
+        checkMapConfig(mapConfig, mapMergePolicyProvider);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void checkMapConfig_withOrderedBitmapIndex() {
+        MapConfig mapConfig = getMapConfig(BINARY)
+                .addMapIndexConfig(new MapIndexConfig("status", true).setBitmap(true));
+
+        checkMapConfig(mapConfig, mapMergePolicyProvider);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void checkMapConfig_withCompositeBitmapIndex() {
+        MapConfig mapConfig = getMapConfig(BINARY)
+                .addMapIndexConfig(new MapIndexConfig("status, region", false).setBitmap(true));
+
+        checkMapConfig(mapConfig, mapMergePolicyProvider);
+    }
+
     @Test
     @SuppressWarnings("deprecation")
     public void checkMapConfig_withIgnoredConfigMinEvictionCheckMillis() {
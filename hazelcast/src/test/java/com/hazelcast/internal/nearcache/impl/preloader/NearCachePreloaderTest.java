@@ -0,0 +1,237 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hazelcast.internal.nearcache.impl.preloader;
+
+import com.hazelcast.config.NearCachePreloaderConfig;
+import com.hazelcast.internal.adapter.DataStructureAdapter;
+import com.hazelcast.internal.nearcache.NearCacheRecord;
+import com.hazelcast.internal.nearcache.NearCacheRecordStore;
+import com.hazelcast.internal.nearcache.impl.invalidation.MetaDataContainer;
+import com.hazelcast.internal.nearcache.impl.invalidation.StaleReadDetector;
+import com.hazelcast.internal.nearcache.impl.record.NearCacheObjectRecord;
+import com.hazelcast.internal.serialization.InternalSerializationService;
+import com.hazelcast.internal.serialization.impl.DefaultSerializationServiceBuilder;
+import com.hazelcast.monitor.impl.NearCacheStatsImpl;
+import com.hazelcast.nio.serialization.Data;
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import com.hazelcast.test.HazelcastTestSupport;
+import com.hazelcast.test.annotation.ParallelTest;
+import com.hazelcast.test.annotation.QuickTest;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+
+import java.io.File;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import static com.hazelcast.nio.IOUtil.delete;
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@RunWith(HazelcastParallelClassRunner.class)
+@Category({QuickTest.class, ParallelTest.class})
+public class NearCachePreloaderTest extends HazelcastTestSupport {
+
+    private static final int PARTITION_COUNT = 2;
+
+    private final InternalSerializationService serializationService = new DefaultSerializationServiceBuilder().build();
+    private final File directory = new File(randomName());
+    private final TestStaleReadDetector staleReadDetector = new TestStaleReadDetector();
+    private final Map<Integer, NearCacheRecord> records = new LinkedHashMap<Integer, NearCacheRecord>();
+
+    private NearCachePreloader<Integer> preloader;
+
+    @Before
+    public void setUp() {
+        directory.mkdir();
+        preloader = new NearCachePreloader<Integer>(randomName(), new NearCachePreloaderConfig(directory.getAbsolutePath()),
+                new NearCacheStatsImpl(), serializationService);
+        for (int i = 0; i < 4; i++) {
+            records.put(i, newRecord(i));
+        }
+    }
+
+    @After
+    public void tearDown() {
+        preloader.destroy();
+        delete(directory);
+    }
+
+    @Test
+    public void testEntriesOfUnchangedPartitionsAreRestored() {
+        preloader.storeKeys(records.entrySet().iterator(), staleReadDetector);
+
+        // partition 1 is invalidated after the entries were stored
+        staleReadDetector.getMetaDataContainer(1).setSequence(1);
+
+        NearCacheRecordStore<Integer, String> recordStore = mockRecordStore();
+        DataStructureAdapter<Object, ?> adapter = mock(DataStructureAdapter.class);
+        preloader.loadKeys(adapter, recordStore, staleReadDetector);
+
+        verify(recordStore).put(eq(0), eq(toData(0)), any(String.class), eq(toData("value-0")));
+        verify(recordStore).put(eq(2), eq(toData(2)), any(String.class), eq(toData("value-2")));
+        verify(recordStore, never()).put(eq(1), any(Data.class), any(String.class), any(Data.class));
+        verify(recordStore, never()).put(eq(3), any(Data.class), any(String.class), any(Data.class));
+        assertEquals(set(1, 3), fetchedKeys(adapter));
+    }
+
+    @Test
+    public void testEntriesOfPartitionWithNewUuidAreFetched() {
+        preloader.storeKeys(records.entrySet().iterator(), staleReadDetector);
+
+        staleReadDetector.getMetaDataContainer(0).setUuid(UUID.randomUUID());
+
+        NearCacheRecordStore<Integer, String> recordStore = mockRecordStore();
+        DataStructureAdapter<Object, ?> adapter = mock(DataStructureAdapter.class);
+        preloader.loadKeys(adapter, recordStore, staleReadDetector);
+
+        verify(recordStore).put(eq(1), eq(toData(1)), any(String.class), eq(toData("value-1")));
+        verify(recordStore).put(eq(3), eq(toData(3)), any(String.class), eq(toData("value-3")));
+        assertEquals(set(0, 2), fetchedKeys(adapter));
+    }
+
+    @Test
+    public void testEntriesAreFetched_whenMetaDataIsNotPopulatedBeforeLoading() {
+        preloader.storeKeys(records.entrySet().iterator(), staleReadDetector);
+
+        // the partition UUIDs of a restarted Near Cache are unknown until its repairing handler is initialized
+        TestStaleReadDetector notPopulatedStaleReadDetector = new TestStaleReadDetector();
+        notPopulatedStaleReadDetector.getMetaDataContainer(0).setUuid(null);
+        notPopulatedStaleReadDetector.getMetaDataContainer(1).setUuid(null);
+
+        NearCacheRecordStore<Integer, String> recordStore = mockRecordStore();
+        DataStructureAdapter<Object, ?> adapter = mock(DataStructureAdapter.class);
+        preloader.loadKeys(adapter, recordStore, notPopulatedStaleReadDetector);
+
+        verify(recordStore, never()).put(anyInt(), any(Data.class), any(String.class), any(Data.class));
+        assertEquals(set(0, 1, 2, 3), fetchedKeys(adapter));
+    }
+
+    @Test
+    public void testStoreFileIsReplaced_afterLoading() {
+        preloader.storeKeys(records.entrySet().iterator(), staleReadDetector);
+        preloader.loadKeys(mock(DataStructureAdapter.class), mockRecordStore(), staleReadDetector);
+
+        records.remove(0);
+        preloader.storeKeys(records.entrySet().iterator(), staleReadDetector);
+
+        NearCacheRecordStore<Integer, String> recordStore = mockRecordStore();
+        DataStructureAdapter<Object, ?> adapter = mock(DataStructureAdapter.class);
+        preloader.loadKeys(adapter, recordStore, staleReadDetector);
+
+        verify(recordStore, never()).put(eq(0), any(Data.class), any(String.class), any(Data.class));
+        verify(recordStore).put(eq(1), eq(toData(1)), any(String.class), eq(toData("value-1")));
+        verify(adapter, never()).getAll(any(Set.class));
+    }
+
+    @Test
+    public void testRecordsWithOtherUuidAreStoredWithoutValue() {
+        ((NearCacheObjectRecord) records.get(0)).setUuid(UUID.randomUUID());
+        preloader.storeKeys(records.entrySet().iterator(), staleReadDetector);
+
+        NearCacheRecordStore<Integer, String> recordStore = mockRecordStore();
+        DataStructureAdapter<Object, ?> adapter = mock(DataStructureAdapter.class);
+        preloader.loadKeys(adapter, recordStore, staleReadDetector);
+
+        verify(recordStore, never()).put(eq(0), any(Data.class), any(String.class), any(Data.class));
+        verify(recordStore).put(eq(1), eq(toData(1)), any(String.class), eq(toData("value-1")));
+        assertEquals(set(0), fetchedKeys(adapter));
+    }
+
+    @Test
+    public void testOnlyKeysAreStored_whenInvalidationIsDisabled() {
+        preloader.storeKeys(records.entrySet().iterator(), StaleReadDetector.ALWAYS_FRESH);
+
+        NearCacheRecordStore<Integer, String> recordStore = mockRecordStore();
+        DataStructureAdapter<Object, ?> adapter = mock(DataStructureAdapter.class);
+        preloader.loadKeys(adapter, recordStore, StaleReadDetector.ALWAYS_FRESH);
+
+        verify(recordStore, never()).put(anyInt(), any(Data.class), any(String.class), any(Data.class));
+        assertEquals(set(0, 1, 2, 3), fetchedKeys(adapter));
+    }
+
+    private NearCacheRecord newRecord(int key) {
+        int partitionId = key % PARTITION_COUNT;
+        MetaDataContainer metaData = staleReadDetector.getMetaDataContainer(partitionId);
+        NearCacheObjectRecord<String> record = new NearCacheObjectRecord<String>("value-" + key, 0, -1);
+        record.setPartitionId(partitionId);
+        record.setUuid(metaData.getUuid());
+        record.setInvalidationSequence(metaData.getSequence());
+        return record;
+    }
+
+    private Data toData(Object object) {
+        return serializationService.toData(object);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static NearCacheRecordStore<Integer, String> mockRecordStore() {
+        return mock(NearCacheRecordStore.class);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Set<Object> fetchedKeys(DataStructureAdapter<Object, ?> adapter) {
+        ArgumentCaptor<Set> captor = ArgumentCaptor.forClass(Set.class);
+        verify(adapter).getAll(captor.capture());
+        return new HashSet<Object>(captor.getValue());
+    }
+
+    private static Set<Object> set(Object... keys) {
+        return new HashSet<Object>(asList(keys));
+    }
+
+    private static class TestStaleReadDetector implements StaleReadDetector {
+
+        private final MetaDataContainer[] metaData = new MetaDataContainer[PARTITION_COUNT];
+
+        TestStaleReadDetector() {
+            for (int i = 0; i < PARTITION_COUNT; i++) {
+                metaData[i] = new MetaDataContainer();
+                metaData[i].setUuid(UUID.randomUUID());
+            }
+        }
+
+        @Override
+        public boolean isStaleRead(Object key, NearCacheRecord record) {
+            return false;
+        }
+
+        @Override
+        public int getPartitionId(Object key) {
+            return (Integer) key % PARTITION_COUNT;
+        }
+
+        @Override
+        public MetaDataContainer getMetaDataContainer(int partitionId) {
+            return metaData[partitionId];
+        }
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hazelcast.internal.networking;
+
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import com.hazelcast.test.annotation.ParallelTest;
+import com.hazelcast.test.annotation.QuickTest;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+
+import java.nio.ByteBuffer;
+
+import static com.hazelcast.internal.networking.ChannelBufferPool.MAX_POOLED_SIZE;
+import static com.hazelcast.internal.networking.ChannelBufferPool.MIN_POOLED_SIZE;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(HazelcastParallelClassRunner.class)
+@Category({QuickTest.class, ParallelTest.class})
+public class ChannelBufferPoolTest {
+
+    private final ChannelBufferPool pool = new ChannelBufferPool(1 << 20);
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testConstruct_whenNegativeMaxPooledBytes() {
+        new ChannelBufferPool(-1);
+    }
+
+    @Test
+    public void testAcquire_roundsUpToSizeClass() {
+        assertEquals(MIN_POOLED_SIZE, pool.acquire(1, false).capacity());
+        assertEquals(MIN_POOLED_SIZE, pool.acquire(MIN_POOLED_SIZE, false).capacity());
+        assertEquals(8192, pool.acquire(5000, false).capacity());
+        assertEquals(MAX_POOLED_SIZE + 1, pool.acquire(MAX_POOLED_SIZE + 1, false).capacity());
+    }
+
+    @Test
+    public void testAcquire_directAndHeap() {
+        assertTrue(pool.acquire(4096, true).isDirect());
+        assertFalse(pool.acquire(4096, false).isDirect());
+    }
+
+    @Test
+    public void testRelease_bufferReused() {
+        ByteBuffer buffer = pool.acquire(4096, true);
+        buffer.putInt(1).flip();
+        pool.release(buffer);
+
+        assertNotSame(buffer, pool.acquire(4096, false));
+        ByteBuffer reused = pool.acquire(3000, true);
+        assertSame(buffer, reused);
+        assertEquals(0, reused.position());
+        assertEquals(reused.capacity(), reused.limit());
+    }
+
+    @Test
+    public void testAdopt_bufferPooledInCoveredSizeClass() {
+        ByteBuffer buffer = ByteBuffer.allocate(6000);
+        pool.adopt(buffer);
+
+        assertNotSame(buffer, pool.acquire(8192, false));
+        assertSame(buffer, pool.acquire(4096, false));
+    }
+
+    @Test
+    public void testRelease_whenPoolFull() {
+        ChannelBufferPool pool = new ChannelBufferPool(4096);
+        ByteBuffer buffer1 = pool.acquire(4096, false);
+        ByteBuffer buffer2 = pool.acquire(4096, false);
+        pool.release(buffer1);
+        pool.release(buffer2);
+
+        assertSame(buffer1, pool.acquire(4096, false));
+        assertNotSame(buffer2, pool.acquire(4096, false));
+    }
+
+    @Test
+    public void testRelease_whenNotPoolableSize() {
+        ByteBuffer small = ByteBuffer.allocate(MIN_POOLED_SIZE - 1);
+        pool.adopt(small);
+
+        assertNotSame(small, pool.acquire(1, false));
+    }
+
+    @Test
+    public void testDiscard_bufferNotReused() {
+        ByteBuffer buffer = pool.acquire(4096, false);
+        pool.discard(buffer);
+
+        assertNotSame(buffer, pool.acquire(4096, false));
+    }
+}
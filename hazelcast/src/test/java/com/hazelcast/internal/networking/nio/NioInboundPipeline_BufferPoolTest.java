@@ -0,0 +1,180 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.internal.networking.nio;
+
+import com.hazelcast.internal.networking.ChannelBufferPool;
+import com.hazelcast.internal.networking.ChannelErrorHandler;
+import com.hazelcast.internal.networking.HandlerStatus;
+import com.hazelcast.internal.networking.InboundHandler;
+import com.hazelcast.internal.networking.nio.iobalancer.IOBalancer;
+import com.hazelcast.logging.ILogger;
+import com.hazelcast.logging.Logger;
+import com.hazelcast.test.AssertTask;
+import com.hazelcast.test.HazelcastSerialClassRunner;
+import com.hazelcast.test.HazelcastTestSupport;
+import com.hazelcast.test.annotation.QuickTest;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+
+import static com.hazelcast.internal.networking.HandlerStatus.CLEAN;
+import static com.hazelcast.nio.IOUtil.closeResource;
+import static com.hazelcast.nio.IOUtil.compactOrClear;
+import static com.hazelcast.nio.Protocols.CLUSTER;
+import static com.hazelcast.nio.Protocols.PROTOCOL_LENGTH;
+import static com.hazelcast.util.StringUtil.bytesToString;
+import static com.hazelcast.util.StringUtil.stringToBytes;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Tests the {@link NioInboundPipeline} returning its receive buffer to a
+ * {@link ChannelBufferPool} while a protocol decoder is its first handler.
+ */
+@RunWith(HazelcastSerialClassRunner.class)
+@Category(QuickTest.class)
+public class NioInboundPipeline_BufferPoolTest extends HazelcastTestSupport {
+
+    private ServerSocketChannel serverSocketChannel;
+    private SocketChannel clientSocketChannel;
+    private SocketChannel acceptedSocketChannel;
+    private NioInboundPipeline pipeline;
+    private CollectingDecoder collectingDecoder;
+
+    @Before
+    public void setup() throws IOException {
+        serverSocketChannel = ServerSocketChannel.open();
+        serverSocketChannel.socket().bind(new InetSocketAddress("127.0.0.1", 0));
+        clientSocketChannel = SocketChannel.open(serverSocketChannel.socket().getLocalSocketAddress());
+        acceptedSocketChannel = serverSocketChannel.accept();
+        acceptedSocketChannel.configureBlocking(false);
+
+        ILogger logger = Logger.getLogger(NioInboundPipeline.class);
+        ChannelErrorHandler errorHandler = mock(ChannelErrorHandler.class);
+        NioChannel channel = new NioChannel(acceptedSocketChannel, false, null, null, null);
+        NioThread owner = new NioThread("foo", logger, errorHandler, SelectorMode.SELECT, mock(Selector.class), null);
+        pipeline = new NioInboundPipeline(channel, owner, errorHandler, logger, mock(IOBalancer.class));
+        channel.init(pipeline, null);
+        pipeline.bufferPool(new ChannelBufferPool(1 << 20));
+
+        collectingDecoder = new CollectingDecoder();
+        pipeline.addLast(new ProtocolDecoder(collectingDecoder));
+    }
+
+    @After
+    public void tearDown() {
+        closeResource(clientSocketChannel);
+        closeResource(acceptedSocketChannel);
+        closeResource(serverSocketChannel);
+    }
+
+    @Test
+    public void testProcess_whenNothingReadBeforeProtocol_thenBytesAfterProtocolNotLost() throws Exception {
+        // e.g. a wakeup before the protocol arrives
+        pipeline.process();
+
+        final byte[] payload = new byte[100];
+        for (int i = 0; i < payload.length; i++) {
+            payload[i] = (byte) i;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(PROTOCOL_LENGTH + payload.length);
+        buffer.put(stringToBytes(CLUSTER)).put(payload).flip();
+        while (buffer.hasRemaining()) {
+            clientSocketChannel.write(buffer);
+        }
+
+        assertTrueEventually(new AssertTask() {
+            @Override
+            public void run() throws Exception {
+                pipeline.process();
+                assertArrayEquals(payload, collectingDecoder.bytes.toByteArray());
+            }
+        });
+        assertEquals(CLUSTER, collectingDecoder.protocol);
+    }
+
+    /**
+     * Reads the protocol and replaces itself with the given decoder, like
+     * the {@link com.hazelcast.nio.tcp.UnifiedProtocolDecoder} does.
+     */
+    private static class ProtocolDecoder extends InboundHandler<ByteBuffer, Void> {
+
+        private final CollectingDecoder next;
+
+        ProtocolDecoder(CollectingDecoder next) {
+            this.next = next;
+        }
+
+        @Override
+        public void handlerAdded() {
+            initSrcBuffer(PROTOCOL_LENGTH);
+        }
+
+        @Override
+        public HandlerStatus onRead() {
+            src.flip();
+            try {
+                if (src.remaining() < PROTOCOL_LENGTH) {
+                    return CLEAN;
+                }
+
+                byte[] protocolBytes = new byte[PROTOCOL_LENGTH];
+                src.get(protocolBytes);
+                next.protocol = bytesToString(protocolBytes);
+                channel.inboundPipeline().replace(this, next);
+                return CLEAN;
+            } finally {
+                compactOrClear(src);
+            }
+        }
+    }
+
+    private static class CollectingDecoder extends InboundHandler<ByteBuffer, Void> {
+
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        private volatile String protocol;
+
+        @Override
+        public void handlerAdded() {
+            initSrcBuffer();
+        }
+
+        @Override
+        public HandlerStatus onRead() {
+            src.flip();
+            try {
+                while (src.hasRemaining()) {
+                    bytes.write(src.get());
+                }
+                return CLEAN;
+            } finally {
+                compactOrClear(src);
+            }
+        }
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hazelcast.internal.serialization.impl;
+
+import com.hazelcast.internal.serialization.InternalSerializationService;
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import com.hazelcast.nio.Packet;
+import com.hazelcast.nio.serialization.Data;
+import com.hazelcast.nio.serialization.DataSerializable;
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import com.hazelcast.test.annotation.ParallelTest;
+import com.hazelcast.test.annotation.QuickTest;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(HazelcastParallelClassRunner.class)
+@Category({QuickTest.class, ParallelTest.class})
+public class SlicedHeapDataTest {
+
+    private final InternalSerializationService serializationService = new DefaultSerializationServiceBuilder().build();
+
+    @Test
+    public void testLargeDataSlicedFromPacket() {
+        byte[] value = randomBytes(SlicedHeapData.SLICE_THRESHOLD * 2);
+        Data data = serializationService.toData(value);
+
+        DataHolder holder = serializationService.toObject(toPacket(new DataHolder(data)));
+
+        assertTrue(holder.data instanceof SlicedHeapData);
+        assertEquals(data, holder.data);
+        assertEquals(holder.data, data);
+        assertEquals(data.hashCode(), holder.data.hashCode());
+        assertEquals(data.hash64(), holder.data.hash64());
+        assertEquals(data.getPartitionHash(), holder.data.getPartitionHash());
+        assertEquals(data.getType(), holder.data.getType());
+        assertEquals(data.totalSize(), holder.data.totalSize());
+        assertEquals(data.dataSize(), holder.data.dataSize());
+        assertArrayEquals(data.toByteArray(), holder.data.toByteArray());
+        assertArrayEquals(value, (byte[]) serializationService.toObject(holder.data));
+    }
+
+    @Test
+    public void testSliceCopiedAndWrittenWithoutItsBuffer() {
+        Data data = serializationService.toData(randomBytes(SlicedHeapData.SLICE_THRESHOLD * 2));
+        DataHolder holder = serializationService.toObject(toPacket(new DataHolder(data)));
+
+        byte[] copy = new byte[holder.data.totalSize() + 2];
+        holder.data.copyTo(copy, 1);
+        assertArrayEquals(data.toByteArray(), Arrays.copyOfRange(copy, 1, copy.length - 1));
+
+        DataHolder rewritten = serializationService.toObject(serializationService.toData(holder));
+        assertEquals(data, rewritten.data);
+    }
+
+    @Test
+    public void testSmallDataNotSliced() {
+        Data data = serializationService.toData(randomBytes(SlicedHeapData.SLICE_THRESHOLD / 2));
+
+        DataHolder holder = serializationService.toObject(toPacket(new DataHolder(data)));
+
+        assertSame(HeapData.class, holder.data.getClass());
+        assertEquals(data, holder.data);
+    }
+
+    @Test
+    public void testDataNotSlicedFromNonPacket() {
+        Data data = serializationService.toData(randomBytes(SlicedHeapData.SLICE_THRESHOLD * 2));
+
+        DataHolder holder = serializationService.toObject(serializationService.toData(new DataHolder(data)));
+
+        assertSame(HeapData.class, holder.data.getClass());
+    }
+
+    @Test
+    public void testDataNotSlicedWhenNotDominant() {
+        Data data = serializationService.toData(randomBytes(SlicedHeapData.SLICE_THRESHOLD * 2));
+
+        DataHolder holder = serializationService.toObject(toPacket(new DataHolder(data, data)));
+
+        assertSame(HeapData.class, holder.data.getClass());
+        assertSame(HeapData.class, holder.other.getClass());
+    }
+
+    @Test
+    public void testSlicesNotEqual() {
+        Data data = serializationService.toData(randomBytes(SlicedHeapData.SLICE_THRESHOLD * 2));
+        Data other = serializationService.toData(randomBytes(SlicedHeapData.SLICE_THRESHOLD * 2));
+
+        Data slice = ((DataHolder) serializationService.toObject(toPacket(new DataHolder(data)))).data;
+        Data otherSlice = ((DataHolder) serializationService.toObject(toPacket(new DataHolder(other)))).data;
+
+        assertNotEquals(slice, otherSlice);
+        assertNotEquals(slice, other);
+        assertEquals(slice, ((DataHolder) serializationService.toObject(toPacket(new DataHolder(data)))).data);
+    }
+
+    @Test
+    public void testIsSliceable() {
+        assertTrue(SlicedHeapData.isSliceable(800, 900, 100));
+        assertFalse(SlicedHeapData.isSliceable(800, 901, 100));
+        assertFalse(SlicedHeapData.isSliceable(99, 100, 100));
+    }
+
+    private Packet toPacket(Object object) {
+        return new Packet(serializationService.toBytes(object));
+    }
+
+    private static byte[] randomBytes(int length) {
+        byte[] bytes = new byte[length];
+        new Random().nextBytes(bytes);
+        return bytes;
+    }
+
+    public static class DataHolder implements DataSerializable {
+
+        private Data data;
+        private Data other;
+
+        public DataHolder() {
+        }
+
+        DataHolder(Data data) {
+            this.data = data;
+        }
+
+        DataHolder(Data data, Data other) {
+            this.data = data;
+            this.other = other;
+        }
+
+        @Override
+        public void writeData(ObjectDataOutput out) throws IOException {
+            out.writeData(data);
+            out.writeData(other);
+        }
+
+        @Override
+        public void readData(ObjectDataInput in) throws IOException {
+            data = in.readData();
+            other = in.readData();
+        }
+    }
+}
@@ -0,0 +1,178 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hazelcast.map;
+
+import com.hazelcast.config.Config;
+import com.hazelcast.config.NearCacheConfig;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.ICompletableFuture;
+import com.hazelcast.map.impl.proxy.MapProxyImpl;
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import com.hazelcast.test.HazelcastTestSupport;
+import com.hazelcast.test.annotation.ParallelTest;
+import com.hazelcast.test.annotation.QuickTest;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(HazelcastParallelClassRunner.class)
+@Category({QuickTest.class, ParallelTest.class})
+public class MapBatchAsyncTest extends HazelcastTestSupport {
+
+    private static final int INSTANCE_COUNT = 2;
+    private static final int ENTRY_COUNT = 1000;
+
+    private HazelcastInstance[] instances;
+
+    @Before
+    public void setUp() {
+        Config config = getConfig();
+        config.getMapConfig("nearCached*").setNearCacheConfig(new NearCacheConfig().setCacheLocalEntries(true));
+        instances = createHazelcastInstanceFactory(INSTANCE_COUNT).newInstances(config);
+        warmUpPartitions(instances);
+    }
+
+    @Test
+    public void testPutAllAsync() throws Exception {
+        MapProxyImpl<Integer, Integer> map = getMap(randomMapName());
+
+        Map<Integer, ICompletableFuture<Void>> futures = map.putAllAsync(entries());
+        assertEquals(ENTRY_COUNT, futures.size());
+        awaitAll(futures.values());
+
+        assertEquals(ENTRY_COUNT, map.size());
+        for (int i = 0; i < ENTRY_COUNT; i++) {
+            assertEquals(i, (int) map.get(i));
+        }
+    }
+
+    @Test
+    public void testPutAllAsync_sharesFuturePerOwner() {
+        MapProxyImpl<Integer, Integer> map = getMap(randomMapName());
+
+        Map<Integer, ICompletableFuture<Void>> futures = map.putAllAsync(entries());
+        Map<ICompletableFuture<Void>, Boolean> distinctFutures = new IdentityHashMap<ICompletableFuture<Void>, Boolean>();
+        for (ICompletableFuture<Void> future : futures.values()) {
+            distinctFutures.put(future, true);
+        }
+        assertEquals(INSTANCE_COUNT, distinctFutures.size());
+    }
+
+    @Test
+    public void testGetAllAsync() throws Exception {
+        MapProxyImpl<Integer, Integer> map = getMap(randomMapName());
+        map.putAll(entries());
+
+        Set<Integer> keys = new HashSet<Integer>();
+        for (int i = 0; i < ENTRY_COUNT + 10; i++) {
+            keys.add(i);
+        }
+        Map<Integer, ICompletableFuture<Integer>> futures = map.getAllAsync(keys);
+
+        assertEquals(keys.size(), futures.size());
+        for (int i = 0; i < ENTRY_COUNT; i++) {
+            assertEquals(i, (int) futures.get(i).get());
+        }
+        for (int i = ENTRY_COUNT; i < ENTRY_COUNT + 10; i++) {
+            assertNull(futures.get(i).get());
+        }
+    }
+
+    @Test
+    public void testDeleteAllAsync() throws Exception {
+        MapProxyImpl<Integer, Integer> map = getMap(randomMapName());
+        map.putAll(entries());
+
+        Set<Integer> keys = new HashSet<Integer>();
+        for (int i = 0; i < ENTRY_COUNT; i += 2) {
+            keys.add(i);
+        }
+        awaitAll(map.deleteAllAsync(keys).values());
+
+        assertEquals(ENTRY_COUNT / 2, map.size());
+        for (int i = 0; i < ENTRY_COUNT; i++) {
+            assertEquals(i % 2 != 0, map.containsKey(i));
+        }
+    }
+
+    @Test
+    public void testEmptyBatches() {
+        MapProxyImpl<Integer, Integer> map = getMap(randomMapName());
+
+        assertTrue(map.getAllAsync(Collections.<Integer>emptySet()).isEmpty());
+        assertTrue(map.putAllAsync(Collections.<Integer, Integer>emptyMap()).isEmpty());
+        assertTrue(map.deleteAllAsync(Collections.<Integer>emptySet()).isEmpty());
+    }
+
+    @Test
+    public void testNearCacheInvalidated() throws Exception {
+        MapProxyImpl<Integer, Integer> map = getMap("nearCached" + randomMapName());
+        map.putAll(entries());
+        for (int i = 0; i < ENTRY_COUNT; i++) {
+            map.get(i);
+        }
+
+        Map<Integer, Integer> updates = new HashMap<Integer, Integer>();
+        for (int i = 0; i < ENTRY_COUNT; i++) {
+            updates.put(i, -i);
+        }
+        awaitAll(map.putAllAsync(updates).values());
+        for (int i = 0; i < ENTRY_COUNT; i++) {
+            assertEquals(-i, (int) map.get(i));
+        }
+
+        awaitAll(map.deleteAllAsync(updates.keySet()).values());
+        for (int i = 0; i < ENTRY_COUNT; i++) {
+            assertFalse(map.containsKey(i));
+            assertNull(map.get(i));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private MapProxyImpl<Integer, Integer> getMap(String name) {
+        return (MapProxyImpl<Integer, Integer>) instances[0].<Integer, Integer>getMap(name);
+    }
+
+    private static Map<Integer, Integer> entries() {
+        Map<Integer, Integer> entries = new HashMap<Integer, Integer>();
+        for (int i = 0; i < ENTRY_COUNT; i++) {
+            entries.put(i, i);
+        }
+        return entries;
+    }
+
+    private static void awaitAll(Iterable<? extends Future<?>> futures) throws Exception {
+        for (Future<?> future : futures) {
+            future.get();
+        }
+    }
+}
@@ -0,0 +1,231 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hazelcast.map.impl.mapstore;
+
+import com.hazelcast.config.Config;
+import com.hazelcast.config.MapStoreConfig;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.ICompletableFuture;
+import com.hazelcast.core.IMap;
+import com.hazelcast.core.MapStoreAdapter;
+import com.hazelcast.spi.properties.GroupProperty;
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import com.hazelcast.test.HazelcastTestSupport;
+import com.hazelcast.test.annotation.ParallelTest;
+import com.hazelcast.test.annotation.QuickTest;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+@RunWith(HazelcastParallelClassRunner.class)
+@Category({QuickTest.class, ParallelTest.class})
+public class MapLoaderReadThroughCoalescingTest extends HazelcastTestSupport {
+
+    private static final int GET_COUNT = 10;
+
+    private BlockingMapStore mapStore;
+    private HazelcastInstance instance;
+    private IMap<String, String> map;
+
+    @Before
+    public void setUp() {
+        mapStore = new BlockingMapStore();
+        String mapName = randomMapName();
+        Config config = getConfig();
+        config.setProperty(GroupProperty.MAP_LOAD_COALESCING_ENABLED.getName(), "true");
+        config.getMapConfig(mapName).setMapStoreConfig(new MapStoreConfig().setImplementation(mapStore));
+        instance = createHazelcastInstance(config);
+        map = instance.getMap(mapName);
+    }
+
+    @Test
+    public void testConcurrentGetsOfSameKey_loadOnce() throws Exception {
+        String key = generateKeyForPartition(instance, 0);
+        mapStore.entries.put(key, "value");
+
+        List<ICompletableFuture<String>> futures = new ArrayList<ICompletableFuture<String>>();
+        futures.add(map.getAsync(key));
+        assertOpenEventually(mapStore.loadStarted);
+        for (int i = 1; i < GET_COUNT; ++i) {
+            futures.add(map.getAsync(key));
+        }
+        // queued behind the gets on the partition thread
+        map.isLocked(key);
+        mapStore.releaseLoads.countDown();
+
+        for (ICompletableFuture<String> future : futures) {
+            assertEquals("value", future.get());
+        }
+        assertEquals("value", map.get(key));
+        assertEquals(1, mapStore.loadCount.get());
+        assertEquals(0, mapStore.loadAllCount.get());
+    }
+
+    @Test
+    public void testConcurrentGetsOfPartition_loadedInBatch() throws Exception {
+        String firstKey = generateKeyForPartition(instance, 0);
+        mapStore.entries.put(firstKey, "value");
+        List<String> keys = new ArrayList<String>();
+        for (int i = 0; i < GET_COUNT; ++i) {
+            String key = generateKeyForPartition(instance, 0);
+            mapStore.entries.put(key, "value-" + i);
+            keys.add(key);
+        }
+
+        ICompletableFuture<String> firstFuture = map.getAsync(firstKey);
+        assertOpenEventually(mapStore.loadStarted);
+        List<ICompletableFuture<String>> futures = new ArrayList<ICompletableFuture<String>>();
+        for (String key : keys) {
+            futures.add(map.getAsync(key));
+        }
+        map.isLocked(firstKey);
+        mapStore.releaseLoads.countDown();
+
+        assertEquals("value", firstFuture.get());
+        for (int i = 0; i < GET_COUNT; ++i) {
+            assertEquals("value-" + i, futures.get(i).get());
+        }
+        assertEquals(1, mapStore.loadCount.get());
+        assertEquals(1, mapStore.loadAllCount.get());
+        assertEquals(GET_COUNT + 1, map.size());
+    }
+
+    @Test
+    public void testDeleteDuringLoad_entryNotResurrected() throws Exception {
+        String key = generateKeyForPartition(instance, 0);
+        mapStore.entries.put(key, "value");
+
+        ICompletableFuture<String> future = map.getAsync(key);
+        assertOpenEventually(mapStore.loadStarted);
+        map.delete(key);
+        mapStore.releaseLoads.countDown();
+
+        assertNull(future.get());
+        assertNull(map.get(key));
+        assertFalse(map.containsKey(key));
+    }
+
+    @Test
+    public void testMutationOfOtherKeyDuringLoad_loadOnce() throws Exception {
+        String key = generateKeyForPartition(instance, 0);
+        String otherKey = generateKeyForPartition(instance, 0);
+        mapStore.entries.put(key, "value");
+
+        ICompletableFuture<String> future = map.getAsync(key);
+        assertOpenEventually(mapStore.loadStarted);
+        map.set(otherKey, "other");
+        mapStore.releaseLoads.countDown();
+
+        assertEquals("value", future.get());
+        assertEquals("value", map.get(key));
+        assertEquals(1, mapStore.loadCount.get());
+    }
+
+    @Test
+    public void testEntryFailingToBePut_otherEntriesOfBatchLoaded() throws Exception {
+        String firstKey = generateKeyForPartition(instance, 0);
+        String failingKey = generateKeyForPartition(instance, 0);
+        String otherKey = generateKeyForPartition(instance, 0);
+        mapStore.entries.put(firstKey, "value");
+        // not serializable, so it can't be put into the record store
+        mapStore.entries.put(failingKey, new Object());
+        mapStore.entries.put(otherKey, "other");
+
+        ICompletableFuture<String> firstFuture = map.getAsync(firstKey);
+        assertOpenEventually(mapStore.loadStarted);
+        ICompletableFuture<String> failingFuture = map.getAsync(failingKey);
+        ICompletableFuture<String> otherFuture = map.getAsync(otherKey);
+        map.isLocked(firstKey);
+        mapStore.releaseLoads.countDown();
+
+        assertEquals("value", firstFuture.get());
+        assertEquals("other", otherFuture.get());
+        try {
+            failingFuture.get();
+            fail("The load of a value which can't be put should fail");
+        } catch (ExecutionException expected) {
+            ignore(expected);
+        }
+    }
+
+    @Test
+    public void testMissingKey() {
+        mapStore.releaseLoads.countDown();
+
+        assertNull(map.get("missing"));
+        assertEquals(0, map.size());
+    }
+
+    private static class BlockingMapStore extends MapStoreAdapter<String, Object> {
+
+        final ConcurrentMap<String, Object> entries = new ConcurrentHashMap<String, Object>();
+        final CountDownLatch loadStarted = new CountDownLatch(1);
+        final CountDownLatch releaseLoads = new CountDownLatch(1);
+        final AtomicInteger loadCount = new AtomicInteger();
+        final AtomicInteger loadAllCount = new AtomicInteger();
+
+        @Override
+        public Object load(String key) {
+            loadCount.incrementAndGet();
+            awaitRelease();
+            return entries.get(key);
+        }
+
+        @Override
+        public Map<String, Object> loadAll(Collection<String> keys) {
+            loadAllCount.incrementAndGet();
+            awaitRelease();
+            Map<String, Object> result = new HashMap<String, Object>();
+            for (String key : keys) {
+                Object value = entries.get(key);
+                if (value != null) {
+                    result.put(key, value);
+                }
+            }
+            return result;
+        }
+
+        @Override
+        public void delete(String key) {
+            entries.remove(key);
+        }
+
+        private void awaitRelease() {
+            loadStarted.countDown();
+            assertOpenEventually(releaseLoads);
+        }
+    }
+
+}
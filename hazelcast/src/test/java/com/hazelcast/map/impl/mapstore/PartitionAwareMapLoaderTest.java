@@ -0,0 +1,264 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hazelcast.map.impl.mapstore;
+
+import com.hazelcast.config.Config;
+import com.hazelcast.config.MapStoreConfig;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.IMap;
+import com.hazelcast.core.MapLoaderLifecycleSupport;
+import com.hazelcast.core.PartitionAwareMapLoader;
+import com.hazelcast.core.PartitionService;
+import com.hazelcast.spi.properties.GroupProperty;
+import com.hazelcast.test.AssertTask;
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import com.hazelcast.test.HazelcastTestSupport;
+import com.hazelcast.test.TestHazelcastInstanceFactory;
+import com.hazelcast.test.annotation.ParallelTest;
+import com.hazelcast.test.annotation.QuickTest;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(HazelcastParallelClassRunner.class)
+@Category({QuickTest.class, ParallelTest.class})
+public class PartitionAwareMapLoaderTest extends HazelcastTestSupport {
+
+    private static final int ENTRY_COUNT = 1000;
+    private static final int NODE_COUNT = 2;
+
+    @Test
+    public void testLoadsAllPartitions() {
+        PartitionKeysLoader loader = new PartitionKeysLoader(false);
+        IMap<Integer, Integer> map = getMap(loader);
+
+        assertEntriesLoaded(map);
+        assertEquals(0, loader.loadAllKeysInvocations.get());
+        assertTrue(loader.loadPartitionKeysInvocations.get() > 0);
+    }
+
+    @Test
+    public void testLoadsStrayKeys() {
+        PartitionKeysLoader loader = new PartitionKeysLoader(true);
+        IMap<Integer, Integer> map = getMap(loader);
+
+        assertEntriesLoaded(map);
+        assertEquals(0, loader.loadAllKeysInvocations.get());
+    }
+
+    @Test
+    public void testLoadAll_usesAllKeys() {
+        PartitionKeysLoader loader = new PartitionKeysLoader(false);
+        IMap<Integer, Integer> map = getMap(loader);
+        assertEntriesLoaded(map);
+
+        map.evictAll();
+        map.loadAll(true);
+
+        assertEntriesLoaded(map);
+        assertEquals(1, loader.loadAllKeysInvocations.get());
+    }
+
+    @Test
+    public void testOwnerLeavingDuringInitialLoad() throws Exception {
+        String mapName = randomMapName();
+        CountDownLatch loadingBlocked = new CountDownLatch(1);
+        CountDownLatch releaseLoading = new CountDownLatch(1);
+        TestHazelcastInstanceFactory factory = createHazelcastInstanceFactory(NODE_COUNT);
+        HazelcastInstance survivor = factory.newHazelcastInstance(getConfig(mapName, new PartitionKeysLoader(false)));
+        HazelcastInstance victim = factory.newHazelcastInstance(
+                getConfig(mapName, new BlockingPartitionKeysLoader(loadingBlocked, releaseLoading)));
+        warmUpPartitions(survivor, victim);
+
+        final IMap<Integer, Integer> map = survivor.getMap(mapName);
+        Future<Integer> size = spawn(new Callable<Integer>() {
+            @Override
+            public Integer call() {
+                // triggers the initial load
+                return map.size();
+            }
+        });
+        assertOpenEventually(loadingBlocked);
+        assertTrueEventually(new AssertTask() {
+            @Override
+            public void run() {
+                // the first keys of the partitions of the victim are backed up by the survivor
+                assertTrue(map.getLocalMapStats().getBackupEntryCount() > 0);
+            }
+        });
+
+        victim.getLifecycleService().terminate();
+        releaseLoading.countDown();
+
+        assertEquals(ENTRY_COUNT, (int) size.get());
+        assertEntriesLoaded(map);
+    }
+
+    private Config getConfig(String mapName, PartitionKeysLoader loader) {
+        Config config = getConfig();
+        // every loaded key is sent for value loading right away
+        config.setProperty(GroupProperty.MAP_LOAD_CHUNK_SIZE.getName(), "1");
+        config.getMapConfig(mapName).setMapStoreConfig(new MapStoreConfig().setImplementation(loader));
+        return config;
+    }
+
+    private IMap<Integer, Integer> getMap(PartitionKeysLoader loader) {
+        String mapName = randomMapName();
+        Config config = getConfig();
+        config.getMapConfig(mapName).setMapStoreConfig(new MapStoreConfig().setImplementation(loader));
+
+        TestHazelcastInstanceFactory factory = createHazelcastInstanceFactory(NODE_COUNT);
+        HazelcastInstance[] instances = factory.newInstances(config);
+        return instances[0].getMap(mapName);
+    }
+
+    private static void assertEntriesLoaded(IMap<Integer, Integer> map) {
+        assertEquals(ENTRY_COUNT, map.size());
+        for (int i = 0; i < ENTRY_COUNT; ++i) {
+            assertEquals(i, (int) map.get(i));
+        }
+    }
+
+    /**
+     * Returns the keys of a partition, or all the keys for the partition 0
+     * if the keys are stray.
+     */
+    private static class PartitionKeysLoader implements PartitionAwareMapLoader<Integer, Integer>, MapLoaderLifecycleSupport {
+
+        final AtomicInteger loadAllKeysInvocations = new AtomicInteger();
+        final AtomicInteger loadPartitionKeysInvocations = new AtomicInteger();
+
+        private final boolean strayKeys;
+
+        private volatile PartitionService partitionService;
+
+        PartitionKeysLoader(boolean strayKeys) {
+            this.strayKeys = strayKeys;
+        }
+
+        @Override
+        public void init(HazelcastInstance hazelcastInstance, Properties properties, String mapName) {
+            partitionService = hazelcastInstance.getPartitionService();
+        }
+
+        @Override
+        public void destroy() {
+        }
+
+        @Override
+        public Iterable<Integer> loadAllKeys(int partitionId) {
+            loadPartitionKeysInvocations.incrementAndGet();
+            List<Integer> keys = new ArrayList<Integer>();
+            for (int i = 0; i < ENTRY_COUNT; ++i) {
+                if (strayKeys ? partitionId == 0 : partitionService.getPartition(i).getPartitionId() == partitionId) {
+                    keys.add(i);
+                }
+            }
+            return keys;
+        }
+
+        @Override
+        public Iterable<Integer> loadAllKeys() {
+            loadAllKeysInvocations.incrementAndGet();
+            List<Integer> keys = new ArrayList<Integer>();
+            for (int i = 0; i < ENTRY_COUNT; ++i) {
+                keys.add(i);
+            }
+            return keys;
+        }
+
+        @Override
+        public Integer load(Integer key) {
+            return key;
+        }
+
+        @Override
+        public Map<Integer, Integer> loadAll(Collection<Integer> keys) {
+            Map<Integer, Integer> entries = new HashMap<Integer, Integer>();
+            for (Integer key : keys) {
+                entries.put(key, key);
+            }
+            return entries;
+        }
+    }
+
+    /**
+     * Returns the first key of a partition, then blocks until released.
+     */
+    private static class BlockingPartitionKeysLoader extends PartitionKeysLoader {
+
+        private final CountDownLatch loadingBlocked;
+        private final CountDownLatch releaseLoading;
+
+        BlockingPartitionKeysLoader(CountDownLatch loadingBlocked, CountDownLatch releaseLoading) {
+            super(false);
+            this.loadingBlocked = loadingBlocked;
+            this.releaseLoading = releaseLoading;
+        }
+
+        @Override
+        public Iterable<Integer> loadAllKeys(int partitionId) {
+            final Iterator<Integer> keys = super.loadAllKeys(partitionId).iterator();
+            return new Iterable<Integer>() {
+                @Override
+                public Iterator<Integer> iterator() {
+                    return new Iterator<Integer>() {
+                        private boolean first = true;
+
+                        @Override
+                        public boolean hasNext() {
+                            if (first) {
+                                return keys.hasNext();
+                            }
+                            loadingBlocked.countDown();
+                            assertOpenEventually(releaseLoading);
+                            return false;
+                        }
+
+                        @Override
+                        public Integer next() {
+                            first = false;
+                            return keys.next();
+                        }
+
+                        @Override
+                        public void remove() {
+                            throw new UnsupportedOperationException();
+                        }
+                    };
+                }
+            };
+        }
+    }
+
+}
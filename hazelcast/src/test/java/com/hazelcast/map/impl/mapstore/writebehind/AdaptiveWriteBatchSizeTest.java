@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hazelcast.map.impl.mapstore.writebehind;
+
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import com.hazelcast.test.annotation.ParallelTest;
+import com.hazelcast.test.annotation.QuickTest;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.junit.Assert.assertEquals;
+
+@RunWith(HazelcastParallelClassRunner.class)
+@Category({QuickTest.class, ParallelTest.class})
+public class AdaptiveWriteBatchSizeTest {
+
+    private static final long TARGET_LATENCY_NANOS = MILLISECONDS.toNanos(10);
+
+    private final AdaptiveWriteBatchSize batchSize = new AdaptiveWriteBatchSize(TARGET_LATENCY_NANOS, 100);
+
+    @Test
+    public void testMaxBatchSizeBeforeFirstSample() {
+        assertEquals(100, batchSize.get());
+    }
+
+    @Test
+    public void testBatchSizeFollowsLatency() {
+        // 1ms per entry
+        batchSize.onBatchWritten(100, MILLISECONDS.toNanos(100));
+        assertEquals(10, batchSize.get());
+
+        for (int i = 0; i < 100; i++) {
+            // 0.5ms per entry
+            batchSize.onBatchWritten(10, MILLISECONDS.toNanos(5));
+        }
+        assertEquals(20, batchSize.get());
+    }
+
+    @Test
+    public void testBatchSizeBoundedByMaxBatchSize() {
+        batchSize.onBatchWritten(100, 100);
+        assertEquals(100, batchSize.get());
+    }
+
+    @Test
+    public void testBatchSizeAtLeastOne() {
+        batchSize.onBatchWritten(1, MILLISECONDS.toNanos(1000));
+        assertEquals(1, batchSize.get());
+    }
+
+    @Test
+    public void testEmptyBatchIgnored() {
+        batchSize.onBatchWritten(0, MILLISECONDS.toNanos(1000));
+        assertEquals(100, batchSize.get());
+    }
+}
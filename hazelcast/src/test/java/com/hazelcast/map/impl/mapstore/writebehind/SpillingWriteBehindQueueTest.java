@@ -0,0 +1,200 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hazelcast.map.impl.mapstore.writebehind;
+
+import com.hazelcast.internal.serialization.impl.DefaultSerializationServiceBuilder;
+import com.hazelcast.map.impl.mapstore.writebehind.entry.DelayedEntries;
+import com.hazelcast.map.impl.mapstore.writebehind.entry.DelayedEntry;
+import com.hazelcast.nio.serialization.Data;
+import com.hazelcast.spi.serialization.SerializationService;
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import com.hazelcast.test.annotation.ParallelTest;
+import com.hazelcast.test.annotation.QuickTest;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.hazelcast.map.impl.mapstore.writebehind.SpillingWriteBehindQueue.SPILL_BATCH_SIZE;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(HazelcastParallelClassRunner.class)
+@Category({QuickTest.class, ParallelTest.class})
+public class SpillingWriteBehindQueueTest {
+
+    private static final int IN_MEMORY_CAPACITY = 100;
+    private static final int ENTRY_COUNT = 10 * SPILL_BATCH_SIZE;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final SerializationService serializationService = new DefaultSerializationServiceBuilder().build();
+
+    private File directory;
+    private SpillingWriteBehindQueue queue;
+
+    @Before
+    public void before() {
+        directory = new File(folder.getRoot(), "spill");
+        queue = new SpillingWriteBehindQueue(directory, "map-0-", IN_MEMORY_CAPACITY, serializationService);
+    }
+
+    @Test
+    public void testEntriesSpilledAndReplayedInOrder() {
+        addEntries(ENTRY_COUNT);
+
+        assertEquals(ENTRY_COUNT, queue.size());
+        assertTrue(spilledFileCount() > 0);
+
+        for (int i = 0; i < ENTRY_COUNT; i++) {
+            DelayedEntry entry = queue.peek();
+            assertEquals(i, entry.getSequence());
+            assertEquals(i, (int) serializationService.<Integer>toObject(entry.getKey()));
+            assertEquals(valueOf(i), serializationService.toObject(entry.getValue()));
+            assertEquals(i, entry.getPartitionId());
+            assertTrue(queue.removeFirstOccurrence(entry));
+        }
+
+        assertEquals(0, queue.size());
+        assertNull(queue.peek());
+        assertEquals(0, spilledFileCount());
+    }
+
+    @Test
+    public void testDeletedEntriesReplayed() {
+        for (int i = 0; i < ENTRY_COUNT; i++) {
+            DelayedEntry<Data, Object> entry = DelayedEntries.createWithoutValue(toData(i), i, 0);
+            queue.addLast(entry);
+            entry.setSequence(i);
+        }
+
+        List<DelayedEntry> entries = new ArrayList<DelayedEntry>();
+        queue.drainTo(entries);
+
+        assertEquals(ENTRY_COUNT, entries.size());
+        for (int i = 0; i < ENTRY_COUNT; i++) {
+            assertNull(entries.get(i).getValue());
+            assertEquals(i, entries.get(i).getStoreTime());
+        }
+    }
+
+    @Test
+    public void testOnlyHeadFiltered() {
+        addEntries(ENTRY_COUNT);
+
+        List<DelayedEntry> filtered = new ArrayList<DelayedEntry>();
+        queue.filter(new IPredicate<DelayedEntry>() {
+            @Override
+            public boolean test(DelayedEntry delayedEntry) {
+                return true;
+            }
+        }, filtered);
+
+        assertEquals(IN_MEMORY_CAPACITY, filtered.size());
+    }
+
+    @Test
+    public void testContains() {
+        addEntries(ENTRY_COUNT);
+
+        assertTrue(queue.contains(DelayedEntries.createDefault(toData(0), null, -1, -1)));
+        assertTrue(queue.contains(DelayedEntries.createDefault(toData(ENTRY_COUNT / 2), null, -1, -1)));
+        assertTrue(queue.contains(DelayedEntries.createDefault(toData(ENTRY_COUNT - 1), null, -1, -1)));
+        assertFalse(queue.contains(DelayedEntries.createDefault(toData(ENTRY_COUNT), null, -1, -1)));
+    }
+
+    @Test
+    public void testAsListDoesNotConsume() {
+        addEntries(ENTRY_COUNT);
+
+        assertEquals(ENTRY_COUNT, queue.asList().size());
+        assertEquals(ENTRY_COUNT, queue.asList().size());
+        assertEquals(ENTRY_COUNT, queue.size());
+    }
+
+    @Test
+    public void testDrainTo() {
+        addEntries(ENTRY_COUNT);
+
+        List<DelayedEntry> entries = new ArrayList<DelayedEntry>();
+        assertEquals(ENTRY_COUNT, queue.drainTo(entries));
+
+        assertEquals(ENTRY_COUNT, entries.size());
+        for (int i = 0; i < ENTRY_COUNT; i++) {
+            assertEquals(i, entries.get(i).getSequence());
+        }
+        assertEquals(0, queue.size());
+        assertEquals(0, spilledFileCount());
+    }
+
+    @Test
+    public void testClearDeletesSegments() {
+        addEntries(ENTRY_COUNT);
+
+        queue.clear();
+
+        assertEquals(0, queue.size());
+        assertEquals(0, spilledFileCount());
+        assertFalse(queue.contains(DelayedEntries.createDefault(toData(ENTRY_COUNT - 1), null, -1, -1)));
+    }
+
+    @Test
+    public void testFailedEntriesAddedFirst() {
+        addEntries(ENTRY_COUNT);
+
+        DelayedEntry first = queue.peek();
+        queue.removeFirstOccurrence(first);
+        List<DelayedEntry> failures = new ArrayList<DelayedEntry>();
+        failures.add(first);
+        queue.addFirst(failures);
+
+        assertEquals(ENTRY_COUNT, queue.size());
+        assertEquals(first, queue.peek());
+    }
+
+    private void addEntries(int count) {
+        for (int i = 0; i < count; i++) {
+            DelayedEntry<Data, Object> entry = DelayedEntries.<Data, Object>createDefault(toData(i), valueOf(i), i, i);
+            queue.addLast(entry);
+            // like the write-behind store, the sequence is assigned after the entry is added
+            entry.setSequence(i);
+        }
+    }
+
+    private int spilledFileCount() {
+        String[] files = directory.list();
+        return files == null ? 0 : files.length;
+    }
+
+    private Data toData(int key) {
+        return serializationService.toData(key);
+    }
+
+    private static String valueOf(int i) {
+        return "value-" + i;
+    }
+}
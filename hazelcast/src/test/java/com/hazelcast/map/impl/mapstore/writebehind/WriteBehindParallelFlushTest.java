@@ -0,0 +1,156 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hazelcast.map.impl.mapstore.writebehind;
+
+import com.hazelcast.config.Config;
+import com.hazelcast.config.MapStoreConfig;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.IMap;
+import com.hazelcast.internal.metrics.LongGauge;
+import com.hazelcast.spi.properties.GroupProperty;
+import com.hazelcast.test.AssertTask;
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import com.hazelcast.test.HazelcastTestSupport;
+import com.hazelcast.test.annotation.ParallelTest;
+import com.hazelcast.test.annotation.QuickTest;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static java.util.Collections.newSetFromMap;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(HazelcastParallelClassRunner.class)
+@Category({QuickTest.class, ParallelTest.class})
+public class WriteBehindParallelFlushTest extends HazelcastTestSupport {
+
+    private static final int PARTITION_COUNT = 8;
+    private static final int ENTRY_COUNT = 1000;
+
+    @Test
+    public void testEntriesStoredConcurrently() {
+        final ThreadRecordingMapStore mapStore = new ThreadRecordingMapStore();
+        String mapName = randomMapName();
+        HazelcastInstance instance = createHazelcastInstance(newConfig(mapName, mapStore, 4, 0));
+
+        IMap<Integer, Integer> map = instance.getMap(mapName);
+        for (int i = 0; i < ENTRY_COUNT; i++) {
+            map.put(i, i);
+        }
+
+        assertStoredEventually(mapStore);
+        assertTrue("Expected more than one storing thread: " + mapStore.threads, mapStore.threads.size() > 1);
+    }
+
+    @Test
+    public void testUpdatesOfKeyStoredInOrder() {
+        final ThreadRecordingMapStore mapStore = new ThreadRecordingMapStore();
+        String mapName = randomMapName();
+        HazelcastInstance instance = createHazelcastInstance(newConfig(mapName, mapStore, 4, 0));
+
+        IMap<Integer, Integer> map = instance.getMap(mapName);
+        for (int value = 0; value < 10; value++) {
+            for (int i = 0; i < ENTRY_COUNT; i++) {
+                map.put(i, value * ENTRY_COUNT + i);
+            }
+        }
+
+        assertTrueEventually(new AssertTask() {
+            @Override
+            public void run() {
+                for (int i = 0; i < ENTRY_COUNT; i++) {
+                    assertEquals(Integer.valueOf(9 * ENTRY_COUNT + i), mapStore.store.get(i));
+                }
+            }
+        });
+    }
+
+    @Test
+    public void testMetrics() {
+        final ThreadRecordingMapStore mapStore = new ThreadRecordingMapStore();
+        final String mapName = randomMapName();
+        final HazelcastInstance instance = createHazelcastInstance(newConfig(mapName, mapStore, 2, 100));
+
+        IMap<Integer, Integer> map = instance.getMap(mapName);
+        for (int i = 0; i < ENTRY_COUNT; i++) {
+            map.put(i, i);
+        }
+
+        assertStoredEventually(mapStore);
+        assertTrueEventually(new AssertTask() {
+            @Override
+            public void run() {
+                assertEquals(ENTRY_COUNT, gauge(instance, mapName, "storedEntryCount").read());
+                assertEquals(0, gauge(instance, mapName, "oldestEntryAgeMillis").read());
+            }
+        });
+        assertTrue(gauge(instance, mapName, "flushCount").read() > 0);
+        assertEquals(0, gauge(instance, mapName, "failedEntryCount").read());
+    }
+
+    private Config newConfig(String mapName, ThreadRecordingMapStore mapStore, int flushParallelism,
+                             int batchTargetLatencyMillis) {
+        MapStoreConfig mapStoreConfig = new MapStoreConfig()
+                .setImplementation(mapStore)
+                .setWriteDelaySeconds(1)
+                .setWriteBatchSize(16);
+
+        Config config = getConfig();
+        config.setProperty(GroupProperty.PARTITION_COUNT.getName(), String.valueOf(PARTITION_COUNT));
+        config.setProperty(GroupProperty.MAP_WRITE_BEHIND_FLUSH_PARALLELISM.getName(), String.valueOf(flushParallelism));
+        config.setProperty(GroupProperty.MAP_WRITE_BEHIND_BATCH_TARGET_LATENCY_MILLIS.getName(),
+                String.valueOf(batchTargetLatencyMillis));
+        config.getMapConfig(mapName).setMapStoreConfig(mapStoreConfig);
+        return config;
+    }
+
+    private static void assertStoredEventually(final ThreadRecordingMapStore mapStore) {
+        assertTrueEventually(new AssertTask() {
+            @Override
+            public void run() {
+                assertEquals(ENTRY_COUNT, mapStore.store.size());
+            }
+        });
+    }
+
+    private static LongGauge gauge(HazelcastInstance instance, String mapName, String name) {
+        return getNodeEngineImpl(instance).getMetricsRegistry().newLongGauge("map[" + mapName + "].writeBehind." + name);
+    }
+
+    private static class ThreadRecordingMapStore extends MapStoreWithCounter<Integer, Integer> {
+
+        final Set<String> threads = newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+        @Override
+        public void store(Integer key, Integer value) {
+            threads.add(Thread.currentThread().getName());
+            super.store(key, value);
+        }
+
+        @Override
+        public void storeAll(Map<Integer, Integer> map) {
+            threads.add(Thread.currentThread().getName());
+            super.storeAll(map);
+        }
+    }
+}
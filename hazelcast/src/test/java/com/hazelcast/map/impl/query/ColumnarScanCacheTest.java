@@ -0,0 +1,333 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.map.impl.query;
+
+import com.hazelcast.aggregation.Aggregator;
+import com.hazelcast.aggregation.Aggregators;
+import com.hazelcast.internal.serialization.InternalSerializationService;
+import com.hazelcast.internal.serialization.impl.DefaultSerializationServiceBuilder;
+import com.hazelcast.map.impl.LazyMapEntry;
+import com.hazelcast.map.impl.record.Record;
+import com.hazelcast.nio.serialization.Data;
+import com.hazelcast.query.Predicate;
+import com.hazelcast.query.impl.getters.Extractors;
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import com.hazelcast.test.annotation.ParallelTest;
+import com.hazelcast.test.annotation.QuickTest;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static com.hazelcast.map.impl.query.ColumnarScanCache.COLUMN_CREATION_THRESHOLD;
+import static com.hazelcast.query.Predicates.and;
+import static com.hazelcast.query.Predicates.between;
+import static com.hazelcast.query.Predicates.equal;
+import static com.hazelcast.query.Predicates.greaterEqual;
+import static com.hazelcast.query.Predicates.greaterThan;
+import static com.hazelcast.query.Predicates.in;
+import static com.hazelcast.query.Predicates.lessThan;
+import static com.hazelcast.query.Predicates.like;
+import static com.hazelcast.query.Predicates.not;
+import static com.hazelcast.query.Predicates.notEqual;
+import static com.hazelcast.query.Predicates.or;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@RunWith(HazelcastParallelClassRunner.class)
+@Category({QuickTest.class, ParallelTest.class})
+public class ColumnarScanCacheTest {
+
+    private static final int ENTRY_COUNT = 200;
+
+    private InternalSerializationService serializationService;
+    private Extractors extractors;
+    private ColumnarScanCache cache;
+    private Map<Data, Record> records;
+
+    @Before
+    public void before() {
+        serializationService = new DefaultSerializationServiceBuilder().build();
+        extractors = Extractors.newBuilder(serializationService).build();
+        cache = new ColumnarScanCache(serializationService, extractors, 3);
+        records = new HashMap<Data, Record>();
+        for (int i = 0; i < ENTRY_COUNT; ++i) {
+            put(i, new Person(i % 50, i * 1.5, i % 10 == 0 ? null : (long) i, "name" + i));
+        }
+    }
+
+    @Test
+    public void testColumnsCreatedForFrequentlyScannedAttributes() {
+        Predicate predicate = equal("age", 5);
+        for (int i = 0; i < COLUMN_CREATION_THRESHOLD - 1; ++i) {
+            cache.scan(predicate);
+            assertTrue(cache.getColumnAttributes().isEmpty());
+        }
+        cache.scan(predicate);
+        assertEquals(singleton("age"), cache.getColumnAttributes());
+    }
+
+    @Test
+    public void testColumnCountLimited() {
+        cache = new ColumnarScanCache(serializationService, extractors, 2);
+        for (Record record : records.values()) {
+            cache.onPutRecord((Data) record.getKey(), record);
+        }
+
+        warmUp(equal("age", 1));
+        warmUp(equal("salary", 1.5));
+        warmUp(equal("id", 1L));
+        assertEquals(2, cache.getColumnAttributes().size());
+        assertNull(cache.scan(equal("id", 1L)));
+    }
+
+    @Test
+    public void testScanMatchesEntryByEntryEvaluation() {
+        warmUp(and(equal("age", 0), equal("salary", 0), equal("id", 0)));
+
+        assertScan(equal("age", 7));
+        assertScan(equal("age", "7"));
+        assertScan(notEqual("age", 7));
+        assertScan(in("age", 1, 2, 3, null));
+        assertScan(greaterThan("age", 40));
+        assertScan(lessThan("salary", 30.0));
+        assertScan(greaterEqual("salary", 30));
+        assertScan(between("age", 10, 20));
+        assertScan(not(between("age", 10, 20)));
+        assertScan(or(equal("age", 1), greaterThan("salary", 250.0)));
+        assertScan(equal("id", null));
+        assertScan(notEqual("id", null));
+        assertScan(greaterThan("id", 100L));
+        assertScan(not(greaterThan("id", 100L)));
+        assertScan(in("id", 11L, 12L, 20L));
+    }
+
+    @Test
+    public void testScanTracksMutations() {
+        warmUp(equal("age", 7));
+
+        update(7, new Person(8, 0.0, 7L, "name7"));
+        update(8, new Person(7, 0.0, 8L, "name8"));
+        remove(57);
+        put(ENTRY_COUNT, new Person(7, 0.0, 200L, "new"));
+        put(ENTRY_COUNT + 1, new Person(7, 0.0, 201L, "new"));
+
+        assertScan(equal("age", 7));
+        assertScan(equal("age", 8));
+    }
+
+    @Test
+    public void testScanWithResidualPredicate() {
+        Predicate residual = like("name", "name1%");
+        Predicate predicate = and(greaterThan("age", 45), residual);
+        warmUp(predicate);
+
+        ColumnarScanCache.Scan scan = cache.scan(predicate);
+        assertSame(residual, scan.getResidualPredicate());
+        assertScan(predicate);
+    }
+
+    @Test
+    public void testScanOfUnsupportedPredicate() {
+        assertNull(cache.scan(like("name", "name1%")));
+    }
+
+    @Test
+    public void testScanOfNonNumericAttribute() {
+        warmUp(equal("name", "name1"));
+        assertNull(cache.scan(equal("name", "name1")));
+    }
+
+    @Test
+    public void testScanAfterClear() {
+        warmUp(equal("age", 7));
+        cache.onClear();
+        records.clear();
+        put(0, new Person(7, 0.0, 0L, "name0"));
+
+        warmUp(equal("age", 7));
+        assertScan(equal("age", 7));
+    }
+
+    @Test
+    public void testCount() {
+        Predicate predicate = greaterThan("age", 40);
+        warmUp(predicate);
+
+        Aggregator aggregator = Aggregators.count();
+        assertTrue(cache.aggregate(predicate, aggregator));
+        assertEquals(expectedCount(predicate), aggregator.aggregate());
+    }
+
+    @Test
+    public void testLongSum() {
+        Predicate predicate = and(greaterThan("age", 40), notEqual("id", null));
+        warmUp(predicate);
+
+        Aggregator aggregator = Aggregators.longSum("id");
+        assertTrue(cache.aggregate(predicate, aggregator));
+
+        long expected = 0;
+        for (Record record : records.values()) {
+            Person person = (Person) record.getValue();
+            if (person.age > 40 && person.id != null) {
+                expected += person.id;
+            }
+        }
+        assertEquals(expected, aggregator.aggregate());
+    }
+
+    @Test
+    public void testLongSumOfNulls() {
+        // the ages above 35 include 40 with the null id
+        Predicate predicate = greaterThan("age", 35);
+        warmUp(and(predicate, equal("id", 0L)));
+
+        assertFalse(cache.aggregate(predicate, Aggregators.longSum("id")));
+    }
+
+    @Test
+    public void testLongSumOfIntegers() {
+        Predicate predicate = greaterThan("salary", 40.0);
+        warmUp(and(predicate, equal("age", 0)));
+
+        assertFalse(cache.aggregate(predicate, Aggregators.longSum("age")));
+    }
+
+    @Test
+    public void testDoubleAverage() {
+        Predicate predicate = between("age", 10, 19);
+        warmUp(predicate);
+        warmUp(equal("salary", 0.0));
+
+        Aggregator aggregator = Aggregators.doubleAvg("salary");
+        assertTrue(cache.aggregate(predicate, aggregator));
+
+        double sum = 0;
+        int count = 0;
+        for (Record record : records.values()) {
+            Person person = (Person) record.getValue();
+            if (person.age >= 10 && person.age <= 19) {
+                sum += person.salary;
+                ++count;
+            }
+        }
+        assertEquals(sum / count, (Double) aggregator.aggregate(), 1e-9);
+    }
+
+    @Test
+    public void testUnsupportedAggregator() {
+        Predicate predicate = greaterThan("age", 40);
+        warmUp(predicate);
+
+        assertFalse(cache.aggregate(predicate, Aggregators.integerSum("age")));
+    }
+
+    private void warmUp(Predicate predicate) {
+        for (int i = 0; i < COLUMN_CREATION_THRESHOLD; ++i) {
+            cache.scan(predicate);
+        }
+    }
+
+    private void assertScan(Predicate predicate) {
+        ColumnarScanCache.Scan scan = cache.scan(predicate);
+        Predicate residual = scan.getResidualPredicate();
+        Set<Data> actual = new HashSet<Data>();
+        for (Record record : scan.getRecords()) {
+            if (residual == null || residual.apply(entry(record))) {
+                assertTrue(actual.add((Data) record.getKey()));
+            }
+        }
+
+        Set<Data> expected = new HashSet<Data>();
+        for (Record record : records.values()) {
+            if (predicate.apply(entry(record))) {
+                expected.add((Data) record.getKey());
+            }
+        }
+        assertEquals(expected, actual);
+    }
+
+    private long expectedCount(Predicate predicate) {
+        long count = 0;
+        for (Record record : records.values()) {
+            if (predicate.apply(entry(record))) {
+                ++count;
+            }
+        }
+        return count;
+    }
+
+    private LazyMapEntry entry(Record record) {
+        return new LazyMapEntry(record.getKey(), record.getValue(), serializationService, extractors);
+    }
+
+    private void put(int key, Person value) {
+        Data keyData = serializationService.toData(key);
+        Record record = mock(Record.class);
+        when(record.getKey()).thenReturn(keyData);
+        when(record.getValue()).thenReturn(value);
+        records.put(keyData, record);
+        cache.onPutRecord(keyData, record);
+    }
+
+    private void update(int key, Person value) {
+        Data keyData = serializationService.toData(key);
+        Record record = records.get(keyData);
+        cache.onUpdateRecord(keyData, record, value);
+        when(record.getValue()).thenReturn(value);
+    }
+
+    private void remove(int key) {
+        Data keyData = serializationService.toData(key);
+        cache.onRemoveRecord(keyData, records.remove(keyData));
+    }
+
+    private static Set<String> singleton(String value) {
+        Set<String> set = new HashSet<String>();
+        set.add(value);
+        return set;
+    }
+
+    private static class Person implements Serializable {
+
+        private final int age;
+        private final double salary;
+        private final Long id;
+        private final String name;
+
+        Person(int age, double salary, Long id, String name) {
+            this.age = age;
+            this.salary = salary;
+            this.id = id;
+            this.name = name;
+        }
+
+    }
+
+}
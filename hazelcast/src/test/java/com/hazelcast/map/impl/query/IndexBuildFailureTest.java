@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.map.impl.query;
+
+import com.hazelcast.config.Config;
+import com.hazelcast.config.MapAttributeConfig;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.IMap;
+import com.hazelcast.map.impl.MapService;
+import com.hazelcast.query.extractor.ValueCollector;
+import com.hazelcast.query.extractor.ValueExtractor;
+import com.hazelcast.query.impl.Indexes;
+import com.hazelcast.query.impl.InternalIndex;
+import com.hazelcast.spi.properties.GroupProperty;
+import com.hazelcast.test.AssertTask;
+import com.hazelcast.test.HazelcastSerialClassRunner;
+import com.hazelcast.test.HazelcastTestSupport;
+import com.hazelcast.test.annotation.QuickTest;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+
+import static com.hazelcast.query.Predicates.equal;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests the online index build abandoned after an entry failed to be
+ * inserted into the index.
+ */
+@RunWith(HazelcastSerialClassRunner.class)
+@Category(QuickTest.class)
+public class IndexBuildFailureTest extends HazelcastTestSupport {
+
+    private static final String MAP_NAME = "map";
+    private static final String ATTRIBUTE = "failing";
+    private static final int FAILING_VALUE = 42;
+
+    private static volatile boolean failing;
+
+    @Before
+    public void before() {
+        failing = true;
+    }
+
+    @Test
+    public void testFailureInFirstChunk_reportedAndIndexRemoved() {
+        HazelcastInstance instance = createHazelcastInstance(newConfig("1", "1000"));
+        IMap<Integer, Integer> map = populate(instance);
+
+        try {
+            map.addIndex(ATTRIBUTE, true);
+            fail("the index build should have failed");
+        } catch (RuntimeException expected) {
+            // the extractor failed
+        }
+
+        assertIndexRemoved(instance);
+        assertIndexRebuilt(instance, map);
+    }
+
+    @Test
+    public void testFailureInLaterChunk_indexRemoved() {
+        final HazelcastInstance instance = createHazelcastInstance(newConfig("1", "1"));
+        IMap<Integer, Integer> map = populate(instance);
+
+        try {
+            map.addIndex(ATTRIBUTE, true);
+        } catch (RuntimeException expected) {
+            // the failing entry was in the first chunk
+        }
+
+        assertTrueEventually(new AssertTask() {
+            @Override
+            public void run() {
+                assertIndexRemoved(instance);
+            }
+        });
+        assertIndexRebuilt(instance, map);
+    }
+
+    private static Config newConfig(String partitionCount, String indexBuildChunkSize) {
+        Config config = new Config();
+        config.setProperty(GroupProperty.PARTITION_COUNT.getName(), partitionCount);
+        config.setProperty(GroupProperty.INDEX_BUILD_CHUNK_SIZE.getName(), indexBuildChunkSize);
+        config.getMapConfig(MAP_NAME).addMapAttributeConfig(new MapAttributeConfig(ATTRIBUTE, FailingExtractor.class.getName()));
+        return config;
+    }
+
+    private static IMap<Integer, Integer> populate(HazelcastInstance instance) {
+        IMap<Integer, Integer> map = instance.getMap(MAP_NAME);
+        for (int i = 0; i < 100; i++) {
+            map.put(i, i);
+        }
+        return map;
+    }
+
+    private static void assertIndexRemoved(HazelcastInstance instance) {
+        Indexes indexes = getIndexes(instance);
+        assertNull(indexes.getIndex(ATTRIBUTE));
+        assertFalse(indexes.haveAtLeastOneIndex());
+    }
+
+    private static void assertIndexRebuilt(HazelcastInstance instance, IMap<Integer, Integer> map) {
+        failing = false;
+        map.addIndex(ATTRIBUTE, true);
+
+        final Indexes indexes = getIndexes(instance);
+        assertTrueEventually(new AssertTask() {
+            @Override
+            public void run() {
+                InternalIndex index = indexes.getIndex(ATTRIBUTE);
+                assertNotNull(index);
+                assertFalse(indexes.isBuilding(index));
+            }
+        });
+        assertEquals(100, indexes.getIndex(ATTRIBUTE).getRecords(0, true, 100, true).size());
+        assertEquals(1, map.values(equal(ATTRIBUTE, FAILING_VALUE)).size());
+    }
+
+    private static Indexes getIndexes(HazelcastInstance instance) {
+        MapService mapService = getNodeEngineImpl(instance).getService(MapService.SERVICE_NAME);
+        return mapService.getMapServiceContext().getMapContainer(MAP_NAME).getIndexes();
+    }
+
+    public static class FailingExtractor extends ValueExtractor<Integer, Object> {
+
+        @Override
+        public void extract(Integer target, Object argument, ValueCollector collector) {
+            if (failing && target == FAILING_VALUE) {
+                throw new IllegalStateException("Failed to extract " + target);
+            }
+            collector.addObject(target);
+        }
+    }
+}
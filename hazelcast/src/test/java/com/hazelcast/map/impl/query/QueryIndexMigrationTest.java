@@ -182,6 +182,36 @@ public class QueryIndexMigrationTest extends HazelcastTestSupport {
         }
     }
 
+    @Test
+    public void testAddIndexWhileMigrating() {
+        testAddIndexWhileMigrating(0);
+    }
+
+    @Test
+    public void testAddIndexOnlineWhileMigrating() {
+        testAddIndexWhileMigrating(10);
+    }
+
+    private void testAddIndexWhileMigrating(int indexBuildChunkSize) {
+        Config config = getTestConfig();
+        config.setProperty(GroupProperty.INDEX_BUILD_CHUNK_SIZE.getName(), String.valueOf(indexBuildChunkSize));
+        HazelcastInstance instance = nodeFactory.newHazelcastInstance(config);
+        IMap<String, Employee> map = instance.getMap("employees");
+        for (int i = 0; i < 5000; i++) {
+            map.put("e" + i, new Employee("name" + i, i % 50, ((i & 1) == 1), (double) i));
+        }
+
+        nodeFactory.newInstances(config, 3);
+        map.addIndex("age", true);
+        waitAllForSafeState(nodeFactory.getAllHazelcastInstances());
+
+        for (HazelcastInstance hz : nodeFactory.getAllHazelcastInstances()) {
+            IMap<String, Employee> employees = hz.getMap("employees");
+            assertEquals(500, employees.values(new SqlPredicate("age > 44")).size());
+            assertEquals(100, employees.values(equal("age", 7)).size());
+        }
+    }
+
     /**
      * test for issue #359
      */
@@ -0,0 +1,165 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.map.impl.query;
+
+import com.hazelcast.aggregation.Aggregators;
+import com.hazelcast.config.Config;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.IMap;
+import com.hazelcast.map.impl.MapContainer;
+import com.hazelcast.map.impl.MapService;
+import com.hazelcast.map.impl.MapServiceContext;
+import com.hazelcast.map.impl.recordstore.RecordStore;
+import com.hazelcast.projection.Projections;
+import com.hazelcast.query.PagingPredicate;
+import com.hazelcast.query.Predicate;
+import com.hazelcast.spi.properties.GroupProperty;
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import com.hazelcast.test.HazelcastTestSupport;
+import com.hazelcast.test.annotation.ParallelTest;
+import com.hazelcast.test.annotation.QuickTest;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+
+import java.util.Map;
+
+import static com.hazelcast.query.Predicates.lessThan;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(HazelcastParallelClassRunner.class)
+@Category({QuickTest.class, ParallelTest.class})
+public class QueryResultCacheTest extends HazelcastTestSupport {
+
+    private static final int ENTRY_COUNT = 100;
+
+    private HazelcastInstance instance;
+    private IMap<Integer, Integer> map;
+
+    @Before
+    public void before() {
+        Config config = getConfig();
+        config.setProperty(GroupProperty.QUERY_RESULT_CACHE_SIZE.getName(), "10");
+        instance = createHazelcastInstance(config);
+        map = instance.getMap(randomMapName());
+        for (int i = 0; i < ENTRY_COUNT; ++i) {
+            map.put(i, i);
+        }
+    }
+
+    @Test
+    public void testResultsCachedAndReused() {
+        assertEquals(0, cachedResultCount());
+
+        assertEquals(50, map.values(lessThan("this", 50)).size());
+        int cachedResultCount = cachedResultCount();
+        assertTrue(cachedResultCount > 0);
+
+        assertEquals(50, map.values(lessThan("this", 50)).size());
+        assertEquals(50, map.keySet(lessThan("this", 50)).size());
+        assertEquals(cachedResultCount, cachedResultCount());
+    }
+
+    @Test
+    public void testResultsInvalidatedOnMutation() {
+        Predicate<Integer, Integer> predicate = lessThan("this", 50);
+        assertEquals(50, map.values(predicate).size());
+
+        map.put(ENTRY_COUNT, 10);
+        assertEquals(51, map.values(predicate).size());
+
+        map.remove(0);
+        assertEquals(50, map.values(predicate).size());
+
+        map.put(1, 1000);
+        assertEquals(49, map.values(predicate).size());
+
+        map.clear();
+        assertEquals(0, map.values(predicate).size());
+    }
+
+    @Test
+    public void testAggregationsAndProjectionsReplayCachedEntries() {
+        Predicate<Integer, Integer> predicate = lessThan("this", 50);
+        assertEquals(50, map.values(predicate).size());
+
+        assertEquals(50, (long) map.aggregate(Aggregators.<Map.Entry<Integer, Integer>>count(), predicate));
+        assertEquals(1225, (long) map.aggregate(Aggregators.<Map.Entry<Integer, Integer>>integerSum(), predicate));
+        assertEquals(50, map.project(Projections.<Map.Entry<Integer, Integer>, Integer>singleAttribute("this"),
+                predicate).size());
+    }
+
+    @Test
+    public void testPagingPredicatesNotCached() {
+        PagingPredicate<Integer, Integer> predicate = new PagingPredicate<Integer, Integer>(lessThan("this", 50), 10);
+        assertEquals(10, map.values(predicate).size());
+        assertEquals(0, cachedResultCount());
+
+        assertFalse(QueryResultCache.isCacheable(predicate));
+    }
+
+    @Test
+    public void testPredicatesWithoutEqualsNotCached() {
+        assertTrue(QueryResultCache.isCacheable(lessThan("this", 50)));
+        assertFalse(QueryResultCache.isCacheable(new IdentityPredicate()));
+
+        assertEquals(ENTRY_COUNT, map.values(new IdentityPredicate()).size());
+        assertEquals(0, cachedResultCount());
+    }
+
+    @Test
+    public void testMutationStampChangesOnMutation() {
+        RecordStore recordStore = getMapServiceContext().getRecordStore(
+                instance.getPartitionService().getPartition(0).getPartitionId(), map.getName());
+
+        long stamp = recordStore.getMutationStamp();
+        assertEquals(stamp, recordStore.getMutationStamp());
+
+        map.put(0, 1);
+        assertTrue(stamp != recordStore.getMutationStamp());
+
+        stamp = recordStore.getMutationStamp();
+        map.remove(0);
+        assertTrue(stamp != recordStore.getMutationStamp());
+    }
+
+    private int cachedResultCount() {
+        MapContainer mapContainer = getMapServiceContext().getMapContainer(map.getName());
+        int count = 0;
+        int partitionCount = instance.getPartitionService().getPartitions().size();
+        for (int i = 0; i < partitionCount; ++i) {
+            count += mapContainer.getQueryResultCache(i).size();
+        }
+        return count;
+    }
+
+    private MapServiceContext getMapServiceContext() {
+        MapService mapService = getNodeEngineImpl(instance).getService(MapService.SERVICE_NAME);
+        return mapService.getMapServiceContext();
+    }
+
+    private static class IdentityPredicate implements Predicate<Integer, Integer> {
+        @Override
+        public boolean apply(Map.Entry<Integer, Integer> mapEntry) {
+            return true;
+        }
+    }
+
+}
@@ -0,0 +1,242 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.map.impl.recordstore;
+
+import com.hazelcast.core.PartitioningStrategy;
+import com.hazelcast.internal.memory.impl.StandardMemoryManager;
+import com.hazelcast.internal.memory.impl.TestIgnoreRuleAccordingToUnsafeAvailability;
+import com.hazelcast.internal.serialization.impl.DefaultSerializationServiceBuilder;
+import com.hazelcast.map.impl.record.NativeRecord;
+import com.hazelcast.map.impl.record.NativeRecordFactory;
+import com.hazelcast.map.impl.record.Record;
+import com.hazelcast.nio.serialization.Data;
+import com.hazelcast.spi.serialization.SerializationService;
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import com.hazelcast.test.annotation.ParallelTest;
+import com.hazelcast.test.annotation.QuickTest;
+import com.hazelcast.util.Clock;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+@RunWith(HazelcastParallelClassRunner.class)
+@Category({QuickTest.class, ParallelTest.class})
+public class NativeStorageTest {
+
+    @ClassRule
+    public static final TestIgnoreRuleAccordingToUnsafeAvailability UNSAFE_AVAILABILITY_RULE
+            = new TestIgnoreRuleAccordingToUnsafeAvailability();
+
+    private static final long MAX_MEMORY = 64L * 1024 * 1024;
+
+    private SerializationService serializationService;
+    private StandardMemoryManager memoryManager;
+    private NativeRecordFactory recordFactory;
+    private NativeStorage storage;
+
+    @Before
+    public void setUp() {
+        serializationService = new DefaultSerializationServiceBuilder().build();
+        memoryManager = new StandardMemoryManager(MAX_MEMORY);
+        recordFactory = new NativeRecordFactory(serializationService, mock(PartitioningStrategy.class), memoryManager);
+        storage = new NativeStorage(recordFactory, memoryManager, serializationService);
+    }
+
+    @After
+    public void tearDown() {
+        if (storage != null) {
+            storage.destroy(false);
+        }
+    }
+
+    @Test
+    public void test_putAndGet() {
+        put("key", "value");
+
+        NativeRecord record = storage.get(toData("key"));
+
+        assertEquals(toData("key"), record.getKey());
+        assertEquals("value", serializationService.toObject(record.getValue()));
+        assertEquals(1, storage.size());
+    }
+
+    @Test
+    public void test_get_whenMissing() {
+        assertNull(storage.get(toData("missing")));
+        assertFalse(storage.containsKey(toData("missing")));
+    }
+
+    @Test
+    public void test_put_replacesRecordWithSameKey() {
+        put("key", "value1");
+        put("key", "value2");
+        storage.disposeDeferredBlocks();
+
+        assertEquals(1, storage.size());
+        assertEquals("value2", serializationService.toObject(storage.get(toData("key")).getValue()));
+    }
+
+    @Test
+    public void test_updateRecordValue() {
+        NativeRecord record = put("key", "value1");
+
+        storage.updateRecordValue(toData("key"), record, toData("value2"));
+
+        assertEquals("value2", serializationService.toObject(storage.get(toData("key")).getValue()));
+    }
+
+    @Test
+    public void test_updateRecordValue_freesOldValueAfterDisposingDeferredBlocks() {
+        NativeRecord record = put("key", "value1");
+        Data oldValue = record.getValue();
+        long usedAfterPut = memoryManager.getUsedMemory();
+
+        storage.updateRecordValue(toData("key"), record, toData("value2"));
+
+        assertTrue(memoryManager.getUsedMemory() > usedAfterPut);
+        assertEquals("value1", serializationService.toObject(oldValue));
+
+        storage.disposeDeferredBlocks();
+
+        assertEquals(usedAfterPut, memoryManager.getUsedMemory());
+    }
+
+    @Test
+    public void test_recordMetadata() {
+        NativeRecord record = put("key", "value");
+        assertEquals(0, record.getExpirationTime());
+        assertEquals(0, record.getLastStoredTime());
+        assertEquals(Record.NOT_AVAILABLE, record.getSequence());
+
+        long now = Clock.currentTimeMillis();
+        record.setExpirationTime(now + 60000);
+        record.setLastStoredTime(now);
+        record.setSequence(42);
+
+        NativeRecord stored = storage.get(toData("key"));
+        assertEquals(now + 60000, stored.getExpirationTime(), 1000);
+        assertEquals(now, stored.getLastStoredTime(), 1000);
+        assertEquals(42, stored.getSequence());
+
+        record.setExpirationTime(Long.MAX_VALUE);
+        assertEquals(Long.MAX_VALUE, storage.get(toData("key")).getExpirationTime());
+    }
+
+    @Test
+    public void test_removeRecord_freesMemoryAfterDisposingDeferredBlocks() {
+        long usedBeforePut = memoryManager.getUsedMemory();
+        put("key", "value");
+        NativeRecord record = storage.get(toData("key"));
+        long usedAfterPut = memoryManager.getUsedMemory();
+
+        storage.removeRecord(record);
+
+        assertFalse(storage.containsKey(toData("key")));
+        assertEquals(usedAfterPut, memoryManager.getUsedMemory());
+
+        storage.disposeDeferredBlocks();
+
+        assertTrue(memoryManager.getUsedMemory() < usedAfterPut);
+        assertTrue(memoryManager.getUsedMemory() >= usedBeforePut);
+        assertTrue(storage.isEmpty());
+    }
+
+    @Test
+    public void test_clear() {
+        for (int i = 0; i < 1000; i++) {
+            put(i, "value" + i);
+        }
+
+        storage.clear(false);
+
+        assertTrue(storage.isEmpty());
+        assertNull(storage.get(toData(0)));
+        assertEquals(0, storage.getEntryCostEstimator().getEstimate());
+    }
+
+    @Test
+    public void test_destroy_releasesAllNativeMemory() {
+        for (int i = 0; i < 1000; i++) {
+            put(i, "value" + i);
+        }
+
+        storage.destroy(false);
+        storage = null;
+
+        assertEquals(0, memoryManager.getUsedMemory());
+    }
+
+    @Test
+    public void test_mutationTolerantIterator_toleratesRemoval() {
+        int entryCount = 100;
+        for (int i = 0; i < entryCount; i++) {
+            put(i, "value" + i);
+        }
+
+        Set<Object> seenKeys = new HashSet<Object>();
+        Iterator<NativeRecord> iterator = storage.mutationTolerantIterator();
+        while (iterator.hasNext()) {
+            NativeRecord record = iterator.next();
+            assertTrue(seenKeys.add(serializationService.toObject(record.getKey())));
+            storage.removeRecord(record);
+        }
+        storage.disposeDeferredBlocks();
+
+        assertFalse(seenKeys.isEmpty());
+        assertEquals(entryCount - seenKeys.size(), storage.size());
+    }
+
+    @Test
+    public void test_values() {
+        for (int i = 0; i < 10; i++) {
+            put(i, "value" + i);
+        }
+
+        assertEquals(10, storage.values().size());
+    }
+
+    @Test
+    public void test_getEntryCostEstimator_tracksNativeCost() {
+        NativeRecord record = put("key", "value");
+
+        assertEquals(record.getCost(), storage.getEntryCostEstimator().getEstimate());
+    }
+
+    private NativeRecord put(Object key, Object value) {
+        Data keyData = toData(key);
+        NativeRecord record = (NativeRecord) recordFactory.newRecord(keyData, value);
+        storage.put(keyData, record);
+        return record;
+    }
+
+    private Data toData(Object object) {
+        return serializationService.toData(object);
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.nio.serialization.impl;
+
+import com.hazelcast.internal.serialization.InternalSerializationService;
+import com.hazelcast.internal.serialization.impl.DefaultSerializationServiceBuilder;
+import com.hazelcast.nio.serialization.Data;
+import com.hazelcast.nio.serialization.impl.DefaultPortableReaderQuickTest.TestPortableFactory;
+import com.hazelcast.query.impl.getters.Extractors;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+import org.openjdk.jmh.runner.options.VerboseMode;
+
+import static com.hazelcast.nio.serialization.impl.DefaultPortableReaderQuickTest.PORSCHE;
+
+/**
+ * Compares the attribute extraction of the query engine, which reads the
+ * compiled paths, with the portable readers benchmarked by the base class.
+ */
+public class PortableGetterBenchmark extends DefaultPortableReaderBenchmark {
+
+    private static final int WARMUP_ITERATIONS_COUNT = 500;
+    private static final int MEASUREMENT_ITERATIONS_COUNT = 2000;
+
+    private Extractors extractors;
+    private Data data;
+    private Data primitiveData;
+
+    @Setup
+    public void setupExtractors() throws Exception {
+        InternalSerializationService ss = new DefaultSerializationServiceBuilder()
+                .addPortableFactory(TestPortableFactory.ID, new TestPortableFactory())
+                .build();
+        extractors = Extractors.newBuilder(ss).build();
+
+        primitiveData = ss.toData(new DefaultPortableReaderTestStructure.PrimitivePortable());
+        data = ss.toData(PORSCHE);
+    }
+
+    @Benchmark
+    public Object extractInt() throws Exception {
+        return extractors.extract(primitiveData, "int_", null);
+    }
+
+    @Benchmark
+    public Object extractLong() throws Exception {
+        return extractors.extract(primitiveData, "long_", null);
+    }
+
+    @Benchmark
+    public Object extractDouble() throws Exception {
+        return extractors.extract(primitiveData, "double_", null);
+    }
+
+    @Benchmark
+    public Object extractUTF() throws Exception {
+        return extractors.extract(primitiveData, "string_", null);
+    }
+
+    @Benchmark
+    public Object extractPortableInt_nested() throws Exception {
+        return extractors.extract(data, "engine.power", null);
+    }
+
+    @Benchmark
+    public Object extractPortablePortableInt_nestedTwice() throws Exception {
+        return extractors.extract(data, "engine.chip.power", null);
+    }
+
+    @Benchmark
+    public Object extractPortableFromArray() throws Exception {
+        // not compiled, read by the portable reader
+        return extractors.extract(data, "wheels[0].name", null);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options opt = new OptionsBuilder()
+                .include(PortableGetterBenchmark.class.getSimpleName())
+                .warmupIterations(WARMUP_ITERATIONS_COUNT)
+                .warmupTime(TimeValue.milliseconds(2))
+                .measurementIterations(MEASUREMENT_ITERATIONS_COUNT)
+                .measurementTime(TimeValue.milliseconds(2))
+                .verbosity(VerboseMode.NORMAL)
+                .forks(1)
+                .build();
+
+        new Runner(opt).run();
+    }
+}
@@ -0,0 +1,211 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.nio.tcp;
+
+import com.hazelcast.internal.networking.Channel;
+import com.hazelcast.internal.networking.ChannelOptions;
+import com.hazelcast.internal.networking.GatheringBuffer;
+import com.hazelcast.internal.serialization.InternalSerializationService;
+import com.hazelcast.internal.serialization.impl.DefaultSerializationServiceBuilder;
+import com.hazelcast.nio.Packet;
+import com.hazelcast.nio.PacketIOHelper;
+import com.hazelcast.nio.tcp.PacketEncoderTest.PacketSupplier;
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import com.hazelcast.test.HazelcastTestSupport;
+import com.hazelcast.test.annotation.ParallelTest;
+import com.hazelcast.test.annotation.QuickTest;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.hazelcast.internal.networking.ChannelOption.DIRECT_BUF;
+import static com.hazelcast.internal.networking.ChannelOption.SO_SNDBUF;
+import static com.hazelcast.internal.networking.GatheringOutboundHandler.COPY_THRESHOLD;
+import static com.hazelcast.internal.networking.GatheringOutboundHandler.MAX_FRAMES_PER_WRITE;
+import static com.hazelcast.internal.networking.HandlerStatus.CLEAN;
+import static com.hazelcast.internal.networking.HandlerStatus.DIRTY;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@RunWith(HazelcastParallelClassRunner.class)
+@Category({QuickTest.class, ParallelTest.class})
+public class GatheringPacketEncoderTest extends HazelcastTestSupport {
+
+    private InternalSerializationService serializationService;
+    private GatheringPacketEncoder encoder;
+    private PacketSupplier src;
+    private CapturingChannel socketChannel;
+
+    @Before
+    public void setup() {
+        serializationService = new DefaultSerializationServiceBuilder().build();
+
+        ChannelOptions options = mock(ChannelOptions.class);
+        when(options.getOption(SO_SNDBUF)).thenReturn(4096);
+        when(options.getOption(DIRECT_BUF)).thenReturn(false);
+        Channel channel = mock(Channel.class);
+        when(channel.options()).thenReturn(options);
+
+        src = new PacketSupplier();
+        encoder = new GatheringPacketEncoder();
+        encoder.setChannel(channel).handlerAdded();
+        encoder.src(src);
+        socketChannel = new CapturingChannel(Integer.MAX_VALUE);
+    }
+
+    @Test
+    public void whenSmallAndLargePacketsWritten() throws Exception {
+        List<Packet> packets = new ArrayList<Packet>();
+        packets.add(new Packet(serializationService.toBytes("foo"), 1));
+        packets.add(new Packet(serializationService.toBytes(new byte[2 * COPY_THRESHOLD]), 2));
+        packets.add(new Packet(serializationService.toBytes(new byte[3000]), 3));
+        src.queue.addAll(packets);
+
+        assertEquals(CLEAN, encoder.onWrite());
+        encoder.dst().writeTo(socketChannel);
+
+        assertFalse(encoder.dst().hasRemaining());
+        assertEquals(packets, socketChannel.readPackets());
+    }
+
+    @Test
+    public void whenPartiallyWritten_thenNextBatchWaitsTillDrained() throws Exception {
+        socketChannel = new CapturingChannel(100);
+        Packet first = new Packet(serializationService.toBytes(new byte[2 * COPY_THRESHOLD]));
+        Packet second = new Packet(serializationService.toBytes("bar"));
+        src.queue.add(first);
+
+        assertEquals(CLEAN, encoder.onWrite());
+        GatheringBuffer dst = encoder.dst();
+        dst.writeTo(socketChannel);
+
+        src.queue.add(second);
+        assertEquals(DIRTY, encoder.onWrite());
+        assertEquals(1, src.queue.size());
+
+        while (dst.hasRemaining()) {
+            dst.writeTo(socketChannel);
+        }
+        assertEquals(CLEAN, encoder.onWrite());
+        dst.writeTo(socketChannel);
+
+        List<Packet> expected = new ArrayList<Packet>();
+        expected.add(first);
+        expected.add(second);
+        assertEquals(expected, socketChannel.readPackets());
+    }
+
+    @Test
+    public void whenMorePacketsThanBatch_thenDirty() throws Exception {
+        List<Packet> packets = new ArrayList<Packet>();
+        for (int k = 0; k <= MAX_FRAMES_PER_WRITE; k++) {
+            packets.add(new Packet(serializationService.toBytes(k)));
+        }
+        src.queue.addAll(packets);
+
+        assertEquals(DIRTY, encoder.onWrite());
+        assertEquals(1, src.queue.size());
+        encoder.dst().writeTo(socketChannel);
+
+        assertEquals(CLEAN, encoder.onWrite());
+        encoder.dst().writeTo(socketChannel);
+
+        assertEquals(packets, socketChannel.readPackets());
+    }
+
+    @Test
+    public void whenStagingBufferFull_thenPayloadNotCopied() throws Exception {
+        List<Packet> packets = new ArrayList<Packet>();
+        for (int k = 0; k < 3; k++) {
+            packets.add(new Packet(serializationService.toBytes(new byte[1500])));
+        }
+        src.queue.addAll(packets);
+
+        assertEquals(CLEAN, encoder.onWrite());
+        encoder.dst().writeTo(socketChannel);
+
+        assertEquals(packets, socketChannel.readPackets());
+    }
+
+    /**
+     * Captures the bytes written, at most the given number of bytes per write.
+     */
+    private static class CapturingChannel implements GatheringByteChannel {
+
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        private final int maxBytesPerWrite;
+
+        CapturingChannel(int maxBytesPerWrite) {
+            this.maxBytesPerWrite = maxBytesPerWrite;
+        }
+
+        List<Packet> readPackets() {
+            ByteBuffer src = ByteBuffer.wrap(bytes.toByteArray());
+            PacketIOHelper reader = new PacketIOHelper();
+            List<Packet> packets = new ArrayList<Packet>();
+            while (src.hasRemaining()) {
+                packets.add(reader.readFrom(src));
+            }
+            return packets;
+        }
+
+        @Override
+        public long write(ByteBuffer[] srcs, int offset, int length) {
+            long written = 0;
+            for (int k = offset; k < offset + length; k++) {
+                written += write(srcs[k], (int) (maxBytesPerWrite - written));
+            }
+            return written;
+        }
+
+        @Override
+        public long write(ByteBuffer[] srcs) {
+            return write(srcs, 0, srcs.length);
+        }
+
+        @Override
+        public int write(ByteBuffer src) {
+            return write(src, maxBytesPerWrite);
+        }
+
+        private int write(ByteBuffer src, int limit) {
+            int count = Math.min(src.remaining(), limit);
+            for (int k = 0; k < count; k++) {
+                bytes.write(src.get());
+            }
+            return count;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
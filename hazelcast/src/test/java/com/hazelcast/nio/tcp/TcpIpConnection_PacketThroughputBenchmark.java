@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.nio.tcp;
+
+import com.hazelcast.internal.networking.nio.Select_NioNetworkingFactory;
+import com.hazelcast.internal.networking.spinning.SpinningNetworkingFactory;
+import com.hazelcast.nio.Packet;
+import com.hazelcast.util.function.Consumer;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.lang.String.format;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+/**
+ * Compares the member to member packet throughput of the
+ * {@link com.hazelcast.internal.networking.Networking} implementations.
+ * <p>
+ * The packets are written to a single connection by a single thread with
+ * at most {@link #WINDOW} packets in flight, and are counted by the
+ * receiving member. Run the main method, the throughput of every
+ * implementation is logged.
+ */
+public class TcpIpConnection_PacketThroughputBenchmark extends TcpIpConnection_AbstractTest {
+
+    private static final int WARMUP_SECONDS = 5;
+    private static final int MEASUREMENT_SECONDS = 30;
+    private static final int WINDOW = 10000;
+    private static final int PAYLOAD_SIZE = 100;
+
+    public static void main(String[] args) throws Exception {
+        run("nio", new Select_NioNetworkingFactory());
+        run("spinning", new SpinningNetworkingFactory());
+    }
+
+    private static void run(String name, NetworkingFactory networkingFactory) throws Exception {
+        TcpIpConnection_PacketThroughputBenchmark benchmark = new TcpIpConnection_PacketThroughputBenchmark();
+        benchmark.networkingFactory = networkingFactory;
+        benchmark.setup();
+        try {
+            benchmark.measure(name);
+        } finally {
+            benchmark.tearDown();
+        }
+    }
+
+    private void measure(String name) {
+        startAllNetworkingServices();
+
+        final AtomicLong received = new AtomicLong();
+        ioServiceB.packetConsumer = new Consumer<Packet>() {
+            @Override
+            public void accept(Packet packet) {
+                received.incrementAndGet();
+            }
+        };
+        TcpIpConnection connection = connect(networkingServiceA, addressB);
+        byte[] payload = serializationService.toBytes(new DummyPayload(new byte[PAYLOAD_SIZE], false));
+
+        long sent = send(connection, payload, received, 0, WARMUP_SECONDS);
+
+        long receivedBefore = received.get();
+        long startNanos = System.nanoTime();
+        send(connection, payload, received, sent, MEASUREMENT_SECONDS);
+        long elapsedNanos = System.nanoTime() - startNanos;
+        long count = received.get() - receivedBefore;
+
+        logger.info(format("%s: %d packets received in %d ms, %.0f packets/second", name, count,
+                NANOSECONDS.toMillis(elapsedNanos), count * (double) SECONDS.toNanos(1) / elapsedNanos));
+    }
+
+    private static long send(TcpIpConnection connection, byte[] payload, AtomicLong received, long sent, int seconds) {
+        long deadline = System.nanoTime() + SECONDS.toNanos(seconds);
+        while (System.nanoTime() < deadline) {
+            if (sent - received.get() >= WINDOW) {
+                Thread.yield();
+                continue;
+            }
+            connection.write(new Packet(payload));
+            sent++;
+        }
+        return sent;
+    }
+}
@@ -0,0 +1,242 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.query.impl;
+
+import com.hazelcast.internal.serialization.InternalSerializationService;
+import com.hazelcast.internal.serialization.impl.DefaultSerializationServiceBuilder;
+import com.hazelcast.query.Predicate;
+import com.hazelcast.query.Predicates;
+import com.hazelcast.query.SampleTestObjects.Employee;
+import com.hazelcast.query.impl.getters.Extractors;
+import com.hazelcast.test.HazelcastParametersRunnerFactory;
+import com.hazelcast.test.annotation.ParallelTest;
+import com.hazelcast.test.annotation.QuickTest;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameter;
+import org.junit.runners.Parameterized.Parameters;
+import org.junit.runners.Parameterized.UseParametersRunnerFactory;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static com.hazelcast.instance.TestUtil.toData;
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(Parameterized.class)
+@UseParametersRunnerFactory(HazelcastParametersRunnerFactory.class)
+@Category({QuickTest.class, ParallelTest.class})
+public class BitmapIndexTest {
+
+    private static final String[] CITIES = {"London", "Paris", "Berlin", null};
+    private static final int ENTRY_COUNT = 1000;
+
+    @Parameter(0)
+    public IndexCopyBehavior copyBehavior;
+
+    @Parameters(name = "copyBehavior: {0}")
+    public static Collection<Object[]> parameters() {
+        return asList(new Object[][]{
+                {IndexCopyBehavior.COPY_ON_READ},
+                {IndexCopyBehavior.COPY_ON_WRITE},
+                {IndexCopyBehavior.NEVER},
+        });
+    }
+
+    private final InternalSerializationService serializationService = new DefaultSerializationServiceBuilder().build();
+    private final Extractors extractors = Extractors.newBuilder(serializationService).build();
+
+    private final Map<Integer, Employee> employees = new HashMap<Integer, Employee>();
+
+    private Indexes indexes;
+
+    @Before
+    public void setUp() {
+        indexes = Indexes.newBuilder(serializationService, copyBehavior)
+                .extractors(extractors)
+                .bitmapIndexAttributes(asList("city", "this.active"))
+                .build();
+        indexes.addOrGetIndex("city", false);
+        indexes.addOrGetIndex("active", false);
+        indexes.addOrGetIndex("age", true);
+
+        for (int i = 0; i < ENTRY_COUNT; i++) {
+            put(i, employee(i));
+        }
+    }
+
+    @Test
+    public void testIndexKinds() {
+        assertTrue(indexes.getIndex("city").isBitmap());
+        assertTrue(indexes.getIndex("active").isBitmap());
+        assertFalse(indexes.getIndex("age").isBitmap());
+    }
+
+    @Test
+    public void testEqual() {
+        assertQuery(Predicates.equal("city", "Paris"));
+        assertQuery(Predicates.equal("city", "Madrid"));
+        assertQuery(Predicates.equal("city", null));
+        assertQuery(Predicates.equal("active", true));
+    }
+
+    @Test
+    public void testIn() {
+        assertQuery(Predicates.in("city", "London", "Berlin", "Madrid"));
+    }
+
+    @Test
+    public void testNotEqual_includesNulls() {
+        assertQuery(Predicates.notEqual("city", "London"));
+        assertQuery(Predicates.notEqual("city", null));
+        assertQuery(Predicates.notEqual("city", "Madrid"));
+    }
+
+    @Test
+    public void testAnd_mergesBitmaps() {
+        Predicate predicate = Predicates.and(Predicates.equal("city", "Paris"), Predicates.equal("active", false));
+
+        assertTrue(indexes.query(predicate) instanceof BitmapResultSet);
+        assertQuery(predicate);
+    }
+
+    @Test
+    public void testAnd_withOrderedIndex() {
+        assertQuery(Predicates.and(Predicates.equal("city", "Paris"), Predicates.greaterThan("age", 30),
+                Predicates.notEqual("active", true)));
+    }
+
+    @Test
+    public void testOr_mergesBitmaps() {
+        Predicate predicate = Predicates.or(Predicates.equal("city", "Paris"), Predicates.equal("active", true));
+
+        assertTrue(indexes.query(predicate) instanceof BitmapResultSet);
+        assertQuery(predicate);
+    }
+
+    @Test
+    public void testUpdateAndRemove() {
+        for (int i = 0; i < ENTRY_COUNT; i += 3) {
+            Employee newEmployee = new Employee(i, "name" + i, CITIES[(i + 1) % CITIES.length], i % 50, i % 2 != 0, i);
+            indexes.putEntry(entry(i, newEmployee), employees.put(i, newEmployee), Index.OperationSource.USER);
+        }
+        for (int i = 1; i < ENTRY_COUNT; i += 3) {
+            indexes.removeEntry(toData(i), employees.remove(i), Index.OperationSource.USER);
+        }
+
+        assertQuery(Predicates.and(Predicates.equal("city", "Berlin"), Predicates.equal("active", true)));
+        assertQuery(Predicates.notEqual("city", "Paris"));
+    }
+
+    @Test
+    public void testClear() {
+        indexes.clearAll();
+        employees.clear();
+        assertQuery(Predicates.equal("city", "Paris"));
+
+        put(1, employee(1));
+        assertQuery(Predicates.equal("city", "Paris"));
+    }
+
+    @Test
+    public void testResultSetSnapshot_skipsRemovedEntries() {
+        Set<QueryableEntry> result = indexes.query(Predicates.equal("city", "London"));
+
+        for (int i = 0; i < ENTRY_COUNT; i += CITIES.length) {
+            indexes.removeEntry(toData(i), employees.remove(i), Index.OperationSource.USER);
+        }
+        for (int i = ENTRY_COUNT; i < 2 * ENTRY_COUNT; i++) {
+            put(i, employee(i));
+        }
+
+        assertTrue(keysOf(result).isEmpty());
+    }
+
+    @Test
+    public void testResultSetSnapshot_skipsUpdatedEntries() {
+        Set<QueryableEntry> result = indexes.query(Predicates.equal("city", "London"));
+
+        // moves the entries to another city while keeping their ordinals, the active index still holds them
+        for (int i = 0; i < ENTRY_COUNT; i += CITIES.length) {
+            Employee newEmployee = new Employee(i, "name" + i, CITIES[(i + 1) % CITIES.length], i % 50, i % 3 == 0, i);
+            indexes.putEntry(entry(i, newEmployee), employees.put(i, newEmployee), Index.OperationSource.USER);
+        }
+
+        assertTrue(keysOf(result).isEmpty());
+    }
+
+    @Test
+    public void testDestroyIndexes_discardsOrdinals() {
+        Set<QueryableEntry> result = indexes.query(Predicates.equal("city", "London"));
+
+        indexes.destroyIndexes();
+        indexes.addOrGetIndex("city", false);
+        employees.clear();
+        put(1, employee(1));
+
+        Set<QueryableEntry> newResult = indexes.query(Predicates.equal("city", "Paris"));
+        assertFalse(((BitmapResultSet) newResult).isCompatibleWith((BitmapResultSet) result));
+        assertQuery(Predicates.equal("city", "Paris"));
+    }
+
+    private void assertQuery(Predicate predicate) {
+        Set<QueryableEntry> result = indexes.query(predicate);
+        assertEquals(expected(predicate), keysOf(result));
+    }
+
+    @SuppressWarnings("unchecked")
+    private Set<Object> expected(Predicate predicate) {
+        Set<Object> expected = new HashSet<Object>();
+        for (Map.Entry<Integer, Employee> employee : employees.entrySet()) {
+            if (predicate.apply(entry(employee.getKey(), employee.getValue()))) {
+                expected.add(employee.getKey());
+            }
+        }
+        return expected;
+    }
+
+    private Set<Object> keysOf(Set<QueryableEntry> result) {
+        Set<Object> keys = new HashSet<Object>();
+        for (QueryableEntry entry : result) {
+            keys.add(serializationService.toObject(entry.getKeyData()));
+        }
+        return keys;
+    }
+
+    private void put(int key, Employee employee) {
+        employees.put(key, employee);
+        indexes.putEntry(entry(key, employee), null, Index.OperationSource.USER);
+    }
+
+    private QueryEntry entry(int key, Employee employee) {
+        return new QueryEntry(serializationService, toData(key), employee, extractors);
+    }
+
+    private static Employee employee(int i) {
+        return new Employee(i, "name" + i, CITIES[i % CITIES.length], i % 50, i % 3 == 0, i);
+    }
+
+}
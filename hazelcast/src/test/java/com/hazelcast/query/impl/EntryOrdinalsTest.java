@@ -0,0 +1,198 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hazelcast.query.impl;
+
+import com.hazelcast.internal.serialization.InternalSerializationService;
+import com.hazelcast.internal.serialization.impl.DefaultSerializationServiceBuilder;
+import com.hazelcast.nio.serialization.Data;
+import com.hazelcast.query.Predicates;
+import com.hazelcast.query.impl.getters.Extractors;
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import com.hazelcast.test.HazelcastTestSupport;
+import com.hazelcast.test.annotation.ParallelTest;
+import com.hazelcast.test.annotation.QuickTest;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+
+import static com.hazelcast.instance.TestUtil.toData;
+import static com.hazelcast.util.HashUtil.hashToIndex;
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+@RunWith(HazelcastParallelClassRunner.class)
+@Category({QuickTest.class, ParallelTest.class})
+public class EntryOrdinalsTest extends HazelcastTestSupport {
+
+    private static final int PARTITION_COUNT = 17;
+    private static final int THREAD_COUNT = 4;
+    private static final int ENTRY_COUNT = 20000;
+    private static final int VALUE_COUNT = 4;
+
+    private final InternalSerializationService serializationService = new DefaultSerializationServiceBuilder().build();
+    private final Extractors extractors = Extractors.newBuilder(serializationService).build();
+
+    @Test
+    public void testOrdinalsAreRecycled() {
+        EntryOrdinals ordinals = new EntryOrdinals(PARTITION_COUNT);
+        QueryableEntry entry = entry(1, 1);
+
+        int ordinal = ordinals.acquire(entry);
+        assertEquals(ordinal, ordinals.acquire(entry(1, 2)));
+        assertEquals(ordinal, ordinals.ordinalOf(toData(1)));
+        assertEquals(1, ordinals.size());
+
+        ordinals.release(ordinal);
+        assertEquals(2, ordinals.entryOf(ordinal).getValue());
+        ordinals.release(ordinal);
+        assertNull(ordinals.entryOf(ordinal));
+        assertEquals(-1, ordinals.ordinalOf(toData(1)));
+        assertEquals(0, ordinals.size());
+
+        // the released ordinals of a stripe are reused by the keys of the same partition only
+        QueryableEntry other = entry(keyOfPartition(partitionOf(1), 1), 3);
+        assertEquals(ordinal, ordinals.acquire(other));
+        assertSame(other, ordinals.entryOf(ordinal));
+    }
+
+    @Test
+    public void testOrdinalsAreStripedByPartitions() {
+        EntryOrdinals ordinals = new EntryOrdinals(PARTITION_COUNT);
+        for (int i = 0; i < ENTRY_COUNT; i++) {
+            int ordinal = ordinals.acquire(entry(i, i));
+            assertEquals(partitionOf(i), ordinals.stripeOf(ordinal));
+        }
+        assertEquals(ENTRY_COUNT, ordinals.size());
+
+        // releasing shifts the probe sequences of the remaining keys
+        for (int i = 0; i < ENTRY_COUNT; i += 2) {
+            ordinals.release(ordinals.ordinalOf(toData(i)));
+        }
+        for (int i = 0; i < ENTRY_COUNT; i++) {
+            int ordinal = ordinals.ordinalOf(toData(i));
+            if (i % 2 == 0) {
+                assertEquals(-1, ordinal);
+            } else {
+                assertEquals(i, ordinals.entryOf(ordinal).getValue());
+            }
+        }
+        assertEquals(ENTRY_COUNT / 2, ordinals.size());
+    }
+
+    @Test
+    public void testConcurrentUpdatesOfPartitions() {
+        final Indexes indexes = Indexes.newBuilder(serializationService, IndexCopyBehavior.COPY_ON_READ)
+                .extractors(extractors)
+                .partitionCount(PARTITION_COUNT)
+                .bitmapIndexAttributes(asList("this"))
+                .build();
+        indexes.addOrGetIndex("this", false);
+
+        // every thread owns the partitions of the same remainder like the partition threads do
+        final Map<Integer, List<Integer>> keysByThread = new HashMap<Integer, List<Integer>>();
+        for (int i = 0; i < THREAD_COUNT; i++) {
+            keysByThread.put(i, new ArrayList<Integer>());
+        }
+        for (int key = 0; key < ENTRY_COUNT; key++) {
+            keysByThread.get(partitionOf(key) % THREAD_COUNT).add(key);
+        }
+
+        final CountDownLatch startLatch = new CountDownLatch(1);
+        Thread[] threads = new Thread[THREAD_COUNT];
+        for (int i = 0; i < THREAD_COUNT; i++) {
+            final List<Integer> keys = keysByThread.get(i);
+            threads[i] = new Thread() {
+                @Override
+                public void run() {
+                    assertOpenEventually(startLatch);
+                    update(indexes, keys);
+                }
+            };
+            threads[i].start();
+        }
+        startLatch.countDown();
+        assertJoinable(threads);
+
+        int[] expectedCounts = new int[VALUE_COUNT];
+        for (int key = 0; key < ENTRY_COUNT; key++) {
+            if (key % 4 != 3) {
+                expectedCounts[finalValue(key)]++;
+            }
+        }
+        for (int value = 0; value < VALUE_COUNT; value++) {
+            assertEquals(expectedCounts[value], indexes.query(Predicates.equal("this", value)).size());
+            assertEquals(expectedCounts[value], iteratedSize(indexes.query(Predicates.equal("this", value))));
+        }
+    }
+
+    private void update(Indexes indexes, List<Integer> keys) {
+        for (int key : keys) {
+            indexes.putEntry(entry(key, key % VALUE_COUNT), null, Index.OperationSource.USER);
+        }
+        for (int key : keys) {
+            switch (key % 4) {
+                case 1:
+                    indexes.putEntry(entry(key, finalValue(key)), key % VALUE_COUNT, Index.OperationSource.USER);
+                    break;
+                case 3:
+                    indexes.removeEntry(toData(key), key % VALUE_COUNT, Index.OperationSource.USER);
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+
+    private static int finalValue(int key) {
+        return key % 4 == 1 ? (key + 1) % VALUE_COUNT : key % VALUE_COUNT;
+    }
+
+    private static int iteratedSize(Iterable<QueryableEntry> entries) {
+        int size = 0;
+        for (QueryableEntry ignored : entries) {
+            size++;
+        }
+        return size;
+    }
+
+    private QueryableEntry entry(int key, int value) {
+        return new QueryEntry(serializationService, toData(key), value, extractors);
+    }
+
+    private static int partitionOf(int key) {
+        Data keyData = toData(key);
+        return hashToIndex(keyData.getPartitionHash(), PARTITION_COUNT);
+    }
+
+    private static int keyOfPartition(int partitionId, int excludedKey) {
+        for (int key = 0; ; key++) {
+            if (key != excludedKey && partitionOf(key) == partitionId) {
+                return key;
+            }
+        }
+    }
+
+}
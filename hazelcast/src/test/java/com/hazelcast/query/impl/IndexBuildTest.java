@@ -0,0 +1,170 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.query.impl;
+
+import com.hazelcast.internal.serialization.InternalSerializationService;
+import com.hazelcast.internal.serialization.impl.DefaultSerializationServiceBuilder;
+import com.hazelcast.query.impl.getters.Extractors;
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import com.hazelcast.test.annotation.ParallelTest;
+import com.hazelcast.test.annotation.QuickTest;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+
+import static com.hazelcast.instance.TestUtil.toData;
+import static com.hazelcast.query.Predicates.equal;
+import static com.hazelcast.query.impl.QueryContext.IndexMatchHint.EXACT_NAME;
+import static com.hazelcast.query.impl.QueryContext.IndexMatchHint.NONE;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(HazelcastParallelClassRunner.class)
+@Category({QuickTest.class, ParallelTest.class})
+public class IndexBuildTest {
+
+    private final InternalSerializationService serializationService = new DefaultSerializationServiceBuilder().build();
+
+    private Indexes indexes;
+
+    @Before
+    public void before() {
+        indexes = Indexes.newBuilder(serializationService, IndexCopyBehavior.COPY_ON_READ).build();
+    }
+
+    @Test
+    public void testBuildingIndexIsNotUsedByQueries() {
+        IndexBuild build = indexes.addOrGetIndexBuild("this", true);
+        build.insertExisting(entry(1, 10));
+
+        assertTrue(indexes.isBuilding(build.getIndex()));
+        assertNull(indexes.matchIndex("this", NONE));
+        assertNull(indexes.matchIndex("this", EXACT_NAME));
+        assertNull(indexes.query(equal("this", 10)));
+
+        indexes.completeIndexBuild(build);
+
+        assertFalse(indexes.isBuilding(build.getIndex()));
+        assertSame(build.getIndex(), indexes.matchIndex("this", NONE));
+        assertEquals(1, indexes.query(equal("this", 10)).size());
+    }
+
+    @Test
+    public void testAddOrGetIndexBuild() {
+        IndexBuild build = indexes.addOrGetIndexBuild("this", true);
+        assertSame(build, indexes.addOrGetIndexBuild("this", true));
+        assertSame(build.getIndex(), indexes.addOrGetIndex("this", true));
+
+        indexes.completeIndexBuild(build);
+        indexes.completeIndexBuild(build);
+        assertNull(indexes.addOrGetIndexBuild("this", true));
+
+        InternalIndex index = indexes.addOrGetIndex("__key", false);
+        assertNull(indexes.addOrGetIndexBuild("__key", false));
+        assertFalse(indexes.isBuilding(index));
+    }
+
+    @Test
+    public void testMutationsDuringBuild() {
+        IndexBuild build = indexes.addOrGetIndexBuild("this", true);
+
+        // updated before the build reached the entry: the stale existing value is skipped
+        indexes.putEntry(entry(1, 11), 1, Index.OperationSource.USER);
+        build.insertExisting(entry(1, 1));
+
+        // updated after the build reached the entry
+        build.insertExisting(entry(2, 2));
+        indexes.putEntry(entry(2, 12), 2, Index.OperationSource.USER);
+
+        // removed before the build reached the entry
+        indexes.removeEntry(toData(3), 3, Index.OperationSource.USER);
+        build.insertExisting(entry(3, 3));
+
+        // removed after the build reached the entry
+        build.insertExisting(entry(4, 4));
+        indexes.removeEntry(toData(4), 4, Index.OperationSource.USER);
+
+        // created during the build
+        indexes.putEntry(entry(5, 15), null, Index.OperationSource.USER);
+
+        InternalIndex index = build.getIndex();
+        for (int i = 1; i <= 5; ++i) {
+            assertEquals(0, index.getRecords(i).size());
+        }
+        assertEquals(1, index.getRecords(11).size());
+        assertEquals(1, index.getRecords(12).size());
+        assertEquals(1, index.getRecords(15).size());
+        assertEquals(3, index.getRecords(0, true, 100, true).size());
+    }
+
+    @Test
+    public void testClearAllDuringBuild() {
+        IndexBuild build = indexes.addOrGetIndexBuild("this", true);
+        build.insertExisting(entry(1, 1));
+
+        indexes.clearAll();
+        build.insertExisting(entry(1, 1));
+
+        assertEquals(1, build.getIndex().getRecords(1).size());
+    }
+
+    @Test
+    public void testDestroyIndexesAbandonsBuild() {
+        IndexBuild build = indexes.addOrGetIndexBuild("this", true);
+        indexes.destroyIndexes();
+
+        assertFalse(indexes.isBuilding(build.getIndex()));
+        assertNotNull(indexes.addOrGetIndexBuild("this", true));
+    }
+
+    @Test
+    public void testAbandonIndexBuild() {
+        IndexBuild build = indexes.addOrGetIndexBuild("this", true);
+        build.insertExisting(entry(1, 1));
+
+        indexes.abandonIndexBuild(build);
+
+        InternalIndex index = build.getIndex();
+        assertFalse(indexes.isBuilding(index));
+        assertFalse(indexes.haveAtLeastOneIndex());
+        assertNull(indexes.getIndex("this"));
+        assertNull(indexes.matchIndex("this", NONE));
+
+        // the mutations aren't applied to the abandoned index anymore
+        indexes.putEntry(entry(2, 2), null, Index.OperationSource.USER);
+        assertEquals(0, index.getRecords(2).size());
+
+        IndexBuild newBuild = indexes.addOrGetIndexBuild("this", true);
+        assertNotSame(index, newBuild.getIndex());
+
+        // an abandoned build can't be completed
+        indexes.completeIndexBuild(build);
+        assertTrue(indexes.isBuilding(newBuild.getIndex()));
+        assertNull(indexes.matchIndex("this", NONE));
+    }
+
+    private QueryEntry entry(int key, int value) {
+        return new QueryEntry(serializationService, toData(key), value, Extractors.newBuilder(serializationService).build());
+    }
+
+}
@@ -0,0 +1,251 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.query.impl;
+
+import com.hazelcast.internal.serialization.InternalSerializationService;
+import com.hazelcast.internal.serialization.impl.DefaultSerializationServiceBuilder;
+import com.hazelcast.nio.serialization.Data;
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import com.hazelcast.test.annotation.ParallelTest;
+import com.hazelcast.test.annotation.QuickTest;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+
+import static com.hazelcast.monitor.impl.IndexOperationStats.EMPTY;
+import static com.hazelcast.query.impl.AbstractIndex.NULL;
+import static com.hazelcast.test.HazelcastTestSupport.assertOpenEventually;
+import static com.hazelcast.test.HazelcastTestSupport.spawn;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@RunWith(HazelcastParallelClassRunner.class)
+@Category({QuickTest.class, ParallelTest.class})
+public class IndexStatisticsTest {
+
+    private final InternalSerializationService serializationService = new DefaultSerializationServiceBuilder().build();
+
+    @Test
+    public void testEmpty() {
+        IndexStatistics statistics = new IndexStatistics.Builder(true, 0).build();
+
+        assertEquals(0, statistics.getEntryCount());
+        assertEquals(0, statistics.estimateEqual(1));
+        assertEquals(0, statistics.estimateRange(1, true, 10, true));
+    }
+
+    @Test
+    public void testOrdered_uniformValues() {
+        // 1000 distinct values, 10 entries each, 50 nulls
+        IndexStatistics.Builder builder = new IndexStatistics.Builder(true, 10000);
+        builder.add(NULL, 50);
+        for (int i = 0; i < 1000; i++) {
+            builder.add(i, 10);
+        }
+        IndexStatistics statistics = builder.build();
+
+        assertEquals(10050, statistics.getEntryCount());
+        assertEquals(1000, statistics.getDistinctValueCount());
+        assertTrue(statistics.hasHistogram());
+        assertEquals(50, statistics.estimateEqual(NULL));
+        assertEquals(10, statistics.estimateEqual(500));
+
+        assertApproximately(5000, statistics.estimateComparison(Comparison.LESS, 500));
+        assertApproximately(2500, statistics.estimateComparison(Comparison.GREATER_OR_EQUAL, 750));
+        assertApproximately(1000, statistics.estimateRange(100, true, 199, true));
+        assertEquals(0, statistics.estimateComparison(Comparison.LESS, -1));
+        assertEquals(10000, statistics.estimateComparison(Comparison.LESS, 5000));
+        assertEquals(10040, statistics.estimateComparison(Comparison.NOT_EQUAL, 1));
+    }
+
+    @Test
+    public void testUnordered_skewedValues() {
+        IndexStatistics.Builder builder = new IndexStatistics.Builder(false, 10000);
+        builder.add("ACTIVE", 9000);
+        builder.add("SUSPENDED", 900);
+        for (int i = 0; i < 100; i++) {
+            builder.add("STATE" + i, 1);
+        }
+        IndexStatistics statistics = builder.build();
+
+        assertFalse(statistics.hasHistogram());
+        assertEquals(102, statistics.getDistinctValueCount());
+        assertEquals(9000, statistics.estimateEqual("ACTIVE"));
+        assertEquals(900, statistics.estimateEqual("SUSPENDED"));
+        assertEquals(1, statistics.estimateEqual("STATE99"));
+        assertEquals(9900, statistics.estimateIn(new Comparable[]{"ACTIVE", "SUSPENDED"}));
+        assertEquals((long) Math.ceil(10000 * IndexStatistics.DEFAULT_RANGE_SELECTIVITY),
+                statistics.estimateRange("A", true, "B", true));
+    }
+
+    @Test
+    public void testWithoutValueStatistics() {
+        IndexStatistics.Builder builder = new IndexStatistics.Builder(true, 100);
+        for (int i = 0; i < 100; i++) {
+            builder.add(i, 1);
+        }
+        IndexStatistics statistics = builder.build().withoutValueStatistics();
+
+        assertEquals(100, statistics.getEntryCount());
+        assertEquals(10, statistics.estimateEqual(5));
+        assertEquals(34, statistics.estimateRange(1, true, 2, true));
+    }
+
+    @Test
+    public void testOrderedIndexStore_maintainsStatistics() {
+        OrderedIndexStore store = new OrderedIndexStore(IndexCopyBehavior.COPY_ON_READ);
+        for (int i = 0; i < 1000; i++) {
+            store.insert(i % 10, entry(i), EMPTY);
+        }
+        store.insert(null, entry(1000), EMPTY);
+
+        IndexStatistics statistics = store.getStatistics();
+        assertEquals(1001, statistics.getEntryCount());
+        assertEquals(10, statistics.getDistinctValueCount());
+        assertEquals(100, statistics.estimateEqual(3));
+        assertEquals(1, statistics.estimateEqual(NULL));
+        assertEquals(300, statistics.estimateComparison(Comparison.LESS, 3));
+
+        // a few modifications keep the statistics
+        store.remove(3, toData(3), EMPTY);
+        assertSame(statistics, store.getStatistics());
+
+        // many modifications rebuild them
+        for (int i = 10; i < 510; i++) {
+            store.update(i % 10, 42, entry(i), EMPTY);
+        }
+        statistics = store.getStatistics();
+        assertEquals(1000, statistics.getEntryCount());
+        assertEquals(500, statistics.estimateEqual(42));
+
+        store.clear();
+        assertEquals(0, store.getStatistics().getEntryCount());
+    }
+
+    @Test
+    public void testUnorderedIndexStore_maintainsStatistics() {
+        UnorderedIndexStore store = new UnorderedIndexStore(IndexCopyBehavior.COPY_ON_WRITE);
+        for (int i = 0; i < 1000; i++) {
+            store.insert(i < 900 ? "a" : "b", entry(i), EMPTY);
+        }
+
+        IndexStatistics statistics = store.getStatistics();
+        assertEquals(1000, statistics.getEntryCount());
+        assertEquals(2, statistics.getDistinctValueCount());
+        assertEquals(900, statistics.estimateEqual("a"));
+        assertEquals(0, statistics.estimateEqual("c"));
+    }
+
+    @Test
+    public void testIndexStore_staleStatisticsRebuiltBySingleThread() throws Exception {
+        BlockingIndexStore store = new BlockingIndexStore();
+        for (int i = 0; i < 1000; i++) {
+            store.insert("a", entry(i), EMPTY);
+        }
+        IndexStatistics statistics = store.getStatistics();
+        for (int i = 1000; i < 2000; i++) {
+            store.insert("b", entry(i), EMPTY);
+        }
+
+        Future<IndexStatistics> rebuilt = store.rebuildBlocked();
+
+        // the other threads keep using the previous statistics meanwhile
+        assertSame(statistics, store.getStatistics());
+
+        store.releaseRebuild();
+        assertEquals(2000, rebuilt.get().getEntryCount());
+        assertSame(rebuilt.get(), store.getStatistics());
+    }
+
+    @Test
+    public void testIndexStore_entryCountOnlyWhileStatisticsBuilt() throws Exception {
+        BlockingIndexStore store = new BlockingIndexStore();
+        for (int i = 0; i < 1000; i++) {
+            store.insert(i < 900 ? "a" : "b", entry(i), EMPTY);
+        }
+
+        Future<IndexStatistics> built = store.rebuildBlocked();
+
+        IndexStatistics statistics = store.getStatistics();
+        assertEquals(1000, statistics.getEntryCount());
+        assertEquals(100, statistics.estimateEqual("a"));
+
+        store.releaseRebuild();
+        assertEquals(900, built.get().estimateEqual("a"));
+    }
+
+    private static void assertApproximately(long expected, long actual) {
+        assertTrue("expected about " + expected + " but was " + actual, Math.abs(expected - actual) <= expected / 10);
+    }
+
+    private QueryableEntry entry(long key) {
+        QueryableEntry entry = mock(QueryableEntry.class);
+        Data keyData = toData(key);
+        when(entry.getKeyData()).thenReturn(keyData);
+        return entry;
+    }
+
+    private Data toData(long key) {
+        return serializationService.toData(key);
+    }
+
+    private static class BlockingIndexStore extends UnorderedIndexStore {
+
+        private final CountDownLatch rebuilding = new CountDownLatch(1);
+        private final CountDownLatch rebuildReleased = new CountDownLatch(1);
+        private volatile boolean blocking;
+
+        BlockingIndexStore() {
+            super(IndexCopyBehavior.COPY_ON_WRITE);
+        }
+
+        Future<IndexStatistics> rebuildBlocked() {
+            blocking = true;
+            Future<IndexStatistics> future = spawn(new Callable<IndexStatistics>() {
+                @Override
+                public IndexStatistics call() {
+                    return getStatistics();
+                }
+            });
+            assertOpenEventually(rebuilding);
+            return future;
+        }
+
+        void releaseRebuild() {
+            blocking = false;
+            rebuildReleased.countDown();
+        }
+
+        @Override
+        void collectStatistics(IndexStatistics.Builder builder) {
+            if (blocking) {
+                rebuilding.countDown();
+                assertOpenEventually(rebuildReleased);
+            }
+            super.collectStatistics(builder);
+        }
+    }
+
+}
@@ -0,0 +1,211 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.query.impl;
+
+import com.hazelcast.internal.serialization.InternalSerializationService;
+import com.hazelcast.internal.serialization.impl.DefaultSerializationServiceBuilder;
+import com.hazelcast.nio.serialization.Data;
+import com.hazelcast.test.HazelcastParametersRunnerFactory;
+import com.hazelcast.test.annotation.ParallelTest;
+import com.hazelcast.test.annotation.QuickTest;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameter;
+import org.junit.runners.Parameterized.Parameters;
+import org.junit.runners.Parameterized.UseParametersRunnerFactory;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Set;
+
+import static com.hazelcast.monitor.impl.IndexOperationStats.EMPTY;
+import static com.hazelcast.query.impl.AbstractIndex.NULL;
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@RunWith(Parameterized.class)
+@UseParametersRunnerFactory(HazelcastParametersRunnerFactory.class)
+@Category({QuickTest.class, ParallelTest.class})
+public class PrimitiveOrderedIndexStoreTest {
+
+    @Parameter(0)
+    public IndexCopyBehavior copyBehavior;
+
+    @Parameters(name = "copyBehavior: {0}")
+    public static Collection<Object[]> parameters() {
+        return asList(new Object[][]{
+                {IndexCopyBehavior.COPY_ON_READ},
+                {IndexCopyBehavior.COPY_ON_WRITE},
+                {IndexCopyBehavior.NEVER},
+        });
+    }
+
+    private InternalSerializationService serializationService;
+    private PrimitiveOrderedIndexStore store;
+
+    @Before
+    public void setUp() {
+        serializationService = new DefaultSerializationServiceBuilder().build();
+        store = new PrimitiveOrderedIndexStore(copyBehavior);
+    }
+
+    @Test
+    public void testLongValues() {
+        for (long i = 0; i < 1000; i++) {
+            store.insert(i % 100, entry(i), EMPTY);
+        }
+
+        assertKeys(store.getRecords(5L), 5, 105, 205, 305, 405, 505, 605, 705, 805, 905);
+        assertEquals(100, store.getRecords(Comparison.LESS, 10L).size());
+        assertEquals(110, store.getRecords(Comparison.LESS_OR_EQUAL, 10L).size());
+        assertEquals(890, store.getRecords(Comparison.GREATER, 10L).size());
+        assertEquals(990, store.getRecords(Comparison.NOT_EQUAL, 10L).size());
+        assertEquals(300, store.getRecords(20L, true, 50L, false).size());
+        assertEquals(0, store.getRecords(50L, true, 20L, true).size());
+    }
+
+    @Test
+    public void testIntegerValues_withManyDistinctValues() {
+        for (int i = 0; i < 10000; i++) {
+            store.insert(i, entry(i), EMPTY);
+        }
+
+        assertKeys(store.getRecords(4242), 4242);
+        assertEquals(4242, store.getRecords(Comparison.LESS, 4242).size());
+        assertEquals(5757, store.getRecords(Comparison.GREATER, 4242).size());
+        assertEquals(1001, store.getRecords(1000, true, 2000, true).size());
+    }
+
+    @Test
+    public void testDoubleValues_keepDoubleOrdering() {
+        double[] values = {Double.NEGATIVE_INFINITY, -10.5, -0.0, 0.0, 1.5, Double.MAX_VALUE, Double.NaN};
+        for (int i = 0; i < values.length; i++) {
+            store.insert(values[i], entry(i), EMPTY);
+        }
+
+        assertKeys(store.getRecords(Comparison.LESS, 0.0), 0, 1, 2);
+        assertKeys(store.getRecords(Comparison.GREATER, 1.5), 5, 6);
+        assertKeys(store.getRecords(-0.0), 2);
+        assertKeys(store.getRecords(Double.NaN), 6);
+    }
+
+    @Test
+    public void testDateValues() {
+        for (int i = 0; i < 10; i++) {
+            store.insert(new Date(i * 1000L), entry(i), EMPTY);
+        }
+
+        assertKeys(store.getRecords(Comparison.GREATER_OR_EQUAL, new Date(8000L)), 8, 9);
+        assertKeys(store.getRecords(new Date(3000L)), 3);
+    }
+
+    @Test
+    public void testNullValues() {
+        store.insert(null, entry(1), EMPTY);
+        store.insert(5L, entry(2), EMPTY);
+
+        assertKeys(store.getRecords(NULL), 1);
+        assertKeys(store.getRecords(Comparison.LESS, 10L), 2);
+    }
+
+    @Test
+    public void testRemoveAndUpdate() {
+        store.insert(1L, entry(1), EMPTY);
+        store.insert(1L, entry(2), EMPTY);
+        store.insert(1L, entry(3), EMPTY);
+
+        store.remove(1L, toData(2), EMPTY);
+        assertKeys(store.getRecords(1L), 1, 3);
+
+        store.update(1L, 2L, entry(3), EMPTY);
+        assertKeys(store.getRecords(1L), 1);
+        assertKeys(store.getRecords(2L), 3);
+
+        store.remove(1L, toData(1), EMPTY);
+        assertEquals(0, store.getRecords(1L).size());
+        assertEquals(1, store.getRecords(Comparison.GREATER_OR_EQUAL, 0L).size());
+    }
+
+    @Test
+    public void testNonPrimitiveValues_moveContentsToFallbackStore() {
+        store.insert(null, entry(1), EMPTY);
+        store.insert("a", entry(2), EMPTY);
+        store.insert("b", entry(3), EMPTY);
+
+        assertKeys(store.getRecords(NULL), 1);
+        assertKeys(store.getRecords("a"), 2);
+        assertKeys(store.getRecords(Comparison.GREATER, "a"), 3);
+
+        store.remove(null, toData(1), EMPTY);
+        assertEquals(0, store.getRecords(NULL).size());
+    }
+
+    @Test
+    public void testClear() {
+        store.insert(1L, entry(1), EMPTY);
+        store.clear();
+
+        assertEquals(0, store.getRecords(1L).size());
+
+        store.insert(1.5, entry(2), EMPTY);
+        assertKeys(store.getRecords(1.5), 2);
+    }
+
+    @Test
+    public void testDoubleEncoding_roundTrip() {
+        double[] values = {Double.NEGATIVE_INFINITY, -Double.MAX_VALUE, -1.0, -Double.MIN_VALUE, -0.0, 0.0,
+                Double.MIN_VALUE, 1.0, Double.MAX_VALUE, Double.POSITIVE_INFINITY, Double.NaN};
+        for (int i = 0; i < values.length; i++) {
+            long encoded = PrimitiveOrderedIndexStore.encodeDouble(values[i]);
+            assertEquals(values[i], PrimitiveOrderedIndexStore.decodeDouble(encoded), 0.0);
+            if (i > 0) {
+                assertTrue(PrimitiveOrderedIndexStore.encodeDouble(values[i - 1]) < encoded);
+            }
+        }
+    }
+
+    private QueryableEntry entry(long key) {
+        QueryableEntry entry = mock(QueryableEntry.class);
+        Data keyData = toData(key);
+        when(entry.getKeyData()).thenReturn(keyData);
+        return entry;
+    }
+
+    private Data toData(long key) {
+        return serializationService.toData(key);
+    }
+
+    private void assertKeys(Set<QueryableEntry> records, long... expectedKeys) {
+        Set<Data> expected = new HashSet<Data>();
+        for (long key : expectedKeys) {
+            expected.add(toData(key));
+        }
+        Set<Data> actual = new HashSet<Data>();
+        for (QueryableEntry record : records) {
+            actual.add(record.getKeyData());
+        }
+        assertEquals(expected, actual);
+    }
+
+}
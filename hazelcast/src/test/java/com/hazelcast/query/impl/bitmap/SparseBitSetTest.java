@@ -0,0 +1,165 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.query.impl.bitmap;
+
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import com.hazelcast.test.annotation.ParallelTest;
+import com.hazelcast.test.annotation.QuickTest;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+
+import java.util.Random;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+import static com.hazelcast.query.impl.bitmap.SparseBitSet.ARRAY_CONTAINER_MAX_SIZE;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(HazelcastParallelClassRunner.class)
+@Category({QuickTest.class, ParallelTest.class})
+public class SparseBitSetTest {
+
+    @Test
+    public void testAddRemoveContains() {
+        SparseBitSet set = new SparseBitSet();
+
+        assertTrue(set.isEmpty());
+        assertTrue(set.add(5));
+        assertFalse(set.add(5));
+        assertTrue(set.add(Integer.MAX_VALUE));
+        assertTrue(set.contains(5));
+        assertTrue(set.contains(Integer.MAX_VALUE));
+        assertFalse(set.contains(6));
+        assertEquals(2, set.cardinality());
+
+        assertTrue(set.remove(5));
+        assertFalse(set.remove(5));
+        assertFalse(set.contains(5));
+        assertEquals(1, set.cardinality());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testAdd_negative() {
+        new SparseBitSet().add(-1);
+    }
+
+    @Test
+    public void testDenseContainer() {
+        SparseBitSet set = new SparseBitSet();
+        for (int i = 0; i < 2 * ARRAY_CONTAINER_MAX_SIZE; i++) {
+            set.add(i * 3);
+        }
+        assertEquals(2 * ARRAY_CONTAINER_MAX_SIZE, set.cardinality());
+        assertTrue(set.contains(3 * 100));
+        assertFalse(set.contains(3 * 100 + 1));
+
+        for (int i = 0; i < 2 * ARRAY_CONTAINER_MAX_SIZE; i += 2) {
+            set.remove(i * 3);
+        }
+        assertEquals(ARRAY_CONTAINER_MAX_SIZE, set.cardinality());
+        assertFalse(set.contains(0));
+        assertTrue(set.contains(3));
+    }
+
+    @Test
+    public void testNextSetBit() {
+        SparseBitSet set = new SparseBitSet();
+        set.add(3);
+        set.add(70000);
+        set.add(200000);
+
+        assertEquals(3, set.nextSetBit(0));
+        assertEquals(70000, set.nextSetBit(4));
+        assertEquals(200000, set.nextSetBit(70001));
+        assertEquals(-1, set.nextSetBit(200001));
+    }
+
+    @Test
+    public void testSetOperations_againstTreeSet() {
+        Random random = new Random(42);
+        for (int round = 0; round < 20; round++) {
+            int bound = random.nextBoolean() ? 1 << 20 : 1 << 14;
+            SortedSet<Integer> expectedLeft = new TreeSet<Integer>();
+            SortedSet<Integer> expectedRight = new TreeSet<Integer>();
+            SparseBitSet left = randomSet(random, bound, expectedLeft);
+            SparseBitSet right = randomSet(random, bound, expectedRight);
+
+            SortedSet<Integer> expectedAnd = new TreeSet<Integer>(expectedLeft);
+            expectedAnd.retainAll(expectedRight);
+            SortedSet<Integer> expectedOr = new TreeSet<Integer>(expectedLeft);
+            expectedOr.addAll(expectedRight);
+            SortedSet<Integer> expectedAndNot = new TreeSet<Integer>(expectedLeft);
+            expectedAndNot.removeAll(expectedRight);
+
+            assertSetEquals(expectedAnd, left.and(right));
+            assertSetEquals(expectedOr, left.or(right));
+            assertSetEquals(expectedAndNot, left.andNot(right));
+            // the operands stay intact
+            assertSetEquals(expectedLeft, left);
+            assertSetEquals(expectedRight, right);
+        }
+    }
+
+    @Test
+    public void testCopy_isIndependent() {
+        SparseBitSet set = new SparseBitSet();
+        set.add(1);
+        SparseBitSet copy = set.copy();
+        copy.add(2);
+        set.remove(1);
+
+        assertTrue(set.isEmpty());
+        assertTrue(copy.contains(1));
+        assertTrue(copy.contains(2));
+    }
+
+    @Test
+    public void testClear() {
+        SparseBitSet set = new SparseBitSet();
+        for (int i = 0; i < 100000; i += 7) {
+            set.add(i);
+        }
+        set.clear();
+
+        assertTrue(set.isEmpty());
+        assertEquals(-1, set.nextSetBit(0));
+    }
+
+    private static SparseBitSet randomSet(Random random, int bound, SortedSet<Integer> expected) {
+        SparseBitSet set = new SparseBitSet();
+        int count = random.nextInt(3 * ARRAY_CONTAINER_MAX_SIZE);
+        for (int i = 0; i < count; i++) {
+            int value = random.nextInt(bound);
+            assertEquals(expected.add(value), set.add(value));
+        }
+        return set;
+    }
+
+    private static void assertSetEquals(SortedSet<Integer> expected, SparseBitSet actual) {
+        assertEquals(expected.size(), actual.cardinality());
+        int value = actual.nextSetBit(0);
+        for (int expectedValue : expected) {
+            assertEquals(expectedValue, value);
+            value = actual.nextSetBit(value + 1);
+        }
+        assertEquals(-1, value);
+    }
+
+}
@@ -23,6 +23,7 @@ import com.hazelcast.internal.json.JsonObject;
 import com.hazelcast.json.HazelcastJson;
 import com.hazelcast.json.internal.JsonSchemaHelper;
 import com.hazelcast.json.internal.JsonSchemaNode;
+import com.hazelcast.json.internal.JsonSchemaStructNode;
 import com.hazelcast.test.HazelcastParallelClassRunner;
 import com.hazelcast.test.annotation.ParallelTest;
 import com.hazelcast.test.annotation.QuickTest;
@@ -84,6 +85,28 @@ public class AbstractJsonGetterTest {
         assertEquals(2, getter.getContextCacheSize());
     }
 
+    @Test
+    public void testRepeatQueriesUseTheResolvedValueLocations() throws Exception {
+        String jsonText = Json.object().add("at1", "val1")
+                .add("at2", Json.object().add("at3", 3).add("at4", Json.array(4, 5))).toString();
+        HazelcastJsonValue jsonValue = HazelcastJson.fromString(jsonText);
+        JsonSchemaStructNode node = (JsonSchemaStructNode) JsonSchemaHelper.createSchema(factory.createParser(jsonText));
+        assertEquals(-1, node.getResolvedValueLocation("at2.at3"));
+
+        assertEquals(3L, getter.getValue(jsonValue, "at2.at3", node));
+        assertTrue(node.getResolvedValueLocation("at2.at3") >= 0);
+        assertEquals(3L, getter.getValue(jsonValue, "at2.at3", node));
+
+        assertEquals(5L, getter.getValue(jsonValue, "at2.at4[1]", node));
+        assertEquals(5L, getter.getValue(jsonValue, "at2.at4[1]", node));
+        assertEquals("val1", getter.getValue(jsonValue, "at1", node));
+        assertEquals("val1", getter.getValue(jsonValue, "at1", node));
+
+        // not resolved to a terminal value, nothing to remember
+        assertEquals(null, getter.getValue(jsonValue, "at2.at5", node));
+        assertEquals(-1, node.getResolvedValueLocation("at2.at5"));
+    }
+
     @Test
     public void testQueryObjectsWithDifferentPatterns() throws Exception {
         testRandomOrderObjectRepetitiveQuerying(100);
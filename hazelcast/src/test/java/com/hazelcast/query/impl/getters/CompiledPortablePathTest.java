@@ -0,0 +1,226 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.query.impl.getters;
+
+import com.hazelcast.internal.serialization.InternalSerializationService;
+import com.hazelcast.internal.serialization.PortableContext;
+import com.hazelcast.internal.serialization.impl.DefaultPortableReader;
+import com.hazelcast.internal.serialization.impl.DefaultSerializationServiceBuilder;
+import com.hazelcast.nio.serialization.ClassDefinition;
+import com.hazelcast.nio.serialization.Data;
+import com.hazelcast.nio.serialization.Portable;
+import com.hazelcast.nio.serialization.PortableFactory;
+import com.hazelcast.nio.serialization.PortableReader;
+import com.hazelcast.nio.serialization.PortableWriter;
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import com.hazelcast.test.annotation.ParallelTest;
+import com.hazelcast.test.annotation.QuickTest;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+@RunWith(HazelcastParallelClassRunner.class)
+@Category({QuickTest.class, ParallelTest.class})
+public class CompiledPortablePathTest {
+
+    private static final int FACTORY_ID = 1;
+
+    private InternalSerializationService ss;
+    private PortableGetter getter;
+
+    @Before
+    public void before() {
+        ss = new DefaultSerializationServiceBuilder().addPortableFactory(FACTORY_ID, new TestPortableFactory()).build();
+        getter = new PortableGetter(ss);
+        // registers the class definitions, the null portables can't be written without them
+        ss.toData(new OuterPortable(0, "", new InnerPortable(0L, ' ', "")));
+    }
+
+    @Test
+    public void testCompile() throws Exception {
+        Data data = ss.toData(new OuterPortable(1, "outer", new InnerPortable(2L, 'c', "inner")));
+        PortableContext context = ss.getPortableContext();
+        ClassDefinition classDefinition = context.lookupClassDefinition(data);
+
+        assertNotNull(CompiledPortablePath.compile(context, classDefinition, "id"));
+        assertNotNull(CompiledPortablePath.compile(context, classDefinition, "name"));
+        assertNotNull(CompiledPortablePath.compile(context, classDefinition, "inner.value"));
+        assertNotNull(CompiledPortablePath.compile(context, classDefinition, "inner.label"));
+
+        assertNull(CompiledPortablePath.compile(context, classDefinition, "inner"));
+        assertNull(CompiledPortablePath.compile(context, classDefinition, "ids"));
+        assertNull(CompiledPortablePath.compile(context, classDefinition, "ids[0]"));
+        assertNull(CompiledPortablePath.compile(context, classDefinition, "unknown"));
+        assertNull(CompiledPortablePath.compile(context, classDefinition, "id.value"));
+        assertNull(CompiledPortablePath.compile(context, classDefinition, "inner."));
+    }
+
+    @Test
+    public void testCompiledPathsMatchReader() throws Exception {
+        Data data = ss.toData(new OuterPortable(1, "outer", new InnerPortable(2L, 'c', "inner")));
+
+        assertSameAsReader(data, "id");
+        assertSameAsReader(data, "name");
+        assertSameAsReader(data, "inner.value");
+        assertSameAsReader(data, "inner.letter");
+        assertSameAsReader(data, "inner.label");
+
+        assertEquals(1, getter.getValue(data, "id"));
+        assertEquals("outer", getter.getValue(data, "name"));
+        assertEquals(2L, getter.getValue(data, "inner.value"));
+        assertEquals('c', getter.getValue(data, "inner.letter"));
+        assertEquals("inner", getter.getValue(data, "inner.label"));
+    }
+
+    @Test
+    public void testNullValues() throws Exception {
+        Data data = ss.toData(new OuterPortable(1, null, null));
+
+        assertNull(getter.getValue(data, "name"));
+        assertNull(getter.getValue(data, "inner.value"));
+        assertNull(getter.getValue(data, "inner.label"));
+
+        data = ss.toData(new OuterPortable(1, null, new InnerPortable(2L, 'c', null)));
+        assertNull(getter.getValue(data, "inner.label"));
+    }
+
+    @Test
+    public void testNotCompiledPathsReadByReader() throws Exception {
+        Data data = ss.toData(new OuterPortable(1, "outer", new InnerPortable(2L, 'c', "inner")));
+
+        assertSameAsReader(data, "ids");
+        assertSameAsReader(data, "ids[1]");
+    }
+
+    private void assertSameAsReader(Data data, String path) throws Exception {
+        DefaultPortableReader reader = (DefaultPortableReader) ss.createPortableReader(data);
+        Object expected = reader.read(path);
+        if (expected instanceof int[]) {
+            assertEquals(((int[]) expected).length, ((int[]) getter.getValue(data, path)).length);
+        } else {
+            assertEquals(expected, getter.getValue(data, path));
+        }
+    }
+
+    static class OuterPortable implements Portable {
+
+        static final int ID = 1;
+
+        int id;
+        String name;
+        InnerPortable inner;
+
+        OuterPortable() {
+        }
+
+        OuterPortable(int id, String name, InnerPortable inner) {
+            this.id = id;
+            this.name = name;
+            this.inner = inner;
+        }
+
+        @Override
+        public int getFactoryId() {
+            return FACTORY_ID;
+        }
+
+        @Override
+        public int getClassId() {
+            return ID;
+        }
+
+        @Override
+        public void writePortable(PortableWriter writer) throws IOException {
+            writer.writeInt("id", id);
+            writer.writeUTF("name", name);
+            writer.writeIntArray("ids", new int[]{id, id + 1});
+            writer.writePortable("inner", inner);
+        }
+
+        @Override
+        public void readPortable(PortableReader reader) throws IOException {
+            id = reader.readInt("id");
+            name = reader.readUTF("name");
+            reader.readIntArray("ids");
+            inner = reader.readPortable("inner");
+        }
+    }
+
+    static class InnerPortable implements Portable {
+
+        static final int ID = 2;
+
+        long value;
+        char letter;
+        String label;
+
+        InnerPortable() {
+        }
+
+        InnerPortable(long value, char letter, String label) {
+            this.value = value;
+            this.letter = letter;
+            this.label = label;
+        }
+
+        @Override
+        public int getFactoryId() {
+            return FACTORY_ID;
+        }
+
+        @Override
+        public int getClassId() {
+            return ID;
+        }
+
+        @Override
+        public void writePortable(PortableWriter writer) throws IOException {
+            writer.writeLong("value", value);
+            writer.writeChar("letter", letter);
+            writer.writeUTF("label", label);
+        }
+
+        @Override
+        public void readPortable(PortableReader reader) throws IOException {
+            value = reader.readLong("value");
+            letter = reader.readChar("letter");
+            label = reader.readUTF("label");
+        }
+    }
+
+    static class TestPortableFactory implements PortableFactory {
+
+        @Override
+        public Portable create(int classId) {
+            switch (classId) {
+                case OuterPortable.ID:
+                    return new OuterPortable();
+                case InnerPortable.ID:
+                    return new InnerPortable();
+                default:
+                    return null;
+            }
+        }
+    }
+}
@@ -0,0 +1,204 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.query.impl.predicates;
+
+import com.hazelcast.internal.serialization.InternalSerializationService;
+import com.hazelcast.internal.serialization.impl.DefaultSerializationServiceBuilder;
+import com.hazelcast.query.Predicate;
+import com.hazelcast.query.Predicates;
+import com.hazelcast.query.SampleTestObjects.Employee;
+import com.hazelcast.query.impl.Index;
+import com.hazelcast.query.impl.IndexCopyBehavior;
+import com.hazelcast.query.impl.Indexes;
+import com.hazelcast.query.impl.QueryEntry;
+import com.hazelcast.query.impl.QueryableEntry;
+import com.hazelcast.query.impl.SkipIndexPredicate;
+import com.hazelcast.query.impl.getters.Extractors;
+import com.hazelcast.query.impl.predicates.QueryPlan.Access;
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import com.hazelcast.test.annotation.ParallelTest;
+import com.hazelcast.test.annotation.QuickTest;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static com.hazelcast.instance.TestUtil.toData;
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(HazelcastParallelClassRunner.class)
+@Category({QuickTest.class, ParallelTest.class})
+public class CostBasedQueryOptimizerTest {
+
+    private static final String[] CITIES = {"London", "Paris", "Berlin", "Rome"};
+    private static final int ENTRY_COUNT = 1000;
+
+    private final InternalSerializationService serializationService = new DefaultSerializationServiceBuilder().build();
+    private final Extractors extractors = Extractors.newBuilder(serializationService).build();
+    private final CostBasedQueryOptimizer optimizer = new CostBasedQueryOptimizer();
+
+    private final Map<Integer, Employee> employees = new HashMap<Integer, Employee>();
+
+    private Indexes indexes;
+
+    @Before
+    public void setUp() {
+        indexes = Indexes.newBuilder(serializationService, IndexCopyBehavior.COPY_ON_READ)
+                .extractors(extractors)
+                .bitmapIndexAttributes(asList("city", "active"))
+                .build();
+        indexes.addOrGetIndex("id", false);
+        indexes.addOrGetIndex("age", true);
+        indexes.addOrGetIndex("city", false);
+        indexes.addOrGetIndex("active", false);
+
+        for (int i = 0; i < ENTRY_COUNT; i++) {
+            Employee employee = new Employee(i, "name" + i, CITIES[i % CITIES.length], i % 50, i % 20 == 0, i);
+            employees.put(i, employee);
+            indexes.putEntry(entry(i, employee), null, Index.OperationSource.USER);
+        }
+    }
+
+    @Test
+    public void testSelectivePredicate_usesIndex() {
+        Predicate predicate = Predicates.equal("id", 5);
+        QueryPlan plan = optimizer.plan(predicate, indexes);
+
+        assertTrue(plan.isIndexed());
+        assertSame(predicate, plan.getPredicate());
+        assertEquals(ENTRY_COUNT, plan.getEntryCount());
+        assertEquals(1, plan.getSteps().get(0).getEstimatedCount());
+        assertQuery(predicate, plan.getPredicate());
+    }
+
+    @Test
+    public void testUnselectivePredicate_usesFullScan() {
+        Predicate predicate = Predicates.greaterThan("age", 0);
+        QueryPlan plan = optimizer.plan(predicate, indexes);
+
+        assertFalse(plan.isIndexed());
+        assertTrue(plan.getPredicate() instanceof SkipIndexPredicate);
+        assertEquals(Access.FULL_SCAN, plan.getSteps().get(0).getAccess());
+        assertQuery(predicate, plan.getPredicate());
+    }
+
+    @Test
+    public void testUnindexedPredicate_usesFullScan() {
+        Predicate predicate = Predicates.equal("name", "name5");
+        QueryPlan plan = optimizer.plan(predicate, indexes);
+
+        assertFalse(plan.isIndexed());
+        assertSame(predicate, plan.getPredicate());
+        assertQuery(predicate, plan.getPredicate());
+    }
+
+    @Test
+    public void testAnd_ordersBySelectivity() {
+        Predicate age = Predicates.lessThan("age", 40);
+        Predicate id = Predicates.in("id", 1, 2, 3);
+        Predicate name = Predicates.notEqual("name", "name2");
+        Predicate predicate = Predicates.and(age, name, id);
+        QueryPlan plan = optimizer.plan(predicate, indexes);
+
+        assertEquals(3, plan.getSteps().size());
+        assertEquals(Access.INDEX, plan.getSteps().get(0).getAccess());
+        assertSame(id, plan.getSteps().get(0).getPredicate());
+        assertEquals(Access.FILTER, plan.getSteps().get(1).getAccess());
+        assertSame(age, plan.getSteps().get(1).getPredicate());
+        assertEquals(Access.FILTER, plan.getSteps().get(2).getAccess());
+        assertSame(name, plan.getSteps().get(2).getPredicate());
+
+        AndPredicate planned = (AndPredicate) plan.getPredicate();
+        assertSame(id, planned.predicates[0]);
+        assertTrue(planned.predicates[1] instanceof SkipIndexPredicate);
+        assertSame(name, planned.predicates[2]);
+        assertQuery(predicate, planned);
+    }
+
+    @Test
+    public void testAnd_intersectsBitmaps() {
+        Predicate active = Predicates.equal("active", true);
+        Predicate city = Predicates.in("city", "London", "Paris", "Berlin");
+        Predicate predicate = Predicates.and(city, active);
+        QueryPlan plan = optimizer.plan(predicate, indexes);
+
+        assertEquals(2, plan.getSteps().size());
+        assertEquals(Access.INDEX, plan.getSteps().get(0).getAccess());
+        assertSame(active, plan.getSteps().get(0).getPredicate());
+        assertEquals(Access.INDEX, plan.getSteps().get(1).getAccess());
+        assertSame(city, plan.getSteps().get(1).getPredicate());
+        assertQuery(predicate, plan.getPredicate());
+    }
+
+    @Test
+    public void testAnd_unselective_usesFullScan() {
+        Predicate predicate = Predicates.and(Predicates.greaterThan("age", 0), Predicates.notEqual("city", "Madrid"));
+        QueryPlan plan = optimizer.plan(predicate, indexes);
+
+        assertFalse(plan.isIndexed());
+        assertTrue(plan.getPredicate() instanceof SkipIndexPredicate);
+        assertQuery(predicate, plan.getPredicate());
+    }
+
+    @Test
+    public void testWithoutIndexes() {
+        Predicate predicate = Predicates.equal("id", 5);
+        QueryPlan plan = optimizer.plan(predicate, null);
+
+        assertFalse(plan.isIndexed());
+        assertSame(predicate, plan.getPredicate());
+    }
+
+    private void assertQuery(Predicate predicate, Predicate planned) {
+        Set<QueryableEntry> result = indexes.query(planned);
+        Set<Object> actual;
+        if (result == null) {
+            actual = scan(planned);
+        } else {
+            actual = new HashSet<Object>();
+            for (QueryableEntry entry : result) {
+                actual.add(serializationService.toObject(entry.getKeyData()));
+            }
+        }
+        assertEquals(scan(predicate), actual);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Set<Object> scan(Predicate predicate) {
+        Set<Object> keys = new HashSet<Object>();
+        for (Map.Entry<Integer, Employee> employee : employees.entrySet()) {
+            if (predicate.apply(entry(employee.getKey(), employee.getValue()))) {
+                keys.add(employee.getKey());
+            }
+        }
+        return keys;
+    }
+
+    private QueryEntry entry(int key, Employee employee) {
+        return new QueryEntry(serializationService, toData(key), employee, extractors);
+    }
+
+}
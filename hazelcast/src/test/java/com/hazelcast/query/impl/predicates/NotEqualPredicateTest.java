@@ -16,6 +16,7 @@
 
 package com.hazelcast.query.impl.predicates;
 
+import com.hazelcast.query.impl.Comparison;
 import com.hazelcast.query.impl.Index;
 import com.hazelcast.query.impl.QueryContext;
 import com.hazelcast.query.impl.QueryableEntry;
@@ -28,17 +29,18 @@ import org.junit.Test;
 import org.junit.experimental.categories.Category;
 import org.junit.runner.RunWith;
 
+import java.util.Collections;
 import java.util.Set;
 
 import static org.hamcrest.Matchers.containsString;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.anyString;
 import static org.mockito.Mockito.mock;
-import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
 
 @RunWith(HazelcastParallelClassRunner.class)
@@ -121,7 +123,7 @@ public class NotEqualPredicateTest {
     }
 
     @Test
-    public void filter_givenAttributeNameIsFoo_whenTheFooFieldIsIndex_thenReturnsNullAndDoesNotTouchQueryContext() {
+    public void filter_givenAttributeNameIsFoo_whenTheFooFieldIsIndex_thenReturnsNull() {
         /** see {@link #isIndexed_givenAttributeNameIsFoo_whenTheFooFieldIsIndexed_returnFalse()} */
         String fieldName = "foo";
         NotEqualPredicate predicate = new NotEqualPredicate(fieldName, "foo");
@@ -130,7 +132,29 @@ public class NotEqualPredicateTest {
         Set<QueryableEntry> filter = predicate.filter(queryContext);
 
         assertNull(filter);
-        verifyZeroInteractions(queryContext);
+    }
+
+    @Test
+    public void isIndexed_whenTheFieldIsBitmapIndexed_returnTrue() {
+        String fieldName = "name";
+        NotEqualPredicate predicate = new NotEqualPredicate(fieldName, "foo");
+
+        QueryContext queryContext = newMockContextWithBitmapIndex(fieldName);
+
+        assertTrue(predicate.isIndexed(queryContext));
+    }
+
+    @Test
+    public void filter_whenTheFieldIsBitmapIndexed_thenQueriesNotEqualRecords() {
+        String fieldName = "name";
+        NotEqualPredicate predicate = new NotEqualPredicate(fieldName, "foo");
+
+        QueryContext queryContext = newMockContextWithBitmapIndex(fieldName);
+        Index index = queryContext.matchIndex(fieldName, QueryContext.IndexMatchHint.PREFER_UNORDERED);
+        Set<QueryableEntry> records = Collections.emptySet();
+        when(index.getRecords(Comparison.NOT_EQUAL, "foo")).thenReturn(records);
+
+        assertSame(records, predicate.filter(queryContext));
     }
 
     @Test
@@ -150,6 +174,15 @@ public class NotEqualPredicateTest {
         return queryContext;
     }
 
+    private QueryContext newMockContextWithBitmapIndex(String indexedFieldName) {
+        QueryContext queryContext = mock(QueryContext.class);
+        Index mockIndex = mock(Index.class);
+        when(mockIndex.isBitmap()).thenReturn(true);
+        when(queryContext.matchIndex(indexedFieldName, QueryContext.IndexMatchHint.PREFER_UNORDERED)).thenReturn(mockIndex);
+
+        return queryContext;
+    }
+
     private QueryableEntry newMockEntry(Object attributeValue) {
         QueryableEntry mockEntry = mock(QueryableEntry.class);
         when(mockEntry.getAttributeValue(anyString())).thenReturn(attributeValue);
@@ -57,6 +57,14 @@ public class QueryOptimizerFactoryTest {
         assertThat(queryOptimizer, instanceOf(EmptyOptimizer.class));
     }
 
+    @Test
+    public void newOptimizer_whenPropertyContainsCost_thenCreateCostBasedOptimizer() {
+        HazelcastProperties hazelcastProperties = createMockHazelcastProperties(QUERY_OPTIMIZER_TYPE, "COST");
+        QueryOptimizer queryOptimizer = QueryOptimizerFactory.newOptimizer(hazelcastProperties);
+
+        assertThat(queryOptimizer, instanceOf(CostBasedQueryOptimizer.class));
+    }
+
     private HazelcastProperties createMockHazelcastProperties(HazelcastProperty property, String stringValue) {
         HazelcastProperties properties = mock(HazelcastProperties.class);
         when(properties.getString(property)).thenReturn(stringValue);
@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.spi.impl.operationexecutor.impl;
+
+import com.hazelcast.test.HazelcastSerialClassRunner;
+import com.hazelcast.test.HazelcastTestSupport;
+import com.hazelcast.test.annotation.QuickTest;
+import com.hazelcast.util.concurrent.BusySpinIdleStrategy;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+@RunWith(HazelcastSerialClassRunner.class)
+@Category(QuickTest.class)
+public class MPSCOperationQueueTest extends HazelcastTestSupport {
+
+    private static final int CAPACITY = 4;
+
+    private MPSCOperationQueue operationQueue;
+
+    @Before
+    public void setup() {
+        operationQueue = new MPSCOperationQueue(CAPACITY, null);
+        operationQueue.setConsumerThread(Thread.currentThread());
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void add_whenNull() {
+        operationQueue.add(null, false);
+    }
+
+    @Test
+    public void add_whenPriority() {
+        operationQueue.add("task", true);
+
+        assertEquals(1, operationQueue.prioritySize());
+        assertEquals(0, operationQueue.normalSize());
+        assertEquals(1, operationQueue.size());
+    }
+
+    @Test
+    public void add_whenNormal() {
+        operationQueue.add("task", false);
+
+        assertEquals(0, operationQueue.prioritySize());
+        assertEquals(1, operationQueue.normalSize());
+        assertEquals(1, operationQueue.size());
+    }
+
+    @Test
+    public void take_priorityIsRetrievedFirst() throws InterruptedException {
+        operationQueue.add("normal1", false);
+        operationQueue.add("priority1", true);
+        operationQueue.add("normal2", false);
+        operationQueue.add("priority2", true);
+
+        assertSame("priority1", operationQueue.take(false));
+        assertSame("priority2", operationQueue.take(false));
+        assertSame("normal1", operationQueue.take(false));
+        assertSame("normal2", operationQueue.take(false));
+        assertEquals(0, operationQueue.size());
+    }
+
+    @Test
+    public void take_whenPriorityOnly() throws InterruptedException {
+        operationQueue.add("normal", false);
+        operationQueue.add("priority", true);
+
+        assertSame("priority", operationQueue.take(true));
+        assertEquals(1, operationQueue.normalSize());
+    }
+
+    @Test
+    public void take_whenOverflown_thenOrderPreserved() throws InterruptedException {
+        int taskCount = 3 * CAPACITY;
+        for (int k = 0; k < taskCount; k++) {
+            operationQueue.add(k, false);
+        }
+        assertEquals(taskCount, operationQueue.normalSize());
+
+        // taking a task frees space in the array queue, the tasks still go to the overflow queue
+        assertEquals(0, operationQueue.take(false));
+        operationQueue.add(taskCount, false);
+
+        for (int k = 1; k <= taskCount; k++) {
+            assertEquals(k, operationQueue.take(false));
+        }
+        assertEquals(0, operationQueue.size());
+    }
+
+    @Test
+    public void take_whenNoItemAvailable_thenBlockTillItemAvailable() throws Exception {
+        final MPSCOperationQueue queue = new MPSCOperationQueue(CAPACITY, null);
+        Future<Object> future = spawn(new Callable<Object>() {
+            @Override
+            public Object call() throws Exception {
+                queue.setConsumerThread(Thread.currentThread());
+                return queue.take(false);
+            }
+        });
+
+        sleepMillis(500);
+        queue.add("task", false);
+
+        assertSame("task", future.get());
+    }
+
+    @Test
+    public void take_whenIdleStrategy() throws Exception {
+        final MPSCOperationQueue queue = new MPSCOperationQueue(CAPACITY, new BusySpinIdleStrategy());
+        Future<Object> future = spawn(new Callable<Object>() {
+            @Override
+            public Object call() throws Exception {
+                return queue.take(false);
+            }
+        });
+
+        sleepMillis(100);
+        queue.add("task", true);
+
+        assertSame("task", future.get());
+    }
+
+    @Test(expected = InterruptedException.class)
+    public void take_whenInterrupted() throws InterruptedException {
+        Thread.currentThread().interrupt();
+        operationQueue.take(false);
+    }
+}
@@ -22,6 +22,7 @@ import com.hazelcast.instance.DefaultNodeExtension;
 import com.hazelcast.instance.Node;
 import com.hazelcast.internal.serialization.InternalSerializationService;
 import com.hazelcast.internal.serialization.impl.DefaultSerializationServiceBuilder;
+import com.hazelcast.internal.serialization.impl.SerializationServiceV1;
 import com.hazelcast.logging.LoggingServiceImpl;
 import com.hazelcast.nio.Address;
 import com.hazelcast.nio.ObjectDataInput;
@@ -230,9 +231,18 @@ public abstract class OperationExecutorImpl_AbstractTest extends HazelcastTestSu
 
         @Override
         public void run(Packet packet) throws Exception {
+            run(toOperation(packet));
+        }
+
+        @Override
+        public Operation toOperation(Packet packet) {
             packets.add(packet);
-            Operation op = serializationService.toObject(packet);
-            run(op);
+            return serializationService.toObject(packet);
+        }
+
+        @Override
+        public Object readOperationType(Packet packet) throws Exception {
+            return ((SerializationServiceV1) serializationService).readDataSerializableType(packet);
         }
 
         @Override
@@ -0,0 +1,226 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.spi.impl.operationexecutor.impl;
+
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import com.hazelcast.nio.Packet;
+import com.hazelcast.spi.Operation;
+import com.hazelcast.spi.impl.operationexecutor.InlineExecutable;
+import com.hazelcast.test.AssertTask;
+import com.hazelcast.test.HazelcastSerialClassRunner;
+import com.hazelcast.test.annotation.QuickTest;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+
+import java.io.IOException;
+import java.util.List;
+
+import static com.hazelcast.spi.properties.GroupProperty.OPERATION_INLINE_EXECUTION_ENABLED;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests {@link OperationExecutorImpl#accept(Packet)} with the inline execution enabled.
+ */
+@RunWith(HazelcastSerialClassRunner.class)
+@Category(QuickTest.class)
+public class OperationExecutorImpl_InlineExecutionTest extends OperationExecutorImpl_AbstractTest {
+
+    @Before
+    public void before() {
+        config.setProperty(OPERATION_INLINE_EXECUTION_ENABLED.getName(), "true");
+    }
+
+    @Test
+    public void test_whenPartitionThreadIdle_thenRunByIOThread() throws Exception {
+        initExecutor();
+
+        Thread ioThread = acceptOnIOThread(new InlineOperation(0));
+
+        List<Operation> operations = runner(0).operations;
+        assertEquals(1, operations.size());
+        assertSame(ioThread, ((InlineOperation) operations.get(0)).executingThread);
+        assertEquals(1, runner(0).packets.size());
+    }
+
+    @Test
+    public void test_whenNotInlineExecutable_thenRunByPartitionThread() throws Exception {
+        initExecutor();
+
+        acceptOnIOThread(new InlineOperation(0).inlineExecutable(false));
+
+        assertRunByPartitionThread(0);
+    }
+
+    @Test
+    public void test_whenTypeNotInlineExecutable_thenDeserializedByPartitionThread() throws Exception {
+        initExecutor();
+
+        // the first operation of the type is deserialized by the IO thread to learn the type
+        acceptOnIOThread(new DeserializationRecordingOperation(0));
+        acceptOnIOThread(new DeserializationRecordingOperation(0));
+
+        assertTrueEventually(new AssertTask() {
+            @Override
+            public void run() {
+                assertEquals(2, runner(0).operations.size());
+            }
+        });
+        List<Operation> operations = runner(0).operations;
+        assertTrue(((DeserializationRecordingOperation) operations.get(0)).deserializingThread
+                instanceof DummyOperationHostileThread);
+        assertTrue(((DeserializationRecordingOperation) operations.get(1)).deserializingThread
+                instanceof PartitionOperationThread);
+    }
+
+    @Test
+    public void test_whenPartitionThreadBusy_thenRunByPartitionThreadInOrder() throws Exception {
+        initExecutor();
+        executor.execute(new DummyPartitionOperation(0).durationMs(1000));
+        assertTrueEventually(new AssertTask() {
+            @Override
+            public void run() {
+                assertEquals(1, runner(0).operations.size());
+            }
+        });
+
+        acceptOnIOThread(new InlineOperation(0));
+
+        assertTrueEventually(new AssertTask() {
+            @Override
+            public void run() {
+                assertEquals(2, runner(0).operations.size());
+            }
+        });
+        assertTrue(runner(0).operations.get(1) instanceof InlineOperation);
+        assertRunByPartitionThread(1);
+    }
+
+    @Test
+    public void test_whenDisabled_thenRunByPartitionThread() throws Exception {
+        config.setProperty(OPERATION_INLINE_EXECUTION_ENABLED.getName(), "false");
+        initExecutor();
+
+        acceptOnIOThread(new InlineOperation(0));
+
+        assertRunByPartitionThread(0);
+    }
+
+    @Test
+    public void test_whenAcceptedByNonIOThread_thenRunByPartitionThread() {
+        initExecutor();
+
+        executor.accept(toPacket(new InlineOperation(0)));
+
+        assertRunByPartitionThread(0);
+    }
+
+    private Thread acceptOnIOThread(Operation op) throws InterruptedException {
+        final Packet packet = toPacket(op);
+        Thread ioThread = new DummyOperationHostileThread(new Runnable() {
+            @Override
+            public void run() {
+                executor.accept(packet);
+            }
+        });
+        ioThread.start();
+        ioThread.join();
+        return ioThread;
+    }
+
+    private Packet toPacket(Operation op) {
+        return new Packet(serializationService.toBytes(op), op.getPartitionId()).setPacketType(Packet.Type.OPERATION);
+    }
+
+    private void assertRunByPartitionThread(final int index) {
+        assertTrueEventually(new AssertTask() {
+            @Override
+            public void run() {
+                List<Operation> operations = runner(0).operations;
+                assertTrue(operations.size() > index);
+                assertTrue(((InlineOperation) operations.get(index)).executingThread instanceof PartitionOperationThread);
+            }
+        });
+    }
+
+    private DummyOperationRunner runner(int partitionId) {
+        return (DummyOperationRunner) executor.getPartitionOperationRunners()[partitionId];
+    }
+
+    static class InlineOperation extends DummyPartitionOperation implements InlineExecutable {
+
+        private boolean inlineExecutable = true;
+        private transient volatile Thread executingThread;
+
+        InlineOperation() {
+        }
+
+        InlineOperation(int partitionId) {
+            super(partitionId);
+        }
+
+        InlineOperation inlineExecutable(boolean inlineExecutable) {
+            this.inlineExecutable = inlineExecutable;
+            return this;
+        }
+
+        @Override
+        public boolean isInlineExecutable() {
+            return inlineExecutable;
+        }
+
+        @Override
+        public void run() throws Exception {
+            executingThread = Thread.currentThread();
+            super.run();
+        }
+
+        @Override
+        protected void writeInternal(ObjectDataOutput out) throws IOException {
+            super.writeInternal(out);
+            out.writeBoolean(inlineExecutable);
+        }
+
+        @Override
+        protected void readInternal(ObjectDataInput in) throws IOException {
+            super.readInternal(in);
+            inlineExecutable = in.readBoolean();
+        }
+    }
+
+    static class DeserializationRecordingOperation extends DummyPartitionOperation {
+
+        private transient volatile Thread deserializingThread;
+
+        DeserializationRecordingOperation() {
+        }
+
+        DeserializationRecordingOperation(int partitionId) {
+            super(partitionId);
+        }
+
+        @Override
+        protected void readInternal(ObjectDataInput in) throws IOException {
+            super.readInternal(in);
+            deserializingThread = Thread.currentThread();
+        }
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.spi.impl.operationexecutor.impl;
+
+import com.hazelcast.internal.util.concurrent.MPSCQueue;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import static java.lang.String.format;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+/**
+ * Compares the throughput of the {@link OperationQueue} implementations of
+ * the partition threads: many producer threads, e.g. the IO threads, add
+ * tasks to the queue of a single consumer thread.
+ * <p>
+ * Every producer has at most {@link #WINDOW} tasks in flight, so the queues
+ * stay bounded. Run the main method with the number of the producers as the
+ * argument, the throughput of every implementation is printed.
+ */
+public class OperationQueueBenchmark {
+
+    private static final int DEFAULT_PRODUCER_COUNT = 8;
+    private static final int WARMUP_SECONDS = 5;
+    private static final int MEASUREMENT_SECONDS = 20;
+    private static final int WINDOW = 1000;
+    private static final int CAPACITY = 65536;
+    private static final Object POISON_PILL = new Object();
+
+    public static void main(String[] args) throws Exception {
+        int producerCount = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PRODUCER_COUNT;
+
+        for (int round = 0; round < 2; round++) {
+            MPSCQueue<Object> normalQueue = new MPSCQueue<Object>(null);
+            OperationQueueImpl linkedQueue = new OperationQueueImpl(normalQueue, new ConcurrentLinkedQueue<Object>());
+            ConsumerThread linkedConsumer = new ConsumerThread(linkedQueue, producerCount);
+            normalQueue.setConsumerThread(linkedConsumer);
+            run("linked", linkedConsumer, producerCount, round == 0);
+
+            MPSCOperationQueue arrayQueue = new MPSCOperationQueue(CAPACITY, null);
+            ConsumerThread arrayConsumer = new ConsumerThread(arrayQueue, producerCount);
+            arrayQueue.setConsumerThread(arrayConsumer);
+            run("array", arrayConsumer, producerCount, round == 0);
+        }
+    }
+
+    private static void run(String name, ConsumerThread consumer, int producerCount, boolean warmup) throws Exception {
+        AtomicBoolean stop = new AtomicBoolean();
+        ProducerThread[] producers = new ProducerThread[producerCount];
+        for (int k = 0; k < producerCount; k++) {
+            producers[k] = new ProducerThread(k, consumer, stop);
+        }
+
+        consumer.start();
+        for (ProducerThread producer : producers) {
+            producer.start();
+        }
+
+        long startNanos = System.nanoTime();
+        SECONDS.sleep(warmup ? WARMUP_SECONDS : MEASUREMENT_SECONDS);
+        stop.set(true);
+        for (ProducerThread producer : producers) {
+            producer.join();
+        }
+        consumer.join();
+        long elapsedNanos = System.nanoTime() - startNanos;
+
+        long consumed = 0;
+        for (int k = 0; k < producerCount; k++) {
+            consumed += consumer.consumed.get(k);
+        }
+        System.out.println(format("%s%s: %d producers, %d tasks in %d ms, %.0f tasks/second", warmup ? "warmup " : "",
+                name, producerCount, consumed, NANOSECONDS.toMillis(elapsedNanos),
+                consumed * (double) SECONDS.toNanos(1) / elapsedNanos));
+    }
+
+    private static final class ProducerThread extends Thread {
+
+        private final int id;
+        private final ConsumerThread consumer;
+        private final AtomicBoolean stop;
+
+        ProducerThread(int id, ConsumerThread consumer, AtomicBoolean stop) {
+            super("producer-" + id);
+            this.id = id;
+            this.consumer = consumer;
+            this.stop = stop;
+        }
+
+        @Override
+        public void run() {
+            OperationQueue queue = consumer.queue;
+            long produced = 0;
+            while (!stop.get()) {
+                if (produced - consumer.consumed.get(id) >= WINDOW) {
+                    Thread.yield();
+                    continue;
+                }
+                queue.add(new Task(id), false);
+                produced++;
+            }
+            queue.add(POISON_PILL, false);
+        }
+    }
+
+    private static final class ConsumerThread extends Thread {
+
+        private final OperationQueue queue;
+        private final int producerCount;
+        private final AtomicLongArray consumed;
+
+        ConsumerThread(OperationQueue queue, int producerCount) {
+            super("consumer");
+            this.queue = queue;
+            this.producerCount = producerCount;
+            this.consumed = new AtomicLongArray(producerCount);
+        }
+
+        @Override
+        public void run() {
+            int poisonPills = 0;
+            try {
+                while (poisonPills < producerCount) {
+                    Object task = queue.take(false);
+                    if (task == POISON_PILL) {
+                        poisonPills++;
+                    } else {
+                        int producerId = ((Task) task).producerId;
+                        // only this thread writes the counters
+                        consumed.lazySet(producerId, consumed.get(producerId) + 1);
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private static final class Task {
+
+        private final int producerId;
+
+        Task(int producerId) {
+            this.producerId = producerId;
+        }
+    }
+}
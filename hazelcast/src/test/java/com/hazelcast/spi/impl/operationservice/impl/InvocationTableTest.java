@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.spi.impl.operationservice.impl;
+
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import com.hazelcast.test.HazelcastTestSupport;
+import com.hazelcast.test.annotation.ParallelTest;
+import com.hazelcast.test.annotation.QuickTest;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.mock;
+
+@RunWith(HazelcastParallelClassRunner.class)
+@Category({QuickTest.class, ParallelTest.class})
+public class InvocationTableTest extends HazelcastTestSupport {
+
+    @Test
+    public void testStripeCountRoundedToPowerOfTwo() {
+        assertEquals(8, new InvocationTable(5, 100).stripeCount());
+    }
+
+    @Test
+    public void testPutGetRemove() {
+        InvocationTable table = new InvocationTable(4, 16);
+        Invocation invocation = mock(Invocation.class);
+
+        table.put(10, invocation);
+        assertSame(invocation, table.get(10));
+        assertNull(table.get(11));
+        assertEquals(1, table.size());
+
+        assertSame(invocation, table.remove(10));
+        assertNull(table.get(10));
+        assertNull(table.remove(10));
+        assertEquals(0, table.size());
+    }
+
+    @Test
+    public void testGrowsBeyondExpectedCapacity() {
+        InvocationTable table = new InvocationTable(4, 4);
+        Invocation[] invocations = new Invocation[1000];
+        for (int i = 0; i < invocations.length; i++) {
+            invocations[i] = mock(Invocation.class);
+            table.put(i, invocations[i]);
+        }
+
+        assertEquals(invocations.length, table.size());
+        for (int i = 0; i < invocations.length; i++) {
+            assertSame(invocations[i], table.get(i));
+        }
+    }
+
+    @Test
+    public void testIterator() {
+        InvocationTable table = new InvocationTable(4, 16);
+        Set<Invocation> expected = new HashSet<Invocation>();
+        for (int i = 0; i < 10; i++) {
+            Invocation invocation = mock(Invocation.class);
+            expected.add(invocation);
+            table.put(i, invocation);
+        }
+
+        Set<Invocation> actual = new HashSet<Invocation>();
+        for (Invocation invocation : table) {
+            actual.add(invocation);
+        }
+        assertEquals(expected, actual);
+        assertFalse(new InvocationTable(4, 16).iterator().hasNext());
+    }
+
+    @Test
+    public void testConcurrentAccess() throws Exception {
+        final InvocationTable table = new InvocationTable(4, 16);
+        final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+        final Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            final int threadIndex = t;
+            final Invocation invocation = mock(Invocation.class);
+            threads[t] = new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        for (long callId = threadIndex; callId < 40000; callId += threads.length) {
+                            table.put(callId, invocation);
+                            assertSame(invocation, table.get(callId));
+                            assertSame(invocation, table.remove(callId));
+                        }
+                    } catch (Throwable e) {
+                        failure.compareAndSet(null, e);
+                    }
+                }
+            };
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertNull(failure.get());
+        assertEquals(0, table.size());
+    }
+}
@@ -16,6 +16,7 @@
 
 package com.hazelcast.spi.impl.operationservice.impl;
 
+import com.hazelcast.instance.NodeExtension;
 import com.hazelcast.internal.serialization.InternalSerializationService;
 import com.hazelcast.internal.serialization.impl.DefaultSerializationServiceBuilder;
 import com.hazelcast.internal.serialization.impl.HeapData;
@@ -29,10 +30,15 @@ import com.hazelcast.nio.serialization.Portable;
 import com.hazelcast.nio.serialization.PortableReader;
 import com.hazelcast.nio.serialization.PortableWriter;
 import com.hazelcast.spi.Operation;
+import com.hazelcast.spi.impl.operationexecutor.OperationRunner;
+import com.hazelcast.spi.impl.operationexecutor.impl.OperationQueue;
+import com.hazelcast.spi.impl.operationexecutor.impl.OperationQueueImpl;
+import com.hazelcast.spi.impl.operationexecutor.impl.PartitionOperationThread;
 import com.hazelcast.spi.impl.operationservice.impl.responses.BackupAckResponse;
 import com.hazelcast.spi.impl.operationservice.impl.responses.CallTimeoutResponse;
 import com.hazelcast.spi.impl.operationservice.impl.responses.ErrorResponse;
 import com.hazelcast.spi.impl.operationservice.impl.responses.NormalResponse;
+import com.hazelcast.spi.impl.operationservice.impl.responses.Response;
 import com.hazelcast.test.HazelcastParametersRunnerFactory;
 import com.hazelcast.test.annotation.ParallelTest;
 import com.hazelcast.test.annotation.QuickTest;
@@ -48,15 +54,32 @@ import org.mockito.ArgumentCaptor;
 
 import java.io.IOException;
 import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+import java.util.concurrent.FutureTask;
 
+import static com.hazelcast.nio.Bits.INT_SIZE_IN_BYTES;
+import static com.hazelcast.nio.Bits.readInt;
 import static com.hazelcast.spi.OperationAccessor.setCallId;
 import static com.hazelcast.spi.OperationAccessor.setCallerAddress;
 import static com.hazelcast.spi.OperationAccessor.setConnection;
+import static com.hazelcast.spi.impl.SpiDataSerializerHook.RESPONSE_BATCH;
+import static com.hazelcast.spi.impl.operationservice.impl.OutboundResponseHandler.OFFSET_RESPONSE_COUNT;
+import static com.hazelcast.spi.impl.operationservice.impl.responses.Response.OFFSET_TYPE_ID;
+import static com.hazelcast.test.HazelcastTestSupport.ASSERT_TRUE_EVENTUALLY_TIMEOUT;
 import static java.nio.ByteOrder.BIG_ENDIAN;
 import static java.nio.ByteOrder.LITTLE_ENDIAN;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @RunWith(Parameterized.class)
@@ -68,6 +91,7 @@ public class OutboundResponseHandlerTest {
     public ByteOrder byteOrder;
 
     private OutboundResponseHandler handler;
+    private Address thisAddress;
     private InternalSerializationService serializationService;
     private ILogger logger = Logger.getLogger(OutboundResponseHandlerTest.class);
     private Address thatAddress;
@@ -84,7 +108,7 @@ public class OutboundResponseHandlerTest {
 
     @Before
     public void setup() throws Exception {
-        Address thisAddress = new Address("127.0.0.1", 5701);
+        thisAddress = new Address("127.0.0.1", 5701);
         thatAddress = new Address("127.0.0.1", 5702);
         serializationService = new DefaultSerializationServiceBuilder().setByteOrder(byteOrder).build();
         endpointManager = mock(EndpointManager.class);
@@ -239,6 +263,113 @@ public class OutboundResponseHandlerTest {
         assertEquals(expected, new HeapData(packet.toByteArray()));
     }
 
+    @Test
+    public void responseBatch_whenFlushed_thenResponsesSentAsSinglePacket() {
+        ArgumentCaptor<Packet> argument = ArgumentCaptor.forClass(Packet.class);
+        when(endpointManager.transmit(argument.capture(), eq(thatAddress))).thenReturn(true);
+        handler = new OutboundResponseHandler(thisAddress, serializationService, logger, 4);
+        OutboundResponseHandler.ResponseBatch batch = handler.newResponseBatch();
+
+        Packet normalResponse = handler.toNormalResponsePacket(1, 0, false, "foo");
+        Packet backupAck = handler.toBackupAckPacket(2, false);
+        batch.add(endpointManager, thatAddress, normalResponse);
+        batch.add(endpointManager, thatAddress, backupAck);
+        verify(endpointManager, never()).transmit(any(Packet.class), any(Address.class));
+
+        batch.flush();
+
+        assertBatch(argument.getValue(), normalResponse, backupAck);
+    }
+
+    @Test
+    public void responseBatch_whenFull_thenSent() {
+        ArgumentCaptor<Packet> argument = ArgumentCaptor.forClass(Packet.class);
+        when(endpointManager.transmit(argument.capture(), eq(thatAddress))).thenReturn(true);
+        handler = new OutboundResponseHandler(thisAddress, serializationService, logger, 2);
+        OutboundResponseHandler.ResponseBatch batch = handler.newResponseBatch();
+
+        Packet first = handler.toNormalResponsePacket(1, 0, false, "foo");
+        Packet second = handler.toNormalResponsePacket(2, 1, false, null);
+        batch.add(endpointManager, thatAddress, first);
+        batch.add(endpointManager, thatAddress, second);
+
+        assertBatch(argument.getValue(), first, second);
+
+        batch.flush();
+        verify(endpointManager, times(1)).transmit(any(Packet.class), any(Address.class));
+    }
+
+    @Test
+    public void responseBatch_whenSingleResponse_thenSentAsIs() {
+        ArgumentCaptor<Packet> argument = ArgumentCaptor.forClass(Packet.class);
+        when(endpointManager.transmit(argument.capture(), eq(thatAddress))).thenReturn(true);
+        handler = new OutboundResponseHandler(thisAddress, serializationService, logger, 4);
+        OutboundResponseHandler.ResponseBatch batch = handler.newResponseBatch();
+
+        batch.add(endpointManager, thatAddress, handler.toNormalResponsePacket(1, 0, false, "foo"));
+        batch.flush();
+
+        assertEquals(serializationService.toData(new NormalResponse("foo", 1, 0, false)), argument.getValue());
+    }
+
+    @Test
+    public void send_whenBatchingOnPartitionThreadAndConnected_thenBatched() throws Exception {
+        when(endpointManager.getConnection(thatAddress)).thenReturn(connection);
+        handler = new OutboundResponseHandler(thisAddress, serializationService, logger, 4);
+
+        boolean send = sendOnPartitionThread(new ErrorResponse(new Exception(), 1, false));
+
+        assertTrue(send);
+        verify(endpointManager, never()).transmit(any(Packet.class), any(Address.class));
+    }
+
+    @Test
+    public void send_whenBatchingOnPartitionThreadAndNotConnected_thenFailureReported() throws Exception {
+        when(endpointManager.transmit(any(Packet.class), eq(thatAddress))).thenReturn(false);
+        handler = new OutboundResponseHandler(thisAddress, serializationService, logger, 4);
+
+        boolean send = sendOnPartitionThread(new ErrorResponse(new Exception(), 1, false));
+
+        assertFalse(send);
+        verify(endpointManager, times(1)).transmit(any(Packet.class), eq(thatAddress));
+    }
+
+    private boolean sendOnPartitionThread(final Response response) throws Exception {
+        FutureTask<Boolean> task = new FutureTask<Boolean>(new Callable<Boolean>() {
+            @Override
+            public Boolean call() {
+                return handler.send(endpointManager, thatAddress, response);
+            }
+        });
+        OperationQueue queue = new OperationQueueImpl();
+        queue.add(task, false);
+        PartitionOperationThread thread = new PartitionOperationThread("partitionThread", 0, queue, logger,
+                mock(NodeExtension.class), new OperationRunner[]{mock(OperationRunner.class)}, getClass().getClassLoader());
+        thread.start();
+        try {
+            return task.get(ASSERT_TRUE_EVENTUALLY_TIMEOUT, SECONDS);
+        } finally {
+            thread.shutdown();
+            thread.awaitTermination(ASSERT_TRUE_EVENTUALLY_TIMEOUT, SECONDS);
+        }
+    }
+
+    private void assertBatch(Packet batch, Packet... responses) {
+        boolean bigEndian = byteOrder == BIG_ENDIAN;
+        byte[] bytes = batch.toByteArray();
+        assertEquals(RESPONSE_BATCH, readInt(bytes, OFFSET_TYPE_ID, bigEndian));
+        assertEquals(responses.length, readInt(bytes, OFFSET_RESPONSE_COUNT, bigEndian));
+
+        int position = OFFSET_RESPONSE_COUNT + INT_SIZE_IN_BYTES;
+        for (Packet response : responses) {
+            int length = readInt(bytes, position, bigEndian);
+            position += INT_SIZE_IN_BYTES;
+            assertArrayEquals(response.toByteArray(), Arrays.copyOfRange(bytes, position, position + length));
+            position += length;
+        }
+        assertEquals(bytes.length, position);
+    }
+
     static class PortableAddress implements Portable {
 
         private String street;
@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.spi.impl.operationservice.impl;
+
+import com.hazelcast.config.Config;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.ICompletableFuture;
+import com.hazelcast.core.IMap;
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import com.hazelcast.test.HazelcastTestSupport;
+import com.hazelcast.test.annotation.ParallelTest;
+import com.hazelcast.test.annotation.QuickTest;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.hazelcast.spi.properties.GroupProperty.RESPONSE_BATCH_SIZE;
+import static org.junit.Assert.assertEquals;
+
+@RunWith(HazelcastParallelClassRunner.class)
+@Category({QuickTest.class, ParallelTest.class})
+public class ResponseBatchingTest extends HazelcastTestSupport {
+
+    private static final int KEY_COUNT = 1000;
+
+    @Test
+    public void testResponsesDelivered() throws Exception {
+        Config config = getConfig().setProperty(RESPONSE_BATCH_SIZE.getName(), "16");
+        HazelcastInstance[] instances = createHazelcastInstanceFactory(2).newInstances(config);
+        warmUpPartitions(instances);
+        IMap<Integer, Integer> map = instances[0].getMap(randomMapName());
+
+        List<ICompletableFuture<Integer>> puts = new ArrayList<ICompletableFuture<Integer>>();
+        for (int i = 0; i < KEY_COUNT; i++) {
+            puts.add(map.putAsync(i, i));
+        }
+        for (ICompletableFuture<Integer> put : puts) {
+            put.get();
+        }
+
+        List<ICompletableFuture<Integer>> gets = new ArrayList<ICompletableFuture<Integer>>();
+        for (int i = 0; i < KEY_COUNT; i++) {
+            gets.add(map.getAsync(i));
+        }
+        for (int i = 0; i < KEY_COUNT; i++) {
+            assertEquals(i, (int) gets.get(i).get());
+        }
+        assertEquals(KEY_COUNT, map.size());
+    }
+}
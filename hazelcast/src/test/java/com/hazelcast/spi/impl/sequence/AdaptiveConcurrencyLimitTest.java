@@ -0,0 +1,199 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hazelcast.spi.impl.sequence;
+
+import com.hazelcast.core.HazelcastOverloadException;
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import com.hazelcast.test.annotation.ParallelTest;
+import com.hazelcast.test.annotation.QuickTest;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+
+import static com.hazelcast.spi.impl.sequence.AdaptiveConcurrencyLimit.BASELINE_DRIFT_INTERVAL_NANOS;
+import static com.hazelcast.spi.impl.sequence.AdaptiveConcurrencyLimit.WINDOW_SIZE;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(HazelcastParallelClassRunner.class)
+@Category({QuickTest.class, ParallelTest.class})
+public class AdaptiveConcurrencyLimitTest {
+
+    private static final long BASELINE = 1000;
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testConstruct_whenMaxSmallerThanMin() {
+        new AdaptiveConcurrencyLimit(10, 5, 2);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testConstruct_whenToleranceSmallerThanOne() {
+        new AdaptiveConcurrencyLimit(1, 5, 0.5);
+    }
+
+    @Test
+    public void testInitialLimitIsMax() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(10, 1000, 2);
+
+        assertEquals(1000, limit.getLimit());
+        assertEquals(Long.MAX_VALUE, limit.getBaselineLatencyNanos());
+    }
+
+    @Test
+    public void testLimitUnchangedWithinWindow() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(10, 1000, 2);
+        for (int i = 0; i < WINDOW_SIZE - 1; i++) {
+            limit.onSample(BASELINE, 1000);
+        }
+
+        assertEquals(1000, limit.getLimit());
+        assertEquals(Long.MAX_VALUE, limit.getBaselineLatencyNanos());
+    }
+
+    @Test
+    public void testLimitDecreasedOnLatencyGrowth() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(10, 1000, 2);
+        window(limit, BASELINE, 500);
+        assertEquals(BASELINE, limit.getBaselineLatencyNanos());
+        assertEquals(1000, limit.getLimit());
+
+        // 4 times the baseline: the limit, capped by the in-flight count, is about halved
+        window(limit, 4 * BASELINE, 500);
+        assertBetween(limit.getLimit(), 250, 260);
+
+        window(limit, 4 * BASELINE, 250);
+        assertBetween(limit.getLimit(), 125, 130);
+    }
+
+    @Test
+    public void testLimitNotBelowMin() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(100, 1000, 2);
+        window(limit, BASELINE, 1000);
+        for (int i = 0; i < 10; i++) {
+            window(limit, 100 * BASELINE, 1000);
+        }
+
+        assertEquals(100, limit.getLimit());
+    }
+
+    @Test
+    public void testLimitRecoversWhenLatencyRecovers() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(10, 1000, 2);
+        window(limit, BASELINE, 100);
+        window(limit, 4 * BASELINE, 100);
+        assertEquals(50, limit.getLimit());
+
+        window(limit, BASELINE, 50);
+        assertEquals(57, limit.getLimit());
+
+        for (int i = 0; i < 1000; i++) {
+            window(limit, BASELINE, limit.getLimit());
+        }
+        assertEquals(1000, limit.getLimit());
+    }
+
+    @Test
+    public void testLimitNotIncreasedWhenNotBoundByLimit() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(10, 1000, 2);
+        window(limit, BASELINE, 100);
+        window(limit, 4 * BASELINE, 100);
+        assertEquals(50, limit.getLimit());
+
+        window(limit, BASELINE, 5);
+        assertEquals(50, limit.getLimit());
+    }
+
+    @Test
+    public void testBaselineNotDriftingUnderSustainedOverload() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(10, 1000, 2);
+        long nowNanos = 0;
+        window(limit, BASELINE, 1000, nowNanos);
+
+        // a second of overload at a high throughput
+        for (int i = 0; i < 10000; i++) {
+            nowNanos += BASELINE_DRIFT_INTERVAL_NANOS / 100000;
+            window(limit, 4 * BASELINE, limit.getLimit(), nowNanos);
+        }
+
+        assertEquals(BASELINE, limit.getBaselineLatencyNanos());
+        assertEquals(10, limit.getLimit());
+    }
+
+    @Test
+    public void testBaselineDriftsWithTime() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(10, 1000, 2);
+        window(limit, BASELINE, 1000, 0);
+
+        window(limit, 4 * BASELINE, 1000, BASELINE_DRIFT_INTERVAL_NANOS - 1);
+        assertEquals(BASELINE, limit.getBaselineLatencyNanos());
+
+        window(limit, 4 * BASELINE, 1000, BASELINE_DRIFT_INTERVAL_NANOS);
+        assertEquals(BASELINE + (BASELINE >> 6), limit.getBaselineLatencyNanos());
+
+        window(limit, 4 * BASELINE, 1000, BASELINE_DRIFT_INTERVAL_NANOS + 1);
+        assertEquals(BASELINE + (BASELINE >> 6), limit.getBaselineLatencyNanos());
+    }
+
+    @Test
+    public void testOutliersCapped() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(10, 1000, 2);
+        window(limit, BASELINE, 1000);
+
+        limit.onSample(1000000 * BASELINE, 1000);
+        for (int i = 0; i < WINDOW_SIZE - 1; i++) {
+            limit.onSample(BASELINE, 1000);
+        }
+
+        assertEquals(1000, limit.getLimit());
+    }
+
+    @Test(expected = HazelcastOverloadException.class)
+    public void testSequenceAppliesAdaptiveLimit() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(1, 1000, 2);
+        FailFastCallIdSequence sequence = new FailFastCallIdSequence(1000, limit);
+        for (int i = 0; i < 2; i++) {
+            sequence.next();
+        }
+        for (int i = 0; i < WINDOW_SIZE; i++) {
+            sequence.recordLatency(BASELINE);
+        }
+        for (int i = 0; i < WINDOW_SIZE; i++) {
+            sequence.recordLatency(4 * BASELINE);
+        }
+        assertEquals(1, sequence.getConcurrencyLimit());
+        assertTrue(sequence.getMaxConcurrentInvocations() > sequence.getConcurrencyLimit());
+
+        sequence.next();
+    }
+
+    private static void assertBetween(int actual, int min, int max) {
+        assertTrue("expected between " + min + " and " + max + " but was " + actual, actual >= min && actual <= max);
+    }
+
+    private static void window(AdaptiveConcurrencyLimit limit, long latencyNanos, long inFlight) {
+        for (int i = 0; i < WINDOW_SIZE; i++) {
+            limit.onSample(latencyNanos, inFlight);
+        }
+    }
+
+    private static void window(AdaptiveConcurrencyLimit limit, long latencyNanos, long inFlight, long nowNanos) {
+        for (int i = 0; i < WINDOW_SIZE; i++) {
+            limit.onSample(latencyNanos, inFlight, nowNanos);
+        }
+    }
+}
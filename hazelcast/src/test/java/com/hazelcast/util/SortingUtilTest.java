@@ -0,0 +1,131 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.util;
+
+import com.hazelcast.query.PagingPredicate;
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import com.hazelcast.test.annotation.ParallelTest;
+import com.hazelcast.test.annotation.QuickTest;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static com.hazelcast.query.PagingPredicateAccessor.getNearestAnchorEntry;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(HazelcastParallelClassRunner.class)
+@Category({QuickTest.class, ParallelTest.class})
+public class SortingUtilTest {
+
+    private static final Comparator<Integer> NATURAL = new Comparator<Integer>() {
+        @Override
+        public int compare(Integer o1, Integer o2) {
+            return o1.compareTo(o2);
+        }
+    };
+
+    @Test
+    public void testMergeSortedRuns_againstSort() {
+        Random random = new Random(42);
+        for (int round = 0; round < 100; round++) {
+            List<Integer> list = new LinkedList<Integer>();
+            int runCount = random.nextInt(10);
+            for (int run = 0; run < runCount; run++) {
+                List<Integer> sortedRun = new ArrayList<Integer>();
+                int runSize = random.nextInt(50);
+                for (int i = 0; i < runSize; i++) {
+                    sortedRun.add(random.nextInt(1000));
+                }
+                Collections.sort(sortedRun);
+                list.addAll(sortedRun);
+            }
+            int limit = random.nextInt(200);
+
+            List<Integer> expected = new ArrayList<Integer>(list);
+            Collections.sort(expected);
+            expected = expected.subList(0, Math.min(limit, expected.size()));
+            assertEquals(expected, SortingUtil.mergeSortedRuns(list, NATURAL, limit));
+        }
+    }
+
+    @Test
+    public void testMergeSortedRuns_unsortedInput() {
+        List<Integer> list = new ArrayList<Integer>();
+        for (int i = 0; i < 100; i++) {
+            list.add((i * 37) % 101);
+        }
+
+        List<Integer> expected = new ArrayList<Integer>(list);
+        Collections.sort(expected);
+        assertEquals(expected, SortingUtil.mergeSortedRuns(list, NATURAL, Integer.MAX_VALUE));
+    }
+
+    @Test
+    public void testGetSortedQueryResultSet_pagesOverMergedRuns() {
+        List<Map.Entry> entries = new ArrayList<Map.Entry>();
+        // three sorted member results interleaving each other
+        for (int member = 0; member < 3; member++) {
+            for (int i = member; i < 30; i += 3) {
+                entries.add(new SimpleImmutableEntry<Integer, Integer>(i, i));
+            }
+        }
+
+        for (int page = 0; page < 5; page++) {
+            PagingPredicate<Integer, Integer> pagingPredicate = new PagingPredicate<Integer, Integer>(7);
+            pagingPredicate.setIterationType(IterationType.KEY);
+            pagingPredicate.setPage(page);
+
+            List<Object> actual = new ArrayList<Object>(
+                    SortingUtil.getSortedQueryResultSet(new ArrayList<Map.Entry>(entries), pagingPredicate,
+                            IterationType.KEY));
+            List<Object> expected = new ArrayList<Object>();
+            for (int i = page * 7; i < Math.min(30, (page + 1) * 7); i++) {
+                expected.add(i);
+            }
+            assertEquals(expected, actual);
+
+            if ((page + 1) * 7 <= 30) {
+                pagingPredicate.nextPage();
+                Map.Entry<Integer, Map.Entry> anchor = getNearestAnchorEntry(pagingPredicate);
+                assertEquals(page, (int) anchor.getKey());
+                assertEquals((page + 1) * 7 - 1, anchor.getValue().getKey());
+            }
+        }
+    }
+
+    @Test
+    public void testGetSortedQueryResultSet_pageBeyondResults() {
+        List<Map.Entry> entries = new ArrayList<Map.Entry>();
+        entries.add(new SimpleImmutableEntry<Integer, Integer>(1, 1));
+        PagingPredicate<Integer, Integer> pagingPredicate = new PagingPredicate<Integer, Integer>(7);
+        pagingPredicate.setIterationType(IterationType.KEY);
+        pagingPredicate.setPage(3);
+
+        assertTrue(SortingUtil.getSortedQueryResultSet(entries, pagingPredicate, IterationType.KEY).isEmpty());
+    }
+
+}
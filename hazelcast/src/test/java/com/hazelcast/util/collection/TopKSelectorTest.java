@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.util.collection;
+
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import com.hazelcast.test.annotation.ParallelTest;
+import com.hazelcast.test.annotation.QuickTest;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(HazelcastParallelClassRunner.class)
+@Category({QuickTest.class, ParallelTest.class})
+public class TopKSelectorTest {
+
+    private static final Comparator<Integer> NATURAL = new Comparator<Integer>() {
+        @Override
+        public int compare(Integer o1, Integer o2) {
+            return o1.compareTo(o2);
+        }
+    };
+
+    @Test
+    public void testOffer_returnsDiscardedItem() {
+        TopKSelector<Integer> selector = new TopKSelector<Integer>(2, NATURAL);
+
+        assertNull(selector.offer(5));
+        assertNull(selector.offer(3));
+        Integer largest = 7;
+        assertSame(largest, selector.offer(largest));
+        assertEquals(5, (int) selector.offer(1));
+        assertEquals(2, selector.size());
+        assertEquals(asList(1, 3), selector.toSortedList());
+    }
+
+    @Test
+    public void testZeroK() {
+        TopKSelector<Integer> selector = new TopKSelector<Integer>(0, NATURAL);
+
+        assertEquals(1, (int) selector.offer(1));
+        assertTrue(selector.toSortedList().isEmpty());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeK() {
+        new TopKSelector<Integer>(-1, NATURAL);
+    }
+
+    @Test
+    public void testSelection_againstSort() {
+        Random random = new Random(42);
+        for (int round = 0; round < 100; round++) {
+            int k = random.nextInt(100);
+            int count = random.nextInt(500);
+            TopKSelector<Integer> selector = new TopKSelector<Integer>(k, NATURAL);
+            List<Integer> items = new ArrayList<Integer>();
+            for (int i = 0; i < count; i++) {
+                Integer item = random.nextInt(1000);
+                items.add(item);
+                selector.offer(item);
+            }
+
+            Collections.sort(items);
+            assertEquals(items.subList(0, Math.min(k, count)), selector.toSortedList());
+        }
+    }
+
+}